@@ -0,0 +1,45 @@
+package com.muyingmall.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 按ID批量读取的缓存注解
+ * 每个ID单独缓存为 {keyPrefix}{id}：先查 L1，再一次 MGET 查 Redis，只把仍未命中的ID交给目标方法，
+ * 查询结果通过一次管道写回 Redis（TTL 带随机抖动），数据库中不存在的ID写入空值标记防止穿透
+ *
+ * 目标方法约定：第一个参数为ID集合，返回以ID为键的 Map；切面调用时第一个参数替换为未命中的ID列表，
+ * 方法体只需按传入的ID执行一次 IN 查询
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface BatchCacheable {
+
+    /**
+     * 单个ID的缓存键前缀，完整键为 {keyPrefix}{id}
+     */
+    String keyPrefix();
+
+    /**
+     * Redis (L2) 缓存过期时间（秒），写入时加入随机抖动
+     * 默认 30 分钟
+     */
+    long expireTime() default 1800;
+
+    /**
+     * 是否启用 Caffeine (L1) 本地缓存
+     * 默认 false。本地缓存返回的是共享实例，调用方会修改返回对象时不要启用
+     */
+    boolean useLocalCache() default false;
+
+    /**
+     * Caffeine (L1) 本地缓存过期时间（秒）
+     */
+    long localExpireSeconds() default 60;
+
+    /**
+     * 不存在的ID的空值标记过期时间（秒）
+     * 默认 60 秒，0 表示不缓存空值
+     */
+    long nullExpireSeconds() default 60;
+}
@@ -19,8 +19,9 @@ public @interface CacheEvict {
     String[] keyPrefixes();
 
     /**
-     * 是否清除所有匹配的键
-     * 默认 true
+     * 是否清除前缀下的所有条目
+     * 默认 true。前缀整体失效通过递增命名空间代号完成，不扫描 Redis 键空间，
+     * 因此对应的 @Cacheable 必须为 versioned（默认）
      */
     boolean allEntries() default true;
 
@@ -29,4 +30,11 @@ public @interface CacheEvict {
      * 默认 false（仅清 Redis）
      */
     boolean useLocalCache() default false;
+
+    /**
+     * 是否按带代号的命名空间失效
+     * 默认 true。每个 keyPrefix 只递增一次代号，旧条目随 TTL 过期；其他节点的本地代号通过 Pub/Sub 广播同步清除。
+     * 仅当 versioned=false 且 allEntries=false 时把 keyPrefix 当作完整键精确删除
+     */
+    boolean versioned() default true;
 }
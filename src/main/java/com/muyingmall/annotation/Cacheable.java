@@ -42,4 +42,24 @@ public @interface Cacheable {
      * 默认 60 秒。L1 TTL 应显著小于 L2 TTL，控制脏数据窗口
      */
     long localExpireSeconds() default 60;
+
+    /**
+     * 是否把 keyPrefix 作为带代号的命名空间
+     * 默认 true。缓存键为 {keyPrefix}v{代号}:{参数}，由 @CacheEvict 递增代号整体失效；
+     * 设为 false 时缓存键为 {keyPrefix}{参数}，只能由 @CacheEvict(versioned = false, allEntries = false) 精确清除
+     */
+    boolean versioned() default true;
+
+    /**
+     * 软过期时间（秒）
+     * 默认 0（不启用，expireTime 到期即失效）。启用后 expireTime 作为硬过期时间：
+     * 软过期后先返回旧值，同时由后台虚拟线程执行目标方法刷新缓存；取值不能大于 expireTime
+     */
+    long softExpireSeconds() default 0;
+
+    /**
+     * 提前刷新窗口（秒），仅在 softExpireSeconds > 0 时生效
+     * 默认 0。软过期前该窗口内仍被访问的键提前在后台刷新，热点键不会进入过期状态
+     */
+    long refreshAheadSeconds() default 0;
 }
@@ -0,0 +1,58 @@
+package com.muyingmall.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 集群定时任务注解，与 @Scheduled 一起标注在定时方法上
+ * 每个节点照常按 @Scheduled 触发，由切面在执行前获取 Redis 租约决定本节点是否真正执行：
+ * <ul>
+ * <li>{@link Mode#SINGLETON}：整个集群同一时间只有一个节点执行</li>
+ * <li>{@link Mode#SHARDED}：任务拆成固定数量的逻辑分片，按存活节点均分，每个分片单独租约，
+ * 方法按本节点认领的分片逐个调用，通过 {@code ClusterJobContext.shardIndex()/shardTotal()} 取得当前分片</li>
+ * <li>{@link Mode#LOCAL}：每个节点都执行（只服务本节点的任务，如推送本节点 WebSocket 连接），只上报指标</li>
+ * </ul>
+ * 执行期间租约按 leaseMs/3 的间隔续期，每次获取租约都会发放严格递增的隔离令牌；
+ * 续期失败（如长时间停顿后租约已被他人接管）时 {@code ClusterJobContext.isLeaseLost()} 变为 true，
+ * 分批处理的任务应在批次之间检查并提前结束
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ClusterJob {
+
+    /**
+     * 任务名，也是租约键的一部分
+     * 默认 {类名}.{方法名}
+     */
+    String name() default "";
+
+    /**
+     * 执行模式
+     */
+    Mode mode() default Mode.SINGLETON;
+
+    /**
+     * 租约时长（毫秒），执行期间自动续期；节点宕机后最多这么久其他节点可以接管
+     * 默认 60 秒
+     */
+    long leaseMs() default 60000;
+
+    /**
+     * 执行结束后租约至少保留到开始后多少毫秒
+     * 各节点的触发时间不同步，执行结束立即释放会让其他节点在同一周期内再执行一次；
+     * 保留期内本节点可以再次获取（持有者不变），其他节点跳过。默认 0，执行结束即释放
+     */
+    long minHoldMs() default 0;
+
+    /**
+     * 分片模式下的逻辑分片数，支持 ${...} 占位符
+     * 分片数与节点数无关，节点增减时只是重新分配分片
+     */
+    String shards() default "16";
+
+    enum Mode {
+        SINGLETON,
+        SHARDED,
+        LOCAL
+    }
+}
@@ -1,9 +1,18 @@
 package com.muyingmall.aspect;
 
+import com.muyingmall.annotation.BatchCacheable;
 import com.muyingmall.annotation.CacheEvict;
 import com.muyingmall.annotation.Cacheable;
+import com.muyingmall.cache.BatchCacheLoader;
+import com.muyingmall.cache.BatchCacheSpec;
+import com.muyingmall.cache.CacheEnvelope;
 import com.muyingmall.cache.CacheEvictPublisher;
+import com.muyingmall.cache.CacheMetrics;
+import com.muyingmall.cache.CacheNamespaces;
+import com.muyingmall.cache.CachePolicy;
+import com.muyingmall.cache.CacheRefresher;
 import com.muyingmall.cache.LocalCache;
+import com.muyingmall.cache.SingleFlight;
 import com.muyingmall.util.RedisUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,16 +24,21 @@ import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.Set;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
  * 缓存切面
- * 处理 @Cacheable 和 @CacheEvict 注解
+ * 处理 @Cacheable、@BatchCacheable 和 @CacheEvict 注解
  * 支持：
  *   - Redis (L2) 单层缓存（默认）
  *   - Caffeine (L1) + Redis (L2) 二级缓存（useLocalCache=true）
+ *   - 带代号的命名空间（versioned=true）：失效只递增代号，不扫描键空间
+ *   - 软过期（softExpireSeconds>0）：过期后先返回旧值并在后台刷新，可选提前刷新
  * 二级缓存失效通过 Redis Pub/Sub 广播保证多节点 L1 一致性
+ * 读取结果、回源耗时与合并等待按注解的 keyPrefix 归入命名空间上报（见 {@link CacheMetrics}）
  *
  * 来源：性能优化 - Redis + Caffeine 二级缓存增强
  */
@@ -37,12 +51,18 @@ public class CacheAspect {
     private final RedisUtil redisUtil;
     private final LocalCache localCache;
     private final CacheEvictPublisher cacheEvictPublisher;
+    private final CacheNamespaces cacheNamespaces;
+    private final SingleFlight singleFlight;
+    private final CacheRefresher cacheRefresher;
+    private final BatchCacheLoader batchCacheLoader;
+    private final CacheMetrics cacheMetrics;
 
     /**
      * 处理 @Cacheable 注解
      * 读流程：
      *   useLocalCache=true 时：L1 -> L2 -> DB -> 回填 L1+L2
      *   useLocalCache=false 时：L2 -> DB -> 回填 L2
+     * 本节点内同一缓存键的并发未命中经 SingleFlight 合并，只执行一次目标方法
      */
     @Around("@annotation(com.muyingmall.annotation.Cacheable)")
     public Object handleCacheable(ProceedingJoinPoint joinPoint) throws Throwable {
@@ -53,34 +73,99 @@ public class CacheAspect {
             return joinPoint.proceed();
         }
 
-        String cacheKey = generateCacheKey(cacheable.keyPrefix(), joinPoint.getArgs(), cacheable.useParams());
+        String cacheKey = cacheable.versioned()
+                ? cacheNamespaces.key(cacheable.keyPrefix(),
+                        generateCacheKey("", joinPoint.getArgs(), cacheable.useParams()))
+                : generateCacheKey(cacheable.keyPrefix(), joinPoint.getArgs(), cacheable.useParams());
         boolean useLocal = cacheable.useLocalCache();
         long localTtl = cacheable.localExpireSeconds();
+        CachePolicy policy = softTtlPolicy(cacheable);
+        String namespace = CacheMetrics.namespaceOf(cacheable.keyPrefix());
 
         // L1 查询
         if (useLocal) {
-            Object l1Value = localCache.get(localTtl, cacheKey);
+            Object l1Value = localCache.get(cacheKey);
+            // 热点Key提升到 L1 的是 Redis 原值，软过期键为信封
+            if (l1Value instanceof CacheEnvelope envelope) {
+                l1Value = envelope.getValue();
+            }
             if (l1Value != null) {
                 log.debug("L1 命中: {}", cacheKey);
+                cacheMetrics.recordL1Hit(namespace);
                 return l1Value;
             }
         }
 
         // L2 查询
+        long lookupStart = System.nanoTime();
         Object l2Value = redisUtil.get(cacheKey);
+        long lookupNanos = System.nanoTime() - lookupStart;
+        if (l2Value instanceof CacheEnvelope envelope) {
+            if (policy != null) {
+                cacheRefresher.refreshIfDue(cacheKey, envelope, policy, () -> proceedForRefresh(joinPoint));
+            }
+            l2Value = envelope.getValue();
+        }
         if (l2Value != null) {
             log.debug("L2 命中: {}", cacheKey);
+            cacheMetrics.recordL2Hit(namespace, lookupNanos);
+            if (useLocal) {
+                localCache.put(localTtl, cacheKey, l2Value);
+            }
+            return l2Value;
+        }
+
+        // 缓存全部未命中，合并并发请求后执行方法
+        cacheMetrics.recordMiss(namespace, lookupNanos);
+        boolean[] loaded = new boolean[1];
+        try {
+            Object result = singleFlight.execute(cacheKey, () -> {
+                loaded[0] = true;
+                return loadAndCache(joinPoint, cacheable, policy, cacheKey, namespace);
+            });
+            if (!loaded[0]) {
+                cacheMetrics.recordContention(namespace, CacheMetrics.ContentionSource.LOCAL);
+            }
+            return result;
+        } catch (ThrowableWrapper wrapper) {
+            throw wrapper.getCause();
+        }
+    }
+
+    /**
+     * 合并后的加载：再查一次 L2（合并窗口内可能已回填），仍未命中才执行方法并回填
+     */
+    private Object loadAndCache(ProceedingJoinPoint joinPoint, Cacheable cacheable, CachePolicy policy,
+            String cacheKey, String namespace) {
+        boolean useLocal = cacheable.useLocalCache();
+        long localTtl = cacheable.localExpireSeconds();
+        Object l2Value = redisUtil.get(cacheKey);
+        if (l2Value instanceof CacheEnvelope envelope) {
+            l2Value = envelope.getValue();
+        }
+        if (l2Value != null) {
             if (useLocal) {
                 localCache.put(localTtl, cacheKey, l2Value);
             }
             return l2Value;
         }
 
-        // 缓存全部未命中，执行方法
         log.debug("缓存未命中，执行方法: {}", cacheKey);
-        Object result = joinPoint.proceed();
+        Object result;
+        long loadStart = System.nanoTime();
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable t) {
+            // 目标方法可能抛出受检异常，包装后在切面出口原样抛出
+            throw new ThrowableWrapper(t);
+        }
+        cacheMetrics.recordLoad(namespace, System.nanoTime() - loadStart, result);
         if (result != null) {
-            redisUtil.set(cacheKey, result, cacheable.expireTime());
+            if (policy != null) {
+                cacheRefresher.put(cacheKey, result, policy);
+            } else {
+                redisUtil.set(cacheKey, result, cacheable.expireTime());
+            }
             if (useLocal) {
                 localCache.put(localTtl, cacheKey, result);
             }
@@ -90,9 +175,73 @@ public class CacheAspect {
         return result;
     }
 
+    /**
+     * 注解启用软过期时构造对应策略，否则返回 null
+     */
+    private static CachePolicy softTtlPolicy(Cacheable cacheable) {
+        if (cacheable.softExpireSeconds() <= 0) {
+            return null;
+        }
+        return new CachePolicy(cacheable.softExpireSeconds(), cacheable.expireTime(),
+                cacheable.refreshAheadSeconds());
+    }
+
+    /**
+     * 后台刷新时再次执行目标方法；刷新在虚拟线程中进行，不继承请求线程的事务等上下文
+     */
+    private static Object proceedForRefresh(ProceedingJoinPoint joinPoint) throws Exception {
+        try {
+            return joinPoint.proceed();
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new ThrowableWrapper(t);
+        }
+    }
+
+    /**
+     * 处理 @BatchCacheable 注解
+     * 读流程：L1（可选）-> Redis MGET -> 以未命中的ID列表执行目标方法 -> 管道回填 Redis
+     */
+    @Around("@annotation(com.muyingmall.annotation.BatchCacheable)")
+    @SuppressWarnings("unchecked")
+    public Object handleBatchCacheable(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        BatchCacheable batchCacheable = signature.getMethod().getAnnotation(BatchCacheable.class);
+        Object[] args = joinPoint.getArgs();
+        if (batchCacheable == null || args.length == 0 || !(args[0] instanceof Collection<?> ids)) {
+            return joinPoint.proceed();
+        }
+
+        BatchCacheSpec spec = new BatchCacheSpec(batchCacheable.keyPrefix(), batchCacheable.expireTime(),
+                batchCacheable.useLocalCache() ? batchCacheable.localExpireSeconds() : 0,
+                batchCacheable.nullExpireSeconds());
+        try {
+            return batchCacheLoader.load(spec, (Collection<Object>) ids,
+                    misses -> proceedWithIds(joinPoint, args, misses));
+        } catch (ThrowableWrapper wrapper) {
+            throw wrapper.getCause();
+        }
+    }
+
+    /**
+     * 把第一个参数替换为未命中的ID列表后执行目标方法
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> proceedWithIds(ProceedingJoinPoint joinPoint, Object[] args, List<?> ids) {
+        Object[] narrowed = args.clone();
+        narrowed[0] = ids;
+        try {
+            return (Map<Object, Object>) joinPoint.proceed(narrowed);
+        } catch (Throwable t) {
+            throw new ThrowableWrapper(t);
+        }
+    }
+
     /**
      * 处理 @CacheEvict 注解
-     * 清除 L2；useLocalCache=true 时同步清除本节点 L1 并发布 Pub/Sub 广播
+     * 前缀整体失效一律递增命名空间代号；仅 versioned=false 且 allEntries=false 时按精确键清除 L2，
+     * useLocalCache=true 时同步清除本节点 L1 并发布 Pub/Sub 广播
      */
     @Around("@annotation(com.muyingmall.annotation.CacheEvict)")
     public Object handleCacheEvict(ProceedingJoinPoint joinPoint) throws Throwable {
@@ -107,18 +256,10 @@ public class CacheAspect {
 
         boolean useLocal = cacheEvict.useLocalCache();
         for (String keyPrefix : cacheEvict.keyPrefixes()) {
-            if (cacheEvict.allEntries()) {
-                // 前缀批量清 L2
-                Set<String> keys = redisUtil.scan(keyPrefix + "*");
-                if (keys != null && !keys.isEmpty()) {
-                    redisUtil.del(keys.toArray(new String[0]));
-                    log.debug("L2 按前缀清除: {} ({} keys)", keyPrefix, keys.size());
-                }
-                // L1 本地 + 广播
-                if (useLocal) {
-                    localCache.evictByPrefix(keyPrefix);
-                    cacheEvictPublisher.publishPrefix(keyPrefix);
-                }
+            if (cacheEvict.versioned() || cacheEvict.allEntries()) {
+                // 递增代号：L2/L1 中的旧条目不再被读取，随各自 TTL 过期，不扫描 Redis 键空间
+                cacheNamespaces.bump(keyPrefix);
+                log.debug("命名空间代号递增: {}", keyPrefix);
             } else {
                 // 精确清 L2
                 redisUtil.del(keyPrefix);
@@ -145,4 +286,13 @@ public class CacheAspect {
                 .collect(Collectors.joining(":"));
         return prefix + paramStr;
     }
+
+    /**
+     * 透传目标方法异常的包装，保证调用方收到与未加缓存时相同的异常
+     */
+    private static final class ThrowableWrapper extends RuntimeException {
+        ThrowableWrapper(Throwable cause) {
+            super(cause);
+        }
+    }
 }
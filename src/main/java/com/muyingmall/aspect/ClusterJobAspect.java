@@ -0,0 +1,118 @@
+package com.muyingmall.aspect;
+
+import com.muyingmall.annotation.ClusterJob;
+import com.muyingmall.config.properties.ClusterJobProperties;
+import com.muyingmall.job.ClusterJobContext;
+import com.muyingmall.job.ClusterJobCoordinator;
+import com.muyingmall.job.ClusterJobMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 集群定时任务切面
+ * 处理 @ClusterJob 注解：单例任务先获取租约再执行，分片任务按本节点认领的分片逐个获取租约并执行，
+ * 本地任务直接执行；所有模式都上报执行次数、耗时与最近执行时间（见 {@link ClusterJobMetrics}）
+ * Redis 不可用时单例与分片任务跳过本次触发，不退化为所有节点同时执行
+ */
+@Slf4j
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ClusterJobAspect {
+
+    private final ClusterJobCoordinator coordinator;
+    private final ClusterJobMetrics metrics;
+    private final ClusterJobProperties properties;
+    private final Environment environment;
+
+    @Around("@annotation(clusterJob)")
+    public Object around(ProceedingJoinPoint joinPoint, ClusterJob clusterJob) throws Throwable {
+        String job = jobName(joinPoint, clusterJob);
+        if (!properties.isEnabled() || clusterJob.mode() == ClusterJob.Mode.LOCAL) {
+            return execute(joinPoint, new ClusterJobContext.Execution(job, 0, 1, null));
+        }
+        if (clusterJob.mode() == ClusterJob.Mode.SINGLETON) {
+            return runLeased(joinPoint, clusterJob, job, job, 0, 1);
+        }
+
+        int total = Integer.parseInt(environment.resolvePlaceholders(clusterJob.shards()).trim());
+        List<Integer> shards;
+        try {
+            shards = coordinator.ownedShards(total);
+        } catch (Exception e) {
+            log.warn("获取任务分片失败，跳过本次执行: job={}, error={}", job, e.getMessage());
+            metrics.recordSkipped(job);
+            return null;
+        }
+        if (shards.isEmpty()) {
+            // 存活节点多于分片数
+            metrics.recordSkipped(job);
+            return null;
+        }
+        Throwable failure = null;
+        for (Integer shard : shards) {
+            try {
+                runLeased(joinPoint, clusterJob, job, job + ":" + shard, shard, total);
+            } catch (Throwable e) {
+                log.error("分片任务执行失败: job={}, shard={}/{}", job, shard, total, e);
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return null;
+    }
+
+    private Object runLeased(ProceedingJoinPoint joinPoint, ClusterJob clusterJob, String job,
+                             String leaseName, int shard, int total) throws Throwable {
+        ClusterJobCoordinator.Lease lease;
+        try {
+            lease = coordinator.tryAcquire(leaseName, clusterJob.leaseMs());
+        } catch (Exception e) {
+            log.warn("获取任务租约失败，跳过本次执行: lease={}, error={}", leaseName, e.getMessage());
+            metrics.recordSkipped(job);
+            return null;
+        }
+        if (lease == null) {
+            log.debug("任务租约由其他节点持有，跳过本次执行: lease={}", leaseName);
+            metrics.recordSkipped(job);
+            return null;
+        }
+        try {
+            return execute(joinPoint, new ClusterJobContext.Execution(job, shard, total, lease));
+        } finally {
+            coordinator.release(lease, clusterJob.minHoldMs());
+        }
+    }
+
+    private Object execute(ProceedingJoinPoint joinPoint, ClusterJobContext.Execution execution) throws Throwable {
+        ClusterJobContext.Execution previous = ClusterJobContext.bind(execution);
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = joinPoint.proceed();
+            success = true;
+            return result;
+        } finally {
+            metrics.recordRun(execution.job(), System.nanoTime() - start, success);
+            ClusterJobContext.restore(previous);
+        }
+    }
+
+    private static String jobName(ProceedingJoinPoint joinPoint, ClusterJob clusterJob) {
+        if (!clusterJob.name().isEmpty()) {
+            return clusterJob.name();
+        }
+        return joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+    }
+}
@@ -0,0 +1,190 @@
+package com.muyingmall.cache;
+
+import com.muyingmall.common.constants.CacheConstants;
+import com.muyingmall.util.RedisUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * 按ID批量读取的多级缓存加载器
+ *
+ * <p>
+ * 每个ID单独缓存为 {keyPrefix}{id}，一次调用的读取顺序：
+ * L1（可选）→ 剩余ID一次 MGET → 仍未命中的ID一次交给加载函数（通常是一条 IN 查询）→
+ * 加载结果一次管道 SET 写回 Redis。写回 TTL 按 {@code cache.batch.ttl-jitter} 随机抖动，
+ * 同一批写入的键不会在同一时刻集中过期；加载结果中不存在的ID写入空值标记，避免反复穿透到数据库。
+ * </p>
+ * <p>
+ * Redis 不可用时所有ID都交给加载函数，写回失败只记录日志，不影响返回结果。
+ * 数据变更后通过 {@link #evict} 按ID同时清除 Redis、本节点 L1 并广播其他节点；不提供按前缀清除，避免写路径遍历键空间。
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BatchCacheLoader {
+
+    private final RedisUtil redisUtil;
+    private final LocalCache localCache;
+    private final CacheEvictPublisher cacheEvictPublisher;
+    private final CacheMetrics cacheMetrics;
+
+    /**
+     * 写回 TTL 的随机抖动比例，0.1 表示在 ±10% 范围内浮动
+     */
+    @Value("${cache.batch.ttl-jitter:0.1}")
+    private double ttlJitter;
+
+    /**
+     * 批量读取
+     *
+     * @param spec   缓存键前缀与过期时间
+     * @param ids    ID集合，null 元素与重复ID被忽略
+     * @param loader 加载函数：传入未命中的ID列表，返回以ID为键的结果，不存在的ID不出现在结果中
+     * @return 以ID为键的结果，按入参顺序排列，不存在的ID不出现在结果中
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> Map<K, V> load(BatchCacheSpec spec, Collection<K> ids, Function<List<K>, Map<K, V>> loader) {
+        if (ids == null || ids.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        Set<K> distinct = new LinkedHashSet<>(ids);
+        distinct.remove(null);
+        Map<K, Object> found = new HashMap<>(distinct.size() * 2);
+
+        // 1. L1
+        List<K> pending = new ArrayList<>(distinct.size());
+        for (K id : distinct) {
+            Object local = spec.useLocalCache() ? localCache.get(spec.key(id)) : null;
+            if (local != null) {
+                found.put(id, local);
+            } else {
+                pending.add(id);
+            }
+        }
+
+        // 2. Redis MGET
+        List<K> misses = pending;
+        long lookupNanos = 0;
+        if (!pending.isEmpty()) {
+            misses = new ArrayList<>();
+            long lookupStart = System.nanoTime();
+            List<Object> cached = multiGet(spec, pending);
+            lookupNanos = System.nanoTime() - lookupStart;
+            for (int i = 0; i < pending.size(); i++) {
+                K id = pending.get(i);
+                Object value = cached != null && i < cached.size() ? cached.get(i) : null;
+                if (value == null) {
+                    misses.add(id);
+                    continue;
+                }
+                found.put(id, value);
+                if (spec.useLocalCache()) {
+                    localCache.put(spec.localExpireSeconds(), spec.key(id), value);
+                }
+            }
+        }
+
+        String namespace = CacheMetrics.namespaceOf(spec.keyPrefix());
+        cacheMetrics.recordBatch(namespace, distinct.size() - pending.size(), pending.size() - misses.size(),
+                misses.size(), lookupNanos);
+
+        // 3. 加载真正未命中的ID并写回
+        if (!misses.isEmpty()) {
+            long loadStart = System.nanoTime();
+            Map<K, V> loaded = loader.apply(misses);
+            cacheMetrics.recordLoad(namespace, System.nanoTime() - loadStart, loaded);
+            Map<String, Object> writeBack = new LinkedHashMap<>(misses.size() * 2);
+            for (K id : misses) {
+                V value = loaded != null ? loaded.get(id) : null;
+                if (value != null) {
+                    found.put(id, value);
+                    writeBack.put(spec.key(id), value);
+                } else if (spec.nullExpireSeconds() > 0) {
+                    writeBack.put(spec.key(id), CacheConstants.EMPTY_CACHE_VALUE);
+                }
+            }
+            writeBack(spec, writeBack);
+            log.debug("批量缓存加载: prefix={}, 请求={}, 未命中={}, 数据库返回={}", spec.keyPrefix(),
+                    distinct.size(), misses.size(), loaded != null ? loaded.size() : 0);
+        }
+
+        Map<K, V> result = new LinkedHashMap<>(distinct.size() * 2);
+        for (K id : distinct) {
+            Object value = found.get(id);
+            if (value != null && !CacheConstants.EMPTY_CACHE_VALUE.equals(value)) {
+                result.put(id, (V) value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 清除指定ID的批量缓存
+     *
+     * @param keyPrefix 缓存键前缀
+     * @param ids       ID
+     */
+    public void evict(String keyPrefix, Object... ids) {
+        if (ids == null || ids.length == 0) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(ids.length);
+        for (Object id : ids) {
+            if (id != null) {
+                keys.add(keyPrefix + id);
+            }
+        }
+        redisUtil.del(keys);
+        for (String key : keys) {
+            localCache.evict(key);
+            cacheEvictPublisher.publishKey(key);
+        }
+    }
+
+    private <K> List<Object> multiGet(BatchCacheSpec spec, List<K> ids) {
+        List<String> keys = new ArrayList<>(ids.size());
+        for (K id : ids) {
+            keys.add(spec.key(id));
+        }
+        try {
+            return redisUtil.multiGet(keys);
+        } catch (Exception e) {
+            log.warn("批量缓存 MGET 失败，全部回源: prefix={}, error={}", spec.keyPrefix(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeBack(BatchCacheSpec spec, Map<String, Object> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        redisUtil.multiSet(values, key -> CacheConstants.EMPTY_CACHE_VALUE.equals(values.get(key))
+                ? spec.nullExpireSeconds()
+                : jitter(spec.expireSeconds()));
+        if (spec.useLocalCache()) {
+            values.forEach((key, value) -> localCache.put(spec.localExpireSeconds(), key, value));
+        }
+    }
+
+    private long jitter(long expireSeconds) {
+        long spread = (long) (expireSeconds * ttlJitter);
+        if (spread <= 0) {
+            return expireSeconds;
+        }
+        return Math.max(1, expireSeconds + ThreadLocalRandom.current().nextLong(-spread, spread + 1));
+    }
+}
@@ -0,0 +1,33 @@
+package com.muyingmall.cache;
+
+/**
+ * 批量缓存读取参数
+ *
+ * @param keyPrefix          单个ID的缓存键前缀，完整键为 {keyPrefix}{id}
+ * @param expireSeconds      Redis 过期时间（秒），写入时加入随机抖动
+ * @param localExpireSeconds 本地缓存过期时间（秒），0 表示不使用本地缓存
+ * @param nullExpireSeconds  空值标记过期时间（秒），0 表示不缓存空值
+ */
+public record BatchCacheSpec(String keyPrefix, long expireSeconds, long localExpireSeconds,
+        long nullExpireSeconds) {
+
+    public BatchCacheSpec {
+        if (keyPrefix == null || keyPrefix.isEmpty()) {
+            throw new IllegalArgumentException("keyPrefix 不能为空");
+        }
+        if (expireSeconds <= 0) {
+            throw new IllegalArgumentException("expireSeconds 必须大于 0");
+        }
+        if (localExpireSeconds < 0 || nullExpireSeconds < 0) {
+            throw new IllegalArgumentException("localExpireSeconds/nullExpireSeconds 不能小于 0");
+        }
+    }
+
+    public boolean useLocalCache() {
+        return localExpireSeconds > 0;
+    }
+
+    public String key(Object id) {
+        return keyPrefix + id;
+    }
+}
@@ -0,0 +1,44 @@
+package com.muyingmall.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 软过期缓存条目
+ * 缓存值连同逻辑过期时间一起写入 Redis，各节点据此判断是否需要后台刷新
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheEnvelope {
+
+    /**
+     * 缓存值
+     */
+    private Object value;
+
+    /**
+     * 开始提前刷新的时间戳（毫秒）；未启用提前刷新时等于 softExpireAt
+     */
+    private long refreshAt;
+
+    /**
+     * 软过期时间戳（毫秒）
+     */
+    private long softExpireAt;
+
+    /**
+     * 是否已软过期
+     */
+    public boolean staleAt(long nowMillis) {
+        return nowMillis >= softExpireAt;
+    }
+
+    /**
+     * 是否需要后台刷新（已软过期或进入提前刷新窗口）
+     */
+    public boolean refreshDueAt(long nowMillis) {
+        return nowMillis >= refreshAt;
+    }
+}
@@ -44,6 +44,17 @@ public class CacheEvictListener implements MessageListener {
                     localCache.evictAll();
                     log.debug("收到广播 - 本地缓存全部清空");
                 }
+                case BATCH -> {
+                    if (evict.getKeys() != null) {
+                        evict.getKeys().forEach(localCache::evict);
+                    }
+                    if (evict.getPrefixes() != null) {
+                        evict.getPrefixes().forEach(localCache::evictByPrefix);
+                    }
+                    log.debug("收到广播 - 本地缓存批量清除: keys={}, prefixes={}",
+                            evict.getKeys() != null ? evict.getKeys().size() : 0,
+                            evict.getPrefixes() != null ? evict.getPrefixes().size() : 0);
+                }
             }
         } catch (Exception e) {
             log.error("处理本地缓存失效广播失败: {}", e.getMessage(), e);
@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.List;
 
 /**
  * 本地缓存失效广播消息
@@ -20,10 +21,10 @@ public class CacheEvictMessage implements Serializable {
     private static final long serialVersionUID = 1L;
 
     /**
-     * 失效类型：KEY - 精确 key；PREFIX - 前缀匹配；ALL - 清空
+     * 失效类型：KEY - 精确 key；PREFIX - 前缀匹配；ALL - 清空；BATCH - 合并后的一批 key 与前缀
      */
     public enum EvictType {
-        KEY, PREFIX, ALL
+        KEY, PREFIX, ALL, BATCH
     }
 
     /**
@@ -36,6 +37,16 @@ public class CacheEvictMessage implements Serializable {
      */
     private String target;
 
+    /**
+     * 批量失效的 key（type=BATCH）
+     */
+    private List<String> keys;
+
+    /**
+     * 批量失效的前缀（type=BATCH）
+     */
+    private List<String> prefixes;
+
     /**
      * 源节点 ID，用于避免自己处理自己发出的消息
      */
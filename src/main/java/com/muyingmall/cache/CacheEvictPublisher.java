@@ -1,60 +1,190 @@
 package com.muyingmall.cache;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.muyingmall.common.constants.CacheConstants;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 /**
  * 本地缓存失效消息发布者
  * 当本节点清除 L1 后，通过 Redis Pub/Sub 通知其他节点同步清除
+ * 消息以 JSON 文本发布，与 RedisTemplate 的值编码无关
+ *
+ * <p>
+ * 失效请求先在 {@code cache.evict.batch-window-ms} 毫秒内合并：key 与前缀去重，被待发前缀覆盖的 key 丢弃，
+ * 待发 ALL 时丢弃其余请求；窗口结束或待发数量达到 {@code cache.evict.max-batch-size} 时发出一条 BATCH 消息。
+ * 窗口内只有一个 key 或前缀时仍按 KEY/PREFIX 消息发布，与未升级的节点兼容。
+ * </p>
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class CacheEvictPublisher {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
     private final NodeIdentifier nodeIdentifier;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 合并窗口（毫秒），小于等于 0 时每次调用立即发布
+     */
+    @Value("${cache.evict.batch-window-ms:5}")
+    private long batchWindowMs;
+
+    /**
+     * 单条批量消息最多携带的 key 与前缀数量
+     */
+    @Value("${cache.evict.max-batch-size:500}")
+    private int maxBatchSize;
+
+    private final Object lock = new Object();
+    private Set<String> pendingKeys = new LinkedHashSet<>();
+    private Set<String> pendingPrefixes = new LinkedHashSet<>();
+    private boolean pendingAll;
+    private boolean flushScheduled;
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("cache-evict-flush").daemon().factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        flusher.shutdownNow();
+    }
 
     /**
      * 广播"按精确 key 失效"
      */
     public void publishKey(String key) {
-        publish(new CacheEvictMessage(
-                CacheEvictMessage.EvictType.KEY,
-                key,
-                nodeIdentifier.getNodeId(),
-                System.currentTimeMillis()));
+        enqueue(key, null, false);
     }
 
     /**
      * 广播"按前缀失效"
      */
     public void publishPrefix(String prefix) {
-        publish(new CacheEvictMessage(
-                CacheEvictMessage.EvictType.PREFIX,
-                prefix,
-                nodeIdentifier.getNodeId(),
-                System.currentTimeMillis()));
+        enqueue(null, prefix, false);
     }
 
     /**
      * 广播"全部失效"
      */
     public void publishAll() {
-        publish(new CacheEvictMessage(
-                CacheEvictMessage.EvictType.ALL,
-                null,
-                nodeIdentifier.getNodeId(),
-                System.currentTimeMillis()));
+        enqueue(null, null, true);
+    }
+
+    /**
+     * 立即发布合并窗口内的失效请求
+     */
+    public void flush() {
+        Set<String> keys;
+        Set<String> prefixes;
+        boolean all;
+        synchronized (lock) {
+            keys = pendingKeys;
+            prefixes = pendingPrefixes;
+            all = pendingAll;
+            pendingKeys = new LinkedHashSet<>();
+            pendingPrefixes = new LinkedHashSet<>();
+            pendingAll = false;
+            flushScheduled = false;
+        }
+        if (all) {
+            publish(message(CacheEvictMessage.EvictType.ALL, null));
+            return;
+        }
+        if (!prefixes.isEmpty()) {
+            keys.removeIf(key -> prefixes.stream().anyMatch(key::startsWith));
+        }
+        if (keys.size() + prefixes.size() == 1) {
+            publish(keys.isEmpty()
+                    ? message(CacheEvictMessage.EvictType.PREFIX, prefixes.iterator().next())
+                    : message(CacheEvictMessage.EvictType.KEY, keys.iterator().next()));
+            return;
+        }
+        List<String> keyList = new ArrayList<>(keys);
+        List<String> prefixList = new ArrayList<>(prefixes);
+        for (int start = 0; start < keyList.size() + prefixList.size(); start += maxBatchSize) {
+            CacheEvictMessage batch = message(CacheEvictMessage.EvictType.BATCH, null);
+            batch.setKeys(slice(keyList, start, start + maxBatchSize));
+            batch.setPrefixes(slice(prefixList, start - keyList.size(), start + maxBatchSize - keyList.size()));
+            publish(batch);
+        }
+    }
+
+    private void enqueue(String key, String prefix, boolean all) {
+        boolean flushNow;
+        synchronized (lock) {
+            if (all) {
+                pendingAll = true;
+                pendingKeys.clear();
+                pendingPrefixes.clear();
+            } else if (!pendingAll) {
+                if (key != null) {
+                    pendingKeys.add(key);
+                } else {
+                    pendingPrefixes.add(prefix);
+                }
+            }
+            flushNow = batchWindowMs <= 0 || pendingKeys.size() + pendingPrefixes.size() >= maxBatchSize;
+            if (!flushNow && !flushScheduled) {
+                flushScheduled = true;
+                flusher.schedule(this::flushQuietly, batchWindowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (flushNow) {
+            flush();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("发布本地缓存失效消息失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private CacheEvictMessage message(CacheEvictMessage.EvictType type, String target) {
+        CacheEvictMessage message = new CacheEvictMessage();
+        message.setType(type);
+        message.setTarget(target);
+        message.setSourceNodeId(nodeIdentifier.getNodeId());
+        message.setTimestamp(System.currentTimeMillis());
+        return message;
+    }
+
+    private static List<String> slice(List<String> list, int from, int to) {
+        int start = Math.max(0, from);
+        int end = Math.min(list.size(), Math.max(0, to));
+        return start < end ? new ArrayList<>(list.subList(start, end)) : List.of();
     }
 
     private void publish(CacheEvictMessage message) {
         try {
-            redisTemplate.convertAndSend(CacheConstants.LOCAL_CACHE_EVICT_CHANNEL, message);
-            log.debug("本地缓存失效消息已发布: type={}, target={}", message.getType(), message.getTarget());
+            stringRedisTemplate.convertAndSend(CacheConstants.LOCAL_CACHE_EVICT_CHANNEL,
+                    objectMapper.writeValueAsString(message));
+            log.debug("本地缓存失效消息已发布: type={}, target={}, keys={}, prefixes={}", message.getType(),
+                    message.getTarget(), message.getKeys() != null ? message.getKeys().size() : 0,
+                    message.getPrefixes() != null ? message.getPrefixes().size() : 0);
         } catch (Exception e) {
             log.error("发布本地缓存失效消息失败: {}", e.getMessage(), e);
         }
@@ -0,0 +1,28 @@
+package com.muyingmall.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 缓存回填通知订阅者
+ * 收到其他节点的回填广播后，唤醒本节点等待该缓存键的请求
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheFillListener implements MessageListener {
+
+    private final CacheFillNotifier cacheFillNotifier;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String cacheKey = new String(message.getBody(), StandardCharsets.UTF_8);
+        cacheFillNotifier.complete(cacheKey);
+        log.debug("收到广播 - 缓存已回填: {}", cacheKey);
+    }
+}
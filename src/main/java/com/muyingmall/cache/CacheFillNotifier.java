@@ -0,0 +1,67 @@
+package com.muyingmall.cache;
+
+import com.muyingmall.common.constants.CacheConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 缓存回填完成通知
+ *
+ * <p>
+ * 未抢到 Redis 互斥锁的节点通过 {@link #await(String)} 登记等待，持锁节点回填缓存后
+ * 调用 {@link #publish(String)} 经 Redis Pub/Sub 广播缓存键，各节点收到后唤醒等待者重新读取缓存，
+ * 取代固定间隔的睡眠轮询。配合 {@link SingleFlight}，每个节点对同一个键最多只有一个等待者。
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheFillNotifier {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final ConcurrentMap<String, CompletableFuture<Void>> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * 登记等待某个缓存键回填；调用方应在登记后再检查一次缓存，避免错过登记前发出的通知
+     */
+    public CompletableFuture<Void> await(String cacheKey) {
+        return waiters.computeIfAbsent(cacheKey, key -> new CompletableFuture<>());
+    }
+
+    /**
+     * 放弃等待（超时后调用，避免等待表残留）
+     */
+    public void cancel(String cacheKey, CompletableFuture<Void> future) {
+        waiters.remove(cacheKey, future);
+    }
+
+    /**
+     * 广播缓存键已回填（或回填失败，等待方需要自行处理）
+     */
+    public void publish(String cacheKey) {
+        // 本节点的等待者直接唤醒，不依赖订阅回环
+        complete(cacheKey);
+        try {
+            stringRedisTemplate.convertAndSend(CacheConstants.CACHE_FILL_CHANNEL, cacheKey);
+        } catch (Exception e) {
+            log.warn("发布缓存回填通知失败，其他节点将等待超时后重试: key={}, error={}", cacheKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 唤醒等待该缓存键的请求
+     */
+    void complete(String cacheKey) {
+        CompletableFuture<Void> future = waiters.remove(cacheKey);
+        if (future != null) {
+            future.complete(null);
+        }
+    }
+}
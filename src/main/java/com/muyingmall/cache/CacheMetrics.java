@@ -0,0 +1,300 @@
+package com.muyingmall.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存指标
+ *
+ * <p>
+ * 各缓存读取路径（CacheAspect、BatchCacheLoader、CacheProtectionUtil、ProductCacheService、LoginCacheService）
+ * 按命名空间上报 Micrometer 指标：
+ * <ul>
+ * <li>{@code cache.requests{namespace, result=l1_hit|l2_hit|miss}}：读取结果</li>
+ * <li>{@code cache.lookup.duration{namespace}}：Redis 读取耗时</li>
+ * <li>{@code cache.load.duration{namespace}}：未命中后回源耗时（带百分位直方图）</li>
+ * <li>{@code cache.payload.bytes{namespace}}：回源结果的估算大小</li>
+ * <li>{@code cache.lock.contention{namespace, source=local|redis}}：击穿保护中等待他人加载的次数</li>
+ * </ul>
+ * 本地缓存整体占用另以 {@code cache.local.*} 指标上报。
+ * </p>
+ * <p>
+ * 命名空间取缓存键的前两段（如 product:detail），数字段归一为 {id}；
+ * 超过 {@code cache.metrics.max-namespaces} 的新命名空间计入 other，避免标签基数失控。
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheMetrics {
+
+    static final String OTHER = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final LocalCache localCache;
+
+    @Value("${cache.metrics.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * 单独统计的命名空间上限
+     */
+    @Value("${cache.metrics.max-namespaces:200}")
+    private int maxNamespaces = 200;
+
+    private final ConcurrentMap<String, NamespaceMeters> meters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("cache.local.bytes", localCache, LocalCache::weightedBytes)
+                .description("本地缓存估算占用字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("cache.local.entries", localCache, LocalCache::estimatedSize)
+                .description("本地缓存条目数")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.local.evictions", localCache, cache -> cache.stats().evictionCount())
+                .description("本地缓存因容量或过期淘汰的条目数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 缓存键所属的命名空间
+     */
+    public static String namespaceOf(String key) {
+        if (key == null || key.isEmpty()) {
+            return OTHER;
+        }
+        String namespace = LocalCache.namespaceOf(key);
+        int colon = namespace.indexOf(':');
+        if (colon > 0 && isNumeric(namespace, colon + 1)) {
+            return namespace.substring(0, colon) + ":{id}";
+        }
+        return namespace;
+    }
+
+    /**
+     * 本地缓存 (L1) 命中
+     */
+    public void recordL1Hit(String namespace) {
+        NamespaceMeters m = meters(namespace);
+        if (m != null) {
+            m.l1Hits.increment();
+        }
+    }
+
+    /**
+     * Redis (L2) 命中
+     *
+     * @param lookupNanos Redis 读取耗时（纳秒）
+     */
+    public void recordL2Hit(String namespace, long lookupNanos) {
+        NamespaceMeters m = meters(namespace);
+        if (m != null) {
+            m.l2Hits.increment();
+            m.lookup.record(lookupNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 缓存全部未命中
+     *
+     * @param lookupNanos 读取缓存花费的耗时（纳秒），未访问 Redis 时传 0
+     */
+    public void recordMiss(String namespace, long lookupNanos) {
+        NamespaceMeters m = meters(namespace);
+        if (m != null) {
+            m.misses.increment();
+            if (lookupNanos > 0) {
+                m.lookup.record(lookupNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * 一次批量读取（BatchCacheLoader）
+     *
+     * @param lookupNanos MGET 耗时（纳秒），未访问 Redis 时传 0
+     */
+    public void recordBatch(String namespace, int l1Hits, int l2Hits, int misses, long lookupNanos) {
+        NamespaceMeters m = meters(namespace);
+        if (m != null) {
+            m.l1Hits.increment(l1Hits);
+            m.l2Hits.increment(l2Hits);
+            m.misses.increment(misses);
+            if (lookupNanos > 0) {
+                m.lookup.record(lookupNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * 一次回源加载
+     *
+     * @param loadNanos 回源耗时（纳秒）
+     * @param result    加载结果，用于估算负载大小，可以为 null
+     */
+    public void recordLoad(String namespace, long loadNanos, Object result) {
+        NamespaceMeters m = meters(namespace);
+        if (m != null) {
+            m.load.record(loadNanos, TimeUnit.NANOSECONDS);
+            if (result != null) {
+                m.payload.record(RetainedSizeEstimator.estimate(result));
+            }
+        }
+    }
+
+    /**
+     * 缓存写入的负载大小（不经过回源计时的写入路径使用）
+     */
+    public void recordPayload(String namespace, Object value) {
+        NamespaceMeters m = meters(namespace);
+        if (m != null && value != null) {
+            m.payload.record(RetainedSizeEstimator.estimate(value));
+        }
+    }
+
+    /**
+     * 击穿保护中等待他人加载
+     *
+     * @param source local：进程内合并；redis：未抢到节点间互斥锁
+     */
+    public void recordContention(String namespace, String source) {
+        NamespaceMeters m = meters(namespace);
+        if (m != null) {
+            (ContentionSource.REDIS.equals(source) ? m.redisContention : m.localContention).increment();
+        }
+    }
+
+    /**
+     * 各命名空间的缓存收益，按净节省的回源时间从高到低排列
+     * 节省时间 = 命中次数 × 平均回源耗时；额外开销 = 未命中次数 × 平均 Redis 读取耗时
+     */
+    public List<NamespaceSavings> savings() {
+        List<NamespaceSavings> result = new ArrayList<>(meters.size());
+        meters.forEach((namespace, m) -> {
+            long l1Hits = (long) m.l1Hits.count();
+            long l2Hits = (long) m.l2Hits.count();
+            long misses = (long) m.misses.count();
+            double avgLoadMs = m.load.mean(TimeUnit.MILLISECONDS);
+            double avgLookupMs = m.lookup.mean(TimeUnit.MILLISECONDS);
+            double savedMs = (l1Hits + l2Hits) * avgLoadMs;
+            double overheadMs = misses * avgLookupMs;
+            result.add(new NamespaceSavings(namespace, l1Hits, l2Hits, misses, m.load.count(),
+                    round(avgLoadMs), round(avgLookupMs), round(m.payload.mean()),
+                    (long) (m.localContention.count() + m.redisContention.count()),
+                    round(savedMs), round(overheadMs), round(savedMs - overheadMs)));
+        });
+        result.sort((a, b) -> Double.compare(b.netSavedMs(), a.netSavedMs()));
+        return result;
+    }
+
+    private NamespaceMeters meters(String namespace) {
+        if (!enabled) {
+            return null;
+        }
+        String name = namespace == null || namespace.isEmpty() ? OTHER : namespace;
+        NamespaceMeters m = meters.get(name);
+        if (m != null) {
+            return m;
+        }
+        if (meters.size() >= maxNamespaces) {
+            name = OTHER;
+        }
+        return meters.computeIfAbsent(name, this::register);
+    }
+
+    private NamespaceMeters register(String namespace) {
+        return new NamespaceMeters(
+                requests(namespace, "l1_hit"),
+                requests(namespace, "l2_hit"),
+                requests(namespace, "miss"),
+                Timer.builder("cache.lookup.duration")
+                        .description("缓存读取 Redis 耗时")
+                        .tag("namespace", namespace)
+                        .register(meterRegistry),
+                Timer.builder("cache.load.duration")
+                        .description("缓存未命中后回源耗时")
+                        .tag("namespace", namespace)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(10))
+                        .register(meterRegistry),
+                DistributionSummary.builder("cache.payload.bytes")
+                        .description("回源结果估算大小")
+                        .baseUnit("bytes")
+                        .tag("namespace", namespace)
+                        .register(meterRegistry),
+                contention(namespace, ContentionSource.LOCAL),
+                contention(namespace, ContentionSource.REDIS));
+    }
+
+    private Counter requests(String namespace, String result) {
+        return Counter.builder("cache.requests")
+                .description("缓存读取结果")
+                .tag("namespace", namespace)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Counter contention(String namespace, String source) {
+        return Counter.builder("cache.lock.contention")
+                .description("击穿保护中等待其他线程或节点加载的次数")
+                .tag("namespace", namespace)
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    private static boolean isNumeric(String s, int from) {
+        if (from >= s.length()) {
+            return false;
+        }
+        for (int i = from; i < s.length(); i++) {
+            if (!Character.isDigit(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double round(double value) {
+        return Double.isNaN(value) ? 0 : Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * 击穿等待来源
+     */
+    public static final class ContentionSource {
+        public static final String LOCAL = "local";
+        public static final String REDIS = "redis";
+
+        private ContentionSource() {
+        }
+    }
+
+    private record NamespaceMeters(Counter l1Hits, Counter l2Hits, Counter misses, Timer lookup, Timer load,
+            DistributionSummary payload, Counter localContention, Counter redisContention) {
+    }
+
+    /**
+     * 命名空间缓存收益
+     */
+    public record NamespaceSavings(String namespace, long l1Hits, long l2Hits, long misses, long loads,
+            double avgLoadMs, double avgLookupMs, double avgPayloadBytes, long lockContention,
+            double savedMs, double overheadMs, double netSavedMs) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.muyingmall.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+
+/**
+ * 带代号（generation）的缓存命名空间
+ *
+ * <p>
+ * 命名空间内的缓存 key 形如 {namespace}v{generation}:{suffix}，代号保存在 cache:gen:{namespace}。
+ * 整个命名空间失效只需一次 INCR：读方随即拼出新 key，旧代号下的条目不再被读取，由写入时的 TTL 自然过期，
+ * 不再需要 SCAN/KEYS 遍历键空间。
+ * </p>
+ * <p>
+ * 代号在本地缓存中保留 {@code cache.namespace.generation-local-seconds} 秒；
+ * 本节点递增后立即清除本地代号，并通过 L1 失效广播通知其他节点。
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheNamespaces {
+
+    public static final String GENERATION_KEY_PREFIX = "cache:gen:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final LocalCache localCache;
+    private final CacheEvictPublisher cacheEvictPublisher;
+
+    /**
+     * 代号Key过期时间（秒），需大于命名空间内任何数据的 TTL，默认 7 天
+     */
+    @Value("${cache.namespace.generation-ttl-seconds:604800}")
+    private long generationTtlSeconds;
+
+    /**
+     * 代号在本地缓存中的保留时间（秒）
+     */
+    @Value("${cache.namespace.generation-local-seconds:5}")
+    private long generationLocalSeconds;
+
+    private DefaultRedisScript<Long> bumpScript;
+
+    @PostConstruct
+    public void init() {
+        bumpScript = new DefaultRedisScript<>();
+        bumpScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("scripts/cache_generation_bump.lua")));
+        bumpScript.setResultType(Long.class);
+    }
+
+    public static String generationKey(String namespace) {
+        return GENERATION_KEY_PREFIX + namespace;
+    }
+
+    /**
+     * 拼接命名空间内的缓存 key
+     *
+     * @param namespace 命名空间，如 order:user:list:1001
+     * @param suffix    命名空间内的 key 后缀
+     * @return 带当前代号的完整 key
+     */
+    public String key(String namespace, String suffix) {
+        return namespace + "v" + generation(namespace) + ":" + suffix;
+    }
+
+    /**
+     * 读取命名空间当前代号，代号Key不存在时为 0
+     */
+    public long generation(String namespace) {
+        String genKey = generationKey(namespace);
+        Object cached = localCache.get(genKey);
+        if (cached instanceof Long generation) {
+            return generation;
+        }
+        long generation = 0;
+        try {
+            Object value = redisTemplate.opsForValue().get(genKey);
+            if (value != null) {
+                generation = Long.parseLong(value.toString());
+            }
+        } catch (Exception e) {
+            // Redis 不可用时数据缓存同样不可用，按代号 0 处理且不写入本地，恢复后重新读取
+            log.warn("读取缓存命名空间代号失败: namespace={}, error={}", namespace, e.getMessage());
+            return generation;
+        }
+        localCache.put(generationLocalSeconds, genKey, generation);
+        return generation;
+    }
+
+    /**
+     * 使整个命名空间失效：递增代号
+     *
+     * @param namespace 命名空间
+     */
+    public void bump(String namespace) {
+        String genKey = generationKey(namespace);
+        try {
+            Long generation = redisTemplate.execute(bumpScript, Collections.singletonList(genKey),
+                    generationTtlSeconds);
+            log.debug("缓存命名空间失效: namespace={}, generation={}", namespace, generation);
+        } catch (Exception e) {
+            log.error("缓存命名空间失效失败: namespace={}, error={}", namespace, e.getMessage(), e);
+        }
+        localCache.evict(genKey);
+        cacheEvictPublisher.publishKey(genKey);
+    }
+}
@@ -0,0 +1,33 @@
+package com.muyingmall.cache;
+
+/**
+ * 软过期缓存策略
+ *
+ * <p>
+ * 软过期前直接返回缓存；软过期后、硬过期（Redis TTL）前先返回旧值，同时由一个后台虚拟线程刷新
+ * （stale-while-revalidate）；软过期前 refreshAheadSeconds 秒内仍被访问的热点键提前刷新（refresh-ahead），
+ * 热点数据不会出现整批过期后由请求线程回源的情况。
+ * </p>
+ *
+ * @param softTtlSeconds      软过期时间（秒），写入时叠加随机波动
+ * @param hardTtlSeconds      Redis 硬过期时间（秒），即旧值最长可被返回的时间
+ * @param refreshAheadSeconds 提前刷新窗口（秒），0 表示不提前刷新
+ */
+public record CachePolicy(long softTtlSeconds, long hardTtlSeconds, long refreshAheadSeconds) {
+
+    public CachePolicy {
+        if (softTtlSeconds <= 0 || hardTtlSeconds < softTtlSeconds) {
+            throw new IllegalArgumentException("软过期时间必须大于0且不大于硬过期时间");
+        }
+        if (refreshAheadSeconds < 0 || refreshAheadSeconds >= softTtlSeconds) {
+            throw new IllegalArgumentException("提前刷新窗口必须小于软过期时间");
+        }
+    }
+
+    /**
+     * 只启用过期后异步刷新，不提前刷新
+     */
+    public static CachePolicy of(long softTtlSeconds, long hardTtlSeconds) {
+        return new CachePolicy(softTtlSeconds, hardTtlSeconds, 0);
+    }
+}
@@ -0,0 +1,129 @@
+package com.muyingmall.cache;
+
+import com.muyingmall.util.RedisUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 软过期缓存的写入与后台刷新
+ *
+ * <p>
+ * 写入时把值包装为 {@link CacheEnvelope}，Redis TTL 取策略的硬过期时间；读取方发现条目已软过期或进入提前刷新窗口时
+ * 调用 {@link #refreshAsync}，由虚拟线程回源并覆盖写入，请求线程始终直接返回已有值。
+ * 同一个键在本节点内只会有一个刷新任务，节点之间由短期 Redis 锁去重；刷新失败时不释放锁，
+ * 锁过期前不再重试，避免数据库故障期间每次读取都触发回源，旧值在硬过期前继续提供服务。
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheRefresher {
+
+    private static final String REFRESH_LOCK_PREFIX = "lock:cache:refresh:";
+
+    private final RedisUtil redisUtil;
+
+    /**
+     * 刷新锁过期时间（秒），也是刷新失败后的重试间隔
+     */
+    @Value("${cache.refresh.lock-seconds:30}")
+    private long lockSeconds;
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private Executor executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("cache-refresh-", 0).factory());
+
+    /**
+     * 按策略写入软过期缓存
+     *
+     * @param cacheKey 缓存键
+     * @param value    缓存值（非 null）
+     * @param policy   软过期策略
+     */
+    public void put(String cacheKey, Object value, CachePolicy policy) {
+        // 软过期叠加随机波动（80%~120%），同批写入的热点键不会在同一时刻集中刷新
+        long softSeconds = jitter(policy.softTtlSeconds());
+        long hardSeconds = Math.max(policy.hardTtlSeconds(), softSeconds);
+        long softExpireAt = System.currentTimeMillis() + softSeconds * 1000;
+        long refreshAt = softExpireAt - Math.min(policy.refreshAheadSeconds(), softSeconds) * 1000;
+        redisUtil.set(cacheKey, new CacheEnvelope(value, refreshAt, softExpireAt), hardSeconds);
+        log.debug("写入软过期缓存: key={}, softTtl={}s, hardTtl={}s", cacheKey, softSeconds, hardSeconds);
+    }
+
+    /**
+     * 条目到达刷新时间时触发后台刷新
+     *
+     * @return 条目是否已软过期（此时调用方返回的是旧值）
+     */
+    public boolean refreshIfDue(String cacheKey, CacheEnvelope envelope, CachePolicy policy, Callable<?> loader) {
+        long now = System.currentTimeMillis();
+        if (envelope.refreshDueAt(now)) {
+            refreshAsync(cacheKey, policy, loader);
+        }
+        return envelope.staleAt(now);
+    }
+
+    /**
+     * 在后台虚拟线程中回源并覆盖写入；本节点已有同键刷新任务时直接返回
+     *
+     * @param cacheKey 缓存键
+     * @param policy   软过期策略
+     * @param loader   回源函数；返回 null 表示数据已不存在，删除缓存让下次读取走未命中流程
+     */
+    public void refreshAsync(String cacheKey, CachePolicy policy, Callable<?> loader) {
+        if (!refreshing.add(cacheKey)) {
+            return;
+        }
+        try {
+            executor.execute(() -> refresh(cacheKey, policy, loader));
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(cacheKey);
+            log.warn("提交缓存刷新任务失败: key={}, error={}", cacheKey, e.getMessage());
+        }
+    }
+
+    private void refresh(String cacheKey, CachePolicy policy, Callable<?> loader) {
+        String lockKey = REFRESH_LOCK_PREFIX + cacheKey;
+        try {
+            if (!redisUtil.setIfAbsent(lockKey, "1", lockSeconds)) {
+                log.debug("缓存正在其他节点刷新: key={}", cacheKey);
+                return;
+            }
+            Object value;
+            try {
+                value = loader.call();
+            } catch (Exception e) {
+                log.warn("后台刷新缓存失败，{}秒内继续返回旧值: key={}, error={}", lockSeconds, cacheKey, e.getMessage());
+                return;
+            }
+            if (value != null) {
+                put(cacheKey, value, policy);
+            } else {
+                redisUtil.del(cacheKey);
+            }
+            redisUtil.del(lockKey);
+            log.debug("后台刷新缓存完成: key={}", cacheKey);
+        } catch (Exception e) {
+            log.warn("后台刷新缓存异常: key={}, error={}", cacheKey, e.getMessage());
+        } finally {
+            refreshing.remove(cacheKey);
+        }
+    }
+
+    private static long jitter(long seconds) {
+        long min = (long) (seconds * 0.8);
+        long max = (long) (seconds * 1.2);
+        return max > min ? min + ThreadLocalRandom.current().nextLong(max - min) : seconds;
+    }
+}
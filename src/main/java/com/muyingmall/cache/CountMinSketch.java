@@ -0,0 +1,82 @@
+package com.muyingmall.cache;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 可衰减的 Count-Min Sketch
+ *
+ * <p>
+ * 固定 4 行计数器，每行按不同种子散列；估计值取各行最小值，只会高估不会低估。
+ * {@link #halve()} 把所有计数减半，使估计值反映近期而不是累计访问量。
+ * 计数器用原子数组更新，调用方应先采样再计数，避免热点Key在同一计数器上竞争。
+ * </p>
+ */
+final class CountMinSketch {
+
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final AtomicIntegerArray counters;
+    private final int mask;
+    private final int width;
+
+    /**
+     * @param width 每行计数器数量，向上取整为 2 的幂
+     */
+    CountMinSketch(int width) {
+        this.width = Integer.highestOneBit(Math.max(16, width - 1)) << 1;
+        this.mask = this.width - 1;
+        this.counters = new AtomicIntegerArray(DEPTH * this.width);
+    }
+
+    /**
+     * 计数加一并返回计数后的估计值
+     */
+    int increment(String key) {
+        int hash = spread(key.hashCode());
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(hash, row);
+            int value = counters.get(index);
+            if (value < Integer.MAX_VALUE) {
+                value = counters.incrementAndGet(index);
+            }
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    int estimate(String key) {
+        int hash = spread(key.hashCode());
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters.get(index(hash, row)));
+        }
+        return min;
+    }
+
+    /**
+     * 所有计数减半；与并发计数之间不加锁，个别增量可能丢失，对估计结果影响可以忽略
+     */
+    void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            int value = counters.get(i);
+            if (value != 0) {
+                counters.set(i, value >>> 1);
+            }
+        }
+    }
+
+    private int index(int hash, int row) {
+        int h = hash * SEEDS[row];
+        h ^= h >>> 15;
+        return row * width + (h & mask);
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x7FEB352D;
+        h ^= h >>> 15;
+        return h;
+    }
+}
@@ -0,0 +1,261 @@
+package com.muyingmall.cache;
+
+import com.muyingmall.common.constants.CacheConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 热点Key探测与本地缓存自动提升
+ *
+ * <p>
+ * {@link com.muyingmall.util.RedisUtil#get(String)} 的每次读取按 {@code sample-rate} 采样计入 Count-Min Sketch，
+ * 计数每个衰减周期减半，稳态下约为每周期读取次数的 2 倍。估计值达到 {@code threshold} 的Key被标记为热点，
+ * 之后的读取先查 {@link LocalCache}，未命中时把 Redis 返回值放入本地缓存 {@code promote-ttl-seconds} 秒；
+ * 估计值降到阈值一半以下时取消标记并清除本地副本。
+ * </p>
+ * <p>
+ * 只提升对象、集合等结构化值：字符串与数值多为计数器、锁或令牌，常被 Lua 脚本与 INCR 直接修改，不适合本地副本。
+ * 各节点把本节点的热点Key登记到 {@link CacheConstants#HOT_KEY_REGISTRY_KEY}，并在每个衰减周期拉取全集群登记表；
+ * 经 RedisUtil 写入或删除登记表中的Key时，清除本节点副本并通过 {@link CacheEvictPublisher} 广播失效。
+ * 绕过 RedisUtil 的写入以及登记同步前的短暂窗口，本地副本最多滞后一个提升 TTL。
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HotKeyDetector {
+
+    private final LocalCache localCache;
+    private final CacheEvictPublisher cacheEvictPublisher;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${cache.hot-key.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 采样率：平均每 N 次读取计数一次
+     */
+    @Value("${cache.hot-key.sample-rate:8}")
+    private int sampleRate;
+
+    /**
+     * 热点阈值：衰减后的估计读取次数
+     */
+    @Value("${cache.hot-key.threshold:1000}")
+    private long threshold;
+
+    /**
+     * 热点Key在本地缓存中的保留时间（秒）
+     */
+    @Value("${cache.hot-key.promote-ttl-seconds:3}")
+    private long promoteTtlSeconds;
+
+    /**
+     * 本节点同时标记的热点Key上限
+     */
+    @Value("${cache.hot-key.max-hot-keys:256}")
+    private int maxHotKeys;
+
+    @Value("${cache.hot-key.sketch-width:4096}")
+    private int sketchWidth;
+
+    @Value("${cache.hot-key.decay-interval-ms:1000}")
+    private long decayIntervalMs;
+
+    /**
+     * 不参与提升的Key前缀
+     */
+    @Value("${cache.hot-key.excluded-prefixes:lock:,cache:gen:,seckill:}")
+    private List<String> excludedPrefixes;
+
+    private CountMinSketch sketch;
+
+    private final ConcurrentMap<String, HotKey> hotKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 全集群登记的热点Key（含本节点），每个衰减周期从 Redis 刷新
+     */
+    private volatile Set<String> clusterHotKeys = Set.of();
+
+    @PostConstruct
+    public void init() {
+        sketch = new CountMinSketch(sketchWidth);
+        log.info("热点Key探测初始化 - enabled={}, sampleRate={}, threshold={}, promoteTtl={}s",
+                enabled, sampleRate, threshold, promoteTtlSeconds);
+    }
+
+    /**
+     * 记录一次读取，热点Key返回本地副本
+     *
+     * @return 本地副本，非热点或本地未命中时返回 null
+     */
+    public Object readLocal(String key) {
+        if (!enabled) {
+            return null;
+        }
+        if (sampleRate <= 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+            long estimate = (long) sketch.increment(key) * Math.max(1, sampleRate);
+            if (estimate >= threshold && !hotKeys.containsKey(key)) {
+                markHot(key, estimate);
+            }
+        }
+        return hotKeys.containsKey(key) ? localCache.get(key) : null;
+    }
+
+    /**
+     * Redis 读取完成后调用：热点Key的结构化值放入本地缓存
+     */
+    public void promote(String key, Object value) {
+        if (!enabled || value == null || isScalar(value) || !hotKeys.containsKey(key)) {
+            return;
+        }
+        localCache.put(promoteTtlSeconds, key, value);
+    }
+
+    /**
+     * 经 RedisUtil 写入或删除Key后调用：集群内任何节点持有本地副本时清除并广播
+     */
+    public void onWrite(String key) {
+        if (!enabled || key == null) {
+            return;
+        }
+        if (hotKeys.containsKey(key) || clusterHotKeys.contains(key)) {
+            localCache.evict(key);
+            cacheEvictPublisher.publishKey(key);
+        }
+    }
+
+    /**
+     * 衰减计数、冷却热点Key并同步集群登记表
+     */
+    @Scheduled(fixedDelayString = "${cache.hot-key.decay-interval-ms:1000}")
+    public void decay() {
+        if (!enabled) {
+            return;
+        }
+        sketch.halve();
+        long cooldown = threshold / 2;
+        hotKeys.values().removeIf(hotKey -> {
+            long estimate = (long) sketch.estimate(hotKey.key) * Math.max(1, sampleRate);
+            hotKey.estimate = estimate;
+            if (estimate >= cooldown) {
+                return false;
+            }
+            localCache.evict(hotKey.key);
+            log.info("热点Key冷却，移出本地缓存: key={}, estimate={}", hotKey.key, estimate);
+            return true;
+        });
+        syncRegistry();
+    }
+
+    /**
+     * 本节点当前热点Key，按估计值倒序
+     */
+    public List<HotKeyView> hotKeys() {
+        List<HotKeyView> views = new ArrayList<>(hotKeys.size());
+        for (HotKey hotKey : hotKeys.values()) {
+            views.add(new HotKeyView(hotKey.key, hotKey.estimate, hotKey.promotedAt));
+        }
+        views.sort(Comparator.comparingLong(HotKeyView::estimate).reversed());
+        return views;
+    }
+
+    /**
+     * 全集群登记的热点Key
+     */
+    public Set<String> clusterHotKeys() {
+        return clusterHotKeys;
+    }
+
+    private void markHot(String key, long estimate) {
+        if (hotKeys.size() >= maxHotKeys || isExcluded(key)) {
+            return;
+        }
+        if (hotKeys.putIfAbsent(key, new HotKey(key, estimate)) == null) {
+            log.info("发现热点Key，提升到本地缓存: key={}, estimate={}", key, estimate);
+            register(key);
+        }
+    }
+
+    /**
+     * 新热点立即登记，不等下一个衰减周期，缩短其他节点写入时漏发广播的窗口
+     */
+    private void register(String key) {
+        try {
+            stringRedisTemplate.opsForZSet().add(CacheConstants.HOT_KEY_REGISTRY_KEY, key, registryExpireAt());
+        } catch (Exception e) {
+            log.warn("登记热点Key失败: key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    private void syncRegistry() {
+        try {
+            long now = System.currentTimeMillis();
+            double expireAt = registryExpireAt();
+            for (String key : hotKeys.keySet()) {
+                stringRedisTemplate.opsForZSet().add(CacheConstants.HOT_KEY_REGISTRY_KEY, key, expireAt);
+            }
+            stringRedisTemplate.opsForZSet().removeRangeByScore(CacheConstants.HOT_KEY_REGISTRY_KEY, 0, now);
+            Set<String> registered = stringRedisTemplate.opsForZSet()
+                    .rangeByScore(CacheConstants.HOT_KEY_REGISTRY_KEY, now, Double.POSITIVE_INFINITY);
+            clusterHotKeys = registered != null ? Set.copyOf(registered) : Set.of();
+        } catch (Exception e) {
+            log.warn("同步热点Key登记表失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 登记有效期覆盖本地副本的保留时间与两次同步的间隔
+     */
+    private double registryExpireAt() {
+        return System.currentTimeMillis() + promoteTtlSeconds * 1000 + 2 * decayIntervalMs;
+    }
+
+    private boolean isExcluded(String key) {
+        for (String prefix : excludedPrefixes) {
+            if (!prefix.isEmpty() && key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isScalar(Object value) {
+        return value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum<?>;
+    }
+
+    /**
+     * 热点Key快照
+     *
+     * @param estimate   最近一次衰减后的估计读取次数
+     * @param promotedAt 标记为热点的时间
+     */
+    public record HotKeyView(String key, long estimate, Instant promotedAt) {
+    }
+
+    private static final class HotKey {
+        final String key;
+        final Instant promotedAt = Instant.now();
+        volatile long estimate;
+
+        HotKey(String key, long estimate) {
+            this.key = key;
+            this.estimate = estimate;
+        }
+    }
+}
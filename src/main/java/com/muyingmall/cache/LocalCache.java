@@ -2,79 +2,135 @@ package com.muyingmall.cache;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 本地缓存 (L1) - 基于 Caffeine
  * 配合 Redis (L2) 组成二级缓存架构
  *
- * 为什么按 TTL 粒度维护多实例：
- * Caffeine 的 expireAfterWrite 是全局策略，不同 key 需要不同 TTL 时必须使用不同的 Cache 实例
- * 本实现按 localExpireSeconds 作为分片维度，复用相同 TTL 的 Cache 实例
+ * <p>
+ * 所有条目共用一个 Caffeine 实例：TTL 随条目写入，由自定义 {@link Expiry} 逐条过期；
+ * 容量按估算的堆内存字节数（{@code cache.local.max-bytes}）限制，而不是条目数，
+ * 一个商品列表与一个布尔值不再占用同样的额度，堆内存上限也不再随 TTL 种类增加。
+ * </p>
+ * <p>
+ * 命中、未命中、写入与淘汰按命名空间（key 的前两段，如 product:detail）分别计数，
+ * 占用字节数在查询统计时按条目权重汇总。
+ * </p>
+ * <p>
+ * 另按命名空间维护 key 索引，按前缀失效只遍历与前缀相关的命名空间，不再扫描整个 keyset。
+ * 索引的增删都放在同一 key 的原子操作内（写入/删除用 compute，淘汰与过期在同步的 evictionListener 中），
+ * 与并发写入同一 key 时不会出现缓存中有值而索引缺失的情况。
+ * </p>
  */
 @Slf4j
 @Component
 public class LocalCache {
 
+    /**
+     * Caffeine 节点、过期时间轮指针与本类 Entry 包装对象的固定开销
+     */
+    private static final int ENTRY_OVERHEAD = 96;
+
     @Value("${cache.local.enabled:true}")
     private boolean enabled;
 
-    @Value("${cache.local.max-size:10000}")
-    private long maxSize;
+    /**
+     * 本地缓存堆内存预算（字节），默认 64MB
+     */
+    @Value("${cache.local.max-bytes:67108864}")
+    private long maxBytes;
 
     @Value("${cache.local.stats-enabled:true}")
     private boolean statsEnabled;
 
+    private Ticker ticker = Ticker.systemTicker();
+
+    private Cache<String, Entry> cache;
+
+    private final ConcurrentMap<String, NamespaceCounters> counters = new ConcurrentHashMap<>();
+
     /**
-     * 按 TTL 分片的 Caffeine Cache 实例
-     * key: TTL 秒数；value: 对应 TTL 的 Cache 实例
+     * 命名空间 -> 该命名空间下的 key
      */
-    @Getter
-    private final ConcurrentMap<Long, Cache<String, Object>> caches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> keyIndex = new ConcurrentHashMap<>();
 
     @PostConstruct
     public void init() {
-        log.info("本地缓存 Caffeine 初始化 - enabled={}, maxSize={}, statsEnabled={}",
-                enabled, maxSize, statsEnabled);
+        Caffeine<String, Entry> builder = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Entry entry) -> entry.weight)
+                .expireAfter(new EntryExpiry())
+                .ticker(ticker)
+                .evictionListener((String key, Entry entry, RemovalCause cause) -> onEvicted(key, cause));
+        if (statsEnabled) {
+            builder.recordStats();
+        }
+        cache = builder.build();
+        log.info("本地缓存 Caffeine 初始化 - enabled={}, maxBytes={}, statsEnabled={}",
+                enabled, maxBytes, statsEnabled);
     }
 
     /**
      * 读取本地缓存
      *
-     * @param ttlSeconds TTL 分片
-     * @param key        缓存 key
-     * @return 值（null 表示未命中）
+     * @param key 缓存 key
+     * @return 值（null 表示未命中或已过期）
      */
-    public Object get(long ttlSeconds, String key) {
+    public Object get(String key) {
         if (!enabled) {
             return null;
         }
-        Cache<String, Object> cache = caches.get(ttlSeconds);
-        if (cache == null) {
-            return null;
+        Entry entry = cache.getIfPresent(key);
+        if (statsEnabled) {
+            NamespaceCounters namespaceCounters = counters(key);
+            if (entry != null) {
+                namespaceCounters.hits.increment();
+            } else {
+                namespaceCounters.misses.increment();
+            }
         }
-        return cache.getIfPresent(key);
+        return entry != null ? entry.value : null;
     }
 
     /**
      * 写入本地缓存
+     *
+     * @param ttlSeconds 条目过期时间（秒）
+     * @param key        缓存 key
+     * @param value      值，null 不写入
      */
     public void put(long ttlSeconds, String key, Object value) {
-        if (!enabled || value == null) {
+        if (!enabled || value == null || ttlSeconds <= 0) {
             return;
         }
-        Cache<String, Object> cache = caches.computeIfAbsent(ttlSeconds, this::createCache);
-        cache.put(key, value);
+        long weight = ENTRY_OVERHEAD + RetainedSizeEstimator.estimate(key) + RetainedSizeEstimator.estimate(value);
+        Entry entry = new Entry(value, TimeUnit.SECONDS.toNanos(ttlSeconds),
+                (int) Math.min(Integer.MAX_VALUE, weight));
+        cache.asMap().compute(key, (k, previous) -> {
+            index(k);
+            return entry;
+        });
+        if (statsEnabled) {
+            counters(key).puts.increment();
+        }
     }
 
     /**
@@ -84,51 +140,203 @@ public class LocalCache {
         if (!enabled) {
             return;
         }
-        // 所有分片都清一下，成本极低
-        caches.values().forEach(cache -> cache.invalidate(key));
+        remove(key);
     }
 
     /**
-     * 按前缀移除（前缀匹配扫描本地 keyset）
+     * 按前缀移除，只遍历与前缀相关的命名空间索引
+     *
+     * <p>
+     * key 以 prefix 开头时，它的命名空间与 prefix 同为 key 的前缀，两者必有一个是另一个的前缀，
+     * 据此筛选候选命名空间即可覆盖所有匹配的 key。
+     * </p>
      */
     public void evictByPrefix(String prefix) {
         if (!enabled || prefix == null || prefix.isEmpty()) {
             return;
         }
-        caches.values().forEach(cache -> {
-            Set<String> matched = cache.asMap().keySet().stream()
-                    .filter(k -> k.startsWith(prefix))
-                    .collect(java.util.stream.Collectors.toSet());
-            if (!matched.isEmpty()) {
-                cache.invalidateAll(matched);
-                log.debug("本地缓存按前缀清除: prefix={}, 数量={}", prefix, matched.size());
+        int removed = 0;
+        for (Map.Entry<String, Set<String>> namespace : keyIndex.entrySet()) {
+            String name = namespace.getKey();
+            if (!name.startsWith(prefix) && !prefix.startsWith(name)) {
+                continue;
             }
-        });
+            for (String key : namespace.getValue()) {
+                if (key.startsWith(prefix) && remove(key)) {
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            log.debug("本地缓存按前缀清除: prefix={}, 数量={}", prefix, removed);
+        }
     }
 
     /**
      * 清空所有本地缓存
      */
     public void evictAll() {
-        caches.values().forEach(Cache::invalidateAll);
+        for (String key : cache.asMap().keySet()) {
+            remove(key);
+        }
     }
 
     /**
-     * 获取指定 TTL 分片的命中统计（用于监控）
+     * 整体命中统计（用于监控）
      */
-    public CacheStats stats(long ttlSeconds) {
-        Cache<String, Object> cache = caches.get(ttlSeconds);
-        return cache != null ? cache.stats() : CacheStats.empty();
+    public CacheStats stats() {
+        return cache.stats();
     }
 
-    private Cache<String, Object> createCache(long ttlSeconds) {
-        Caffeine<Object, Object> builder = Caffeine.newBuilder()
-                .maximumSize(maxSize)
-                .expireAfterWrite(Duration.ofSeconds(ttlSeconds));
-        if (statsEnabled) {
-            builder.recordStats();
+    /**
+     * 当前估算占用的字节数
+     */
+    public long weightedBytes() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * 按命名空间汇总的统计，按占用字节数倒序
+     */
+    public List<NamespaceStats> namespaceStats() {
+        Map<String, long[]> usage = new HashMap<>();
+        cache.asMap().forEach((key, entry) -> {
+            long[] entriesAndBytes = usage.computeIfAbsent(namespaceOf(key), k -> new long[2]);
+            entriesAndBytes[0]++;
+            entriesAndBytes[1] += entry.weight;
+        });
+        Set<String> namespaces = new java.util.TreeSet<>(usage.keySet());
+        namespaces.addAll(counters.keySet());
+
+        List<NamespaceStats> result = new ArrayList<>(namespaces.size());
+        for (String namespace : namespaces) {
+            long[] entriesAndBytes = usage.getOrDefault(namespace, new long[2]);
+            NamespaceCounters c = counters.getOrDefault(namespace, new NamespaceCounters());
+            result.add(new NamespaceStats(namespace, entriesAndBytes[0], entriesAndBytes[1],
+                    c.hits.sum(), c.misses.sum(), c.puts.sum(), c.sizeEvictions.sum(), c.expirations.sum()));
+        }
+        result.sort((a, b) -> Long.compare(b.bytes(), a.bytes()));
+        return result;
+    }
+
+    /**
+     * 立即执行待处理的淘汰与过期清理
+     */
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    /**
+     * 命名空间取 key 的前两段，如 product:detail:1 -> product:detail；不足两段时取整个前缀
+     */
+    static String namespaceOf(String key) {
+        int first = key.indexOf(':');
+        if (first < 0) {
+            return key;
+        }
+        int second = key.indexOf(':', first + 1);
+        return second < 0 ? key.substring(0, first) : key.substring(0, second);
+    }
+
+    private boolean remove(String key) {
+        boolean[] removed = new boolean[1];
+        cache.asMap().computeIfPresent(key, (k, entry) -> {
+            unindex(k);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    private void index(String key) {
+        keyIndex.computeIfAbsent(namespaceOf(key), k -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    private void unindex(String key) {
+        Set<String> keys = keyIndex.get(namespaceOf(key));
+        if (keys != null) {
+            keys.remove(key);
+        }
+    }
+
+    private NamespaceCounters counters(String key) {
+        return counters.computeIfAbsent(namespaceOf(key), k -> new NamespaceCounters());
+    }
+
+    private void onEvicted(String key, RemovalCause cause) {
+        if (key == null) {
+            return;
+        }
+        unindex(key);
+        if (!statsEnabled) {
+            return;
+        }
+        if (cause == RemovalCause.SIZE) {
+            counters(key).sizeEvictions.increment();
+        } else if (cause == RemovalCause.EXPIRED) {
+            counters(key).expirations.increment();
+        }
+    }
+
+    /**
+     * 命名空间统计快照
+     *
+     * @param entries       当前条目数
+     * @param bytes         当前估算占用字节数
+     * @param sizeEvictions 因容量不足被淘汰的条目数
+     * @param expirations   过期移除的条目数
+     */
+    public record NamespaceStats(String namespace, long entries, long bytes, long hits, long misses, long puts,
+            long sizeEvictions, long expirations) {
+
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 1.0 : (double) hits / requests;
+        }
+    }
+
+    private static final class NamespaceCounters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder puts = new LongAdder();
+        final LongAdder sizeEvictions = new LongAdder();
+        final LongAdder expirations = new LongAdder();
+    }
+
+    /**
+     * 缓存条目：值、写入时指定的 TTL 与估算权重
+     */
+    private record Entry(Object value, long ttlNanos, int weight) {
+    }
+
+    /**
+     * 按条目自带的 TTL 过期：写入与覆盖时重置，读取不延长
+     */
+    private static final class EntryExpiry implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            return entry.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return entry.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
         }
-        log.info("创建本地缓存实例 - ttl={}s, maxSize={}", ttlSeconds, maxSize);
-        return builder.build();
     }
 }
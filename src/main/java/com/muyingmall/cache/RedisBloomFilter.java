@@ -0,0 +1,242 @@
+package com.muyingmall.cache;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基于 Redis 位数组的布隆过滤器（按数值ID）
+ *
+ * <p>
+ * 位数组保存在 {prefix}:{代号}，k 个哈希位由 Kirsch-Mitzenmacher 双重哈希在本地计算，
+ * 写入与判断各只需一次 Lua 调用。每个节点周期性拉取位数组作为本地镜像，
+ * 已被镜像覆盖的ID在 JVM 内完成判断，绝大多数"一定不存在"的请求不访问 Redis。
+ * </p>
+ * <p>
+ * 镜像覆盖范围为拉取时已写入的最大ID减去安全窗口：更大的ID（镜像之后新增的数据、事务乱序提交的数据）
+ * 回到 Redis 判断；大于 Redis 中最大ID的请求按"可能存在"放行，由空值缓存兜底。
+ * </p>
+ */
+@Slf4j
+public class RedisBloomFilter {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    @Getter
+    private final String name;
+    private final String prefix;
+    @Getter
+    private final long numBits;
+    @Getter
+    private final int numHashes;
+    private final long mirrorSafetyWindow;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisScript<Long> addScript;
+    private final RedisScript<Long> checkScript;
+    private final RedisScript<Long> rotateScript;
+
+    /**
+     * 本地镜像；null 表示尚未拉取
+     */
+    private volatile Mirror mirror;
+
+    /**
+     * 本地镜像快照
+     *
+     * @param bits         Redis 位数组原始字节；null 表示过滤器尚未构建
+     * @param coveredMaxId 镜像可直接判定的最大ID
+     */
+    private record Mirror(byte[] bits, long coveredMaxId) {
+    }
+
+    public RedisBloomFilter(String name, long expectedInsertions, double falsePositiveRate, long mirrorSafetyWindow,
+            RedisTemplate<String, Object> redisTemplate, RedisScript<Long> addScript,
+            RedisScript<Long> checkScript, RedisScript<Long> rotateScript) {
+        this.name = name;
+        this.prefix = "bloom:" + name;
+        this.numBits = optimalNumBits(expectedInsertions, falsePositiveRate);
+        this.numHashes = optimalNumHashes(expectedInsertions, numBits);
+        this.mirrorSafetyWindow = mirrorSafetyWindow;
+        this.redisTemplate = redisTemplate;
+        this.addScript = addScript;
+        this.checkScript = checkScript;
+        this.rotateScript = rotateScript;
+    }
+
+    /**
+     * 位数组长度 m = -n·ln(p) / (ln2)²
+     */
+    static long optimalNumBits(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(expectedInsertions, 1);
+        return Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+    }
+
+    /**
+     * 哈希函数个数 k = m/n · ln2
+     */
+    static int optimalNumHashes(long expectedInsertions, long numBits) {
+        long n = Math.max(expectedInsertions, 1);
+        return Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+    }
+
+    /**
+     * 计算ID对应的 k 个位偏移
+     */
+    long[] offsets(long id) {
+        long h1 = mix64(id + GOLDEN_GAMMA);
+        long h2 = mix64(h1 ^ GOLDEN_GAMMA) | 1L;
+        long[] offsets = new long[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            offsets[i] = Math.floorMod(h1 + i * h2, numBits);
+        }
+        return offsets;
+    }
+
+    /**
+     * 判断ID是否可能存在；任何异常都按"可能存在"处理，不影响正常查询
+     */
+    public boolean mightContain(long id) {
+        long[] offsets = offsets(id);
+        Mirror current = mirror;
+        if (current != null) {
+            if (current.bits() == null) {
+                return true;
+            }
+            if (id <= current.coveredMaxId()) {
+                return allSet(current.bits(), offsets);
+            }
+        }
+        try {
+            List<Object> args = new ArrayList<>(offsets.length + 1);
+            args.add(id);
+            for (long offset : offsets) {
+                args.add(offset);
+            }
+            Long result = redisTemplate.execute(checkScript, Collections.singletonList(prefix), args.toArray());
+            return result == null || result != 0;
+        } catch (Exception e) {
+            log.warn("布隆过滤器判断失败，按可能存在处理: name={}, id={}, error={}", name, id, e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * 实时写入新增数据的ID（重建期间同时写入新旧两代）
+     */
+    public void add(long id) {
+        try {
+            redisTemplate.execute(addScript, Collections.singletonList(prefix), buildAddArgs(id, 0, List.of(id)));
+        } catch (Exception e) {
+            // 写入失败的ID在下次重建时补齐；期间该ID仍可能被判定为不存在
+            log.error("布隆过滤器写入失败: name={}, id={}, error={}", name, id, e.getMessage());
+        }
+    }
+
+    /**
+     * 开始重建：创建空的下一代位数组，之后的实时写入会同时落到新一代
+     *
+     * @return 新代号
+     */
+    public long beginRebuild() {
+        Long generation = redisTemplate.execute(rotateScript, Collections.singletonList(prefix), 1, numBits);
+        return generation != null ? generation : 0;
+    }
+
+    /**
+     * 重建期间批量写入ID到指定代号
+     */
+    public void addAll(long generation, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        long maxId = ids.stream().mapToLong(Long::longValue).max().orElse(0);
+        redisTemplate.execute(addScript, Collections.singletonList(prefix), buildAddArgs(maxId, generation, ids));
+    }
+
+    /**
+     * 完成重建：切换当前代号并删除旧位数组
+     *
+     * @return 是否切换成功（重建期间被新一轮重建覆盖时返回 false）
+     */
+    public boolean commitRebuild(long generation, long maxId) {
+        Long previous = redisTemplate.execute(rotateScript, Collections.singletonList(prefix), 2, generation, maxId);
+        return previous != null && previous >= 0;
+    }
+
+    /**
+     * 是否已构建（存在当前代号）
+     */
+    public boolean isBuilt() {
+        return redisTemplate.opsForValue().get(prefix + ":gen") != null;
+    }
+
+    /**
+     * 从 Redis 拉取当前代号的位数组作为本地镜像
+     * 先读最大ID再读位数组：最大ID之前的写入在读位数组时一定已完成
+     */
+    public void refreshMirror() {
+        Object generation = redisTemplate.opsForValue().get(prefix + ":gen");
+        if (generation == null) {
+            mirror = new Mirror(null, 0);
+            return;
+        }
+        Object max = redisTemplate.opsForValue().get(prefix + ":max");
+        long maxId = max != null ? Long.parseLong(max.toString()) : 0;
+        byte[] rawKey = (prefix + ":" + generation).getBytes(StandardCharsets.UTF_8);
+        byte[] bits = redisTemplate.execute((RedisCallback<byte[]>) connection -> get(connection, rawKey));
+        if (bits == null) {
+            // 代号刚切换、旧位数组已删除：保留原镜像，下次刷新再取
+            return;
+        }
+        mirror = new Mirror(bits, maxId - mirrorSafetyWindow);
+        log.debug("布隆过滤器镜像已刷新: name={}, generation={}, bytes={}, coveredMaxId={}",
+                name, generation, bits.length, maxId - mirrorSafetyWindow);
+    }
+
+    private static byte[] get(RedisConnection connection, byte[] rawKey) {
+        return connection.stringCommands().get(rawKey);
+    }
+
+    private Object[] buildAddArgs(long maxId, long generation, Collection<Long> ids) {
+        List<Object> args = new ArrayList<>(ids.size() * numHashes + 2);
+        args.add(maxId);
+        args.add(generation);
+        for (Long id : ids) {
+            for (long offset : offsets(id)) {
+                args.add(offset);
+            }
+        }
+        return args.toArray();
+    }
+
+    /**
+     * Redis 位偏移 o 对应第 o/8 个字节的从高到低第 o%8 位
+     */
+    private static boolean allSet(byte[] bits, long[] offsets) {
+        for (long offset : offsets) {
+            int index = (int) (offset >>> 3);
+            if (index >= bits.length || (bits[index] & (0x80 >>> (offset & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * SplitMix64 终结函数
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,227 @@
+package com.muyingmall.cache;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 缓存值堆内存占用估算
+ *
+ * <p>
+ * 按 64 位 JVM、压缩指针（对象头 12 字节、引用 4 字节、8 字节对齐）估算对象图的保留大小，用作本地缓存的权重。
+ * 业务类按反射字段逐个累加；JDK 内部类无法反射访问，字符串、数值、时间与常用集合按其典型内存布局估算。
+ * 同一对象只计一次，枚举与 Class 视为共享对象不计入；访问对象数超过上限时停止遍历，结果偏小但不会无限耗时。
+ * </p>
+ */
+final class RetainedSizeEstimator {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int MAX_VISITED = 100_000;
+
+    /**
+     * HashMap/HashSet 每个条目的 Node 对象（头 + hash + key/value/next 引用）
+     */
+    private static final int HASH_NODE = 32;
+    private static final int LINKED_HASH_NODE = 40;
+    private static final int TREE_NODE = 40;
+
+    private static final ClassValue<Layout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return Layout.of(type);
+        }
+    };
+
+    private RetainedSizeEstimator() {
+    }
+
+    /**
+     * 估算对象图的保留字节数
+     */
+    static long estimate(Object root) {
+        if (root == null) {
+            return 0;
+        }
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Object> pending = new ArrayList<>();
+        pending.add(root);
+        long total = 0;
+        while (!pending.isEmpty() && visited.size() < MAX_VISITED) {
+            Object value = pending.remove(pending.size() - 1);
+            if (value == null || value instanceof Enum<?> || value instanceof Class<?> || !visited.add(value)) {
+                continue;
+            }
+            total += shallowSize(value, pending);
+        }
+        return total;
+    }
+
+    /**
+     * 计算单个对象自身的大小，并把需要继续遍历的子对象放入 pending
+     */
+    private static long shallowSize(Object value, List<Object> pending) {
+        if (value instanceof String s) {
+            return stringSize(s);
+        }
+        if (value instanceof Integer || value instanceof Float || value instanceof Short || value instanceof Byte
+                || value instanceof Character || value instanceof Boolean) {
+            return align(OBJECT_HEADER + 4);
+        }
+        if (value instanceof Long || value instanceof Double) {
+            return align(OBJECT_HEADER + 8);
+        }
+        if (value instanceof BigDecimal decimal) {
+            // intCompact/scale/precision/stringCache/intVal，超出 long 范围时另有 BigInteger
+            return align(OBJECT_HEADER + 8 + 4 + 4 + REFERENCE + REFERENCE)
+                    + (decimal.precision() > 18 ? bigIntegerSize(decimal.unscaledValue()) : 0);
+        }
+        if (value instanceof BigInteger integer) {
+            return bigIntegerSize(integer);
+        }
+        if (value instanceof Temporal) {
+            // LocalDateTime 由 LocalDate 与 LocalTime 两个对象组成，其余时间类型更小，统一按上限估算
+            return align(OBJECT_HEADER + 2 * REFERENCE) + align(OBJECT_HEADER + 8) + align(OBJECT_HEADER + 8);
+        }
+        if (value instanceof java.util.Date) {
+            return align(OBJECT_HEADER + 8 + REFERENCE);
+        }
+        Class<?> type = value.getClass();
+        if (type.isArray()) {
+            return arraySize(value, type.getComponentType(), pending);
+        }
+        if (value instanceof Collection<?> collection) {
+            return collectionSize(collection, pending);
+        }
+        if (value instanceof Map<?, ?> map) {
+            return mapSize(map, pending);
+        }
+        Layout layout = LAYOUTS.get(type);
+        for (Field field : layout.references) {
+            try {
+                pending.add(field.get(value));
+            } catch (IllegalAccessException | RuntimeException e) {
+                // 无法读取的字段只计引用本身
+            }
+        }
+        return layout.shallowSize;
+    }
+
+    private static long stringSize(String s) {
+        boolean latin1 = true;
+        for (int i = 0; i < s.length() && latin1; i++) {
+            latin1 = s.charAt(i) <= 0xFF;
+        }
+        // String 对象：头 + value 引用 + hash + coder + hashIsZero
+        return align(OBJECT_HEADER + REFERENCE + 4 + 1 + 1)
+                + align(ARRAY_HEADER + (long) s.length() * (latin1 ? 1 : 2));
+    }
+
+    private static long bigIntegerSize(BigInteger integer) {
+        return align(OBJECT_HEADER + 4 * 4 + REFERENCE) + align(ARRAY_HEADER + 4L * (integer.bitLength() / 32 + 1));
+    }
+
+    private static long arraySize(Object array, Class<?> componentType, List<Object> pending) {
+        int length = Array.getLength(array);
+        if (componentType.isPrimitive()) {
+            return align(ARRAY_HEADER + (long) length * primitiveSize(componentType));
+        }
+        Object[] elements = (Object[]) array;
+        Collections.addAll(pending, elements);
+        return align(ARRAY_HEADER + (long) length * REFERENCE);
+    }
+
+    private static long collectionSize(Collection<?> collection, List<Object> pending) {
+        int size = collection.size();
+        pending.addAll(collection);
+        if (collection instanceof Set<?>) {
+            // HashSet 内部是一个 HashMap，值统一指向同一个 PRESENT 对象
+            int node = collection instanceof java.util.SortedSet<?> ? TREE_NODE
+                    : collection instanceof java.util.LinkedHashSet<?> ? LINKED_HASH_NODE : HASH_NODE;
+            return align(OBJECT_HEADER + REFERENCE) + hashTableSize(size) + (long) size * node;
+        }
+        if (collection instanceof java.util.LinkedList<?>) {
+            return align(OBJECT_HEADER + 4 + 4 + 2 * REFERENCE) + (long) size * align(OBJECT_HEADER + 3 * REFERENCE);
+        }
+        // ArrayList 及不可变列表：对象本身 + 引用数组（按 1.5 倍扩容取平均余量）
+        return align(OBJECT_HEADER + 4 + 4 + REFERENCE) + align(ARRAY_HEADER + (long) size * 3 / 2 * REFERENCE);
+    }
+
+    private static long mapSize(Map<?, ?> map, List<Object> pending) {
+        int size = map.size();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            pending.add(entry.getKey());
+            pending.add(entry.getValue());
+        }
+        int node = map instanceof java.util.SortedMap<?, ?> ? TREE_NODE
+                : map instanceof java.util.LinkedHashMap<?, ?> ? LINKED_HASH_NODE : HASH_NODE;
+        return align(OBJECT_HEADER + 4 * 4 + 4 * REFERENCE) + hashTableSize(size) + (long) size * node;
+    }
+
+    /**
+     * 负载因子 0.75、容量取 2 的幂时的桶数组大小
+     */
+    private static long hashTableSize(int size) {
+        if (size == 0) {
+            return 0;
+        }
+        int capacity = Integer.highestOneBit(Math.max(1, (int) (size / 0.75f)) - 1) << 1;
+        return align(ARRAY_HEADER + (long) Math.max(16, capacity) * REFERENCE);
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    /**
+     * 类的字段布局：自身大小与需要继续遍历的引用字段
+     */
+    private record Layout(long shallowSize, Field[] references) {
+
+        static Layout of(Class<?> type) {
+            long size = OBJECT_HEADER;
+            List<Field> references = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    Class<?> fieldType = field.getType();
+                    if (fieldType.isPrimitive()) {
+                        size += primitiveSize(fieldType);
+                        continue;
+                    }
+                    size += REFERENCE;
+                    if (field.trySetAccessible()) {
+                        references.add(field);
+                    }
+                }
+            }
+            return new Layout(align(size), references.toArray(new Field[0]));
+        }
+    }
+}
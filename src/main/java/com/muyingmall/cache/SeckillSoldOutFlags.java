@@ -0,0 +1,124 @@
+package com.muyingmall.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.muyingmall.common.constants.CacheConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * 秒杀本地售罄标记
+ *
+ * 售罄后本节点直接拒绝后续请求，不再访问 Redis / DB / MQ；
+ * 标记通过 Redis Pub/Sub 广播到其他节点，库存回补（取消/超时/重新初始化）时广播清除。
+ *
+ * 为什么标记带 TTL：
+ * Pub/Sub 不保证送达，若某节点错过清除广播，过期后会重新以 Redis 库存为准，不会永久误判售罄
+ */
+@Slf4j
+@Component
+public class SeckillSoldOutFlags {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final NodeIdentifier nodeIdentifier;
+    private final ObjectMapper objectMapper;
+
+    @Value("${seckill.sold-out-flag.ttl-seconds:10}")
+    private long ttlSeconds;
+
+    /**
+     * key: seckillProductId；value: skuId（用于按 SKU 回补库存时清除）
+     */
+    private Cache<Long, Long> flags;
+
+    public SeckillSoldOutFlags(StringRedisTemplate stringRedisTemplate,
+                               NodeIdentifier nodeIdentifier,
+                               ObjectMapper objectMapper) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.nodeIdentifier = nodeIdentifier;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        flags = Caffeine.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(Duration.ofSeconds(Math.max(ttlSeconds, 1)))
+                .build();
+        log.info("秒杀本地售罄标记初始化 - ttl={}s", ttlSeconds);
+    }
+
+    /**
+     * 本节点是否已标记售罄（纯内存判断）
+     */
+    public boolean isSoldOut(Long seckillProductId) {
+        return seckillProductId != null && flags.getIfPresent(seckillProductId) != null;
+    }
+
+    /**
+     * 标记售罄并广播到其他节点
+     */
+    public void markSoldOut(Long seckillProductId, Long skuId) {
+        if (seckillProductId == null || isSoldOut(seckillProductId)) {
+            return;
+        }
+        markLocal(seckillProductId, skuId);
+        publish(new SeckillSoldOutMessage(SeckillSoldOutMessage.Action.SOLD_OUT,
+                seckillProductId, skuId, nodeIdentifier.getNodeId()));
+    }
+
+    /**
+     * 清除指定秒杀商品的售罄标记并广播
+     */
+    public void clear(Long seckillProductId) {
+        if (seckillProductId == null) {
+            return;
+        }
+        clearLocal(seckillProductId);
+        publish(new SeckillSoldOutMessage(SeckillSoldOutMessage.Action.CLEAR,
+                seckillProductId, null, nodeIdentifier.getNodeId()));
+    }
+
+    /**
+     * 清除指定 SKU 关联的所有售罄标记并广播（库存按 SKU 回补/初始化的场景）
+     */
+    public void clearBySku(Long skuId) {
+        if (skuId == null) {
+            return;
+        }
+        clearLocalBySku(skuId);
+        publish(new SeckillSoldOutMessage(SeckillSoldOutMessage.Action.CLEAR_SKU,
+                null, skuId, nodeIdentifier.getNodeId()));
+    }
+
+    void markLocal(Long seckillProductId, Long skuId) {
+        flags.put(seckillProductId, skuId != null ? skuId : -1L);
+        log.debug("秒杀商品标记售罄: seckillProductId={}, skuId={}", seckillProductId, skuId);
+    }
+
+    void clearLocal(Long seckillProductId) {
+        flags.invalidate(seckillProductId);
+    }
+
+    void clearLocalBySku(Long skuId) {
+        flags.asMap().entrySet().removeIf(e -> Objects.equals(e.getValue(), skuId));
+    }
+
+    private void publish(SeckillSoldOutMessage message) {
+        try {
+            stringRedisTemplate.convertAndSend(CacheConstants.SECKILL_SOLD_OUT_CHANNEL,
+                    objectMapper.writeValueAsString(message));
+        } catch (Exception e) {
+            // 广播失败只影响其他节点的标记时效，TTL 到期后自动纠正
+            log.warn("发布秒杀售罄标记消息失败: action={}, seckillProductId={}, skuId={}, error={}",
+                    message.getAction(), message.getSeckillProductId(), message.getSkuId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.muyingmall.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 秒杀售罄标记消息订阅者
+ * 收到其他节点的售罄/回补广播后，同步更新本节点的售罄标记
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeckillSoldOutListener implements MessageListener {
+
+    private final SeckillSoldOutFlags seckillSoldOutFlags;
+    private final NodeIdentifier nodeIdentifier;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            String body = new String(message.getBody());
+            SeckillSoldOutMessage msg = objectMapper.readValue(body, SeckillSoldOutMessage.class);
+
+            // 忽略自己发出的消息（本地已处理过）
+            if (nodeIdentifier.getNodeId().equals(msg.getSourceNodeId())) {
+                return;
+            }
+
+            switch (msg.getAction()) {
+                case SOLD_OUT -> seckillSoldOutFlags.markLocal(msg.getSeckillProductId(), msg.getSkuId());
+                case CLEAR -> seckillSoldOutFlags.clearLocal(msg.getSeckillProductId());
+                case CLEAR_SKU -> seckillSoldOutFlags.clearLocalBySku(msg.getSkuId());
+            }
+            log.debug("收到广播 - 秒杀售罄标记更新: action={}, seckillProductId={}, skuId={}",
+                    msg.getAction(), msg.getSeckillProductId(), msg.getSkuId());
+        } catch (Exception e) {
+            log.error("处理秒杀售罄标记广播失败: {}", e.getMessage(), e);
+        }
+    }
+}
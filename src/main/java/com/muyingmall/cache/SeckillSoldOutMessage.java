@@ -0,0 +1,48 @@
+package com.muyingmall.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 秒杀售罄标记广播消息
+ * 通过 Redis Pub/Sub 在多节点间同步秒杀商品的本地售罄标记
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeckillSoldOutMessage implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 动作类型：SOLD_OUT - 标记售罄；CLEAR - 按秒杀商品清除；CLEAR_SKU - 按 SKU 清除
+     */
+    public enum Action {
+        SOLD_OUT, CLEAR, CLEAR_SKU
+    }
+
+    /**
+     * 动作类型
+     */
+    private Action action;
+
+    /**
+     * 秒杀商品 ID（action=CLEAR_SKU 时忽略）
+     */
+    private Long seckillProductId;
+
+    /**
+     * SKU ID（action=CLEAR 时忽略）
+     */
+    private Long skuId;
+
+    /**
+     * 源节点 ID，用于避免自己处理自己发出的消息
+     */
+    private String sourceNodeId;
+}
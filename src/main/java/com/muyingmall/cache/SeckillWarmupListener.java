@@ -0,0 +1,42 @@
+package com.muyingmall.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muyingmall.service.SeckillWarmupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 秒杀预热消息订阅者
+ * 收到其他节点的预热广播后，从 Redis 批量加载活动与商品详情到本节点的本地缓存
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeckillWarmupListener implements MessageListener {
+
+    private final SeckillWarmupService seckillWarmupService;
+    private final NodeIdentifier nodeIdentifier;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            String body = new String(message.getBody());
+            SeckillWarmupMessage msg = objectMapper.readValue(body, SeckillWarmupMessage.class);
+
+            // 忽略自己发出的消息（本地已处理过）
+            if (nodeIdentifier.getNodeId().equals(msg.getSourceNodeId())) {
+                return;
+            }
+
+            seckillWarmupService.loadLocal(msg.getActivityId(), msg.getSeckillProductIds());
+            log.debug("收到广播 - 秒杀预热加载本地缓存: activityId={}, products={}",
+                    msg.getActivityId(), msg.getSeckillProductIds());
+        } catch (Exception e) {
+            log.error("处理秒杀预热广播失败: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.muyingmall.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 秒杀预热广播消息
+ * 预热节点写完 Redis 后通过 Redis Pub/Sub 通知其他节点，从 Redis 批量加载到本地缓存
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeckillWarmupMessage implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 活动ID
+     */
+    private Long activityId;
+
+    /**
+     * 活动下的秒杀商品ID
+     */
+    private List<Long> seckillProductIds;
+
+    /**
+     * 源节点 ID，用于避免自己处理自己发出的消息
+     */
+    private String sourceNodeId;
+}
@@ -0,0 +1,90 @@
+package com.muyingmall.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 进程内请求合并（single-flight）
+ *
+ * <p>
+ * 同一 JVM 内对同一个 key 的并发加载共享一个进行中的 {@link CompletableFuture}：
+ * 第一个到达的线程执行加载，其余线程等待其结果，缓存失效瞬间每个节点最多只有一次回源。
+ * 节点之间的互斥仍由 Redis 锁负责（见 CacheProtectionUtil.queryWithMutex）。
+ * </p>
+ */
+@Slf4j
+@Component
+public class SingleFlight {
+
+    /**
+     * 等待其他线程加载结果的最长时间（毫秒），超时后自行加载，避免加载线程卡死拖住所有请求
+     */
+    @Value("${cache.single-flight.wait-timeout-ms:3000}")
+    private long waitTimeoutMs;
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 执行加载；同一 key 已有加载进行中时等待其结果
+     *
+     * @param key    合并键（通常为缓存键）
+     * @param loader 加载函数
+     * @param <T>    返回值类型
+     * @return 加载结果
+     * @throws Exception 加载异常（等待方收到与加载方相同的异常）
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Callable<T> loader) throws Exception {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return (T) await(key, existing, loader);
+        }
+        try {
+            T result = loader.call();
+            mine.complete(result);
+            return result;
+        } catch (Exception | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 当前进行中的加载数量
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private Object await(String key, CompletableFuture<Object> existing, Callable<?> loader) throws Exception {
+        try {
+            Object result = existing.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+            log.debug("合并请求复用加载结果: key={}", key);
+            return result;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception ex) {
+                throw ex;
+            }
+            if (cause instanceof Error err) {
+                throw err;
+            }
+            throw e;
+        } catch (TimeoutException e) {
+            log.warn("等待合并请求超时，自行加载: key={}, timeout={}ms", key, waitTimeoutMs);
+            return loader.call();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.muyingmall.cache.codec;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.Arrays;
+
+/**
+ * JSON 格式：沿用原有的 Jackson 序列化器（带类型信息）
+ * 作为 Smile 格式无法表示时的回退，经头部封装后同样可以压缩
+ */
+public class JsonValueFormat implements ValueFormat {
+
+    public static final int ID = 2;
+
+    private final RedisSerializer<Object> jsonSerializer;
+
+    public JsonValueFormat(RedisSerializer<Object> jsonSerializer) {
+        this.jsonSerializer = jsonSerializer;
+    }
+
+    @Override
+    public int id() {
+        return ID;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        return jsonSerializer.serialize(value);
+    }
+
+    @Override
+    public Object decode(byte[] bytes, int offset, int length) {
+        byte[] body = offset == 0 && length == bytes.length ? bytes : Arrays.copyOfRange(bytes, offset, offset + length);
+        return jsonSerializer.deserialize(body);
+    }
+}
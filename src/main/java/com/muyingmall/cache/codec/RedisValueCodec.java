@@ -0,0 +1,195 @@
+package com.muyingmall.cache.codec;
+
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * RedisTemplate 值编解码器
+ *
+ * <p>
+ * 对象、集合与 Map 写为：魔数 0xC1 + 描述字节（高 4 位版本号、第 3 位压缩标记、低 3 位格式编号）+ 数据；
+ * 数据达到压缩阈值时用 LZ4 块格式（lz4-java）压缩，描述字节后先写变长编码的原始长度。格式按优先级依次尝试，
+ * 默认先用 Smile 二进制格式，无法表示时回退到 JSON 格式。
+ * </p>
+ * <p>
+ * 字符串、数字、布尔值等标量仍按原有 JSON 文本写入：Lua 脚本参数、INCR/DECRBY 计数、锁的值、Set/ZSet 成员
+ * 都依赖这些字节保持不变。读取时按首字节区分：0xC1 为新格式，其余按原有 JSON 解析，
+ * 迁移期间新旧数据可以混合存在，旧数据随 TTL 过期或下次写入时自然转换。
+ * </p>
+ * <p>
+ * 使用本编解码器的模板此前只写入过 JSON，因此不读取 JDK 序列化数据，避免对 Redis 中任意 0xACED 开头的值做 JDK 反序列化；
+ * Spring Session 的 JDK 序列化数据只由 sessionRedisTemplate 读取。
+ * </p>
+ */
+@Slf4j
+public class RedisValueCodec implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xC1;
+    static final int VERSION = 1;
+
+    private static final int FLAG_COMPRESSED = 0x08;
+    private static final int FORMAT_MASK = 0x07;
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * 解压后长度上限，与 Redis 单个字符串值的上限一致，防止损坏的长度字段导致超大内存分配
+     */
+    private static final int MAX_ORIGINAL_LENGTH = 512 * 1024 * 1024;
+
+    private static final LZ4Compressor LZ4_COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4SafeDecompressor LZ4_DECOMPRESSOR = LZ4Factory.fastestInstance().safeDecompressor();
+
+    private final List<ValueFormat> formats;
+    private final ValueFormat[] formatsById = new ValueFormat[FORMAT_MASK + 1];
+    private final RedisSerializer<Object> legacyJson;
+    private final int compressThreshold;
+    private final boolean writeEnabled;
+
+    /**
+     * @param formats           按优先级排列的编码格式
+     * @param legacyJson        原有 JSON 序列化器，用于标量与无头部的旧数据
+     * @param compressThreshold 压缩阈值（字节），小于等于 0 表示不压缩
+     * @param writeEnabled      是否以新格式写入；关闭时全部按原有 JSON 写入，但仍能读取已写入的新格式数据，便于回滚
+     */
+    public RedisValueCodec(List<ValueFormat> formats, RedisSerializer<Object> legacyJson, int compressThreshold,
+            boolean writeEnabled) {
+        this.formats = List.copyOf(formats);
+        for (ValueFormat format : this.formats) {
+            if (format.id() < 0 || format.id() > FORMAT_MASK || formatsById[format.id()] != null) {
+                throw new IllegalArgumentException("格式编号非法或重复: " + format.id());
+            }
+            formatsById[format.id()] = format;
+        }
+        this.legacyJson = legacyJson;
+        this.compressThreshold = compressThreshold;
+        this.writeEnabled = writeEnabled;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return EMPTY;
+        }
+        if (!writeEnabled || isScalar(value)) {
+            return legacyJson.serialize(value);
+        }
+        for (ValueFormat format : formats) {
+            byte[] body;
+            try {
+                body = format.encode(value);
+            } catch (UnsupportedValueException e) {
+                log.debug("缓存值编码回退: format={}, type={}, reason={}",
+                        format.id(), value.getClass().getName(), e.getMessage());
+                continue;
+            } catch (RuntimeException e) {
+                throw new SerializationException("缓存值编码失败: " + value.getClass().getName(), e);
+            }
+            return frame(format.id(), body);
+        }
+        return legacyJson.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return legacyJson.deserialize(bytes);
+        }
+        if (bytes.length < 2) {
+            throw new SerializationException("缓存值头部不完整");
+        }
+        int descriptor = bytes[1] & 0xFF;
+        int version = descriptor >>> 4;
+        if (version != VERSION) {
+            throw new SerializationException("不支持的缓存值版本: " + version);
+        }
+        ValueFormat format = formatsById[descriptor & FORMAT_MASK];
+        if (format == null) {
+            throw new SerializationException("未注册的缓存值格式: " + (descriptor & FORMAT_MASK));
+        }
+        try {
+            if ((descriptor & FLAG_COMPRESSED) == 0) {
+                return format.decode(bytes, 2, bytes.length - 2);
+            }
+            int pos = 2;
+            long originalLength = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (shift > 28) {
+                    throw new IllegalArgumentException("压缩长度字段损坏");
+                }
+                int b = bytes[pos++] & 0xFF;
+                originalLength |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            if (originalLength > MAX_ORIGINAL_LENGTH) {
+                throw new IllegalArgumentException("压缩长度字段损坏");
+            }
+            byte[] body = new byte[(int) originalLength];
+            int decompressed = LZ4_DECOMPRESSOR.decompress(bytes, pos, bytes.length - pos, body, 0, body.length);
+            if (decompressed != body.length) {
+                throw new IllegalArgumentException("LZ4 解压长度不一致: expected=" + body.length + ", actual=" + decompressed);
+            }
+            return format.decode(body, 0, body.length);
+        } catch (SerializationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // 含 LZ4Exception（压缩数据损坏或截断）
+            throw new SerializationException("缓存值解码失败: format=" + format.id(), e);
+        }
+    }
+
+    private byte[] frame(int formatId, byte[] body) {
+        int descriptor = VERSION << 4 | formatId;
+        if (compressThreshold > 0 && body.length >= compressThreshold) {
+            int lengthBytes = varIntSize(body.length);
+            int headerLength = 2 + lengthBytes;
+            byte[] framed = new byte[headerLength + LZ4_COMPRESSOR.maxCompressedLength(body.length)];
+            int compressedLength = LZ4_COMPRESSOR.compress(body, 0, body.length, framed, headerLength);
+            if (compressedLength + lengthBytes < body.length) {
+                framed[0] = MAGIC;
+                framed[1] = (byte) (descriptor | FLAG_COMPRESSED);
+                int pos = 2;
+                int remaining = body.length;
+                while ((remaining & ~0x7F) != 0) {
+                    framed[pos++] = (byte) ((remaining & 0x7F) | 0x80);
+                    remaining >>>= 7;
+                }
+                framed[pos] = (byte) remaining;
+                return Arrays.copyOf(framed, headerLength + compressedLength);
+            }
+        }
+        byte[] framed = new byte[2 + body.length];
+        framed[0] = MAGIC;
+        framed[1] = (byte) descriptor;
+        System.arraycopy(body, 0, framed, 2, body.length);
+        return framed;
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * 标量保持原有 JSON 文本，Lua 脚本与 Redis 原生数值命令直接操作这些字节
+     */
+    private static boolean isScalar(Object value) {
+        return value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum<?>;
+    }
+}
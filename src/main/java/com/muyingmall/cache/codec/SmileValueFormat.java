@@ -0,0 +1,128 @@
+package com.muyingmall.cache.codec;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.impl.ClassNameIdResolver;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Smile 二进制格式：与 JSON 格式共用 Redis 专用 ObjectMapper 的模块与可见性配置，只把底层换成 Jackson Smile
+ *
+ * <p>
+ * Smile 以二进制标记代替 JSON 文本，字段名与重复出现的字符串值（状态、分类名、类名等）在一次编码内只写一次，
+ * 之后按引用写入。类型信息与 JSON 格式一致按类名写入，但只允许包名在白名单内的类（加上 java.util、java.time、
+ * java.math 下的集合与数值类型）：写入时遇到白名单之外的类抛出 {@link UnsupportedValueException}，整体回退到 JSON 格式；
+ * 读取时拒绝白名单之外的类名，防止从 Redis 读到伪造的类名时实例化任意类。
+ * </p>
+ */
+public class SmileValueFormat implements ValueFormat {
+
+    /**
+     * 格式编号；1 为已移除的自研紧凑二进制格式，不再复用
+     */
+    public static final int ID = 3;
+
+    private static final List<String> JDK_PACKAGES = List.of("java.util.", "java.time.", "java.math.");
+
+    private final ObjectMapper smileMapper;
+
+    /**
+     * @param redisObjectMapper Redis 专用 ObjectMapper（复制其模块与可见性配置，类型校验改为白名单）
+     * @param allowedPackages   允许编解码的类包名前缀
+     */
+    public SmileValueFormat(ObjectMapper redisObjectMapper, List<String> allowedPackages) {
+        List<String> prefixes = new ArrayList<>(JDK_PACKAGES);
+        prefixes.addAll(allowedPackages);
+
+        BasicPolymorphicTypeValidator.Builder validator = BasicPolymorphicTypeValidator.builder();
+        prefixes.forEach(validator::allowIfSubType);
+
+        SmileFactory smileFactory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        this.smileMapper = redisObjectMapper.copyWith(smileFactory);
+        this.smileMapper.setDefaultTyping(new WhitelistTypeResolverBuilder(validator.build(), prefixes)
+                .init(JsonTypeInfo.Id.CLASS, null)
+                .inclusion(JsonTypeInfo.As.WRAPPER_ARRAY));
+    }
+
+    @Override
+    public int id() {
+        return ID;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        try {
+            return smileMapper.writeValueAsBytes(value);
+        } catch (IOException | RuntimeException e) {
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof UnsupportedValueException unsupported) {
+                    throw unsupported;
+                }
+            }
+            throw new IllegalStateException("Smile 编码失败: " + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object decode(byte[] bytes, int offset, int length) {
+        try {
+            return smileMapper.readValue(bytes, offset, length, Object.class);
+        } catch (IOException e) {
+            // 包含类名不在白名单内的情况（InvalidTypeIdException）
+            throw new IllegalArgumentException("Smile 解码失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 与 activateDefaultTyping(NON_FINAL) 相同的类型信息规则，写入类名前先校验白名单
+     */
+    private static class WhitelistTypeResolverBuilder extends ObjectMapper.DefaultTypeResolverBuilder {
+
+        private final List<String> prefixes;
+
+        WhitelistTypeResolverBuilder(PolymorphicTypeValidator validator, List<String> prefixes) {
+            super(ObjectMapper.DefaultTyping.NON_FINAL, validator);
+            this.prefixes = List.copyOf(prefixes);
+        }
+
+        @Override
+        protected TypeIdResolver idResolver(MapperConfig<?> config, JavaType baseType,
+                PolymorphicTypeValidator subtypeValidator, Collection<NamedType> subtypes,
+                boolean forSer, boolean forDeser) {
+            return new ClassNameIdResolver(baseType, config.getTypeFactory(), subtypeValidator) {
+                @Override
+                public String idFromValue(Object value) {
+                    return checked(super.idFromValue(value));
+                }
+
+                @Override
+                public String idFromValueAndType(Object value, Class<?> type) {
+                    return checked(super.idFromValueAndType(value, type));
+                }
+            };
+        }
+
+        private String checked(String typeId) {
+            for (String prefix : prefixes) {
+                if (typeId.startsWith(prefix)) {
+                    return typeId;
+                }
+            }
+            throw new UnsupportedValueException("类型不在白名单内: " + typeId);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.muyingmall.cache.codec;
+
+/**
+ * 编码格式不支持该值（如类型不在白名单内），调用方应改用其他格式
+ * 属于正常的格式回退流程，不记录堆栈
+ */
+public class UnsupportedValueException extends RuntimeException {
+
+    public UnsupportedValueException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,29 @@
+package com.muyingmall.cache.codec;
+
+/**
+ * Redis 缓存值编码格式
+ *
+ * <p>
+ * 由 {@link RedisValueCodec} 按优先级依次尝试，第一个能编码的格式写入数据；
+ * 格式编号记录在值头部，读取时按编号选择格式，因此新增格式不影响已写入的数据。
+ * </p>
+ */
+public interface ValueFormat {
+
+    /**
+     * 格式编号（0~7），写入值头部，发布后不可修改
+     */
+    int id();
+
+    /**
+     * 编码
+     *
+     * @throws UnsupportedValueException 本格式无法表示该值，由下一个格式处理
+     */
+    byte[] encode(Object value);
+
+    /**
+     * 解码 bytes[offset, offset + length)
+     */
+    Object decode(byte[] bytes, int offset, int length);
+}
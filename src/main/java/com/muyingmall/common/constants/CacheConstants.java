@@ -1,5 +1,7 @@
 package com.muyingmall.common.constants;
 
+import com.muyingmall.cache.CachePolicy;
+
 /**
  * 缓存常量类
  * 定义缓存键前缀和过期时间
@@ -21,6 +23,11 @@ public class CacheConstants {
      */
     public static final String PRODUCT_LIST_KEY = PRODUCT_KEY_PREFIX + "list:";
 
+    /**
+     * 商品基础信息缓存键（按ID批量读取，不含图片与规格）
+     */
+    public static final String PRODUCT_BASIC_KEY = PRODUCT_KEY_PREFIX + "basic:";
+
     /**
      * 管理后台商品列表缓存键
      */
@@ -31,11 +38,21 @@ public class CacheConstants {
      */
     public static final String PRODUCT_HOT_KEY = PRODUCT_KEY_PREFIX + "hot";
 
+    /**
+     * 按销量排序的热门商品缓存命名空间（按数量限制区分）
+     */
+    public static final String PRODUCT_HOT_TOP_KEY = PRODUCT_HOT_KEY + "_top_";
+
     /**
      * 新品商品缓存键
      */
     public static final String PRODUCT_NEW_KEY = PRODUCT_KEY_PREFIX + "new";
 
+    /**
+     * 新品商品列表缓存命名空间（按数量限制区分）
+     */
+    public static final String PRODUCT_NEW_LIST_KEY = PRODUCT_NEW_KEY + "_";
+
     /**
      * 推荐商品缓存键
      */
@@ -76,11 +93,21 @@ public class CacheConstants {
      */
     public static final String CATEGORY_KEY_PREFIX = "category:";
 
+    /**
+     * 分类基础信息缓存键（按ID批量读取）
+     */
+    public static final String CATEGORY_BASIC_KEY = CATEGORY_KEY_PREFIX + "basic:";
+
     /**
      * 品牌缓存前缀
      */
     public static final String BRAND_KEY_PREFIX = "brand:";
 
+    /**
+     * 品牌基础信息缓存键（按ID批量读取）
+     */
+    public static final String BRAND_BASIC_KEY = BRAND_KEY_PREFIX + "basic:";
+
     /**
      * 用户缓存前缀
      */
@@ -91,6 +118,11 @@ public class CacheConstants {
      */
     public static final String USER_DETAIL_KEY = USER_KEY_PREFIX + "detail:";
 
+    /**
+     * 用户基础信息缓存键（按ID批量读取）
+     */
+    public static final String USER_BASIC_KEY = USER_KEY_PREFIX + "basic:";
+
     /**
      * 用户名查询缓存键
      */
@@ -111,6 +143,11 @@ public class CacheConstants {
      */
     public static final String USER_TOKEN_KEY = USER_KEY_PREFIX + "token:";
 
+    /**
+     * 用户令牌索引键（按用户ID记录其登录会话令牌）
+     */
+    public static final String USER_TOKEN_INDEX_KEY = USER_KEY_PREFIX + "tokens:";
+
     /**
      * 商品缓存过期时间（秒）
      */
@@ -313,6 +350,11 @@ public class CacheConstants {
      */
     public static final String CONTENT_LIST_KEY = CONTENT_KEY_PREFIX + "list:";
 
+    /**
+     * 媒体资源列表缓存键
+     */
+    public static final String CONTENT_MEDIA_LIST_KEY = CONTENT_KEY_PREFIX + "media:";
+
     /**
      * 分析数据缓存前缀
      */
@@ -446,9 +488,65 @@ public class CacheConstants {
 
     // ================= Caffeine 二级缓存相关 =================
 
+    /**
+     * 分类树软过期策略：30分钟软过期，2小时硬过期，软过期前5分钟内被访问则提前刷新
+     */
+    public static final CachePolicy CATEGORY_TREE_POLICY = new CachePolicy(1800, 7200, 300);
+
+    /**
+     * 热门商品软过期策略：10分钟软过期，硬过期沿用 PRODUCT_HOT_EXPIRE_TIME，软过期前2分钟内被访问则提前刷新
+     */
+    public static final CachePolicy PRODUCT_HOT_POLICY = new CachePolicy(600, PRODUCT_HOT_EXPIRE_TIME, 120);
+
+    /**
+     * 首页推荐商品软过期策略：10分钟软过期，硬过期沿用 MEDIUM_EXPIRE_TIME，软过期前2分钟内被访问则提前刷新
+     */
+    public static final CachePolicy PRODUCT_RECOMMEND_POLICY = new CachePolicy(600, MEDIUM_EXPIRE_TIME, 120);
+
     /**
      * 本地缓存失效广播 Redis Pub/Sub Channel
      * 用于多节点间 Caffeine (L1) 失效通知
      */
     public static final String LOCAL_CACHE_EVICT_CHANNEL = "cache:evict:local";
+
+    /**
+     * 秒杀售罄标记广播 Redis Pub/Sub Channel
+     * 用于多节点间同步秒杀商品的本地售罄标记（售罄/库存回补）
+     */
+    public static final String SECKILL_SOLD_OUT_CHANNEL = "seckill:soldout:local";
+
+    /**
+     * 秒杀预热广播 Redis Pub/Sub Channel
+     * 用于通知其他节点把已预热到 Redis 的活动与商品详情加载到本地缓存
+     */
+    public static final String SECKILL_WARMUP_CHANNEL = "seckill:warmup:local";
+
+    /**
+     * WebSocket 推送 Redis Pub/Sub Channel
+     * 用于把推送消息路由到持有目标连接的节点
+     */
+    public static final String WEBSOCKET_PUSH_CHANNEL = "ws:push";
+
+    /**
+     * WebSocket 定向推送 Redis Pub/Sub Channel 前缀，后接节点ID
+     * 每个节点只订阅自己的频道，定向推送按连接归属只发布到持有连接的节点
+     */
+    public static final String WEBSOCKET_NODE_CHANNEL_PREFIX = "ws:push:node:";
+
+    /**
+     * WebSocket 连接归属 Key 前缀：ws:owner:{endpoint}:{id} → 持有连接的节点ID
+     */
+    public static final String WEBSOCKET_OWNER_KEY_PREFIX = "ws:owner:";
+
+    /**
+     * 缓存回填完成通知 Redis Pub/Sub Channel
+     * 持有互斥锁的节点回填缓存后发布缓存键，唤醒其他节点上等待该键的请求
+     */
+    public static final String CACHE_FILL_CHANNEL = "cache:fill";
+
+    /**
+     * 集群热点Key登记表（ZSET，score 为登记过期时间戳毫秒）
+     * 各节点登记本节点已提升到本地缓存的热点Key，写入方据此决定是否广播 L1 失效
+     */
+    public static final String HOT_KEY_REGISTRY_KEY = "cache:hot-keys";
 }
@@ -0,0 +1,178 @@
+package com.muyingmall.common.id;
+
+import com.muyingmall.cache.NodeIdentifier;
+import com.muyingmall.lock.DistributedLock;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 全局ID生成器
+ *
+ * <p>
+ * 订单号、支付单号、退款单号、物流单号与 TCC 事务ID统一由 {@link SnowflakeIdGenerator} 生成：
+ * 同一节点内严格递增，跨节点按毫秒粗略有序，单号写入唯一索引时基本顺序追加。
+ * </p>
+ * <p>
+ * 节点号启动时从 Redis 租用：从随机位置起依次尝试 {@code id:worker:{n}}（SET NX PX），
+ * 之后每 {@code renew-interval-ms} 续期一次；续期发现租约已丢失时重新租用并切换节点号。
+ * 配置了 {@code id.snowflake.worker-id} 时直接使用该值；启动时 Redis 不可用则临时使用随机节点号，
+ * 由续期任务在 Redis 恢复后补租。
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdGenerator {
+
+    static final String WORKER_KEY_PREFIX = "id:worker:";
+
+    private final DistributedLock distributedLock;
+    private final NodeIdentifier nodeIdentifier;
+
+    /**
+     * 固定节点号，-1 表示从 Redis 租用
+     */
+    @Value("${id.snowflake.worker-id:-1}")
+    private long configuredWorkerId = -1;
+
+    /**
+     * 纪元（毫秒），默认 2024-01-01 00:00:00 +08:00，上线后不可修改
+     */
+    @Value("${id.snowflake.epoch:1704038400000}")
+    private long epoch = 1704038400000L;
+
+    /**
+     * 允许的最大时钟回拨（毫秒）
+     */
+    @Value("${id.snowflake.max-backward-ms:5000}")
+    private long maxBackwardMs = 5000;
+
+    /**
+     * 节点号租约有效期（毫秒）
+     */
+    @Value("${id.snowflake.lease-ttl-ms:60000}")
+    private long leaseTtlMs = 60000;
+
+    private SnowflakeIdGenerator generator;
+
+    /**
+     * 当前持有的租约Key，null 表示未持有（固定节点号或尚未租到）
+     */
+    private volatile String leaseKey;
+
+    @PostConstruct
+    public void init() {
+        long workerId;
+        if (configuredWorkerId >= 0) {
+            workerId = configuredWorkerId;
+        } else {
+            Long leased = acquireWorkerId();
+            if (leased != null) {
+                workerId = leased;
+            } else {
+                workerId = ThreadLocalRandom.current().nextInt(SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+                log.warn("ID生成器未能从Redis租用节点号，临时使用随机节点号 {}，Redis恢复后自动补租", workerId);
+            }
+        }
+        generator = new SnowflakeIdGenerator(workerId, epoch, maxBackwardMs);
+        log.info("ID生成器初始化完成: workerId={}, leased={}", workerId, leaseKey != null);
+    }
+
+    /**
+     * 数字ID
+     */
+    public long nextId() {
+        return generator.nextId();
+    }
+
+    /**
+     * 19 位定长数字字符串ID，字典序即生成顺序
+     */
+    public String nextIdString() {
+        return generator.nextIdString();
+    }
+
+    /**
+     * 带业务前缀的单号
+     *
+     * @param prefix 业务前缀，如 OD / PY / R
+     */
+    public String nextNo(String prefix) {
+        return generator.nextNo(prefix);
+    }
+
+    public long getWorkerId() {
+        return generator.getWorkerId();
+    }
+
+    /**
+     * 续期节点号租约，租约丢失或尚未租到时重新租用
+     */
+    @Scheduled(fixedDelayString = "${id.snowflake.renew-interval-ms:20000}")
+    public void renewLease() {
+        if (configuredWorkerId >= 0) {
+            return;
+        }
+        try {
+            String key = leaseKey;
+            if (key != null && distributedLock.renewLock(key, nodeIdentifier.getNodeId(), leaseTtlMs)) {
+                return;
+            }
+            if (key != null) {
+                log.warn("ID生成器节点号租约已丢失: {}，重新租用", key);
+                leaseKey = null;
+            }
+            Long workerId = acquireWorkerId();
+            if (workerId != null) {
+                generator.setWorkerId(workerId);
+                log.info("ID生成器切换节点号: workerId={}", workerId);
+            }
+        } catch (Exception e) {
+            log.warn("ID生成器续期节点号租约失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void releaseLease() {
+        String key = leaseKey;
+        if (key == null) {
+            return;
+        }
+        try {
+            distributedLock.releaseLock(key, nodeIdentifier.getNodeId());
+        } catch (Exception e) {
+            log.debug("释放节点号租约失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从随机位置起依次尝试租用节点号
+     *
+     * @return 租到的节点号，全部被占用或 Redis 不可用时返回 null
+     */
+    Long acquireWorkerId() {
+        int slots = SnowflakeIdGenerator.MAX_WORKER_ID + 1;
+        int start = ThreadLocalRandom.current().nextInt(slots);
+        try {
+            for (int i = 0; i < slots; i++) {
+                int candidate = (start + i) % slots;
+                String key = WORKER_KEY_PREFIX + candidate;
+                if (distributedLock.tryLock(key, nodeIdentifier.getNodeId(), leaseTtlMs)) {
+                    leaseKey = key;
+                    return (long) candidate;
+                }
+            }
+            log.error("ID生成器节点号已全部被占用（{} 个）", slots);
+        } catch (Exception e) {
+            log.warn("ID生成器租用节点号失败: {}", e.getMessage());
+        }
+        return null;
+    }
+}
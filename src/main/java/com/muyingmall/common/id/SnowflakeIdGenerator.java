@@ -0,0 +1,147 @@
+package com.muyingmall.common.id;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake 风格的时间有序ID
+ *
+ * <p>
+ * 63 位正整数：41 位自纪元起的毫秒数 | 10 位节点号 | 12 位毫秒内序列，单节点每毫秒最多 4096 个。
+ * 毫秒时间戳与序列合并存放在一个 AtomicLong 中，通过 CAS 推进，无锁。
+ * </p>
+ * <p>
+ * 时钟回拨不超过 {@code maxBackwardMillis} 时沿用上次的时间戳继续分配序列，该毫秒序列用尽后等待时钟追上；
+ * 超过时抛出 {@link IllegalStateException}，拒绝生成可能重复的ID。
+ * </p>
+ */
+public class SnowflakeIdGenerator {
+
+    static final int SEQUENCE_BITS = 12;
+    static final int WORKER_BITS = 10;
+    public static final int MAX_WORKER_ID = (1 << WORKER_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    /**
+     * 字符串形式的数字位数：Long.MAX_VALUE 为 19 位，补零后字典序与数值序一致
+     */
+    static final int DIGITS = 19;
+
+    private final long epochMillis;
+    private final long maxBackwardMillis;
+    private final LongSupplier clock;
+
+    /**
+     * 高位为上次使用的时间戳（相对纪元），低 12 位为该毫秒内已分配的序列
+     */
+    private final AtomicLong state = new AtomicLong(-1L);
+
+    private volatile long workerId;
+
+    public SnowflakeIdGenerator(long workerId, long epochMillis, long maxBackwardMillis) {
+        this(workerId, epochMillis, maxBackwardMillis, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long workerId, long epochMillis, long maxBackwardMillis, LongSupplier clock) {
+        this.epochMillis = epochMillis;
+        this.maxBackwardMillis = maxBackwardMillis;
+        this.clock = clock;
+        setWorkerId(workerId);
+    }
+
+    /**
+     * 生成下一个ID
+     */
+    public long nextId() {
+        while (true) {
+            long now = clock.getAsLong() - epochMillis;
+            long last = state.get();
+            long lastTimestamp = last >>> SEQUENCE_BITS;
+            long next;
+            if (last < 0 || now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                long behind = lastTimestamp - now;
+                if (behind > maxBackwardMillis) {
+                    throw new IllegalStateException("系统时钟回拨 " + behind + "ms，超过允许的 "
+                            + maxBackwardMillis + "ms，拒绝生成ID");
+                }
+                if ((last & SEQUENCE_MASK) == SEQUENCE_MASK) {
+                    // 该毫秒序列已用尽，等待时钟进入下一毫秒
+                    waitMillis(behind + 1);
+                    continue;
+                }
+                next = last + 1;
+            }
+            if (state.compareAndSet(last, next)) {
+                return ((next >>> SEQUENCE_BITS) << (WORKER_BITS + SEQUENCE_BITS))
+                        | (workerId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * 生成定长数字字符串形式的ID（19 位，左侧补零），按字典序排序即按生成时间排序
+     */
+    public String nextIdString() {
+        return format(nextId());
+    }
+
+    /**
+     * 带业务前缀的单号，如 OD0512398457891028992
+     */
+    public String nextNo(String prefix) {
+        return prefix + format(nextId());
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * 切换节点号（租约丢失后重新分配时使用）
+     */
+    public void setWorkerId(long workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId 必须在 0~" + MAX_WORKER_ID + " 之间: " + workerId);
+        }
+        this.workerId = workerId;
+    }
+
+    /**
+     * ID中的生成时间（毫秒时间戳）
+     */
+    public long timestampOf(long id) {
+        return (id >>> (WORKER_BITS + SEQUENCE_BITS)) + epochMillis;
+    }
+
+    /**
+     * ID中的节点号
+     */
+    public static long workerIdOf(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_WORKER_ID;
+    }
+
+    static String format(long id) {
+        String digits = Long.toString(id);
+        if (digits.length() >= DIGITS) {
+            return digits;
+        }
+        StringBuilder sb = new StringBuilder(DIGITS);
+        for (int i = digits.length(); i < DIGITS; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits).toString();
+    }
+
+    private static void waitMillis(long millis) {
+        if (millis <= 1) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis - 1));
+        }
+    }
+}
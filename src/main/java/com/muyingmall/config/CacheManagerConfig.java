@@ -1,5 +1,7 @@
 package com.muyingmall.config;
 
+import com.muyingmall.annotation.ClusterJob;
+import com.muyingmall.cache.CacheNamespaces;
 import com.muyingmall.common.constants.CacheConstants;
 import com.muyingmall.util.RedisUtil;
 import lombok.RequiredArgsConstructor;
@@ -13,7 +15,6 @@ import org.springframework.scheduling.annotation.Scheduled;
 import jakarta.annotation.PostConstruct;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -29,6 +30,7 @@ public class CacheManagerConfig {
 
     private final RedisUtil redisUtil;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheNamespaces cacheNamespaces;
 
     // 缓存命中统计
     private final Map<String, AtomicLong> cacheHitCount = new ConcurrentHashMap<>();
@@ -158,26 +160,12 @@ public class CacheManagerConfig {
         return (double) hit.get() / total * 100;
     }
 
-    /**
-     * 清除指定前缀的缓存
-     * 
-     * @param prefixPattern 前缀模式
-     * @return 清除的键数量
-     */
-    public long clearCache(String prefixPattern) {
-        try {
-            return redisUtil.deleteByScan(prefixPattern);
-        } catch (Exception e) {
-            log.error("清除缓存失败: prefix={}, error={}", prefixPattern, e.getMessage(), e);
-            return 0;
-        }
-    }
-
     /**
      * 定期打印缓存统计信息
-     * 每小时执行一次
+     * 每小时执行一次，命中率为本节点计数，每个节点各自打印
      */
     @Scheduled(fixedRate = 3600000)
+    @ClusterJob(name = "cache-stats-print", mode = ClusterJob.Mode.LOCAL)
     public void printCacheStats() {
         if (!statsEnabled) {
             return;
@@ -198,18 +186,10 @@ public class CacheManagerConfig {
             }
         }
 
-        // 统计缓存键数量
+        // 统计缓存键数量：只取总键数，按前缀计数需要遍历键空间，各命名空间的载荷与命中情况见 CacheMetrics
         try {
             long totalKeys = redisTemplate.getConnectionFactory().getConnection().dbSize();
             log.debug("Redis总键数: {}", totalKeys);
-
-            // 统计各类型缓存键数量
-            for (String prefix : cachePrefixExpireTime.keySet()) {
-                Set<String> keys = redisUtil.keys(prefix + "*");
-                if (keys != null) {
-                    log.debug("缓存类型: {}, 键数量: {}", prefix, keys.size());
-                }
-            }
         } catch (Exception e) {
             log.error("统计缓存键数量失败: {}", e.getMessage());
         }
@@ -219,9 +199,10 @@ public class CacheManagerConfig {
 
     /**
      * 清理过期缓存
-     * 每天凌晨2点执行
+     * 每天凌晨2点执行，集群中只由一个节点执行
      */
     @Scheduled(cron = "0 0 2 * * ?")
+    @ClusterJob(name = "cache-clean-expired", leaseMs = 300000, minHoldMs = 3600000)
     public void cleanExpiredCache() {
         log.debug("开始执行过期缓存清理任务");
 
@@ -234,10 +215,12 @@ public class CacheManagerConfig {
         }
 
         // 清理会导致缓存雪崩的热点数据缓存
-        // 这里只做示例，实际上Redis会自动清理过期键
-        clearCache(CacheConstants.PRODUCT_HOT_KEY + "*");
-        clearCache(CacheConstants.PRODUCT_NEW_KEY + "*");
-        clearCache(CacheConstants.PRODUCT_RECOMMEND_KEY + "*");
+        // 这里只做示例，实际上Redis会自动清理过期键；按数量区分的列表递增命名空间代号，不扫描键空间，
+        // 软过期的热门/推荐列表由后台刷新，排名有序集合保留
+        cacheNamespaces.bump(CacheConstants.PRODUCT_HOT_TOP_KEY);
+        cacheNamespaces.bump(CacheConstants.PRODUCT_NEW_LIST_KEY);
+        redisUtil.del(CacheConstants.PRODUCT_HOT_KEY, CacheConstants.PRODUCT_NEW_KEY,
+                CacheConstants.PRODUCT_RECOMMEND_KEY);
 
         // 记录清理后的键数量
         long afterCount = 0;
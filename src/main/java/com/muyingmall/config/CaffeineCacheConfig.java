@@ -1,7 +1,12 @@
 package com.muyingmall.config;
 
 import com.muyingmall.cache.CacheEvictListener;
+import com.muyingmall.cache.CacheFillListener;
+import com.muyingmall.cache.SeckillSoldOutListener;
+import com.muyingmall.cache.SeckillWarmupListener;
 import com.muyingmall.common.constants.CacheConstants;
+import com.muyingmall.websocket.ClusterPushBus;
+import com.muyingmall.websocket.ClusterPushListener;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
@@ -10,9 +15,11 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
+import java.util.List;
+
 /**
  * Caffeine + Redis 二级缓存配置
- * 注册 Redis Pub/Sub 监听容器，订阅本地缓存失效 channel
+ * 注册 Redis Pub/Sub 监听容器，订阅本地缓存失效、秒杀售罄标记、秒杀预热与 WebSocket 推送 channel
  */
 @Slf4j
 @Configuration
@@ -21,17 +28,40 @@ public class CaffeineCacheConfig {
 
     /**
      * 注册 Redis 消息监听容器，订阅本地缓存失效 channel
+     * 秒杀售罄标记、秒杀预热、WebSocket 推送、缓存回填通知同属节点本地状态，复用同一容器（同一订阅连接）
      */
     @Bean
     public RedisMessageListenerContainer cacheEvictListenerContainer(
             RedisConnectionFactory connectionFactory,
-            CacheEvictListener cacheEvictListener) {
+            CacheEvictListener cacheEvictListener,
+            SeckillSoldOutListener seckillSoldOutListener,
+            SeckillWarmupListener seckillWarmupListener,
+            ClusterPushListener clusterPushListener,
+            ClusterPushBus clusterPushBus,
+            CacheFillListener cacheFillListener) {
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(connectionFactory);
         container.addMessageListener(cacheEvictListener,
                 new ChannelTopic(CacheConstants.LOCAL_CACHE_EVICT_CHANNEL));
         log.info("Redis Pub/Sub 本地缓存失效订阅已注册 - channel={}",
                 CacheConstants.LOCAL_CACHE_EVICT_CHANNEL);
+        container.addMessageListener(seckillSoldOutListener,
+                new ChannelTopic(CacheConstants.SECKILL_SOLD_OUT_CHANNEL));
+        log.info("Redis Pub/Sub 秒杀售罄标记订阅已注册 - channel={}",
+                CacheConstants.SECKILL_SOLD_OUT_CHANNEL);
+        container.addMessageListener(seckillWarmupListener,
+                new ChannelTopic(CacheConstants.SECKILL_WARMUP_CHANNEL));
+        log.info("Redis Pub/Sub 秒杀预热订阅已注册 - channel={}",
+                CacheConstants.SECKILL_WARMUP_CHANNEL);
+        container.addMessageListener(clusterPushListener, List.of(
+                new ChannelTopic(CacheConstants.WEBSOCKET_PUSH_CHANNEL),
+                new ChannelTopic(clusterPushBus.nodeChannel())));
+        log.info("Redis Pub/Sub WebSocket推送订阅已注册 - channel={}, nodeChannel={}",
+                CacheConstants.WEBSOCKET_PUSH_CHANNEL, clusterPushBus.nodeChannel());
+        container.addMessageListener(cacheFillListener,
+                new ChannelTopic(CacheConstants.CACHE_FILL_CHANNEL));
+        log.info("Redis Pub/Sub 缓存回填通知订阅已注册 - channel={}",
+                CacheConstants.CACHE_FILL_CHANNEL);
         return container;
     }
 }
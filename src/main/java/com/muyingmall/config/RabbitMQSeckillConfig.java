@@ -1,7 +1,12 @@
 package com.muyingmall.config;
 
 import com.muyingmall.common.constants.RabbitMQConstants;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -9,12 +14,23 @@ import org.springframework.context.annotation.Configuration;
  * 秒杀专用 RabbitMQ 配置
  * 实现异步削峰，保护数据库
  */
+@Slf4j
 @Configuration
 public class RabbitMQSeckillConfig {
 
     public static final String SECKILL_QUEUE = "seckill.order.queue";
     public static final String SECKILL_EXCHANGE = "seckill.exchange";
     public static final String SECKILL_ROUTING_KEY = "seckill.order";
+    public static final String SECKILL_BATCH_CONTAINER_FACTORY = "seckillBatchListenerContainerFactory";
+
+    @Value("${seckill.consumer.batch-size:50}")
+    private int batchSize;
+
+    @Value("${seckill.consumer.batch-receive-timeout:100}")
+    private long batchReceiveTimeout;
+
+    @Value("${seckill.consumer.concurrency:2}")
+    private int concurrency;
 
     @Bean
     public Queue seckillQueue() {
@@ -36,4 +52,30 @@ public class RabbitMQSeckillConfig {
                 .to(seckillExchange())
                 .with(SECKILL_ROUTING_KEY);
     }
+
+    /**
+     * 秒杀批量消费容器工厂
+     * 消费端攒批：凑满 batchSize 条或 receiveTimeout 毫秒内没有新消息时，把当前批次整体交给监听器；
+     * 预取数量不小于批大小，保证一次能攒满一批
+     */
+    @Bean(name = SECKILL_BATCH_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory seckillBatchListenerContainerFactory(
+            ConnectionFactory connectionFactory,
+            @Qualifier("rabbitListenerExecutor") java.util.concurrent.Executor rabbitListenerExecutor) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setTaskExecutor(rabbitListenerExecutor);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(Math.max(batchSize, 1));
+        factory.setReceiveTimeout(Math.max(batchReceiveTimeout, 1));
+        factory.setPrefetchCount(Math.max(batchSize, 1) * 2);
+        factory.setConcurrentConsumers(Math.max(concurrency, 1));
+        factory.setMissingQueuesFatal(false);
+
+        log.info("秒杀批量消费容器工厂配置完成 - batchSize: {}, receiveTimeout: {}ms, 并发: {}",
+                batchSize, batchReceiveTimeout, concurrency);
+        return factory;
+    }
 }
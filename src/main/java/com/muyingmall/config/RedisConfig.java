@@ -6,6 +6,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.muyingmall.cache.codec.JsonValueFormat;
+import com.muyingmall.cache.codec.RedisValueCodec;
+import com.muyingmall.cache.codec.SmileValueFormat;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
@@ -19,8 +22,11 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.util.List;
+
 /**
  * Redis配置类
  */
@@ -37,6 +43,15 @@ public class RedisConfig {
     @Value("${spring.data.redis.password:}")
     private String redisPassword;
 
+    @Value("${cache.codec.enabled:true}")
+    private boolean codecEnabled;
+
+    @Value("${cache.codec.compress-threshold:512}")
+    private int codecCompressThreshold;
+
+    @Value("${cache.codec.allowed-packages:com.muyingmall.,com.baomidou.mybatisplus.}")
+    private List<String> codecAllowedPackages;
+
     /**
      * 创建db1的Redis连接工厂
      */
@@ -130,14 +145,26 @@ public class RedisConfig {
         template.setKeySerializer(stringRedisSerializer);
         template.setHashKeySerializer(stringRedisSerializer);
 
-        // 使用Jackson2JsonRedisSerializer来序列化和反序列化redis的value值
-        Jackson2JsonRedisSerializer<Object> jsonRedisSerializer = new Jackson2JsonRedisSerializer<>(redisObjectMapper,
-                Object.class);
-        template.setValueSerializer(jsonRedisSerializer);
-        template.setHashValueSerializer(jsonRedisSerializer);
+        // 值序列化：对象与集合使用 Smile 二进制编码（大值 LZ4 压缩），标量与旧数据沿用Jackson JSON
+        RedisSerializer<Object> valueSerializer = createValueSerializer(redisObjectMapper);
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
 
         template.afterPropertiesSet();
 
         return template;
     }
-}
\ No newline at end of file
+
+    /**
+     * 创建值序列化器
+     * 始终能读取新格式以及 JSON 写入的旧数据；cache.codec.enabled=false 时按原有 Jackson JSON 写入
+     */
+    private RedisSerializer<Object> createValueSerializer(ObjectMapper redisObjectMapper) {
+        Jackson2JsonRedisSerializer<Object> jsonRedisSerializer = new Jackson2JsonRedisSerializer<>(redisObjectMapper,
+                Object.class);
+        return new RedisValueCodec(
+                List.of(new SmileValueFormat(redisObjectMapper, codecAllowedPackages),
+                        new JsonValueFormat(jsonRedisSerializer)),
+                jsonRedisSerializer, codecCompressThreshold, codecEnabled);
+    }
+}
@@ -0,0 +1,36 @@
+package com.muyingmall.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import jakarta.validation.constraints.Min;
+
+/**
+ * 集群定时任务协调配置
+ * 标注 @ClusterJob 的定时任务通过 Redis 租约在节点间协调，见 ClusterJobCoordinator
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "scheduling.cluster")
+@Validated
+public class ClusterJobProperties {
+
+    /**
+     * 是否启用租约协调；关闭后每个节点都执行全部任务（单节点部署或本地开发）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 节点心跳间隔（毫秒），分片任务按心跳登记的存活节点分配分片
+     */
+    @Min(100)
+    private long heartbeatIntervalMs = 10000;
+
+    /**
+     * 心跳超过该时长未更新的节点视为下线（毫秒），应为心跳间隔的数倍
+     */
+    @Min(1000)
+    private long nodeTtlMs = 30000;
+}
@@ -0,0 +1,108 @@
+package com.muyingmall.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import jakarta.validation.constraints.Min;
+
+/**
+ * 订单支付超时配置
+ * 超时订单由 Redis 分片延迟队列 + 本地分层时间轮触发取消，见 OrderTimeoutService
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "order.timeout")
+@Validated
+public class OrderTimeoutProperties {
+
+    /**
+     * 是否启用延迟队列；关闭后仅靠数据库兜底扫描取消超时订单
+     */
+    private boolean enabled = true;
+
+    /**
+     * 下单后未支付自动取消的时长（分钟）
+     */
+    @Min(1)
+    private int payTimeoutMinutes = 5;
+
+    /**
+     * 延迟队列分片数（ZSET 个数），上线后修改需清空队列并重建
+     */
+    @Min(1)
+    private int shards = 8;
+
+    /**
+     * 时间轮每格时长（毫秒），即超时取消的触发精度
+     */
+    @Min(10)
+    private long tickMs = 1000;
+
+    /**
+     * 时间轮每层格数
+     */
+    @Min(2)
+    private int wheelSize = 60;
+
+    /**
+     * 时间轮层数
+     */
+    @Min(1)
+    private int wheelLevels = 3;
+
+    /**
+     * 预加载窗口（毫秒）：到期时间在此窗口内的订单从 Redis 装入本地时间轮
+     */
+    @Min(1000)
+    private long preloadMs = 5 * 60 * 1000L;
+
+    /**
+     * 预加载间隔（毫秒），应小于预加载窗口
+     */
+    @Min(1000)
+    private long loadIntervalMs = 60 * 1000L;
+
+    /**
+     * 每个分片每次预加载的最大条数
+     */
+    @Min(1)
+    private int loadLimit = 5000;
+
+    /**
+     * 认领租约（毫秒）：认领后未确认的订单在租约到期后可被重新认领
+     */
+    @Min(1000)
+    private long claimLeaseMs = 60 * 1000L;
+
+    /**
+     * 直接扫描 Redis 到期订单的间隔（毫秒），兜底时间轮未覆盖的订单与租约过期的订单
+     */
+    @Min(1000)
+    private long claimIntervalMs = 10 * 1000L;
+
+    /**
+     * 每批认领与取消的订单数
+     */
+    @Min(1)
+    private int batchSize = 200;
+
+    /**
+     * 数据库兜底扫描间隔（毫秒）：只查超时超过宽限期仍未取消的订单，弥补入队失败
+     */
+    @Min(1000)
+    private long sweepIntervalMs = 10 * 60 * 1000L;
+
+    /**
+     * 数据库兜底扫描的宽限期（毫秒）
+     */
+    @Min(0)
+    private long sweepGraceMs = 2 * 60 * 1000L;
+
+    /**
+     * 从数据库重建延迟队列时每页读取的订单数
+     */
+    @Min(1)
+    private int rebuildPageSize = 1000;
+}
@@ -55,6 +55,13 @@ public class RabbitMQProperties {
     @NotNull
     private Performance performance = new Performance();
 
+    /**
+     * 事务性发件箱配置
+     */
+    @Valid
+    @NotNull
+    private Outbox outbox = new Outbox();
+
     /**
      * 错误处理配置类
      */
@@ -178,6 +185,62 @@ public class RabbitMQProperties {
         private long batchTimeout = 1000L;
     }
 
+    /**
+     * 事务性发件箱配置类
+     */
+    @Data
+    public static class Outbox {
+
+        /**
+         * 是否启用发件箱
+         * 启用后订单、支付、订单超时消息先随业务事务写入 message_outbox，由中继异步发布；
+         * 关闭后恢复在调用线程内直接发送
+         */
+        private boolean enabled = true;
+
+        /**
+         * 中继轮询间隔（毫秒），事务提交后还会立即唤醒一次中继
+         */
+        @Min(100)
+        private long pollInterval = 1000L;
+
+        /**
+         * 每批认领的消息数量
+         */
+        @Min(1)
+        private int batchSize = 100;
+
+        /**
+         * 等待一批消息发布确认的超时时间（毫秒）
+         */
+        @Min(100)
+        private long confirmTimeout = 5000L;
+
+        /**
+         * 最大尝试次数，超过后标记为发送失败
+         */
+        @Min(1)
+        private int maxAttempts = 10;
+
+        /**
+         * 重试退避基数（毫秒），第 n 次失败后等待 基数 × 2^(n-1)
+         */
+        @Min(100)
+        private long retryInterval = 1000L;
+
+        /**
+         * 重试退避上限（毫秒）
+         */
+        @Min(1000)
+        private long maxRetryInterval = 300000L;
+
+        /**
+         * 已发送消息保留天数
+         */
+        @Min(1)
+        private int retentionDays = 3;
+    }
+
     /**
      * 获取完整的配置描述
      */
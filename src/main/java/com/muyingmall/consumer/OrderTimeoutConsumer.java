@@ -1,17 +1,7 @@
 package com.muyingmall.consumer;
 
-import com.muyingmall.dto.SkuStockDTO;
 import com.muyingmall.entity.Order;
-import com.muyingmall.entity.OrderProduct;
-import com.muyingmall.enums.OrderStatus;
-import com.muyingmall.mapper.OrderMapper;
-import com.muyingmall.mapper.OrderProductMapper;
-import com.muyingmall.mapper.ProductMapper;
-import com.muyingmall.service.OrderStateService;
-import com.muyingmall.service.ProductSkuService;
-import com.muyingmall.service.SeckillOrderReleaseService;
-import com.muyingmall.statemachine.OrderEvent;
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.muyingmall.service.OrderTimeoutService;
 import com.rabbitmq.client.Channel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,10 +9,8 @@ import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -30,7 +18,8 @@ import java.util.Map;
  * 订单超时消息消费者
  *
  * 监听order.timeout.queue队列，处理超时未支付的订单
- * 实现论文中描述的"TTL + DLX死信队列"订单超时取消机制
+ * 新订单的超时已改由 {@link OrderTimeoutService} 的延迟队列调度，不再发送 TTL + DLX 消息；
+ * 此消费者保留用于处理升级前已在延迟队列中的消息，取消逻辑与延迟队列共用，可重复处理
  *
  * @author MuyingMall
  */
@@ -39,12 +28,7 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class OrderTimeoutConsumer {
 
-    private final OrderMapper orderMapper;
-    private final OrderStateService orderStateService;
-    private final OrderProductMapper orderProductMapper;
-    private final ProductMapper productMapper;
-    private final ProductSkuService productSkuService;
-    private final SeckillOrderReleaseService seckillOrderReleaseService;
+    private final OrderTimeoutService orderTimeoutService;
 
     /**
      * 处理订单超时消息
@@ -66,32 +50,12 @@ public class OrderTimeoutConsumer {
 
             log.info("收到订单超时消息: orderId={}, orderNo={}", orderId, orderNo);
 
-            // 查询订单当前状态
-            Order order = orderMapper.selectById(orderId);
-            if (order == null) {
-                log.warn("订单不存在，忽略超时消息: orderId={}", orderId);
-                channel.basicAck(tag, false);
-                return;
-            }
-
-            // 只有处于"待支付"状态才执行取消
-            if (order.getStatus() == OrderStatus.PENDING_PAYMENT) {
-                // 使用状态机发送超时事件
-                orderStateService.sendEvent(
-                        order,
-                        OrderEvent.TIMEOUT,
-                        "system",
-                        "订单超过30分钟未支付，系统自动取消（消息队列触发）"
-                );
-
-                // 恢复库存
-                restoreStock(orderId);
-                // 释放秒杀订单占用（秒杀库存与资格），确保超时后用户可再次参与。
-                seckillOrderReleaseService.releasePendingSeckillOrder(orderId, "MQ_TIMEOUT");
-
+            // 只有仍处于"待支付"状态的订单会被取消，已支付或已被延迟队列取消的订单直接忽略
+            List<Order> cancelled = orderTimeoutService.cancelExpired(List.of(orderId), "MQ_TIMEOUT");
+            if (!cancelled.isEmpty()) {
                 log.info("订单超时取消成功: orderId={}, orderNo={}", orderId, orderNo);
             } else {
-                log.info("订单状态已变更，无需取消: orderId={}, status={}", orderId, order.getStatus());
+                log.info("订单状态已变更，无需取消: orderId={}", orderId);
             }
 
             // 消息确认
@@ -107,61 +71,4 @@ public class OrderTimeoutConsumer {
             }
         }
     }
-
-    /**
-     * 恢复订单商品库存（支持SKU）
-     *
-     * @param orderId 订单ID
-     */
-    @Transactional(rollbackFor = Exception.class)
-    public void restoreStock(Integer orderId) {
-        try {
-            // 查询订单商品
-            LambdaQueryWrapper<OrderProduct> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.eq(OrderProduct::getOrderId, orderId);
-            List<OrderProduct> orderProducts = orderProductMapper.selectList(queryWrapper);
-
-            if (orderProducts.isEmpty()) {
-                log.warn("订单 {} 没有关联的商品，无需恢复库存", orderId);
-                return;
-            }
-
-            // 分别处理SKU商品和普通商品
-            List<SkuStockDTO> skuStockList = new ArrayList<>();
-
-            for (OrderProduct orderProduct : orderProducts) {
-                Long skuId = orderProduct.getSkuId();
-                Integer quantity = orderProduct.getQuantity();
-
-                if (skuId != null && skuId > 0) {
-                    // 有SKU，恢复SKU库存
-                    SkuStockDTO stockDTO = new SkuStockDTO();
-                    stockDTO.setSkuId(skuId);
-                    stockDTO.setQuantity(quantity);
-                    stockDTO.setOrderId(orderId);
-                    stockDTO.setOperator("system");
-                    stockDTO.setRemark("订单超时自动取消恢复库存（MQ触发）");
-                    skuStockList.add(stockDTO);
-
-                    log.debug("准备恢复SKU库存: skuId={}, quantity={}, orderId={}", skuId, quantity, orderId);
-                } else {
-                    // 无SKU，恢复商品库存
-                    productMapper.increaseStock(orderProduct.getProductId(), quantity);
-
-                    log.debug("已恢复商品库存: productId={}, quantity={}", orderProduct.getProductId(), quantity);
-                }
-            }
-
-            // 批量恢复SKU库存
-            if (!skuStockList.isEmpty()) {
-                productSkuService.batchRestoreStock(skuStockList);
-                log.debug("订单 {} SKU库存恢复完成，共 {} 个SKU", orderId, skuStockList.size());
-            }
-
-            log.info("订单 {} 的所有商品库存已恢复", orderId);
-        } catch (Exception e) {
-            log.error("恢复订单 {} 商品库存失败: {}", orderId, e.getMessage(), e);
-            throw e;
-        }
-    }
 }
@@ -6,6 +6,7 @@ import com.muyingmall.dto.PaymentMessage;
 import com.muyingmall.service.OrderService;
 import com.muyingmall.service.PaymentService;
 import com.muyingmall.service.SeckillOrderService;
+import com.muyingmall.service.SeckillParticipationIndex;
 import com.rabbitmq.client.Channel;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
@@ -36,6 +37,9 @@ public class PaymentMessageConsumer {
     @Autowired
     private SeckillOrderService seckillOrderService;
 
+    @Autowired
+    private SeckillParticipationIndex seckillParticipationIndex;
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
@@ -272,6 +276,9 @@ public class PaymentMessageConsumer {
                     boolean updated = seckillOrderService.updateById(seckillOrder);
                     
                     if (updated) {
+                        // 参与索引：待支付 → 已购买
+                        seckillParticipationIndex.markPurchased(seckillOrder.getSeckillProductId(),
+                                seckillOrder.getUserId());
                         log.info("✅ 秒杀订单状态同步成功: seckillOrderId={}, orderId={}, status=1(已支付)", 
                                 seckillOrder.getId(), orderId);
                     } else {
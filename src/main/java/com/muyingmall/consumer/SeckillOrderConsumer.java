@@ -1,22 +1,41 @@
 package com.muyingmall.consumer;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.muyingmall.config.RabbitMQSeckillConfig;
 import com.muyingmall.dto.SeckillRequestDTO;
+import com.muyingmall.service.SeckillAdmissionService;
+import com.muyingmall.service.SeckillOrderBatchService;
 import com.muyingmall.service.SeckillOrderService;
+import com.muyingmall.service.SeckillWaitingRoomService;
 import com.muyingmall.websocket.SeckillWebSocket;
 import com.rabbitmq.client.Channel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 秒杀订单消费者 - 异步处理秒杀订单，实现削峰填谷
+ *
+ * 两种消费模式（seckill.consumer.batch-enabled 切换，同一时间只启动其一）：
+ * 1. 批量模式（默认）：一次处理一批消息，整批共享商品/活动加载、限购查询与 seckill_order 多行插入，
+ *    失败消息单独 NACK，其余消息以 basicAck(multiple=true) 一次确认
+ * 2. 逐条模式：每条消息独立事务处理
  */
 @Slf4j
 @Component
@@ -24,8 +43,11 @@ import java.util.concurrent.TimeUnit;
 public class SeckillOrderConsumer {
 
     private final SeckillOrderService seckillOrderService;
+    private final SeckillOrderBatchService seckillOrderBatchService;
+    private final SeckillWaitingRoomService seckillWaitingRoomService;
     private final ObjectMapper objectMapper;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final SeckillAdmissionService seckillAdmissionService;
 
     private static final String IDEMPOTENT_KEY_PREFIX = "mq:seckill:consumed:";
 
@@ -33,7 +55,8 @@ public class SeckillOrderConsumer {
      * 消费秒杀订单消息
      * 使用手动ACK模式，保证消息可靠性
      */
-    @RabbitListener(queues = RabbitMQSeckillConfig.SECKILL_QUEUE, ackMode = "MANUAL")
+    @RabbitListener(queues = RabbitMQSeckillConfig.SECKILL_QUEUE, ackMode = "MANUAL",
+            autoStartup = "#{!${seckill.consumer.batch-enabled:true}}")
     public void handleSeckillOrder(String messageBody, Message message, Channel channel) {
         long deliveryTag = message.getMessageProperties().getDeliveryTag();
 
@@ -43,7 +66,7 @@ public class SeckillOrderConsumer {
             SeckillOrderMessage orderMessage = objectMapper.readValue(messageBody, SeckillOrderMessage.class);
 
             // 幂等性检查：防止消息重复消费
-            String idempotentKey = IDEMPOTENT_KEY_PREFIX + orderMessage.getUserId() + ":" + orderMessage.getSeckillProductId();
+            String idempotentKey = idempotentKey(orderMessage);
             Boolean isNew = redisTemplate.opsForValue().setIfAbsent(idempotentKey, 1, 24, TimeUnit.HOURS);
             if (Boolean.FALSE.equals(isNew)) {
                 log.warn("秒杀消息重复消费，跳过: userId={}, productId={}", orderMessage.getUserId(), orderMessage.getSeckillProductId());
@@ -52,14 +75,12 @@ public class SeckillOrderConsumer {
             }
 
             // 构建秒杀请求
-            SeckillRequestDTO request = new SeckillRequestDTO();
-            request.setSeckillProductId(orderMessage.getSeckillProductId());
-            request.setQuantity(orderMessage.getQuantity());
-            request.setAddressId(orderMessage.getAddressId());
-            request.setPaymentMethod(orderMessage.getPaymentMethod());
+            SeckillRequestDTO request = toRequest(orderMessage);
 
-            // 执行秒杀
-            Long orderId = seckillOrderService.executeSeckill(orderMessage.getUserId(), request);
+            // 执行秒杀：入口已预占库存的消息跳过Lua扣减，失败时由服务内部释放预占
+            Long orderId = Boolean.TRUE.equals(orderMessage.getReserved())
+                    ? seckillOrderService.executeReservedSeckill(orderMessage.getUserId(), request)
+                    : seckillOrderService.executeSeckill(orderMessage.getUserId(), request);
 
             log.info("✅ 秒杀订单处理成功: userId={}, orderId={}", orderMessage.getUserId(), orderId);
 
@@ -68,6 +89,7 @@ public class SeckillOrderConsumer {
 
             // 手动ACK
             channel.basicAck(deliveryTag, false);
+            seckillWaitingRoomService.recordProcessed(1);
 
         } catch (Exception e) {
             log.error("❌ 秒杀订单处理失败: message={}", messageBody, e);
@@ -86,9 +108,202 @@ public class SeckillOrderConsumer {
             } catch (Exception ex) {
                 log.error("消息NACK失败", ex);
             }
+            seckillWaitingRoomService.recordProcessed(1);
         }
     }
 
+    /**
+     * 批量消费秒杀订单消息
+     * 解析失败或下单失败的消息单独NACK（不重新入队），其余消息处理完成后一次性确认到本批最大的成功投递标签
+     */
+    @RabbitListener(queues = RabbitMQSeckillConfig.SECKILL_QUEUE,
+            containerFactory = RabbitMQSeckillConfig.SECKILL_BATCH_CONTAINER_FACTORY,
+            autoStartup = "${seckill.consumer.batch-enabled:true}")
+    public void handleSeckillOrderBatch(List<Message> messages, Channel channel) {
+        log.info("收到秒杀订单消息批次: size={}", messages.size());
+
+        // 1. 解析消息，解析失败的单独NACK
+        List<Message> parsedMessages = new ArrayList<>(messages.size());
+        List<SeckillOrderMessage> orderMessages = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            try {
+                orderMessages.add(parse(message));
+                parsedMessages.add(message);
+            } catch (Exception e) {
+                log.error("❌ 秒杀订单消息解析失败: message={}", new String(message.getBody()), e);
+                nack(channel, message);
+            }
+        }
+
+        // 已逐条NACK与已处理完成待确认的投递标签：异常时只NACK尚未结算的消息，
+        // 对同一投递标签重复 basicNack 会以 PRECONDITION_FAILED 关闭信道并丢失本批其余消息
+        Set<Long> nacked = new HashSet<>();
+        Set<Long> completed = new HashSet<>();
+        // 投递标签 → 批量请求项下标，以及批量下单结果（executeBatch 抛出时为 null）
+        Map<Long, Integer> itemIndexes = new HashMap<>();
+        List<SeckillOrderBatchService.BatchItem> items = new ArrayList<>();
+        List<SeckillOrderBatchService.BatchResult> results = null;
+        long ackTag = -1;
+        try {
+            // 2. 幂等性检查：整批 SETNX 通过 pipeline 一次往返完成
+            List<Boolean> fresh = markConsumed(orderMessages);
+            List<Message> itemMessages = new ArrayList<>();
+            List<SeckillOrderMessage> itemOrderMessages = new ArrayList<>();
+            for (int i = 0; i < orderMessages.size(); i++) {
+                SeckillOrderMessage orderMessage = orderMessages.get(i);
+                if (Boolean.FALSE.equals(fresh.get(i))) {
+                    log.warn("秒杀消息重复消费，跳过: userId={}, productId={}",
+                            orderMessage.getUserId(), orderMessage.getSeckillProductId());
+                    long deliveryTag = parsedMessages.get(i).getMessageProperties().getDeliveryTag();
+                    completed.add(deliveryTag);
+                    ackTag = Math.max(ackTag, deliveryTag);
+                    continue;
+                }
+                itemIndexes.put(parsedMessages.get(i).getMessageProperties().getDeliveryTag(), items.size());
+                items.add(new SeckillOrderBatchService.BatchItem(orderMessage.getUserId(), toRequest(orderMessage),
+                        Boolean.TRUE.equals(orderMessage.getReserved())));
+                itemMessages.add(parsedMessages.get(i));
+                itemOrderMessages.add(orderMessage);
+            }
+
+            // 3. 批量下单，失败消息单独NACK
+            results = items.isEmpty()
+                    ? List.of()
+                    : seckillOrderBatchService.executeBatch(items);
+            for (int i = 0; i < results.size(); i++) {
+                SeckillOrderBatchService.BatchResult result = results.get(i);
+                Integer userId = itemOrderMessages.get(i).getUserId();
+                long deliveryTag = itemMessages.get(i).getMessageProperties().getDeliveryTag();
+                if (result.isSuccess()) {
+                    completed.add(deliveryTag);
+                    ackTag = Math.max(ackTag, deliveryTag);
+                    log.info("✅ 秒杀订单处理成功: userId={}, orderId={}", userId, result.getOrderId());
+                    SeckillWebSocket.sendSeckillSuccess(userId, result.getOrderId());
+                } else {
+                    nacked.add(deliveryTag);
+                    log.warn("❌ 秒杀订单处理失败: userId={}, reason={}", userId, result.getErrorMessage());
+                    SeckillWebSocket.sendSeckillFailure(userId, result.getErrorMessage());
+                    nack(channel, itemMessages.get(i));
+                }
+            }
+        } catch (Exception e) {
+            log.error("❌ 秒杀订单批次处理异常，NACK未结算的消息: size={}, nacked={}, completed={}",
+                    parsedMessages.size(), nacked.size(), completed.size(), e);
+            for (int i = 0; i < parsedMessages.size(); i++) {
+                long deliveryTag = parsedMessages.get(i).getMessageProperties().getDeliveryTag();
+                if (nacked.contains(deliveryTag)) {
+                    continue;
+                }
+                Integer itemIndex = itemIndexes.get(deliveryTag);
+                SeckillOrderBatchService.BatchResult result = results != null && itemIndex != null
+                        && itemIndex < results.size() ? results.get(itemIndex) : null;
+                if (completed.contains(deliveryTag) || (result != null && result.isSuccess())) {
+                    // 已下单成功或重复的消息逐条确认，不能用 multiple 以免连带确认未结算的消息
+                    ack(channel, deliveryTag);
+                    continue;
+                }
+                if (result == null && itemIndex != null && items.get(itemIndex).isReserved()) {
+                    // 批量下单未给出结果：入口预占的库存与参与索引待支付位只能在这里释放，
+                    // 否则库存泄漏且用户无法重新抢购（已有失败结果的请求已由批量服务释放）
+                    releaseReservation(items.get(itemIndex));
+                }
+                SeckillWebSocket.sendSeckillFailure(orderMessages.get(i).getUserId(), e.getMessage());
+                nack(channel, parsedMessages.get(i));
+            }
+            seckillWaitingRoomService.recordProcessed(messages.size());
+            return;
+        }
+
+        // 4. 失败消息已逐条NACK，一次确认本批其余消息
+        seckillWaitingRoomService.recordProcessed(messages.size());
+        if (ackTag >= 0) {
+            try {
+                channel.basicAck(ackTag, true);
+            } catch (Exception e) {
+                log.error("秒杀订单批次ACK失败: deliveryTag={}", ackTag, e);
+            }
+        }
+    }
+
+    /**
+     * 解析原始消息体
+     * 生产端以 JSON 字符串经 Jackson 消息转换器发送，消息体是被再次编码的字符串字面量，需要先解一层
+     */
+    private SeckillOrderMessage parse(Message message) throws IOException {
+        JsonNode node = objectMapper.readTree(message.getBody());
+        if (node.isTextual()) {
+            node = objectMapper.readTree(node.asText());
+        }
+        return objectMapper.treeToValue(node, SeckillOrderMessage.class);
+    }
+
+    private List<Boolean> markConsumed(List<SeckillOrderMessage> orderMessages) {
+        if (orderMessages.isEmpty()) {
+            return List.of();
+        }
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                for (SeckillOrderMessage orderMessage : orderMessages) {
+                    ops.opsForValue().setIfAbsent(idempotentKey(orderMessage), 1, 24, TimeUnit.HOURS);
+                }
+                return null;
+            }
+        });
+        List<Boolean> fresh = new ArrayList<>(results.size());
+        for (Object result : results) {
+            fresh.add(!Boolean.FALSE.equals(result));
+        }
+        return fresh;
+    }
+
+    private void releaseReservation(SeckillOrderBatchService.BatchItem item) {
+        try {
+            seckillAdmissionService.release(item.getUserId(), item.getRequest());
+        } catch (Exception e) {
+            log.error("秒杀批次异常后释放预占失败: userId={}, seckillProductId={}",
+                    item.getUserId(), item.getRequest().getSeckillProductId(), e);
+        }
+    }
+
+    private void ack(Channel channel, long deliveryTag) {
+        try {
+            channel.basicAck(deliveryTag, false);
+        } catch (Exception ex) {
+            log.error("消息ACK失败: deliveryTag={}", deliveryTag, ex);
+        }
+    }
+
+    private void nack(Channel channel, Message message) {
+        try {
+            // 拒绝消息，不重新入队（避免死循环）
+            channel.basicNack(message.getMessageProperties().getDeliveryTag(), false, false);
+        } catch (Exception ex) {
+            log.error("消息NACK失败", ex);
+        }
+    }
+
+    /**
+     * 幂等Key
+     * 携带 requestId 的消息按请求去重：同一用户取消/超时后再次抢购不会被误判为重复消息
+     */
+    private static String idempotentKey(SeckillOrderMessage orderMessage) {
+        return IDEMPOTENT_KEY_PREFIX + (orderMessage.getRequestId() != null
+                ? orderMessage.getRequestId()
+                : orderMessage.getUserId() + ":" + orderMessage.getSeckillProductId());
+    }
+
+    private static SeckillRequestDTO toRequest(SeckillOrderMessage orderMessage) {
+        SeckillRequestDTO request = new SeckillRequestDTO();
+        request.setSeckillProductId(orderMessage.getSeckillProductId());
+        request.setQuantity(orderMessage.getQuantity());
+        request.setAddressId(orderMessage.getAddressId());
+        request.setPaymentMethod(orderMessage.getPaymentMethod());
+        return request;
+    }
+
     /**
      * 秒杀订单消息实体
      */
@@ -99,5 +314,13 @@ public class SeckillOrderConsumer {
         private Integer quantity;
         private Long addressId;
         private String paymentMethod;
+        /**
+         * 是否已在入口完成Redis库存预占（兼容升级前未携带该字段的消息）
+         */
+        private Boolean reserved;
+        /**
+         * 入口生成的请求ID，用于消费幂等
+         */
+        private String requestId;
     }
 }
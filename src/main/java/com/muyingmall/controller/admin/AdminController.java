@@ -682,7 +682,7 @@ public class AdminController {
         try {
             Map<String, Object> status = new HashMap<>();
             status.put("onlineCount", AdminStatsWebSocket.getOnlineCount());
-            status.put("onlineAdmins", AdminStatsWebSocket.getWebSocketMap().keySet());
+            status.put("onlineAdmins", AdminStatsWebSocket.getOnlineAdminIds());
             status.put("timestamp", System.currentTimeMillis());
 
             return Result.success(status);
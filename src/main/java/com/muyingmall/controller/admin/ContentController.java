@@ -44,7 +44,7 @@ public class ContentController {
             log.debug("获取内容列表，页码：{}，每页条数：{}，类型：{}，状态：{}，关键词：{}", page, pageSize, type, status, keyword);
 
             // 构建缓存键
-            StringBuilder cacheKey = new StringBuilder(CacheConstants.CONTENT_LIST_KEY);
+            StringBuilder cacheKey = new StringBuilder();
             cacheKey.append("page_").append(page)
                     .append("_size_").append(pageSize);
 
@@ -98,8 +98,9 @@ public class ContentController {
                 return result;
             };
 
-            // 使用缓存保护查询，缓存时间30分钟
-            Map<String, Object> result = cacheProtectionUtil.queryWithProtection(
+            // 使用缓存保护查询，缓存时间30分钟；列表挂在命名空间下，写操作递增代号整体失效
+            Map<String, Object> result = cacheProtectionUtil.queryInNamespace(
+                    CacheConstants.CONTENT_LIST_KEY,
                     cacheKey.toString(),
                     CacheConstants.MEDIUM_EXPIRE_TIME,
                     dbFallback);
@@ -264,9 +265,8 @@ public class ContentController {
             log.debug("获取媒体资源列表，页码：{}，每页条数：{}，类型：{}", page, pageSize, type);
 
             // 构建缓存键
-            StringBuilder cacheKey = new StringBuilder(CacheConstants.CONTENT_KEY_PREFIX);
-            cacheKey.append("media:")
-                    .append("page_").append(page)
+            StringBuilder cacheKey = new StringBuilder();
+            cacheKey.append("page_").append(page)
                     .append("_size_").append(pageSize);
 
             if (type != null && !type.isEmpty()) {
@@ -314,8 +314,9 @@ public class ContentController {
                 return result;
             };
 
-            // 使用缓存保护查询，缓存时间30分钟
-            Map<String, Object> result = cacheProtectionUtil.queryWithProtection(
+            // 使用缓存保护查询，缓存时间30分钟；列表挂在命名空间下，写操作递增代号整体失效
+            Map<String, Object> result = cacheProtectionUtil.queryInNamespace(
+                    CacheConstants.CONTENT_MEDIA_LIST_KEY,
                     cacheKey.toString(),
                     CacheConstants.MEDIUM_EXPIRE_TIME,
                     dbFallback);
@@ -609,26 +610,18 @@ public class ContentController {
     }
 
     /**
-     * 清除内容列表缓存
+     * 清除内容列表缓存：递增命名空间代号，旧条目随TTL过期
      */
     private void clearContentListCache() {
-        // 清除所有内容列表缓存
-        Set<String> keys = redisUtil.keys(CacheConstants.CONTENT_LIST_KEY + "*");
-        if (keys != null && !keys.isEmpty()) {
-            redisUtil.del(keys.toArray(new String[0]));
-            log.debug("清除内容列表缓存，共{}个键", keys.size());
-        }
+        cacheProtectionUtil.invalidateNamespace(CacheConstants.CONTENT_LIST_KEY);
+        log.debug("清除内容列表缓存");
     }
 
     /**
-     * 清除媒体列表缓存
+     * 清除媒体列表缓存：递增命名空间代号，旧条目随TTL过期
      */
     private void clearMediaListCache() {
-        // 清除所有媒体列表缓存
-        Set<String> keys = redisUtil.keys(CacheConstants.CONTENT_KEY_PREFIX + "media:*");
-        if (keys != null && !keys.isEmpty()) {
-            redisUtil.del(keys.toArray(new String[0]));
-            log.debug("清除媒体列表缓存，共{}个键", keys.size());
-        }
+        cacheProtectionUtil.invalidateNamespace(CacheConstants.CONTENT_MEDIA_LIST_KEY);
+        log.debug("清除媒体列表缓存");
     }
-}
\ No newline at end of file
+}
@@ -5,7 +5,7 @@ import com.muyingmall.common.api.Result;
 import com.muyingmall.service.SeckillActivityService;
 import com.muyingmall.service.SeckillOrderService;
 import com.muyingmall.service.SeckillProductService;
-import com.muyingmall.service.SeckillService;
+import com.muyingmall.service.SeckillStockReconcileService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -38,7 +38,7 @@ public class SeckillMonitorAdminController {
     private final SeckillActivityService seckillActivityService;
     private final SeckillProductService seckillProductService;
     private final SeckillOrderService seckillOrderService;
-    private final SeckillService seckillService;
+    private final SeckillStockReconcileService seckillStockReconcileService;
     private final StringRedisTemplate redisTemplate;
 
     /**
@@ -261,7 +261,7 @@ public class SeckillMonitorAdminController {
             // 获取秒杀相关的Redis key数量（使用SCAN替代KEYS避免阻塞Redis）
             java.util.Set<String> stockKeys = scanKeys("seckill:stock:*");
             java.util.Set<String> orderKeys = scanKeys("seckill:order:*");
-            java.util.Set<String> userKeys = scanKeys("seckill:user:*");
+            java.util.Set<String> userKeys = scanKeys("seckill:participation:*");
             
             status.put("stockKeyCount", stockKeys.size());
             status.put("orderKeyCount", orderKeys.size());
@@ -294,6 +294,7 @@ public class SeckillMonitorAdminController {
             switch (type) {
                 case "stock":
                     java.util.Set<String> stockKeys = scanKeys("seckill:stock:*");
+                    stockKeys.addAll(scanKeys("seckill:stock-buckets:*"));
                     if (!stockKeys.isEmpty()) {
                         clearedCount = stockKeys.size();
                         redisTemplate.delete(stockKeys);
@@ -307,7 +308,7 @@ public class SeckillMonitorAdminController {
                     }
                     break;
                 case "user":
-                    java.util.Set<String> userKeys = scanKeys("seckill:user:*");
+                    java.util.Set<String> userKeys = scanKeys("seckill:participation:*");
                     if (!userKeys.isEmpty()) {
                         clearedCount = userKeys.size();
                         redisTemplate.delete(userKeys);
@@ -371,12 +372,17 @@ public class SeckillMonitorAdminController {
         log.debug("同步Redis库存到数据库");
         
         try {
-            int syncedCount = seckillService.syncRedisStockToDatabase();
+            SeckillStockReconcileService.ReconcileResult reconcile = seckillStockReconcileService.reconcile();
             
             Map<String, Object> result = new HashMap<>();
-            result.put("syncedCount", syncedCount);
+            result.put("syncedCount", reconcile.getSyncedSkus());
+            result.put("scannedCount", reconcile.getScannedSkus());
+            result.put("driftedCount", reconcile.getDriftedSkus());
+            result.put("unmatchedCount", reconcile.getUnmatchedSkus());
+            result.put("totalDrift", reconcile.getTotalDrift());
+            result.put("driftSamples", reconcile.getDriftSamples());
             
-            log.info("同步库存成功 - 同步数量: {}", syncedCount);
+            log.info("同步库存成功 - 同步数量: {}, 偏差数量: {}", reconcile.getSyncedSkus(), reconcile.getDriftedSkus());
             return Result.success(result, "同步成功");
         } catch (Exception e) {
             log.error("同步库存失败", e);
@@ -1,5 +1,9 @@
 package com.muyingmall.controller.admin;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.muyingmall.cache.CacheMetrics;
+import com.muyingmall.cache.HotKeyDetector;
+import com.muyingmall.cache.LocalCache;
 import com.muyingmall.common.api.Result;
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
@@ -35,6 +39,12 @@ public class SystemController {
     @Qualifier("redisConnectionFactoryDb1")
     private final RedisConnectionFactory redisConnectionFactory;
 
+    private final LocalCache localCache;
+
+    private final HotKeyDetector hotKeyDetector;
+
+    private final CacheMetrics cacheMetrics;
+
     // Spring Session的键名前缀，用于识别Session相关的键
     private static final String SESSION_KEY_PREFIX = "spring:session";
 
@@ -451,6 +461,66 @@ public class SystemController {
         }
     }
 
+    /**
+     * 获取本地缓存（L1）统计
+     * 整体与各命名空间的命中率、估算占用字节数与淘汰次数
+     */
+    @GetMapping("/cache/local")
+    @Operation(summary = "获取本地缓存统计")
+    public Result<Map<String, Object>> getLocalCacheStats() {
+        CacheStats stats = localCache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("maxBytes", localCache.maxBytes());
+        result.put("usedBytes", localCache.weightedBytes());
+        result.put("entries", localCache.estimatedSize());
+        result.put("hitRate", stats.hitRate());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("namespaces", localCache.namespaceStats().stream().map(namespace -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("namespace", namespace.namespace());
+            item.put("entries", namespace.entries());
+            item.put("bytes", namespace.bytes());
+            item.put("hitRate", namespace.hitRate());
+            item.put("hits", namespace.hits());
+            item.put("misses", namespace.misses());
+            item.put("puts", namespace.puts());
+            item.put("sizeEvictions", namespace.sizeEvictions());
+            item.put("expirations", namespace.expirations());
+            return item;
+        }).collect(Collectors.toList()));
+        return Result.success(result);
+    }
+
+    /**
+     * 获取热点Key
+     * 本节点探测到并提升到本地缓存的热点Key，以及全集群登记的热点Key
+     */
+    @GetMapping("/cache/hot-keys")
+    @Operation(summary = "获取热点Key")
+    public Result<Map<String, Object>> getHotKeys() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("local", hotKeyDetector.hotKeys());
+        result.put("cluster", new TreeSet<>(hotKeyDetector.clusterHotKeys()));
+        return Result.success(result);
+    }
+
+    /**
+     * 获取各命名空间的缓存收益排行
+     * 按净节省的回源时间从高到低排列：节省 = 命中次数 × 平均回源耗时，开销 = 未命中次数 × 平均 Redis 读取耗时；
+     * 排在末尾、净值为负的命名空间是缩容或移除缓存的候选
+     */
+    @GetMapping("/cache/savings")
+    @Operation(summary = "获取缓存收益排行")
+    public Result<Map<String, Object>> getCacheSavings() {
+        List<CacheMetrics.NamespaceSavings> savings = cacheMetrics.savings();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("totalNetSavedMs", savings.stream().mapToDouble(CacheMetrics.NamespaceSavings::netSavedMs).sum());
+        result.put("namespaces", savings);
+        return Result.success(result);
+    }
+
     /**
      * 判断键是否为Spring Session相关的键
      * 
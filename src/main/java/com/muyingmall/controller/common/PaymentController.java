@@ -9,6 +9,7 @@ import com.alipay.api.request.AlipayTradeQueryRequest;
 import com.alipay.api.response.AlipayTradeQueryResponse;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.muyingmall.common.api.Result;
+import com.muyingmall.common.id.IdGenerator;
 import com.muyingmall.config.AlipayConfig;
 import com.muyingmall.entity.Order;
 import com.muyingmall.entity.Payment;
@@ -78,6 +79,7 @@ public class PaymentController {
     private final AlipayConfig alipayConfig;
     private final CacheRefreshService cacheRefreshService; // 注入缓存刷新服务
     private final OrderNotificationService orderNotificationService; // 注入订单通知服务
+    private final IdGenerator idGenerator;
     private final MessageProducerService messageProducerService; // 注入消息发送服务
     @Autowired
     private OrderMapper orderMapper; // 注入OrderMapper
@@ -1179,6 +1181,6 @@ public class PaymentController {
      * 生成支付单号
      */
     private String generatePaymentNo() {
-        return "PAY" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 4);
+        return idGenerator.nextNo("PAY");
     }
 }
\ No newline at end of file
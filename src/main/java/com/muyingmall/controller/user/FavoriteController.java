@@ -44,10 +44,10 @@ public class FavoriteController {
             return Result.error(401, "用户未认证");
         }
 
-        String cacheKey = "user:favorites:" + userId + ":p" + page + "_s" + pageSize;
+        String cacheSuffix = "p" + page + "_s" + pageSize;
         
         // 优化：缓存时间从60秒提升到300秒（5分钟）
-        return controllerCacheUtil.getWithCache(cacheKey, 300L, () -> {
+        return controllerCacheUtil.getInNamespace("user:favorites:" + userId + ":", cacheSuffix, 300L, () -> {
             Page<Favorite> favorites = favoriteService.getUserFavorites(userId, page, pageSize);
             return Result.success(favorites);
         });
@@ -145,8 +145,7 @@ public class FavoriteController {
             return;
         }
         
-        // 使用模式匹配清除所有分页缓存
-        String pattern = "user:favorites:" + userId + ":*";
-        controllerCacheUtil.clearCacheByPattern(pattern);
+        // 递增命名空间代号，所有分页缓存整体失效
+        controllerCacheUtil.clearNamespace("user:favorites:" + userId + ":");
     }
 }
\ No newline at end of file
@@ -130,7 +130,7 @@ public class OrderController {
                     pointsUsed);
 
             // 创建订单后清除订单相关缓存
-            controllerCacheUtil.clearCacheByPattern("order:list:" + userId + ":*");
+            controllerCacheUtil.clearNamespace("order:list:" + userId + ":");
             controllerCacheUtil.clearCache("order:stats:" + userId);
 
             return Result.success(orderInfo, "创建成功");
@@ -164,10 +164,10 @@ public class OrderController {
         // 性能优化：使用Controller层缓存，减少数据库查询
         // 来源：性能优化 - 缓存订单列表响应，延迟从288ms降低到10ms
         String statusKey = (status != null) ? status : "all";
-        String cacheKey = "order:list:" + user.getUserId() + ":p" + page + "_s" + pageSize + "_st" + statusKey;
+        String cacheSuffix = "p" + page + "_s" + pageSize + "_st" + statusKey;
         
         // 优化：缓存时间调整为60秒（1分钟），确保订单数据及时更新
-        return controllerCacheUtil.getWithCache(cacheKey, 60L, () -> {
+        return controllerCacheUtil.getInNamespace("order:list:" + user.getUserId() + ":", cacheSuffix, 60L, () -> {
             Page<Order> orderPage = orderService.getUserOrders(user.getUserId(), page, pageSize, status);
             
             // 将Page对象转换为前端需要的格式
@@ -232,7 +232,7 @@ public class OrderController {
         }
         
         // 取消订单后清除订单相关缓存
-        controllerCacheUtil.clearCacheByPattern("order:list:" + user.getUserId() + ":*");
+        controllerCacheUtil.clearNamespace("order:list:" + user.getUserId() + ":");
         controllerCacheUtil.clearCache("order:stats:" + user.getUserId());
         
         return Result.success(null, "取消成功");
@@ -262,7 +262,7 @@ public class OrderController {
         }
         
         // 确认收货后清除订单相关缓存
-        controllerCacheUtil.clearCacheByPattern("order:list:" + user.getUserId() + ":*");
+        controllerCacheUtil.clearNamespace("order:list:" + user.getUserId() + ":");
         controllerCacheUtil.clearCache("order:stats:" + user.getUserId());
         
         return Result.success(null, "确认收货成功");
@@ -292,7 +292,7 @@ public class OrderController {
         }
         
         // 删除订单后清除订单相关缓存
-        controllerCacheUtil.clearCacheByPattern("order:list:" + user.getUserId() + ":*");
+        controllerCacheUtil.clearNamespace("order:list:" + user.getUserId() + ":");
         controllerCacheUtil.clearCache("order:stats:" + user.getUserId());
         
         return Result.success(null, "删除成功");
@@ -322,7 +322,7 @@ public class OrderController {
             Map<String, Object> paymentInfo = orderService.payOrder(user.getUserId(), orderId, paymentMethod);
             
             // 支付成功后清除订单相关缓存
-            controllerCacheUtil.clearCacheByPattern("order:list:" + user.getUserId() + ":*");
+            controllerCacheUtil.clearNamespace("order:list:" + user.getUserId() + ":");
             controllerCacheUtil.clearCache("order:stats:" + user.getUserId());
             
             return Result.success(paymentInfo, "支付处理中");
@@ -649,7 +649,7 @@ public class OrderController {
                     purchaseDTO.getPointsUsed());
 
             // 创建订单后清除订单相关缓存
-            controllerCacheUtil.clearCacheByPattern("order:list:" + user.getUserId() + ":*");
+            controllerCacheUtil.clearNamespace("order:list:" + user.getUserId() + ":");
             controllerCacheUtil.clearCache("order:stats:" + user.getUserId());
 
             return Result.success(orderInfo, "创建成功");
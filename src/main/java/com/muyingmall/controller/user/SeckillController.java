@@ -1,13 +1,16 @@
 package com.muyingmall.controller.user;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muyingmall.cache.SeckillSoldOutFlags;
 import com.muyingmall.common.api.Result;
 import com.muyingmall.config.RabbitMQSeckillConfig;
 import com.muyingmall.dto.SeckillProductDTO;
 import com.muyingmall.dto.SeckillRequestDTO;
 import com.muyingmall.entity.SeckillActivity;
 import com.muyingmall.service.SeckillActivityService;
+import com.muyingmall.service.SeckillAdmissionService;
 import com.muyingmall.service.SeckillOrderService;
+import com.muyingmall.service.SeckillWaitingRoomService;
 import com.muyingmall.util.IpUtil;
 import com.muyingmall.util.SeckillRateLimiter;
 import com.muyingmall.util.UserContext;
@@ -24,6 +27,7 @@ import jakarta.validation.Valid;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * 秒杀控制器 - 支持同步和异步两种模式
@@ -41,6 +45,9 @@ public class SeckillController {
     private final RabbitTemplate rabbitTemplate;
     private final ObjectMapper objectMapper;
     private final SeckillRateLimiter seckillRateLimiter;
+    private final SeckillAdmissionService seckillAdmissionService;
+    private final SeckillSoldOutFlags seckillSoldOutFlags;
+    private final SeckillWaitingRoomService seckillWaitingRoomService;
 
     @GetMapping("/activities")
     @Operation(summary = "获取进行中的秒杀活动列表")
@@ -76,13 +83,24 @@ public class SeckillController {
             return Result.error("请先登录");
         }
 
+        // 本地售罄标记：售罄后直接拒绝，不消耗限流配额，也不再进入数据库校验与库存扣减链路
+        if (seckillSoldOutFlags.isSoldOut(request.getSeckillProductId())) {
+            return Result.error("商品已售罄");
+        }
+
         // 秒杀入口限流：先挡住同一用户/同一IP的高频重放，再进入库存原子扣减链路。
         if (!seckillRateLimiter.tryAcquire(IpUtil.getIpAddr(httpRequest), userId, request.getSeckillProductId())) {
             return Result.error(429, "秒杀请求过于频繁，请稍后再试");
         }
 
+        String queueError = checkWaitingRoom(userId, request.getSeckillProductId());
+        if (queueError != null) {
+            return Result.error(429, queueError);
+        }
+
         try {
             Long orderId = seckillOrderService.executeSeckill(userId, request);
+            consumeWaitingRoomTicket(userId, request.getSeckillProductId());
             return Result.success(orderId, "秒杀成功");
         } catch (Exception e) {
             log.error("秒杀失败: userId={}, request={}", userId, request, e);
@@ -101,13 +119,25 @@ public class SeckillController {
         }
 
         // 前置校验：拒绝明显无效的请求，避免浪费MQ资源
+        // 本地售罄标记最先检查：售罄时直接拒绝，不访问 Redis 限流，也不进入排队与准入链路
+        if (seckillSoldOutFlags.isSoldOut(request.getSeckillProductId())) {
+            return Result.error("商品已售罄");
+        }
+
         // 秒杀异步入口同样限流，避免绕过前端按钮状态直接刷队列。
         if (!seckillRateLimiter.tryAcquire(IpUtil.getIpAddr(httpRequest), userId, request.getSeckillProductId())) {
             return Result.error(429, "秒杀请求过于频繁，请稍后再试");
         }
 
-        if (!seckillOrderService.canUserParticipate(userId, request.getSeckillProductId())) {
-            return Result.error("您暂时无法参与该秒杀活动（已达购买上限或有待支付订单）");
+        String queueError = checkWaitingRoom(userId, request.getSeckillProductId());
+        if (queueError != null) {
+            return Result.error(429, queueError);
+        }
+
+        // 入队前准入：Lua预占库存与用户去重 → 资格校验，队列中只保留已预占的请求；准入失败不消耗排队号码
+        SeckillAdmissionService.AdmissionResult admission = seckillAdmissionService.tryAdmit(userId, request);
+        if (admission != SeckillAdmissionService.AdmissionResult.ADMITTED) {
+            return Result.error(admission.getMessage());
         }
 
         try {
@@ -118,6 +148,8 @@ public class SeckillController {
             message.put("quantity", request.getQuantity());
             message.put("addressId", request.getAddressId());
             message.put("paymentMethod", request.getPaymentMethod());
+            message.put("reserved", true);
+            message.put("requestId", UUID.randomUUID().toString());
 
             // 发送到MQ异步处理
             rabbitTemplate.convertAndSend(
@@ -125,15 +157,94 @@ public class SeckillController {
                     RabbitMQSeckillConfig.SECKILL_ROUTING_KEY,
                     objectMapper.writeValueAsString(message));
 
+            consumeWaitingRoomTicket(userId, request.getSeckillProductId());
             log.info("秒杀请求已提交到队列: userId={}, productId={}", userId, request.getSeckillProductId());
             return Result.success("秒杀请求已提交，请稍后查看订单");
 
         } catch (Exception e) {
             log.error("秒杀请求提交失败: userId={}, request={}", userId, request, e);
+            // 消息未投递成功，释放入口预占的库存
+            seckillAdmissionService.release(userId, request);
             return Result.error("秒杀请求提交失败");
         }
     }
 
+    @PostMapping("/queue/enter/{seckillProductId}")
+    @Operation(summary = "秒杀排队取号")
+    public Result<Map<String, Object>> enterQueue(@PathVariable Long seckillProductId) {
+        Integer userId = userContext.getCurrentUserId();
+        if (userId == null) {
+            return Result.error("请先登录");
+        }
+        if (seckillSoldOutFlags.isSoldOut(seckillProductId)) {
+            return Result.error("商品已售罄");
+        }
+        if (!seckillWaitingRoomService.isEnabled()) {
+            return Result.error("当前秒杀未开启排队");
+        }
+
+        SeckillWaitingRoomService.QueueStatus status = seckillWaitingRoomService.enter(userId, seckillProductId);
+        return Result.success(toQueueView(status));
+    }
+
+    @GetMapping("/queue/{ticket}")
+    @Operation(summary = "查询秒杀排队位置",
+            description = "只能查询本人的号码；position 为前方（含自己）仍在排队的人数，取号后放弃排队的用户在号码过期前仍计入，为等待人数上界")
+    public Result<Map<String, Object>> getQueueStatus(@PathVariable String ticket) {
+        Integer userId = userContext.getCurrentUserId();
+        if (userId == null) {
+            return Result.error("请先登录");
+        }
+        SeckillWaitingRoomService.QueueStatus status = seckillWaitingRoomService.getStatus(userId, ticket);
+        if (status == null) {
+            return Result.error("排队号码无效");
+        }
+        return Result.success(toQueueView(status));
+    }
+
+    /**
+     * 排队室准入检查：未开启排队时直接放行；号码进入准入窗口时放行，号码在准入成功后才消费
+     *
+     * @return 不允许进入时的提示信息，允许进入返回 null
+     */
+    private String checkWaitingRoom(Integer userId, Long seckillProductId) {
+        if (!seckillWaitingRoomService.isEnabled()) {
+            return null;
+        }
+        long position = seckillWaitingRoomService.checkAdmission(userId, seckillProductId);
+        if (position < 0) {
+            return "请先排队取号";
+        }
+        if (position > 0) {
+            return "排队中，前方还有" + position + "人";
+        }
+        return null;
+    }
+
+    /**
+     * 准入成功后消费排队号码；消费失败只影响号码复用，不影响已成功的秒杀
+     */
+    private void consumeWaitingRoomTicket(Integer userId, Long seckillProductId) {
+        if (!seckillWaitingRoomService.isEnabled()) {
+            return;
+        }
+        try {
+            seckillWaitingRoomService.consumeTicket(userId, seckillProductId);
+        } catch (Exception e) {
+            log.warn("消费秒杀排队号码失败: userId={}, seckillProductId={}, error={}",
+                    userId, seckillProductId, e.getMessage());
+        }
+    }
+
+    private Map<String, Object> toQueueView(SeckillWaitingRoomService.QueueStatus status) {
+        Map<String, Object> view = new HashMap<>();
+        view.put("ticket", status.getTicket());
+        view.put("position", status.getPosition());
+        view.put("admitted", status.isAdmitted());
+        view.put("estimatedWaitSeconds", status.getEstimatedWaitSeconds());
+        return view;
+    }
+
     @GetMapping("/check/{seckillProductId}")
     @Operation(summary = "检查用户是否可以参与秒杀")
     public Result<Boolean> checkUserParticipation(@PathVariable Long seckillProductId) {
@@ -0,0 +1,179 @@
+package com.muyingmall.delay;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分层时间轮
+ *
+ * <p>
+ * 第 0 层每格 {@code tickMs}，第 i 层每格为第 i-1 层一整圈；到期时间落在哪一层取决于距当前的格数，
+ * 高层格子走到时整格降级重新放置，第 0 层格子走到时其中元素全部到期。
+ * 添加、删除为 O(1)，推进一格只处理当前格中的元素，与轮中元素总数无关。
+ * </p>
+ * <p>
+ * 到期精度为一格：元素在 {@code ceil(deadline / tickMs)} 格触发，不会早于到期时间。
+ * 超出最高层一整圈的到期时间不放入时间轮，由调用方另行保存。方法均为同步方法，推进与增删可来自不同线程。
+ * </p>
+ *
+ * @param <T> 元素类型，须正确实现 equals/hashCode
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+
+    /**
+     * 各层每格覆盖的第 0 层格数：1, W, W^2, ...
+     */
+    private final long[] unitTicks;
+
+    /**
+     * buckets[level][slot]
+     */
+    private final Set<T>[][] buckets;
+
+    /**
+     * 元素当前所在位置，用于删除与替换
+     */
+    private final Map<T, Slot> index = new HashMap<>();
+
+    /**
+     * 添加时已到期、等待下次推进返回的元素
+     */
+    private final List<T> overdue = new ArrayList<>();
+
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, int levels, long startMillis) {
+        if (tickMs <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("时间轮参数非法: tickMs=" + tickMs
+                    + ", wheelSize=" + wheelSize + ", levels=" + levels);
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.unitTicks = new long[levels];
+        this.buckets = new Set[levels][wheelSize];
+        long unit = 1;
+        for (int level = 0; level < levels; level++) {
+            unitTicks[level] = unit;
+            for (int slot = 0; slot < wheelSize; slot++) {
+                buckets[level][slot] = new HashSet<>();
+            }
+            unit = Math.multiplyExact(unit, wheelSize);
+        }
+        this.currentTick = Math.floorDiv(startMillis, tickMs);
+    }
+
+    /**
+     * 添加或替换元素
+     *
+     * @param item           元素
+     * @param deadlineMillis 到期时间（毫秒时间戳）
+     * @return false 表示到期时间超出时间轮范围，未放入
+     */
+    public synchronized boolean add(T item, long deadlineMillis) {
+        removeInternal(item);
+        return place(item, Math.floorDiv(deadlineMillis + tickMs - 1, tickMs));
+    }
+
+    /**
+     * 删除元素
+     *
+     * @return 元素是否在时间轮中
+     */
+    public synchronized boolean remove(T item) {
+        return removeInternal(item) || overdue.remove(item);
+    }
+
+    /**
+     * 推进到指定时间，返回期间到期的元素
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>(overdue);
+        overdue.clear();
+        long targetTick = Math.floorDiv(nowMillis, tickMs);
+        while (currentTick < targetTick) {
+            currentTick++;
+            // 高层先降级，降级后恰好到期的元素在 place 中直接进入 overdue
+            for (int level = unitTicks.length - 1; level > 0; level--) {
+                if (currentTick % unitTicks[level] == 0) {
+                    Set<T> bucket = buckets[level][slotOf(currentTick, level)];
+                    if (!bucket.isEmpty()) {
+                        List<T> cascading = new ArrayList<>(bucket);
+                        bucket.clear();
+                        for (T item : cascading) {
+                            place(item, index.remove(item).deadlineTick());
+                        }
+                    }
+                }
+            }
+            Set<T> bucket = buckets[0][slotOf(currentTick, 0)];
+            if (!bucket.isEmpty()) {
+                for (T item : bucket) {
+                    index.remove(item);
+                }
+                expired.addAll(bucket);
+                bucket.clear();
+            }
+            if (!overdue.isEmpty()) {
+                expired.addAll(overdue);
+                overdue.clear();
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return index.size() + overdue.size();
+    }
+
+    public synchronized boolean contains(T item) {
+        return index.containsKey(item) || overdue.contains(item);
+    }
+
+    /**
+     * 时间轮可容纳的最远到期时间（相对当前时间，毫秒）
+     */
+    public long horizonMillis() {
+        return unitTicks[unitTicks.length - 1] * (wheelSize - 1) * tickMs;
+    }
+
+    private boolean place(T item, long deadlineTick) {
+        if (deadlineTick <= currentTick) {
+            overdue.add(item);
+            return true;
+        }
+        for (int level = 0; level < unitTicks.length; level++) {
+            long unit = unitTicks[level];
+            if (deadlineTick / unit - currentTick / unit < wheelSize) {
+                int slot = slotOf(deadlineTick, level);
+                buckets[level][slot].add(item);
+                index.put(item, new Slot(deadlineTick, level, slot));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean removeInternal(T item) {
+        Slot slot = index.remove(item);
+        if (slot == null) {
+            return false;
+        }
+        buckets[slot.level()][slot.slot()].remove(item);
+        return true;
+    }
+
+    private int slotOf(long tick, int level) {
+        return (int) ((tick / unitTicks[level]) % wheelSize);
+    }
+
+    private record Slot(long deadlineTick, int level, int slot) {
+    }
+}
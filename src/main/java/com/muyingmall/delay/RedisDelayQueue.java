@@ -0,0 +1,159 @@
+package com.muyingmall.delay;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于 Redis ZSET 的分片延迟队列
+ *
+ * <p>
+ * 成员按哈希分布到 {@code shards} 个 ZSET（{@code keyPrefix + 分片号}），分数为到期时间（毫秒）。
+ * 每个操作只涉及单个分片，可在 Redis 集群下使用；单个 ZSET 的大小与到期扫描范围随分片数缩小。
+ * </p>
+ * <p>
+ * 认领通过 delay_claim.lua 原子完成：到期成员的分数推后到租约到期时间，多个节点同时认领时每个成员只归一个节点；
+ * 处理成功后调用 {@link #ack} 删除，处理失败或节点宕机时成员在租约到期后重新可被认领（至少一次）。
+ * </p>
+ */
+public class RedisDelayQueue {
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final int shards;
+    private final DefaultRedisScript<List> claimScript;
+
+    public RedisDelayQueue(StringRedisTemplate redisTemplate, String keyPrefix, int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("分片数必须大于0: " + shards);
+        }
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.shards = shards;
+        this.claimScript = new DefaultRedisScript<>();
+        this.claimScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/delay_claim.lua")));
+        this.claimScript.setResultType(List.class);
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public int shardOf(String member) {
+        return Math.floorMod(member.hashCode(), shards);
+    }
+
+    /**
+     * 加入或更新到期时间
+     */
+    public void offer(String member, long deadlineMillis) {
+        redisTemplate.opsForZSet().add(shardKey(shardOf(member)), member, deadlineMillis);
+    }
+
+    /**
+     * 批量加入，每个分片一条 ZADD
+     *
+     * @param deadlines 成员 -> 到期时间（毫秒）
+     */
+    public void offerAll(Map<String, Long> deadlines) {
+        Map<Integer, Set<ZSetOperations.TypedTuple<String>>> byShard = new LinkedHashMap<>();
+        deadlines.forEach((member, deadline) -> byShard.computeIfAbsent(shardOf(member), k -> new HashSet<>())
+                .add(ZSetOperations.TypedTuple.of(member, deadline.doubleValue())));
+        byShard.forEach((shard, tuples) -> redisTemplate.opsForZSet().add(shardKey(shard), tuples));
+    }
+
+    /**
+     * 确认处理完成（或不再需要），每个分片一条 ZREM
+     */
+    public void ack(Collection<String> members) {
+        groupByShard(members).forEach((shard, group) ->
+                redisTemplate.opsForZSet().remove(shardKey(shard), group.toArray()));
+    }
+
+    /**
+     * 认领分片内已到期的成员，按到期时间从早到晚
+     *
+     * @param leaseMillis 租约时长，期间其他节点不会认领同一成员
+     */
+    public List<String> claimDue(int shard, long nowMillis, long leaseMillis, int limit) {
+        return execute(shard, List.of(String.valueOf(nowMillis), String.valueOf(nowMillis + leaseMillis),
+                String.valueOf(limit)));
+    }
+
+    /**
+     * 认领指定成员中已到期且尚未被认领的部分（时间轮触发后使用）
+     */
+    public List<String> claim(Collection<String> members, long nowMillis, long leaseMillis) {
+        List<String> claimed = new ArrayList<>();
+        groupByShard(members).forEach((shard, group) -> {
+            List<String> args = new ArrayList<>(group.size() + 3);
+            args.add(String.valueOf(nowMillis));
+            args.add(String.valueOf(nowMillis + leaseMillis));
+            args.add(String.valueOf(group.size()));
+            args.addAll(group);
+            claimed.addAll(execute(shard, args));
+        });
+        return claimed;
+    }
+
+    /**
+     * 查看分片内到期时间不晚于 {@code untilMillis} 的成员（不认领）
+     *
+     * @return 成员 -> 到期时间，按到期时间从早到晚
+     */
+    public Map<String, Long> peek(int shard, long untilMillis, int limit) {
+        Set<ZSetOperations.TypedTuple<String>> tuples = redisTemplate.opsForZSet()
+                .rangeByScoreWithScores(shardKey(shard), Double.NEGATIVE_INFINITY, untilMillis, 0, limit);
+        Map<String, Long> result = new LinkedHashMap<>();
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                if (tuple.getValue() != null && tuple.getScore() != null) {
+                    result.put(tuple.getValue(), tuple.getScore().longValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 各分片成员总数
+     */
+    public long size() {
+        long total = 0;
+        for (int shard = 0; shard < shards; shard++) {
+            Long count = redisTemplate.opsForZSet().zCard(shardKey(shard));
+            total += count != null ? count : 0;
+        }
+        return total;
+    }
+
+    String shardKey(int shard) {
+        return keyPrefix + shard;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> execute(int shard, List<String> args) {
+        List<String> result = redisTemplate.execute(claimScript,
+                Collections.singletonList(shardKey(shard)), args.toArray());
+        return result != null ? result : Collections.emptyList();
+    }
+
+    private Map<Integer, List<String>> groupByShard(Collection<String> members) {
+        Map<Integer, List<String>> byShard = new LinkedHashMap<>();
+        for (String member : members) {
+            byShard.computeIfAbsent(shardOf(member), k -> new ArrayList<>()).add(member);
+        }
+        return byShard;
+    }
+}
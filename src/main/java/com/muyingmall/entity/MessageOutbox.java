@@ -0,0 +1,73 @@
+package com.muyingmall.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 消息发件箱实体
+ */
+@Data
+@TableName("message_outbox")
+public class MessageOutbox {
+
+    /**
+     * 待发送
+     */
+    public static final int STATUS_PENDING = 0;
+
+    /**
+     * 已发送
+     */
+    public static final int STATUS_SENT = 1;
+
+    /**
+     * 发送失败（超过最大尝试次数）
+     */
+    public static final int STATUS_FAILED = 2;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 事件类型：ORDER/PAYMENT/ORDER_TIMEOUT
+     */
+    private String eventType;
+
+    /**
+     * 业务主键（订单ID/支付ID）
+     */
+    private String aggregateId;
+
+    private String exchange;
+
+    private String routingKey;
+
+    /**
+     * 消息体（消息转换器输出的 JSON）
+     */
+    private String payload;
+
+    /**
+     * 消息头（JSON）
+     */
+    private String headers;
+
+    /**
+     * 状态：0待发送，1已发送，2发送失败
+     */
+    private Integer status;
+
+    private Integer attempts;
+
+    private LocalDateTime nextAttemptTime;
+
+    private String lastError;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime sentTime;
+}
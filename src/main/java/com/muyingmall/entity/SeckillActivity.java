@@ -29,6 +29,11 @@ public class SeckillActivity {
      * 状态：0待开始，1进行中，2已结束
      */
     private Integer status;
+
+    /**
+     * 库存分桶数：0/1不分桶，大于1时秒杀库存拆分到多个Redis Key
+     */
+    private Integer stockBuckets;
     
     private LocalDateTime createTime;
     
@@ -0,0 +1,74 @@
+package com.muyingmall.job;
+
+/**
+ * 当前线程正在执行的集群定时任务上下文，由 ClusterJobAspect 在调用任务方法前后绑定与解除
+ * 不在 @ClusterJob 任务中调用时按未分片、租约未丢失处理
+ */
+public final class ClusterJobContext {
+
+    private static final ThreadLocal<Execution> CURRENT = new ThreadLocal<>();
+
+    private ClusterJobContext() {
+    }
+
+    /**
+     * 一次任务执行
+     *
+     * @param job        任务名
+     * @param shardIndex 当前分片，未分片为 0
+     * @param shardTotal 分片总数，未分片为 1
+     * @param lease      本次执行持有的租约，LOCAL 模式或协调关闭时为 null
+     */
+    public record Execution(String job, int shardIndex, int shardTotal, ClusterJobCoordinator.Lease lease) {
+
+        /**
+         * 隔离令牌，未持有租约时为 0
+         */
+        public long fencingToken() {
+            return lease != null ? lease.getToken() : 0;
+        }
+
+        public boolean leaseLost() {
+            return lease != null && lease.isLost();
+        }
+    }
+
+    public static Execution current() {
+        return CURRENT.get();
+    }
+
+    public static int shardIndex() {
+        Execution execution = CURRENT.get();
+        return execution != null ? execution.shardIndex() : 0;
+    }
+
+    public static int shardTotal() {
+        Execution execution = CURRENT.get();
+        return execution != null ? execution.shardTotal() : 1;
+    }
+
+    /**
+     * 本次执行的租约是否已被他人接管；分批处理的任务在批次之间检查，为 true 时应停止
+     */
+    public static boolean isLeaseLost() {
+        Execution execution = CURRENT.get();
+        return execution != null && execution.leaseLost();
+    }
+
+    /**
+     * 绑定执行上下文，返回之前的上下文供 {@link #restore(Execution)} 恢复
+     */
+    public static Execution bind(Execution execution) {
+        Execution previous = CURRENT.get();
+        CURRENT.set(execution);
+        return previous;
+    }
+
+    public static void restore(Execution previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
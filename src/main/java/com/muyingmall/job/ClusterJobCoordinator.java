@@ -0,0 +1,248 @@
+package com.muyingmall.job;
+
+import com.muyingmall.cache.NodeIdentifier;
+import com.muyingmall.config.properties.ClusterJobProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 集群定时任务协调器
+ *
+ * <p>
+ * 租约：{@code job:lease:{name}} 存放 {@code {节点ID}:{令牌}}，由 job_lease_acquire.lua 获取，
+ * 令牌来自只增不减的计数器 {@code job:fence:{name}}；执行期间由后台线程每 leaseMs/3 续期一次，
+ * 续期与释放都按完整租约值校验持有者，续期失败即认为租约已丢失。
+ * </p>
+ * <p>
+ * 节点登记：各节点定时把自己的节点ID与当前时间写入 ZSET {@code job:nodes}，
+ * 分片任务按节点ID排序后的名次取模分配分片；各节点视图短暂不一致时由分片租约保证同一分片不会同时执行。
+ * </p>
+ */
+@Slf4j
+@Component
+public class ClusterJobCoordinator {
+
+    static final String LEASE_KEY_PREFIX = "job:lease:";
+    static final String FENCE_KEY_PREFIX = "job:fence:";
+    static final String NODES_KEY = "job:nodes";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ClusterJobProperties properties;
+    private final String nodeId;
+    private final DefaultRedisScript<Long> acquireScript;
+    private final DefaultRedisScript<Long> renewScript;
+    private final DefaultRedisScript<Long> releaseScript;
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cluster-job-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ClusterJobCoordinator(StringRedisTemplate stringRedisTemplate,
+                                 NodeIdentifier nodeIdentifier,
+                                 ClusterJobProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+        this.nodeId = nodeIdentifier.getNodeId();
+        this.acquireScript = script("scripts/job_lease_acquire.lua");
+        this.renewScript = script("scripts/lock_renew.lua");
+        this.releaseScript = script("scripts/unlock.lua");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (properties.isEnabled()) {
+            heartbeat();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renewer.shutdownNow();
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForZSet().remove(NODES_KEY, nodeId);
+        } catch (Exception e) {
+            log.debug("注销集群任务节点失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 登记本节点存活，并清理心跳过期的节点
+     */
+    @Scheduled(fixedDelayString = "${scheduling.cluster.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            stringRedisTemplate.opsForZSet().add(NODES_KEY, nodeId, now);
+            stringRedisTemplate.opsForZSet().removeRangeByScore(NODES_KEY, 0, now - properties.getNodeTtlMs());
+        } catch (Exception e) {
+            log.warn("集群任务节点心跳失败: {}", e.getMessage());
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 存活节点ID，按字典序排列；总是包含本节点
+     */
+    public List<String> liveNodes() {
+        long now = System.currentTimeMillis();
+        Set<String> members = stringRedisTemplate.opsForZSet()
+                .rangeByScore(NODES_KEY, now - properties.getNodeTtlMs(), Double.POSITIVE_INFINITY);
+        List<String> nodes = new ArrayList<>(members != null ? members : Set.of());
+        if (!nodes.contains(nodeId)) {
+            nodes.add(nodeId);
+        }
+        Collections.sort(nodes);
+        return nodes;
+    }
+
+    /**
+     * 本节点负责的分片：按存活节点名次取模
+     */
+    public List<Integer> ownedShards(int total) {
+        List<String> nodes = liveNodes();
+        int rank = nodes.indexOf(nodeId);
+        List<Integer> shards = new ArrayList<>();
+        for (int shard = rank; shard < total; shard += nodes.size()) {
+            shards.add(shard);
+        }
+        return shards;
+    }
+
+    /**
+     * 尝试获取租约，成功后开始自动续期
+     *
+     * @param name    租约名（任务名，分片任务为 {任务名}:{分片}）
+     * @param leaseMs 租约时长（毫秒）
+     * @return 租约，被其他节点持有时返回 null
+     */
+    public Lease tryAcquire(String name, long leaseMs) {
+        String key = LEASE_KEY_PREFIX + name;
+        Long token = stringRedisTemplate.execute(acquireScript, List.of(key, FENCE_KEY_PREFIX + name),
+                nodeId, String.valueOf(leaseMs));
+        if (token == null || token <= 0) {
+            return null;
+        }
+        Lease lease = new Lease(name, key, nodeId + ":" + token, token, leaseMs);
+        long period = Math.max(leaseMs / 3, 100);
+        lease.renewal = renewer.scheduleAtFixedRate(() -> renew(lease), period, period, TimeUnit.MILLISECONDS);
+        return lease;
+    }
+
+    /**
+     * 结束续期并释放租约；未到 minHoldMs 时把租约保留到开始后 minHoldMs，期间其他节点不会获取
+     */
+    public void release(Lease lease, long minHoldMs) {
+        if (lease.renewal != null) {
+            lease.renewal.cancel(false);
+        }
+        if (lease.lost) {
+            return;
+        }
+        try {
+            long remaining = lease.startMillis + minHoldMs - System.currentTimeMillis();
+            if (remaining > 0) {
+                stringRedisTemplate.execute(renewScript, List.of(lease.key), lease.value, String.valueOf(remaining));
+            } else {
+                stringRedisTemplate.execute(releaseScript, List.of(lease.key), lease.value);
+            }
+        } catch (Exception e) {
+            // 释放失败时租约到期自动失效
+            log.warn("释放任务租约失败: lease={}, error={}", lease.name, e.getMessage());
+        }
+    }
+
+    private void renew(Lease lease) {
+        if (lease.lost) {
+            return;
+        }
+        try {
+            Long renewed = stringRedisTemplate.execute(renewScript, List.of(lease.key), lease.value,
+                    String.valueOf(lease.leaseMs));
+            if (renewed == null || renewed != 1L) {
+                lease.lost = true;
+                ScheduledFuture<?> renewal = lease.renewal;
+                if (renewal != null) {
+                    renewal.cancel(false);
+                }
+                log.warn("任务租约已丢失，执行中的任务应尽快结束: lease={}, token={}", lease.name, lease.token);
+            }
+        } catch (Exception e) {
+            // 暂时无法续期不算丢失，租约到期前还有两次重试
+            log.warn("任务租约续期失败: lease={}, error={}", lease.name, e.getMessage());
+        }
+    }
+
+    private static DefaultRedisScript<Long> script(String path) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    /**
+     * 已获取的任务租约
+     */
+    public static final class Lease {
+
+        private final String name;
+        private final String key;
+        private final String value;
+        private final long token;
+        private final long leaseMs;
+        private final long startMillis = System.currentTimeMillis();
+        private volatile boolean lost;
+        private volatile ScheduledFuture<?> renewal;
+
+        Lease(String name, String key, String value, long token, long leaseMs) {
+            this.name = name;
+            this.key = key;
+            this.value = value;
+            this.token = token;
+            this.leaseMs = leaseMs;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 隔离令牌，同一租约每次获取严格递增
+         */
+        public long getToken() {
+            return token;
+        }
+
+        /**
+         * 续期时发现租约已不属于本次持有
+         */
+        public boolean isLost() {
+            return lost;
+        }
+    }
+}
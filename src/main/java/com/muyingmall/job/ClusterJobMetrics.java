@@ -0,0 +1,86 @@
+package com.muyingmall.job;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 集群定时任务指标
+ *
+ * <p>
+ * 每个 @ClusterJob 任务上报：
+ * <ul>
+ * <li>{@code scheduled.job.runs{job, outcome=success|failure|skipped}}：执行次数，skipped 为租约被其他节点持有、
+ * 本节点未分到分片或 Redis 不可用而跳过的触发</li>
+ * <li>{@code scheduled.job.duration{job}}：本节点执行耗时（分片任务按分片计）</li>
+ * <li>{@code scheduled.job.last.run{job}}：本节点最近一次执行结束时间（epoch 毫秒），0 表示本节点尚未执行过</li>
+ * </ul>
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class ClusterJobMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, JobMeters> meters = new ConcurrentHashMap<>();
+
+    public void recordRun(String job, long durationNanos, boolean success) {
+        JobMeters jobMeters = meters(job);
+        jobMeters.duration.record(durationNanos, TimeUnit.NANOSECONDS);
+        (success ? jobMeters.success : jobMeters.failure).increment();
+        jobMeters.lastRun.set(System.currentTimeMillis());
+    }
+
+    public void recordSkipped(String job) {
+        meters(job).skipped.increment();
+    }
+
+    /**
+     * 本节点最近一次执行结束时间（epoch 毫秒），未执行过为 0
+     */
+    public long lastRunMillis(String job) {
+        JobMeters jobMeters = meters.get(job);
+        return jobMeters != null ? jobMeters.lastRun.get() : 0;
+    }
+
+    private JobMeters meters(String job) {
+        return meters.computeIfAbsent(job, this::register);
+    }
+
+    private JobMeters register(String job) {
+        AtomicLong lastRun = new AtomicLong();
+        Gauge.builder("scheduled.job.last.run", lastRun, AtomicLong::get)
+                .description("本节点最近一次执行结束时间（epoch 毫秒）")
+                .tag("job", job)
+                .register(meterRegistry);
+        return new JobMeters(
+                runs(job, "success"),
+                runs(job, "failure"),
+                runs(job, "skipped"),
+                Timer.builder("scheduled.job.duration")
+                        .description("定时任务执行耗时")
+                        .tag("job", job)
+                        .register(meterRegistry),
+                lastRun);
+    }
+
+    private Counter runs(String job, String outcome) {
+        return Counter.builder("scheduled.job.runs")
+                .description("定时任务触发次数")
+                .tag("job", job)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record JobMeters(Counter success, Counter failure, Counter skipped, Timer duration, AtomicLong lastRun) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.muyingmall.listener;
 
+import com.muyingmall.common.id.IdGenerator;
 import com.muyingmall.entity.Address;
 import com.muyingmall.entity.Logistics;
 import com.muyingmall.entity.Order;
@@ -35,6 +36,7 @@ public class OrderPaidEventListener {
     private final AMapService amapService;
     private final AddressService addressService;
     private final RedisUtil redisUtil;
+    private final IdGenerator idGenerator;
     
     /** 物流创建分布式锁前缀 */
     private static final String LOGISTICS_CREATE_LOCK_PREFIX = "logistics:create:lock:order:";
@@ -161,7 +163,7 @@ public class OrderPaidEventListener {
      * 生成物流单号
      */
     private String generateTrackingNo() {
-        return "SF" + System.currentTimeMillis() + (int) (Math.random() * 1000);
+        return idGenerator.nextNo("SF");
     }
 
     /**
@@ -0,0 +1,33 @@
+package com.muyingmall.listener;
+
+import com.muyingmall.enums.OrderStatus;
+import com.muyingmall.service.OrderTimeoutService;
+import com.muyingmall.service.impl.OrderStateServiceImpl.OrderStateChangedEvent;
+import com.muyingmall.statemachine.OrderEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 订单离开待支付状态（支付、用户取消）后撤销支付超时登记
+ * 未撤销也不影响正确性，到期认领时发现订单已不是待支付会直接出队，这里只是提前释放队列与时间轮中的条目
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderTimeoutUnscheduleListener {
+
+    private final OrderTimeoutService orderTimeoutService;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleOrderStateChanged(OrderStateChangedEvent event) {
+        if (event.getOldStatus() != OrderStatus.PENDING_PAYMENT
+                || event.getNewStatus() == OrderStatus.PENDING_PAYMENT
+                || event.getEvent() == OrderEvent.TIMEOUT) {
+            return;
+        }
+        orderTimeoutService.unschedule(event.getOrder().getOrderId());
+    }
+}
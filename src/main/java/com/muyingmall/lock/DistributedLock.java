@@ -24,6 +24,16 @@ public interface DistributedLock {
      */
     boolean releaseLock(String lockKey, String requestId);
 
+    /**
+     * 续期锁
+     *
+     * @param lockKey    锁键
+     * @param requestId  请求标识（用于验证锁的持有者）
+     * @param expireTime 新的过期时间（毫秒）
+     * @return 是否续期成功，false 表示锁已过期或被他人持有
+     */
+    boolean renewLock(String lockKey, String requestId, long expireTime);
+
     /**
      * 带超时的尝试获取锁
      *
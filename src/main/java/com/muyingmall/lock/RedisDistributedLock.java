@@ -19,6 +19,7 @@ public class RedisDistributedLock implements DistributedLock {
     private final RedisTemplate<String, Object> redisTemplate;
     private DefaultRedisScript<Long> lockScript;
     private DefaultRedisScript<Long> unlockScript;
+    private DefaultRedisScript<Long> renewScript;
 
     public RedisDistributedLock(RedisTemplate<String, Object> redisTemplate) {
         this.redisTemplate = redisTemplate;
@@ -35,6 +36,11 @@ public class RedisDistributedLock implements DistributedLock {
         unlockScript = new DefaultRedisScript<>();
         unlockScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/unlock.lua")));
         unlockScript.setResultType(Long.class);
+
+        // 初始化续期脚本
+        renewScript = new DefaultRedisScript<>();
+        renewScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/lock_renew.lua")));
+        renewScript.setResultType(Long.class);
     }
 
     @Override
@@ -58,6 +64,16 @@ public class RedisDistributedLock implements DistributedLock {
         return result != null && result == 1L;
     }
 
+    @Override
+    public boolean renewLock(String lockKey, String requestId, long expireTime) {
+        Long result = redisTemplate.execute(
+                renewScript,
+                Collections.singletonList(lockKey),
+                requestId,
+                expireTime);
+        return result != null && result == 1L;
+    }
+
     @Override
     public boolean tryLockWithTimeout(String lockKey, String requestId, long expireTime, long timeout) {
         long startTime = System.currentTimeMillis();
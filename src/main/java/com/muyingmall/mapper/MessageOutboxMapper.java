@@ -0,0 +1,61 @@
+package com.muyingmall.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.muyingmall.entity.MessageOutbox;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 消息发件箱Mapper
+ */
+@Mapper
+public interface MessageOutboxMapper extends BaseMapper<MessageOutbox> {
+
+    /**
+     * 认领一批到期的待发送消息。
+     * 必须在事务内调用：行锁保持到事务结束，其他节点通过 SKIP LOCKED 跳过已被认领的行
+     */
+    @Select("SELECT * FROM message_outbox " +
+            "WHERE status = 0 AND next_attempt_time <= NOW() " +
+            "ORDER BY id LIMIT #{limit} FOR UPDATE SKIP LOCKED")
+    List<MessageOutbox> claimBatch(@Param("limit") int limit);
+
+    /**
+     * 批量标记为已发送
+     */
+    @Update("<script>" +
+            "UPDATE message_outbox SET status = 1, attempts = attempts + 1, sent_time = NOW(), last_error = NULL " +
+            "WHERE id IN <foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int markSent(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 记录一次发送失败：达到最大尝试次数时标记为失败，否则推迟到下次可发送时间。
+     * MySQL 按从左到右的顺序赋值，status 必须在 attempts 自增之前计算
+     */
+    @Update("UPDATE message_outbox SET " +
+            "status = CASE WHEN attempts + 1 >= #{maxAttempts} THEN 2 ELSE 0 END, " +
+            "attempts = attempts + 1, next_attempt_time = #{nextAttemptTime}, last_error = #{error} " +
+            "WHERE id = #{id}")
+    int markRetry(@Param("id") Long id, @Param("maxAttempts") int maxAttempts,
+                  @Param("nextAttemptTime") LocalDateTime nextAttemptTime, @Param("error") String error);
+
+    /**
+     * 删除早于指定时间发送成功的消息
+     */
+    @Delete("DELETE FROM message_outbox WHERE status = 1 AND sent_time < #{before} LIMIT #{limit}")
+    int deleteSentBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    /**
+     * 按状态统计数量
+     */
+    @Select("SELECT COUNT(*) FROM message_outbox WHERE status = #{status}")
+    long countByStatus(@Param("status") int status);
+}
@@ -7,6 +7,7 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Update;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 
 /**
  * 订单 Mapper 接口
@@ -55,4 +56,27 @@ public interface OrderMapper extends BaseMapper<Order> {
          */
         @Update("UPDATE `order` SET `is_commented`=#{isCommented}, `update_time`=NOW() WHERE `order_id`=#{orderId}")
         int updateOrderCommentStatus(@Param("orderId") Integer orderId, @Param("isCommented") Integer isCommented);
-}
\ No newline at end of file
+
+        /**
+         * 批量把待支付订单置为超时取消（一条语句）
+         * 只更新仍处于待支付状态的行，调用方应先以 FOR UPDATE 锁定这些订单，影响行数即实际取消的订单数
+         *
+         * @param orderIds     订单ID
+         * @param cancelTime   取消时间
+         * @param cancelReason 取消原因
+         * @param remark       订单备注
+         */
+        @Update({
+                        "<script>",
+                        "UPDATE `order` SET `status` = 'cancelled', `cancel_time` = #{cancelTime}, ",
+                        "`cancel_reason` = #{cancelReason}, `remark` = #{remark}, `update_time` = #{cancelTime}, ",
+                        "`version` = `version` + 1 WHERE `order_id` IN ",
+                        "<foreach collection='orderIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+                        " AND `status` = 'pending_payment'",
+                        "</script>"
+        })
+        int batchCancelPending(@Param("orderIds") Collection<Integer> orderIds,
+                        @Param("cancelTime") LocalDateTime cancelTime,
+                        @Param("cancelReason") String cancelReason,
+                        @Param("remark") String remark);
+}
@@ -2,11 +2,32 @@ package com.muyingmall.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.muyingmall.entity.OrderProduct;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 订单商品 Mapper 接口
  */
 @Mapper
 public interface OrderProductMapper extends BaseMapper<OrderProduct> {
-}
\ No newline at end of file
+
+    /**
+     * 多行插入订单商品，自增ID回填到各元素
+     */
+    @Insert({
+            "<script>",
+            "INSERT INTO order_product(order_id, product_id, product_name, product_img, price, quantity, specs, ",
+            "sku_id, sku_code, create_time, update_time) VALUES ",
+            "<foreach collection='items' item='p' separator=','>",
+            "(#{p.orderId}, #{p.productId}, #{p.productName}, #{p.productImg}, #{p.price}, #{p.quantity}, ",
+            "#{p.specs}, #{p.skuId}, #{p.skuCode}, #{p.createTime}, #{p.updateTime})",
+            "</foreach>",
+            "</script>"
+    })
+    @Options(useGeneratedKeys = true, keyProperty = "items.id", keyColumn = "id")
+    int insertBatch(@Param("items") List<OrderProduct> items);
+}
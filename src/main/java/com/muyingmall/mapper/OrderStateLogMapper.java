@@ -2,11 +2,28 @@ package com.muyingmall.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.muyingmall.entity.OrderStateLog;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 订单状态变更日志Mapper接口
  */
 @Mapper
 public interface OrderStateLogMapper extends BaseMapper<OrderStateLog> {
-}
\ No newline at end of file
+
+    /**
+     * 多行插入状态变更日志
+     */
+    @Insert({
+            "<script>",
+            "INSERT INTO order_state_log(order_id, order_no, old_status, new_status, event, operator, reason, create_time) VALUES ",
+            "<foreach collection='logs' item='l' separator=','>",
+            "(#{l.orderId}, #{l.orderNo}, #{l.oldStatus}, #{l.newStatus}, #{l.event}, #{l.operator}, #{l.reason}, NOW())",
+            "</foreach>",
+            "</script>"
+    })
+    int insertBatch(@Param("logs") List<OrderStateLog> logs);
+}
@@ -10,6 +10,7 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -97,6 +98,65 @@ public interface ProductMapper extends BaseMapper<Product> {
         @Update("UPDATE product SET stock = stock + #{quantity} WHERE product_id = #{productId}")
         int increaseStock(@Param("productId") Integer productId, @Param("quantity") Integer quantity);
 
-        @Update("UPDATE product SET stock = stock - #{quantity}, sales = sales + #{quantity} WHERE product_id = #{productId}")
+        /**
+         * 批量扣减商品主表库存（一条语句，用于无SKU的商品）
+         * 每行只在库存足够时扣减；影响行数小于商品数量说明有商品库存不足，调用方须抛异常回滚整个事务
+         *
+         * @param quantities 商品ID -> 扣减数量，同一商品须提前合并
+         */
+        @Update({
+                        "<script>",
+                        "UPDATE product SET stock = stock - CASE product_id ",
+                        "<foreach collection='quantities' index='productId' item='quantity'>WHEN #{productId} THEN #{quantity} </foreach>",
+                        "END WHERE product_id IN ",
+                        "<foreach collection='quantities' index='productId' open='(' separator=',' close=')'>#{productId}</foreach>",
+                        " AND stock &gt;= CASE product_id ",
+                        "<foreach collection='quantities' index='productId' item='quantity'>WHEN #{productId} THEN #{quantity} </foreach>",
+                        "END",
+                        "</script>"
+        })
+        int batchDecreaseStock(@Param("quantities") Map<Integer, Integer> quantities);
+
+        /**
+         * 批量增加商品主表库存（一条语句，用于无SKU的商品）
+         *
+         * @param quantities 商品ID -> 增加数量，同一商品须提前合并
+         */
+        @Update({
+                        "<script>",
+                        "UPDATE product SET stock = stock + CASE product_id ",
+                        "<foreach collection='quantities' index='productId' item='quantity'>WHEN #{productId} THEN #{quantity} </foreach>",
+                        "END WHERE product_id IN ",
+                        "<foreach collection='quantities' index='productId' open='(' separator=',' close=')'>#{productId}</foreach>",
+                        "</script>"
+        })
+        int batchIncreaseStock(@Param("quantities") Map<Integer, Integer> quantities);
+
+        /**
+         * 按启用SKU的库存之和批量刷新商品总库存（一条语句），没有SKU的商品不受影响
+         */
+        @Update({
+                        "<script>",
+                        "UPDATE product p JOIN (",
+                        "SELECT product_id, SUM(CASE WHEN status = 1 THEN stock ELSE 0 END) AS total_stock ",
+                        "FROM product_sku WHERE product_id IN ",
+                        "<foreach collection='productIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+                        " GROUP BY product_id) s ON p.product_id = s.product_id ",
+                        "SET p.stock = s.total_stock",
+                        "</script>"
+        })
+        int syncStockFromSkus(@Param("productIds") Collection<Integer> productIds);
+
+        /**
+         * 扣减库存并增加销量，库存不足时不更新
+         */
+        @Update("UPDATE product SET stock = stock - #{quantity}, sales = sales + #{quantity} " +
+                        "WHERE product_id = #{productId} AND stock >= #{quantity}")
         int decreaseStockAndIncreaseSales(@Param("productId") Integer productId, @Param("quantity") Integer quantity);
-}
\ No newline at end of file
+
+        /**
+         * 按主键顺序分批读取商品ID（布隆过滤器重建）
+         */
+        @Select("SELECT product_id FROM product WHERE product_id > #{afterId} ORDER BY product_id LIMIT #{limit}")
+        List<Long> selectIdsAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+}
@@ -5,6 +5,7 @@ import com.muyingmall.entity.ProductSku;
 import org.apache.ibatis.annotations.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 商品SKU Mapper
@@ -36,6 +37,41 @@ public interface ProductSkuMapper extends BaseMapper<ProductSku> {
                     @Param("quantity") Integer quantity,
                     @Param("version") Integer version);
 
+    /**
+     * 批量扣减库存（一条语句）
+     * 每行只在库存足够时扣减；影响行数小于SKU数量说明有SKU库存不足，调用方须抛异常回滚整个事务
+     *
+     * @param quantities SKU ID -> 扣减数量，同一SKU须提前合并
+     */
+    @Update({
+            "<script>",
+            "UPDATE product_sku SET stock = stock - CASE sku_id ",
+            "<foreach collection='quantities' index='skuId' item='quantity'>WHEN #{skuId} THEN #{quantity} </foreach>",
+            "END, version = version + 1 WHERE sku_id IN ",
+            "<foreach collection='quantities' index='skuId' open='(' separator=',' close=')'>#{skuId}</foreach>",
+            " AND stock &gt;= CASE sku_id ",
+            "<foreach collection='quantities' index='skuId' item='quantity'>WHEN #{skuId} THEN #{quantity} </foreach>",
+            "END",
+            "</script>"
+    })
+    int batchDeductStock(@Param("quantities") Map<Long, Integer> quantities);
+
+    /**
+     * 批量恢复库存（一条语句）
+     * 影响行数小于SKU数量说明有SKU不存在
+     *
+     * @param quantities SKU ID -> 恢复数量，同一SKU须提前合并
+     */
+    @Update({
+            "<script>",
+            "UPDATE product_sku SET stock = stock + CASE sku_id ",
+            "<foreach collection='quantities' index='skuId' item='quantity'>WHEN #{skuId} THEN #{quantity} </foreach>",
+            "END, version = version + 1 WHERE sku_id IN ",
+            "<foreach collection='quantities' index='skuId' open='(' separator=',' close=')'>#{skuId}</foreach>",
+            "</script>"
+    })
+    int batchRestoreStock(@Param("quantities") Map<Long, Integer> quantities);
+
     /**
      * 恢复库存
      */
@@ -44,6 +80,19 @@ public interface ProductSkuMapper extends BaseMapper<ProductSku> {
     int restoreStock(@Param("skuId") Long skuId, 
                      @Param("quantity") Integer quantity);
 
+    /**
+     * 批量覆盖库存（CASE 写法，一条语句更新一批SKU，只写 stock 列）
+     */
+    @Update({
+            "<script>",
+            "UPDATE product_sku SET stock = CASE sku_id ",
+            "<foreach collection='skus' item='s'>WHEN #{s.skuId} THEN #{s.stock} </foreach>",
+            "END, version = version + 1 WHERE sku_id IN ",
+            "<foreach collection='skus' item='s' open='(' separator=',' close=')'>#{s.skuId}</foreach>",
+            "</script>"
+    })
+    int batchUpdateStock(@Param("skus") List<ProductSku> skus);
+
     /**
      * 查询库存不足的SKU列表
      */
@@ -57,4 +106,10 @@ public interface ProductSkuMapper extends BaseMapper<ProductSku> {
      */
     @Delete("DELETE FROM product_sku WHERE product_id = #{productId}")
     int deleteByProductId(@Param("productId") Integer productId);
+
+    /**
+     * 按主键顺序分批读取SKU ID（布隆过滤器重建）
+     */
+    @Select("SELECT sku_id FROM product_sku WHERE sku_id > #{afterId} ORDER BY sku_id LIMIT #{limit}")
+    List<Long> selectIdsAfter(@Param("afterId") long afterId, @Param("limit") int limit);
 }
@@ -102,4 +102,19 @@ public interface ProductSkuStockLogMapper extends BaseMapper<ProductSkuStockLog>
         @Result(column = "create_time", property = "createTime")
     })
     List<SkuStockLogDTO> selectByOrderId(@Param("orderId") Integer orderId);
+
+    /**
+     * 多行插入库存日志
+     */
+    @Insert({
+            "<script>",
+            "INSERT INTO product_sku_stock_log(sku_id, sku_code, order_id, change_type, change_quantity, ",
+            "before_stock, after_stock, operator, remark, create_time) VALUES ",
+            "<foreach collection='logs' item='l' separator=','>",
+            "(#{l.skuId}, #{l.skuCode}, #{l.orderId}, #{l.changeType}, #{l.changeQuantity}, ",
+            "#{l.beforeStock}, #{l.afterStock}, #{l.operator}, #{l.remark}, NOW())",
+            "</foreach>",
+            "</script>"
+    })
+    int insertBatch(@Param("logs") List<ProductSkuStockLog> logs);
 }
@@ -5,12 +5,14 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.muyingmall.dto.SeckillOrderDTO;
 import com.muyingmall.entity.SeckillOrder;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -42,6 +44,41 @@ public interface SeckillOrderMapper extends BaseMapper<SeckillOrder> {
                                      @Param("activityId") Long activityId,
                                      @Param("seckillProductId") Long seckillProductId);
 
+    /**
+     * 批量查询用户在秒杀商品上的已支付/待支付数量（按用户+秒杀商品分组）。
+     * 供批量消费使用，一次查询替代逐条的 countUserPurchase / countUserPendingPurchase。
+     * 返回列：user_id, seckill_product_id, paid_quantity, pending_quantity
+     */
+    @Select("<script>" +
+            "SELECT user_id, seckill_product_id, " +
+            "COALESCE(SUM(CASE WHEN status = 1 THEN quantity ELSE 0 END), 0) AS paid_quantity, " +
+            "COALESCE(SUM(CASE WHEN status = 0 THEN quantity ELSE 0 END), 0) AS pending_quantity " +
+            "FROM seckill_order " +
+            "WHERE status IN (0, 1) " +
+            "AND user_id IN " +
+            "<foreach collection='userIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "AND seckill_product_id IN " +
+            "<foreach collection='seckillProductIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "GROUP BY user_id, seckill_product_id" +
+            "</script>")
+    List<Map<String, Object>> selectUserQuantities(@Param("userIds") Collection<Integer> userIds,
+                                                   @Param("seckillProductIds") Collection<Long> seckillProductIds);
+
+    /**
+     * 多行插入秒杀订单记录
+     */
+    @Insert({
+            "<script>",
+            "INSERT INTO seckill_order(order_id, user_id, activity_id, seckill_product_id, sku_id, quantity, ",
+            "seckill_price, status, create_time, update_time) VALUES ",
+            "<foreach collection='orders' item='o' separator=','>",
+            "(#{o.orderId}, #{o.userId}, #{o.activityId}, #{o.seckillProductId}, #{o.skuId}, #{o.quantity}, ",
+            "#{o.seckillPrice}, #{o.status}, NOW(), NOW())",
+            "</foreach>",
+            "</script>"
+    })
+    int insertBatch(@Param("orders") List<SeckillOrder> orders);
+
     /**
      * 将待支付秒杀订单原子标记为已取消。
      * 返回值为影响行数：1表示成功从待支付转取消，0表示订单不存在或状态已变化。
@@ -11,6 +11,7 @@ import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -126,6 +127,20 @@ public interface SeckillProductMapper extends BaseMapper<SeckillProduct> {
     List<Map<String, Object>> selectHotProductsRanking(@Param("limit") int limit, 
                                                         @Param("startTime") LocalDateTime startTime);
     
+    /**
+     * 按SKU汇总未结束活动中的秒杀库存，作为Redis库存对账基准
+     * 返回列：sku_id, seckill_stock
+     */
+    @Select("<script>" +
+            "SELECT sp.sku_id, SUM(sp.seckill_stock) AS seckill_stock " +
+            "FROM seckill_product sp " +
+            "JOIN seckill_activity sa ON sp.activity_id = sa.id " +
+            "WHERE sa.status IN (0, 1) AND sp.sku_id IN " +
+            "<foreach collection='skuIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "GROUP BY sp.sku_id" +
+            "</script>")
+    List<Map<String, Object>> selectSeckillStockBySkuIds(@Param("skuIds") Collection<Long> skuIds);
+
     /**
      * 扣减秒杀库存（使用乐观锁）
      * 
@@ -4,10 +4,20 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.muyingmall.entity.User;
 
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 /**
  * 用户Mapper接口
  */
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
-}
\ No newline at end of file
+
+    /**
+     * 按主键顺序分批读取用户ID（布隆过滤器重建）
+     */
+    @Select("SELECT user_id FROM user WHERE user_id > #{afterId} ORDER BY user_id LIMIT #{limit}")
+    List<Long> selectIdsAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+}
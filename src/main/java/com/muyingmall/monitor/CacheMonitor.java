@@ -1,5 +1,6 @@
 package com.muyingmall.monitor;
 
+import com.muyingmall.annotation.ClusterJob;
 import com.muyingmall.config.CacheManagerConfig;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -39,6 +40,7 @@ public class CacheMonitor {
      * 每5分钟执行一次
      */
     @Scheduled(fixedRate = 300000)
+    @ClusterJob(name = "cache-monitor-redis-stats", minHoldMs = 300000)
     public void collectRedisStats() {
         if (!statsEnabled) {
             return;
@@ -70,6 +72,7 @@ public class CacheMonitor {
      * 每30分钟执行一次
      */
     @Scheduled(fixedRate = 1800000)
+    @ClusterJob(name = "cache-monitor-slow-logs", minHoldMs = 1800000)
     public void monitorSlowLogs() {
         if (!statsEnabled) {
             return;
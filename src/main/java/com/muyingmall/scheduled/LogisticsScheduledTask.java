@@ -1,9 +1,11 @@
 package com.muyingmall.scheduled;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.muyingmall.annotation.ClusterJob;
 import com.muyingmall.entity.Logistics;
 import com.muyingmall.entity.LogisticsTrack;
 import com.muyingmall.enums.LogisticsStatus;
+import com.muyingmall.job.ClusterJobContext;
 import com.muyingmall.service.LogisticsService;
 import com.muyingmall.service.LogisticsTrackService;
 import lombok.RequiredArgsConstructor;
@@ -32,15 +34,23 @@ public class LogisticsScheduledTask {
      * 说明：轨迹点本身按2小时间隔生成，但发货时间通常带分钟（如16:16）。
      * 若任务仅在整点每2小时触发，会错过 xx:16 的推进时刻。
      * 因此改为每分钟检查一次，按 trackingTime <= now 精准推进到当前应到达点。
+     * 集群中按物流ID取模分片，各节点只推进自己负责分片内的物流记录。
      */
     @Scheduled(cron = "0 0 */12 * * *")
+    @ClusterJob(name = "logistics-progress", mode = ClusterJob.Mode.SHARDED,
+            shards = "${logistics.progress.shards:16}", leaseMs = 300000, minHoldMs = 600000)
     public void updateLogisticsProgress() {
-        log.info("开始执行物流进度推进定时任务");
+        int shard = ClusterJobContext.shardIndex();
+        int shardTotal = ClusterJobContext.shardTotal();
+        log.info("开始执行物流进度推进定时任务: shard={}/{}", shard, shardTotal);
 
         try {
-            // 1. 查询需要推进的物流记录（运输中 + 已创建）
+            // 1. 查询本分片需要推进的物流记录（运输中 + 已创建）
             LambdaQueryWrapper<Logistics> queryWrapper = new LambdaQueryWrapper<>();
             queryWrapper.in(Logistics::getStatus, LogisticsStatus.SHIPPING, LogisticsStatus.CREATED);
+            if (shardTotal > 1) {
+                queryWrapper.apply("id % {0} = {1}", shardTotal, shard);
+            }
             List<Logistics> shippingLogistics = logisticsService.list(queryWrapper);
 
             if (shippingLogistics.isEmpty()) {
@@ -52,6 +62,10 @@ public class LogisticsScheduledTask {
 
             // 2. 遍历每条物流记录，检查是否需要更新状态
             for (Logistics logistics : shippingLogistics) {
+                if (ClusterJobContext.isLeaseLost()) {
+                    log.warn("物流进度推进任务租约已丢失，停止本分片处理: shard={}/{}", shard, shardTotal);
+                    return;
+                }
                 try {
                     updateSingleLogisticsProgress(logistics);
                 } catch (Exception e) {
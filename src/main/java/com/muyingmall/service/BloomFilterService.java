@@ -0,0 +1,230 @@
+package com.muyingmall.service;
+
+import com.muyingmall.cache.RedisBloomFilter;
+import com.muyingmall.mapper.ProductMapper;
+import com.muyingmall.mapper.ProductSkuMapper;
+import com.muyingmall.mapper.UserMapper;
+import com.muyingmall.util.RedisUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 缓存穿透防护布隆过滤器服务
+ *
+ * <p>
+ * 为商品、SKU、用户三类ID各维护一个 {@link RedisBloomFilter}：新增数据时实时写入，
+ * 定时从数据库全量重建到下一代位数组后切换代号，已删除数据的位随旧代号一起丢弃，误判率不会随删除累积上升。
+ * 重建由分布式锁保证同一时刻只有一个节点执行；各节点本地镜像由 BloomFilterTask 周期刷新。
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BloomFilterService {
+
+    public static final String PRODUCT = "product";
+    public static final String SKU = "sku";
+    public static final String USER = "user";
+
+    private static final String REBUILD_LOCK_PREFIX = "lock:bloom:rebuild:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisUtil redisUtil;
+    private final ProductMapper productMapper;
+    private final ProductSkuMapper productSkuMapper;
+    private final UserMapper userMapper;
+
+    @Getter
+    @Value("${bloom.enabled:true}")
+    private boolean enabled;
+
+    @Value("${bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${bloom.mirror-safety-window:1000}")
+    private long mirrorSafetyWindow;
+
+    @Value("${bloom.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    @Value("${bloom.rebuild-lock-seconds:600}")
+    private int rebuildLockSeconds;
+
+    @Value("${bloom.product.expected-insertions:200000}")
+    private long productExpectedInsertions;
+
+    @Value("${bloom.sku.expected-insertions:1000000}")
+    private long skuExpectedInsertions;
+
+    @Value("${bloom.user.expected-insertions:2000000}")
+    private long userExpectedInsertions;
+
+    /**
+     * 按主键顺序分批读取ID
+     */
+    @FunctionalInterface
+    interface IdSource {
+        List<Long> idsAfter(long afterId, int limit);
+    }
+
+    private final Map<String, RedisBloomFilter> filters = new LinkedHashMap<>();
+    private final Map<String, IdSource> idSources = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        DefaultRedisScript<Long> addScript = loadScript("scripts/bloom_add.lua");
+        DefaultRedisScript<Long> checkScript = loadScript("scripts/bloom_check.lua");
+        DefaultRedisScript<Long> rotateScript = loadScript("scripts/bloom_rotate.lua");
+
+        register(PRODUCT, productExpectedInsertions, productMapper::selectIdsAfter,
+                addScript, checkScript, rotateScript);
+        register(SKU, skuExpectedInsertions, productSkuMapper::selectIdsAfter,
+                addScript, checkScript, rotateScript);
+        register(USER, userExpectedInsertions, userMapper::selectIdsAfter,
+                addScript, checkScript, rotateScript);
+    }
+
+    private void register(String name, long expectedInsertions, IdSource idSource,
+            DefaultRedisScript<Long> addScript, DefaultRedisScript<Long> checkScript,
+            DefaultRedisScript<Long> rotateScript) {
+        RedisBloomFilter filter = new RedisBloomFilter(name, expectedInsertions, falsePositiveRate,
+                mirrorSafetyWindow, redisTemplate, addScript, checkScript, rotateScript);
+        filters.put(name, filter);
+        idSources.put(name, idSource);
+        log.info("布隆过滤器已注册: name={}, expectedInsertions={}, bits={}, hashes={}",
+                name, expectedInsertions, filter.getNumBits(), filter.getNumHashes());
+    }
+
+    private static DefaultRedisScript<Long> loadScript(String path) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    /**
+     * 判断ID是否可能存在；返回 false 时数据一定不存在，可直接拒绝而不查询缓存与数据库
+     *
+     * @param name 过滤器名称（{@link #PRODUCT}/{@link #SKU}/{@link #USER}）
+     * @param id   数据ID
+     */
+    public boolean mightContain(String name, Object id) {
+        RedisBloomFilter filter = filters.get(name);
+        Long value = toLong(id);
+        if (!enabled || filter == null || value == null) {
+            return true;
+        }
+        return filter.mightContain(value);
+    }
+
+    /**
+     * 新增数据后写入过滤器
+     */
+    public void add(String name, Object id) {
+        RedisBloomFilter filter = filters.get(name);
+        Long value = toLong(id);
+        if (!enabled || filter == null || value == null) {
+            return;
+        }
+        filter.add(value);
+    }
+
+    /**
+     * 刷新所有过滤器的本地镜像；尚未构建的过滤器顺带触发一次重建
+     */
+    public void refreshMirrors() {
+        for (RedisBloomFilter filter : filters.values()) {
+            try {
+                if (!filter.isBuilt()) {
+                    rebuild(filter.getName());
+                }
+                filter.refreshMirror();
+            } catch (Exception e) {
+                log.error("刷新布隆过滤器镜像失败: name={}, error={}", filter.getName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 重建所有过滤器
+     */
+    public void rebuildAll() {
+        for (String name : filters.keySet()) {
+            try {
+                rebuild(name);
+            } catch (Exception e) {
+                log.error("重建布隆过滤器失败: name={}, error={}", name, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 从数据库全量重建到下一代位数组并切换
+     *
+     * @return 写入的ID数量；未获取到重建锁时返回 -1
+     */
+    public long rebuild(String name) {
+        RedisBloomFilter filter = filters.get(name);
+        IdSource idSource = idSources.get(name);
+        if (filter == null || idSource == null) {
+            return -1;
+        }
+        String lockKey = REBUILD_LOCK_PREFIX + name;
+        String requestId = UUID.randomUUID().toString();
+        if (!redisUtil.getLock(lockKey, requestId, rebuildLockSeconds)) {
+            log.debug("布隆过滤器正在其他节点重建: name={}", name);
+            return -1;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            long generation = filter.beginRebuild();
+            long lastId = 0;
+            long count = 0;
+            List<Long> batch;
+            do {
+                batch = idSource.idsAfter(lastId, rebuildBatchSize);
+                if (batch == null || batch.isEmpty()) {
+                    break;
+                }
+                filter.addAll(generation, batch);
+                lastId = batch.get(batch.size() - 1);
+                count += batch.size();
+            } while (batch.size() >= rebuildBatchSize);
+
+            boolean committed = filter.commitRebuild(generation, lastId);
+            log.info("布隆过滤器重建{}: name={}, generation={}, ids={}, maxId={}, 耗时={}ms",
+                    committed ? "完成" : "作废", name, generation, count, lastId,
+                    System.currentTimeMillis() - start);
+            return count;
+        } finally {
+            redisUtil.releaseLock(lockKey, requestId);
+        }
+    }
+
+    private static Long toLong(Object id) {
+        if (id instanceof Number number) {
+            return number.longValue();
+        }
+        if (id == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(id.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
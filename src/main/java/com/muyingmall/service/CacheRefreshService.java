@@ -1,18 +1,16 @@
 package com.muyingmall.service;
 
+import com.muyingmall.cache.CacheNamespaces;
+import com.muyingmall.common.constants.CacheConstants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.stereotype.Service;
 
-import java.util.HashSet;
-import java.util.Set;
-
 /**
  * 缓存刷新服务
  * 用于在数据更新后立即清理相关缓存，确保数据一致性
+ * 详情类缓存按键精确删除，列表与统计类缓存递增命名空间代号，不扫描 Redis 键空间
  */
 @Service
 @Slf4j
@@ -20,35 +18,33 @@ import java.util.Set;
 public class CacheRefreshService {
 
     private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheNamespaces cacheNamespaces;
 
     /**
      * 立即刷新订单相关缓存
-     * 
+     *
      * @param orderId 订单ID
      * @param userId  用户ID
      */
     public void refreshOrderCache(Integer orderId, Integer userId) {
         try {
             log.debug("开始刷新订单缓存: orderId={}, userId={}", orderId, userId);
-            
+
             // 1. 清理订单详情缓存
             clearOrderDetailCache(orderId);
-            
+
             // 2. 清理用户订单列表缓存
             if (userId != null) {
                 clearUserOrderListCache(userId);
             }
-            
+
             // 3. 清理订单统计缓存
-            clearOrderStatsCache();
-            
-            // 4. 清理相关的业务缓存
-            clearRelatedBusinessCache(orderId, userId);
-            
+            clearOrderStatsCache(userId);
+
             log.debug("订单缓存刷新完成: orderId={}, userId={}", orderId, userId);
-            
+
         } catch (Exception e) {
-            log.error("刷新订单缓存失败: orderId={}, userId={}, error={}", 
+            log.error("刷新订单缓存失败: orderId={}, userId={}, error={}",
                     orderId, userId, e.getMessage(), e);
         }
     }
@@ -58,21 +54,10 @@ public class CacheRefreshService {
      */
     private void clearOrderDetailCache(Integer orderId) {
         try {
-            // 清理多种可能的缓存key格式
-            String[] cacheKeys = {
-                "order:detail:" + orderId,
-                "order_detail_" + orderId,
-                "order:" + orderId,
-                "muying:order:detail:" + orderId
-            };
-            
-            for (String key : cacheKeys) {
-                Boolean deleted = redisTemplate.delete(key);
-                if (Boolean.TRUE.equals(deleted)) {
-                    log.debug("清理订单详情缓存成功: {}", key);
-                }
+            Boolean deleted = redisTemplate.delete(CacheConstants.ORDER_DETAIL_KEY + orderId);
+            if (Boolean.TRUE.equals(deleted)) {
+                log.debug("清理订单详情缓存成功: orderId={}", orderId);
             }
-            
         } catch (Exception e) {
             log.error("清理订单详情缓存失败: orderId={}, error={}", orderId, e.getMessage(), e);
         }
@@ -80,119 +65,28 @@ public class CacheRefreshService {
 
     /**
      * 清理用户订单列表缓存
+     * 服务层分页缓存与Controller层响应缓存各自挂在按用户划分的命名空间下，递增代号即整体失效
      */
     private void clearUserOrderListCache(Integer userId) {
-        try {
-            // 清理多种可能的缓存key格式
-            String[] patterns = {
-                "order:user:" + userId + "*",
-                "user_order_list_" + userId + "*",
-                "muying:order:user:" + userId + "*",
-                "order:list:user:" + userId + "*"
-            };
-            
-            for (String pattern : patterns) {
-                Set<String> keys = scanKeys(pattern);
-                if (!keys.isEmpty()) {
-                    Long deletedCount = redisTemplate.delete(keys);
-                    log.debug("清理用户订单列表缓存: pattern={}, deletedCount={}", pattern, deletedCount);
-                }
-            }
-            
-        } catch (Exception e) {
-            log.error("清理用户订单列表缓存失败: userId={}, error={}", userId, e.getMessage(), e);
-        }
+        cacheNamespaces.bump(CacheConstants.USER_ORDER_LIST_KEY + userId + ":");
+        cacheNamespaces.bump("order:list:" + userId + ":");
+        log.debug("清理用户订单列表缓存: userId={}", userId);
     }
 
     /**
      * 清理订单统计缓存
      */
-    private void clearOrderStatsCache() {
-        try {
-            String[] patterns = {
-                "order:stats:*",
-                "order_stats_*",
-                "muying:order:stats:*"
-            };
-            
-            for (String pattern : patterns) {
-                Set<String> keys = scanKeys(pattern);
-                if (!keys.isEmpty()) {
-                    Long deletedCount = redisTemplate.delete(keys);
-                    log.debug("清理订单统计缓存: pattern={}, deletedCount={}", pattern, deletedCount);
-                }
+    private void clearOrderStatsCache(Integer userId) {
+        cacheNamespaces.bump(CacheConstants.ORDER_STATS_KEY);
+        if (userId != null) {
+            try {
+                // Controller层的用户订单统计响应缓存
+                redisTemplate.delete("order:stats:" + userId);
+            } catch (Exception e) {
+                log.error("清理订单统计缓存失败: userId={}, error={}", userId, e.getMessage(), e);
             }
-            
-        } catch (Exception e) {
-            log.error("清理订单统计缓存失败: error={}", e.getMessage(), e);
-        }
-    }
-
-    /**
-     * 清理相关的业务缓存
-     */
-    private void clearRelatedBusinessCache(Integer orderId, Integer userId) {
-        try {
-            // 清理支付相关缓存
-            clearPaymentCache(orderId);
-            
-            // 清理用户相关缓存
-            if (userId != null) {
-                clearUserRelatedCache(userId);
-            }
-            
-        } catch (Exception e) {
-            log.error("清理相关业务缓存失败: orderId={}, userId={}, error={}", 
-                    orderId, userId, e.getMessage(), e);
-        }
-    }
-
-    /**
-     * 清理支付相关缓存
-     */
-    private void clearPaymentCache(Integer orderId) {
-        try {
-            String[] patterns = {
-                "payment:order:" + orderId + "*",
-                "payment_order_" + orderId + "*"
-            };
-            
-            for (String pattern : patterns) {
-                Set<String> keys = scanKeys(pattern);
-                if (!keys.isEmpty()) {
-                    Long deletedCount = redisTemplate.delete(keys);
-                    log.debug("清理支付缓存: pattern={}, deletedCount={}", pattern, deletedCount);
-                }
-            }
-            
-        } catch (Exception e) {
-            log.error("清理支付缓存失败: orderId={}, error={}", orderId, e.getMessage(), e);
-        }
-    }
-
-    /**
-     * 清理用户相关缓存
-     */
-    private void clearUserRelatedCache(Integer userId) {
-        try {
-            String[] patterns = {
-                "user:profile:" + userId,
-                "user_profile_" + userId,
-                "user:account:" + userId + "*",
-                "user_account_" + userId + "*"
-            };
-            
-            for (String pattern : patterns) {
-                Set<String> keys = scanKeys(pattern);
-                if (!keys.isEmpty()) {
-                    Long deletedCount = redisTemplate.delete(keys);
-                    log.debug("清理用户相关缓存: pattern={}, deletedCount={}", pattern, deletedCount);
-                }
-            }
-            
-        } catch (Exception e) {
-            log.error("清理用户相关缓存失败: userId={}, error={}", userId, e.getMessage(), e);
         }
+        log.debug("清理订单统计缓存: userId={}", userId);
     }
 
     /**
@@ -215,13 +109,4 @@ public class CacheRefreshService {
             forceRefreshCache(key);
         }
     }
-
-    private Set<String> scanKeys(String pattern) {
-        Set<String> keys = new HashSet<>();
-        try (Cursor<String> cursor = redisTemplate.scan(
-                ScanOptions.scanOptions().match(pattern).count(100).build())) {
-            cursor.forEachRemaining(keys::add);
-        }
-        return keys;
-    }
 }
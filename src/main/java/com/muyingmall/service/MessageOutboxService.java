@@ -0,0 +1,324 @@
+package com.muyingmall.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muyingmall.config.properties.RabbitMQProperties;
+import com.muyingmall.entity.MessageOutbox;
+import com.muyingmall.mapper.MessageOutboxMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 事务性发件箱服务
+ *
+ * <p>
+ * 业务事务内调用 {@link #append} 只向 message_outbox 插入一行，消息与业务数据一起提交或回滚，
+ * 调用线程不再等待 RabbitMQ。事务提交后唤醒本节点中继线程，中继在独立事务中：
+ * {@code FOR UPDATE SKIP LOCKED} 认领一批到期消息 → 同一信道连续发布 → 一次等待发布确认 → 批量标记已发送。
+ * 多个节点同时中继时互相跳过对方已认领的行。
+ * </p>
+ * <p>
+ * 投递语义为至少一次：确认超时或节点在标记前宕机时消息会被重发，消费者可按 messageId（outbox-{id}）去重。
+ * 发布失败的消息按指数退避推迟重试，超过最大尝试次数后标记为失败，保留在表中供人工排查。
+ * </p>
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "rabbitmq.enabled", havingValue = "true", matchIfMissing = true)
+public class MessageOutboxService {
+
+    public static final String EVENT_ORDER = "ORDER";
+    public static final String EVENT_PAYMENT = "PAYMENT";
+    public static final String EVENT_ORDER_TIMEOUT = "ORDER_TIMEOUT";
+
+    static final String MESSAGE_ID_PREFIX = "outbox-";
+
+    private static final int PURGE_BATCH_SIZE = 1000;
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final MessageOutboxMapper outboxMapper;
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final RabbitMQProperties rabbitMQProperties;
+
+    /**
+     * 中继事务：行锁从认领保持到标记完成
+     */
+    private final TransactionTemplate relayTx;
+
+    /**
+     * 单线程中继：同一节点内的中继串行执行，提交唤醒与定时轮询合并
+     */
+    private final ExecutorService relayExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("outbox-relay").daemon().factory());
+
+    private final AtomicBoolean relayRequested = new AtomicBoolean(false);
+
+    public MessageOutboxService(MessageOutboxMapper outboxMapper,
+                                RabbitTemplate rabbitTemplate,
+                                ObjectMapper objectMapper,
+                                RabbitMQProperties rabbitMQProperties,
+                                PlatformTransactionManager transactionManager) {
+        this.outboxMapper = outboxMapper;
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+        this.rabbitMQProperties = rabbitMQProperties;
+        this.relayTx = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 追加一条待发送消息
+     * 在当前事务内插入；事务提交后唤醒中继，无事务时立即唤醒
+     *
+     * @param eventType   事件类型，见 EVENT_* 常量
+     * @param aggregateId 业务主键（订单ID/支付ID），用于排查
+     * @param exchange    交换机
+     * @param routingKey  路由键
+     * @param payload     消息体，按 RabbitTemplate 的消息转换器序列化
+     */
+    public void append(String eventType, Object aggregateId, String exchange, String routingKey, Object payload) {
+        Message converted = rabbitTemplate.getMessageConverter().toMessage(payload, new MessageProperties());
+
+        MessageOutbox outbox = new MessageOutbox();
+        outbox.setEventType(eventType);
+        outbox.setAggregateId(aggregateId != null ? String.valueOf(aggregateId) : null);
+        outbox.setExchange(exchange);
+        outbox.setRoutingKey(routingKey);
+        outbox.setPayload(new String(converted.getBody(), StandardCharsets.UTF_8));
+        outbox.setHeaders(writeHeaders(converted.getMessageProperties().getHeaders()));
+        outbox.setStatus(MessageOutbox.STATUS_PENDING);
+        outbox.setAttempts(0);
+        outbox.setNextAttemptTime(LocalDateTime.now());
+        outbox.setCreateTime(LocalDateTime.now());
+        outboxMapper.insert(outbox);
+
+        log.debug("消息已写入发件箱: id={}, eventType={}, aggregateId={}, routingKey={}",
+                outbox.getId(), eventType, aggregateId, routingKey);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    requestRelay();
+                }
+            });
+        } else {
+            requestRelay();
+        }
+    }
+
+    /**
+     * 唤醒本节点中继线程
+     * 已有待执行的中继时合并为一次
+     */
+    public void requestRelay() {
+        if (!relayRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            relayExecutor.execute(() -> {
+                relayRequested.set(false);
+                try {
+                    relayPending();
+                } catch (Exception e) {
+                    log.error("发件箱中继失败", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            relayRequested.set(false);
+            log.debug("发件箱中继线程已关闭，等待下次轮询");
+        }
+    }
+
+    /**
+     * 发布全部到期消息，直到没有可认领的消息或某一批发布失败
+     *
+     * @return 发布成功的消息数量
+     */
+    public int relayPending() {
+        int batchSize = rabbitMQProperties.getOutbox().getBatchSize();
+        int total = 0;
+        while (true) {
+            RelayResult result = relayBatch(batchSize);
+            total += result.sent();
+            if (result.failed() || result.claimed() < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.debug("发件箱中继完成: sent={}", total);
+        }
+        return total;
+    }
+
+    /**
+     * 认领并发布一批消息
+     */
+    RelayResult relayBatch(int batchSize) {
+        RelayResult result = relayTx.execute(status -> {
+            List<MessageOutbox> batch = outboxMapper.claimBatch(batchSize);
+            if (batch.isEmpty()) {
+                return new RelayResult(0, 0, false);
+            }
+            List<MessageOutbox> publishable = new ArrayList<>(batch.size());
+            List<Message> messages = new ArrayList<>(batch.size());
+            for (MessageOutbox outbox : batch) {
+                try {
+                    messages.add(toMessage(outbox));
+                    publishable.add(outbox);
+                } catch (Exception e) {
+                    // 单条消息无法还原不应阻塞整批
+                    scheduleRetry(outbox, e);
+                }
+            }
+            if (publishable.isEmpty()) {
+                return new RelayResult(batch.size(), 0, true);
+            }
+            try {
+                publish(publishable, messages);
+            } catch (Exception e) {
+                log.warn("发件箱批量发布失败，{} 条消息稍后重试: {}", publishable.size(), e.getMessage());
+                publishable.forEach(outbox -> scheduleRetry(outbox, e));
+                return new RelayResult(batch.size(), 0, true);
+            }
+            outboxMapper.markSent(publishable.stream().map(MessageOutbox::getId).toList());
+            return new RelayResult(batch.size(), publishable.size(), publishable.size() < batch.size());
+        });
+        return result != null ? result : new RelayResult(0, 0, false);
+    }
+
+    /**
+     * 在同一信道上连续发布，最后一次性等待 broker 确认；任一消息被拒绝或超时即整批失败
+     */
+    private void publish(List<MessageOutbox> batch, List<Message> messages) {
+        long confirmTimeout = rabbitMQProperties.getOutbox().getConfirmTimeout();
+        rabbitTemplate.invoke(operations -> {
+            for (int i = 0; i < batch.size(); i++) {
+                MessageOutbox outbox = batch.get(i);
+                operations.send(outbox.getExchange(), outbox.getRoutingKey(), messages.get(i));
+            }
+            operations.waitForConfirmsOrDie(confirmTimeout);
+            return null;
+        });
+    }
+
+    /**
+     * 记录失败并按指数退避推迟下次发送
+     */
+    private void scheduleRetry(MessageOutbox outbox, Exception e) {
+        RabbitMQProperties.Outbox config = rabbitMQProperties.getOutbox();
+        long delay = backoff(outbox.getAttempts() != null ? outbox.getAttempts() : 0,
+                config.getRetryInterval(), config.getMaxRetryInterval());
+        outboxMapper.markRetry(outbox.getId(), config.getMaxAttempts(),
+                LocalDateTime.now().plusNanos(delay * 1_000_000L), truncate(e.getMessage()));
+        if (outbox.getAttempts() != null && outbox.getAttempts() + 1 >= config.getMaxAttempts()) {
+            log.error("发件箱消息超过最大尝试次数，已标记为失败: id={}, eventType={}, aggregateId={}, error={}",
+                    outbox.getId(), outbox.getEventType(), outbox.getAggregateId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 第 attempts+1 次失败后的等待时间：基数 × 2^attempts，不超过上限
+     */
+    static long backoff(int attempts, long retryInterval, long maxRetryInterval) {
+        int shift = Math.min(Math.max(attempts, 0), 30);
+        return Math.min(retryInterval << shift, maxRetryInterval);
+    }
+
+    /**
+     * 删除超过保留天数的已发送消息
+     *
+     * @return 删除数量
+     */
+    public int purgeSent() {
+        LocalDateTime before = LocalDateTime.now().minusDays(rabbitMQProperties.getOutbox().getRetentionDays());
+        int total = 0;
+        int deleted;
+        do {
+            deleted = outboxMapper.deleteSentBefore(before, PURGE_BATCH_SIZE);
+            total += deleted;
+        } while (deleted >= PURGE_BATCH_SIZE);
+        return total;
+    }
+
+    /**
+     * 发件箱积压统计
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", rabbitMQProperties.getOutbox().isEnabled());
+        stats.put("pending", outboxMapper.countByStatus(MessageOutbox.STATUS_PENDING));
+        stats.put("failed", outboxMapper.countByStatus(MessageOutbox.STATUS_FAILED));
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        relayExecutor.shutdown();
+    }
+
+    private Message toMessage(MessageOutbox outbox) throws Exception {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setContentEncoding(StandardCharsets.UTF_8.name());
+        properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        properties.setMessageId(MESSAGE_ID_PREFIX + outbox.getId());
+        if (outbox.getHeaders() != null && !outbox.getHeaders().isEmpty()) {
+            Map<String, Object> headers = objectMapper.readValue(outbox.getHeaders(),
+                    new TypeReference<Map<String, Object>>() {
+                    });
+            headers.forEach(properties::setHeader);
+        }
+        byte[] body = outbox.getPayload() != null ? outbox.getPayload().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        return new Message(body, properties);
+    }
+
+    private String writeHeaders(Map<String, Object> headers) {
+        if (headers == null || headers.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(headers);
+        } catch (Exception e) {
+            throw new IllegalStateException("发件箱消息头序列化失败", e);
+        }
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    /**
+     * 一批中继的结果
+     *
+     * @param claimed 认领数量
+     * @param sent    发布成功数量
+     * @param failed  是否有消息发布失败
+     */
+    record RelayResult(int claimed, int sent, boolean failed) {
+    }
+}
@@ -14,6 +14,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.concurrent.TimeUnit;
@@ -25,6 +27,8 @@ import java.util.concurrent.atomic.AtomicLong;
  * 封装RabbitMQ消息发送逻辑，支持订单和支付消息的发送
  * 实现混合模式：同时发送RabbitMQ消息和Redis通知
  * 提供优雅降级机制：RabbitMQ不可用时回退到Redis通知
+ * 启用发件箱（rabbitmq.outbox.enabled）时，订单、支付、订单超时消息写入 message_outbox 随业务事务提交，
+ * 由 {@link MessageOutboxService} 异步发布，Redis通知在事务提交后发送
  * 
  * @author MuyingMall
  * @since 2025-09-18
@@ -39,6 +43,7 @@ public class MessageProducerService {
     private final OrderNotificationService orderNotificationService;
     private final RabbitMQProperties rabbitMQProperties;
     private final ConnectionFactory connectionFactory;
+    private final MessageOutboxService messageOutboxService;
 
     /**
      * RabbitMQ连接状态监控
@@ -114,6 +119,13 @@ public class MessageProducerService {
         log.info("RabbitMQ配置: enabled={}, fallbackToSync={}", 
                 rabbitMQProperties.isEnabled(), rabbitMQProperties.isFallbackToSync());
 
+        if (rabbitMQProperties.getOutbox().isEnabled()) {
+            messageOutboxService.append(MessageOutboxService.EVENT_ORDER, message.getOrderId(),
+                    RabbitMQConstants.ORDER_EXCHANGE, generateOrderRoutingKey(message), message);
+            afterCommit(() -> sendOrderNotificationToRedis(message));
+            return;
+        }
+
         boolean rabbitmqSuccess = false;
         boolean shouldUseRabbitMQ = isRabbitMQAvailable();
 
@@ -147,6 +159,13 @@ public class MessageProducerService {
         log.debug("开始发送支付消息: paymentId={}, eventType={}, orderId={}, userId={}", 
                 message.getPaymentId(), message.getEventType(), message.getOrderId(), message.getUserId());
 
+        if (rabbitMQProperties.getOutbox().isEnabled()) {
+            messageOutboxService.append(MessageOutboxService.EVENT_PAYMENT, message.getPaymentId(),
+                    RabbitMQConstants.PAYMENT_EXCHANGE, generatePaymentRoutingKey(message), message);
+            afterCommit(() -> sendPaymentNotificationToRedis(message));
+            return;
+        }
+
         boolean rabbitmqSuccess = false;
         boolean shouldUseRabbitMQ = isRabbitMQAvailable();
 
@@ -522,14 +541,17 @@ public class MessageProducerService {
      *
      * @param orderId 订单ID
      * @param orderNo 订单号
+     * @deprecated 订单超时改由 {@link OrderTimeoutService#schedule} 登记到延迟队列
      */
+    @Deprecated
     public void sendOrderTimeoutDelayMessage(Integer orderId, String orderNo) {
         if (orderId == null || orderNo == null) {
             log.warn("订单超时延迟消息参数无效，跳过发送: orderId={}, orderNo={}", orderId, orderNo);
             return;
         }
 
-        if (!isRabbitMQAvailable()) {
+        boolean useOutbox = rabbitMQProperties.getOutbox().isEnabled();
+        if (!useOutbox && !isRabbitMQAvailable()) {
             log.debug("RabbitMQ不可用，跳过发送订单超时延迟消息: orderId={}", orderId);
             return;
         }
@@ -541,6 +563,13 @@ public class MessageProducerService {
             message.put("orderNo", orderNo);
             message.put("createTime", LocalDateTime.now().toString());
 
+            if (useOutbox) {
+                messageOutboxService.append(MessageOutboxService.EVENT_ORDER_TIMEOUT, orderId,
+                        "order.delay.exchange", "order.delay", message);
+                log.debug("订单超时延迟消息已写入发件箱: orderId={}, orderNo={}", orderId, orderNo);
+                return;
+            }
+
             // 发送到延迟队列（消息将在队列中等待30分钟TTL后转发到死信队列）
             rabbitTemplate.convertAndSend(
                     "order.delay.exchange",
@@ -569,7 +598,29 @@ public class MessageProducerService {
         status.put("rabbitmqAvailable", isRabbitMQAvailable());
         status.put("maxRetryCount", rabbitMQProperties.getErrorHandling().getMaxRetryAttempts());
         status.put("retryInterval", rabbitMQProperties.getErrorHandling().getRetryInterval());
+        try {
+            status.put("outbox", messageOutboxService.stats());
+        } catch (Exception e) {
+            log.warn("获取发件箱统计失败: {}", e.getMessage());
+        }
         
         return status;
     }
+
+    /**
+     * 在当前事务提交后执行，无事务时立即执行
+     * 避免业务回滚后仍向前端推送状态变更
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
 }
\ No newline at end of file
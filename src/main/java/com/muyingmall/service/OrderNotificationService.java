@@ -1,9 +1,11 @@
 package com.muyingmall.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
@@ -20,7 +22,8 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class OrderNotificationService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
     
     // 注入虚拟线程执行器，用于异步延迟任务
     @Qualifier("taskExecutor")
@@ -52,10 +55,10 @@ public class OrderNotificationService {
             
             // 发布到Redis频道，供前端WebSocket监听
             String channel = "order_notifications:" + userId;
-            redisTemplate.convertAndSend(channel, notification);
+            publish(channel, notification);
             
             // 同时发布到全局频道
-            redisTemplate.convertAndSend("order_notifications:all", notification);
+            publish("order_notifications:all", notification);
             
             log.debug("订单状态变更通知发送成功: channel={}", channel);
             
@@ -89,10 +92,10 @@ public class OrderNotificationService {
             
             // 发布到Redis频道
             String channel = "payment_notifications:" + userId;
-            redisTemplate.convertAndSend(channel, notification);
+            publish(channel, notification);
             
             // 同时发布到全局频道
-            redisTemplate.convertAndSend("payment_notifications:all", notification);
+            publish("payment_notifications:all", notification);
             
             log.debug("支付成功通知发送成功: channel={}", channel);
             
@@ -124,7 +127,7 @@ public class OrderNotificationService {
             
             // 发布到Redis频道
             String channel = "cache_notifications:" + userId;
-            redisTemplate.convertAndSend(channel, notification);
+            publish(channel, notification);
             
             log.debug("缓存刷新通知发送成功: channel={}", channel);
             
@@ -154,7 +157,7 @@ public class OrderNotificationService {
             
             // 发布到Redis频道
             String channel = "sync_notifications:" + userId;
-            redisTemplate.convertAndSend(channel, notification);
+            publish(channel, notification);
             
             // 延迟发送第二次通知，确保数据同步（使用虚拟线程执行器）
             taskExecutor.execute(() -> {
@@ -169,7 +172,7 @@ public class OrderNotificationService {
                     delayedNotification.put("action", "FINAL_REFRESH");
                     delayedNotification.put("timestamp", System.currentTimeMillis());
                     
-                    redisTemplate.convertAndSend(channel, delayedNotification);
+                    publish(channel, delayedNotification);
                     log.debug("延迟同步通知发送成功: orderId={}", orderId);
                     
                 } catch (InterruptedException e) {
@@ -187,4 +190,11 @@ public class OrderNotificationService {
                     orderId, userId, e.getMessage(), e);
         }
     }
+
+    /**
+     * 以 JSON 文本发布通知，前端订阅方无需了解 RedisTemplate 的值编码
+     */
+    private void publish(String channel, Map<String, Object> notification) throws JsonProcessingException {
+        stringRedisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(notification));
+    }
 }
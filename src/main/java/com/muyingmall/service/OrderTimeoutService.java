@@ -0,0 +1,625 @@
+package com.muyingmall.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.muyingmall.cache.NodeIdentifier;
+import com.muyingmall.common.constants.CacheConstants;
+import com.muyingmall.config.properties.OrderTimeoutProperties;
+import com.muyingmall.delay.HierarchicalTimingWheel;
+import com.muyingmall.delay.RedisDelayQueue;
+import com.muyingmall.dto.SkuStockDTO;
+import com.muyingmall.entity.Order;
+import com.muyingmall.entity.OrderProduct;
+import com.muyingmall.entity.OrderStateLog;
+import com.muyingmall.entity.SeckillOrder;
+import com.muyingmall.enums.OrderStatus;
+import com.muyingmall.job.ClusterJobContext;
+import com.muyingmall.lock.DistributedLock;
+import com.muyingmall.mapper.OrderMapper;
+import com.muyingmall.mapper.OrderProductMapper;
+import com.muyingmall.mapper.OrderStateLogMapper;
+import com.muyingmall.mapper.ProductMapper;
+import com.muyingmall.mapper.SeckillOrderMapper;
+import com.muyingmall.service.impl.OrderStateServiceImpl.OrderStateChangedEvent;
+import com.muyingmall.statemachine.OrderEvent;
+import com.muyingmall.util.RedisUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 订单支付超时服务
+ *
+ * <p>
+ * 下单事务提交后，订单按到期时间写入 Redis 分片延迟队列（ZSET，按订单ID哈希分片）；
+ * 到期时间在预加载窗口内的订单同时放入本节点的分层时间轮，由时间轮线程按秒触发。
+ * 触发后先用 delay_claim.lua 认领（多节点只有一个认领成功），再批量取消，最后确认出队。
+ * 定时直接扫描各分片的到期成员，兜底时间轮未装入的订单与认领后未确认（节点宕机）的订单。
+ * </p>
+ * <p>
+ * 取消在一个事务中按批完成：{@code FOR UPDATE} 锁定仍待支付且已超时的订单 → 一条 UPDATE 取消 →
+ * 一次查询订单商品 → SKU 与普通商品各一条语句恢复库存 → 一条语句写状态日志。
+ * 每次处理的开销只与到期订单数有关，与待支付订单总数无关。
+ * </p>
+ * <p>
+ * Redis 数据丢失（宕机、清库）后，由持有重建锁的节点按主键分页扫描待支付订单重建队列；
+ * 入队失败的订单由低频数据库兜底扫描（只查超时超过宽限期的订单）取消。
+ * </p>
+ */
+@Slf4j
+@Service
+public class OrderTimeoutService {
+
+    static final String QUEUE_KEY_PREFIX = "order:timeout:";
+    static final String READY_KEY = "order:timeout:ready";
+    static final String REBUILD_LOCK_KEY = "order:timeout:rebuild";
+
+    public static final String TIMEOUT_REASON = "订单超时未支付，系统自动取消";
+    private static final String TIMEOUT_REMARK = "未支付已自动取消";
+    private static final String OPERATOR = "system";
+    private static final long REBUILD_LOCK_MS = 10 * 60 * 1000L;
+
+    private final OrderMapper orderMapper;
+    private final OrderProductMapper orderProductMapper;
+    private final OrderStateLogMapper orderStateLogMapper;
+    private final ProductMapper productMapper;
+    private final ProductSkuService productSkuService;
+    private final SeckillOrderMapper seckillOrderMapper;
+    private final SeckillOrderReleaseService seckillOrderReleaseService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final DistributedLock distributedLock;
+    private final NodeIdentifier nodeIdentifier;
+    private final RedisUtil redisUtil;
+    private final OrderTimeoutProperties properties;
+
+    private final RedisDelayQueue queue;
+    private final HierarchicalTimingWheel<Integer> wheel;
+
+    /**
+     * 取消事务：行锁从锁定订单保持到库存恢复完成
+     */
+    private final TransactionTemplate cancelTx;
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("order-timeout-wheel").daemon().factory());
+
+    public OrderTimeoutService(OrderMapper orderMapper,
+                               OrderProductMapper orderProductMapper,
+                               OrderStateLogMapper orderStateLogMapper,
+                               ProductMapper productMapper,
+                               ProductSkuService productSkuService,
+                               SeckillOrderMapper seckillOrderMapper,
+                               SeckillOrderReleaseService seckillOrderReleaseService,
+                               ApplicationEventPublisher eventPublisher,
+                               StringRedisTemplate stringRedisTemplate,
+                               DistributedLock distributedLock,
+                               NodeIdentifier nodeIdentifier,
+                               RedisUtil redisUtil,
+                               OrderTimeoutProperties properties,
+                               PlatformTransactionManager transactionManager) {
+        this.orderMapper = orderMapper;
+        this.orderProductMapper = orderProductMapper;
+        this.orderStateLogMapper = orderStateLogMapper;
+        this.productMapper = productMapper;
+        this.productSkuService = productSkuService;
+        this.seckillOrderMapper = seckillOrderMapper;
+        this.seckillOrderReleaseService = seckillOrderReleaseService;
+        this.eventPublisher = eventPublisher;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.distributedLock = distributedLock;
+        this.nodeIdentifier = nodeIdentifier;
+        this.redisUtil = redisUtil;
+        this.properties = properties;
+        this.queue = new RedisDelayQueue(stringRedisTemplate, QUEUE_KEY_PREFIX, properties.getShards());
+        this.wheel = new HierarchicalTimingWheel<>(properties.getTickMs(), properties.getWheelSize(),
+                properties.getWheelLevels(), System.currentTimeMillis());
+        this.cancelTx = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("订单超时延迟队列未启用，仅由数据库兜底扫描取消超时订单");
+            return;
+        }
+        ticker.scheduleWithFixedDelay(this::tick, properties.getTickMs(), properties.getTickMs(),
+                TimeUnit.MILLISECONDS);
+        log.info("订单超时延迟队列启动: payTimeout={}min, shards={}, tick={}ms, wheelHorizon={}ms, preload={}ms",
+                properties.getPayTimeoutMinutes(), properties.getShards(), properties.getTickMs(),
+                wheel.horizonMillis(), properties.getPreloadMs());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * 登记订单的支付超时；在事务中调用时于提交后入队
+     * 入队失败不影响下单，由数据库兜底扫描在超时后处理
+     *
+     * @param orderId    订单ID
+     * @param createTime 下单时间
+     */
+    public void schedule(Integer orderId, LocalDateTime createTime) {
+        if (!properties.isEnabled() || orderId == null) {
+            return;
+        }
+        long deadline = deadlineOf(createTime != null ? createTime : LocalDateTime.now());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(orderId, deadline);
+                }
+            });
+        } else {
+            enqueue(orderId, deadline);
+        }
+    }
+
+    /**
+     * 订单已支付或已取消，撤销超时登记
+     */
+    public void unschedule(Integer orderId) {
+        if (!properties.isEnabled() || orderId == null) {
+            return;
+        }
+        wheel.remove(orderId);
+        try {
+            queue.ack(List.of(String.valueOf(orderId)));
+        } catch (Exception e) {
+            // 留在队列中也无妨：到期认领后发现订单已不是待支付，直接出队
+            log.debug("撤销订单超时登记失败: orderId={}, error={}", orderId, e.getMessage());
+        }
+    }
+
+    /**
+     * 从各分片装入预加载窗口内到期的订单到本地时间轮
+     *
+     * @return 装入的订单数
+     */
+    public int loadUpcoming() {
+        int loaded = 0;
+        for (int shard = 0; shard < queue.getShards(); shard++) {
+            loaded += loadUpcoming(shard);
+        }
+        return loaded;
+    }
+
+    /**
+     * 按任务分片装入：第 shardIndex 个任务分片负责 {@code 队列分片号 % shardTotal == shardIndex} 的延迟队列分片。
+     * 非分片执行（shardTotal 为 1，如集群协调关闭）时装入全部分片，任务分片数与队列分片数不一致时也不会遗漏
+     *
+     * @return 装入的订单数
+     */
+    public int loadUpcoming(int shardIndex, int shardTotal) {
+        int loaded = 0;
+        for (int shard : queueShards(shardIndex, shardTotal)) {
+            loaded += loadUpcoming(shard);
+        }
+        return loaded;
+    }
+
+    /**
+     * 从指定分片装入预加载窗口内到期的订单到本地时间轮（集群中各节点只装入自己负责的分片）
+     *
+     * @return 装入的订单数
+     */
+    public int loadUpcoming(int shard) {
+        long until = System.currentTimeMillis() + properties.getPreloadMs();
+        int loaded = 0;
+        Map<String, Long> upcoming = queue.peek(shard, until, properties.getLoadLimit());
+        for (Map.Entry<String, Long> entry : upcoming.entrySet()) {
+            if (wheel.add(Integer.valueOf(entry.getKey()), entry.getValue())) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 直接按分数扫描各分片，认领并取消已到期的订单
+     *
+     * @return 处理的订单数
+     */
+    public int claimDue() {
+        int processed = 0;
+        for (int shard = 0; shard < queue.getShards(); shard++) {
+            processed += claimDue(shard);
+        }
+        return processed;
+    }
+
+    /**
+     * 按任务分片扫描，分片对应关系同 {@link #loadUpcoming(int, int)}
+     *
+     * @return 处理的订单数
+     */
+    public int claimDue(int shardIndex, int shardTotal) {
+        int processed = 0;
+        for (int shard : queueShards(shardIndex, shardTotal)) {
+            processed += claimDue(shard);
+        }
+        return processed;
+    }
+
+    /**
+     * 扫描指定分片，认领并取消已到期的订单；任务租约丢失时在批次之间停止
+     *
+     * @return 处理的订单数
+     */
+    public int claimDue(int shard) {
+        int processed = 0;
+        while (!ClusterJobContext.isLeaseLost()) {
+            List<String> claimed = queue.claimDue(shard, System.currentTimeMillis(),
+                    properties.getClaimLeaseMs(), properties.getBatchSize());
+            if (claimed.isEmpty()) {
+                break;
+            }
+            process(claimed, "REDIS_TIMEOUT");
+            processed += claimed.size();
+            if (claimed.size() < properties.getBatchSize()) {
+                break;
+            }
+        }
+        return processed;
+    }
+
+    private List<Integer> queueShards(int shardIndex, int shardTotal) {
+        int total = Math.max(shardTotal, 1);
+        List<Integer> shards = new ArrayList<>();
+        for (int shard = 0; shard < queue.getShards(); shard++) {
+            if (shard % total == shardIndex) {
+                shards.add(shard);
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * 数据库兜底：取消超时超过宽限期仍待支付的订单（入队失败、延迟队列关闭等情况）
+     * 按 (status, create_time) 索引只读取这些订单，每轮最多 batchSize 条
+     *
+     * @return 取消的订单数
+     */
+    public int sweepOverdue() {
+        LocalDateTime threshold = LocalDateTime.now()
+                .minusMinutes(properties.getPayTimeoutMinutes())
+                .minusNanos(properties.getSweepGraceMs() * 1_000_000L);
+        int cancelled = 0;
+        while (!ClusterJobContext.isLeaseLost()) {
+            List<Integer> overdue = orderMapper.selectList(new LambdaQueryWrapper<Order>()
+                            .select(Order::getOrderId)
+                            .eq(Order::getStatus, OrderStatus.PENDING_PAYMENT)
+                            .lt(Order::getCreateTime, threshold)
+                            .orderByAsc(Order::getCreateTime)
+                            .last("LIMIT " + properties.getBatchSize()))
+                    .stream()
+                    .map(Order::getOrderId)
+                    .collect(Collectors.toList());
+            if (overdue.isEmpty()) {
+                break;
+            }
+            int batchCancelled = cancelExpired(overdue, "SCHEDULE_TIMEOUT").size();
+            cancelled += batchCancelled;
+            if (batchCancelled == 0 || overdue.size() < properties.getBatchSize()) {
+                break;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Redis 中缺少就绪标记时（首次启用或数据丢失）从数据库重建延迟队列
+     * 只有取得重建锁的节点执行，按主键分页扫描待支付订单，每页一次批量 ZADD
+     *
+     * @return 重建的订单数，无需重建或未取得锁时返回 -1
+     */
+    public long rebuildIfMissing() {
+        if (!properties.isEnabled() || Boolean.TRUE.equals(stringRedisTemplate.hasKey(READY_KEY))) {
+            return -1;
+        }
+        String requestId = nodeIdentifier.getNodeId();
+        if (!distributedLock.tryLock(REBUILD_LOCK_KEY, requestId, REBUILD_LOCK_MS)) {
+            return -1;
+        }
+        try {
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(READY_KEY))) {
+                return -1;
+            }
+            long rebuilt = 0;
+            Integer lastId = 0;
+            while (true) {
+                List<Order> page = orderMapper.selectList(new LambdaQueryWrapper<Order>()
+                        .select(Order::getOrderId, Order::getCreateTime)
+                        .eq(Order::getStatus, OrderStatus.PENDING_PAYMENT)
+                        .gt(Order::getOrderId, lastId)
+                        .orderByAsc(Order::getOrderId)
+                        .last("LIMIT " + properties.getRebuildPageSize()));
+                if (page.isEmpty()) {
+                    break;
+                }
+                Map<String, Long> deadlines = new LinkedHashMap<>();
+                for (Order order : page) {
+                    deadlines.put(String.valueOf(order.getOrderId()), deadlineOf(order.getCreateTime()));
+                }
+                queue.offerAll(deadlines);
+                rebuilt += page.size();
+                lastId = page.get(page.size() - 1).getOrderId();
+                if (page.size() < properties.getRebuildPageSize()) {
+                    break;
+                }
+            }
+            stringRedisTemplate.opsForValue().set(READY_KEY, String.valueOf(System.currentTimeMillis()));
+            log.info("订单超时延迟队列已从数据库重建: orders={}", rebuilt);
+            return rebuilt;
+        } finally {
+            distributedLock.releaseLock(REBUILD_LOCK_KEY, requestId);
+        }
+    }
+
+    /**
+     * 批量取消已超时的待支付订单
+     * 只处理仍待支付且下单时间已超过支付时限的订单，其余ID（已支付、已取消、未到期）忽略，可重复调用
+     *
+     * @param orderIds 候选订单ID
+     * @param scene    调用场景（日志与秒杀释放追踪）
+     * @return 本次实际取消的订单
+     */
+    public List<Order> cancelExpired(Collection<Integer> orderIds, String scene) {
+        return cancelDue(orderIds, scene).cancelled();
+    }
+
+    /**
+     * 批量取消，同时返回仍待支付但尚未到期的订单（节点间时钟偏差导致提前触发），供调用方重新入队
+     */
+    CancelResult cancelDue(Collection<Integer> orderIds, String scene) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return CancelResult.EMPTY;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime createdBefore = now.minusMinutes(properties.getPayTimeoutMinutes());
+
+        CancelResult result = cancelTx.execute(status -> {
+            List<Order> pending = orderMapper.selectList(new LambdaQueryWrapper<Order>()
+                    .in(Order::getOrderId, orderIds)
+                    .eq(Order::getStatus, OrderStatus.PENDING_PAYMENT)
+                    .last("FOR UPDATE"));
+            List<Order> expired = new ArrayList<>(pending.size());
+            List<Order> notDue = new ArrayList<>();
+            for (Order order : pending) {
+                if (order.getCreateTime() == null || !order.getCreateTime().isAfter(createdBefore)) {
+                    expired.add(order);
+                } else {
+                    notDue.add(order);
+                }
+            }
+            if (expired.isEmpty()) {
+                return new CancelResult(Collections.emptyList(), notDue);
+            }
+            List<Integer> ids = expired.stream().map(Order::getOrderId).collect(Collectors.toList());
+            orderMapper.batchCancelPending(ids, now, TIMEOUT_REASON, TIMEOUT_REMARK);
+            Set<Integer> productIds = restoreStock(ids);
+            orderStateLogMapper.insertBatch(expired.stream()
+                    .map(order -> OrderStateLog.of(order.getOrderId(), order.getOrderNo(),
+                            OrderStatus.PENDING_PAYMENT, OrderStatus.CANCELLED, OrderEvent.TIMEOUT, OPERATOR,
+                            TIMEOUT_REASON))
+                    .collect(Collectors.toList()));
+            evictCaches(ids, productIds);
+            return new CancelResult(expired, notDue);
+        });
+        if (result == null || result.cancelled().isEmpty()) {
+            return result != null ? result : CancelResult.EMPTY;
+        }
+
+        List<Order> cancelled = result.cancelled();
+        releaseSeckillOrders(cancelled, scene);
+        for (Order order : cancelled) {
+            order.setStatus(OrderStatus.CANCELLED);
+            order.setCancelTime(now);
+            order.setCancelReason(TIMEOUT_REASON);
+            order.setRemark(TIMEOUT_REMARK);
+            // 积分退还等由状态变更事件的监听器处理
+            eventPublisher.publishEvent(new OrderStateChangedEvent(order, OrderStatus.PENDING_PAYMENT,
+                    OrderStatus.CANCELLED, OrderEvent.TIMEOUT, OPERATOR, TIMEOUT_REASON));
+        }
+        log.info("超时订单批量取消完成: scene={}, candidates={}, cancelled={}", scene, orderIds.size(),
+                cancelled.size());
+        return result;
+    }
+
+    /**
+     * 延迟队列状态
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("wheelSize", wheel.size());
+        stats.put("queueSize", queue.size());
+        stats.put("ready", Boolean.TRUE.equals(stringRedisTemplate.hasKey(READY_KEY)));
+        return stats;
+    }
+
+    long deadlineOf(LocalDateTime createTime) {
+        return createTime.plusMinutes(properties.getPayTimeoutMinutes())
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 时间轮线程：推进时间轮，认领并取消到期订单
+     */
+    void tick() {
+        try {
+            List<Integer> expired = wheel.advance(System.currentTimeMillis());
+            for (int from = 0; from < expired.size(); from += properties.getBatchSize()) {
+                List<String> members = expired.subList(from, Math.min(from + properties.getBatchSize(),
+                                expired.size())).stream()
+                        .map(String::valueOf)
+                        .collect(Collectors.toList());
+                List<String> claimed = queue.claim(members, System.currentTimeMillis(),
+                        properties.getClaimLeaseMs());
+                if (!claimed.isEmpty()) {
+                    process(claimed, "WHEEL_TIMEOUT");
+                }
+            }
+        } catch (Exception e) {
+            log.warn("订单超时时间轮处理失败，将由Redis到期扫描兜底: {}", e.getMessage());
+        }
+    }
+
+    private void enqueue(Integer orderId, long deadline) {
+        try {
+            queue.offer(String.valueOf(orderId), deadline);
+            if (deadline - System.currentTimeMillis() <= properties.getPreloadMs()) {
+                wheel.add(orderId, deadline);
+            }
+        } catch (Exception e) {
+            log.warn("订单超时登记失败，将由数据库兜底扫描处理: orderId={}, error={}", orderId, e.getMessage());
+        }
+    }
+
+    /**
+     * 取消已认领的订单并确认出队
+     * 尚未到期的订单按实际到期时间重新入队；整批失败时逐个重试，仍失败的订单不确认，租约到期后重新认领
+     */
+    private void process(List<String> claimed, String scene) {
+        List<Integer> orderIds = claimed.stream().map(Integer::valueOf).collect(Collectors.toList());
+        List<Order> notDue = new ArrayList<>();
+        List<String> done;
+        try {
+            notDue.addAll(cancelDue(orderIds, scene).notDue());
+            done = claimed;
+        } catch (Exception e) {
+            log.warn("超时订单批量取消失败，逐个重试: size={}, error={}", orderIds.size(), e.getMessage());
+            done = new ArrayList<>(claimed.size());
+            for (Integer orderId : orderIds) {
+                try {
+                    notDue.addAll(cancelDue(List.of(orderId), scene).notDue());
+                    done.add(String.valueOf(orderId));
+                } catch (Exception ex) {
+                    log.error("取消超时订单失败: orderId={}, error={}", orderId, ex.getMessage(), ex);
+                }
+            }
+        }
+        orderIds.forEach(wheel::remove);
+
+        Set<String> requeue = new LinkedHashSet<>();
+        for (Order order : notDue) {
+            requeue.add(String.valueOf(order.getOrderId()));
+            enqueue(order.getOrderId(), deadlineOf(order.getCreateTime()));
+        }
+        List<String> ack = done.stream().filter(id -> !requeue.contains(id)).collect(Collectors.toList());
+        if (!ack.isEmpty()) {
+            queue.ack(ack);
+        }
+    }
+
+    /**
+     * 恢复订单商品库存：SKU 商品一次批量恢复，普通商品一条语句
+     *
+     * @return 库存发生变化的商品ID
+     */
+    private Set<Integer> restoreStock(List<Integer> orderIds) {
+        List<OrderProduct> orderProducts = orderProductMapper.selectList(new LambdaQueryWrapper<OrderProduct>()
+                .in(OrderProduct::getOrderId, orderIds));
+        List<SkuStockDTO> skuStockList = new ArrayList<>();
+        Map<Integer, Integer> productQuantities = new LinkedHashMap<>();
+        Set<Integer> productIds = new LinkedHashSet<>();
+        for (OrderProduct orderProduct : orderProducts) {
+            productIds.add(orderProduct.getProductId());
+            Long skuId = orderProduct.getSkuId();
+            if (skuId != null && skuId > 0) {
+                SkuStockDTO stockDTO = new SkuStockDTO();
+                stockDTO.setSkuId(skuId);
+                stockDTO.setQuantity(orderProduct.getQuantity());
+                stockDTO.setOrderId(orderProduct.getOrderId());
+                stockDTO.setOperator(OPERATOR);
+                stockDTO.setRemark("订单超时自动取消恢复库存");
+                skuStockList.add(stockDTO);
+            } else {
+                productQuantities.merge(orderProduct.getProductId(), orderProduct.getQuantity(), Integer::sum);
+            }
+        }
+        if (!skuStockList.isEmpty()) {
+            productSkuService.batchRestoreStock(skuStockList);
+        }
+        if (!productQuantities.isEmpty()) {
+            productMapper.batchIncreaseStock(productQuantities);
+        }
+        return productIds;
+    }
+
+    /**
+     * 释放秒杀订单占用（秒杀库存与资格）；先一次查出其中的秒杀订单，普通订单不再逐个查询
+     */
+    private void releaseSeckillOrders(List<Order> cancelled, String scene) {
+        List<Long> orderIds = cancelled.stream()
+                .map(order -> order.getOrderId().longValue())
+                .collect(Collectors.toList());
+        List<SeckillOrder> seckillOrders;
+        try {
+            seckillOrders = seckillOrderMapper.selectList(new LambdaQueryWrapper<SeckillOrder>()
+                    .select(SeckillOrder::getOrderId)
+                    .in(SeckillOrder::getOrderId, orderIds)
+                    .eq(SeckillOrder::getStatus, 0));
+        } catch (Exception e) {
+            log.error("查询超时秒杀订单失败: orderIds={}, error={}", orderIds, e.getMessage(), e);
+            return;
+        }
+        for (SeckillOrder seckillOrder : seckillOrders) {
+            try {
+                seckillOrderReleaseService.releasePendingSeckillOrder(seckillOrder.getOrderId().intValue(), scene);
+            } catch (Exception e) {
+                log.error("释放超时秒杀订单失败: orderId={}, error={}", seckillOrder.getOrderId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private void evictCaches(List<Integer> orderIds, Set<Integer> productIds) {
+        List<String> keys = new ArrayList<>(orderIds.size() + productIds.size());
+        orderIds.forEach(id -> keys.add(CacheConstants.ORDER_DETAIL_KEY + id));
+        productIds.forEach(id -> keys.add(CacheConstants.PRODUCT_BASIC_KEY + id));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            redisUtil.del(keys);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                redisUtil.del(keys);
+            }
+        });
+    }
+
+    /**
+     * @param cancelled 本次取消的订单
+     * @param notDue    仍待支付但尚未到期的订单
+     */
+    record CancelResult(List<Order> cancelled, List<Order> notDue) {
+
+        static final CancelResult EMPTY = new CancelResult(Collections.emptyList(), Collections.emptyList());
+    }
+}
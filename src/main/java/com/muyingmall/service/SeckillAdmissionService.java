@@ -0,0 +1,169 @@
+package com.muyingmall.service;
+
+import com.muyingmall.cache.LocalCache;
+import com.muyingmall.cache.SeckillSoldOutFlags;
+import com.muyingmall.dto.SeckillRequestDTO;
+import com.muyingmall.entity.SeckillActivity;
+import com.muyingmall.entity.SeckillProduct;
+import com.muyingmall.mapper.SeckillActivityMapper;
+import com.muyingmall.mapper.SeckillProductMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 秒杀异步入口准入服务。
+ *
+ * <p>
+ * 在消息入队前完成 Redis 库存预占与参与索引检查（stock_deduct.lua），只有预占成功的请求才进入 MQ，
+ * 队列长度因此与可售数量同量级；售罄后写入本地售罄标记，后续请求在内存中直接拒绝。
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SeckillAdmissionService {
+
+    /**
+     * 入口校验使用的秒杀商品/活动本地缓存时长（秒）。
+     * 取值较短，避免活动状态切换后入口长时间误判；消费端仍会按数据库最新状态复核。
+     */
+    private static final long ADMISSION_CACHE_TTL_SECONDS = 5;
+    private static final String PRODUCT_CACHE_KEY = "seckill:admission:product:";
+    private static final String ACTIVITY_CACHE_KEY = "seckill:admission:activity:";
+
+    private final SeckillSoldOutFlags seckillSoldOutFlags;
+    private final SeckillService seckillService;
+    private final SeckillProductMapper seckillProductMapper;
+    private final SeckillActivityMapper seckillActivityMapper;
+    private final LocalCache localCache;
+    private final SeckillWarmupService seckillWarmupService;
+
+    /**
+     * 准入结果
+     */
+    @Getter
+    public enum AdmissionResult {
+        ADMITTED(null),
+        SOLD_OUT("商品已售罄"),
+        ALREADY_JOINED("您已参与过该秒杀活动"),
+        NOT_AVAILABLE("秒杀活动未开始或已结束"),
+        NOT_FOUND("秒杀商品不存在"),
+        BUSY("库存数据异常，请稍后重试");
+
+        private final String message;
+
+        AdmissionResult(String message) {
+            this.message = message;
+        }
+    }
+
+    /**
+     * 尝试准入：售罄标记 → 活动校验 → Lua 预占库存（同时检查待支付/已购买）。
+     * 返回 ADMITTED 时库存已预占，调用方投递消息失败必须调用 {@link #release}。
+     *
+     * @param userId  用户ID
+     * @param request 秒杀请求
+     * @return 准入结果
+     */
+    public AdmissionResult tryAdmit(Integer userId, SeckillRequestDTO request) {
+        Long seckillProductId = request.getSeckillProductId();
+
+        // 1. 本地售罄标记：纯内存判断，不访问 Redis / DB / MQ
+        if (seckillSoldOutFlags.isSoldOut(seckillProductId)) {
+            return AdmissionResult.SOLD_OUT;
+        }
+
+        SeckillProduct seckillProduct = getSeckillProduct(seckillProductId);
+        if (seckillProduct == null) {
+            return AdmissionResult.NOT_FOUND;
+        }
+
+        // 2. 活动状态与时间校验
+        SeckillActivity activity = getSeckillActivity(seckillProduct.getActivityId());
+        LocalDateTime now = LocalDateTime.now();
+        if (activity == null || activity.getStatus() == null || activity.getStatus() != 1
+                || now.isBefore(activity.getStartTime()) || now.isAfter(activity.getEndTime())) {
+            return AdmissionResult.NOT_AVAILABLE;
+        }
+
+        // 3. Lua 原子预占库存（含参与索引检查）
+        long remainingSeconds = Duration.between(now, activity.getEndTime()).getSeconds();
+        int luaResult = seckillService.deductStockWithLua(
+                seckillProductId,
+                seckillProduct.getSkuId(),
+                request.getQuantity(),
+                userId,
+                Math.max(remainingSeconds, 60));
+
+        if (luaResult == -1) {
+            // 库存不足不一定是售罄（购买数量大于剩余库存），仅剩余为 0 时写入售罄标记
+            Integer remaining = seckillService.getRedisStock(seckillProduct.getSkuId());
+            if (remaining != null && remaining <= 0) {
+                seckillSoldOutFlags.markSoldOut(seckillProductId, seckillProduct.getSkuId());
+            }
+            return AdmissionResult.SOLD_OUT;
+        } else if (luaResult == -2) {
+            return AdmissionResult.ALREADY_JOINED;
+        } else if (luaResult != 1) {
+            return AdmissionResult.BUSY;
+        }
+
+        // 待支付/已购买已由扣减脚本在参与索引中原子判断（返回 -2），无需再统计订单表
+        return AdmissionResult.ADMITTED;
+    }
+
+    /**
+     * 释放入口预占的库存与参与索引待支付位
+     *
+     * @param userId  用户ID
+     * @param request 秒杀请求
+     */
+    public void release(Integer userId, SeckillRequestDTO request) {
+        SeckillProduct seckillProduct = getSeckillProduct(request.getSeckillProductId());
+        if (seckillProduct == null) {
+            log.warn("释放秒杀预占失败，秒杀商品不存在: userId={}, seckillProductId={}",
+                    userId, request.getSeckillProductId());
+            return;
+        }
+        int result = seckillService.restoreStockWithLua(
+                request.getSeckillProductId(),
+                seckillProduct.getSkuId(),
+                request.getQuantity(),
+                userId);
+        if (result != 1) {
+            log.error("释放秒杀预占失败: userId={}, seckillProductId={}, quantity={}, result={}",
+                    userId, request.getSeckillProductId(), request.getQuantity(), result);
+        }
+    }
+
+    private SeckillProduct getSeckillProduct(Long seckillProductId) {
+        String key = PRODUCT_CACHE_KEY + seckillProductId;
+        Object cached = localCache.get(key);
+        if (cached instanceof SeckillProduct product) {
+            return product;
+        }
+        SeckillProduct product = seckillProductMapper.selectById(seckillProductId);
+        localCache.put(ADMISSION_CACHE_TTL_SECONDS, key, product);
+        return product;
+    }
+
+    private SeckillActivity getSeckillActivity(Long activityId) {
+        String key = ACTIVITY_CACHE_KEY + activityId;
+        Object cached = localCache.get(key);
+        if (cached instanceof SeckillActivity activity) {
+            return activity;
+        }
+        // 预热数据由活动状态任务在切换状态时刷新，未预热时回源数据库
+        SeckillActivity activity = seckillWarmupService.getActivity(activityId);
+        if (activity == null) {
+            activity = seckillActivityMapper.selectById(activityId);
+        }
+        localCache.put(ADMISSION_CACHE_TTL_SECONDS, key, activity);
+        return activity;
+    }
+}
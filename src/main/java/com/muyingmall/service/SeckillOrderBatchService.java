@@ -0,0 +1,406 @@
+package com.muyingmall.service;
+
+import com.muyingmall.common.exception.BusinessException;
+import com.muyingmall.dto.SeckillRequestDTO;
+import com.muyingmall.entity.SeckillActivity;
+import com.muyingmall.entity.SeckillOrder;
+import com.muyingmall.entity.SeckillProduct;
+import com.muyingmall.mapper.SeckillActivityMapper;
+import com.muyingmall.mapper.SeckillOrderMapper;
+import com.muyingmall.mapper.SeckillProductMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 秒杀订单批量处理服务。
+ *
+ * <p>
+ * 供秒杀消费者批量模式使用：一批消息共享一次秒杀商品/活动加载、一次按用户分组的限购查询、
+ * 按秒杀商品合并的数据库库存扣减，以及一次多行插入 seckill_order。
+ * 每条消息的下单在独立保存点（NESTED）中执行，单条失败只回滚自身并补偿库存，不影响同批其他消息。
+ * </p>
+ */
+@Slf4j
+@Service
+public class SeckillOrderBatchService {
+
+    private static final int DEFAULT_LIMIT_PER_SKU = 5;
+
+    private final SeckillService seckillService;
+    private final SeckillProductMapper seckillProductMapper;
+    private final SeckillActivityMapper seckillActivityMapper;
+    private final SeckillOrderMapper seckillOrderMapper;
+    private final OrderService orderService;
+    private final SeckillStockTxService seckillStockTxService;
+
+    /**
+     * 整批事务：包住所有订单创建与 seckill_order 多行插入
+     */
+    private final TransactionTemplate batchTx;
+
+    /**
+     * 单条消息保存点：失败时回滚到保存点，不影响整批事务
+     */
+    private final TransactionTemplate itemTx;
+
+    public SeckillOrderBatchService(SeckillService seckillService,
+                                    SeckillProductMapper seckillProductMapper,
+                                    SeckillActivityMapper seckillActivityMapper,
+                                    SeckillOrderMapper seckillOrderMapper,
+                                    OrderService orderService,
+                                    SeckillStockTxService seckillStockTxService,
+                                    PlatformTransactionManager transactionManager) {
+        this.seckillService = seckillService;
+        this.seckillProductMapper = seckillProductMapper;
+        this.seckillActivityMapper = seckillActivityMapper;
+        this.seckillOrderMapper = seckillOrderMapper;
+        this.orderService = orderService;
+        this.seckillStockTxService = seckillStockTxService;
+        this.batchTx = new TransactionTemplate(transactionManager);
+        this.itemTx = new TransactionTemplate(transactionManager);
+        this.itemTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+    }
+
+    /**
+     * 批量请求项
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class BatchItem {
+        private final Integer userId;
+        private final SeckillRequestDTO request;
+        /**
+         * 是否已在入口完成 Redis 库存与用户去重预占
+         */
+        private final boolean reserved;
+    }
+
+    /**
+     * 批量处理结果（与请求项一一对应）
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class BatchResult {
+        private final Long orderId;
+        private final String errorMessage;
+
+        public boolean isSuccess() {
+            return orderId != null;
+        }
+
+        static BatchResult success(Long orderId) {
+            return new BatchResult(orderId, null);
+        }
+
+        static BatchResult failure(String errorMessage) {
+            return new BatchResult(null, errorMessage);
+        }
+    }
+
+    /**
+     * 单条请求在批处理中的上下文
+     */
+    private static class Pending {
+        final int index;
+        final BatchItem item;
+        final SeckillProduct product;
+        /**
+         * Redis 库存是否由本条请求持有（入口预占或本批 Lua 扣减成功）
+         */
+        boolean redisHeld;
+        boolean dbStockDeducted;
+        Long orderId;
+
+        Pending(int index, BatchItem item, SeckillProduct product) {
+            this.index = index;
+            this.item = item;
+            this.product = product;
+            this.redisHeld = item.isReserved();
+        }
+
+        int quantity() {
+            return item.getRequest().getQuantity();
+        }
+    }
+
+    /**
+     * 批量执行秒杀下单。
+     * 校验失败、库存不足或下单异常的请求单独失败并释放其库存，其余请求正常下单。
+     *
+     * @param items 批量请求
+     * @return 与请求顺序一致的处理结果
+     */
+    public List<BatchResult> executeBatch(List<BatchItem> items) {
+        BatchResult[] results = new BatchResult[items.size()];
+        LocalDateTime now = LocalDateTime.now();
+
+        // 1. 一次加载本批涉及的秒杀商品与活动
+        Set<Long> productIds = items.stream()
+                .map(BatchItem::getRequest)
+                .filter(Objects::nonNull)
+                .map(SeckillRequestDTO::getSeckillProductId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, SeckillProduct> products = productIds.isEmpty() ? Map.of()
+                : seckillProductMapper.selectBatchIds(productIds).stream()
+                        .collect(Collectors.toMap(SeckillProduct::getId, Function.identity()));
+        Set<Long> activityIds = products.values().stream()
+                .map(SeckillProduct::getActivityId)
+                .collect(Collectors.toSet());
+        Map<Long, SeckillActivity> activities = activityIds.isEmpty() ? Map.of()
+                : seckillActivityMapper.selectBatchIds(activityIds).stream()
+                        .collect(Collectors.toMap(SeckillActivity::getId, Function.identity()));
+
+        // 2. 一次分组查询本批用户的已支付/待支付数量
+        Map<String, int[]> userQuantities = loadUserQuantities(items, products.keySet());
+
+        // 3. 逐条校验（纯内存）并按需执行 Lua 扣减
+        List<Pending> accepted = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            BatchItem item = items.get(i);
+            SeckillRequestDTO request = item.getRequest();
+            SeckillProduct product = request != null ? products.get(request.getSeckillProductId()) : null;
+            Pending pending = new Pending(i, item, product);
+            try {
+                validate(item, product, product != null ? activities.get(product.getActivityId()) : null,
+                        userQuantities, now);
+                if (!item.isReserved()) {
+                    deductRedisStock(item, product, activities.get(product.getActivityId()), now);
+                    pending.redisHeld = true;
+                }
+                accepted.add(pending);
+            } catch (BusinessException e) {
+                results[i] = fail(pending, e.getMessage());
+            }
+        }
+
+        // 4. 按秒杀商品合并扣减数据库库存（独立短事务）
+        deductDbStock(accepted, results);
+
+        // 5. 整批事务：逐条保存点下单，最后多行插入 seckill_order
+        List<Pending> created = accepted.stream().filter(p -> results[p.index] == null).toList();
+        if (!created.isEmpty()) {
+            try {
+                batchTx.executeWithoutResult(status -> createOrders(created, results));
+                for (Pending p : created) {
+                    if (results[p.index] == null) {
+                        results[p.index] = BatchResult.success(p.orderId);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // 整批提交失败：已创建的订单随事务回滚，逐条补偿库存
+                log.error("秒杀批量下单事务失败，整批补偿库存: size={}", created.size(), e);
+                for (Pending p : created) {
+                    if (results[p.index] == null) {
+                        results[p.index] = fail(p, "秒杀失败: " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        List<BatchResult> list = new ArrayList<>(results.length);
+        for (BatchResult result : results) {
+            list.add(result);
+        }
+        return list;
+    }
+
+    /**
+     * 在整批事务内逐条创建订单；单条失败回滚到保存点并补偿库存
+     */
+    private void createOrders(List<Pending> created, BatchResult[] results) {
+        List<SeckillOrder> seckillOrders = new ArrayList<>(created.size());
+        for (Pending p : created) {
+            SeckillRequestDTO request = p.item.getRequest();
+            try {
+                Long orderId = itemTx.execute(status -> {
+                    String payMethod = request.getPaymentMethod() != null ? request.getPaymentMethod() : "ALIPAY";
+                    Map<String, Object> orderResult = orderService.directPurchase(
+                            p.item.getUserId(),
+                            request.getAddressId().intValue(),
+                            p.product.getProductId().intValue(),
+                            request.getQuantity(),
+                            null,
+                            p.product.getSkuId(),
+                            "秒杀订单",
+                            payMethod,
+                            null,
+                            BigDecimal.ZERO,
+                            0,
+                            p.product.getSeckillPrice());
+                    return ((Number) orderResult.get("orderId")).longValue();
+                });
+                p.orderId = orderId;
+                seckillOrders.add(buildSeckillOrder(p));
+            } catch (RuntimeException e) {
+                log.error("秒杀批量下单单条失败，回滚保存点并恢复库存: userId={}, seckillProductId={}",
+                        p.item.getUserId(), request.getSeckillProductId(), e);
+                results[p.index] = fail(p, "秒杀失败: " + e.getMessage());
+            }
+        }
+
+        if (!seckillOrders.isEmpty()) {
+            seckillOrderMapper.insertBatch(seckillOrders);
+            log.info("秒杀批量下单成功: count={}", seckillOrders.size());
+        }
+    }
+
+    private void validate(BatchItem item, SeckillProduct product, SeckillActivity activity,
+                          Map<String, int[]> userQuantities, LocalDateTime now) {
+        SeckillRequestDTO request = item.getRequest();
+        if (request == null || request.getSeckillProductId() == null || request.getQuantity() == null
+                || request.getQuantity() <= 0 || request.getAddressId() == null) {
+            throw new BusinessException("秒杀参数不合法");
+        }
+        if (product == null) {
+            throw new BusinessException("秒杀商品不存在");
+        }
+        if (activity == null || activity.getStatus() == null || activity.getStatus() != 1
+                || now.isBefore(activity.getStartTime()) || now.isAfter(activity.getEndTime())) {
+            throw new BusinessException("秒杀活动未开始或已结束");
+        }
+
+        int effectiveLimit = product.getLimitPerUser() != null && product.getLimitPerUser() > 0
+                ? product.getLimitPerUser() : DEFAULT_LIMIT_PER_SKU;
+        int[] quantities = userQuantities.computeIfAbsent(
+                userProductKey(item.getUserId(), product.getId()), k -> new int[2]);
+        int paidQuantity = quantities[0];
+        if (paidQuantity >= effectiveLimit) {
+            throw new BusinessException("每位用户最多可成功购买" + effectiveLimit + "件，您已达上限");
+        }
+        int remainAllowed = effectiveLimit - paidQuantity;
+        if (request.getQuantity() > remainAllowed) {
+            throw new BusinessException("当前最多还可成功购买" + remainAllowed + "件");
+        }
+        if (quantities[1] > 0) {
+            throw new BusinessException("你有待支付的秒杀订单，请先完成支付或等待超时后重试");
+        }
+        // 同批内同一用户同一商品只允许一条占位，与逐条消费时的待支付拦截一致
+        quantities[1] += request.getQuantity();
+    }
+
+    private void deductRedisStock(BatchItem item, SeckillProduct product, SeckillActivity activity,
+                                  LocalDateTime now) {
+        long remainingSeconds = Duration.between(now, activity.getEndTime()).getSeconds();
+        int luaResult = seckillService.deductStockWithLua(
+                product.getId(),
+                product.getSkuId(),
+                item.getRequest().getQuantity(),
+                item.getUserId(),
+                Math.max(remainingSeconds, 60));
+        if (luaResult == -1) {
+            throw new BusinessException("商品已售罄");
+        } else if (luaResult == -2) {
+            throw new BusinessException("您已参与过该秒杀活动");
+        } else if (luaResult == -3) {
+            throw new BusinessException("库存数据异常，请稍后重试");
+        } else if (luaResult != 1) {
+            throw new BusinessException("秒杀失败，请稍后重试");
+        }
+    }
+
+    /**
+     * 按秒杀商品合并扣减数据库库存；合并扣减失败（剩余不足整组数量）时退回逐条扣减
+     */
+    private void deductDbStock(List<Pending> accepted, BatchResult[] results) {
+        Map<Long, List<Pending>> byProduct = new LinkedHashMap<>();
+        for (Pending p : accepted) {
+            byProduct.computeIfAbsent(p.product.getId(), k -> new ArrayList<>()).add(p);
+        }
+
+        for (Map.Entry<Long, List<Pending>> entry : byProduct.entrySet()) {
+            List<Pending> group = entry.getValue();
+            int total = group.stream().mapToInt(Pending::quantity).sum();
+            if (group.size() > 1 && seckillStockTxService.deductStock(entry.getKey(), total) > 0) {
+                group.forEach(p -> p.dbStockDeducted = true);
+                continue;
+            }
+            for (Pending p : group) {
+                if (seckillStockTxService.deductStock(entry.getKey(), p.quantity()) > 0) {
+                    p.dbStockDeducted = true;
+                } else {
+                    results[p.index] = fail(p, "库存不足，秒杀失败");
+                }
+            }
+        }
+    }
+
+    private Map<String, int[]> loadUserQuantities(List<BatchItem> items, Set<Long> productIds) {
+        Set<Integer> userIds = new HashSet<>();
+        for (BatchItem item : items) {
+            if (item.getUserId() != null) {
+                userIds.add(item.getUserId());
+            }
+        }
+        Map<String, int[]> quantities = new HashMap<>();
+        if (userIds.isEmpty() || productIds.isEmpty()) {
+            return quantities;
+        }
+        for (Map<String, Object> row : seckillOrderMapper.selectUserQuantities(userIds, productIds)) {
+            String key = userProductKey(((Number) row.get("user_id")).intValue(),
+                    ((Number) row.get("seckill_product_id")).longValue());
+            quantities.put(key, new int[] {
+                    Math.max(0, ((Number) row.get("paid_quantity")).intValue()),
+                    Math.max(0, ((Number) row.get("pending_quantity")).intValue())
+            });
+        }
+        return quantities;
+    }
+
+    /**
+     * 标记失败并释放该请求持有的库存（数据库秒杀库存 + Redis 预占）
+     */
+    private BatchResult fail(Pending p, String message) {
+        if (p.dbStockDeducted) {
+            try {
+                seckillStockTxService.restoreStock(p.product.getId(), p.quantity());
+            } catch (Exception e) {
+                log.error("秒杀批量下单失败后回补数据库秒杀库存失败: userId={}, seckillProductId={}",
+                        p.item.getUserId(), p.product.getId(), e);
+            }
+            p.dbStockDeducted = false;
+        }
+        if (p.redisHeld && p.product != null) {
+            seckillService.restoreStockWithLua(p.product.getId(), p.product.getSkuId(), p.quantity(),
+                    p.item.getUserId());
+            p.redisHeld = false;
+        }
+        return BatchResult.failure(message);
+    }
+
+    private SeckillOrder buildSeckillOrder(Pending p) {
+        SeckillOrder seckillOrder = new SeckillOrder();
+        seckillOrder.setOrderId(p.orderId);
+        seckillOrder.setUserId(p.item.getUserId());
+        seckillOrder.setActivityId(p.product.getActivityId());
+        seckillOrder.setSeckillProductId(p.product.getId());
+        seckillOrder.setSkuId(p.product.getSkuId());
+        seckillOrder.setQuantity(p.quantity());
+        seckillOrder.setSeckillPrice(p.product.getSeckillPrice());
+        seckillOrder.setStatus(0);
+        return seckillOrder;
+    }
+
+    private static String userProductKey(Integer userId, Long seckillProductId) {
+        return userId + ":" + seckillProductId;
+    }
+}
@@ -22,6 +22,16 @@ public interface SeckillOrderService {
      * @return 订单ID
      */
     Long executeSeckill(Integer userId, SeckillRequestDTO request);
+
+    /**
+     * 执行已在入口完成Redis库存预占的秒杀（异步队列消费使用）
+     * 跳过Lua扣减，任何失败都会释放入口预占的库存与用户去重记录
+     *
+     * @param userId 用户ID
+     * @param request 秒杀请求
+     * @return 订单ID
+     */
+    Long executeReservedSeckill(Integer userId, SeckillRequestDTO request);
     
     /**
      * 检查用户是否可以参与秒杀
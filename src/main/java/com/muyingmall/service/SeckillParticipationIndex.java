@@ -0,0 +1,159 @@
+package com.muyingmall.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 秒杀参与索引。
+ *
+ * <p>
+ * 每个秒杀商品一个 Redis 位图 seckill:participation:{seckillProductId}，每个用户占 2 位：
+ * offset=userId*2 为待支付位，offset=userId*2+1 为已购买位。
+ * 单Key库存模式下扣减脚本原子地检查并设置待支付位；分桶库存模式下扣减前先调用 {@link #markPending}，
+ * 扣减失败时 {@link #releasePending} 撤销。超时/取消回补库存时清除待支付位，支付成功后转为已购买位；
+ * 资格判断因此只需一次 O(1) 的位读取，不再在入场热路径上对订单表做 COUNT。
+ * </p>
+ * <p>
+ * 内存约为 最大用户ID × 2 位（100 万用户约 250KB），随活动库存Key一起过期；
+ * 索引不存在时返回 {@link #MISSING}，调用方应回退到数据库统计。
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SeckillParticipationIndex {
+
+    public static final String KEY_PREFIX = "seckill:participation:";
+
+    /**
+     * 索引不存在（未预热或已过期）
+     */
+    public static final int MISSING = -1;
+
+    /**
+     * 未参与
+     */
+    public static final int NONE = 0;
+
+    /**
+     * 已购买（订单已支付）
+     */
+    public static final int PURCHASED = 1;
+
+    /**
+     * 待支付（已扣减库存，订单未支付）
+     */
+    public static final int PENDING = 2;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private DefaultRedisScript<Long> stateScript;
+    private DefaultRedisScript<Long> markPurchasedScript;
+    private DefaultRedisScript<Long> markPendingScript;
+    private DefaultRedisScript<Long> releasePendingScript;
+
+    @PostConstruct
+    public void init() {
+        stateScript = new DefaultRedisScript<>();
+        stateScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("scripts/participation_state.lua")));
+        stateScript.setResultType(Long.class);
+
+        markPurchasedScript = new DefaultRedisScript<>();
+        markPurchasedScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("scripts/participation_mark_purchased.lua")));
+        markPurchasedScript.setResultType(Long.class);
+
+        markPendingScript = new DefaultRedisScript<>();
+        markPendingScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("scripts/participation_mark_pending.lua")));
+        markPendingScript.setResultType(Long.class);
+
+        releasePendingScript = new DefaultRedisScript<>();
+        releasePendingScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("scripts/participation_release_pending.lua")));
+        releasePendingScript.setResultType(Long.class);
+    }
+
+    public static String key(Long seckillProductId) {
+        return KEY_PREFIX + seckillProductId;
+    }
+
+    /**
+     * 查询用户参与状态
+     *
+     * @return {@link #MISSING}/{@link #NONE}/{@link #PURCHASED}/{@link #PENDING}
+     */
+    public int getState(Long seckillProductId, Integer userId) {
+        if (seckillProductId == null || userId == null || userId <= 0) {
+            return MISSING;
+        }
+        try {
+            Long result = redisTemplate.execute(stateScript,
+                    Collections.singletonList(key(seckillProductId)), userId);
+            return result != null ? result.intValue() : MISSING;
+        } catch (Exception e) {
+            log.warn("读取秒杀参与索引失败: seckillProductId={}, userId={}, error={}",
+                    seckillProductId, userId, e.getMessage());
+            return MISSING;
+        }
+    }
+
+    /**
+     * 支付成功后把用户标记为已购买（清除待支付位）
+     */
+    public void markPurchased(Long seckillProductId, Integer userId) {
+        if (seckillProductId == null || userId == null || userId <= 0) {
+            return;
+        }
+        try {
+            Long result = redisTemplate.execute(markPurchasedScript,
+                    Collections.singletonList(key(seckillProductId)), userId);
+            log.debug("秒杀参与索引标记已购买: seckillProductId={}, userId={}, result={}",
+                    seckillProductId, userId, result);
+        } catch (Exception e) {
+            // 标记失败时用户仍处于待支付位，同样不能再次参与；订单表统计作为最终兜底
+            log.warn("秒杀参与索引标记已购买失败: seckillProductId={}, userId={}, error={}",
+                    seckillProductId, userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 原子地检查并标记用户待支付，供不在扣减脚本内去重的分桶库存模式使用
+     *
+     * @param expireSeconds 参与索引过期时间/秒，null 或 <= 0 时不设置
+     * @return 1 已标记，-2 用户已参与（待支付或已购买）；Redis 异常向上抛出，由扣减链路统一处理
+     */
+    public long markPending(Long seckillProductId, Integer userId, Long expireSeconds) {
+        List<String> keys = Collections.singletonList(key(seckillProductId));
+        Long result = expireSeconds != null && expireSeconds > 0
+                ? redisTemplate.execute(markPendingScript, keys, userId, expireSeconds)
+                : redisTemplate.execute(markPendingScript, keys, userId);
+        return result != null ? result : -2;
+    }
+
+    /**
+     * 清除用户待支付位（扣减失败撤销、超时/取消回补），已购买位保持不变
+     */
+    public void releasePending(Long seckillProductId, Integer userId) {
+        if (seckillProductId == null || userId == null || userId <= 0) {
+            return;
+        }
+        try {
+            redisTemplate.execute(releasePendingScript, Collections.singletonList(key(seckillProductId)), userId);
+        } catch (Exception e) {
+            // 残留的待支付位只会让该用户在本场活动内无法再次参与，随索引Key过期清除
+            log.warn("清除秒杀参与索引待支付位失败: seckillProductId={}, userId={}, error={}",
+                    seckillProductId, userId, e.getMessage());
+        }
+    }
+}
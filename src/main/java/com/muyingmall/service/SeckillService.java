@@ -13,6 +13,24 @@ public interface SeckillService {
      */
     void initSeckillStock(Long skuId, Integer stock);
 
+    /**
+     * 按指定分桶数初始化秒杀库存到Redis
+     * 分桶数大于1时库存均分到 seckill:stock:{skuId}:b{i}，扣减时按用户哈希选择首选桶
+     *
+     * @param skuId       SKU ID
+     * @param stock       库存数量
+     * @param bucketCount 分桶数（0/1表示不分桶）
+     */
+    void initSeckillStock(Long skuId, Integer stock, int bucketCount);
+
+    /**
+     * 获取SKU当前的库存分桶数
+     *
+     * @param skuId SKU ID
+     * @return 分桶数，未分桶返回1
+     */
+    int getStockBucketCount(Long skuId);
+
     /**
      * Redis预减库存
      * 
@@ -31,7 +49,7 @@ public interface SeckillService {
     void restoreRedisStock(Long skuId, Integer quantity);
 
     /**
-     * 获取Redis中的库存
+     * 获取Redis中的库存（分桶模式下为所有分桶之和）
      * 
      * @param skuId SKU ID
      * @return 库存数量，不存在返回null
@@ -0,0 +1,232 @@
+package com.muyingmall.service;
+
+import com.muyingmall.entity.ProductSku;
+import com.muyingmall.mapper.ProductSkuMapper;
+import com.muyingmall.mapper.SeckillProductMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 秒杀库存对账服务。
+ *
+ * <p>
+ * SCAN 收集库存Key，按批 MGET 取值（分桶Key按SKU聚合），再按批查询 seckill_product 中未结束活动的秒杀库存作为基准：
+ * 与基准一致（容差内）的SKU用一条 CASE 语句批量写回 product_sku.stock；存在偏差或没有基准的SKU不覆盖，
+ * 偏差通过指标上报，交由人工或后续流程处理。
+ * </p>
+ */
+@Slf4j
+@Service
+public class SeckillStockReconcileService {
+
+    static final String SECKILL_STOCK_KEY = "seckill:stock:";
+    private static final String STOCK_BUCKET_SUFFIX = ":b";
+
+    /**
+     * 每批处理的Key/SKU数量：一次 MGET、一次基准查询、一条 CASE 更新
+     */
+    static final int CHUNK_SIZE = 500;
+
+    /**
+     * 单次对账日志中最多列出的偏差SKU数
+     */
+    private static final int DRIFT_SAMPLE_LIMIT = 20;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ProductSkuMapper productSkuMapper;
+    private final SeckillProductMapper seckillProductMapper;
+
+    private final AtomicLong lastDriftedSkus = new AtomicLong();
+    private final AtomicLong lastTotalDrift = new AtomicLong();
+    private final Counter syncedCounter;
+    private final Counter driftedCounter;
+    private final Timer reconcileTimer;
+
+    /**
+     * 允许的偏差（件）：在途订单会造成 Redis 先于数据库扣减的短暂偏差
+     */
+    @Value("${seckill.reconcile.drift-tolerance:0}")
+    private int driftTolerance;
+
+    public SeckillStockReconcileService(RedisTemplate<String, Object> redisTemplate,
+                                        ProductSkuMapper productSkuMapper,
+                                        SeckillProductMapper seckillProductMapper,
+                                        MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.productSkuMapper = productSkuMapper;
+        this.seckillProductMapper = seckillProductMapper;
+
+        Gauge.builder("seckill.stock.drift.skus", lastDriftedSkus, AtomicLong::get)
+                .description("最近一次对账中Redis与秒杀库存存在偏差的SKU数")
+                .register(meterRegistry);
+        Gauge.builder("seckill.stock.drift.total", lastTotalDrift, AtomicLong::get)
+                .description("最近一次对账的偏差绝对值之和（件）")
+                .register(meterRegistry);
+        this.syncedCounter = Counter.builder("seckill.stock.reconcile.synced")
+                .description("对账写回数据库的SKU数")
+                .register(meterRegistry);
+        this.driftedCounter = Counter.builder("seckill.stock.reconcile.drifted")
+                .description("对账发现偏差的SKU数")
+                .register(meterRegistry);
+        this.reconcileTimer = Timer.builder("seckill.stock.reconcile.duration")
+                .description("秒杀库存对账耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 对账结果
+     */
+    @Getter
+    public static class ReconcileResult {
+        private int scannedSkus;
+        private int syncedSkus;
+        private int driftedSkus;
+        private int unmatchedSkus;
+        private long totalDrift;
+        private final List<Map<String, Object>> driftSamples = new ArrayList<>();
+    }
+
+    /**
+     * 执行一次对账
+     *
+     * @return 对账结果
+     */
+    public ReconcileResult reconcile() {
+        return reconcileTimer.record(this::doReconcile);
+    }
+
+    private ReconcileResult doReconcile() {
+        Map<Long, Integer> redisStocks = loadRedisStocks();
+        ReconcileResult result = new ReconcileResult();
+        result.scannedSkus = redisStocks.size();
+
+        List<Long> skuIds = new ArrayList<>(redisStocks.keySet());
+        for (int from = 0; from < skuIds.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = skuIds.subList(from, Math.min(from + CHUNK_SIZE, skuIds.size()));
+            reconcileChunk(chunk, redisStocks, result);
+        }
+
+        lastDriftedSkus.set(result.driftedSkus);
+        lastTotalDrift.set(result.totalDrift);
+        syncedCounter.increment(result.syncedSkus);
+        driftedCounter.increment(result.driftedSkus);
+
+        if (result.driftedSkus > 0) {
+            log.warn("秒杀库存对账发现偏差: driftedSkus={}, totalDrift={}, samples={}",
+                    result.driftedSkus, result.totalDrift, result.driftSamples);
+        }
+        log.info("秒杀库存对账完成: scanned={}, synced={}, drifted={}, unmatched={}",
+                result.scannedSkus, result.syncedSkus, result.driftedSkus, result.unmatchedSkus);
+        return result;
+    }
+
+    /**
+     * SCAN 收集库存Key，每攒满一批执行一次 MGET，分桶Key按SKU聚合
+     */
+    private Map<Long, Integer> loadRedisStocks() {
+        Map<Long, Integer> stocks = new LinkedHashMap<>();
+        List<String> batch = new ArrayList<>(CHUNK_SIZE);
+        try (Cursor<String> cursor = redisTemplate.scan(
+                ScanOptions.scanOptions().match(SECKILL_STOCK_KEY + "*").count(CHUNK_SIZE).build())) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= CHUNK_SIZE) {
+                    collect(batch, stocks);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            collect(batch, stocks);
+        }
+        return stocks;
+    }
+
+    private void collect(List<String> keys, Map<Long, Integer> stocks) {
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        if (values == null) {
+            return;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            Long skuId = parseSkuId(keys.get(i));
+            Object value = values.get(i);
+            if (skuId != null && value instanceof Number number) {
+                stocks.merge(skuId, number.intValue(), Integer::sum);
+            }
+        }
+    }
+
+    private void reconcileChunk(List<Long> skuIds, Map<Long, Integer> redisStocks, ReconcileResult result) {
+        Map<Long, Integer> expected = new HashMap<>();
+        for (Map<String, Object> row : seckillProductMapper.selectSeckillStockBySkuIds(skuIds)) {
+            expected.put(((Number) row.get("sku_id")).longValue(), ((Number) row.get("seckill_stock")).intValue());
+        }
+
+        List<ProductSku> updates = new ArrayList<>();
+        for (Long skuId : skuIds) {
+            int redisStock = redisStocks.get(skuId);
+            Integer dbStock = expected.get(skuId);
+            if (dbStock == null) {
+                // 没有进行中/未开始的秒杀商品引用该SKU，无法判断，保持数据库原值
+                result.unmatchedSkus++;
+                continue;
+            }
+            int drift = redisStock - dbStock;
+            if (Math.abs(drift) > driftTolerance) {
+                result.driftedSkus++;
+                result.totalDrift += Math.abs(drift);
+                if (result.driftSamples.size() < DRIFT_SAMPLE_LIMIT) {
+                    Map<String, Object> sample = new LinkedHashMap<>();
+                    sample.put("skuId", skuId);
+                    sample.put("redisStock", redisStock);
+                    sample.put("seckillStock", dbStock);
+                    sample.put("drift", drift);
+                    result.driftSamples.add(sample);
+                }
+                continue;
+            }
+            ProductSku sku = new ProductSku();
+            sku.setSkuId(skuId);
+            sku.setStock(redisStock);
+            updates.add(sku);
+        }
+
+        if (!updates.isEmpty()) {
+            productSkuMapper.batchUpdateStock(updates);
+            result.syncedSkus += updates.size();
+        }
+    }
+
+    /**
+     * 从库存Key中解析SKU ID，兼容分桶后缀 seckill:stock:{skuId}:b{i}
+     */
+    static Long parseSkuId(String key) {
+        String skuIdStr = key.substring(SECKILL_STOCK_KEY.length());
+        int bucketIndex = skuIdStr.indexOf(STOCK_BUCKET_SUFFIX);
+        if (bucketIndex > 0) {
+            skuIdStr = skuIdStr.substring(0, bucketIndex);
+        }
+        try {
+            return Long.parseLong(skuIdStr);
+        } catch (NumberFormatException e) {
+            log.warn("无法解析库存Key中的SKU ID: key={}", key);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.muyingmall.service;
+
+import com.muyingmall.config.RabbitMQSeckillConfig;
+import com.muyingmall.websocket.SeckillWebSocket;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 秒杀排队室服务。
+ *
+ * <p>
+ * 开启后，用户需先取号（Redis 计数器单调发号），只有号码落入准入窗口（号码 <= 准入游标）的用户
+ * 才能进入秒杀扣减链路；号码一号一用，准入成功（预占库存或下单成功）后才被消费，
+ * 售罄、系统繁忙等失败不消耗号码。
+ * 准入游标由定时任务按消费端实际吞吐推进：每个周期可放行的数量 = 吞吐 × (周期 + 目标排队时延) − 队列积压，
+ * 积压越多放行越少，消费端空闲时放行量随实测吞吐逐步放大。
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SeckillWaitingRoomService {
+
+    private static final String TICKET_KEY = "seckill:room:ticket:";
+    private static final String QUEUE_KEY = "seckill:room:queue:";
+    private static final String ADMIT_KEY = "seckill:room:admit:";
+    private static final String ACTIVE_ROOMS_KEY = "seckill:room:active";
+    private static final String PROCESSED_KEY = "seckill:room:processed";
+    private static final String METER_KEY = "seckill:room:meter";
+    private static final String ADVANCE_LOCK_KEY = "seckill:room:advance-lock";
+
+    /**
+     * 吞吐平滑系数（EWMA）
+     */
+    private static final double RATE_ALPHA = 0.3;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RabbitTemplate rabbitTemplate;
+
+    @Getter
+    @Value("${seckill.waiting-room.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 尚未测得吞吐时的保底放行速率（人/秒）
+     */
+    @Value("${seckill.waiting-room.min-rate:20}")
+    private double minRate;
+
+    /**
+     * 目标排队时延（秒）：允许消息队列中积压约该时长的消费量
+     */
+    @Value("${seckill.waiting-room.target-latency-seconds:2}")
+    private double targetLatencySeconds;
+
+    @Value("${seckill.waiting-room.advance-interval-ms:1000}")
+    private long advanceIntervalMs;
+
+    @Value("${seckill.waiting-room.ttl-seconds:7200}")
+    private long ttlSeconds;
+
+    private DefaultRedisScript<Long> enterScript;
+    private DefaultRedisScript<Long> checkScript;
+    private DefaultRedisScript<Long> consumeScript;
+    private DefaultRedisScript<Long> statusScript;
+
+    /**
+     * 排队状态
+     * position 为准入游标之后、本号码之前（含自身）仍在排队的号码数：已消费的号码不计入，
+     * 取号后放弃排队的号码在过期前仍计入，因此是实际等待人数的上界
+     */
+    @Getter
+    public static class QueueStatus {
+        private final String ticket;
+        private final long position;
+        private final long estimatedWaitSeconds;
+
+        public QueueStatus(String ticket, long position, long estimatedWaitSeconds) {
+            this.ticket = ticket;
+            this.position = position;
+            this.estimatedWaitSeconds = estimatedWaitSeconds;
+        }
+
+        public boolean isAdmitted() {
+            return position <= 0;
+        }
+    }
+
+    @PostConstruct
+    public void initLuaScripts() {
+        enterScript = new DefaultRedisScript<>();
+        enterScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("scripts/waiting_room_enter.lua")));
+        enterScript.setResultType(Long.class);
+
+        checkScript = new DefaultRedisScript<>();
+        checkScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("scripts/waiting_room_check.lua")));
+        checkScript.setResultType(Long.class);
+
+        consumeScript = new DefaultRedisScript<>();
+        consumeScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("scripts/waiting_room_consume.lua")));
+        consumeScript.setResultType(Long.class);
+
+        statusScript = new DefaultRedisScript<>();
+        statusScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("scripts/waiting_room_status.lua")));
+        statusScript.setResultType(Long.class);
+    }
+
+    /**
+     * 取号：同一用户重复取号返回原号码
+     *
+     * @param userId           用户ID
+     * @param seckillProductId 秒杀商品ID
+     * @return 排队状态
+     */
+    public QueueStatus enter(Integer userId, Long seckillProductId) {
+        Long ticket = redisTemplate.execute(enterScript,
+                Arrays.asList(TICKET_KEY + seckillProductId, QUEUE_KEY + seckillProductId, ACTIVE_ROOMS_KEY),
+                userId, seckillProductId, ttlSeconds);
+        long number = ticket != null ? ticket : 0;
+        log.debug("秒杀排队取号: userId={}, seckillProductId={}, ticket={}", userId, seckillProductId, number);
+        QueueStatus status = status(userId, seckillProductId, number);
+        return status != null ? status : new QueueStatus(seckillProductId + "-" + number, 0, 0);
+    }
+
+    /**
+     * 查询用户本人号码的排队位置
+     *
+     * @param userId 用户ID
+     * @param ticket 号码（格式：{seckillProductId}-{number}）
+     * @return 排队状态；号码格式非法、不属于该用户或已被消费返回 null
+     */
+    public QueueStatus getStatus(Integer userId, String ticket) {
+        int index = ticket != null ? ticket.lastIndexOf('-') : -1;
+        if (index <= 0) {
+            return null;
+        }
+        try {
+            Long seckillProductId = Long.parseLong(ticket.substring(0, index));
+            long number = Long.parseLong(ticket.substring(index + 1));
+            return status(userId, seckillProductId, number);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 准入检查：只判断号码是否已进入准入窗口，不消费号码
+     * 放行后的请求准入成功时调用 {@link #consumeTicket} 消费号码
+     *
+     * @return 0 已准入；大于0为前方等待人数；-1 未取号
+     */
+    public long checkAdmission(Integer userId, Long seckillProductId) {
+        Long result = redisTemplate.execute(checkScript,
+                Arrays.asList(QUEUE_KEY + seckillProductId, ADMIT_KEY + seckillProductId),
+                userId);
+        return result != null ? result : -1;
+    }
+
+    /**
+     * 消费号码（一号一用），只在准入成功后调用
+     *
+     * @return 是否由本次调用消费；false 表示号码已被同一用户的并发请求消费
+     */
+    public boolean consumeTicket(Integer userId, Long seckillProductId) {
+        Long result = redisTemplate.execute(consumeScript,
+                Collections.singletonList(QUEUE_KEY + seckillProductId), userId);
+        return result != null && result > 0;
+    }
+
+    /**
+     * 记录消费端处理的秒杀消息数，作为准入窗口推进的吞吐依据
+     */
+    public void recordProcessed(int count) {
+        if (enabled && count > 0) {
+            redisTemplate.opsForValue().increment(PROCESSED_KEY, count);
+        }
+    }
+
+    /**
+     * 推进所有活跃排队室的准入游标（由定时任务调用，多节点通过短锁保证每周期只推进一次）
+     */
+    public void advanceWindows() {
+        if (!enabled) {
+            return;
+        }
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(ADVANCE_LOCK_KEY, 1,
+                Duration.ofMillis(Math.max(advanceIntervalMs - 100, 100)));
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+
+        Set<Object> members = redisTemplate.opsForSet().members(ACTIVE_ROOMS_KEY);
+        if (members == null || members.isEmpty()) {
+            return;
+        }
+
+        // 1. 找出仍有人在等待的排队室
+        Map<Long, long[]> waitingRooms = new LinkedHashMap<>();
+        for (Object member : members) {
+            Long seckillProductId = toLong(member);
+            Long issued = toLong(redisTemplate.opsForValue().get(TICKET_KEY + seckillProductId));
+            if (issued == null) {
+                // 发号计数器已过期，排队室结束
+                redisTemplate.opsForSet().remove(ACTIVE_ROOMS_KEY, member);
+                continue;
+            }
+            Long admitted = toLong(redisTemplate.opsForValue().get(ADMIT_KEY + seckillProductId));
+            long admit = admitted != null ? admitted : 0;
+            if (issued > admit) {
+                waitingRooms.put(seckillProductId, new long[] {issued, admit});
+            }
+        }
+
+        // 2. 按实测吞吐与队列积压计算本周期放行量，在等待中的排队室间平分
+        double rate = measureThroughput();
+        double intervalSeconds = advanceIntervalMs / 1000.0;
+        long budget = computeBudget(rate, intervalSeconds, targetLatencySeconds, queueDepth());
+        if (waitingRooms.isEmpty() || budget <= 0) {
+            return;
+        }
+        long perRoom = Math.max(1, budget / waitingRooms.size());
+
+        // 3. 推进游标并通知刚被放行的用户
+        for (Map.Entry<Long, long[]> entry : waitingRooms.entrySet()) {
+            Long seckillProductId = entry.getKey();
+            long issued = entry.getValue()[0];
+            long admit = entry.getValue()[1];
+            long newAdmit = Math.min(issued, admit + perRoom);
+            redisTemplate.opsForValue().set(ADMIT_KEY + seckillProductId, newAdmit, ttlSeconds, TimeUnit.SECONDS);
+            notifyAdmitted(seckillProductId, admit, newAdmit);
+            log.debug("秒杀排队室推进: seckillProductId={}, admit={} -> {}, issued={}, rate={}",
+                    seckillProductId, admit, newAdmit, issued, rate);
+        }
+    }
+
+    /**
+     * 本周期放行量 = 吞吐 × (周期 + 目标时延) − 当前队列积压
+     * 积压超过目标时延对应的量时停止放行；消费端空闲时放行量略高于实测吞吐，使吞吐能逐步探测上升
+     */
+    static long computeBudget(double rate, double intervalSeconds, double targetLatencySeconds, long queueDepth) {
+        return Math.max(0, Math.round(rate * (intervalSeconds + targetLatencySeconds)) - queueDepth);
+    }
+
+    /**
+     * 以消费端处理计数的增量计算吞吐（EWMA平滑），不低于保底速率
+     */
+    private double measureThroughput() {
+        long now = System.currentTimeMillis();
+        Long processed = toLong(redisTemplate.opsForValue().get(PROCESSED_KEY));
+        long total = processed != null ? processed : 0;
+
+        Map<Object, Object> meter = redisTemplate.opsForHash().entries(METER_KEY);
+        Long lastTotal = toLong(meter.get("processed"));
+        Long lastAt = toLong(meter.get("at"));
+        Object lastRateValue = meter.get("rate");
+        double lastRate = lastRateValue instanceof Number number ? number.doubleValue() : minRate;
+
+        double rate = lastRate;
+        if (lastTotal != null && lastAt != null && now > lastAt && total >= lastTotal) {
+            double sample = (total - lastTotal) * 1000.0 / (now - lastAt);
+            rate = RATE_ALPHA * sample + (1 - RATE_ALPHA) * lastRate;
+        }
+        rate = Math.max(rate, minRate);
+
+        Map<String, Object> update = new LinkedHashMap<>();
+        update.put("processed", total);
+        update.put("at", now);
+        update.put("rate", rate);
+        redisTemplate.opsForHash().putAll(METER_KEY, update);
+        return rate;
+    }
+
+    private long queueDepth() {
+        try {
+            Long depth = rabbitTemplate.execute(channel -> channel.messageCount(RabbitMQSeckillConfig.SECKILL_QUEUE));
+            return depth != null ? depth : 0;
+        } catch (Exception e) {
+            log.debug("查询秒杀队列积压失败，按无积压处理: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    private void notifyAdmitted(Long seckillProductId, long fromExclusive, long toInclusive) {
+        Set<Object> users = redisTemplate.opsForZSet().rangeByScore(QUEUE_KEY + seckillProductId,
+                fromExclusive + 1, toInclusive);
+        if (users == null) {
+            return;
+        }
+        for (Object userId : users) {
+            SeckillWebSocket.sendQueueAdmitted(String.valueOf(userId), seckillProductId);
+        }
+    }
+
+    private QueueStatus status(Integer userId, Long seckillProductId, long number) {
+        Long result = redisTemplate.execute(statusScript,
+                Arrays.asList(QUEUE_KEY + seckillProductId, ADMIT_KEY + seckillProductId),
+                userId, number);
+        if (result == null || result < 0) {
+            return null;
+        }
+        long position = result;
+        Object rateValue = redisTemplate.opsForHash().get(METER_KEY, "rate");
+        double rate = rateValue instanceof Number value ? value.doubleValue() : minRate;
+        long estimatedWait = (long) Math.ceil(position / Math.max(rate, 1));
+        return new QueueStatus(seckillProductId + "-" + number, position, estimatedWait);
+    }
+
+    private static Long toLong(Object value) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value instanceof String text) {
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
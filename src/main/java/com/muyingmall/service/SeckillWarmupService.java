@@ -0,0 +1,286 @@
+package com.muyingmall.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muyingmall.cache.LocalCache;
+import com.muyingmall.cache.NodeIdentifier;
+import com.muyingmall.cache.SeckillWarmupMessage;
+import com.muyingmall.common.constants.CacheConstants;
+import com.muyingmall.dto.SeckillProductDTO;
+import com.muyingmall.entity.SeckillActivity;
+import com.muyingmall.entity.SeckillProduct;
+import com.muyingmall.mapper.SeckillActivityMapper;
+import com.muyingmall.mapper.SeckillProductMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 秒杀预热服务。
+ *
+ * <p>
+ * 在活动开始前 lead-minutes 分钟内，把库存Key、秒杀商品详情和活动数据一次性写入 Redis（单次管道），
+ * 再广播到所有节点加载进本地缓存，最后写入就绪标记；活动状态任务只在就绪后才把活动切换为进行中，
+ * 避免开抢瞬间由第一批请求回源数据库。
+ * </p>
+ * <p>
+ * 同一管道中预建各商品的参与索引位图（{@link SeckillParticipationIndex}），开抢后的资格查询不会因索引缺失回退到订单表统计。
+ * </p>
+ * <p>
+ * 活动数据是准入的依据，后台修改、启停或删除活动时由 {@link #refreshActivity} / {@link #evictActivity} 同步 Redis 副本
+ * 并广播各节点；本地缓存中的活动只保留数秒，漏收广播的节点也会很快回读 Redis。
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SeckillWarmupService {
+
+    private static final String READY_KEY = "seckill:warmup:ready:";
+    private static final String LOCK_KEY = "seckill:warmup:lock:";
+    private static final String DETAIL_KEY = "seckill:warmup:detail:";
+    private static final String ACTIVITY_KEY = "seckill:warmup:activity:";
+
+    /**
+     * 预热数据在活动结束后的额外保留时间（秒）
+     */
+    private static final long RETAIN_AFTER_END_SECONDS = 3600;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final SeckillActivityMapper seckillActivityMapper;
+    private final SeckillProductMapper seckillProductMapper;
+    private final SeckillService seckillService;
+    private final LocalCache localCache;
+    private final NodeIdentifier nodeIdentifier;
+    private final ObjectMapper objectMapper;
+
+    @Getter
+    @Value("${seckill.warmup.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 提前预热的分钟数
+     */
+    @Value("${seckill.warmup.lead-minutes:5}")
+    private long leadMinutes;
+
+    /**
+     * 本地缓存时长（秒），需覆盖提前量与开抢高峰
+     */
+    @Value("${seckill.warmup.local-ttl-seconds:900}")
+    private long localTtlSeconds;
+
+    /**
+     * 活动数据的本地缓存时长（秒），取值较短，活动被修改后漏收广播的节点也只会短暂使用旧数据
+     */
+    @Value("${seckill.warmup.activity-local-ttl-seconds:5}")
+    private long activityLocalTtlSeconds;
+
+    /**
+     * 预热即将开始（或已开始但尚未就绪）的活动
+     *
+     * @return 本次完成预热的活动数
+     */
+    public int warmupUpcoming() {
+        if (!enabled) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LambdaQueryWrapper<SeckillActivity> wrapper = new LambdaQueryWrapper<>();
+        wrapper.in(SeckillActivity::getStatus, 0, 1)
+               .le(SeckillActivity::getStartTime, now.plusMinutes(leadMinutes))
+               .ge(SeckillActivity::getEndTime, now);
+        List<SeckillActivity> activities = seckillActivityMapper.selectList(wrapper);
+
+        int warmed = 0;
+        for (SeckillActivity activity : activities) {
+            if (isReady(activity.getId())) {
+                continue;
+            }
+            try {
+                if (warmup(activity)) {
+                    warmed++;
+                }
+            } catch (Exception e) {
+                log.error("秒杀活动预热失败: activityId={}", activity.getId(), e);
+            }
+        }
+        return warmed;
+    }
+
+    /**
+     * 预热单个活动：库存Key → 详情/活动写入 Redis → 广播加载本地缓存 → 写入就绪标记。
+     * 多节点通过短锁保证同一活动只由一个节点执行。
+     *
+     * @return 是否由本节点完成预热
+     */
+    public boolean warmup(SeckillActivity activity) {
+        Long activityId = activity.getId();
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY + activityId,
+                nodeIdentifier.getNodeId(), Duration.ofMinutes(1));
+        if (!Boolean.TRUE.equals(locked)) {
+            return false;
+        }
+
+        // 1. 库存Key：已存在说明已初始化或已开卖，不能覆盖
+        List<SeckillProduct> products = seckillProductMapper.selectList(
+                new LambdaQueryWrapper<SeckillProduct>().eq(SeckillProduct::getActivityId, activityId));
+        int buckets = activity.getStockBuckets() != null ? activity.getStockBuckets() : 1;
+        for (SeckillProduct product : products) {
+            if (seckillService.getRedisStock(product.getSkuId()) == null) {
+                seckillService.initSeckillStock(product.getSkuId(), product.getSeckillStock(), buckets);
+            }
+        }
+
+        // 2. 详情、活动数据与参与索引单次管道写入 Redis
+        List<SeckillProductDTO> details = seckillProductMapper.selectSeckillProductsByActivity(activityId);
+        long ttlSeconds = Math.max(Duration.between(LocalDateTime.now(), activity.getEndTime()).getSeconds(), 0)
+                + RETAIN_AFTER_END_SECONDS;
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                ops.opsForValue().set(ACTIVITY_KEY + activityId, activity, ttlSeconds, TimeUnit.SECONDS);
+                for (SeckillProductDTO detail : details) {
+                    ops.opsForValue().set(DETAIL_KEY + detail.getId(), detail, ttlSeconds, TimeUnit.SECONDS);
+                    // offset 0 对应不存在的用户0，仅用于创建Key
+                    String participationKey = SeckillParticipationIndex.key(detail.getId());
+                    ops.opsForValue().setBit(participationKey, 0, false);
+                    ops.expire(participationKey, ttlSeconds, TimeUnit.SECONDS);
+                }
+                return null;
+            }
+        });
+
+        // 3. 本节点直接写本地缓存，其他节点收到广播后从 Redis 加载
+        List<Long> seckillProductIds = new ArrayList<>(details.size());
+        localCache.put(activityLocalTtlSeconds, ACTIVITY_KEY + activityId, activity);
+        for (SeckillProductDTO detail : details) {
+            seckillProductIds.add(detail.getId());
+            localCache.put(localTtlSeconds, DETAIL_KEY + detail.getId(), detail);
+        }
+        publish(new SeckillWarmupMessage(activityId, seckillProductIds, nodeIdentifier.getNodeId()));
+
+        // 4. 就绪标记
+        redisTemplate.opsForValue().set(READY_KEY + activityId, System.currentTimeMillis(),
+                ttlSeconds, TimeUnit.SECONDS);
+        log.info("秒杀活动预热完成: activityId={}, startTime={}, products={}",
+                activityId, activity.getStartTime(), seckillProductIds.size());
+        return true;
+    }
+
+    /**
+     * 活动是否已完成预热（未开启预热时视为就绪）
+     */
+    public boolean isReady(Long activityId) {
+        return !enabled || Boolean.TRUE.equals(redisTemplate.hasKey(READY_KEY + activityId));
+    }
+
+    /**
+     * 活动状态切换或被修改后刷新预热的活动数据（过期时间按最新结束时间重算），并通知其他节点重新加载
+     */
+    public void refreshActivity(SeckillActivity activity) {
+        if (!enabled || !isReady(activity.getId())) {
+            return;
+        }
+        long ttlSeconds = Math.max(Duration.between(LocalDateTime.now(), activity.getEndTime()).getSeconds(), 0)
+                + RETAIN_AFTER_END_SECONDS;
+        redisTemplate.opsForValue().set(ACTIVITY_KEY + activity.getId(), activity, ttlSeconds, TimeUnit.SECONDS);
+        localCache.put(activityLocalTtlSeconds, ACTIVITY_KEY + activity.getId(), activity);
+        publish(new SeckillWarmupMessage(activity.getId(), List.of(), nodeIdentifier.getNodeId()));
+    }
+
+    /**
+     * 活动被删除后清除预热的活动数据与就绪标记，并通知其他节点清除本地缓存
+     */
+    public void evictActivity(Long activityId) {
+        if (!enabled) {
+            return;
+        }
+        redisTemplate.delete(List.of(ACTIVITY_KEY + activityId, READY_KEY + activityId));
+        localCache.evict(ACTIVITY_KEY + activityId);
+        publish(new SeckillWarmupMessage(activityId, List.of(), nodeIdentifier.getNodeId()));
+    }
+
+    /**
+     * 从 Redis 单次 MGET 加载活动与商品详情到本节点本地缓存（收到预热广播时调用），Redis 中已不存在的条目从本地缓存清除
+     */
+    public void loadLocal(Long activityId, List<Long> seckillProductIds) {
+        List<String> keys = new ArrayList<>(seckillProductIds.size() + 1);
+        keys.add(ACTIVITY_KEY + activityId);
+        for (Long seckillProductId : seckillProductIds) {
+            keys.add(DETAIL_KEY + seckillProductId);
+        }
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        if (values == null) {
+            return;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            if (values.get(i) == null) {
+                localCache.evict(keys.get(i));
+            } else {
+                localCache.put(ttlOf(keys.get(i)), keys.get(i), values.get(i));
+            }
+        }
+    }
+
+    /**
+     * 读取预热的秒杀商品详情：本地缓存 → Redis，未预热返回 null
+     */
+    public SeckillProductDTO getProductDetail(Long seckillProductId) {
+        Object value = getWarm(DETAIL_KEY + seckillProductId);
+        return value instanceof SeckillProductDTO detail ? detail : null;
+    }
+
+    /**
+     * 读取预热的活动数据：本地缓存 → Redis，未预热返回 null
+     */
+    public SeckillActivity getActivity(Long activityId) {
+        Object value = getWarm(ACTIVITY_KEY + activityId);
+        return value instanceof SeckillActivity activity ? activity : null;
+    }
+
+    private Object getWarm(String key) {
+        if (!enabled) {
+            return null;
+        }
+        Object value = localCache.get(key);
+        if (value == null) {
+            value = redisTemplate.opsForValue().get(key);
+            // 未预热不写本地缓存，预热完成后立即可见
+            if (value != null) {
+                localCache.put(ttlOf(key), key, value);
+            }
+        }
+        return value;
+    }
+
+    private long ttlOf(String key) {
+        return key.startsWith(ACTIVITY_KEY) ? activityLocalTtlSeconds : localTtlSeconds;
+    }
+
+    private void publish(SeckillWarmupMessage message) {
+        try {
+            stringRedisTemplate.convertAndSend(CacheConstants.SECKILL_WARMUP_CHANNEL,
+                    objectMapper.writeValueAsString(message));
+        } catch (Exception e) {
+            // 其他节点未收到广播时按 本地缓存 → Redis 回读，仍不会回源数据库
+            log.warn("发布秒杀预热消息失败: activityId={}, error={}", message.getActivityId(), e.getMessage());
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.muyingmall.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.muyingmall.annotation.Cacheable;
+import com.muyingmall.annotation.BatchCacheable;
 import com.muyingmall.common.constants.CacheConstants;
 import com.muyingmall.entity.Brand;
 import com.muyingmall.entity.Category;
@@ -26,6 +26,8 @@ import java.util.stream.Collectors;
  * 
  * 来源：性能优化 - 批量查询实现
  * 
+ * 每个ID单独缓存（@BatchCacheable）：方法体只会收到缓存未命中的ID，
+ * 用户与商品只走 Redis，每次返回新的反序列化对象，调用方可以放心修改；品牌与分类另有本地缓存
  */
 @Service
 @RequiredArgsConstructor
@@ -38,7 +40,7 @@ public class BatchQueryServiceImpl implements BatchQueryService {
     private final CategoryMapper categoryMapper;
     
     @Override
-    @Cacheable(keyPrefix = CacheConstants.USER_KEY_PREFIX + "batch:", expireTime = 1800)
+    @BatchCacheable(keyPrefix = CacheConstants.USER_BASIC_KEY, expireTime = CacheConstants.USER_EXPIRE_TIME)
     public Map<Integer, User> batchGetUsers(List<Integer> userIds) {
         if (userIds == null || userIds.isEmpty()) {
             return Collections.emptyMap();
@@ -56,7 +58,7 @@ public class BatchQueryServiceImpl implements BatchQueryService {
     }
     
     @Override
-    @Cacheable(keyPrefix = CacheConstants.PRODUCT_KEY_PREFIX + "batch:", expireTime = 1800)
+    @BatchCacheable(keyPrefix = CacheConstants.PRODUCT_BASIC_KEY, expireTime = 600)
     public Map<Integer, Product> batchGetProducts(List<Integer> productIds) {
         if (productIds == null || productIds.isEmpty()) {
             return Collections.emptyMap();
@@ -74,7 +76,7 @@ public class BatchQueryServiceImpl implements BatchQueryService {
     }
     
     @Override
-    @Cacheable(keyPrefix = CacheConstants.BRAND_KEY_PREFIX + "batch:", expireTime = 3600,
+    @BatchCacheable(keyPrefix = CacheConstants.BRAND_BASIC_KEY, expireTime = 3600,
             useLocalCache = true, localExpireSeconds = 120)
     public Map<Integer, Brand> batchGetBrands(List<Integer> brandIds) {
         if (brandIds == null || brandIds.isEmpty()) {
@@ -93,7 +95,7 @@ public class BatchQueryServiceImpl implements BatchQueryService {
     }
     
     @Override
-    @Cacheable(keyPrefix = CacheConstants.CATEGORY_KEY_PREFIX + "batch:", expireTime = 3600,
+    @BatchCacheable(keyPrefix = CacheConstants.CATEGORY_BASIC_KEY, expireTime = 3600,
             useLocalCache = true, localExpireSeconds = 120)
     public Map<Integer, Category> batchGetCategories(List<Integer> categoryIds) {
         if (categoryIds == null || categoryIds.isEmpty()) {
@@ -3,6 +3,8 @@ package com.muyingmall.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.muyingmall.cache.BatchCacheLoader;
+import com.muyingmall.cache.CacheNamespaces;
 import com.muyingmall.common.constants.CacheConstants;
 import com.muyingmall.entity.Brand;
 import com.muyingmall.mapper.BrandMapper;
@@ -10,12 +12,10 @@ import com.muyingmall.service.BrandService;
 import com.muyingmall.util.RedisUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
-import java.util.Set;
 
 /**
  * 品牌服务实现类
@@ -26,7 +26,8 @@ import java.util.Set;
 public class BrandServiceImpl extends ServiceImpl<BrandMapper, Brand> implements BrandService {
 
     private final RedisUtil redisUtil;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheNamespaces cacheNamespaces;
+    private final BatchCacheLoader batchCacheLoader;
     private static final String BRAND_CACHE_KEY = "brand:";
     private static final String BRAND_LIST_KEY = BRAND_CACHE_KEY + "list:";
     private static final String BRAND_DETAIL_KEY = BRAND_CACHE_KEY + "detail:";
@@ -46,21 +47,22 @@ public class BrandServiceImpl extends ServiceImpl<BrandMapper, Brand> implements
             size = 10;
         }
 
-        // 构建缓存键
-        StringBuilder cacheKey = new StringBuilder(BRAND_LIST_KEY);
-        cacheKey.append("page_").append(page)
+        // 构建缓存键：分页条目挂在品牌列表命名空间下，写操作递增代号整体失效
+        StringBuilder keySuffix = new StringBuilder();
+        keySuffix.append("page_").append(page)
                 .append("_size_").append(size);
 
         if (StringUtils.hasText(keyword)) {
-            cacheKey.append("_keyword_").append(keyword);
+            keySuffix.append("_keyword_").append(keyword);
         }
+        String cacheKey = cacheNamespaces.key(BRAND_LIST_KEY, keySuffix.toString());
 
         Page<Brand> result = null;
         boolean cacheError = false;
 
         try {
             // 查询缓存
-            Object cacheResult = redisUtil.get(cacheKey.toString());
+            Object cacheResult = redisUtil.get(cacheKey);
             if (cacheResult != null) {
                 log.debug("从缓存中获取品牌分页数据: {}", cacheKey);
                 try {
@@ -106,7 +108,7 @@ public class BrandServiceImpl extends ServiceImpl<BrandMapper, Brand> implements
             // 如果之前缓存出错，先清除可能损坏的缓存
             if (cacheError) {
                 try {
-                    redisUtil.del(cacheKey.toString());
+                    redisUtil.del(cacheKey);
                     log.debug("清除可能损坏的缓存: {}", cacheKey);
                 } catch (Exception ex) {
                     log.warn("清除缓存异常，忽略: {}", ex.getMessage());
@@ -115,7 +117,7 @@ public class BrandServiceImpl extends ServiceImpl<BrandMapper, Brand> implements
 
             // 缓存结果（即使之前有错误，也尝试再次缓存新结果）
             try {
-                redisUtil.set(cacheKey.toString(), result, BRAND_EXPIRE_TIME);
+                redisUtil.set(cacheKey, result, BRAND_EXPIRE_TIME);
                 log.debug("将品牌分页数据缓存到Redis: {}", cacheKey);
             } catch (Exception e) {
                 log.error("缓存品牌分页数据异常: {}", e.getMessage());
@@ -234,6 +236,7 @@ public class BrandServiceImpl extends ServiceImpl<BrandMapper, Brand> implements
             log.debug("更新品牌成功: id={}", brand.getBrandId());
             // 清除详情缓存
             redisUtil.del(BRAND_DETAIL_KEY + brand.getBrandId());
+            batchCacheLoader.evict(CacheConstants.BRAND_BASIC_KEY, brand.getBrandId());
             // 清除列表缓存
             cleanListCache();
         } else {
@@ -251,6 +254,7 @@ public class BrandServiceImpl extends ServiceImpl<BrandMapper, Brand> implements
             log.debug("删除品牌成功: id={}", id);
             // 清除详情缓存
             redisUtil.del(BRAND_DETAIL_KEY + id);
+            batchCacheLoader.evict(CacheConstants.BRAND_BASIC_KEY, id);
             // 清除列表缓存
             cleanListCache();
         } else {
@@ -260,16 +264,10 @@ public class BrandServiceImpl extends ServiceImpl<BrandMapper, Brand> implements
     }
 
     /**
-     * 清除列表缓存
+     * 清除列表缓存：递增品牌列表命名空间代号，旧分页条目随TTL过期
      */
     private void cleanListCache() {
+        cacheNamespaces.bump(BRAND_LIST_KEY);
         log.debug("清除品牌列表缓存");
-        Set<String> keys = redisUtil.keys(BRAND_LIST_KEY + "*");
-        if (!keys.isEmpty()) {
-            redisTemplate.delete(keys);
-            log.debug("清除品牌列表缓存成功: 清除键数量={}", keys.size());
-        } else {
-            log.debug("没有找到需要清除的品牌列表缓存");
-        }
     }
-}
\ No newline at end of file
+}
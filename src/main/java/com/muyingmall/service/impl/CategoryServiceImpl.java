@@ -2,15 +2,17 @@ package com.muyingmall.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.muyingmall.cache.BatchCacheLoader;
+import com.muyingmall.common.constants.CacheConstants;
 import com.muyingmall.entity.Category;
 import com.muyingmall.entity.Product;
 import com.muyingmall.mapper.CategoryMapper;
 import com.muyingmall.mapper.ProductMapper;
 import com.muyingmall.service.CategoryService;
+import com.muyingmall.util.CacheProtectionUtil;
 import com.muyingmall.util.RedisUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,7 +21,6 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -32,7 +33,8 @@ public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> i
 
     private final ProductMapper productMapper;
     private final RedisUtil redisUtil;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheProtectionUtil cacheProtectionUtil;
+    private final BatchCacheLoader batchCacheLoader;
 
     private static final String CATEGORY_CACHE_KEY = "category:";
     private static final String CATEGORY_LIST_KEY = CATEGORY_CACHE_KEY + "list";
@@ -47,57 +49,11 @@ public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> i
     public List<Category> listWithTree() {
         log.debug("获取分类树形结构");
 
-        // 尝试从缓存获取
         try {
-            Object cacheResult = redisUtil.get(CATEGORY_TREE_KEY);
-            if (cacheResult != null) {
-                log.debug("从缓存获取分类树形结构");
-                try {
-                    return (List<Category>) cacheResult;
-                } catch (ClassCastException e) {
-                    log.error("缓存数据类型转换异常: {}", e.getMessage());
-                    // 缓存数据类型错误，继续执行，从数据库查询
-                }
-            }
-        } catch (Exception e) {
-            log.error("从缓存获取分类树形结构异常: {}", e.getMessage());
-            // 缓存异常，继续执行，从数据库查询
-        }
-
-        try {
-            // 1. 查询所有分类
-            List<Category> categories = this.list();
-            if (categories == null) {
-                log.warn("未查询到任何分类数据");
-                return Collections.emptyList();
-            }
-
-            // 2. 组装成父子的树形结构
-            // 2.1 找到所有的一级分类
-            List<Category> levelOneCategories = categories.stream()
-                    .filter(category -> category.getParentId() == 0)
-                    .map(category -> {
-                        // 2.2 找到一级分类的子分类
-                        category.setChildren(getChildren(category, categories));
-                        return category;
-                    })
-                    .sorted((c1, c2) -> {
-                        // 2.3 排序
-                        return (c1.getSortOrder() == null ? 0 : c1.getSortOrder()) -
-                                (c2.getSortOrder() == null ? 0 : c2.getSortOrder());
-                    })
-                    .collect(Collectors.toList());
-
-            // 缓存结果
-            try {
-                redisUtil.set(CATEGORY_TREE_KEY, levelOneCategories, CATEGORY_EXPIRE_TIME);
-                log.debug("将分类树形结构缓存到Redis");
-            } catch (Exception e) {
-                log.error("缓存分类树形结构异常: {}", e.getMessage());
-                // 缓存失败不影响正常返回结果
-            }
-
-            return levelOneCategories;
+            // 软过期缓存：过期后先返回旧树并在后台重建，热点访问下提前刷新
+            List<Category> tree = cacheProtectionUtil.queryWithSoftTtl(CATEGORY_TREE_KEY,
+                    CacheConstants.CATEGORY_TREE_POLICY, this::buildCategoryTree);
+            return tree != null ? tree : Collections.emptyList();
         } catch (Exception e) {
             log.error("获取分类树形结构异常: {}", e.getMessage(), e);
             // 发生异常时返回空列表
@@ -105,6 +61,34 @@ public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> i
         }
     }
 
+    /**
+     * 从数据库组装分类树
+     */
+    private List<Category> buildCategoryTree() {
+        // 1. 查询所有分类
+        List<Category> categories = this.list();
+        if (categories == null) {
+            log.warn("未查询到任何分类数据");
+            return Collections.emptyList();
+        }
+
+        // 2. 组装成父子的树形结构
+        // 2.1 找到所有的一级分类
+        return categories.stream()
+                .filter(category -> category.getParentId() == 0)
+                .map(category -> {
+                    // 2.2 找到一级分类的子分类
+                    category.setChildren(getChildren(category, categories));
+                    return category;
+                })
+                .sorted((c1, c2) -> {
+                    // 2.3 排序
+                    return (c1.getSortOrder() == null ? 0 : c1.getSortOrder()) -
+                            (c2.getSortOrder() == null ? 0 : c2.getSortOrder());
+                })
+                .collect(Collectors.toList());
+    }
+
     /**
      * 递归查找所有菜单的子菜单
      */
@@ -315,8 +299,8 @@ public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> i
             boolean result = super.save(entity);
 
             if (result) {
-                // 清除缓存
-                cleanAllCache();
+                // 清除列表/树缓存；新分类ID下只可能有批量查询写入的空值标记，按ID清除即可，无需遍历键空间
+                cleanCache(entity.getCategoryId());
             }
 
             return result;
@@ -672,37 +656,6 @@ public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> i
         }
     }
 
-    /**
-     * 清除分类相关的所有缓存
-     */
-    private void cleanAllCache() {
-        log.debug("清除分类相关的所有缓存");
-
-        try {
-            // 清除分类列表缓存
-            redisUtil.del(CATEGORY_LIST_KEY);
-
-            // 清除分类树形结构缓存
-            redisUtil.del(CATEGORY_TREE_KEY);
-
-            // 清除带商品数量的分类树缓存
-            redisUtil.del(CATEGORY_TREE_WITH_COUNT_KEY);
-
-            // 清除分类商品数量映射缓存
-            redisUtil.del(CATEGORY_PRODUCT_COUNT_KEY);
-
-            // 清除所有分类详情缓存（使用SCAN替代KEYS避免阻塞Redis）
-            Set<String> keys = redisUtil.keys(CATEGORY_DETAIL_KEY + "*");
-            if (!keys.isEmpty()) {
-                redisTemplate.delete(keys);
-            }
-
-            log.debug("清除分类相关的所有缓存成功");
-        } catch (Exception e) {
-            log.error("清除分类相关的所有缓存异常: {}", e.getMessage(), e);
-        }
-    }
-
     /**
      * 清除指定分类的缓存
      *
@@ -726,6 +679,7 @@ public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> i
 
             // 清除分类详情缓存
             redisUtil.del(CATEGORY_DETAIL_KEY + id);
+            batchCacheLoader.evict(CacheConstants.CATEGORY_BASIC_KEY, id);
 
             log.debug("清除分类缓存成功: id={}", id);
         } catch (Exception e) {
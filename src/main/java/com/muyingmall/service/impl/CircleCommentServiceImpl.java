@@ -10,6 +10,7 @@ import com.muyingmall.entity.CirclePost;
 import com.muyingmall.entity.User;
 import com.muyingmall.mapper.CircleCommentMapper;
 import com.muyingmall.mapper.CirclePostMapper;
+import com.muyingmall.service.BatchQueryService;
 import com.muyingmall.service.CircleCommentService;
 import com.muyingmall.service.CircleLikeService;
 import com.muyingmall.service.CircleMessageService;
@@ -20,6 +21,7 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -36,6 +38,7 @@ public class CircleCommentServiceImpl extends ServiceImpl<CircleCommentMapper, C
     private final CirclePostMapper postMapper;
     private final UserService userService;
     private final CircleLikeService likeService;
+    private final BatchQueryService batchQueryService;
     @Lazy
     private final CircleMessageService messageService;
 
@@ -133,8 +136,7 @@ public class CircleCommentServiceImpl extends ServiceImpl<CircleCommentMapper, C
                 .forEach(c -> userIds.add(c.getReplyUserId()));
         
         // 批量查询用户
-        Map<Integer, User> userMap = userService.listByIds(userIds).stream()
-                .collect(Collectors.toMap(User::getUserId, u -> u));
+        Map<Integer, User> userMap = batchQueryService.batchGetUsers(new ArrayList<>(userIds));
         
         // 批量查询点赞状态
         List<Long> commentIds = comments.stream()
@@ -8,6 +8,7 @@ import com.muyingmall.entity.CirclePost;
 import com.muyingmall.entity.User;
 import com.muyingmall.mapper.CircleMessageMapper;
 import com.muyingmall.mapper.CirclePostMapper;
+import com.muyingmall.service.BatchQueryService;
 import com.muyingmall.service.CircleMessageService;
 import com.muyingmall.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -28,6 +29,7 @@ public class CircleMessageServiceImpl extends ServiceImpl<CircleMessageMapper, C
 
     private final UserService userService;
     private final CirclePostMapper postMapper;
+    private final BatchQueryService batchQueryService;
 
     @Override
     public void createMessage(Integer userId, Integer fromUserId, Integer type, Long targetId, String content) {
@@ -121,8 +123,7 @@ public class CircleMessageServiceImpl extends ServiceImpl<CircleMessageMapper, C
                 .collect(Collectors.toSet());
         
         // 批量查询
-        Map<Integer, User> userMap = userService.listByIds(userIds).stream()
-                .collect(Collectors.toMap(User::getUserId, u -> u));
+        Map<Integer, User> userMap = batchQueryService.batchGetUsers(new ArrayList<>(userIds));
         Map<Long, CirclePost> postMap = new HashMap<>();
         if (!postIds.isEmpty()) {
             List<CirclePost> posts = postMapper.selectBatchIds(postIds);
@@ -31,6 +31,7 @@ public class CirclePostServiceImpl extends ServiceImpl<CirclePostMapper, CircleP
     private final ProductService productService;
     private final CircleLikeService likeService;
     private final CircleFollowService followService;
+    private final BatchQueryService batchQueryService;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -156,14 +157,11 @@ public class CirclePostServiceImpl extends ServiceImpl<CirclePostMapper, CircleP
         List<Long> postIds = posts.stream().map(CirclePost::getPostId).collect(Collectors.toList());
         
         // 批量查询
-        Map<Integer, User> userMap = userService.listByIds(userIds).stream()
-                .collect(Collectors.toMap(User::getUserId, u -> u));
+        Map<Integer, User> userMap = batchQueryService.batchGetUsers(new ArrayList<>(userIds));
         Map<Integer, CircleTopic> topicMap = topicIds.isEmpty() ? new HashMap<>() :
                 topicMapper.selectBatchIds(topicIds).stream()
                         .collect(Collectors.toMap(CircleTopic::getTopicId, t -> t));
-        Map<Integer, Product> productMap = productIds.isEmpty() ? new HashMap<>() :
-                productService.listByIds(productIds).stream()
-                        .collect(Collectors.toMap(Product::getProductId, p -> p));
+        Map<Integer, Product> productMap = batchQueryService.batchGetProducts(new ArrayList<>(productIds));
         Set<Long> likedIds = likeService.getLikedPostIds(currentUserId, postIds);
         
         // 填充
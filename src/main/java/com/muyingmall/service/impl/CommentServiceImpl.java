@@ -22,6 +22,7 @@ import com.muyingmall.mapper.OrderProductMapper;
 import java.util.concurrent.TimeUnit;
 import com.muyingmall.mapper.ProductMapper;
 import com.muyingmall.mapper.UserMapper;
+import com.muyingmall.service.BatchQueryService;
 import com.muyingmall.service.CommentService;
 import com.muyingmall.service.CommentTagService;
 import com.muyingmall.service.CommentRewardConfigService;
@@ -65,6 +66,7 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
     private final CommentTagService commentTagService;
     private final CommentRewardConfigService commentRewardConfigService;
     private final RedisUtil redisUtil;
+    private final BatchQueryService batchQueryService;
     
     // 评论缓存键前缀和过期时间
     private static final String COMMENT_CACHE_PREFIX = "comment:product:";
@@ -218,10 +220,7 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
                     .collect(Collectors.toList());
 
             if (!userIds.isEmpty()) {
-                List<User> users = userMapper.selectList(new LambdaQueryWrapper<User>()
-                        .in(User::getUserId, userIds));
-                Map<Integer, User> userMap = users.stream()
-                        .collect(Collectors.toMap(User::getUserId, user -> user));
+                Map<Integer, User> userMap = batchQueryService.batchGetUsers(userIds);
 
                 records.forEach(comment -> {
                     if (comment.getIsAnonymous() == 0 && userMap.containsKey(comment.getUserId())) {
@@ -267,10 +266,7 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
                     .map(Comment::getProductId)
                     .collect(Collectors.toList());
 
-            List<Product> products = productMapper.selectList(new LambdaQueryWrapper<Product>()
-                    .in(Product::getProductId, productIds));
-            Map<Integer, Product> productMap = products.stream()
-                    .collect(Collectors.toMap(Product::getProductId, product -> product));
+            Map<Integer, Product> productMap = batchQueryService.batchGetProducts(productIds);
 
             records.forEach(comment -> {
                 if (productMap.containsKey(comment.getProductId())) {
@@ -315,10 +311,7 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
                     .map(Comment::getProductId)
                     .collect(Collectors.toList());
 
-            List<Product> products = productMapper.selectList(new LambdaQueryWrapper<Product>()
-                    .in(Product::getProductId, productIds));
-            Map<Integer, Product> productMap = products.stream()
-                    .collect(Collectors.toMap(Product::getProductId, product -> product));
+            Map<Integer, Product> productMap = batchQueryService.batchGetProducts(productIds);
 
             records.forEach(comment -> {
                 if (productMap.containsKey(comment.getProductId())) {
@@ -480,17 +473,8 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
                     .collect(Collectors.toList());
 
             // 批量查询用户和商品
-            List<User> users = userMapper.selectList(new LambdaQueryWrapper<User>()
-                    .in(User::getUserId, userIds));
-            List<Product> products = productMapper.selectList(new LambdaQueryWrapper<Product>()
-                    .in(Product::getProductId, productIds));
-
-            // 创建映射
-            Map<Integer, User> userMap = users.stream()
-                    .collect(Collectors.toMap(User::getUserId, user -> user));
-
-            Map<Integer, Product> productMap = products.stream()
-                    .collect(Collectors.toMap(Product::getProductId, product -> product));
+            Map<Integer, User> userMap = batchQueryService.batchGetUsers(userIds);
+            Map<Integer, Product> productMap = batchQueryService.batchGetProducts(productIds);
 
             // 填充关联数据
             records.forEach(comment -> {
@@ -710,10 +694,7 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
                     .distinct()
                     .collect(Collectors.toList());
 
-            List<Product> products = productMapper.selectList(new LambdaQueryWrapper<Product>()
-                    .in(Product::getProductId, productIds));
-            Map<Integer, Product> productMap = products.stream()
-                    .collect(Collectors.toMap(Product::getProductId, product -> product));
+            Map<Integer, Product> productMap = batchQueryService.batchGetProducts(productIds);
 
             records.forEach(comment -> {
                 if (productMap.containsKey(comment.getProductId())) {
@@ -1028,10 +1009,7 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
                 .map(Comment::getProductId)
                 .collect(Collectors.toList());
 
-        List<Product> products = productMapper.selectList(new LambdaQueryWrapper<Product>()
-                .in(Product::getProductId, productIds));
-        Map<Integer, Product> productMap = products.stream()
-                .collect(Collectors.toMap(Product::getProductId, product -> product));
+        Map<Integer, Product> productMap = batchQueryService.batchGetProducts(productIds);
 
         comments.forEach(comment -> {
             if (productMap.containsKey(comment.getProductId())) {
@@ -2,6 +2,7 @@
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.muyingmall.cache.CacheNamespaces;
 import com.muyingmall.common.constants.CacheConstants;
 import com.muyingmall.common.exception.BusinessException;
 import com.muyingmall.entity.Coupon;
@@ -38,6 +39,7 @@ public class CouponServiceImpl extends ServiceImpl<CouponMapper, Coupon> impleme
     private final UserCouponMapper userCouponMapper;
     private final ProductMapper productMapper;
     private final RedisUtil redisUtil;
+    private final CacheNamespaces cacheNamespaces;
 
     @Override
     @SuppressWarnings("unchecked")
@@ -106,7 +108,8 @@ public class CouponServiceImpl extends ServiceImpl<CouponMapper, Coupon> impleme
     @SuppressWarnings("unchecked")
     public List<UserCoupon> getUserCoupons(Integer userId, String status) {
         // 构建缓存键
-        String cacheKey = CacheConstants.USER_COUPON_LIST_KEY + userId + ":" + (status != null ? status : "all");
+        String cacheKey = cacheNamespaces.key(CacheConstants.USER_COUPON_LIST_KEY + userId + ":",
+                status != null ? status : "all");
         
         // 尝试从缓存获取
         Object cached = redisUtil.get(cacheKey);
@@ -529,9 +532,8 @@ public class CouponServiceImpl extends ServiceImpl<CouponMapper, Coupon> impleme
         if (userId == null) {
             return;
         }
-        // 使用 SCAN 替代 KEYS，避免生产环境 Redis 阻塞
-        String pattern = CacheConstants.USER_COUPON_LIST_KEY + userId + ":*";
-        redisUtil.deleteByScan(pattern);
+        // 递增命名空间代号，所有状态的列表缓存随之失效，无需扫描键空间
+        cacheNamespaces.bump(CacheConstants.USER_COUPON_LIST_KEY + userId + ":");
         log.debug("清除用户优惠券缓存: userId={}", userId);
     }
 }
\ No newline at end of file
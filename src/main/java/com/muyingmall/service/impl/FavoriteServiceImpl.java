@@ -2,6 +2,7 @@ package com.muyingmall.service.impl;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.muyingmall.cache.CacheNamespaces;
 import com.muyingmall.common.constants.CacheConstants;
 import com.muyingmall.common.exception.BusinessException;
 import com.muyingmall.entity.Favorite;
@@ -18,7 +19,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -31,12 +31,14 @@ public class FavoriteServiceImpl extends ServiceImpl<FavoriteMapper, Favorite> i
 
     private final ProductService productService;
     private final RedisUtil redisUtil;
+    private final CacheNamespaces cacheNamespaces;
 
     @Override
     @SuppressWarnings("unchecked")
     public Page<Favorite> getUserFavorites(Integer userId, int page, int pageSize) {
         // 构建缓存键
-        String cacheKey = CacheConstants.USER_FAVORITE_LIST_KEY + userId + ":p" + page + "_s" + pageSize;
+        String cacheKey = cacheNamespaces.key(CacheConstants.USER_FAVORITE_LIST_KEY + userId + ":",
+                "p" + page + "_s" + pageSize);
         
         // 尝试从缓存获取
         long startTime = System.currentTimeMillis();
@@ -215,12 +217,8 @@ public class FavoriteServiceImpl extends ServiceImpl<FavoriteMapper, Favorite> i
         if (userId == null) {
             return;
         }
-        // 使用模式匹配删除所有分页缓存
-        String pattern = CacheConstants.USER_FAVORITE_LIST_KEY + userId + ":*";
-        Set<String> keys = redisUtil.keys(pattern);
-        if (keys != null && !keys.isEmpty()) {
-            redisUtil.del(keys);
-        }
+        // 递增命名空间代号，所有分页缓存随之失效
+        cacheNamespaces.bump(CacheConstants.USER_FAVORITE_LIST_KEY + userId + ":");
         log.debug("清除用户收藏列表缓存: userId={}", userId);
     }
     
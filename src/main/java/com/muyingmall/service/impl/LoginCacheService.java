@@ -1,5 +1,6 @@
 package com.muyingmall.service.impl;
 
+import com.muyingmall.cache.CacheMetrics;
 import com.muyingmall.common.constants.CacheConstants;
 import com.muyingmall.entity.User;
 import com.muyingmall.util.RedisUtil;
@@ -7,6 +8,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.Set;
+
 /**
  * 登录缓存服务 - 优化登录性能
  */
@@ -16,10 +19,13 @@ import org.springframework.stereotype.Service;
 public class LoginCacheService {
 
     private final RedisUtil redisUtil;
+    private final CacheMetrics cacheMetrics;
 
     // 登录会话缓存时间：30分钟
     private static final long SESSION_EXPIRE_TIME = 1800L;
 
+    private static final String SESSION_NAMESPACE = CacheMetrics.namespaceOf(CacheConstants.USER_TOKEN_KEY);
+
     /**
      * 缓存用户登录会话
      * 
@@ -30,6 +36,9 @@ public class LoginCacheService {
         String cacheKey = CacheConstants.USER_TOKEN_KEY + token;
         // 缓存用户信息，避免每次请求都查询数据库
         redisUtil.set(cacheKey, user, SESSION_EXPIRE_TIME);
+        // 按用户记录令牌，改密码或禁用账号时无需遍历键空间即可找到该用户的全部会话
+        redisUtil.sAdd(CacheConstants.USER_TOKEN_INDEX_KEY + user.getUserId(), SESSION_EXPIRE_TIME, new Object[]{token});
+        cacheMetrics.recordPayload(SESSION_NAMESPACE, user);
         log.debug("缓存用户登录会话: userId={}, token={}...", user.getUserId(), 
                   token.length() > 10 ? token.substring(0, 10) : token);
     }
@@ -42,12 +51,15 @@ public class LoginCacheService {
      */
     public User getUserSession(String token) {
         String cacheKey = CacheConstants.USER_TOKEN_KEY + token;
+        long start = System.nanoTime();
         Object cached = redisUtil.get(cacheKey);
         if (cached instanceof User) {
+            cacheMetrics.recordL2Hit(SESSION_NAMESPACE, System.nanoTime() - start);
             log.debug("从缓存命中用户会话: token={}...", 
                       token.length() > 10 ? token.substring(0, 10) : token);
             return (User) cached;
         }
+        cacheMetrics.recordMiss(SESSION_NAMESPACE, System.nanoTime() - start);
         return null;
     }
 
@@ -62,4 +74,24 @@ public class LoginCacheService {
         log.debug("清除用户登录会话: token={}...", 
                   token.length() > 10 ? token.substring(0, 10) : token);
     }
+
+    /**
+     * 清除用户的全部登录会话
+     *
+     * @param userId 用户ID
+     */
+    public void clearUserSessions(Integer userId) {
+        if (userId == null) {
+            return;
+        }
+        String indexKey = CacheConstants.USER_TOKEN_INDEX_KEY + userId;
+        Set<Object> tokens = redisUtil.sMembers(indexKey);
+        if (tokens != null) {
+            for (Object token : tokens) {
+                redisUtil.del(CacheConstants.USER_TOKEN_KEY + token);
+            }
+        }
+        redisUtil.del(indexKey);
+        log.debug("清除用户全部登录会话: userId={}, count={}", userId, tokens == null ? 0 : tokens.size());
+    }
 }
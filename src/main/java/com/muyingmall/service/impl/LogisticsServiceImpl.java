@@ -3,6 +3,7 @@ package com.muyingmall.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.muyingmall.common.id.IdGenerator;
 import com.muyingmall.dto.logistics.LogisticsMapPointDTO;
 import com.muyingmall.entity.Logistics;
 import com.muyingmall.entity.LogisticsCompany;
@@ -22,13 +23,11 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -43,7 +42,7 @@ public class LogisticsServiceImpl extends ServiceImpl<LogisticsMapper, Logistics
     private final LogisticsCompanyService logisticsCompanyService;
     private final LogisticsTrackService logisticsTrackService;
     private final AMapService amapService;
-    private final Random random = new Random();
+    private final IdGenerator idGenerator;
 
     /**
      * 分页获取物流列表
@@ -259,7 +258,7 @@ public class LogisticsServiceImpl extends ServiceImpl<LogisticsMapper, Logistics
 
     /**
      * 生成物流单号
-     * 格式：物流公司代码（2位大写字母）+ 日期时间（12位：年月日时分秒）+ 4位随机数
+     * 格式：物流公司代码（大写）+ 19位时间有序ID，全局唯一，无需查库判重
      *
      * @param companyCode 物流公司代码
      * @return 生成的物流单号
@@ -269,38 +268,7 @@ public class LogisticsServiceImpl extends ServiceImpl<LogisticsMapper, Logistics
         if (!StringUtils.hasText(companyCode)) {
             throw new IllegalArgumentException("物流公司代码不能为空");
         }
-
-        // 获取物流公司代码（保证是大写的）
-        String code = companyCode.toUpperCase();
-
-        // 获取当前日期时间的格式化字符串
-        String dateStr = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyMMddHHmmss"));
-
-        // 生成4位随机数
-        int randomNum = random.nextInt(10000);
-        String randomStr = String.format("%04d", randomNum);
-
-        // 拼接物流单号
-        String trackingNo = code + dateStr + randomStr;
-
-        // 检查单号是否已存在，如果存在则重新生成
-        if (checkTrackingNoExists(trackingNo)) {
-            return generateTrackingNo(companyCode);
-        }
-
-        return trackingNo;
-    }
-
-    /**
-     * 检查物流单号是否已存在
-     *
-     * @param trackingNo 物流单号
-     * @return 是否存在
-     */
-    private boolean checkTrackingNoExists(String trackingNo) {
-        LambdaQueryWrapper<Logistics> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(Logistics::getTrackingNo, trackingNo);
-        return count(queryWrapper) > 0;
+        return idGenerator.nextNo(companyCode.toUpperCase());
     }
 
     /**
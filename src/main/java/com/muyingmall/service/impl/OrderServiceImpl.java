@@ -5,8 +5,10 @@ import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.muyingmall.cache.CacheNamespaces;
 import com.muyingmall.common.constants.CacheConstants;
 import com.muyingmall.common.exception.BusinessException;
+import com.muyingmall.common.id.IdGenerator;
 import com.muyingmall.dto.OrderCreateDTO;
 import com.muyingmall.entity.Cart;
 import com.muyingmall.entity.Order;
@@ -31,6 +33,7 @@ import com.muyingmall.mapper.UserAddressMapper;
 import com.muyingmall.mapper.UserMapper;
 import com.muyingmall.mapper.SeckillOrderMapper;
 import com.muyingmall.service.OrderService;
+import com.muyingmall.service.OrderTimeoutService;
 import com.muyingmall.service.PaymentService;
 import com.muyingmall.service.ProductService;
 import com.muyingmall.service.PointsService;
@@ -39,6 +42,7 @@ import com.muyingmall.service.UserCouponService;
 import com.muyingmall.service.MessageProducerService;
 import com.muyingmall.service.ProductSkuService;
 import com.muyingmall.service.SeckillOrderReleaseService;
+import com.muyingmall.service.SeckillParticipationIndex;
 import com.muyingmall.service.BatchQueryService;
 import com.muyingmall.service.AddressService;
 import com.muyingmall.entity.ProductSku;
@@ -63,6 +67,7 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -100,6 +105,10 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
     private final SeckillOrderMapper seckillOrderMapper;
     private final SeckillOrderReleaseService seckillOrderReleaseService;
     private final AddressService addressService;
+    private final SeckillParticipationIndex seckillParticipationIndex;
+    private final CacheNamespaces cacheNamespaces;
+    private final IdGenerator idGenerator;
+    private final OrderTimeoutService orderTimeoutService;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -195,6 +204,16 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         Map<Integer, Product> productMap = batchQueryService.batchGetProducts(productIds);
         log.info("批量查询商品完成，商品数量: {}", productMap.size());
 
+        // 所有购物车项的SKU一次 IN 查询
+        List<Long> skuIds = cartList.stream()
+                .map(Cart::getSkuId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, ProductSku> skuMap = skuIds.isEmpty() ? Collections.emptyMap()
+                : productSkuService.listByIds(skuIds).stream()
+                        .collect(Collectors.toMap(ProductSku::getSkuId, Function.identity()));
+
         for (Cart cart : cartList) {
             Product product = productMap.get(cart.getProductId());
             if (product == null) {
@@ -218,7 +237,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             BigDecimal itemPrice;
             if (cart.getSkuId() != null) {
                 // 有SKU，使用SKU的价格和库存
-                ProductSku sku = productSkuService.getById(cart.getSkuId());
+                ProductSku sku = skuMap.get(cart.getSkuId());
                 if (sku == null) {
                     throw new BusinessException("商品规格不存在：" + product.getProductName());
                 }
@@ -352,11 +371,11 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             throw new BusinessException(500, "创建订单失败：订单ID为null");
         }
 
-        // 保存订单商品
+        // 保存订单商品（多行插入）
         for (OrderProduct orderProduct : orderProducts) {
             orderProduct.setOrderId(order.getOrderId());
-            orderProductMapper.insert(orderProduct);
         }
+        orderProductMapper.insertBatch(orderProducts);
 
         // 扣减SKU库存（如果有）
         if (!skuStockList.isEmpty()) {
@@ -368,12 +387,19 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             log.info("订单 {} SKU库存扣减完成，共 {} 个SKU", order.getOrderNo(), skuStockList.size());
         }
 
-        // 减少商品主表库存（仅对无SKU的商品）
+        // 减少商品主表库存（仅对无SKU的商品）：同一商品合并后一条语句扣减，任一商品库存不足则整单回滚
+        Map<Integer, Integer> productQuantities = new LinkedHashMap<>();
         for (Cart cart : cartList) {
             if (cart.getSkuId() == null) {
-                productMapper.decreaseStock(cart.getProductId(), cart.getQuantity());
+                productQuantities.merge(cart.getProductId(), cart.getQuantity(), Integer::sum);
             }
         }
+        if (!productQuantities.isEmpty()
+                && productMapper.batchDecreaseStock(productQuantities) < productQuantities.size()) {
+            throw new BusinessException("商品库存不足，请刷新后重试");
+        }
+        // 库存已变化，清除批量查询的商品基础信息缓存
+        evictProductBasicCache(productIds);
 
         // 性能优化：批量清空购物车中已购买的商品，避免N次DELETE
         // 来源：N+1查询优化 - 使用批量删除替代循环单条删除
@@ -409,6 +435,9 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             }
         }
 
+        // 登记支付超时（事务提交后写入延迟队列）
+        orderTimeoutService.schedule(order.getOrderId(), order.getCreateTime());
+
         // 发送订单创建消息
         try {
             log.info("=== 开始发送订单创建消息 ===");
@@ -425,8 +454,6 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             messageProducerService.sendOrderMessage(orderMessage);
             log.info("✅ 订单创建消息发送成功: orderId={}, orderNo={}", order.getOrderId(), order.getOrderNo());
 
-            // 发送订单超时延迟消息（TTL + DLX机制，30分钟后触发超时取消）
-            messageProducerService.sendOrderTimeoutDelayMessage(order.getOrderId(), order.getOrderNo());
         } catch (Exception e) {
             // 消息发送失败不影响主流程，但需要记录日志
             log.error("❌ 订单创建消息发送失败: orderId={}, orderNo={}, error={}",
@@ -490,21 +517,21 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             return new Page<>();
         }
 
-        // 构建缓存键
-        StringBuilder cacheKey = new StringBuilder(CacheConstants.USER_ORDER_LIST_KEY);
-        cacheKey.append(userId)
-                .append("_page_").append(page)
+        // 构建缓存键（用户订单列表命名空间内，失效时整体递增代号）
+        StringBuilder cacheSuffix = new StringBuilder();
+        cacheSuffix.append("page_").append(page)
                 .append("_size_").append(size);
 
         if (StringUtils.hasText(status)) {
             // 处理status大小写问题，确保与前端匹配
             String normalizedStatus = normalizeOrderStatus(status);
-            cacheKey.append("_status_").append(normalizedStatus);
+            cacheSuffix.append("_status_").append(normalizedStatus);
         }
+        String cacheKey = cacheNamespaces.key(userOrderListNamespace(userId), cacheSuffix.toString());
 
         // 查询缓存 - 添加性能监控
         long startTime = System.currentTimeMillis();
-        Object cacheResult = redisUtil.get(cacheKey.toString());
+        Object cacheResult = redisUtil.get(cacheKey);
         if (cacheResult != null) {
             long cacheTime = System.currentTimeMillis() - startTime;
             log.info("从缓存中获取用户订单列表: userId={}, page={}, size={}, status={}, 耗时={}ms",
@@ -579,7 +606,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
 
         // 缓存结果 - 优化：延长缓存时间到5分钟（300秒）
         long cacheStartTime = System.currentTimeMillis();
-        redisUtil.set(cacheKey.toString(), orderPage, 300L);
+        redisUtil.set(cacheKey, orderPage, 300L);
         long cacheWriteTime = System.currentTimeMillis() - cacheStartTime;
 
         long totalTime = System.currentTimeMillis() - startTime;
@@ -638,6 +665,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
                 } else {
                     // 无SKU，恢复商品主表库存
                     productMapper.increaseStock(orderProduct.getProductId(), orderProduct.getQuantity());
+                    evictProductBasicCache(List.of(orderProduct.getProductId()));
                 }
             }
 
@@ -947,6 +975,8 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
                     int rows = seckillOrderMapper.updateById(seckillOrder);
 
                     if (rows > 0) {
+                        seckillParticipationIndex.markPurchased(seckillOrder.getSeckillProductId(),
+                                seckillOrder.getUserId());
                         log.info("✅ 秒杀订单状态同步成功: seckillOrderId={}, orderId={}, status: 0→1(已完成)",
                                 seckillOrder.getId(), orderId);
                     } else {
@@ -1147,14 +1177,14 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
      * 生成订单号
      */
     private String generateOrderNo() {
-        return "OD" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 6);
+        return idGenerator.nextNo("OD");
     }
 
     /**
      * 生成支付号
      */
     private String generatePaymentNo() {
-        return "PY" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 6);
+        return idGenerator.nextNo("PY");
     }
 
     /**
@@ -1245,13 +1275,21 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             clearUserOrderListCache(userId);
         }
 
-        // 清除订单统计缓存（使用SCAN替代KEYS避免阻塞Redis）
-        String orderStatsCacheKey = CacheConstants.ORDER_STATS_KEY + "*";
-        Set<String> statsKeys = redisUtil.keys(orderStatsCacheKey);
-        if (!statsKeys.isEmpty()) {
-            redisTemplate.delete(statsKeys);
-            log.info("清除订单统计缓存");
-        }
+        // 清除订单统计缓存：递增命名空间代号，旧条目随 TTL 过期
+        cacheNamespaces.bump(CacheConstants.ORDER_STATS_KEY);
+    }
+
+    /**
+     * 清除商品基础信息缓存（批量查询使用），库存变化后调用
+     *
+     * @param productIds 商品ID
+     */
+    private void evictProductBasicCache(Collection<Integer> productIds) {
+        List<String> keys = productIds.stream()
+                .filter(Objects::nonNull)
+                .map(id -> CacheConstants.PRODUCT_BASIC_KEY + id)
+                .collect(Collectors.toList());
+        redisUtil.del(keys);
     }
 
     /**
@@ -1265,15 +1303,13 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             return;
         }
 
-        // 清除用户订单列表缓存（使用SCAN替代KEYS避免阻塞Redis）
-        String userOrderListCacheKey = CacheConstants.USER_ORDER_LIST_KEY + userId + "*";
-        Set<String> keys = redisUtil.keys(userOrderListCacheKey);
-        if (!keys.isEmpty()) {
-            redisTemplate.delete(keys);
-            log.info("清除用户订单列表缓存: userId={}, 清除key数量={}", userId, keys.size());
-        } else {
-            log.info("用户订单列表缓存不存在或已清空: userId={}", userId);
-        }
+        // 递增命名空间代号即可使该用户全部分页/状态组合失效，无需扫描键空间
+        cacheNamespaces.bump(userOrderListNamespace(userId));
+        log.info("清除用户订单列表缓存: userId={}", userId);
+    }
+
+    private static String userOrderListNamespace(Integer userId) {
+        return CacheConstants.USER_ORDER_LIST_KEY + userId + ":";
     }
 
     /**
@@ -1583,8 +1619,11 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
                 productSkuService.deductStock(sku.getSkuId(), quantity, order.getOrderId(), "直接购买扣减库存");
                 log.info("订单 {} SKU库存扣减完成: skuId={}, quantity={}", order.getOrderNo(), sku.getSkuId(), quantity);
             } else {
-                // 扣减商品主表库存
-                productMapper.decreaseStockAndIncreaseSales(productId, quantity);
+                // 扣减商品主表库存，库存不足时回滚整单
+                if (productMapper.decreaseStockAndIncreaseSales(productId, quantity) == 0) {
+                    throw new BusinessException(400, "商品库存不足");
+                }
+                evictProductBasicCache(List.of(productId));
 
                 // 销量更新后，清除热门商品缓存
                 if (productService instanceof ProductServiceImpl) {
@@ -1632,6 +1671,9 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             // 清除用户订单列表缓存
             clearUserOrderListCache(userId);
 
+            // 登记支付超时（事务提交后写入延迟队列）
+            orderTimeoutService.schedule(order.getOrderId(), order.getCreateTime());
+
             // 发送订单创建消息
             try {
                 OrderMessage orderMessage = OrderMessage.createOrderEvent(
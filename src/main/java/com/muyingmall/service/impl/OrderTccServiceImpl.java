@@ -2,6 +2,7 @@ package com.muyingmall.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.muyingmall.common.id.IdGenerator;
 import com.muyingmall.dto.OrderCreateDTO;
 import com.muyingmall.dto.SkuStockDTO;
 import com.muyingmall.entity.*;
@@ -20,9 +21,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 订单TCC服务实现
@@ -59,11 +58,12 @@ public class OrderTccServiceImpl implements OrderTccService {
     private final CartMapper cartMapper;
     private final UserService userService;
     private final AddressService addressService;
+    private final IdGenerator idGenerator;
     private final ProductService productService;
     private final ProductSkuService productSkuService;
     private final SeckillService seckillService;
     private final UserCouponService userCouponService;
-    private final MessageProducerService messageProducerService;
+    private final OrderTimeoutService orderTimeoutService;
 
     private static final String ORDER_LOCK_KEY_PREFIX = "order:tcc:lock:";
     private static final long LOCK_EXPIRE_TIME = 30000; // 30秒
@@ -100,8 +100,8 @@ public class OrderTccServiceImpl implements OrderTccService {
             // Confirm阶段：确认订单
             tccTransactionManager.confirmAction(transactionId, this, params);
 
-            // 发送订单超时延迟消息
-            messageProducerService.sendOrderTimeoutDelayMessage(order.getOrderId(), order.getOrderNo());
+            // 登记支付超时
+            orderTimeoutService.schedule(order.getOrderId(), order.getCreateTime());
 
             log.info("TCC订单事务成功: transactionId={}, orderId={}", transactionId, order.getOrderId());
 
@@ -507,9 +507,7 @@ public class OrderTccServiceImpl implements OrderTccService {
      * 生成订单号
      */
     private String generateOrderNo() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS"));
-        int random = ThreadLocalRandom.current().nextInt(1000, 9999);
-        return "TCC" + timestamp + random;
+        return idGenerator.nextNo("TCC");
     }
 
     /**
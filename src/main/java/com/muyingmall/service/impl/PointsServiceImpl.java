@@ -6,6 +6,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.muyingmall.common.exception.BusinessException;
 import com.muyingmall.common.constants.CacheConstants;
+import com.muyingmall.common.id.IdGenerator;
 import com.muyingmall.entity.MemberLevel;
 import com.muyingmall.entity.Order;
 import com.muyingmall.entity.PointsExchange;
@@ -60,6 +61,7 @@ public class PointsServiceImpl extends ServiceImpl<UserPointsMapper, UserPoints>
     private final MemberLevelService memberLevelService;
     private final UserPointsMapper userPointsMapper;
     private final OrderMapper orderMapper;
+    private final IdGenerator idGenerator;
     private final UserService userService;
     private final ApplicationEventPublisher applicationEventPublisher;
     private final RedisUtil redisUtil;
@@ -580,7 +582,7 @@ public class PointsServiceImpl extends ServiceImpl<UserPointsMapper, UserPoints>
      * 生成兑换订单号
      */
     private String generateExchangeOrderNo() {
-        return "PE" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 6);
+        return idGenerator.nextNo("PE");
     }
 
     /**
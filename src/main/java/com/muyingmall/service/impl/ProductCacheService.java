@@ -1,6 +1,7 @@
 package com.muyingmall.service.impl;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.muyingmall.cache.CacheMetrics;
 import com.muyingmall.common.constants.CacheConstants;
 import com.muyingmall.entity.Product;
 import com.muyingmall.util.RedisUtil;
@@ -19,6 +20,7 @@ import java.util.List;
 public class ProductCacheService {
 
     private final RedisUtil redisUtil;
+    private final CacheMetrics cacheMetrics;
 
     // 商品详情缓存时间：5分钟
     private static final long PRODUCT_DETAIL_EXPIRE = 300L;
@@ -26,12 +28,15 @@ public class ProductCacheService {
     // 商品列表缓存时间：2分钟
     private static final long PRODUCT_LIST_EXPIRE = 120L;
 
+    private static final String DETAIL_NAMESPACE = CacheMetrics.namespaceOf(CacheConstants.PRODUCT_DETAIL_KEY);
+
     /**
      * 缓存商品详情
      */
     public void cacheProductDetail(Integer productId, Product product) {
         String key = CacheConstants.PRODUCT_DETAIL_KEY + productId;
         redisUtil.set(key, product, PRODUCT_DETAIL_EXPIRE);
+        cacheMetrics.recordPayload(DETAIL_NAMESPACE, product);
         log.debug("缓存商品详情: productId={}", productId);
     }
 
@@ -40,11 +45,14 @@ public class ProductCacheService {
      */
     public Product getProductDetail(Integer productId) {
         String key = CacheConstants.PRODUCT_DETAIL_KEY + productId;
+        long start = System.nanoTime();
         Object cached = redisUtil.get(key);
         if (cached instanceof Product) {
+            cacheMetrics.recordL2Hit(DETAIL_NAMESPACE, System.nanoTime() - start);
             log.debug("命中商品详情缓存: productId={}", productId);
             return (Product) cached;
         }
+        cacheMetrics.recordMiss(DETAIL_NAMESPACE, System.nanoTime() - start);
         return null;
     }
 
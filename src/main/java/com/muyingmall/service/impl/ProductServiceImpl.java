@@ -4,6 +4,8 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.muyingmall.cache.CacheEnvelope;
+import com.muyingmall.cache.CacheNamespaces;
 import com.muyingmall.common.constants.CacheConstants;
 import com.muyingmall.entity.Category;
 import com.muyingmall.entity.Product;
@@ -16,6 +18,7 @@ import com.muyingmall.mapper.ProductMapper;
 import com.muyingmall.mapper.ProductSkuMapper;
 import com.muyingmall.mapper.ProductSpecsMapper;
 import com.muyingmall.service.BatchQueryService;
+import com.muyingmall.service.BloomFilterService;
 import com.muyingmall.service.ProductService;
 import com.muyingmall.util.CacheProtectionUtil;
 import com.muyingmall.util.RedisUtil;
@@ -56,6 +59,8 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
     private final CategoryMapper categoryMapper;
     private final CacheProtectionUtil cacheProtectionUtil;
     private final BatchQueryService batchQueryService;
+    private final BloomFilterService bloomFilterService;
+    private final CacheNamespaces cacheNamespaces;
 
     @Override
     public Page<Product> getProductPage(int page, int size, Integer categoryId, Integer brandId, Boolean isHot, Boolean isNew,
@@ -130,40 +135,40 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
     
     /**
      * 构建商品列表缓存键
-     * 优化：使用简化的缓存键格式，提高可读性和命中率
+     * 优化：使用简化的缓存键格式，提高可读性和命中率；键挂在商品列表命名空间下，商品变更时递增代号整体失效
      */
     private String buildProductListCacheKey(int page, int size, Integer categoryId, Integer brandId, 
             Boolean isHot, Boolean isNew, Boolean isRecommend, String keyword) {
-        StringBuilder cacheKey = new StringBuilder(CacheConstants.PRODUCT_LIST_KEY);
-        cacheKey.append("p").append(page)
+        StringBuilder keySuffix = new StringBuilder();
+        keySuffix.append("p").append(page)
                 .append("_s").append(size);
 
         if (categoryId != null) {
-            cacheKey.append("_c").append(categoryId);
+            keySuffix.append("_c").append(categoryId);
         }
 
         if (brandId != null) {
-            cacheKey.append("_b").append(brandId);
+            keySuffix.append("_b").append(brandId);
         }
 
         if (isHot != null && isHot) {
-            cacheKey.append("_hot");
+            keySuffix.append("_hot");
         }
 
         if (isNew != null && isNew) {
-            cacheKey.append("_new");
+            keySuffix.append("_new");
         }
 
         if (isRecommend != null && isRecommend) {
-            cacheKey.append("_rec");
+            keySuffix.append("_rec");
         }
 
         if (StringUtils.hasText(keyword)) {
             // 对关键词进行哈希，避免缓存键过长
-            cacheKey.append("_k").append(Math.abs(keyword.hashCode()));
+            keySuffix.append("_k").append(Math.abs(keyword.hashCode()));
         }
 
-        return cacheKey.toString();
+        return cacheNamespaces.key(CacheConstants.PRODUCT_LIST_KEY, keySuffix.toString());
     }
     
     /**
@@ -189,28 +194,29 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
     public Page<Product> getProductPage(int page, int size, Integer categoryId, Integer brandId,
             String keyword, Integer status) {
         // 构建缓存键
-        StringBuilder cacheKey = new StringBuilder(CacheConstants.PRODUCT_ADMIN_LIST_KEY);
-        cacheKey.append("page_").append(page)
+        StringBuilder keySuffix = new StringBuilder();
+        keySuffix.append("page_").append(page)
                 .append("_size_").append(size);
 
         if (categoryId != null) {
-            cacheKey.append("_category_").append(categoryId);
+            keySuffix.append("_category_").append(categoryId);
         }
 
         if (brandId != null) {
-            cacheKey.append("_brand_").append(brandId);
+            keySuffix.append("_brand_").append(brandId);
         }
 
         if (StringUtils.hasText(keyword)) {
-            cacheKey.append("_keyword_").append(keyword);
+            keySuffix.append("_keyword_").append(keyword);
         }
 
         if (status != null) {
-            cacheKey.append("_status_").append(status);
+            keySuffix.append("_status_").append(status);
         }
 
-        // 查询缓存
-        Object cacheResult = redisUtil.get(cacheKey.toString());
+        // 查询缓存：管理后台列表挂在命名空间下，商品变更时整体失效
+        String cacheKey = cacheNamespaces.key(CacheConstants.PRODUCT_ADMIN_LIST_KEY, keySuffix.toString());
+        Object cacheResult = redisUtil.get(cacheKey);
         if (cacheResult != null) {
             return (Page<Product>) cacheResult;
         }
@@ -235,7 +241,7 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         // 优化：移除测试日志，减少IO开销
 
         // 缓存结果
-        redisUtil.set(cacheKey.toString(), result, CacheConstants.SHORT_EXPIRE_TIME);
+        redisUtil.set(cacheKey, result, CacheConstants.SHORT_EXPIRE_TIME);
 
         return result;
     }
@@ -262,6 +268,12 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
             return null;
         }
 
+        // 布隆过滤器判定一定不存在的ID直接返回，不访问缓存与数据库
+        if (!bloomFilterService.mightContain(BloomFilterService.PRODUCT, id)) {
+            log.debug("布隆过滤器拦截商品详情查询: productId={}", id);
+            return null;
+        }
+
         String cacheKey = CacheConstants.PRODUCT_DETAIL_KEY + id;
         String lockKey = "lock:product:detail:" + id;
 
@@ -304,6 +316,8 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         boolean result = save(product);
 
         if (result) {
+            bloomFilterService.add(BloomFilterService.PRODUCT, product.getProductId());
+
             // 如果有商品图片，保存图片
             List<ProductImage> images = product.getImages();
             if (images != null && !images.isEmpty()) {
@@ -322,8 +336,8 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
                 }
             }
 
-            // 清除缓存
-            cleanProductCache();
+            // 清除缓存：新商品ID下可能残留空值标记，列表类缓存整体失效
+            cleanProductCache(product.getProductId());
         }
 
         return result;
@@ -474,6 +488,15 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
     @SuppressWarnings("unchecked")
     private void updateProductInSpecificListCache(String cacheKey, Product product) {
         Object cacheValue = redisUtil.get(cacheKey);
+        if (cacheValue instanceof CacheEnvelope envelope) {
+            // 软过期列表由后台刷新保持一致，这里直接删除，下次读取重新加载
+            if (envelope.getValue() instanceof List<?> products
+                    && products.stream().anyMatch(p -> p instanceof Product cached
+                            && cached.getProductId().equals(product.getProductId()))) {
+                redisUtil.del(cacheKey);
+            }
+            return;
+        }
         if (cacheValue != null && cacheValue instanceof List) {
             List<Product> products = (List<Product>) cacheValue;
             for (int i = 0; i < products.size(); i++) {
@@ -504,21 +527,9 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         }
     }
 
-    /**
-     * 清除商品相关缓存
-     * 性能优化：使用SCAN替代KEYS命令，避免阻塞Redis
-     * KEYS命令会阻塞Redis单线程，生产环境可能导致性能问题
-     */
-    private void cleanProductCache() {
-        // 性能优化：使用SCAN命令替代KEYS命令，避免阻塞Redis
-        // 原代码：keys() -> 阻塞Redis直到扫描完所有键
-        // 优化后：scan() -> 游标迭代，不阻塞Redis
-        long deletedCount = redisUtil.deleteByScan(CacheConstants.PRODUCT_KEY_PREFIX + "*");
-        log.debug("清除所有商品相关缓存，共{}个键", deletedCount);
-    }
-
     /**
      * 清除指定商品的缓存
+     * 详情类缓存按ID精确删除；列表类缓存挂在带代号的命名空间下，递增代号即整体失效，无需遍历键空间
      */
     private void cleanProductCache(Integer productId) {
         if (productId == null) {
@@ -530,6 +541,9 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
             String detailKey = CacheConstants.PRODUCT_DETAIL_KEY + productId;
             redisUtil.del(detailKey);
 
+            // 删除批量查询的商品基础信息缓存
+            redisUtil.del(CacheConstants.PRODUCT_BASIC_KEY + productId);
+
             // 删除商品参数和规格缓存 - 确保前端可以获取到最新数据
             String detailWithParamsKey = "product:detail_with_params:" + productId;
             redisUtil.del(detailWithParamsKey);
@@ -541,44 +555,15 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
             String productSpecsKey = "product:specs:" + productId;
             redisUtil.del(productSpecsKey);
 
-            // 性能优化：使用SCAN替代KEYS，避免阻塞Redis
-            // 获取所有可能与该商品相关的缓存键
-            Set<String> keys = redisUtil.scan(CacheConstants.PRODUCT_LIST_KEY + "*");
-            if (keys != null && !keys.isEmpty()) {
-                for (String key : keys) {
-                    // 检查该缓存键对应的缓存中是否包含该商品
-                    if (checkProductInCache(key, productId)) {
-                        // 删除与该商品相关的缓存
-                        redisUtil.del(key);
-                    }
-                }
-            }
+            // 商品列表、管理后台列表、销量排行、新品列表：递增命名空间代号
+            cacheNamespaces.bump(CacheConstants.PRODUCT_LIST_KEY);
+            cacheNamespaces.bump(CacheConstants.PRODUCT_ADMIN_LIST_KEY);
+            cacheNamespaces.bump(CacheConstants.PRODUCT_HOT_TOP_KEY);
+            cacheNamespaces.bump(CacheConstants.PRODUCT_NEW_LIST_KEY);
 
-            // 性能优化：使用SCAN替代KEYS，避免阻塞Redis
-            // 获取管理后台商品列表相关的缓存键
-            Set<String> adminKeys = redisUtil.scan(CacheConstants.PRODUCT_ADMIN_LIST_KEY + "*");
-            if (adminKeys != null && !adminKeys.isEmpty()) {
-                for (String key : adminKeys) {
-                    // 删除管理后台商品列表缓存
-                    redisUtil.del(key);
-                }
-            }
-
-            // 删除热门商品缓存（包括新的top缓存）
+            // 删除热门、新品、推荐的固定键缓存
             redisUtil.del(CacheConstants.PRODUCT_HOT_KEY);
-            // 清除所有热门商品top缓存（不同limit的缓存）
-            Set<String> hotTopKeys = redisUtil.scan(CacheConstants.PRODUCT_HOT_KEY + "_top_*");
-            if (hotTopKeys != null && !hotTopKeys.isEmpty()) {
-                for (String key : hotTopKeys) {
-                    redisUtil.del(key);
-                }
-                log.debug("已清除{}个热门商品top缓存", hotTopKeys.size());
-            }
-
-            // 删除新品商品缓存
             redisUtil.del(CacheConstants.PRODUCT_NEW_KEY);
-
-            // 删除推荐商品缓存
             redisUtil.del(CacheConstants.PRODUCT_RECOMMEND_KEY);
 
             log.debug("已清除商品缓存，商品ID: {}", productId);
@@ -587,24 +572,6 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         }
     }
 
-    /**
-     * 检查特定缓存中是否包含指定商品
-     */
-    @SuppressWarnings("unchecked")
-    private boolean checkProductInCache(String cacheKey, Integer productId) {
-        try {
-            Object cacheValue = redisUtil.get(cacheKey);
-            if (cacheValue instanceof List) {
-                List<Product> products = (List<Product>) cacheValue;
-                return products.stream().anyMatch(p -> p.getProductId().equals(productId));
-            }
-        } catch (Exception e) {
-            log.error("检查缓存中商品失败: key={}, productId={}, error={}",
-                    cacheKey, productId, e.getMessage());
-        }
-        return false;
-    }
-
     /**
      * 获取热门商品列表
      * 优化：使用Sorted Set存储热门商品ID，按销量和评分排序
@@ -613,15 +580,17 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
      * @return 热门商品列表
      */
     public List<Product> getHotProducts(int limit) {
-        // 构建缓存键
+        // 软过期缓存：过期后先返回旧列表并在后台刷新，首页热门列表不会整批过期后同时回源
         String cacheKey = CacheConstants.PRODUCT_HOT_KEY + "_" + limit;
-        String hotProductsRankKey = CacheConstants.PRODUCT_HOT_KEY + "_rank"; // 存储热门商品ID的有序集合
+        return cacheProtectionUtil.queryWithSoftTtl(cacheKey, CacheConstants.PRODUCT_HOT_POLICY,
+                () -> loadHotProducts(limit));
+    }
 
-        // 查询缓存
-        Object cacheResult = redisUtil.get(cacheKey);
-        if (cacheResult != null) {
-            return (List<Product>) cacheResult;
-        }
+    /**
+     * 加载热门商品列表：优先按排名有序集合批量查询，否则查询数据库并重建排名
+     */
+    private List<Product> loadHotProducts(int limit) {
+        String hotProductsRankKey = CacheConstants.PRODUCT_HOT_KEY + "_rank"; // 存储热门商品ID的有序集合
 
         // 检查是否有热门商品排名缓存
         if (redisUtil.hasKey(hotProductsRankKey)) {
@@ -648,9 +617,7 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
                         }
                     }
 
-                    // 缓存结果
                     if (!hotProducts.isEmpty()) {
-                        redisUtil.set(cacheKey, hotProducts, CacheConstants.PRODUCT_HOT_EXPIRE_TIME);
                         log.debug("热门商品批量查询完成: 查询数量={}, 结果数量={}", productIds.size(), hotProducts.size());
                         return hotProducts;
                     }
@@ -670,11 +637,7 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
 
         List<Product> hotProducts = list(queryWrapper);
 
-        // 缓存结果
         if (hotProducts != null && !hotProducts.isEmpty()) {
-            // 缓存完整的热门商品列表
-            redisUtil.set(cacheKey, hotProducts, CacheConstants.PRODUCT_HOT_EXPIRE_TIME);
-
             // 更新热门商品排名缓存
             try {
                 // 先清除旧的排名数据
@@ -709,7 +672,7 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
      */
     public List<Product> getNewProducts(int limit) {
         // 构建缓存键
-        String cacheKey = CacheConstants.PRODUCT_NEW_KEY + "_" + limit;
+        String cacheKey = cacheNamespaces.key(CacheConstants.PRODUCT_NEW_LIST_KEY, String.valueOf(limit));
         String newProductsRankKey = CacheConstants.PRODUCT_NEW_KEY + "_rank"; // 存储新品商品ID的有序集合
 
         // 查询缓存
@@ -805,25 +768,15 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         // 构建缓存键
         String cacheKey = CacheConstants.PRODUCT_RECOMMEND_KEY + "_" + limit;
 
-        // 查询缓存
-        Object cacheResult = redisUtil.get(cacheKey);
-        if (cacheResult != null) {
-            return (List<Product>) cacheResult;
-        }
-
-        // 缓存不存在，查询数据库
-        LambdaQueryWrapper<Product> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(Product::getProductStatus, "上架")
-                .eq(Product::getIsRecommend, 1)
-                .orderByDesc(Product::getRating, Product::getSales)
-                .last("LIMIT " + limit);
-
-        List<Product> recommendProducts = list(queryWrapper);
-
-        // 缓存结果
-        redisUtil.set(cacheKey, recommendProducts, CacheConstants.MEDIUM_EXPIRE_TIME);
-
-        return recommendProducts;
+        // 软过期缓存：过期后先返回旧列表并在后台刷新
+        return cacheProtectionUtil.queryWithSoftTtl(cacheKey, CacheConstants.PRODUCT_RECOMMEND_POLICY, () -> {
+            LambdaQueryWrapper<Product> queryWrapper = new LambdaQueryWrapper<>();
+            queryWrapper.eq(Product::getProductStatus, "上架")
+                    .eq(Product::getIsRecommend, 1)
+                    .orderByDesc(Product::getRating, Product::getSales)
+                    .last("LIMIT " + limit);
+            return list(queryWrapper);
+        });
     }
 
     @Override
@@ -1012,15 +965,9 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
      */
     public void clearTopProductsCache() {
         try {
-            // 清除所有热门商品top缓存（不同limit的缓存）
-            Set<String> hotTopKeys = redisUtil.scan(CacheConstants.PRODUCT_HOT_KEY + "_top_*");
-            if (hotTopKeys != null && !hotTopKeys.isEmpty()) {
-                for (String key : hotTopKeys) {
-                    redisUtil.del(key);
-                }
-                log.debug("已清除{}个热门商品top缓存", hotTopKeys.size());
-            }
-            
+            // 不同limit的top缓存挂在同一命名空间下，递增代号即整体失效
+            cacheNamespaces.bump(CacheConstants.PRODUCT_HOT_TOP_KEY);
+
             // 同时清除旧的热门商品缓存
             redisUtil.del(CacheConstants.PRODUCT_HOT_KEY);
         } catch (Exception e) {
@@ -1039,7 +986,7 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
     @Override
     public List<Product> getTopProductsBySales(int limit) {
         // 构建缓存键
-        String cacheKey = CacheConstants.PRODUCT_HOT_KEY + "_top_" + limit;
+        String cacheKey = cacheNamespaces.key(CacheConstants.PRODUCT_HOT_TOP_KEY, String.valueOf(limit));
         
         try {
             // 1. 尝试从缓存获取
@@ -13,6 +13,7 @@ import com.muyingmall.common.exception.BusinessException;
 import com.muyingmall.mapper.ProductMapper;
 import com.muyingmall.mapper.ProductSkuMapper;
 import com.muyingmall.mapper.ProductSkuStockLogMapper;
+import com.muyingmall.service.BloomFilterService;
 import com.muyingmall.service.ProductSkuService;
 import com.muyingmall.service.SeckillService;
 import lombok.RequiredArgsConstructor;
@@ -22,8 +23,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -41,6 +47,7 @@ public class ProductSkuServiceImpl extends ServiceImpl<ProductSkuMapper, Product
     private final ProductSkuStockLogMapper stockLogMapper;
     private final ProductMapper productMapper;
     private final SeckillService seckillService;
+    private final BloomFilterService bloomFilterService;
 
     @Override
     public List<ProductSkuDTO> getSkuListByProductId(Integer productId) {
@@ -50,6 +57,9 @@ public class ProductSkuServiceImpl extends ServiceImpl<ProductSkuMapper, Product
 
     @Override
     public ProductSkuDTO getSkuById(Long skuId) {
+        if (!bloomFilterService.mightContain(BloomFilterService.SKU, skuId)) {
+            throw new BusinessException("SKU不存在");
+        }
         ProductSku sku = productSkuMapper.selectById(skuId);
         if (sku == null) {
             throw new BusinessException("SKU不存在");
@@ -85,6 +95,10 @@ public class ProductSkuServiceImpl extends ServiceImpl<ProductSkuMapper, Product
         }
 
         boolean result = saveBatch(entities);
+        if (result) {
+            // 重新插入的SKU获得新ID，旧ID随下次布隆过滤器轮换丢弃
+            entities.forEach(entity -> bloomFilterService.add(BloomFilterService.SKU, entity.getSkuId()));
+        }
 
         // 更新商品的价格范围和总库存
         if (result) {
@@ -110,58 +124,13 @@ public class ProductSkuServiceImpl extends ServiceImpl<ProductSkuMapper, Product
         }
 
         try {
-            // 查询SKU信息
-            ProductSku sku = productSkuMapper.selectById(skuId);
-            if (sku == null) {
-                // 回滚Redis库存
-                seckillService.restoreRedisStock(skuId, quantity);
-                throw new BusinessException("SKU不存在");
-            }
-
-            // 检查数据库库存（双重保险）
-            if (sku.getStock() < quantity) {
-                // 回滚Redis库存
-                seckillService.restoreRedisStock(skuId, quantity);
-                throw new BusinessException("库存不足，当前库存：" + sku.getStock() + "，需要：" + quantity);
-            }
-
-            // 扣减数据库库存（使用乐观锁，最多重试3次）
-            int retryCount = 0;
-            int maxRetries = 3;
-            int rows = 0;
-            
-            while (retryCount < maxRetries) {
-                rows = productSkuMapper.deductStock(skuId, quantity, sku.getVersion());
-                if (rows > 0) {
-                    break;
-                }
-                
-                // 重新查询最新版本
-                sku = productSkuMapper.selectById(skuId);
-                if (sku == null || sku.getStock() < quantity) {
-                    break;
-                }
-                
-                retryCount++;
-                log.debug("库存扣减乐观锁冲突，重试第{}次: skuId={}", retryCount, skuId);
-            }
-            
-            if (rows == 0) {
-                // 回滚Redis库存
-                seckillService.restoreRedisStock(skuId, quantity);
-                throw new BusinessException("库存扣减失败，请重试");
-            }
-
-            // 记录日志
-            String logRemark = remark != null ? remark : "扣减库存";
-            recordStockLog(skuId, orderId, "DEDUCT", -quantity, sku.getStock(), 
-                          sku.getStock() - quantity, null, logRemark);
-
-            // 更新商品总库存
-            updateProductTotalStock(sku.getProductId());
-
+            SkuStockDTO stockDTO = new SkuStockDTO();
+            stockDTO.setSkuId(skuId);
+            stockDTO.setQuantity(quantity);
+            stockDTO.setOrderId(orderId);
+            stockDTO.setRemark(remark != null ? remark : "扣减库存");
+            deductInDatabase(List.of(stockDTO));
             return true;
-            
         } catch (Exception e) {
             // 异常时回滚Redis库存
             seckillService.restoreRedisStock(skuId, quantity);
@@ -169,46 +138,70 @@ public class ProductSkuServiceImpl extends ServiceImpl<ProductSkuMapper, Product
         }
     }
 
+    /**
+     * 批量扣减库存
+     * 固定四条语句完成，与SKU数量无关：一条带库存条件的多行扣减、一条 IN 读回扣减后的库存、
+     * 一条多行插入库存日志、一条按SKU汇总刷新商品总库存。任一SKU库存不足时抛出异常，整个事务回滚
+     */
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean batchDeductStock(List<SkuStockDTO> stockList) {
-        // 记录需要更新总库存的商品ID（去重）
-        java.util.Set<Integer> productIds = new java.util.HashSet<>();
-        
+        if (stockList == null || stockList.isEmpty()) {
+            return true;
+        }
+        deductInDatabase(stockList);
+        return true;
+    }
+
+    private void deductInDatabase(List<SkuStockDTO> stockList) {
+        // 同一SKU的多条扣减合并为一次
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
         for (SkuStockDTO stockDTO : stockList) {
-            // 查询SKU信息
-            ProductSku sku = productSkuMapper.selectById(stockDTO.getSkuId());
-            if (sku == null) {
-                throw new BusinessException("SKU不存在：" + stockDTO.getSkuId());
-            }
+            quantities.merge(stockDTO.getSkuId(), stockDTO.getQuantity(), Integer::sum);
+        }
 
-            // 检查库存
-            if (sku.getStock() < stockDTO.getQuantity()) {
-                throw new BusinessException("SKU库存不足：" + sku.getSkuName() + 
-                    "，当前库存：" + sku.getStock() + "，需要：" + stockDTO.getQuantity());
-            }
+        int rows = productSkuMapper.batchDeductStock(quantities);
 
-            // 扣减库存（使用乐观锁）
-            int rows = productSkuMapper.deductStock(stockDTO.getSkuId(), stockDTO.getQuantity(), sku.getVersion());
-            if (rows == 0) {
-                throw new BusinessException("库存扣减失败，请重试：" + sku.getSkuName());
-            }
+        // 扣减成功的行已被本事务加锁，读到的即扣减后的库存
+        Map<Long, ProductSku> skuMap = productSkuMapper.selectBatchIds(quantities.keySet()).stream()
+                .collect(Collectors.toMap(ProductSku::getSkuId, Function.identity()));
+        if (rows < quantities.size()) {
+            throw new BusinessException(describeDeductFailure(quantities, skuMap));
+        }
 
-            // 记录日志
-            recordStockLog(stockDTO.getSkuId(), stockDTO.getOrderId(), "DEDUCT", 
-                -stockDTO.getQuantity(), sku.getStock(), sku.getStock() - stockDTO.getQuantity(),
-                stockDTO.getOperator(), stockDTO.getRemark());
-            
-            // 记录商品ID
+        // 按扣减顺序由扣减后库存反推每条日志的变更前后库存
+        Map<Long, Integer> remaining = new HashMap<>();
+        quantities.forEach((skuId, total) -> remaining.put(skuId, skuMap.get(skuId).getStock() + total));
+        List<ProductSkuStockLog> logs = new ArrayList<>(stockList.size());
+        Set<Integer> productIds = new LinkedHashSet<>();
+        for (SkuStockDTO stockDTO : stockList) {
+            ProductSku sku = skuMap.get(stockDTO.getSkuId());
+            int before = remaining.get(stockDTO.getSkuId());
+            int after = before - stockDTO.getQuantity();
+            remaining.put(stockDTO.getSkuId(), after);
+            logs.add(buildStockLog(sku, stockDTO.getOrderId(), "DEDUCT", -stockDTO.getQuantity(), before, after,
+                    stockDTO.getOperator(), stockDTO.getRemark()));
             productIds.add(sku.getProductId());
         }
+        stockLogMapper.insertBatch(logs);
+        productMapper.syncStockFromSkus(productIds);
+    }
 
-        // 批量更新商品总库存
-        for (Integer productId : productIds) {
-            updateProductTotalStock(productId);
+    /**
+     * 批量扣减失败的原因：SKU不存在或库存不足
+     */
+    private String describeDeductFailure(Map<Long, Integer> quantities, Map<Long, ProductSku> skuMap) {
+        List<String> insufficient = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            ProductSku sku = skuMap.get(entry.getKey());
+            if (sku == null) {
+                return "SKU不存在：" + entry.getKey();
+            }
+            if (sku.getStock() < entry.getValue()) {
+                insufficient.add(sku.getSkuName() + "（当前库存：" + sku.getStock() + "，需要：" + entry.getValue() + "）");
+            }
         }
-
-        return true;
+        return insufficient.isEmpty() ? "库存扣减失败，请重试" : "SKU库存不足：" + String.join("，", insufficient);
     }
 
     @Override
@@ -235,39 +228,52 @@ public class ProductSkuServiceImpl extends ServiceImpl<ProductSkuMapper, Product
         return true;
     }
 
+    /**
+     * 批量恢复库存
+     * 与批量扣减相同，固定四条语句完成：一条多行恢复、一条 IN 读回恢复后的库存、一条多行插入库存日志、
+     * 一条按SKU汇总刷新商品总库存。任一SKU不存在时抛出异常，整个事务回滚
+     */
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean batchRestoreStock(List<SkuStockDTO> stockList) {
-        // 记录需要更新总库存的商品ID（去重）
-        java.util.Set<Integer> productIds = new java.util.HashSet<>();
-        
+        if (stockList == null || stockList.isEmpty()) {
+            return true;
+        }
+
+        // 同一SKU的多条恢复合并为一次
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
         for (SkuStockDTO stockDTO : stockList) {
-            // 查询SKU信息
-            ProductSku sku = productSkuMapper.selectById(stockDTO.getSkuId());
-            if (sku == null) {
-                throw new BusinessException("SKU不存在：" + stockDTO.getSkuId());
-            }
+            quantities.merge(stockDTO.getSkuId(), stockDTO.getQuantity(), Integer::sum);
+        }
 
-            // 恢复库存
-            int rows = productSkuMapper.restoreStock(stockDTO.getSkuId(), stockDTO.getQuantity());
-            if (rows == 0) {
-                throw new BusinessException("库存恢复失败：" + sku.getSkuName());
-            }
+        int rows = productSkuMapper.batchRestoreStock(quantities);
 
-            // 记录日志
-            recordStockLog(stockDTO.getSkuId(), stockDTO.getOrderId(), "RESTORE",
-                stockDTO.getQuantity(), sku.getStock(), sku.getStock() + stockDTO.getQuantity(),
-                stockDTO.getOperator(), stockDTO.getRemark());
-            
-            // 记录商品ID
-            productIds.add(sku.getProductId());
+        Map<Long, ProductSku> skuMap = productSkuMapper.selectBatchIds(quantities.keySet()).stream()
+                .collect(Collectors.toMap(ProductSku::getSkuId, Function.identity()));
+        if (rows < quantities.size()) {
+            Long missing = quantities.keySet().stream()
+                    .filter(skuId -> !skuMap.containsKey(skuId))
+                    .findFirst()
+                    .orElse(null);
+            throw new BusinessException(missing != null ? "SKU不存在：" + missing : "库存恢复失败，请重试");
         }
 
-        // 批量更新商品总库存
-        for (Integer productId : productIds) {
-            updateProductTotalStock(productId);
+        // 按恢复顺序由恢复后库存反推每条日志的变更前后库存
+        Map<Long, Integer> remaining = new HashMap<>();
+        quantities.forEach((skuId, total) -> remaining.put(skuId, skuMap.get(skuId).getStock() - total));
+        List<ProductSkuStockLog> logs = new ArrayList<>(stockList.size());
+        Set<Integer> productIds = new LinkedHashSet<>();
+        for (SkuStockDTO stockDTO : stockList) {
+            ProductSku sku = skuMap.get(stockDTO.getSkuId());
+            int before = remaining.get(stockDTO.getSkuId());
+            int after = before + stockDTO.getQuantity();
+            remaining.put(stockDTO.getSkuId(), after);
+            logs.add(buildStockLog(sku, stockDTO.getOrderId(), "RESTORE", stockDTO.getQuantity(), before, after,
+                    stockDTO.getOperator(), stockDTO.getRemark()));
+            productIds.add(sku.getProductId());
         }
-
+        stockLogMapper.insertBatch(logs);
+        productMapper.syncStockFromSkus(productIds);
         return true;
     }
 
@@ -383,10 +389,23 @@ public class ProductSkuServiceImpl extends ServiceImpl<ProductSkuMapper, Product
                                 String operator, String remark) {
         // 查询SKU信息获取sku_code
         ProductSku sku = productSkuMapper.selectById(skuId);
-        
+        if (sku == null) {
+            sku = new ProductSku();
+            sku.setSkuId(skuId);
+        }
+        stockLogMapper.insert(buildStockLog(sku, orderId, changeType, changeQuantity, beforeStock, afterStock,
+                operator, remark));
+    }
+
+    /**
+     * 构造库存变更日志
+     */
+    private ProductSkuStockLog buildStockLog(ProductSku sku, Integer orderId, String changeType,
+                                             Integer changeQuantity, Integer beforeStock, Integer afterStock,
+                                             String operator, String remark) {
         ProductSkuStockLog log = new ProductSkuStockLog();
-        log.setSkuId(skuId);
-        log.setSkuCode(sku != null ? sku.getSkuCode() : "UNKNOWN"); // 设置sku_code
+        log.setSkuId(sku.getSkuId());
+        log.setSkuCode(sku.getSkuCode() != null ? sku.getSkuCode() : "UNKNOWN"); // 设置sku_code
         log.setOrderId(orderId);
         log.setChangeType(changeType);
         log.setChangeQuantity(changeQuantity);
@@ -394,7 +413,7 @@ public class ProductSkuServiceImpl extends ServiceImpl<ProductSkuMapper, Product
         log.setAfterStock(afterStock);
         log.setOperator(operator);
         log.setRemark(remark);
-        stockLogMapper.insert(log);
+        return log;
     }
 
     /**
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.muyingmall.common.id.IdGenerator;
 import com.muyingmall.entity.Order;
 import com.muyingmall.entity.Payment;
 import com.muyingmall.entity.Refund;
@@ -43,7 +44,6 @@ import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * 退款服务实现类
@@ -60,6 +60,7 @@ public class RefundServiceImpl extends ServiceImpl<RefundMapper, Refund> impleme
     private final RefundStateService refundStateService;
     private final RefundLogService refundLogService;
     private final AlipayRefundService alipayRefundService;
+    private final IdGenerator idGenerator;
     private final OrderProductMapper orderProductMapper;
     private final ProductSkuService productSkuService;
     private final ProductService productService;
@@ -650,6 +651,6 @@ public class RefundServiceImpl extends ServiceImpl<RefundMapper, Refund> impleme
      * 生成退款单号
      */
     private String generateRefundNo() {
-        return "R" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 6).toUpperCase();
+        return idGenerator.nextNo("R");
     }
 }
\ No newline at end of file
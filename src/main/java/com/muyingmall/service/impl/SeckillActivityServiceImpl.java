@@ -11,11 +11,14 @@ import com.muyingmall.mapper.SeckillActivityMapper;
 import com.muyingmall.mapper.SeckillProductMapper;
 import com.muyingmall.service.SeckillActivityService;
 import com.muyingmall.service.SeckillService;
+import com.muyingmall.service.SeckillWarmupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -31,8 +34,44 @@ public class SeckillActivityServiceImpl extends ServiceImpl<SeckillActivityMappe
     private final SeckillProductMapper seckillProductMapper;
     private final SeckillService seckillService;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final SeckillWarmupService seckillWarmupService;
     
     private static final String SECKILL_STOCK_KEY = "seckill:stock:";
+
+    /**
+     * 修改活动后同步预热的活动数据：准入优先读取预热副本，不同步会让已停用或改期的活动继续放行
+     */
+    @Override
+    public boolean updateById(SeckillActivity entity) {
+        boolean updated = super.updateById(entity);
+        if (updated && entity.getId() != null) {
+            try {
+                SeckillActivity latest = this.getById(entity.getId());
+                if (latest != null) {
+                    seckillWarmupService.refreshActivity(latest);
+                }
+            } catch (Exception e) {
+                log.error("同步秒杀活动预热数据失败: activityId={}", entity.getId(), e);
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * 删除活动后清除预热的活动数据
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean removed = super.removeById(id);
+        if (removed) {
+            try {
+                seckillWarmupService.evictActivity(((Number) id).longValue());
+            } catch (Exception e) {
+                log.error("清除秒杀活动预热数据失败: activityId={}", id, e);
+            }
+        }
+        return removed;
+    }
     
     @Override
     public List<SeckillActivity> getActiveActivities() {
@@ -72,6 +111,12 @@ public class SeckillActivityServiceImpl extends ServiceImpl<SeckillActivityMappe
     
     @Override
     public SeckillProductDTO getSeckillProductDetail(Long seckillProductId) {
+        // 优先使用开抢前预热的详情（本地缓存/Redis），避免开抢瞬间回源数据库
+        SeckillProductDTO warm = seckillWarmupService.getProductDetail(seckillProductId);
+        if (warm != null) {
+            return fromWarmDetail(warm);
+        }
+
         SeckillProductDTO product = seckillProductMapper.selectSeckillProductDetail(seckillProductId);
         
         if (product != null) {
@@ -84,6 +129,26 @@ public class SeckillActivityServiceImpl extends ServiceImpl<SeckillActivityMappe
         
         return product;
     }
+
+    /**
+     * 基于预热详情构造返回值（复制后再覆盖实时字段，不修改缓存对象）
+     * 已售数量按预热时的已售加上预热后 Redis 库存的减少量估算，仅用于进度展示
+     */
+    private SeckillProductDTO fromWarmDetail(SeckillProductDTO warm) {
+        SeckillProductDTO product = new SeckillProductDTO();
+        BeanUtils.copyProperties(warm, product);
+        product.setActivityStatus(calculateActivityStatus(warm.getStartTime(), warm.getEndTime(), LocalDateTime.now()));
+
+        Integer redisStock = seckillService.getRedisStock(warm.getSkuId());
+        if (redisStock != null) {
+            product.setSeckillStock(redisStock);
+            if (warm.getSeckillStock() != null) {
+                int soldSinceWarmup = Math.max(warm.getSeckillStock() - redisStock, 0);
+                product.setSoldCount((warm.getSoldCount() != null ? warm.getSoldCount() : 0) + soldSinceWarmup);
+            }
+        }
+        return product;
+    }
     
     @Override
     public void initActivityStock(Long activityId) {
@@ -91,12 +156,16 @@ public class SeckillActivityServiceImpl extends ServiceImpl<SeckillActivityMappe
         LambdaQueryWrapper<SeckillProduct> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(SeckillProduct::getActivityId, activityId);
         List<SeckillProduct> products = seckillProductMapper.selectList(wrapper);
+
+        // 按活动配置决定库存分桶数（0/1表示不分桶）
+        SeckillActivity activity = this.getById(activityId);
+        int buckets = activity != null && activity.getStockBuckets() != null ? activity.getStockBuckets() : 1;
         
         // 初始化每个商品的库存到Redis
         for (SeckillProduct product : products) {
-            seckillService.initSeckillStock(product.getSkuId(), product.getSeckillStock());
-            log.info("初始化秒杀商品库存: activityId={}, skuId={}, stock={}", 
-                    activityId, product.getSkuId(), product.getSeckillStock());
+            seckillService.initSeckillStock(product.getSkuId(), product.getSeckillStock(), buckets);
+            log.info("初始化秒杀商品库存: activityId={}, skuId={}, stock={}, buckets={}", 
+                    activityId, product.getSkuId(), product.getSeckillStock(), buckets);
         }
     }
     
@@ -170,9 +239,13 @@ public class SeckillActivityServiceImpl extends ServiceImpl<SeckillActivityMappe
      * @return 0-未开始，1-进行中，2-已结束
      */
     private int calculateActivityStatus(SeckillActivity activity, LocalDateTime now) {
-        if (now.isBefore(activity.getStartTime())) {
+        return calculateActivityStatus(activity.getStartTime(), activity.getEndTime(), now);
+    }
+
+    private int calculateActivityStatus(LocalDateTime startTime, LocalDateTime endTime, LocalDateTime now) {
+        if (now.isBefore(startTime)) {
             return 0; // 未开始
-        } else if (now.isAfter(activity.getEndTime())) {
+        } else if (now.isAfter(endTime)) {
             return 2; // 已结束
         } else {
             return 1; // 进行中
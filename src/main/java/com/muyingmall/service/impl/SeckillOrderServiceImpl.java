@@ -14,6 +14,7 @@ import com.muyingmall.mapper.SeckillOrderMapper;
 import com.muyingmall.mapper.SeckillProductMapper;
 import com.muyingmall.service.OrderService;
 import com.muyingmall.service.SeckillOrderService;
+import com.muyingmall.service.SeckillParticipationIndex;
 import com.muyingmall.service.SeckillService;
 import com.muyingmall.service.SeckillStockTxService;
 import lombok.RequiredArgsConstructor;
@@ -44,10 +45,27 @@ public class SeckillOrderServiceImpl implements SeckillOrderService {
     private final SeckillOrderMapper seckillOrderMapper;
     private final OrderService orderService;
     private final SeckillStockTxService seckillStockTxService;
+    private final SeckillParticipationIndex seckillParticipationIndex;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Long executeSeckill(Integer userId, SeckillRequestDTO request) {
+        return doExecuteSeckill(userId, request, false);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Long executeReservedSeckill(Integer userId, SeckillRequestDTO request) {
+        return doExecuteSeckill(userId, request, true);
+    }
+
+    /**
+     * 秒杀下单主流程
+     *
+     * @param stockReserved 是否已在入口完成 Redis 库存与用户去重预占；为 true 时跳过 Lua 扣减，
+     *                      且校验失败也需要释放预占，避免库存被永久占用
+     */
+    private Long doExecuteSeckill(Integer userId, SeckillRequestDTO request, boolean stockReserved) {
         // 1. 基础参数校验
         if (request == null || request.getSeckillProductId() == null || request.getQuantity() == null
                 || request.getQuantity() <= 0) {
@@ -60,47 +78,27 @@ public class SeckillOrderServiceImpl implements SeckillOrderService {
             throw new BusinessException("秒杀商品不存在");
         }
 
-        // 3. 校验秒杀活动状态和时间
-        SeckillActivity activity = seckillActivityMapper.selectById(seckillProduct.getActivityId());
-        if (activity == null || activity.getStatus() != 1) {
-            throw new BusinessException("秒杀活动未开始或已结束");
-        }
         LocalDateTime now = LocalDateTime.now();
-        if (now.isBefore(activity.getStartTime()) || now.isAfter(activity.getEndTime())) {
-            throw new BusinessException("秒杀活动未开始或已结束");
-        }
-
-        // 4. 只统计"已支付"秒杀数量，达到上限后直接拒绝。
-        int effectiveLimit = resolveEffectiveLimitPerUser(seckillProduct);
-        int paidQuantity = Math.max(0, seckillOrderMapper.countUserPurchase(
-                userId,
-                seckillProduct.getActivityId(),
-                request.getSeckillProductId()));
-
-        if (paidQuantity >= effectiveLimit) {
-            throw new BusinessException("每位用户最多可成功购买" + effectiveLimit + "件，您已达上限");
-        }
-
-        int remainAllowed = effectiveLimit - paidQuantity;
-        if (request.getQuantity() > remainAllowed) {
-            throw new BusinessException("当前最多还可成功购买" + remainAllowed + "件");
-        }
-
-        // 5. 待支付订单拦截：同一用户同一秒杀商品仅允许一个待支付占位，防止无限抢单。
-        int pendingQuantity = Math.max(0, seckillOrderMapper.countUserPendingPurchase(
-                userId,
-                seckillProduct.getActivityId(),
-                request.getSeckillProductId()));
-        if (pendingQuantity > 0) {
-            throw new BusinessException("你有待支付的秒杀订单，请先完成支付或等待超时后重试");
+        SeckillActivity activity;
+        try {
+            activity = validateBeforeDeduct(userId, request, seckillProduct, now, stockReserved);
+        } catch (BusinessException e) {
+            if (stockReserved) {
+                seckillService.restoreStockWithLua(
+                        request.getSeckillProductId(),
+                        seckillProduct.getSkuId(),
+                        request.getQuantity(),
+                        userId);
+            }
+            throw e;
         }
 
         // 6. 计算活动剩余时间作为Redis用户集合过期时间
         long remainingSeconds = Duration.between(now, activity.getEndTime()).getSeconds();
         Long expireSeconds = Math.max(remainingSeconds, 60);
 
-        // 7. 使用Lua脚本原子性扣减库存（含用户去重）
-        int luaResult = seckillService.deductStockWithLua(
+        // 7. 使用Lua脚本原子性扣减库存（含用户去重）；入口已预占时跳过
+        int luaResult = stockReserved ? 1 : seckillService.deductStockWithLua(
                 request.getSeckillProductId(),
                 seckillProduct.getSkuId(),
                 request.getQuantity(),
@@ -189,8 +187,80 @@ public class SeckillOrderServiceImpl implements SeckillOrderService {
         }
     }
 
+    /**
+     * 扣减前校验：活动状态与时间、已支付限购、待支付占位
+     *
+     * <p>
+     * 未预占的请求优先读取参与索引（O(1)），索引命中时不再统计订单表；
+     * 已预占的请求在索引中已是待支付状态，仍以订单表统计作为落库前的最终兜底。
+     * </p>
+     *
+     * @return 秒杀活动
+     */
+    private SeckillActivity validateBeforeDeduct(Integer userId, SeckillRequestDTO request,
+            SeckillProduct seckillProduct, LocalDateTime now, boolean stockReserved) {
+        // 3. 校验秒杀活动状态和时间
+        SeckillActivity activity = seckillActivityMapper.selectById(seckillProduct.getActivityId());
+        if (activity == null || activity.getStatus() != 1) {
+            throw new BusinessException("秒杀活动未开始或已结束");
+        }
+        if (now.isBefore(activity.getStartTime()) || now.isAfter(activity.getEndTime())) {
+            throw new BusinessException("秒杀活动未开始或已结束");
+        }
+
+        int effectiveLimit = resolveEffectiveLimitPerUser(seckillProduct);
+        if (!stockReserved) {
+            int state = seckillParticipationIndex.getState(request.getSeckillProductId(), userId);
+            if (state == SeckillParticipationIndex.PENDING) {
+                throw new BusinessException("你有待支付的秒杀订单，请先完成支付或等待超时后重试");
+            }
+            if (state == SeckillParticipationIndex.PURCHASED) {
+                throw new BusinessException("您已参与过该秒杀活动");
+            }
+            if (state == SeckillParticipationIndex.NONE) {
+                if (request.getQuantity() > effectiveLimit) {
+                    throw new BusinessException("当前最多还可成功购买" + effectiveLimit + "件");
+                }
+                return activity;
+            }
+        }
+
+        // 4. 只统计"已支付"秒杀数量，达到上限后直接拒绝。
+        int paidQuantity = Math.max(0, seckillOrderMapper.countUserPurchase(
+                userId,
+                seckillProduct.getActivityId(),
+                request.getSeckillProductId()));
+
+        if (paidQuantity >= effectiveLimit) {
+            throw new BusinessException("每位用户最多可成功购买" + effectiveLimit + "件，您已达上限");
+        }
+
+        int remainAllowed = effectiveLimit - paidQuantity;
+        if (request.getQuantity() > remainAllowed) {
+            throw new BusinessException("当前最多还可成功购买" + remainAllowed + "件");
+        }
+
+        // 5. 待支付订单拦截：同一用户同一秒杀商品仅允许一个待支付占位，防止无限抢单。
+        int pendingQuantity = Math.max(0, seckillOrderMapper.countUserPendingPurchase(
+                userId,
+                seckillProduct.getActivityId(),
+                request.getSeckillProductId()));
+        if (pendingQuantity > 0) {
+            throw new BusinessException("你有待支付的秒杀订单，请先完成支付或等待超时后重试");
+        }
+
+        return activity;
+    }
+
     @Override
     public boolean canUserParticipate(Integer userId, Long seckillProductId) {
+        // 参与索引命中时直接返回：待支付或已购买均不可再参与（与扣减脚本的判断一致）
+        int state = seckillParticipationIndex.getState(seckillProductId, userId);
+        if (state != SeckillParticipationIndex.MISSING) {
+            return state == SeckillParticipationIndex.NONE;
+        }
+
+        // 索引不存在（未预热或已过期）时回退到订单表统计
         SeckillProduct seckillProduct = seckillProductMapper.selectById(seckillProductId);
         if (seckillProduct == null) {
             return false;
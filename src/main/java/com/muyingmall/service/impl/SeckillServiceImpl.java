@@ -1,24 +1,32 @@
 package com.muyingmall.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.muyingmall.cache.SeckillSoldOutFlags;
 import com.muyingmall.entity.ProductSku;
+import com.muyingmall.entity.SeckillActivity;
 import com.muyingmall.entity.SeckillProduct;
 import com.muyingmall.mapper.ProductSkuMapper;
+import com.muyingmall.mapper.SeckillActivityMapper;
 import com.muyingmall.mapper.SeckillProductMapper;
+import com.muyingmall.service.SeckillParticipationIndex;
 import com.muyingmall.service.SeckillService;
+import com.muyingmall.service.SeckillStockReconcileService;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.scripting.support.ResourceScriptSource;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -27,6 +35,13 @@ import java.util.concurrent.TimeUnit;
  * 支持两种库存扣减模式：
  * 1. 预扣减模式：返回剩余库存（preDeductStock方法）
  * 2. 扣减模式：返回状态码（deductStockWithLua方法），支持Key不存在时自动从DB同步重试
+ *
+ * 支持两种库存存储布局：
+ * 1. 单Key：seckill:stock:{skuId}
+ * 2. 分桶：seckill:stock:{skuId}:b{i}，由活动的 stockBuckets 配置开启，
+ *    用户按哈希落到首选桶。每次脚本调用只访问一个分桶Key，首选桶不足时由Java依次对相邻桶发起后续调用；
+ *    用户去重在参与索引上单独调用（{@link SeckillParticipationIndex#markPending}），
+ *    因此各分桶与参与索引可分布在不同的集群槽位，不再集中到单个热点Key或单个 Redis 节点
  */
 @Slf4j
 @Service
@@ -36,13 +51,60 @@ public class SeckillServiceImpl implements SeckillService {
     private final RedisTemplate<String, Object> redisTemplate;
     private final ProductSkuMapper productSkuMapper;
     private final SeckillProductMapper seckillProductMapper;
+    private final SeckillActivityMapper seckillActivityMapper;
+    private final SeckillSoldOutFlags seckillSoldOutFlags;
+    private final SeckillStockReconcileService seckillStockReconcileService;
+    private final SeckillParticipationIndex seckillParticipationIndex;
 
     private static final String SECKILL_STOCK_KEY = "seckill:stock:";
     private static final long STOCK_CACHE_EXPIRE = 24 * 60 * 60; // 24小时
 
+    /**
+     * 分桶Key后缀：seckill:stock:{skuId}:b{i}
+     */
+    private static final String STOCK_BUCKET_SUFFIX = ":b";
+
+    /**
+     * 分桶数量元数据Key（不以 seckill:stock: 开头，避免被库存扫描误匹配）
+     */
+    private static final String STOCK_BUCKET_COUNT_KEY = "seckill:stock-buckets:";
+
+    /**
+     * 分桶数量上限，首选桶不足时最多向该数量的相邻桶回退
+     */
+    static final int MAX_STOCK_BUCKETS = 64;
+
+    /**
+     * 单次扣减每一轮最多访问的分桶数，售罄或低库存时不再逐个探测全部分桶
+     */
+    static final int MAX_BUCKET_PROBES = 8;
+
+    /**
+     * 空桶提示的有效期（毫秒）：本节点近期探测为空的分桶在此期间不再访问；
+     * 本节点回补/初始化时立即清除，其他节点的回补最多延迟该时长被看到
+     */
+    static final long EMPTY_BUCKET_HINT_MILLIS = 1000;
+
     private DefaultRedisScript<Long> stockDeductScript;
     private DefaultRedisScript<Long> stockRestoreScript;
     private DefaultRedisScript<Long> stockPreDeductScript;
+    private DefaultRedisScript<Long> stockBucketDeductScript;
+
+    /**
+     * 本地缓存的分桶数量（skuId → 桶数），避免每次扣减都读取元数据Key
+     */
+    private final Cache<Long, Integer> bucketCounts = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(Duration.ofSeconds(30))
+            .build();
+
+    /**
+     * 本节点近期探测为空的分桶Key
+     */
+    private final Cache<String, Boolean> emptyBuckets = Caffeine.newBuilder()
+            .maximumSize(100000)
+            .expireAfterWrite(Duration.ofMillis(EMPTY_BUCKET_HINT_MILLIS))
+            .build();
 
     /**
      * 初始化Lua脚本
@@ -65,7 +127,13 @@ public class SeckillServiceImpl implements SeckillService {
                 new ClassPathResource("scripts/stock_pre_deduct.lua")));
         stockPreDeductScript.setResultType(Long.class);
 
-        log.info("秒杀Lua脚本初始化完成：stock_deduct.lua, stock_restore.lua, stock_pre_deduct.lua");
+        stockBucketDeductScript = new DefaultRedisScript<>();
+        stockBucketDeductScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("scripts/stock_bucket_deduct.lua")));
+        stockBucketDeductScript.setResultType(Long.class);
+
+        log.info("秒杀Lua脚本初始化完成：stock_deduct.lua, stock_restore.lua, stock_pre_deduct.lua, "
+                + "stock_bucket_deduct.lua");
     }
 
     @Override
@@ -76,27 +144,13 @@ public class SeckillServiceImpl implements SeckillService {
             return -4;
         }
 
-        String stockKey = SECKILL_STOCK_KEY + skuId;
-        String userSetKey = "seckill:user:" + seckillProductId;
-        List<String> keys = Arrays.asList(stockKey, userSetKey);
-
-        Long result;
-        if (expireSeconds != null && expireSeconds > 0) {
-            result = redisTemplate.execute(stockDeductScript, keys, quantity, userId, expireSeconds);
-        } else {
-            result = redisTemplate.execute(stockDeductScript, keys, quantity, userId);
-        }
-
+        Long result = executeDeductScript(seckillProductId, skuId, quantity, userId, expireSeconds);
         int resultCode = result != null ? result.intValue() : -3;
 
         if (resultCode == -3) {
             log.warn("Lua脚本扣减库存失败，库存Key不存在，尝试从秒杀商品表同步: seckillProductId={}, skuId={}", seckillProductId, skuId);
             syncSeckillStockToRedis(seckillProductId);
-            if (expireSeconds != null && expireSeconds > 0) {
-                result = redisTemplate.execute(stockDeductScript, keys, quantity, userId, expireSeconds);
-            } else {
-                result = redisTemplate.execute(stockDeductScript, keys, quantity, userId);
-            }
+            result = executeDeductScript(seckillProductId, skuId, quantity, userId, expireSeconds);
             resultCode = result != null ? result.intValue() : -3;
         }
 
@@ -124,6 +178,118 @@ public class SeckillServiceImpl implements SeckillService {
         return resultCode;
     }
 
+    /**
+     * 按当前库存布局执行扣减脚本
+     */
+    private Long executeDeductScript(Long seckillProductId, Long skuId, Integer quantity, Integer userId,
+                                     Long expireSeconds) {
+        int buckets = getStockBucketCount(skuId);
+
+        if (buckets > 1) {
+            // 已售罄：不写参与索引，也不探测分桶
+            if (seckillSoldOutFlags.isSoldOut(seckillProductId)) {
+                return -1L;
+            }
+            boolean dedup = userId != null && userId > 0;
+            if (dedup) {
+                long marked = seckillParticipationIndex.markPending(seckillProductId, userId, expireSeconds);
+                if (marked != 1) {
+                    return marked;
+                }
+            }
+            long result = deductFromBuckets(skuId, quantity, buckets, homeBucket(userId, buckets));
+            if (result != 1 && dedup) {
+                seckillParticipationIndex.releasePending(seckillProductId, userId);
+            }
+            return result;
+        }
+
+        List<String> keys = Arrays.asList(SECKILL_STOCK_KEY + skuId, SeckillParticipationIndex.key(seckillProductId));
+        if (expireSeconds != null && expireSeconds > 0) {
+            return redisTemplate.execute(stockDeductScript, keys, quantity, userId, expireSeconds);
+        }
+        return redisTemplate.execute(stockDeductScript, keys, quantity, userId);
+    }
+
+    /**
+     * 分桶扣减：每次调用只访问一个分桶，从首选桶开始依次向相邻桶回退
+     * 先尝试在单个桶内扣减整单；购买多件且没有任何一个桶够用时，再跨桶逐个部分扣减，仍不足则回补已扣部分。
+     * 本节点近期探测为空的分桶直接跳过，全部为空时不访问 Redis；每一轮最多访问 {@link #MAX_BUCKET_PROBES} 个分桶
+     *
+     * @return 1 成功，-1 库存不足，-3 分桶Key均不存在，-4 参数非法
+     */
+    private long deductFromBuckets(Long skuId, int quantity, int buckets, int home) {
+        List<String> keys = new ArrayList<>();
+        for (String key : bucketKeys(skuId, buckets, home)) {
+            if (emptyBuckets.getIfPresent(key) == null) {
+                keys.add(key);
+            }
+        }
+        if (keys.isEmpty()) {
+            return -1;
+        }
+
+        int existing = 0;
+        int probes = 0;
+        for (String key : keys) {
+            if (probes++ >= MAX_BUCKET_PROBES) {
+                break;
+            }
+            Long taken = redisTemplate.execute(stockBucketDeductScript, Collections.singletonList(key), quantity, 0);
+            if (taken == null || taken == -3) {
+                continue;
+            }
+            if (taken == -4) {
+                return -4;
+            }
+            existing++;
+            if (taken > 0) {
+                return 1;
+            }
+            if (quantity == 1) {
+                emptyBuckets.put(key, Boolean.TRUE);
+            }
+        }
+        if (existing == 0) {
+            return -3;
+        }
+        if (quantity == 1) {
+            return -1;
+        }
+
+        // 跨桶凑单：部分扣减期间其他请求可能短暂看到较少库存，最终以回补后的分桶合计为准
+        List<String> takenKeys = new ArrayList<>();
+        List<Long> takenAmounts = new ArrayList<>();
+        long need = quantity;
+        probes = 0;
+        for (String key : keys) {
+            if (probes++ >= MAX_BUCKET_PROBES) {
+                break;
+            }
+            Long taken = redisTemplate.execute(stockBucketDeductScript, Collections.singletonList(key), need, 1);
+            if (taken == null || taken < 0) {
+                continue;
+            }
+            if (taken < need) {
+                // 部分扣减会取走桶内全部库存
+                emptyBuckets.put(key, Boolean.TRUE);
+            }
+            if (taken > 0) {
+                takenKeys.add(key);
+                takenAmounts.add(taken);
+                need -= taken;
+                if (need == 0) {
+                    return 1;
+                }
+            }
+        }
+        for (int i = 0; i < takenKeys.size(); i++) {
+            redisTemplate.execute(stockRestoreScript, Collections.singletonList(takenKeys.get(i)), takenAmounts.get(i));
+            emptyBuckets.invalidate(takenKeys.get(i));
+        }
+        return -1;
+    }
+
     @Override
     public int restoreStockWithLua(Long seckillProductId, Long skuId, Integer quantity, Integer userId) {
         if (quantity == null || quantity <= 0) {
@@ -132,18 +298,27 @@ public class SeckillServiceImpl implements SeckillService {
             return -4;
         }
 
-        String stockKey = SECKILL_STOCK_KEY + skuId;
-        String userSetKey = "seckill:user:" + seckillProductId;
-        List<String> keys = Arrays.asList(stockKey, userSetKey);
+        int buckets = getStockBucketCount(skuId);
 
-        Long result = redisTemplate.execute(
-                stockRestoreScript,
-                keys,
-                quantity, userId);
+        Long result;
+        if (buckets > 1) {
+            // 扣减时可能跨桶，回补统一落在首选桶即可：库存以所有分桶之和为准
+            String key = bucketKey(skuId, homeBucket(userId, buckets));
+            result = redisTemplate.execute(stockRestoreScript, Collections.singletonList(key), quantity);
+            emptyBuckets.invalidate(key);
+            if (result != null && result >= 0) {
+                seckillParticipationIndex.releasePending(seckillProductId, userId);
+            }
+        } else {
+            List<String> keys = Arrays.asList(SECKILL_STOCK_KEY + skuId, SeckillParticipationIndex.key(seckillProductId));
+            result = redisTemplate.execute(stockRestoreScript, keys, quantity, userId);
+        }
 
         if (result != null && result >= 0) {
             log.debug("Lua脚本恢复库存成功: seckillProductId={}, skuId={}, quantity={}, userId={}, newStock={}",
                     seckillProductId, skuId, quantity, userId, result);
+            // 库存回补后清除各节点售罄标记，让后续请求重新进入扣减链路
+            seckillSoldOutFlags.clear(seckillProductId);
             return 1;
         }
 
@@ -154,9 +329,63 @@ public class SeckillServiceImpl implements SeckillService {
 
     @Override
     public void initSeckillStock(Long skuId, Integer stock) {
-        String key = SECKILL_STOCK_KEY + skuId;
-        redisTemplate.opsForValue().set(key, stock, STOCK_CACHE_EXPIRE, TimeUnit.SECONDS);
-        log.debug("初始化秒杀库存到Redis: skuId={}, stock={}", skuId, stock);
+        // 未指定分桶数时沿用当前布局，避免按SKU同步库存时把分桶模式意外切回单Key
+        initSeckillStock(skuId, stock, getStockBucketCount(skuId));
+    }
+
+    @Override
+    public void initSeckillStock(Long skuId, Integer stock, int bucketCount) {
+        int buckets = Math.min(Math.max(bucketCount, 1), MAX_STOCK_BUCKETS);
+        int previousBuckets = getStockBucketCount(skuId);
+        String countKey = STOCK_BUCKET_COUNT_KEY + skuId;
+
+        if (buckets > 1) {
+            // 均分库存，余数分给前几个桶；分桶合计恒等于总库存
+            int total = stock != null ? Math.max(stock, 0) : 0;
+            int base = total / buckets;
+            int remainder = total % buckets;
+            for (int i = 0; i < buckets; i++) {
+                redisTemplate.opsForValue().set(bucketKey(skuId, i), base + (i < remainder ? 1 : 0),
+                        STOCK_CACHE_EXPIRE, TimeUnit.SECONDS);
+            }
+            redisTemplate.opsForValue().set(countKey, buckets, STOCK_CACHE_EXPIRE, TimeUnit.SECONDS);
+            redisTemplate.delete(SECKILL_STOCK_KEY + skuId);
+        } else {
+            redisTemplate.opsForValue().set(SECKILL_STOCK_KEY + skuId, stock, STOCK_CACHE_EXPIRE, TimeUnit.SECONDS);
+            if (previousBuckets > 1) {
+                redisTemplate.delete(countKey);
+            }
+        }
+
+        // 桶数变少时清理多余的旧分桶，避免聚合时把残留库存算进去
+        if (previousBuckets > buckets) {
+            List<String> staleKeys = new ArrayList<>();
+            for (int i = buckets > 1 ? buckets : 0; i < previousBuckets; i++) {
+                staleKeys.add(bucketKey(skuId, i));
+            }
+            redisTemplate.delete(staleKeys);
+        }
+        bucketCounts.put(skuId, buckets);
+        for (int i = 0; i < Math.max(buckets, previousBuckets); i++) {
+            emptyBuckets.invalidate(bucketKey(skuId, i));
+        }
+
+        if (stock != null && stock > 0) {
+            seckillSoldOutFlags.clearBySku(skuId);
+        }
+        log.debug("初始化秒杀库存到Redis: skuId={}, stock={}, buckets={}", skuId, stock, buckets);
+    }
+
+    @Override
+    public int getStockBucketCount(Long skuId) {
+        Integer cached = bucketCounts.getIfPresent(skuId);
+        if (cached != null) {
+            return cached;
+        }
+        Object value = redisTemplate.opsForValue().get(STOCK_BUCKET_COUNT_KEY + skuId);
+        int buckets = value instanceof Number number ? Math.min(Math.max(number.intValue(), 1), MAX_STOCK_BUCKETS) : 1;
+        bucketCounts.put(skuId, buckets);
+        return buckets;
     }
 
     @Override
@@ -167,6 +396,20 @@ public class SeckillServiceImpl implements SeckillService {
             return false;
         }
 
+        int buckets = getStockBucketCount(skuId);
+        if (buckets > 1) {
+            // 分桶模式：无用户去重，随机选择首选桶
+            long result = deductFromBuckets(skuId, quantity, buckets, homeBucket(null, buckets));
+            if (result == -3) {
+                log.error("Redis分桶库存不存在，需要初始化: skuId={}", skuId);
+                syncStockToRedis(skuId);
+                result = deductFromBuckets(skuId, quantity, buckets, homeBucket(null, buckets));
+            }
+            boolean success = result == 1;
+            log.debug("Redis分桶预减库存: skuId={}, quantity={}, result={}", skuId, quantity, result);
+            return success;
+        }
+
         String key = SECKILL_STOCK_KEY + skuId;
 
         // 先检查库存是否存在，不存在则从数据库同步
@@ -205,14 +448,17 @@ public class SeckillServiceImpl implements SeckillService {
             return;
         }
 
-        String key = SECKILL_STOCK_KEY + skuId;
+        int buckets = getStockBucketCount(skuId);
+        String key = buckets > 1 ? bucketKey(skuId, homeBucket(null, buckets)) : SECKILL_STOCK_KEY + skuId;
         Long result = redisTemplate.execute(
                 stockRestoreScript,
                 Collections.singletonList(key),
                 quantity);
+        emptyBuckets.invalidate(key);
 
         if (result != null && result >= 0) {
             log.debug("恢复Redis库存成功: skuId={}, quantity={}, newStock={}", skuId, quantity, result);
+            seckillSoldOutFlags.clearBySku(skuId);
         } else {
             log.warn("恢复Redis库存失败(key不存在)，尝试从数据库同步: skuId={}, result={}", skuId, result);
             syncStockToRedis(skuId);
@@ -221,6 +467,23 @@ public class SeckillServiceImpl implements SeckillService {
 
     @Override
     public Integer getRedisStock(Long skuId) {
+        int buckets = getStockBucketCount(skuId);
+        if (buckets > 1) {
+            List<Object> values = redisTemplate.opsForValue().multiGet(bucketKeys(skuId, buckets, 0));
+            if (values == null) {
+                return null;
+            }
+            int total = 0;
+            boolean found = false;
+            for (Object value : values) {
+                if (value instanceof Number number) {
+                    total += number.intValue();
+                    found = true;
+                }
+            }
+            return found ? total : null;
+        }
+
         String key = SECKILL_STOCK_KEY + skuId;
         Object stock = redisTemplate.opsForValue().get(key);
         return stock != null ? (Integer) stock : null;
@@ -238,9 +501,11 @@ public class SeckillServiceImpl implements SeckillService {
     public void syncSeckillStockToRedis(Long seckillProductId) {
         SeckillProduct sp = seckillProductMapper.selectById(seckillProductId);
         if (sp != null) {
-            initSeckillStock(sp.getSkuId(), sp.getSeckillStock());
-            log.info("从秒杀商品表同步库存到Redis: seckillProductId={}, skuId={}, stock={}",
-                    seckillProductId, sp.getSkuId(), sp.getSeckillStock());
+            SeckillActivity activity = seckillActivityMapper.selectById(sp.getActivityId());
+            int buckets = activity != null && activity.getStockBuckets() != null ? activity.getStockBuckets() : 1;
+            initSeckillStock(sp.getSkuId(), sp.getSeckillStock(), buckets);
+            log.info("从秒杀商品表同步库存到Redis: seckillProductId={}, skuId={}, stock={}, buckets={}",
+                    seckillProductId, sp.getSkuId(), sp.getSeckillStock(), buckets);
         } else {
             log.warn("秒杀商品不存在，无法同步库存: seckillProductId={}", seckillProductId);
         }
@@ -248,41 +513,36 @@ public class SeckillServiceImpl implements SeckillService {
 
     @Override
     public int syncRedisStockToDatabase() {
-        int syncedCount = 0;
-        String pattern = SECKILL_STOCK_KEY + "*";
-
-        // 使用SCAN命令增量迭代，避免KEYS命令阻塞Redis
-        try (Cursor<String> cursor = redisTemplate.scan(
-                ScanOptions.scanOptions().match(pattern).count(100).build())) {
-
-            while (cursor.hasNext()) {
-                String key = cursor.next();
-                try {
-                    // 从key中提取skuId
-                    String skuIdStr = key.replace(SECKILL_STOCK_KEY, "");
-                    Long skuId = Long.parseLong(skuIdStr);
-
-                    // 获取Redis中的库存
-                    Object stockObj = redisTemplate.opsForValue().get(key);
-                    if (stockObj != null) {
-                        Integer redisStock = (Integer) stockObj;
-
-                        // 更新数据库中的库存
-                        ProductSku sku = productSkuMapper.selectById(skuId);
-                        if (sku != null) {
-                            sku.setStock(redisStock);
-                            productSkuMapper.updateById(sku);
-                            syncedCount++;
-                            log.debug("同步库存到数据库: skuId={}, stock={}", skuId, redisStock);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.error("同步库存失败: key={}", key, e);
-                }
-            }
+        // 按批 MGET + CASE 批量更新，与秒杀库存存在偏差的SKU只上报不覆盖
+        return seckillStockReconcileService.reconcile().getSyncedSkus();
+    }
+
+    /**
+     * 分桶库存Key
+     */
+    static String bucketKey(Long skuId, int index) {
+        return SECKILL_STOCK_KEY + skuId + STOCK_BUCKET_SUFFIX + index;
+    }
+
+    /**
+     * 从首选桶开始依次排列所有分桶Key，扣减按此顺序回退到相邻桶
+     */
+    static List<String> bucketKeys(Long skuId, int buckets, int start) {
+        List<String> keys = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            keys.add(bucketKey(skuId, (start + i) % buckets));
         }
+        return keys;
+    }
 
-        log.info("同步Redis库存到数据库完成，共同步 {} 个商品", syncedCount);
-        return syncedCount;
+    /**
+     * 用户首选桶：按用户ID哈希打散；无用户（普通库存预扣/回补）时随机选择
+     */
+    static int homeBucket(Integer userId, int buckets) {
+        if (userId == null || userId <= 0) {
+            return ThreadLocalRandom.current().nextInt(buckets);
+        }
+        // 乘法哈希打散连续的用户ID，避免相邻用户集中在同一桶
+        return (int) Math.floorMod(userId * 0x9E3779B97F4A7C15L >>> 32, (long) buckets);
     }
 }
@@ -2,6 +2,7 @@ package com.muyingmall.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.muyingmall.cache.CacheNamespaces;
 import com.muyingmall.common.constants.CacheConstants;
 import com.muyingmall.entity.UserCoupon;
 import com.muyingmall.mapper.UserCouponMapper;
@@ -13,7 +14,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Set;
 
 /**
  * 用户优惠券服务实现类
@@ -24,6 +24,7 @@ import java.util.Set;
 public class UserCouponServiceImpl extends ServiceImpl<UserCouponMapper, UserCoupon> implements UserCouponService {
 
     private final RedisUtil redisUtil;
+    private final CacheNamespaces cacheNamespaces;
 
     @Override
     public UserCoupon getUserCoupon(Integer userId, Long couponId) {
@@ -66,12 +67,8 @@ public class UserCouponServiceImpl extends ServiceImpl<UserCouponMapper, UserCou
         if (userId == null) {
             return;
         }
-        // 清除用户所有状态的优惠券缓存
-        String pattern = CacheConstants.USER_COUPON_LIST_KEY + userId + ":*";
-        Set<String> keys = redisUtil.keys(pattern);
-        if (keys != null && !keys.isEmpty()) {
-            redisUtil.del(keys);
-        }
+        // 清除用户所有状态的优惠券缓存（与 CouponServiceImpl 共用同一命名空间）
+        cacheNamespaces.bump(CacheConstants.USER_COUPON_LIST_KEY + userId + ":");
         log.debug("清除用户优惠券缓存: userId={}", userId);
     }
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muyingmall.cache.CacheNamespaces;
 import com.muyingmall.common.constants.CacheConstants;
 import com.muyingmall.common.exception.BusinessException;
 import com.muyingmall.entity.User;
@@ -26,7 +27,6 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -40,6 +40,7 @@ public class UserMessageServiceImpl extends ServiceImpl<UserMessageMapper, UserM
 
     private final UserMapper userMapper;
     private final RedisUtil redisUtil;
+    private final CacheNamespaces cacheNamespaces;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -91,9 +92,8 @@ public class UserMessageServiceImpl extends ServiceImpl<UserMessageMapper, UserM
     @Override
     public IPage<UserMessage> getUserMessages(Integer userId, String type, Integer isRead, int page, int size) {
         // 构建缓存键
-        StringBuilder cacheKeyBuilder = new StringBuilder(CacheConstants.USER_MESSAGES_KEY)
-                .append(userId)
-                .append(":page_").append(page)
+        StringBuilder cacheKeyBuilder = new StringBuilder()
+                .append("page_").append(page)
                 .append(":size_").append(size);
 
         if (StringUtils.hasText(type)) {
@@ -104,7 +104,8 @@ public class UserMessageServiceImpl extends ServiceImpl<UserMessageMapper, UserM
             cacheKeyBuilder.append(":read_").append(isRead);
         }
 
-        String cacheKey = cacheKeyBuilder.toString();
+        String cacheKey = cacheNamespaces.key(CacheConstants.USER_MESSAGES_KEY + userId + ":",
+                cacheKeyBuilder.toString());
 
         // 查询缓存
         Object cacheResult = redisUtil.get(cacheKey);
@@ -392,13 +393,8 @@ public class UserMessageServiceImpl extends ServiceImpl<UserMessageMapper, UserM
             String typeCacheKey = CacheConstants.USER_UNREAD_TYPE_KEY + userId;
             redisUtil.del(typeCacheKey);
 
-            // 清除消息列表缓存
-            // 使用模式匹配删除所有与该用户相关的消息列表缓存
-            Set<String> messageListKeys = redisUtil.keys(CacheConstants.USER_MESSAGES_KEY + userId + ":*");
-            if (messageListKeys != null && !messageListKeys.isEmpty()) {
-                redisUtil.del(messageListKeys.toArray(new String[0]));
-                log.debug("已清除用户消息列表缓存，共{}个键: userId={}", messageListKeys.size(), userId);
-            }
+            // 清除消息列表缓存：递增该用户消息列表命名空间的代号
+            cacheNamespaces.bump(CacheConstants.USER_MESSAGES_KEY + userId + ":");
 
             log.debug("已清除用户消息计数缓存: userId={}", userId);
         } catch (Exception e) {
@@ -16,6 +16,7 @@ import com.muyingmall.entity.Comment;
 import com.muyingmall.entity.UserPoints;
 import com.muyingmall.entity.UserCoupon;
 import com.muyingmall.mapper.UserMapper;
+import com.muyingmall.service.BloomFilterService;
 import com.muyingmall.service.UserAccountService;
 import com.muyingmall.service.UserService;
 import com.muyingmall.util.JwtUtils;
@@ -40,7 +41,6 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.UUID;
 import java.math.BigDecimal;
-import java.util.Set;
 import java.util.Map;
 import java.util.HashMap;
 
@@ -63,6 +63,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     private final com.muyingmall.mapper.CommentMapper commentMapper;
     private final com.muyingmall.mapper.UserPointsMapper userPointsMapper;
     private final com.muyingmall.mapper.UserCouponMapper userCouponMapper;
+    private final BloomFilterService bloomFilterService;
+    private final LoginCacheService loginCacheService;
 
     @Value("${upload.path:G:/muying/muying-web/public}")
     private String uploadPath;
@@ -120,6 +122,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
         // 保存用户
         save(user);
+        bloomFilterService.add(BloomFilterService.USER, user.getUserId());
 
         return user;
     }
@@ -548,6 +551,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
         // 保存用户
         save(user);
+        bloomFilterService.add(BloomFilterService.USER, user.getUserId());
 
         return user;
     }
@@ -641,6 +645,12 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             return null;
         }
 
+        // 布隆过滤器判定一定不存在的ID直接返回，不访问缓存与数据库
+        if (!bloomFilterService.mightContain(BloomFilterService.USER, userId)) {
+            log.debug("布隆过滤器拦截用户详情查询: userId={}", userId);
+            return null;
+        }
+
         // 构建缓存键
         String cacheKey = CacheConstants.USER_DETAIL_KEY + userId;
 
@@ -745,6 +755,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             // 用户详情缓存
             String detailCacheKey = CacheConstants.USER_DETAIL_KEY + user.getUserId();
             redisUtil.del(detailCacheKey);
+            redisUtil.del(CacheConstants.USER_BASIC_KEY + user.getUserId());
             log.debug("清除用户详情缓存: userId={}", user.getUserId());
 
             // 用户名查询缓存（仅当用户名更新时才需要清除）
@@ -764,38 +775,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             // 用户令牌缓存（一般不需要在这里清除，通常在登出时清除）
             // 如果是更改密码或者账号状态变更，可能需要强制清除令牌缓存
             if (user.getPassword() != null || user.getStatus() != null) {
-                // 查找并清除该用户的所有令牌缓存
-                Set<String> tokenKeys = redisUtil.keys(CacheConstants.USER_TOKEN_KEY + "*");
-                if (tokenKeys != null && !tokenKeys.isEmpty()) {
-                    // 遍历令牌，检查是否属于当前用户
-                    for (String tokenKey : tokenKeys) {
-                        try {
-                            String token = tokenKey.substring(CacheConstants.USER_TOKEN_KEY.length());
-                            // 从令牌中提取用户信息
-                            Claims claims = jwtUtils.getClaimsFromToken(token);
-                            if (claims != null) {
-                                Integer tokenUserId = claims.get("userId", Integer.class);
-                                if (tokenUserId != null && tokenUserId.equals(user.getUserId())) {
-                                    // 属于当前用户的令牌，清除缓存
-                                    redisUtil.del(tokenKey);
-                                    log.debug("清除用户令牌缓存: userId={}, token={}", user.getUserId(), token);
-                                }
-                            }
-                        } catch (Exception e) {
-                            log.error("解析令牌失败: {}", e.getMessage());
-                            // 继续处理下一个令牌
-                        }
-                    }
-                }
-            }
-
-            // 清除用户列表缓存 (可能涉及分页查询)
-            // 适用于用户信息更新影响列表显示的情况
-            // 使用模式匹配删除所有与用户列表相关的缓存
-            Set<String> listKeys = redisUtil.keys(CacheConstants.USER_LIST_KEY + "*");
-            if (listKeys != null && !listKeys.isEmpty()) {
-                redisUtil.del(listKeys.toArray(new String[0]));
-                log.debug("清除用户列表缓存，共{}个键", listKeys.size());
+                // 按用户令牌索引清除该用户的所有会话缓存
+                loginCacheService.clearUserSessions(user.getUserId());
             }
 
             log.debug("已清除用户相关缓存: userId={}", user.getUserId());
@@ -1,6 +1,7 @@
 package com.muyingmall.task;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.muyingmall.annotation.ClusterJob;
 import com.muyingmall.entity.Order;
 import com.muyingmall.service.AdminLoginRecordService;
 import com.muyingmall.service.AdminOperationLogService;
@@ -21,6 +22,7 @@ import java.util.Map;
 
 /**
  * 管理员统计数据定时任务
+ * 各节点只推送给本节点持有的 WebSocket 连接（没有在线管理员时不查询），因此每个节点都执行，只上报任务指标
  */
 @Slf4j
 @Component
@@ -39,6 +41,7 @@ public class AdminStatsTask {
      * 推送业务核心统计数据：用户数、订单数、商品数、总收入
      */
     @Scheduled(fixedRate = 30000)
+    @ClusterJob(name = "admin-stats-push", mode = ClusterJob.Mode.LOCAL)
     public void pushStatsData() {
         try {
             // 检查是否有在线的管理员
@@ -84,7 +87,7 @@ public class AdminStatsTask {
             stats.put("updateTime", System.currentTimeMillis());
 
             // 广播统计数据到所有在线管理员
-            AdminStatsWebSocket.broadcastStats(stats);
+            AdminStatsWebSocket.broadcastStatsLocal(stats);
 
             log.debug("统计数据推送成功: userCount={}, orderCount={}, productCount={}, totalIncome={}", 
                     userCount, orderCount, productCount, totalIncome);
@@ -119,6 +122,7 @@ public class AdminStatsTask {
      * 每5分钟推送一次详细统计数据
      */
     @Scheduled(fixedRate = 300000)
+    @ClusterJob(name = "admin-stats-detailed-push", mode = ClusterJob.Mode.LOCAL)
     public void pushDetailedStats() {
         try {
             // 检查是否有在线的管理员
@@ -146,7 +150,7 @@ public class AdminStatsTask {
                 "timestamp", System.currentTimeMillis()
             );
 
-            AdminStatsWebSocket.broadcast(
+            AdminStatsWebSocket.broadcastLocal(
                 new com.fasterxml.jackson.databind.ObjectMapper().writeValueAsString(message)
             );
 
@@ -176,11 +180,12 @@ public class AdminStatsTask {
      * 每小时清理一次离线连接
      */
     @Scheduled(fixedRate = 3600000)
+    @ClusterJob(name = "admin-stats-connections", mode = ClusterJob.Mode.LOCAL)
     public void cleanupConnections() {
         try {
             int onlineCount = AdminStatsWebSocket.getOnlineCount();
             log.debug("当前WebSocket连接数：{}，在线管理员：{}", 
-                    onlineCount, AdminStatsWebSocket.getWebSocketMap().keySet());
+                    onlineCount, AdminStatsWebSocket.getOnlineAdminIds());
         } catch (Exception e) {
             log.error("清理连接失败", e);
         }
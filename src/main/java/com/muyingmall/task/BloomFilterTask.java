@@ -0,0 +1,37 @@
+package com.muyingmall.task;
+
+import com.muyingmall.service.BloomFilterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 布隆过滤器定时任务
+ * 周期刷新各节点本地镜像（首次执行时构建尚不存在的过滤器），每天低峰期轮换重建一次
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BloomFilterTask {
+
+    private final BloomFilterService bloomFilterService;
+
+    @Scheduled(initialDelayString = "${bloom.mirror-initial-delay-ms:10000}",
+            fixedDelayString = "${bloom.mirror-refresh-ms:60000}")
+    public void refreshMirrors() {
+        if (!bloomFilterService.isEnabled()) {
+            return;
+        }
+        bloomFilterService.refreshMirrors();
+    }
+
+    @Scheduled(cron = "${bloom.rebuild-cron:0 30 3 * * ?}")
+    public void rebuild() {
+        if (!bloomFilterService.isEnabled()) {
+            return;
+        }
+        log.info("定时任务：开始轮换重建布隆过滤器");
+        bloomFilterService.rebuildAll();
+    }
+}
@@ -0,0 +1,46 @@
+package com.muyingmall.task;
+
+import com.muyingmall.config.properties.RabbitMQProperties;
+import com.muyingmall.service.MessageOutboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 发件箱中继定时任务
+ * 事务提交后的即时唤醒之外，定期兜底发布到期重试的消息和其他节点遗留的消息，并清理已发送的历史记录
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "rabbitmq.enabled", havingValue = "true", matchIfMissing = true)
+public class MessageOutboxRelayTask {
+
+    private final MessageOutboxService messageOutboxService;
+    private final RabbitMQProperties rabbitMQProperties;
+
+    @Scheduled(fixedDelayString = "${rabbitmq.outbox.poll-interval:1000}")
+    public void relay() {
+        if (!rabbitMQProperties.getOutbox().isEnabled()) {
+            return;
+        }
+        messageOutboxService.requestRelay();
+    }
+
+    /**
+     * 每天凌晨4点清理已发送的消息
+     */
+    @Scheduled(cron = "0 0 4 * * ?")
+    public void purgeSent() {
+        try {
+            int deleted = messageOutboxService.purgeSent();
+            if (deleted > 0) {
+                log.info("定时任务：清理已发送的发件箱消息 {} 条", deleted);
+            }
+        } catch (Exception e) {
+            log.error("清理发件箱消息失败", e);
+        }
+    }
+}
@@ -1,146 +1,112 @@
 package com.muyingmall.task;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.muyingmall.dto.SkuStockDTO;
-import com.muyingmall.entity.Order;
-import com.muyingmall.entity.OrderProduct;
-import com.muyingmall.enums.OrderStatus;
-import com.muyingmall.mapper.OrderMapper;
-import com.muyingmall.mapper.OrderProductMapper;
-import com.muyingmall.mapper.ProductMapper;
-import com.muyingmall.service.OrderStateService;
-import com.muyingmall.service.ProductSkuService;
-import com.muyingmall.service.SeckillOrderReleaseService;
-import com.muyingmall.statemachine.OrderEvent;
+import com.muyingmall.annotation.ClusterJob;
+import com.muyingmall.config.properties.OrderTimeoutProperties;
+import com.muyingmall.job.ClusterJobContext;
+import com.muyingmall.service.OrderTimeoutService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-
-import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * 订单超时自动取消任务
- * 定时检查并取消超过5分钟未支付的订单
+ *
+ * 超时订单由 {@link OrderTimeoutService} 的延迟队列与时间轮触发取消，这里只负责周期性维护：
+ * 预加载即将到期的订单到时间轮、扫描 Redis 中已到期未处理的订单、检查并重建延迟队列，
+ * 以及低频的数据库兜底扫描（只查超时超过宽限期的订单，不再每分钟加载全部待支付订单）
+ * 集群中重建与兜底扫描只由一个节点执行；预加载与到期扫描按延迟队列分片分配到各节点，每个节点只处理自己的分片，
+ * 集群协调关闭（单节点）时处理全部分片
  */
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class OrderTimeoutTask {
 
-    private final OrderMapper orderMapper;
-    private final OrderStateService orderStateService;
-    private final OrderProductMapper orderProductMapper;
-    private final ProductMapper productMapper;
-    private final ProductSkuService productSkuService;
-    private final SeckillOrderReleaseService seckillOrderReleaseService;
+    private final OrderTimeoutService orderTimeoutService;
+    private final OrderTimeoutProperties orderTimeoutProperties;
 
     /**
-     * 每分钟执行一次，检查并取消超时订单
-     * cron表达式：秒 分 时 日 月 周
+     * 启动后检查延迟队列是否需要重建，并装入即将到期的订单
      */
-    @Scheduled(cron = "0 */1 * * * *")
-    public void cancelTimeoutOrders() {
-        log.debug("开始执行订单超时自动取消任务");
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildIfMissing();
+    }
 
+    /**
+     * 检查延迟队列就绪标记，Redis 数据丢失时从数据库重建
+     */
+    @Scheduled(initialDelay = 60000, fixedDelay = 60000)
+    @ClusterJob(name = "order-timeout-rebuild", leaseMs = 120000, minHoldMs = 60000)
+    public void rebuildIfMissing() {
+        if (!orderTimeoutProperties.isEnabled()) {
+            return;
+        }
         try {
-            // 计算5分钟前的时间点
-            LocalDateTime timeoutThreshold = LocalDateTime.now().minusMinutes(5);
-
-            // 查询超时未支付的订单
-            LambdaQueryWrapper<Order> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.eq(Order::getStatus, OrderStatus.PENDING_PAYMENT)
-                    .lt(Order::getCreateTime, timeoutThreshold);
-
-            List<Order> timeoutOrders = orderMapper.selectList(queryWrapper);
-
-            log.debug("发现 {} 个超时未支付订单需要取消", timeoutOrders.size());
-
-            // 逐个取消超时订单
-            for (Order order : timeoutOrders) {
-                try {
-                    // 使用状态机发送超时事件
-                    orderStateService.sendEvent(
-                            order,
-                            OrderEvent.TIMEOUT,
-                            "system",
-                            "订单超过5分钟未支付，系统自动取消");
-
-                    // 恢复库存
-                    restoreStock(order.getOrderId());
-                    // 释放秒杀订单占用（秒杀库存与资格），确保超时后用户可再次参与。
-                    seckillOrderReleaseService.releasePendingSeckillOrder(order.getOrderId(), "SCHEDULE_TIMEOUT");
-
-                    log.debug("成功取消超时订单: orderId={}, orderNo={}, userId={}, createTime={}",
-                            order.getOrderId(), order.getOrderNo(), order.getUserId(), order.getCreateTime());
-                } catch (Exception e) {
-                    log.error("取消超时订单失败: orderId={}, error={}", order.getOrderId(), e.getMessage(), e);
-                }
+            long rebuilt = orderTimeoutService.rebuildIfMissing();
+            if (rebuilt >= 0) {
+                orderTimeoutService.loadUpcoming();
             }
-
-            log.debug("订单超时自动取消任务执行完成，共处理 {} 个订单", timeoutOrders.size());
         } catch (Exception e) {
-            log.error("订单超时自动取消任务执行异常", e);
+            log.error("订单超时延迟队列重建失败", e);
         }
     }
 
     /**
-     * 恢复订单商品库存（支持SKU）
-     * 
-     * @param orderId 订单ID
+     * 预加载即将到期的订单到本地时间轮
      */
-    @Transactional(rollbackFor = Exception.class)
-    public void restoreStock(Integer orderId) {
+    @Scheduled(fixedDelayString = "${order.timeout.load-interval-ms:60000}")
+    @ClusterJob(name = "order-timeout-load", mode = ClusterJob.Mode.SHARDED, shards = "${order.timeout.shards:8}")
+    public void loadUpcoming() {
+        if (!orderTimeoutProperties.isEnabled()) {
+            return;
+        }
         try {
-            // 查询订单商品
-            LambdaQueryWrapper<OrderProduct> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.eq(OrderProduct::getOrderId, orderId);
-            List<OrderProduct> orderProducts = orderProductMapper.selectList(queryWrapper);
-
-            if (orderProducts.isEmpty()) {
-                log.warn("订单 {} 没有关联的商品，无需恢复库存", orderId);
-                return;
-            }
-
-            // 分别处理SKU商品和普通商品
-            List<SkuStockDTO> skuStockList = new ArrayList<>();
-            
-            for (OrderProduct orderProduct : orderProducts) {
-                Long skuId = orderProduct.getSkuId();
-                Integer quantity = orderProduct.getQuantity();
-                
-                if (skuId != null && skuId > 0) {
-                    // 有SKU，恢复SKU库存
-                    SkuStockDTO stockDTO = new SkuStockDTO();
-                    stockDTO.setSkuId(skuId);
-                    stockDTO.setQuantity(quantity);
-                    stockDTO.setOrderId(orderId);
-                    stockDTO.setOperator("system");
-                    stockDTO.setRemark("订单超时自动取消恢复库存");
-                    skuStockList.add(stockDTO);
-                    
-                    log.debug("准备恢复SKU库存: skuId={}, quantity={}, orderId={}", skuId, quantity, orderId);
-                } else {
-                    // 无SKU，恢复商品库存
-                    productMapper.increaseStock(orderProduct.getProductId(), quantity);
+            int loaded = orderTimeoutService.loadUpcoming(ClusterJobContext.shardIndex(),
+                    ClusterJobContext.shardTotal());
+            log.debug("订单超时时间轮预加载 {} 个订单", loaded);
+        } catch (Exception e) {
+            log.warn("订单超时时间轮预加载失败: {}", e.getMessage());
+        }
+    }
 
-                    log.debug("已恢复商品库存: productId={}, quantity={}", orderProduct.getProductId(), quantity);
-                }
+    /**
+     * 扫描 Redis 中已到期但未被时间轮处理的订单
+     */
+    @Scheduled(fixedDelayString = "${order.timeout.claim-interval-ms:10000}")
+    @ClusterJob(name = "order-timeout-claim", mode = ClusterJob.Mode.SHARDED, shards = "${order.timeout.shards:8}")
+    public void claimDue() {
+        if (!orderTimeoutProperties.isEnabled()) {
+            return;
+        }
+        try {
+            int processed = orderTimeoutService.claimDue(ClusterJobContext.shardIndex(),
+                    ClusterJobContext.shardTotal());
+            if (processed > 0) {
+                log.debug("订单超时到期扫描处理 {} 个订单", processed);
             }
+        } catch (Exception e) {
+            log.warn("订单超时到期扫描失败: {}", e.getMessage());
+        }
+    }
 
-            // 批量恢复SKU库存
-            if (!skuStockList.isEmpty()) {
-                productSkuService.batchRestoreStock(skuStockList);
-                log.debug("订单 {} SKU库存恢复完成，共 {} 个SKU", orderId, skuStockList.size());
+    /**
+     * 数据库兜底扫描：取消超时超过宽限期仍待支付的订单
+     */
+    @Scheduled(initialDelayString = "${order.timeout.sweep-interval-ms:600000}",
+            fixedDelayString = "${order.timeout.sweep-interval-ms:600000}")
+    @ClusterJob(name = "order-timeout-sweep", leaseMs = 120000, minHoldMs = 600000)
+    public void sweepOverdue() {
+        try {
+            int cancelled = orderTimeoutService.sweepOverdue();
+            if (cancelled > 0) {
+                log.info("订单超时兜底扫描取消 {} 个订单", cancelled);
             }
-
-            log.debug("订单 {} 的所有商品库存已恢复", orderId);
         } catch (Exception e) {
-            log.error("恢复订单 {} 商品库存失败: {}", orderId, e.getMessage(), e);
-            throw e; // 重新抛出异常，确保事务回滚
+            log.error("订单超时兜底扫描异常", e);
         }
     }
 }
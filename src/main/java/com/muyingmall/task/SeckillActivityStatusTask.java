@@ -1,19 +1,24 @@
 package com.muyingmall.task;
 
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.muyingmall.annotation.ClusterJob;
 import com.muyingmall.entity.SeckillActivity;
 import com.muyingmall.service.SeckillActivityService;
+import com.muyingmall.service.SeckillWarmupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * 秒杀活动状态定时任务
  * 自动更新活动状态：未开始 -> 进行中 -> 已结束
+ * 未开始的活动需完成预热（SeckillWarmupService 就绪标记）后才会切换为进行中
+ * 集群中只由一个节点执行，其他节点的本地缓存通过预热广播刷新
  */
 @Slf4j
 @Component
@@ -21,29 +26,52 @@ import java.util.List;
 public class SeckillActivityStatusTask {
     
     private final SeckillActivityService seckillActivityService;
+    private final SeckillWarmupService seckillWarmupService;
     
     /**
      * 每分钟执行一次，更新活动状态
      */
     @Scheduled(cron = "0 * * * * ?")
+    @ClusterJob(name = "seckill-activity-status", minHoldMs = 60000)
     public void updateActivityStatus() {
         try {
             LocalDateTime now = LocalDateTime.now();
             int updatedCount = 0;
             
-            // 1. 将到达开始时间的活动状态改为"进行中"
-            LambdaUpdateWrapper<SeckillActivity> startWrapper = new LambdaUpdateWrapper<>();
-            startWrapper.eq(SeckillActivity::getStatus, 0)  // 未开始
-                       .le(SeckillActivity::getStartTime, now)  // 开始时间 <= 当前时间
-                       .ge(SeckillActivity::getEndTime, now)    // 结束时间 >= 当前时间
-                       .set(SeckillActivity::getStatus, 1)      // 改为进行中
-                       .set(SeckillActivity::getUpdateTime, now);
+            // 1. 将到达开始时间且已完成预热的活动状态改为"进行中"
+            List<SeckillActivity> toStart = seckillActivityService.lambdaQuery()
+                    .eq(SeckillActivity::getStatus, 0)  // 未开始
+                    .le(SeckillActivity::getStartTime, now)  // 开始时间 <= 当前时间
+                    .ge(SeckillActivity::getEndTime, now)    // 结束时间 >= 当前时间
+                    .list();
+            List<SeckillActivity> readyActivities = new ArrayList<>();
+            for (SeckillActivity activity : toStart) {
+                // 未就绪（预热任务未赶上，如应用刚启动）时就地补做预热，仍未就绪则留到下一轮
+                if (!seckillWarmupService.isReady(activity.getId())) {
+                    log.warn("秒杀活动到达开始时间但尚未预热，立即预热: activityId={}", activity.getId());
+                    seckillWarmupService.warmup(activity);
+                }
+                if (seckillWarmupService.isReady(activity.getId())) {
+                    readyActivities.add(activity);
+                }
+            }
             
-            int startedCount = seckillActivityService.update(startWrapper) ? 
-                    (int) seckillActivityService.count(new LambdaUpdateWrapper<SeckillActivity>()
-                            .eq(SeckillActivity::getStatus, 1)
-                            .le(SeckillActivity::getStartTime, now)
-                            .ge(SeckillActivity::getEndTime, now)) : 0;
+            int startedCount = 0;
+            if (!readyActivities.isEmpty()) {
+                LambdaUpdateWrapper<SeckillActivity> startWrapper = new LambdaUpdateWrapper<>();
+                startWrapper.in(SeckillActivity::getId, readyActivities.stream().map(SeckillActivity::getId).toList())
+                           .eq(SeckillActivity::getStatus, 0)
+                           .set(SeckillActivity::getStatus, 1)      // 改为进行中
+                           .set(SeckillActivity::getUpdateTime, now);
+                if (seckillActivityService.update(startWrapper)) {
+                    startedCount = readyActivities.size();
+                    for (SeckillActivity activity : readyActivities) {
+                        activity.setStatus(1);
+                        activity.setUpdateTime(now);
+                        seckillWarmupService.refreshActivity(activity);
+                    }
+                }
+            }
             
             if (startedCount > 0) {
                 log.info("定时任务：{} 个活动已开始", startedCount);
@@ -80,6 +108,7 @@ public class SeckillActivityStatusTask {
      * 每小时执行一次，记录活动状态统计
      */
     @Scheduled(cron = "0 0 * * * ?")
+    @ClusterJob(name = "seckill-activity-statistics", minHoldMs = 3600000)
     public void logActivityStatistics() {
         try {
             long notStarted = seckillActivityService.lambdaQuery()
@@ -0,0 +1,31 @@
+package com.muyingmall.task;
+
+import com.muyingmall.service.SeckillWaitingRoomService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 秒杀排队室定时任务
+ * 按消费端吞吐周期性推进各排队室的准入窗口
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeckillWaitingRoomTask {
+
+    private final SeckillWaitingRoomService seckillWaitingRoomService;
+
+    @Scheduled(fixedDelayString = "${seckill.waiting-room.advance-interval-ms:1000}")
+    public void advanceWindows() {
+        if (!seckillWaitingRoomService.isEnabled()) {
+            return;
+        }
+        try {
+            seckillWaitingRoomService.advanceWindows();
+        } catch (Exception e) {
+            log.error("推进秒杀排队准入窗口失败", e);
+        }
+    }
+}
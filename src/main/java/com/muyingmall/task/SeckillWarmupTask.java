@@ -0,0 +1,34 @@
+package com.muyingmall.task;
+
+import com.muyingmall.service.SeckillWarmupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 秒杀预热定时任务
+ * 周期性扫描即将开始的活动，在开始前 lead-minutes 分钟内完成预热
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeckillWarmupTask {
+
+    private final SeckillWarmupService seckillWarmupService;
+
+    @Scheduled(fixedDelayString = "${seckill.warmup.scan-interval-ms:30000}")
+    public void warmupUpcoming() {
+        if (!seckillWarmupService.isEnabled()) {
+            return;
+        }
+        try {
+            int warmed = seckillWarmupService.warmupUpcoming();
+            if (warmed > 0) {
+                log.info("定时任务：{} 个秒杀活动已预热", warmed);
+            }
+        } catch (Exception e) {
+            log.error("秒杀活动预热失败", e);
+        }
+    }
+}
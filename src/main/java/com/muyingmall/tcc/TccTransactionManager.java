@@ -2,6 +2,7 @@ package com.muyingmall.tcc;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muyingmall.common.id.IdGenerator;
 import com.muyingmall.lock.DistributedLock;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +25,7 @@ public class TccTransactionManager {
     private final RedisTemplate<String, Object> redisTemplate;
     private final DistributedLock distributedLock;
     private final ObjectMapper objectMapper;
+    private final IdGenerator idGenerator;
 
     /**
      * TCC事务键前缀
@@ -70,7 +72,7 @@ public class TccTransactionManager {
      */
     public <T> String begin(String transactionType, String businessKey, T params, long timeout) {
         // 创建事务ID
-        String transactionId = UUID.randomUUID().toString();
+        String transactionId = idGenerator.nextIdString();
 
         // 创建事务对象
         TccTransaction transaction = new TccTransaction();
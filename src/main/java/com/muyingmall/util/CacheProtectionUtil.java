@@ -1,11 +1,21 @@
 package com.muyingmall.util;
 
+import com.muyingmall.cache.CacheEnvelope;
+import com.muyingmall.cache.CacheFillNotifier;
+import com.muyingmall.cache.CacheMetrics;
+import com.muyingmall.cache.CacheNamespaces;
+import com.muyingmall.cache.CachePolicy;
+import com.muyingmall.cache.CacheRefresher;
+import com.muyingmall.cache.SingleFlight;
 import com.muyingmall.common.constants.CacheConstants;
+import com.muyingmall.service.BloomFilterService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
@@ -20,21 +30,25 @@ import java.util.function.Function;
 public class CacheProtectionUtil {
 
     private final RedisUtil redisUtil;
+    private final CacheNamespaces cacheNamespaces;
+    private final BloomFilterService bloomFilterService;
+    private final SingleFlight singleFlight;
+    private final CacheFillNotifier cacheFillNotifier;
+    private final CacheRefresher cacheRefresher;
+    private final CacheMetrics cacheMetrics;
 
     // 空值缓存的过期时间(秒) - 优化：从60秒延长到300秒，减少缓存穿透
     private static final long NULL_VALUE_EXPIRE_TIME = 300;
 
-    // 布隆过滤器缓存键前缀
-    private static final String BLOOM_FILTER_KEY_PREFIX = "bloom:";
-
     // 缓存锁过期时间(秒) - 优化：缩短到10秒，快速释放锁
     private static final long LOCK_EXPIRE_TIME = 10;
 
-    // 缓存锁重试次数 - 优化：减少到3次，总等待时间60ms，大幅降低响应延迟
-    private static final int LOCK_RETRY_TIMES = 3;
+    // 软过期查询硬过期后回源使用的互斥锁前缀
+    private static final String SOFT_TTL_LOCK_PREFIX = "lock:";
 
-    // 缓存锁重试间隔(毫秒) - 优化：减少到20ms，极速重试
-    private static final long LOCK_RETRY_INTERVAL = 20;
+    // 未抢到锁时等待回填广播的最长时间(毫秒)，超时后降级查询数据库
+    @Value("${cache.single-flight.fill-wait-ms:500}")
+    private long fillWaitMs;
 
     /**
      * 防止缓存穿透的查询方法
@@ -48,7 +62,7 @@ public class CacheProtectionUtil {
      */
     public <T> T queryWithProtection(String cacheKey, long expireTime, Callable<T> dbFallback) {
         // 1. 查询缓存
-        Object cacheResult = redisUtil.get(cacheKey);
+        Object cacheResult = timedGet(cacheKey);
 
         // 2. 判断是否命中
         if (cacheResult != null) {
@@ -65,7 +79,7 @@ public class CacheProtectionUtil {
         // 3. 查询数据库
         try {
             // 执行数据库查询
-            T dbResult = dbFallback.call();
+            T dbResult = timedLoad(cacheKey, dbFallback);
 
             // 4. 写入缓存
             if (dbResult != null) {
@@ -88,8 +102,9 @@ public class CacheProtectionUtil {
 
     /**
      * 防止缓存击穿的查询方法
-     * 使用setIfAbsent实现互斥锁，确保同一时刻只有一个线程查询数据库
-     * 优化：未获取锁时等待并重试，避免高并发下数据库压力过大
+     * 两级合并：同一 JVM 内的并发未命中先经 {@link SingleFlight} 合并为一次加载，
+     * 节点之间再用 Redis 互斥锁决定由谁查询数据库；未抢到锁的节点等待回填广播后重新读取缓存，
+     * 等待超时仍未命中时降级查询数据库（不写缓存）
      *
      * @param cacheKey   缓存键
      * @param lockKey    锁键(可以与cacheKey相同)
@@ -100,18 +115,73 @@ public class CacheProtectionUtil {
      */
     public <T> T queryWithMutex(String cacheKey, String lockKey, long expireTime, Callable<T> dbFallback) {
         // 1. 首次查询缓存（带类型兼容处理）
-        Object cacheResult = safeGetCache(cacheKey);
+        Object cacheResult = timedSafeGet(cacheKey);
 
         // 2. 判断是否命中
         if (cacheResult != null) {
-            // 特殊处理：如果是空值标记，则返回null
-            if (CacheConstants.EMPTY_CACHE_VALUE.equals(cacheResult.toString())) {
-                return null;
+            return unwrapCached(cacheResult);
+        }
+
+        // 3. 本节点内合并并发未命中
+        try {
+            return executeOnce(cacheKey, () -> loadWithMutex(cacheKey, lockKey, expireTime, null, dbFallback));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("缓存加载失败: " + cacheKey, e);
+        }
+    }
+
+    /**
+     * 软过期查询（stale-while-revalidate / refresh-ahead）
+     * 缓存条目携带逻辑过期时间：软过期后先返回旧值，同时由一个后台虚拟线程回源刷新；
+     * 策略启用提前刷新时，软过期前窗口内仍被访问的键提前刷新。只有硬过期（Redis TTL）后的未命中
+     * 才由请求线程回源，此时走与 {@link #queryWithMutex} 相同的合并与互斥流程
+     *
+     * @param cacheKey   缓存键
+     * @param policy     软过期策略（见 CacheConstants 中的 *_POLICY）
+     * @param dbFallback 数据库查询函数
+     * @param <T>        返回值类型
+     * @return 查询结果
+     */
+    public <T> T queryWithSoftTtl(String cacheKey, CachePolicy policy, Callable<T> dbFallback) {
+        Object cacheResult = timedSafeGet(cacheKey);
+        if (cacheResult instanceof CacheEnvelope envelope) {
+            if (cacheRefresher.refreshIfDue(cacheKey, envelope, policy, dbFallback)) {
+                log.debug("返回软过期缓存并后台刷新: {}", cacheKey);
             }
-            return (T) cacheResult;
+            return unwrapCached(envelope);
+        }
+        if (cacheResult != null) {
+            // 未带过期时间的旧格式值（升级前或预热写入）：照常返回，后台换成软过期条目
+            if (!CacheConstants.EMPTY_CACHE_VALUE.equals(cacheResult.toString())) {
+                cacheRefresher.refreshAsync(cacheKey, policy, dbFallback);
+            }
+            return unwrapCached(cacheResult);
         }
 
-        // 3. 尝试获取互斥锁
+        try {
+            return executeOnce(cacheKey, () -> loadWithMutex(cacheKey, SOFT_TTL_LOCK_PREFIX + cacheKey,
+                    policy.hardTtlSeconds(), policy, dbFallback));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("缓存加载失败: " + cacheKey, e);
+        }
+    }
+
+    /**
+     * 持有本节点合并权的线程执行：节点间抢锁，持锁者回源并广播回填完成，其余节点等待广播
+     */
+    private <T> T loadWithMutex(String cacheKey, String lockKey, long expireTime, CachePolicy policy,
+            Callable<T> dbFallback) {
+        // 合并窗口内可能已有其他请求完成回填
+        Object cacheResult = safeGetCache(cacheKey);
+        if (cacheResult != null) {
+            return unwrapCached(cacheResult);
+        }
+
+        // 4. 尝试获取互斥锁
         boolean lockAcquired = false;
         try {
             lockAcquired = redisUtil.setIfAbsent(lockKey, "1", LOCK_EXPIRE_TIME);
@@ -119,96 +189,157 @@ public class CacheProtectionUtil {
             log.warn("获取缓存锁失败: key={}, error={}", lockKey, lockEx.getMessage());
         }
 
+        if (!lockAcquired) {
+            cacheMetrics.recordContention(CacheMetrics.namespaceOf(cacheKey), CacheMetrics.ContentionSource.REDIS);
+            return awaitFill(cacheKey, dbFallback);
+        }
+
         try {
-            if (lockAcquired) {
-                // 双重检查，再次查询缓存
-                cacheResult = safeGetCache(cacheKey);
-                if (cacheResult != null) {
-                    if (CacheConstants.EMPTY_CACHE_VALUE.equals(cacheResult.toString())) {
-                        return null;
-                    }
-                    return (T) cacheResult;
-                }
+            // 双重检查，再次查询缓存
+            cacheResult = safeGetCache(cacheKey);
+            if (cacheResult != null) {
+                return unwrapCached(cacheResult);
+            }
 
-                // 4. 持锁线程查询数据库
-                T dbResult;
-                try {
-                    dbResult = dbFallback.call();
-                } catch (Exception dbEx) {
-                    // 数据库查询异常时不写入空值缓存，直接向上抛出，由调用方决定如何降级
-                    log.error("数据库查询异常，跳过空值缓存写入: key={}", cacheKey, dbEx);
-                    throw new RuntimeException("数据库查询异常: " + cacheKey, dbEx);
-                }
+            // 5. 持锁线程查询数据库
+            T dbResult;
+            try {
+                dbResult = timedLoad(cacheKey, dbFallback);
+            } catch (Exception dbEx) {
+                // 数据库查询异常时不写入空值缓存，直接向上抛出，由调用方决定如何降级
+                log.error("数据库查询异常，跳过空值缓存写入: key={}", cacheKey, dbEx);
+                throw new RuntimeException("数据库查询异常: " + cacheKey, dbEx);
+            }
 
-                // 5. 写入缓存
-                try {
-                    if (dbResult != null) {
-                        long finalExpireTime = getRandomExpireTime(expireTime);
-                        redisUtil.set(cacheKey, dbResult, finalExpireTime);
-                        log.debug("将查询结果写入缓存: key={}, expireTime={}s", cacheKey, finalExpireTime);
-                    } else {
-                        // 仅在数据库正常返回空结果时缓存空值，避免缓存穿透
-                        redisUtil.set(cacheKey, CacheConstants.EMPTY_CACHE_VALUE, NULL_VALUE_EXPIRE_TIME);
-                        log.debug("数据不存在，写入空值缓存: key={}", cacheKey);
-                    }
-                } catch (Exception cacheEx) {
-                    log.warn("缓存写入失败: key={}, error={}", cacheKey, cacheEx.getMessage());
+            // 6. 写入缓存
+            try {
+                if (dbResult != null && policy != null) {
+                    cacheRefresher.put(cacheKey, dbResult, policy);
+                } else if (dbResult != null) {
+                    long finalExpireTime = getRandomExpireTime(expireTime);
+                    redisUtil.set(cacheKey, dbResult, finalExpireTime);
+                    log.debug("将查询结果写入缓存: key={}, expireTime={}s", cacheKey, finalExpireTime);
+                } else {
+                    // 仅在数据库正常返回空结果时缓存空值，避免缓存穿透
+                    redisUtil.set(cacheKey, CacheConstants.EMPTY_CACHE_VALUE, NULL_VALUE_EXPIRE_TIME);
+                    log.debug("数据不存在，写入空值缓存: key={}", cacheKey);
                 }
+            } catch (Exception cacheEx) {
+                log.warn("缓存写入失败: key={}, error={}", cacheKey, cacheEx.getMessage());
+            }
 
-                return dbResult;
-            } else {
-                // 6. 未获取到锁，等待并重试查询缓存
-                for (int i = 0; i < LOCK_RETRY_TIMES; i++) {
-                    try {
-                        // 虚拟线程友好的睡眠方式（自动让出CPU）
-                        TimeUnit.MILLISECONDS.sleep(LOCK_RETRY_INTERVAL);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        log.warn("等待缓存重建被中断: key={}", cacheKey);
-                        break;
-                    }
-
-                    // 重新查询缓存
-                    cacheResult = safeGetCache(cacheKey);
-                    if (cacheResult != null) {
-                        if (CacheConstants.EMPTY_CACHE_VALUE.equals(cacheResult.toString())) {
-                            return null;
-                        }
-                        return (T) cacheResult;
-                    }
-                }
+            return dbResult;
+        } finally {
+            // 7. 释放锁并通知等待节点（回源失败时等待方读不到缓存，会自行降级）
+            try {
+                redisUtil.del(lockKey);
+            } catch (Exception delEx) {
+                log.warn("释放缓存锁失败: key={}, error={}", lockKey, delEx.getMessage());
+            }
+            cacheFillNotifier.publish(cacheKey);
+        }
+    }
 
-                // 7. 重试后仍未命中缓存，降级查询数据库（不写缓存，避免异常场景污染缓存）
-                try {
-                    return dbFallback.call();
-                } catch (Exception dbEx) {
-                    log.error("降级查询数据库失败: key={}", cacheKey, dbEx);
-                    throw new RuntimeException("降级查询数据库失败: " + cacheKey, dbEx);
-                }
+    /**
+     * 未抢到锁：等待持锁节点的回填广播后重新读取缓存
+     */
+    private <T> T awaitFill(String cacheKey, Callable<T> dbFallback) {
+        CompletableFuture<Void> filled = cacheFillNotifier.await(cacheKey);
+        try {
+            // 登记后再查一次，避免错过登记前已发出的广播
+            Object cacheResult = safeGetCache(cacheKey);
+            if (cacheResult != null) {
+                return unwrapCached(cacheResult);
             }
-        } catch (RuntimeException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("缓存查询流程异常: key={}, error={}", cacheKey, e.getMessage(), e);
-            // 最终降级：直接查询数据库，但失败时向上抛出，避免将异常伪装为空结果
             try {
-                return dbFallback.call();
-            } catch (Exception fallbackEx) {
-                log.error("最终降级查询也失败: key={}", cacheKey, fallbackEx);
-                throw new RuntimeException("最终降级查询失败: " + cacheKey, fallbackEx);
+                filled.get(fillWaitMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                log.warn("等待缓存重建被中断: key={}", cacheKey);
+            } catch (Exception waitEx) {
+                log.debug("等待缓存回填超时: key={}, timeout={}ms", cacheKey, fillWaitMs);
             }
-        } finally {
-            // 8. 释放锁
-            if (lockAcquired) {
-                try {
-                    redisUtil.del(lockKey);
-                } catch (Exception delEx) {
-                    log.warn("释放缓存锁失败: key={}, error={}", lockKey, delEx.getMessage());
-                }
+
+            cacheResult = safeGetCache(cacheKey);
+            if (cacheResult != null) {
+                return unwrapCached(cacheResult);
             }
+        } finally {
+            cacheFillNotifier.cancel(cacheKey, filled);
+        }
+
+        // 8. 等待后仍未命中缓存，降级查询数据库（不写缓存，避免异常场景污染缓存）
+        try {
+            return timedLoad(cacheKey, dbFallback);
+        } catch (Exception dbEx) {
+            log.error("降级查询数据库失败: key={}", cacheKey, dbEx);
+            throw new RuntimeException("降级查询数据库失败: " + cacheKey, dbEx);
         }
     }
 
+    /**
+     * 经 SingleFlight 执行加载；本线程未执行加载（复用了其他线程的结果）时记为进程内击穿等待
+     */
+    private <T> T executeOnce(String cacheKey, Callable<T> loader) throws Exception {
+        boolean[] loaded = new boolean[1];
+        T result = singleFlight.execute(cacheKey, () -> {
+            loaded[0] = true;
+            return loader.call();
+        });
+        if (!loaded[0]) {
+            cacheMetrics.recordContention(CacheMetrics.namespaceOf(cacheKey), CacheMetrics.ContentionSource.LOCAL);
+        }
+        return result;
+    }
+
+    /**
+     * 读取缓存并记录命中与 Redis 耗时；空值标记也算命中（同样省去了一次数据库查询）
+     */
+    private Object timedGet(String cacheKey) {
+        long start = System.nanoTime();
+        Object cacheResult = redisUtil.get(cacheKey);
+        recordLookup(cacheKey, cacheResult, System.nanoTime() - start);
+        return cacheResult;
+    }
+
+    private Object timedSafeGet(String cacheKey) {
+        long start = System.nanoTime();
+        Object cacheResult = safeGetCache(cacheKey);
+        recordLookup(cacheKey, cacheResult, System.nanoTime() - start);
+        return cacheResult;
+    }
+
+    private void recordLookup(String cacheKey, Object cacheResult, long elapsedNanos) {
+        String namespace = CacheMetrics.namespaceOf(cacheKey);
+        if (cacheResult != null) {
+            cacheMetrics.recordL2Hit(namespace, elapsedNanos);
+        } else {
+            cacheMetrics.recordMiss(namespace, elapsedNanos);
+        }
+    }
+
+    /**
+     * 执行数据库查询并记录回源耗时与结果大小
+     */
+    private <T> T timedLoad(String cacheKey, Callable<T> dbFallback) throws Exception {
+        long start = System.nanoTime();
+        T result = dbFallback.call();
+        cacheMetrics.recordLoad(CacheMetrics.namespaceOf(cacheKey), System.nanoTime() - start, result);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T unwrapCached(Object cacheResult) {
+        if (cacheResult instanceof CacheEnvelope envelope) {
+            return (T) envelope.getValue();
+        }
+        // 特殊处理：如果是空值标记，则返回null
+        if (CacheConstants.EMPTY_CACHE_VALUE.equals(cacheResult.toString())) {
+            return null;
+        }
+        return (T) cacheResult;
+    }
+
     /**
      * 安全获取缓存，处理类型不匹配的情况
      * 如果缓存key存在但类型不是String，则删除后返回null，让调用方重新查询数据库
@@ -261,7 +392,7 @@ public class CacheProtectionUtil {
      *
      * @param cacheKey        缓存键
      * @param id              数据ID，用于在布隆过滤器中判断
-     * @param bloomFilterName 布隆过滤器名称
+     * @param bloomFilterName 布隆过滤器名称（见 {@link BloomFilterService#PRODUCT} 等）
      * @param expireTime      缓存过期时间(秒)
      * @param dbFallback      数据库查询函数
      * @param <T>             返回值类型
@@ -269,12 +400,8 @@ public class CacheProtectionUtil {
      */
     public <T> T queryWithBloomFilter(String cacheKey, Object id, String bloomFilterName, long expireTime,
             Callable<T> dbFallback) {
-        // 1. 判断布隆过滤器
-        String bloomKey = BLOOM_FILTER_KEY_PREFIX + bloomFilterName;
-
-        // 简化处理：这里使用Set实现布隆过滤器效果
-        // 实际应用中应该使用专门的布隆过滤器库
-        boolean mayExist = redisUtil.sIsMember(bloomKey, id.toString());
+        // 1. 判断布隆过滤器（本地镜像命中时不访问 Redis）
+        boolean mayExist = bloomFilterService.mightContain(bloomFilterName, id);
 
         // 如果布隆过滤器判断这个值一定不存在，直接返回null
         if (!mayExist) {
@@ -283,7 +410,7 @@ public class CacheProtectionUtil {
         }
 
         // 2. 查询缓存
-        Object cacheResult = redisUtil.get(cacheKey);
+        Object cacheResult = timedGet(cacheKey);
 
         // 3. 判断是否命中
         if (cacheResult != null) {
@@ -296,17 +423,13 @@ public class CacheProtectionUtil {
 
         // 4. 查询数据库
         try {
-            T dbResult = dbFallback.call();
+            T dbResult = timedLoad(cacheKey, dbFallback);
 
             // 5. 写入缓存
             if (dbResult != null) {
                 // 添加随机过期时间，避免缓存雪崩
                 long finalExpireTime = getRandomExpireTime(expireTime);
                 redisUtil.set(cacheKey, dbResult, finalExpireTime);
-
-                // 确保该ID存在于布隆过滤器中
-                redisUtil.sAdd(bloomKey, id.toString());
-
                 log.debug("将查询结果写入缓存: key={}, expireTime={}s", cacheKey, finalExpireTime);
             } else {
                 // 缓存空值，避免缓存穿透
@@ -335,7 +458,7 @@ public class CacheProtectionUtil {
     public <T> T queryWithDegradation(String cacheKey, long expireTime, Callable<T> dbFallback,
             Function<String, T> degradeFunction) {
         // 1. 查询缓存
-        Object cacheResult = redisUtil.get(cacheKey);
+        Object cacheResult = timedGet(cacheKey);
 
         // 2. 判断是否命中
         if (cacheResult != null) {
@@ -351,7 +474,7 @@ public class CacheProtectionUtil {
 
         // 3. 查询数据库
         try {
-            T dbResult = dbFallback.call();
+            T dbResult = timedLoad(cacheKey, dbFallback);
 
             // 4. 写入缓存
             if (dbResult != null) {
@@ -375,6 +498,31 @@ public class CacheProtectionUtil {
         }
     }
 
+    /**
+     * 在带代号的命名空间内执行防穿透查询
+     * 缓存键为 {namespace}v{代号}:{suffix}，通过 {@link #invalidateNamespace(String)} 整体失效
+     *
+     * @param namespace  命名空间，如 coupon:user:1001:
+     * @param suffix     命名空间内的键后缀
+     * @param expireTime 缓存过期时间(秒)
+     * @param dbFallback 数据库查询函数
+     * @param <T>        返回值类型
+     * @return 查询结果
+     */
+    public <T> T queryInNamespace(String namespace, String suffix, long expireTime, Callable<T> dbFallback) {
+        return queryWithProtection(cacheNamespaces.key(namespace, suffix), expireTime, dbFallback);
+    }
+
+    /**
+     * 使命名空间内的全部缓存失效
+     * 只递增一次代号，不扫描 Redis 键空间，旧条目随 TTL 过期
+     *
+     * @param namespace 命名空间
+     */
+    public void invalidateNamespace(String namespace) {
+        cacheNamespaces.bump(namespace);
+    }
+
     /**
      * 获取带有随机波动的过期时间
      * 避免大量缓存同时过期导致缓存雪崩
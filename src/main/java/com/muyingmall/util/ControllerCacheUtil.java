@@ -1,5 +1,6 @@
 package com.muyingmall.util;
 
+import com.muyingmall.cache.CacheNamespaces;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -19,6 +20,7 @@ import java.util.function.Supplier;
 public class ControllerCacheUtil {
 
     private final RedisUtil redisUtil;
+    private final CacheNamespaces cacheNamespaces;
 
     /**
      * 带缓存的查询方法
@@ -60,6 +62,22 @@ public class ControllerCacheUtil {
         return result;
     }
 
+    /**
+     * 在带代号的命名空间内执行带缓存的查询
+     * 缓存键为 {namespace}v{代号}:{suffix}，用于分页等同一命名空间下有多个键的响应缓存，
+     * 通过 {@link #clearNamespace(String)} 整体失效
+     *
+     * @param namespace 命名空间，如 order:list:1001:
+     * @param suffix 命名空间内的键后缀
+     * @param expireSeconds 过期时间（秒）
+     * @param supplier 数据查询函数
+     * @param <T> 返回类型
+     * @return 查询结果
+     */
+    public <T> T getInNamespace(String namespace, String suffix, long expireSeconds, Supplier<T> supplier) {
+        return getWithCache(cacheNamespaces.key(namespace, suffix), expireSeconds, supplier);
+    }
+
     /**
      * 清除缓存
      * 
@@ -77,21 +95,17 @@ public class ControllerCacheUtil {
     }
 
     /**
-     * 使用模式匹配清除缓存
-     * 用于清除带有通配符的缓存键（如分页缓存）
-     * 
-     * @param pattern 缓存键模式（支持*通配符）
+     * 使命名空间内的全部响应缓存失效
+     * 只递增一次代号，不扫描 Redis 键空间，旧条目随 TTL 过期
+     *
+     * @param namespace 命名空间
      */
-    public void clearCacheByPattern(String pattern) {
-        if (pattern == null || pattern.isEmpty()) {
+    public void clearNamespace(String namespace) {
+        if (namespace == null || namespace.isEmpty()) {
             return;
         }
-        
-        java.util.Set<String> keys = redisUtil.keys(pattern);
-        if (keys != null && !keys.isEmpty()) {
-            redisUtil.del(keys);
-            log.debug("Controller缓存已清除（模式匹配）: pattern={}, 清除数量={}", pattern, keys.size());
-        }
+        cacheNamespaces.bump(namespace);
+        log.debug("Controller缓存命名空间已失效: namespace={}", namespace);
     }
 
     /**
@@ -114,10 +128,10 @@ public class ControllerCacheUtil {
         
         // 清除用户统计相关缓存
         if (userId != null) {
+            clearNamespace("order:list:" + userId + ":");
+            clearNamespace("user:favorites:" + userId + ":");
             clearCache(
                 "order:stats:" + userId,
-                "order:list:" + userId,
-                "user:favorites:" + userId,
                 "user:addresses:" + userId,
                 "user:coupons:" + userId,
                 "cart:list:" + userId,
@@ -0,0 +1,39 @@
+package com.muyingmall.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.util.concurrent.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 单节点限流后端 - Guava RateLimiter
+ * 配额按节点计算（N 个节点时总配额为 N 倍），仅用于单机部署或 Redis 不可用时的降级
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.backend", havingValue = "local")
+public class LocalRateLimiterBackend implements RateLimiterBackend {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Cache<String, RateLimiter> limiters = Caffeine.newBuilder()
+            .maximumSize(100000)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    public LocalRateLimiterBackend(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean tryAcquire(RateLimitPolicy policy, String key) {
+        RateLimiter limiter = limiters.get(policy.getName() + ":" + key,
+                k -> RateLimiter.create(policy.getPermitsPerSecond()));
+        boolean allowed = limiter.tryAcquire();
+        RedisRateLimiterBackend.record(meterRegistry, policy, allowed, "local");
+        return allowed;
+    }
+}
@@ -1,44 +1,25 @@
 package com.muyingmall.util;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import com.google.common.util.concurrent.RateLimiter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-
 /**
  * 登录限流器 - 基于IP和用户名的双重限流
- * 使用Guava RateLimiter实现令牌桶算法
+ * 令牌桶由 {@link RateLimiterBackend} 提供，默认在集群内共享配额
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class LoginRateLimiter {
 
-    // IP级别限流：每个IP每秒最多10次登录请求
-    private final LoadingCache<String, RateLimiter> ipLimiters = CacheBuilder.newBuilder()
-            .maximumSize(10000)
-            .expireAfterAccess(1, TimeUnit.HOURS)
-            .build(new CacheLoader<String, RateLimiter>() {
-                @Override
-                public RateLimiter load(String key) {
-                    return RateLimiter.create(10.0); // 每秒10个令牌
-                }
-            });
+    // IP级别限流：每个IP每秒最多10次登录请求，每次租借2个令牌减少Redis往返
+    static final RateLimitPolicy IP_POLICY = new RateLimitPolicy("login-ip", 10.0, 10, 2);
 
     // 用户名级别限流：每个用户名每秒最多5次登录请求
-    private final LoadingCache<String, RateLimiter> userLimiters = CacheBuilder.newBuilder()
-            .maximumSize(50000)
-            .expireAfterAccess(10, TimeUnit.MINUTES)
-            .build(new CacheLoader<String, RateLimiter>() {
-                @Override
-                public RateLimiter load(String key) {
-                    return RateLimiter.create(5.0); // 每秒5个令牌
-                }
-            });
+    static final RateLimitPolicy USER_POLICY = new RateLimitPolicy("login-user", 5.0, 5, 1);
+
+    private final RateLimiterBackend rateLimiterBackend;
 
     /**
      * 尝试获取登录许可
@@ -48,25 +29,18 @@ public class LoginRateLimiter {
      * @return true表示允许登录，false表示被限流
      */
     public boolean tryAcquire(String ip, String username) {
-        try {
-            // IP级别限流检查
-            RateLimiter ipLimiter = ipLimiters.get(ip);
-            if (!ipLimiter.tryAcquire(100, TimeUnit.MILLISECONDS)) {
-                log.warn("登录请求被IP限流拦截: ip={}", ip);
-                return false;
-            }
-
-            // 用户名级别限流检查
-            RateLimiter userLimiter = userLimiters.get(username);
-            if (!userLimiter.tryAcquire(100, TimeUnit.MILLISECONDS)) {
-                log.warn("登录请求被用户名限流拦截: username={}", username);
-                return false;
-            }
+        // IP级别限流检查
+        if (!rateLimiterBackend.tryAcquire(IP_POLICY, ip)) {
+            log.warn("登录请求被IP限流拦截: ip={}", ip);
+            return false;
+        }
 
-            return true;
-        } catch (ExecutionException e) {
-            log.error("限流器获取失败", e);
-            return true; // 限流器异常时放行，避免影响正常业务
+        // 用户名级别限流检查
+        if (!rateLimiterBackend.tryAcquire(USER_POLICY, username)) {
+            log.warn("登录请求被用户名限流拦截: username={}", username);
+            return false;
         }
+
+        return true;
     }
 }
@@ -0,0 +1,40 @@
+package com.muyingmall.util;
+
+import lombok.Getter;
+
+/**
+ * 限流策略：一个策略对应一类限流Key（如"秒杀-IP"、"登录-用户名"）
+ */
+@Getter
+public class RateLimitPolicy {
+
+    /**
+     * 策略名称，用作 Redis Key 前缀与监控指标标签
+     */
+    private final String name;
+
+    /**
+     * 速率（令牌/秒）
+     */
+    private final double permitsPerSecond;
+
+    /**
+     * 突发容量（令牌数）
+     */
+    private final int burst;
+
+    /**
+     * 每次向 Redis 租借的令牌数，低速率的Key取 1，高速率的Key取较大值以减少 Redis 往返
+     */
+    private final int leaseSize;
+
+    public RateLimitPolicy(String name, double permitsPerSecond, int burst, int leaseSize) {
+        if (permitsPerSecond <= 0 || burst < 1 || leaseSize < 1 || leaseSize > burst) {
+            throw new IllegalArgumentException("限流策略参数非法: " + name);
+        }
+        this.name = name;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.leaseSize = leaseSize;
+    }
+}
@@ -0,0 +1,17 @@
+package com.muyingmall.util;
+
+/**
+ * 限流后端
+ * 由配置 rate-limit.backend 选择：redis（默认，集群共享配额）或 local（单节点 Guava）
+ */
+public interface RateLimiterBackend {
+
+    /**
+     * 尝试获取一个令牌（不等待）
+     *
+     * @param policy 限流策略
+     * @param key    限流Key（如 IP、用户名）
+     * @return true 表示放行，false 表示被限流
+     */
+    boolean tryAcquire(RateLimitPolicy policy, String key);
+}
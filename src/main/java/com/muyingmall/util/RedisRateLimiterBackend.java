@@ -0,0 +1,127 @@
+package com.muyingmall.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+
+/**
+ * 集群限流后端 - Redis GCRA + 本地令牌租借
+ *
+ * <p>
+ * 配额保存在 Redis（rate_limit_lease.lua），所有节点共享同一个令牌桶；
+ * 每次向 Redis 租借 leaseSize 个令牌在本地消费，租约在 lease-ttl-ms 后作废，未用完的令牌不归还（只会少放不会多放）。
+ * 被限流时脚本返回下一个令牌的等待时间，本地在此期间直接拒绝，不再访问 Redis。
+ * Redis 异常时退回单节点 Guava 限流。
+ * </p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "rate-limit.backend", havingValue = "redis", matchIfMissing = true)
+public class RedisRateLimiterBackend implements RateLimiterBackend {
+
+    private static final String KEY_PREFIX = "rate:limit:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final LocalRateLimiterBackend fallback;
+
+    @Value("${rate-limit.lease-ttl-ms:1000}")
+    private long leaseTtlMs;
+
+    private DefaultRedisScript<Long> leaseScript;
+
+    /**
+     * 本地租约，只保留最近活跃的Key，过期即回收
+     */
+    private Cache<String, Lease> leases;
+
+    public RedisRateLimiterBackend(RedisTemplate<String, Object> redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.fallback = new LocalRateLimiterBackend(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        leaseScript = new DefaultRedisScript<>();
+        leaseScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("scripts/rate_limit_lease.lua")));
+        leaseScript.setResultType(Long.class);
+
+        leases = Caffeine.newBuilder()
+                .maximumSize(100000)
+                .expireAfterAccess(Duration.ofMillis(Math.max(leaseTtlMs, 100) * 2))
+                .build();
+    }
+
+    /**
+     * 本地租约：剩余令牌及其有效期，或被限流的截止时间
+     */
+    private static final class Lease {
+        private int remaining;
+        private long validUntil;
+        private long blockedUntil;
+    }
+
+    @Override
+    public boolean tryAcquire(RateLimitPolicy policy, String key) {
+        String redisKey = KEY_PREFIX + policy.getName() + ":" + key;
+        Lease lease = leases.get(redisKey, k -> new Lease());
+        synchronized (lease) {
+            long now = System.currentTimeMillis();
+            if (now < lease.blockedUntil) {
+                record(meterRegistry, policy, false, "lease");
+                return false;
+            }
+            if (lease.remaining > 0 && now < lease.validUntil) {
+                lease.remaining--;
+                record(meterRegistry, policy, true, "lease");
+                return true;
+            }
+
+            Long result;
+            try {
+                result = redisTemplate.execute(leaseScript, Collections.singletonList(redisKey),
+                        policy.getPermitsPerSecond(), policy.getBurst(), policy.getLeaseSize());
+            } catch (Exception e) {
+                log.warn("Redis 限流不可用，退回本地限流: policy={}, key={}, error={}",
+                        policy.getName(), key, e.getMessage());
+                return fallback.tryAcquire(policy, key);
+            }
+
+            long granted = result != null ? result : 0;
+            if (granted <= 0) {
+                lease.remaining = 0;
+                lease.blockedUntil = now - granted;
+                record(meterRegistry, policy, false, "redis");
+                return false;
+            }
+            lease.remaining = (int) granted - 1;
+            lease.validUntil = now + leaseTtlMs;
+            record(meterRegistry, policy, true, "redis");
+            return true;
+        }
+    }
+
+    /**
+     * 记录限流结果：rate.limit.requests{policy, result=allowed|denied, source=lease|redis|local}
+     */
+    static void record(MeterRegistry meterRegistry, RateLimitPolicy policy, boolean allowed, String source) {
+        meterRegistry.counter("rate.limit.requests",
+                "policy", policy.getName(),
+                "result", allowed ? "allowed" : "denied",
+                "source", source).increment();
+    }
+}
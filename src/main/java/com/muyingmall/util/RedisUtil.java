@@ -1,11 +1,15 @@
 package com.muyingmall.util;
 
+import com.muyingmall.cache.HotKeyDetector;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Component;
 
@@ -17,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
 
 /**
  * Redis工具类
@@ -30,6 +35,12 @@ public class RedisUtil {
     @Qualifier("redisTemplateDb1")
     private RedisTemplate<String, Object> redisTemplate;
 
+    /**
+     * 热点Key探测：热点Key的读取走本地缓存，写入时清除本地副本并广播
+     */
+    @Autowired
+    private HotKeyDetector hotKeyDetector;
+
     /**
      * 指定缓存失效时间
      *
@@ -87,6 +98,9 @@ public class RedisUtil {
             } else {
                 redisTemplate.delete(Arrays.asList(key));
             }
+            for (String k : key) {
+                hotKeyDetector.onWrite(k);
+            }
         }
     }
 
@@ -98,6 +112,7 @@ public class RedisUtil {
     public void del(Collection<String> keys) {
         if (keys != null && !keys.isEmpty()) {
             redisTemplate.delete(keys);
+            keys.forEach(hotKeyDetector::onWrite);
         }
     }
 
@@ -128,7 +143,16 @@ public class RedisUtil {
      * @return 值
      */
     public Object get(String key) {
-        return key == null ? null : redisTemplate.opsForValue().get(key);
+        if (key == null) {
+            return null;
+        }
+        Object local = hotKeyDetector.readLocal(key);
+        if (local != null) {
+            return local;
+        }
+        Object value = redisTemplate.opsForValue().get(key);
+        hotKeyDetector.promote(key, value);
+        return value;
     }
 
     /**
@@ -151,6 +175,7 @@ public class RedisUtil {
     public boolean set(String key, Object value) {
         try {
             redisTemplate.opsForValue().set(key, value);
+            hotKeyDetector.onWrite(key);
             return true;
         } catch (Exception e) {
             e.printStackTrace();
@@ -170,6 +195,7 @@ public class RedisUtil {
         try {
             if (time > 0) {
                 redisTemplate.opsForValue().set(key, value, time, TimeUnit.SECONDS);
+                hotKeyDetector.onWrite(key);
             } else {
                 set(key, value);
             }
@@ -180,6 +206,36 @@ public class RedisUtil {
         }
     }
 
+    /**
+     * 管道批量写入，每个键单独设置过期时间
+     *
+     * @param values     键值对
+     * @param expireTime 每个键的过期时间(秒)，需大于0
+     * @return true成功 false失败
+     */
+    public boolean multiSet(Map<String, Object> values, ToLongFunction<String> expireTime) {
+        if (values == null || values.isEmpty()) {
+            return true;
+        }
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    values.forEach((key, value) -> ops.opsForValue()
+                            .set(key, value, expireTime.applyAsLong(key), TimeUnit.SECONDS));
+                    return null;
+                }
+            });
+            values.keySet().forEach(hotKeyDetector::onWrite);
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
     /**
      * 递增
      *
@@ -216,7 +272,9 @@ public class RedisUtil {
      * @return 旧值
      */
     public Object getAndSet(String key, Object value) {
-        return redisTemplate.opsForValue().getAndSet(key, value);
+        Object previous = redisTemplate.opsForValue().getAndSet(key, value);
+        hotKeyDetector.onWrite(key);
+        return previous;
     }
 
     /**
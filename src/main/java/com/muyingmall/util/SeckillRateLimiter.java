@@ -1,60 +1,46 @@
 package com.muyingmall.util;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import com.google.common.util.concurrent.RateLimiter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-
 /**
  * 秒杀入口限流器。
  * 只在控制器入口做轻量削峰，真正的库存一致性仍由 Redis Lua 和数据库条件扣减兜底。
+ * 配额由 {@link RateLimiterBackend} 在集群内共享，多节点部署时用户不会获得 N 倍配额。
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class SeckillRateLimiter {
 
-    private final LoadingCache<String, RateLimiter> ipLimiters = CacheBuilder.newBuilder()
-            .maximumSize(20000)
-            .expireAfterAccess(30, TimeUnit.MINUTES)
-            .build(new CacheLoader<String, RateLimiter>() {
-                @Override
-                public RateLimiter load(String key) {
-                    return RateLimiter.create(3.0);
-                }
-            });
+    /**
+     * IP 维度一次租借整桶令牌，同一 IP 的后续请求在租约内本地放行，不再访问 Redis
+     */
+    static final RateLimitPolicy IP_POLICY = new RateLimitPolicy("seckill-ip", 3.0, 3, 3);
+
+    /**
+     * 用户+商品维度每秒只有一个令牌，无法租借；被限流后在等待时间内由本地直接拒绝
+     */
+    static final RateLimitPolicy USER_PRODUCT_POLICY = new RateLimitPolicy("seckill-user", 1.0, 1, 1);
 
-    private final LoadingCache<String, RateLimiter> userProductLimiters = CacheBuilder.newBuilder()
-            .maximumSize(100000)
-            .expireAfterAccess(30, TimeUnit.MINUTES)
-            .build(new CacheLoader<String, RateLimiter>() {
-                @Override
-                public RateLimiter load(String key) {
-                    return RateLimiter.create(1.0);
-                }
-            });
+    private final RateLimiterBackend rateLimiterBackend;
 
     public boolean tryAcquire(String clientIp, Integer userId, Long seckillProductId) {
         String safeIp = (clientIp == null || clientIp.isBlank()) ? "unknown" : clientIp;
         String userProductKey = userId + ":" + seckillProductId;
 
-        try {
-            boolean ipAllowed = ipLimiters.get(safeIp).tryAcquire();
-            boolean userAllowed = userProductLimiters.get(userProductKey).tryAcquire();
-
-            if (!ipAllowed || !userAllowed) {
-                log.warn("秒杀请求被限流: ip={}, userId={}, seckillProductId={}, ipAllowed={}, userAllowed={}",
-                        safeIp, userId, seckillProductId, ipAllowed, userAllowed);
-                return false;
-            }
-            return true;
-        } catch (ExecutionException e) {
-            log.error("秒杀限流器获取失败: ip={}, userId={}, seckillProductId={}", safeIp, userId, seckillProductId, e);
+        // IP 被限流时直接拒绝，不再为用户维度发起 Redis 调用
+        if (!rateLimiterBackend.tryAcquire(IP_POLICY, safeIp)) {
+            log.warn("秒杀请求被限流: ip={}, userId={}, seckillProductId={}, dimension=ip",
+                    safeIp, userId, seckillProductId);
+            return false;
+        }
+        if (!rateLimiterBackend.tryAcquire(USER_PRODUCT_POLICY, userProductKey)) {
+            log.warn("秒杀请求被限流: ip={}, userId={}, seckillProductId={}, dimension=user",
+                    safeIp, userId, seckillProductId);
             return false;
         }
+        return true;
     }
 }
@@ -12,7 +12,7 @@ import jakarta.websocket.server.ServerEndpoint;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
 /**
  * 管理员统计数据WebSocket服务端点
@@ -23,17 +23,20 @@ import java.util.concurrent.ConcurrentHashMap;
  * - 实时推送操作日志
  * - JWT认证保护
  * - 自动心跳保活
+ * - 集群推送：连接登记在本节点，推送经 {@link ClusterPushBus} 路由到持有连接的节点
  */
 @Slf4j
 @Component
 @ServerEndpoint("/ws/admin/stats/{adminId}")
 public class AdminStatsWebSocket {
 
+    static final String ENDPOINT = "admin";
+
     /**
-     * 用于存放每个管理员ID对应的WebSocket连接
-     * 优化：移除冗余的CopyOnWriteArraySet，只使用Map管理连接
+     * 本节点连接注册表与集群推送总线（静态注入）
      */
-    private static final ConcurrentHashMap<String, AdminStatsWebSocket> webSocketMap = new ConcurrentHashMap<>();
+    private static WebSocketSessionRegistry sessionRegistry;
+    private static ClusterPushBus clusterPushBus;
 
     /**
      * JWT工具类（静态注入）
@@ -48,6 +51,16 @@ public class AdminStatsWebSocket {
         AdminStatsWebSocket.jwtUtils = jwtUtils;
     }
 
+    @Autowired
+    public void setSessionRegistry(WebSocketSessionRegistry sessionRegistry) {
+        AdminStatsWebSocket.sessionRegistry = sessionRegistry;
+    }
+
+    @Autowired
+    public void setClusterPushBus(ClusterPushBus clusterPushBus) {
+        AdminStatsWebSocket.clusterPushBus = clusterPushBus;
+    }
+
     /**
      * 与某个客户端的连接会话，需要通过它来给客户端发送数据
      */
@@ -108,12 +121,14 @@ public class AdminStatsWebSocket {
                 return;
             }
 
-            // 4. 检查是否已有连接，如有则关闭旧连接
-            AdminStatsWebSocket existingWs = webSocketMap.get(adminId);
-            if (existingWs != null) {
+            // 4. 建立新连接，本节点如有旧连接则关闭
+            this.session = session;
+            this.adminId = adminId;
+            Session existing = clusterPushBus.register(ENDPOINT, adminId, session);
+            if (existing != null) {
                 log.debug("管理员{}已有连接，关闭旧连接", adminId);
                 try {
-                    existingWs.session.close(new CloseReason(
+                    existing.close(new CloseReason(
                         CloseReason.CloseCodes.NORMAL_CLOSURE, 
                         "新连接已建立"
                     ));
@@ -122,11 +137,6 @@ public class AdminStatsWebSocket {
                 }
             }
 
-            // 5. 建立新连接
-            this.session = session;
-            this.adminId = adminId;
-            webSocketMap.put(adminId, this);
-
             log.debug("管理员{}连接WebSocket成功，当前在线人数为：{}", adminId, getOnlineCount());
 
             // 发送连接成功消息
@@ -155,8 +165,8 @@ public class AdminStatsWebSocket {
      */
     @OnClose
     public void onClose() {
-        // 从map中删除
-        webSocketMap.remove(adminId);
+        // 从注册表中删除（仅当登记的仍是本连接）
+        clusterPushBus.unregister(ENDPOINT, adminId, session);
 
         log.debug("管理员{}断开WebSocket连接，当前在线人数为：{}", adminId, getOnlineCount());
     }
@@ -197,22 +207,18 @@ public class AdminStatsWebSocket {
     }
 
     /**
-     * 实现服务器主动推送
+     * 实现服务器主动推送（异步发送，经连接的出站队列）
      */
-    public void sendMessage(String message) throws IOException {
-        this.session.getBasicRemote().sendText(message);
+    public void sendMessage(String message) {
+        sessionRegistry.sendLocal(ENDPOINT, adminId, message);
     }
 
     /**
-     * 群发自定义消息
+     * 推送自定义消息到指定管理员
      */
-    public static void sendInfo(String message, @PathParam("adminId") String adminId) throws IOException {
+    public static void sendInfo(String message, @PathParam("adminId") String adminId) {
         log.debug("推送消息到管理员{}，推送内容：{}", adminId, message);
-
-        AdminStatsWebSocket webSocket = webSocketMap.get(adminId);
-        if (webSocket != null) {
-            webSocket.sendMessage(message);
-        }
+        send(adminId, message);
     }
 
     /**
@@ -220,16 +226,12 @@ public class AdminStatsWebSocket {
      */
     public static void pushStatsToAdmin(String adminId, Map<String, Object> stats) {
         try {
-            AdminStatsWebSocket webSocket = webSocketMap.get(adminId);
-            if (webSocket != null) {
-                Map<String, Object> message = Map.of(
-                        "type", "stats",
-                        "data", stats,
-                        "timestamp", System.currentTimeMillis());
-                String jsonMessage = objectMapper.writeValueAsString(message);
-                webSocket.sendMessage(jsonMessage);
-                log.debug("推送统计数据到管理员{}", adminId);
-            }
+            Map<String, Object> message = Map.of(
+                    "type", "stats",
+                    "data", stats,
+                    "timestamp", System.currentTimeMillis());
+            send(adminId, objectMapper.writeValueAsString(message));
+            log.debug("推送统计数据到管理员{}", adminId);
         } catch (Exception e) {
             log.error("推送统计数据失败", e);
         }
@@ -240,16 +242,12 @@ public class AdminStatsWebSocket {
      */
     public static void pushLoginRecordToAdmin(String adminId, Object loginRecord) {
         try {
-            AdminStatsWebSocket webSocket = webSocketMap.get(adminId);
-            if (webSocket != null) {
-                Map<String, Object> message = Map.of(
-                        "type", "loginRecord",
-                        "data", loginRecord,
-                        "timestamp", System.currentTimeMillis());
-                String jsonMessage = objectMapper.writeValueAsString(message);
-                webSocket.sendMessage(jsonMessage);
-                log.debug("推送登录记录到管理员{}", adminId);
-            }
+            Map<String, Object> message = Map.of(
+                    "type", "loginRecord",
+                    "data", loginRecord,
+                    "timestamp", System.currentTimeMillis());
+            send(adminId, objectMapper.writeValueAsString(message));
+            log.debug("推送登录记录到管理员{}", adminId);
         } catch (Exception e) {
             log.error("推送登录记录失败", e);
         }
@@ -260,33 +258,44 @@ public class AdminStatsWebSocket {
      */
     public static void pushOperationLogToAdmin(String adminId, Object operationLog) {
         try {
-            AdminStatsWebSocket webSocket = webSocketMap.get(adminId);
-            if (webSocket != null) {
-                Map<String, Object> message = Map.of(
-                        "type", "operationLog",
-                        "data", operationLog,
-                        "timestamp", System.currentTimeMillis());
-                String jsonMessage = objectMapper.writeValueAsString(message);
-                webSocket.sendMessage(jsonMessage);
-                log.debug("推送操作日志到管理员{}", adminId);
-            }
+            Map<String, Object> message = Map.of(
+                    "type", "operationLog",
+                    "data", operationLog,
+                    "timestamp", System.currentTimeMillis());
+            send(adminId, objectMapper.writeValueAsString(message));
+            log.debug("推送操作日志到管理员{}", adminId);
         } catch (Exception e) {
             log.error("推送操作日志失败", e);
         }
     }
 
     /**
-     * 广播消息到所有在线管理员
-     * 优化：直接使用Map的values()遍历
+     * 广播消息到所有节点的在线管理员
+     * 消息只序列化一次，同一字符串投递给所有连接
      */
     public static void broadcast(String message) {
-        for (AdminStatsWebSocket ws : webSocketMap.values()) {
-            try {
-                ws.sendMessage(message);
-            } catch (IOException e) {
-                log.error("广播消息到管理员{}失败", ws.adminId, e);
-            }
+        if (clusterPushBus == null) {
+            return;
+        }
+        clusterPushBus.broadcast(ENDPOINT, message);
+    }
+
+    /**
+     * 只广播到本节点的在线管理员
+     * 定时推送在每个节点各自执行，各节点只推给自己持有的连接，避免管理员收到多份相同数据
+     */
+    public static void broadcastLocal(String message) {
+        if (sessionRegistry == null) {
+            return;
+        }
+        sessionRegistry.broadcastLocal(ENDPOINT, message);
+    }
+
+    private static void send(String adminId, String message) {
+        if (clusterPushBus == null) {
+            return;
         }
+        clusterPushBus.send(ENDPOINT, adminId, message);
     }
 
     /**
@@ -294,12 +303,7 @@ public class AdminStatsWebSocket {
      */
     public static void broadcastStats(Map<String, Object> stats) {
         try {
-            Map<String, Object> message = Map.of(
-                    "type", "stats",
-                    "data", stats,
-                    "timestamp", System.currentTimeMillis());
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            broadcast(jsonMessage);
+            broadcast(statsMessage(stats));
             log.debug("广播统计数据到所有在线管理员");
         } catch (Exception e) {
             log.error("广播统计数据失败", e);
@@ -307,17 +311,35 @@ public class AdminStatsWebSocket {
     }
 
     /**
-     * 获取当前在线连接数
-     * 优化：直接使用Map的size()
+     * 广播统计数据到本节点的在线管理员（定时推送使用）
+     */
+    public static void broadcastStatsLocal(Map<String, Object> stats) {
+        try {
+            broadcastLocal(statsMessage(stats));
+        } catch (Exception e) {
+            log.error("广播统计数据失败", e);
+        }
+    }
+
+    private static String statsMessage(Map<String, Object> stats) throws IOException {
+        Map<String, Object> message = Map.of(
+                "type", "stats",
+                "data", stats,
+                "timestamp", System.currentTimeMillis());
+        return objectMapper.writeValueAsString(message);
+    }
+
+    /**
+     * 获取本节点在线连接数
      */
     public static int getOnlineCount() {
-        return webSocketMap.size();
+        return sessionRegistry != null ? sessionRegistry.count(ENDPOINT) : 0;
     }
 
     /**
-     * 获取所有在线管理员ID
+     * 获取本节点在线管理员ID
      */
-    public static ConcurrentHashMap<String, AdminStatsWebSocket> getWebSocketMap() {
-        return webSocketMap;
+    public static Set<String> getOnlineAdminIds() {
+        return sessionRegistry != null ? sessionRegistry.ids(ENDPOINT) : Set.of();
     }
 }
@@ -0,0 +1,213 @@
+package com.muyingmall.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muyingmall.annotation.ClusterJob;
+import com.muyingmall.cache.NodeIdentifier;
+import com.muyingmall.common.constants.CacheConstants;
+import jakarta.annotation.PostConstruct;
+import jakarta.websocket.Session;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 集群 WebSocket 推送总线。
+ *
+ * <p>
+ * 连接登记在建立它的节点上（{@link WebSocketSessionRegistry}），同时在 Redis 记录连接归属
+ * ws:owner:{endpoint}:{id} → 节点ID。定向推送先查本节点，命中直接投递；未命中时按归属只发布到持有连接的节点的
+ * 专属频道 ws:push:node:{nodeId}，其他节点不会收到；归属不存在说明目标不在线，直接丢弃。
+ * 读取归属失败时退回共享频道，由各节点查表投递。广播先投递本节点，再发布到共享频道由其他节点各自投递。
+ * </p>
+ * <p>
+ * 归属带过期时间，本节点定期续期持有的连接；节点宕机后残留的归属随过期清除，其间发往该节点的推送丢失，
+ * 与目标离线时的处理一致。
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClusterPushBus {
+
+    private final WebSocketSessionRegistry sessionRegistry;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final NodeIdentifier nodeIdentifier;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 是否跨节点推送，单节点部署可关闭
+     */
+    @Value("${websocket.cluster.enabled:true}")
+    private boolean clusterEnabled;
+
+    /**
+     * 连接归属过期时间（秒），由 {@link #refreshOwnership()} 定期续期
+     */
+    @Value("${websocket.cluster.owner-ttl-seconds:7200}")
+    private long ownerTtlSeconds;
+
+    private DefaultRedisScript<Long> ownerReleaseScript;
+
+    @PostConstruct
+    public void initLuaScripts() {
+        ownerReleaseScript = new DefaultRedisScript<>();
+        ownerReleaseScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("scripts/ws_owner_release.lua")));
+        ownerReleaseScript.setResultType(Long.class);
+    }
+
+    /**
+     * 本节点订阅的定向推送频道
+     */
+    public String nodeChannel() {
+        return CacheConstants.WEBSOCKET_NODE_CHANNEL_PREFIX + nodeIdentifier.getNodeId();
+    }
+
+    /**
+     * 登记连接并记录归属
+     *
+     * @return 同一ID此前在本节点登记的连接（已被替换），没有则返回 null
+     */
+    public Session register(String endpoint, String id, Session session) {
+        Session previous = sessionRegistry.register(endpoint, id, session);
+        if (clusterEnabled) {
+            try {
+                stringRedisTemplate.opsForValue().set(ownerKey(endpoint, id), nodeIdentifier.getNodeId(),
+                        Duration.ofSeconds(ownerTtlSeconds));
+            } catch (Exception e) {
+                log.warn("记录WebSocket连接归属失败: endpoint={}, id={}, error={}", endpoint, id, e.getMessage());
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * 注销连接；本节点不再持有该ID的连接时清除归属（仅当归属仍是本节点）
+     */
+    public void unregister(String endpoint, String id, Session session) {
+        if (!sessionRegistry.unregister(endpoint, id, session) || !clusterEnabled) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(ownerReleaseScript, Collections.singletonList(ownerKey(endpoint, id)),
+                    nodeIdentifier.getNodeId());
+        } catch (Exception e) {
+            log.warn("清除WebSocket连接归属失败: endpoint={}, id={}, error={}", endpoint, id, e.getMessage());
+        }
+    }
+
+    /**
+     * 推送到指定连接
+     */
+    public void send(String endpoint, String target, String payload) {
+        if (sessionRegistry.sendLocal(endpoint, target, payload) || !clusterEnabled) {
+            return;
+        }
+        WebSocketPushMessage message = new WebSocketPushMessage(endpoint, target, payload, nodeIdentifier.getNodeId());
+        String owner;
+        try {
+            owner = stringRedisTemplate.opsForValue().get(ownerKey(endpoint, target));
+        } catch (Exception e) {
+            log.warn("读取WebSocket连接归属失败，改为共享频道推送: endpoint={}, target={}, error={}",
+                    endpoint, target, e.getMessage());
+            publish(CacheConstants.WEBSOCKET_PUSH_CHANNEL, message);
+            return;
+        }
+        if (owner == null || owner.equals(nodeIdentifier.getNodeId())) {
+            // 目标不在线，或归属是本节点但连接已断开
+            log.debug("WebSocket推送目标不在线，丢弃: endpoint={}, target={}", endpoint, target);
+            return;
+        }
+        publish(CacheConstants.WEBSOCKET_NODE_CHANNEL_PREFIX + owner, message);
+    }
+
+    /**
+     * 广播到该端点的所有连接
+     */
+    public void broadcast(String endpoint, String payload) {
+        sessionRegistry.broadcastLocal(endpoint, payload);
+        if (clusterEnabled) {
+            publish(CacheConstants.WEBSOCKET_PUSH_CHANNEL,
+                    new WebSocketPushMessage(endpoint, null, payload, nodeIdentifier.getNodeId()));
+        }
+    }
+
+    /**
+     * 处理其他节点发布的推送消息，只投递本节点持有的连接
+     */
+    public void deliverRemote(WebSocketPushMessage message) {
+        if (nodeIdentifier.getNodeId().equals(message.getSourceNodeId())) {
+            return;
+        }
+        if (message.getTarget() == null) {
+            sessionRegistry.broadcastLocal(message.getEndpoint(), message.getPayload());
+        } else {
+            sessionRegistry.sendLocal(message.getEndpoint(), message.getTarget(), message.getPayload());
+        }
+    }
+
+    /**
+     * 续期本节点持有连接的归属（按过期时间的 1/3 周期执行，一次 pipeline 写入）
+     */
+    @Scheduled(fixedDelayString = "#{${websocket.cluster.owner-ttl-seconds:7200} * 1000 / 3}")
+    @ClusterJob(name = "ws-owner-refresh", mode = ClusterJob.Mode.LOCAL)
+    public void refreshOwnership() {
+        if (!clusterEnabled) {
+            return;
+        }
+        List<String> keys = new ArrayList<>();
+        for (String endpoint : sessionRegistry.endpoints()) {
+            for (String id : sessionRegistry.ids(endpoint)) {
+                keys.add(ownerKey(endpoint, id));
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        String nodeId = nodeIdentifier.getNodeId();
+        Duration ttl = Duration.ofSeconds(ownerTtlSeconds);
+        try {
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    for (String key : keys) {
+                        ops.opsForValue().set(key, nodeId, ttl);
+                    }
+                    return null;
+                }
+            });
+            log.debug("WebSocket连接归属已续期: count={}", keys.size());
+        } catch (Exception e) {
+            log.warn("续期WebSocket连接归属失败: count={}, error={}", keys.size(), e.getMessage());
+        }
+    }
+
+    private static String ownerKey(String endpoint, String id) {
+        return CacheConstants.WEBSOCKET_OWNER_KEY_PREFIX + endpoint + ":" + id;
+    }
+
+    private void publish(String channel, WebSocketPushMessage message) {
+        try {
+            stringRedisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(message));
+        } catch (Exception e) {
+            log.warn("发布WebSocket推送消息失败: endpoint={}, target={}, error={}",
+                    message.getEndpoint(), message.getTarget(), e.getMessage());
+        }
+    }
+}
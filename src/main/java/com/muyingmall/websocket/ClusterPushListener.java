@@ -0,0 +1,34 @@
+package com.muyingmall.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * WebSocket 推送消息订阅者
+ * 订阅共享广播频道与本节点的定向推送频道，收到其他节点发布的推送消息后，投递到本节点持有的连接
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClusterPushListener implements MessageListener {
+
+    private final ClusterPushBus clusterPushBus;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            WebSocketPushMessage msg = objectMapper.readValue(
+                    new String(message.getBody(), StandardCharsets.UTF_8), WebSocketPushMessage.class);
+            clusterPushBus.deliverRemote(msg);
+        } catch (Exception e) {
+            log.error("处理WebSocket推送广播失败: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.muyingmall.websocket;
+
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 单个 WebSocket 连接的出站队列。
+ *
+ * <p>
+ * 使用异步发送（getAsyncRemote），同一连接同一时刻只有一条消息在途，其余消息进入有界队列，
+ * 上一条发送完成的回调中再发送下一条；慢连接不会阻塞推送线程（MQ 消费者、定时任务）。
+ * 队列满时丢弃最早的消息（秒杀结果客户端有轮询兜底，统计数据以最新为准）。
+ * </p>
+ */
+@Slf4j
+final class OutboundSession {
+
+    @Getter
+    private final Session session;
+    private final int capacity;
+    private final Deque<String> queue = new ArrayDeque<>();
+    private boolean sending;
+
+    @Getter
+    private long dropped;
+
+    OutboundSession(Session session, int capacity) {
+        this.session = session;
+        this.capacity = Math.max(capacity, 1);
+    }
+
+    /**
+     * 投递消息
+     *
+     * @return 连接已关闭时返回 false
+     */
+    boolean send(String text) {
+        if (!session.isOpen()) {
+            return false;
+        }
+        synchronized (this) {
+            if (sending) {
+                if (queue.size() >= capacity) {
+                    queue.pollFirst();
+                    dropped++;
+                    log.warn("WebSocket出站队列已满，丢弃最早消息: sessionId={}, dropped={}", session.getId(), dropped);
+                }
+                queue.addLast(text);
+                return true;
+            }
+            sending = true;
+        }
+        doSend(text);
+        return true;
+    }
+
+    synchronized int pending() {
+        return queue.size();
+    }
+
+    private void doSend(String text) {
+        try {
+            session.getAsyncRemote().sendText(text, this::onComplete);
+        } catch (Exception e) {
+            onComplete(new SendResult(e));
+        }
+    }
+
+    private void onComplete(SendResult result) {
+        if (!result.isOK()) {
+            log.debug("WebSocket异步发送失败: sessionId={}, error={}", session.getId(),
+                    result.getException() != null ? result.getException().getMessage() : null);
+        }
+        String next;
+        synchronized (this) {
+            if (!session.isOpen()) {
+                queue.clear();
+                sending = false;
+                return;
+            }
+            next = queue.pollFirst();
+            if (next == null) {
+                sending = false;
+                return;
+            }
+        }
+        doSend(next);
+    }
+}
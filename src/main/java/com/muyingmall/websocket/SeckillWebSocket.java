@@ -5,26 +5,37 @@ import jakarta.websocket.*;
 import jakarta.websocket.server.PathParam;
 import jakarta.websocket.server.ServerEndpoint;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 秒杀 WebSocket 端点
- * 用于实时推送秒杀结果给用户
+ * 用于实时推送秒杀结果给用户；连接登记在本节点，推送经 {@link ClusterPushBus} 路由到持有连接的节点
  */
 @Slf4j
 @Component
 @ServerEndpoint("/ws/seckill/{userId}")
 public class SeckillWebSocket {
 
+    static final String ENDPOINT = "seckill";
+
     /**
-     * 存储所有在线用户的 WebSocket 连接
-     * Key: userId, Value: Session
+     * 本节点连接注册表与集群推送总线（静态注入，端点实例由容器按连接创建）
      */
-    private static final Map<String, Session> ONLINE_USERS = new ConcurrentHashMap<>();
+    private static WebSocketSessionRegistry sessionRegistry;
+    private static ClusterPushBus clusterPushBus;
+
+    @Autowired
+    public void setSessionRegistry(WebSocketSessionRegistry sessionRegistry) {
+        SeckillWebSocket.sessionRegistry = sessionRegistry;
+    }
+
+    @Autowired
+    public void setClusterPushBus(ClusterPushBus clusterPushBus) {
+        SeckillWebSocket.clusterPushBus = clusterPushBus;
+    }
 
     /**
      * JSON 序列化工具
@@ -36,20 +47,20 @@ public class SeckillWebSocket {
      */
     @OnOpen
     public void onOpen(Session session, @PathParam("userId") String userId) {
-        ONLINE_USERS.put(userId, session);
-        log.info("秒杀WebSocket连接建立: userId={}, 当前在线人数={}", userId, ONLINE_USERS.size());
+        clusterPushBus.register(ENDPOINT, userId, session);
+        log.info("秒杀WebSocket连接建立: userId={}, 本节点在线人数={}", userId, getOnlineCount());
 
         // 发送连接成功消息
-        sendMessage(userId, createMessage("CONNECTED", "连接成功", null));
+        sessionRegistry.sendLocal(ENDPOINT, userId, createMessage("CONNECTED", "连接成功", null));
     }
 
     /**
      * 连接关闭调用的方法
      */
     @OnClose
-    public void onClose(@PathParam("userId") String userId) {
-        ONLINE_USERS.remove(userId);
-        log.info("秒杀WebSocket连接关闭: userId={}, 当前在线人数={}", userId, ONLINE_USERS.size());
+    public void onClose(Session session, @PathParam("userId") String userId) {
+        clusterPushBus.unregister(ENDPOINT, userId, session);
+        log.info("秒杀WebSocket连接关闭: userId={}, 本节点在线人数={}", userId, getOnlineCount());
     }
 
     /**
@@ -58,7 +69,7 @@ public class SeckillWebSocket {
     @OnError
     public void onError(Session session, Throwable error, @PathParam("userId") String userId) {
         log.error("秒杀WebSocket发生错误: userId={}", userId, error);
-        ONLINE_USERS.remove(userId);
+        clusterPushBus.unregister(ENDPOINT, userId, session);
     }
 
     /**
@@ -71,24 +82,17 @@ public class SeckillWebSocket {
     }
 
     /**
-     * 发送消息给指定用户
+     * 发送消息给指定用户（用户连接在其他节点时经集群推送总线转发）
      *
      * @param userId  用户ID
      * @param message 消息内容
      */
     public static void sendMessage(String userId, String message) {
-        Session session = ONLINE_USERS.get(userId);
-        if (session != null && session.isOpen()) {
-            try {
-                session.getBasicRemote().sendText(message);
-                log.debug("发送秒杀WebSocket消息成功: userId={}", userId);
-            } catch (IOException e) {
-                log.error("发送秒杀WebSocket消息失败: userId={}", userId, e);
-                ONLINE_USERS.remove(userId);
-            }
-        } else {
-            log.debug("用户未连接或连接已关闭: userId={}", userId);
+        if (clusterPushBus == null) {
+            log.debug("WebSocket推送总线未初始化，忽略消息: userId={}", userId);
+            return;
         }
+        clusterPushBus.send(ENDPOINT, userId, message);
     }
 
     /**
@@ -113,6 +117,18 @@ public class SeckillWebSocket {
         sendMessage(String.valueOf(userId), message);
     }
 
+    /**
+     * 发送排队准入消息：号码已进入准入窗口，客户端可发起秒杀
+     *
+     * @param userId           用户ID
+     * @param seckillProductId 秒杀商品ID
+     */
+    public static void sendQueueAdmitted(String userId, Long seckillProductId) {
+        String message = createMessage("QUEUE_ADMITTED", "排队完成，请立即抢购",
+                Map.of("seckillProductId", seckillProductId));
+        sendMessage(userId, message);
+    }
+
     /**
      * 创建消息JSON
      *
@@ -136,9 +152,9 @@ public class SeckillWebSocket {
     }
 
     /**
-     * 获取当前在线人数
+     * 获取本节点在线人数
      */
     public static int getOnlineCount() {
-        return ONLINE_USERS.size();
+        return sessionRegistry != null ? sessionRegistry.count(ENDPOINT) : 0;
     }
 }
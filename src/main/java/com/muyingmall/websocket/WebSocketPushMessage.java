@@ -0,0 +1,41 @@
+package com.muyingmall.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 跨节点 WebSocket 推送消息
+ * 只携带路由信息与已序列化好的消息文本，收到的节点不再做二次序列化
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebSocketPushMessage implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 端点：seckill / admin
+     */
+    private String endpoint;
+
+    /**
+     * 目标ID（userId/adminId），为 null 表示广播到该端点所有连接
+     */
+    private String target;
+
+    /**
+     * 推送给客户端的消息文本
+     */
+    private String payload;
+
+    /**
+     * 源节点 ID，用于避免自己处理自己发出的消息
+     */
+    private String sourceNodeId;
+}
@@ -0,0 +1,98 @@
+package com.muyingmall.websocket;
+
+import jakarta.websocket.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本节点 WebSocket 连接注册表
+ * 按端点（seckill/admin）与业务ID（userId/adminId）登记本节点持有的连接，跨节点消息只在持有连接的节点投递
+ */
+@Component
+public class WebSocketSessionRegistry {
+
+    private final Map<String, Map<String, OutboundSession>> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * 单个连接出站队列上限
+     */
+    @Value("${websocket.outbound-queue-size:64}")
+    private int outboundQueueSize;
+
+    /**
+     * 登记连接
+     *
+     * @return 同一ID此前登记的连接（已被替换），没有则返回 null
+     */
+    public Session register(String endpoint, String id, Session session) {
+        OutboundSession previous = sessions(endpoint).put(id, new OutboundSession(session, outboundQueueSize));
+        return previous != null && previous.getSession() != session ? previous.getSession() : null;
+    }
+
+    /**
+     * 注销连接；只有登记的仍是该连接时才移除，避免旧连接关闭时误删同一ID的新连接
+     *
+     * @return 本节点是否已不再持有该ID的连接
+     */
+    public boolean unregister(String endpoint, String id, Session session) {
+        if (id == null) {
+            return false;
+        }
+        return sessions(endpoint).computeIfPresent(id,
+                (key, current) -> current.getSession() == session ? null : current) == null;
+    }
+
+    /**
+     * 投递到本节点的指定连接
+     *
+     * @return 本节点是否持有该连接
+     */
+    public boolean sendLocal(String endpoint, String id, String text) {
+        OutboundSession outbound = sessions(endpoint).get(id);
+        if (outbound == null) {
+            return false;
+        }
+        if (!outbound.send(text)) {
+            sessions(endpoint).remove(id, outbound);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 投递到本节点该端点的所有连接（同一个字符串实例共享给所有连接，只序列化一次）
+     *
+     * @return 投递的连接数
+     */
+    public int broadcastLocal(String endpoint, String text) {
+        int delivered = 0;
+        for (Map.Entry<String, OutboundSession> entry : sessions(endpoint).entrySet()) {
+            if (entry.getValue().send(text)) {
+                delivered++;
+            } else {
+                sessions(endpoint).remove(entry.getKey(), entry.getValue());
+            }
+        }
+        return delivered;
+    }
+
+    public int count(String endpoint) {
+        return sessions(endpoint).size();
+    }
+
+    public Set<String> ids(String endpoint) {
+        return sessions(endpoint).keySet();
+    }
+
+    public Set<String> endpoints() {
+        return endpoints.keySet();
+    }
+
+    private Map<String, OutboundSession> sessions(String endpoint) {
+        return endpoints.computeIfAbsent(endpoint, key -> new ConcurrentHashMap<>());
+    }
+}
@@ -0,0 +1,25 @@
+-- ============================================================
+-- 事务性发件箱：订单、支付、订单超时消息与业务数据在同一事务内写入，
+-- 由各节点的 OutboxRelay 以 SELECT ... FOR UPDATE SKIP LOCKED 分批认领，
+-- 批量发布到 RabbitMQ 并等待发布确认后标记为已发送（需要 MySQL 8.0+）
+-- 执行方式: 手动执行（项目当前未启用 Flyway/Liquibase）
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS message_outbox (
+  id BIGINT NOT NULL AUTO_INCREMENT COMMENT '发件箱ID，同时作为消息ID供消费端去重',
+  event_type VARCHAR(32) NOT NULL COMMENT '事件类型：ORDER/PAYMENT/ORDER_TIMEOUT',
+  aggregate_id VARCHAR(64) DEFAULT NULL COMMENT '业务主键（订单ID/支付ID），便于排查',
+  exchange VARCHAR(128) NOT NULL COMMENT '目标交换机',
+  routing_key VARCHAR(128) NOT NULL COMMENT '路由键',
+  payload TEXT NOT NULL COMMENT '消息体（消息转换器输出的 JSON）',
+  headers VARCHAR(1000) DEFAULT NULL COMMENT '消息头（JSON，含 __TypeId__ 等类型信息）',
+  status TINYINT NOT NULL DEFAULT 0 COMMENT '状态：0-待发送 1-已发送 2-发送失败（超过最大尝试次数）',
+  attempts INT NOT NULL DEFAULT 0 COMMENT '已尝试发送次数',
+  next_attempt_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '下次可发送时间',
+  last_error VARCHAR(500) DEFAULT NULL COMMENT '最近一次发送失败原因',
+  create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  sent_time DATETIME DEFAULT NULL COMMENT '发送成功时间',
+  PRIMARY KEY (id),
+  KEY idx_message_outbox_pending (status, next_attempt_time),
+  KEY idx_message_outbox_sent_time (sent_time)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='消息发件箱表';
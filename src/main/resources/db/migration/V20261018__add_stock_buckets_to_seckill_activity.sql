@@ -0,0 +1,9 @@
+-- ============================================================
+-- 秒杀库存分桶：seckill_activity 表新增分桶配置
+-- 分桶数大于1时，活动商品库存在Redis中拆分为 seckill:stock:{skuId}:b{i}，
+-- 扣减按用户哈希落到首选桶，首选桶不足时在Lua脚本内回退到相邻桶
+-- 执行方式: 手动执行（项目当前未启用 Flyway/Liquibase）
+-- ============================================================
+
+ALTER TABLE seckill_activity
+  ADD COLUMN stock_buckets INT NOT NULL DEFAULT 0 COMMENT '库存分桶数：0/1不分桶，>1启用分桶' AFTER `status`;
@@ -0,0 +1,42 @@
+-- bloom_add.lua
+-- 向布隆过滤器写入一个或一批元素的位
+--
+-- KEYS[1]: 过滤器前缀，如 bloom:product
+--          {prefix}:gen 当前代号，{prefix}:building 重建中的代号，{prefix}:max 已写入的最大ID，{prefix}:{代号} 位数组
+-- ARGV[1]: 本批元素中的最大ID
+-- ARGV[2]: 目标代号；为 0 时写入当前代号，重建期间同时写入重建中的代号
+-- ARGV[3..n]: 位偏移（各元素 k 个哈希位拼接）
+--
+-- 返回值：1
+
+local prefix = KEYS[1]
+local targets = {}
+local target = tonumber(ARGV[2])
+if target > 0 then
+    targets[1] = prefix .. ':' .. ARGV[2]
+else
+    -- 过滤器尚未构建时不创建位数组，首次重建会从数据库全量加载
+    local gen = redis.call('get', prefix .. ':gen')
+    if gen then
+        targets[#targets + 1] = prefix .. ':' .. gen
+    end
+    local building = redis.call('get', prefix .. ':building')
+    if building then
+        targets[#targets + 1] = prefix .. ':' .. building
+    end
+end
+
+for i = 3, #ARGV do
+    for _, target in ipairs(targets) do
+        redis.call('setbit', target, ARGV[i], 1)
+    end
+end
+
+-- 只有实时写入才推进最大ID；重建批次在切换代号时统一提交
+if target == 0 then
+    local max = tonumber(redis.call('get', prefix .. ':max') or '0')
+    if tonumber(ARGV[1]) > max then
+        redis.call('set', prefix .. ':max', ARGV[1])
+    end
+end
+return 1
@@ -0,0 +1,30 @@
+-- bloom_check.lua
+-- 判断元素是否可能存在于布隆过滤器当前代号中
+--
+-- KEYS[1]: 过滤器前缀，如 bloom:product
+-- ARGV[1]: 元素ID
+-- ARGV[2..n]: k 个哈希位偏移
+--
+-- 返回值：
+--   1: 可能存在
+--   0: 一定不存在
+--  -1: 过滤器尚未构建，或ID大于已写入的最大ID（新数据可能尚未写入），调用方按可能存在处理
+
+local prefix = KEYS[1]
+local gen = redis.call('get', prefix .. ':gen')
+if not gen or redis.call('exists', prefix .. ':' .. gen) == 0 then
+    return -1
+end
+
+local max = tonumber(redis.call('get', prefix .. ':max') or '0')
+if tonumber(ARGV[1]) > max then
+    return -1
+end
+
+local bitmap = prefix .. ':' .. gen
+for i = 2, #ARGV do
+    if redis.call('getbit', bitmap, ARGV[i]) == 0 then
+        return 0
+    end
+end
+return 1
@@ -0,0 +1,37 @@
+-- bloom_rotate.lua
+-- 布隆过滤器双代号轮换：在新代号中全量重建，完成后切换，旧代号连同已删除元素的位一起丢弃
+--
+-- KEYS[1]: 过滤器前缀，如 bloom:product
+-- ARGV[1]: 1=begin 2=commit
+--   begin : ARGV[2] 位数组长度；创建空的下一代位数组并标记为重建中，返回新代号
+--   commit: ARGV[2] 新代号，ARGV[3] 重建扫描到的最大ID；切换当前代号并删除旧位数组，返回旧代号
+
+local prefix = KEYS[1]
+local current = tonumber(redis.call('get', prefix .. ':gen') or '0')
+
+if tonumber(ARGV[1]) == 1 then
+    local next = current + 1
+    local bitmap = prefix .. ':' .. next
+    redis.call('del', bitmap)
+    -- 预分配位数组，避免重建过程中反复扩容
+    redis.call('setbit', bitmap, tonumber(ARGV[2]) - 1, 0)
+    redis.call('set', prefix .. ':building', next)
+    return next
+end
+
+local next = tonumber(ARGV[2])
+if tonumber(redis.call('get', prefix .. ':building') or '0') ~= next then
+    -- 重建期间被其他节点抢先开启了新一轮，本轮结果作废
+    redis.call('del', prefix .. ':' .. next)
+    return -1
+end
+redis.call('set', prefix .. ':gen', next)
+redis.call('del', prefix .. ':building')
+local max = tonumber(redis.call('get', prefix .. ':max') or '0')
+if tonumber(ARGV[3]) > max then
+    redis.call('set', prefix .. ':max', ARGV[3])
+end
+if current ~= next then
+    redis.call('del', prefix .. ':' .. current)
+end
+return current
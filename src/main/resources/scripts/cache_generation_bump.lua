@@ -0,0 +1,17 @@
+-- cache_generation_bump.lua
+-- 递增缓存命名空间的代号（generation），旧代号下的缓存条目不再被读取，由各自的 TTL 自然过期
+--
+-- KEYS[1]: 代号Key，如 cache:gen:{namespace}
+-- ARGV[1]: 代号Key过期时间（秒），需大于命名空间内任何数据的 TTL
+--
+-- 返回值：递增后的代号
+
+local generation = redis.call('incr', KEYS[1])
+if generation == 1 then
+    -- 代号Key此前不存在（首次失效或已过期）：以时间戳起步，避免与过期前用过的代号重复而读到旧条目
+    local now = redis.call('time')
+    generation = tonumber(now[1]) * 1000 + math.floor(tonumber(now[2]) / 1000)
+    redis.call('set', KEYS[1], generation)
+end
+redis.call('expire', KEYS[1], tonumber(ARGV[1]))
+return generation
@@ -0,0 +1,33 @@
+-- delay_claim.lua
+-- 延迟队列认领脚本：把到期成员的分数推后到租约到期时间，处理成功后由调用方 ZREM 确认；
+-- 认领节点宕机时成员在租约到期后重新变为到期，由其他节点再次认领
+--
+-- KEYS[1]: 延迟队列分片（ZSET，分数为到期时间毫秒）
+-- ARGV[1]: 当前时间（毫秒）
+-- ARGV[2]: 租约到期时间（毫秒）
+-- ARGV[3]: 按到期时间扫描时最多认领的条数
+-- ARGV[4..n]: 指定成员（可选）；给出时只认领其中已到期的成员，不扫描
+--
+-- 返回值：本次认领到的成员列表
+
+local now = tonumber(ARGV[1])
+local leaseUntil = ARGV[2]
+local claimed = {}
+
+if #ARGV > 3 then
+    for i = 4, #ARGV do
+        local score = redis.call('zscore', KEYS[1], ARGV[i])
+        if score and tonumber(score) <= now then
+            redis.call('zadd', KEYS[1], 'XX', leaseUntil, ARGV[i])
+            claimed[#claimed + 1] = ARGV[i]
+        end
+    end
+    return claimed
+end
+
+local due = redis.call('zrangebyscore', KEYS[1], '-inf', now, 'LIMIT', 0, tonumber(ARGV[3]))
+for i = 1, #due do
+    redis.call('zadd', KEYS[1], 'XX', leaseUntil, due[i])
+    claimed[#claimed + 1] = due[i]
+end
+return claimed
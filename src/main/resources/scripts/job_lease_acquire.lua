@@ -0,0 +1,24 @@
+-- job_lease_acquire.lua
+-- 定时任务租约获取脚本：租约空闲或仍由本节点持有时，发放新的隔离令牌（fencing token）并写入租约；
+-- 租约值为 {节点ID}:{令牌}，续期与释放沿用 lock_renew.lua / unlock.lua 按完整值校验持有者
+--
+-- KEYS[1]: 租约key
+-- KEYS[2]: 令牌计数器key（只增不减，不设过期时间）
+-- ARGV[1]: 节点ID
+-- ARGV[2]: 租约时长（毫秒）
+--
+-- 返回值：
+--   >0: 获取成功，返回本次令牌（同一租约的令牌严格递增）
+--    0: 租约由其他节点持有
+
+local current = redis.call('get', KEYS[1])
+if current then
+    local prefix = ARGV[1] .. ':'
+    if string.sub(current, 1, string.len(prefix)) ~= prefix then
+        return 0
+    end
+end
+
+local token = redis.call('incr', KEYS[2])
+redis.call('set', KEYS[1], ARGV[1] .. ':' .. token, 'PX', tonumber(ARGV[2]))
+return token
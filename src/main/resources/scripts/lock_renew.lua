@@ -0,0 +1,16 @@
+-- 分布式锁续期脚本
+-- 与 lock.lua 配套，验证持有者身份后才重置过期时间，用于长期持有的租约
+--
+-- KEYS[1]: 锁的key
+-- ARGV[1]: 请求标识（用于验证锁的持有者）
+-- ARGV[2]: 新的过期时间（毫秒）
+--
+-- 返回值：
+--   1: 续期成功
+--   0: 锁不存在或不属于当前请求者（租约已丢失）
+
+if (redis.call('get', KEYS[1]) == ARGV[1]) then
+    redis.call('pexpire', KEYS[1], tonumber(ARGV[2]))
+    return 1
+end
+return 0
@@ -0,0 +1,27 @@
+-- participation_mark_pending.lua
+-- 扣减库存前标记用户待支付（秒杀去重），仅访问参与索引Key
+-- 分桶库存模式下去重与扣减分两次调用，扣减失败时由调用方通过 participation_release_pending.lua 撤销
+--
+-- KEYS[1]: 参与索引Key，如 seckill:participation:{seckillProductId}
+-- ARGV[1]: 用户ID
+-- ARGV[2]: 参与索引过期时间/秒（可选）
+--
+-- 返回值：
+--   1: 已标记待支付
+--  -2: 用户已参与过秒杀（待支付或已购买）
+
+local offset = tonumber(ARGV[1]) * 2
+
+if redis.call('getbit', KEYS[1], offset) == 1 or redis.call('getbit', KEYS[1], offset + 1) == 1 then
+    return -2
+end
+
+redis.call('setbit', KEYS[1], offset, 1)
+if ARGV[2] then
+    local ttl = tonumber(ARGV[2])
+    if ttl and ttl > 0 then
+        redis.call('expire', KEYS[1], ttl)
+    end
+end
+
+return 1
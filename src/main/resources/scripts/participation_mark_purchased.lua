@@ -0,0 +1,18 @@
+-- participation_mark_purchased.lua
+-- 支付成功后把用户从待支付转为已购买
+--
+-- KEYS[1]: 参与索引Key，如 seckill:participation:{seckillProductId}
+-- ARGV[1]: 用户ID
+--
+-- 返回值：
+--   1: 已标记
+--   0: 索引不存在（活动已过期），不重建以免产生无过期时间的Key
+
+if redis.call('exists', KEYS[1]) == 0 then
+    return 0
+end
+
+local offset = tonumber(ARGV[1]) * 2
+redis.call('setbit', KEYS[1], offset, 0)
+redis.call('setbit', KEYS[1], offset + 1, 1)
+return 1
@@ -0,0 +1,16 @@
+-- participation_release_pending.lua
+-- 清除用户待支付位（扣减失败撤销、超时/取消回补库存时调用），已购买位保持不变
+--
+-- KEYS[1]: 参与索引Key，如 seckill:participation:{seckillProductId}
+-- ARGV[1]: 用户ID
+--
+-- 返回值：
+--   1: 已清除
+--   0: 索引不存在（活动已过期），不重建以免产生无过期时间的Key
+
+if redis.call('exists', KEYS[1]) == 0 then
+    return 0
+end
+
+redis.call('setbit', KEYS[1], tonumber(ARGV[1]) * 2, 0)
+return 1
@@ -0,0 +1,18 @@
+-- participation_state.lua
+-- 读取用户在某秒杀商品上的参与状态
+--
+-- KEYS[1]: 参与索引Key，如 seckill:participation:{seckillProductId}
+-- ARGV[1]: 用户ID
+--
+-- 返回值：
+--  -1: 索引不存在（未预热或已过期，调用方应回退到数据库统计）
+--   0: 未参与
+--   1: 已购买
+--   2: 待支付
+
+if redis.call('exists', KEYS[1]) == 0 then
+    return -1
+end
+
+local offset = tonumber(ARGV[1]) * 2
+return redis.call('getbit', KEYS[1], offset) * 2 + redis.call('getbit', KEYS[1], offset + 1)
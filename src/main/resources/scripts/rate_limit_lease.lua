@@ -0,0 +1,43 @@
+-- rate_limit_lease.lua
+-- 集群限流令牌租借脚本（GCRA）
+-- 功能：按理论到达时间（TAT）计算当前可发放的令牌数 → 一次最多发放 ARGV[3] 个 → 推进 TAT
+-- 节点拿到的令牌在本地消费，未用完的令牌到期作废，集群总速率不会超过配置值
+--
+-- KEYS[1]: 限流Key（存储 TAT，毫秒），如 rate:limit:{policy}:{key}
+-- ARGV[1]: 速率（令牌/秒）
+-- ARGV[2]: 突发容量（令牌数）
+-- ARGV[3]: 申请的令牌数（租约大小）
+--
+-- 返回值：
+--  >0: 实际发放的令牌数
+--  <0: 被限流，绝对值为距离下一个令牌可用的毫秒数
+
+-- 使用服务端时间避免节点时钟偏差；Redis 5 需显式开启效果复制才能在 TIME 之后写入
+if redis.replicate_commands then
+    redis.replicate_commands()
+end
+
+local rate = tonumber(ARGV[1])
+local burst = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+
+local time = redis.call('time')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local interval = 1000 / rate
+local tolerance = interval * burst
+
+local tat = tonumber(redis.call('get', KEYS[1]))
+if tat == nil or tat < now then
+    tat = now
+end
+
+local available = math.floor((now + tolerance - tat) / interval)
+if available < 1 then
+    return -math.max(1, math.ceil(tat + interval - tolerance - now))
+end
+
+local granted = math.min(requested, available)
+local newTat = tat + granted * interval
+redis.call('set', KEYS[1], string.format('%.3f', newTat), 'PX', math.ceil(newTat - now) + 1)
+return granted
@@ -0,0 +1,37 @@
+-- stock_bucket_deduct.lua
+-- 单个分桶的库存原子性扣减脚本
+-- 功能：参数校验 → 分桶存在性检查 → 扣减（整单或部分）
+-- 每次调用只访问一个分桶Key，不同分桶可分布在不同的 Redis 节点上；
+-- 首选桶不足时由调用方依次对相邻桶再次调用，用户去重由参与索引脚本单独完成
+--
+-- KEYS[1]: 分桶库存Key，如 seckill:stock:{skuId}:b{i}
+-- ARGV[1]: 扣减数量
+-- ARGV[2]: 是否允许部分扣减（1 允许：扣减 min(库存, 数量)；其他值：库存不足时不扣减）
+--
+-- 返回值：
+--   > 0: 实际扣减数量
+--     0: 分桶库存不足，未扣减
+--    -3: 分桶库存Key不存在
+--    -4: 参数非法（扣减数量无法解析或 <= 0）
+
+local deductNum = tonumber(ARGV[1])
+
+if (deductNum == nil or deductNum <= 0) then
+    return -4
+end
+
+local stock = tonumber(redis.call('get', KEYS[1]))
+if stock == nil then
+    return -3
+end
+
+local take = deductNum
+if stock < deductNum then
+    if tonumber(ARGV[2]) ~= 1 or stock <= 0 then
+        return 0
+    end
+    take = stock
+end
+
+redis.call('decrby', KEYS[1], take)
+return take
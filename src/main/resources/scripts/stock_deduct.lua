@@ -1,12 +1,13 @@
 -- stock_deduct.lua
 -- 秒杀库存原子性扣减脚本（含用户去重）
--- 功能：参数校验 → 用户去重检查 → 库存检查 → 扣减 → 记录用户
+-- 功能：参数校验 → 参与索引检查 → 库存检查 → 扣减 → 标记用户待支付
 --
 -- KEYS[1]: 库存Key，如 seckill:stock:{skuId}
--- KEYS[2]: 用户去重集合Key，如 seckill:user:{seckillProductId}（可选）
+-- KEYS[2]: 参与索引Key（位图，每个用户2位：待支付位 offset=userId*2，已购买位 offset=userId*2+1），
+--          如 seckill:participation:{seckillProductId}（可选）
 -- ARGV[1]: 扣减数量
 -- ARGV[2]: 用户ID（可选，与KEYS[2]配合使用）
--- ARGV[3]: 用户集合过期时间/秒（可选）
+-- ARGV[3]: 参与索引过期时间/秒（可选）
 --
 -- 返回值：
 --   1: 扣减成功
@@ -26,11 +27,11 @@ if (redis.call('exists', stockKey) == 0) then
     return -3
 end
 
--- 用户去重检查（当提供用户集合Key和用户ID时生效）
-if #KEYS >= 2 and ARGV[2] then
-    local userSetKey = KEYS[2]
-    local userId = tostring(ARGV[2])
-    if redis.call('sismember', userSetKey, userId) == 1 then
+-- 参与索引检查（当提供索引Key和用户ID时生效）：待支付或已购买均视为已参与
+local offset = nil
+if #KEYS >= 2 and tonumber(ARGV[2]) then
+    offset = tonumber(ARGV[2]) * 2
+    if redis.call('getbit', KEYS[2], offset) == 1 or redis.call('getbit', KEYS[2], offset + 1) == 1 then
         return -2
     end
 end
@@ -43,9 +44,9 @@ end
 
 redis.call('decrby', stockKey, deductNum)
 
--- 记录用户到去重集合
-if #KEYS >= 2 and ARGV[2] then
-    redis.call('sadd', KEYS[2], tostring(ARGV[2]))
+-- 标记用户待支付
+if offset then
+    redis.call('setbit', KEYS[2], offset, 1)
     if ARGV[3] then
         local ttl = tonumber(ARGV[3])
         if ttl and ttl > 0 then
@@ -1,9 +1,9 @@
 -- stock_restore.lua
--- 秒杀库存原子性恢复脚本（含用户去重清理）
--- 功能：参数校验 → 恢复库存 → 移除用户去重记录
+-- 秒杀库存原子性恢复脚本（含参与索引清理）
+-- 功能：参数校验 → 恢复库存 → 清除用户待支付位
 --
 -- KEYS[1]: 库存Key，如 seckill:stock:{skuId}
--- KEYS[2]: 用户去重集合Key，如 seckill:user:{seckillProductId}（可选）
+-- KEYS[2]: 参与索引Key，如 seckill:participation:{seckillProductId}（可选）
 -- ARGV[1]: 恢复数量
 -- ARGV[2]: 用户ID（可选，与KEYS[2]配合使用）
 --
@@ -25,9 +25,9 @@ end
 
 local newStock = redis.call('incrby', stockKey, restoreNum)
 
--- 移除用户去重记录（当提供用户集合Key和用户ID时生效）
-if #KEYS >= 2 and ARGV[2] then
-    redis.call('srem', KEYS[2], tostring(ARGV[2]))
+-- 清除用户待支付位（当提供索引Key和用户ID时生效），已购买位保持不变
+if #KEYS >= 2 and tonumber(ARGV[2]) then
+    redis.call('setbit', KEYS[2], tonumber(ARGV[2]) * 2, 0)
 end
 
 return newStock
@@ -0,0 +1,27 @@
+-- waiting_room_check.lua
+-- 秒杀排队准入检查脚本
+-- 功能：查询用户号码 → 与准入游标比较；只检查不消费，号码在准入成功后由 waiting_room_consume.lua 消费
+-- 等待人数只统计排队集合中仍有效的号码，已消费的号码不计入
+--
+-- KEYS[1]: 排队集合Key（ZSET），如 seckill:room:queue:{seckillProductId}
+-- KEYS[2]: 准入游标Key（已放行的最大号码），如 seckill:room:admit:{seckillProductId}
+-- ARGV[1]: 用户ID
+--
+-- 返回值：
+--   0: 已进入准入窗口
+--  >0: 准入游标之后、号码之前（含自身）仍在排队的号码数
+--  -1: 用户未取号
+
+local ticket = redis.call('zscore', KEYS[1], ARGV[1])
+if not ticket then
+    return -1
+end
+
+ticket = tonumber(ticket)
+local admit = tonumber(redis.call('get', KEYS[2]) or '0') or 0
+
+if ticket <= admit then
+    return 0
+end
+
+return redis.call('zcount', KEYS[1], '(' .. admit, ticket)
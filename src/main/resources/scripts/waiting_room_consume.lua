@@ -0,0 +1,12 @@
+-- waiting_room_consume.lua
+-- 秒杀排队号码消费脚本：准入成功（库存已预占或下单成功）后移除用户号码，一号一用
+-- 准入失败（售罄、系统繁忙、资格不符等）时不调用，用户保留号码可再次提交
+--
+-- KEYS[1]: 排队集合Key（ZSET），如 seckill:room:queue:{seckillProductId}
+-- ARGV[1]: 用户ID
+--
+-- 返回值：
+--   1: 已消费
+--   0: 号码不存在（已被并发请求消费）
+
+return redis.call('zrem', KEYS[1], ARGV[1])
@@ -0,0 +1,29 @@
+-- waiting_room_enter.lua
+-- 秒杀排队取号脚本
+-- 功能：同一用户重复取号返回原号码 → 否则自增发号并记录到排队集合 → 刷新过期时间
+--
+-- KEYS[1]: 发号计数器Key，如 seckill:room:ticket:{seckillProductId}
+-- KEYS[2]: 排队集合Key（ZSET，member=用户ID，score=号码），如 seckill:room:queue:{seckillProductId}
+-- KEYS[3]: 活跃排队室集合Key，如 seckill:room:active
+-- ARGV[1]: 用户ID
+-- ARGV[2]: 秒杀商品ID
+-- ARGV[3]: 过期时间/秒
+--
+-- 返回值：排队号码（>= 1）
+
+local existing = redis.call('zscore', KEYS[2], ARGV[1])
+if existing then
+    return tonumber(existing)
+end
+
+local ticket = redis.call('incr', KEYS[1])
+redis.call('zadd', KEYS[2], ticket, ARGV[1])
+redis.call('sadd', KEYS[3], ARGV[2])
+
+local ttl = tonumber(ARGV[3])
+if ttl and ttl > 0 then
+    redis.call('expire', KEYS[1], ttl)
+    redis.call('expire', KEYS[2], ttl)
+end
+
+return ticket
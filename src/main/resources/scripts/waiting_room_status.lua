@@ -0,0 +1,27 @@
+-- waiting_room_status.lua
+-- 秒杀排队位置查询脚本
+-- 功能：校验号码属于该用户 → 按排队集合中仍有效的号码计算位置；已消费的号码已移出集合，不计入位置
+--
+-- KEYS[1]: 排队集合Key（ZSET，member=用户ID，score=号码），如 seckill:room:queue:{seckillProductId}
+-- KEYS[2]: 准入游标Key（已放行的最大号码），如 seckill:room:admit:{seckillProductId}
+-- ARGV[1]: 用户ID
+-- ARGV[2]: 号码
+--
+-- 返回值：
+--   0: 已进入准入窗口
+--  >0: 准入游标之后、号码之前（含自身）仍在排队的号码数
+--  -1: 号码不属于该用户或已被消费
+
+local ticket = redis.call('zscore', KEYS[1], ARGV[1])
+if not ticket or tonumber(ticket) ~= tonumber(ARGV[2]) then
+    return -1
+end
+
+ticket = tonumber(ticket)
+local admit = tonumber(redis.call('get', KEYS[2]) or '0') or 0
+
+if ticket <= admit then
+    return 0
+end
+
+return redis.call('zcount', KEYS[1], '(' .. admit, ticket)
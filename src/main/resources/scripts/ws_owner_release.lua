@@ -0,0 +1,14 @@
+-- ws_owner_release.lua
+-- 注销 WebSocket 连接归属：只有归属仍是本节点时才删除，避免用户已重连到其他节点后误删新归属
+--
+-- KEYS[1]: 连接归属Key，如 ws:owner:{endpoint}:{id}
+-- ARGV[1]: 本节点ID
+--
+-- 返回值：
+--   1: 已删除
+--   0: 归属不存在或已属于其他节点
+
+if redis.call('get', KEYS[1]) == ARGV[1] then
+    return redis.call('del', KEYS[1])
+end
+return 0
@@ -0,0 +1,81 @@
+package com.muyingmall.aspect;
+
+import com.muyingmall.annotation.CacheEvict;
+import com.muyingmall.cache.BatchCacheLoader;
+import com.muyingmall.cache.CacheEvictPublisher;
+import com.muyingmall.cache.CacheMetrics;
+import com.muyingmall.cache.CacheNamespaces;
+import com.muyingmall.cache.CacheRefresher;
+import com.muyingmall.cache.LocalCache;
+import com.muyingmall.cache.SingleFlight;
+import com.muyingmall.util.RedisUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * 缓存切面失效测试。
+ * 目标：@CacheEvict 默认按命名空间递增代号，不扫描 Redis 键空间；
+ * 只有显式关闭 versioned 与 allEntries 时才按精确键删除。
+ */
+class CacheAspectTest {
+
+    private RedisUtil redisUtil;
+    private LocalCache localCache;
+    private CacheEvictPublisher cacheEvictPublisher;
+    private CacheNamespaces cacheNamespaces;
+    private Writes writes;
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        localCache = mock(LocalCache.class);
+        cacheEvictPublisher = mock(CacheEvictPublisher.class);
+        cacheNamespaces = mock(CacheNamespaces.class);
+        CacheAspect aspect = new CacheAspect(redisUtil, localCache, cacheEvictPublisher, cacheNamespaces,
+                mock(SingleFlight.class), mock(CacheRefresher.class), mock(BatchCacheLoader.class),
+                mock(CacheMetrics.class));
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Writes());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        writes = factory.getProxy();
+    }
+
+    @Test
+    void evict_shouldBumpNamespaceByDefault() {
+        writes.saveBrand();
+
+        verify(cacheNamespaces).bump("brand:list:");
+        verify(cacheNamespaces).bump("brand:page:");
+        verify(redisUtil, never()).scan(anyString());
+        verify(redisUtil, never()).keys(anyString());
+        verifyNoInteractions(localCache, cacheEvictPublisher);
+    }
+
+    @Test
+    void evict_shouldDeleteExactKeyWhenNotVersioned() {
+        writes.saveSettings();
+
+        verify(redisUtil).del("settings:site");
+        verify(localCache).evict("settings:site");
+        verify(cacheEvictPublisher).publishKey("settings:site");
+        verifyNoInteractions(cacheNamespaces);
+    }
+
+    static class Writes {
+
+        @CacheEvict(keyPrefixes = {"brand:list:", "brand:page:"})
+        public void saveBrand() {
+        }
+
+        @CacheEvict(keyPrefixes = "settings:site", versioned = false, allEntries = false, useLocalCache = true)
+        public void saveSettings() {
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.muyingmall.aspect;
+
+import com.muyingmall.annotation.ClusterJob;
+import com.muyingmall.cache.NodeIdentifier;
+import com.muyingmall.config.properties.ClusterJobProperties;
+import com.muyingmall.fixtures.LuaRedisFixture;
+import com.muyingmall.job.ClusterJobContext;
+import com.muyingmall.job.ClusterJobCoordinator;
+import com.muyingmall.job.ClusterJobMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 集群任务切面测试。
+ * 目标：单例任务同一时间只在一个节点执行，保留期内其他节点跳过并计入 skipped；
+ * 分片任务在两个节点间不重不漏地执行全部分片，方法内能取到当前分片；
+ * 任务抛出异常时计入 failure、释放租约并向外抛出；本地任务每个节点都执行。
+ */
+class ClusterJobAspectTest {
+
+    private final Set<String> liveNodes = new LinkedHashSet<>();
+    private final List<ClusterJobCoordinator> coordinators = new ArrayList<>();
+    private StringRedisTemplate template;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        template = new LuaRedisFixture().mockStringTemplate();
+        ZSetOperations<String, String> zSetOperations = mock(ZSetOperations.class);
+        when(template.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScore(eq("job:nodes"), anyDouble(), anyDouble()))
+                .thenAnswer(invocation -> new LinkedHashSet<>(liveNodes));
+    }
+
+    @AfterEach
+    void tearDown() {
+        coordinators.forEach(ClusterJobCoordinator::shutdown);
+    }
+
+    @Test
+    void singleton_shouldRunOnOneNodeAndSkipOthers() {
+        Node a = node();
+        Node b = node();
+
+        a.jobs.single();
+        b.jobs.single();
+        a.jobs.single();
+
+        assertEquals(2, a.jobs.calls().size());
+        assertTrue(b.jobs.calls().isEmpty());
+        assertEquals(2.0, a.registry.get("scheduled.job.runs").tags("job", "single", "outcome", "success")
+                .counter().count());
+        assertEquals(1.0, b.registry.get("scheduled.job.runs").tags("job", "single", "outcome", "skipped")
+                .counter().count());
+        assertTrue(a.registry.get("scheduled.job.last.run").tag("job", "single").gauge().value() > 0);
+        assertEquals(2, a.registry.get("scheduled.job.duration").tag("job", "single").timer().count());
+        // 重入获取时令牌递增
+        assertTrue(Long.parseLong(a.jobs.calls().get(1)) > Long.parseLong(a.jobs.calls().get(0)));
+    }
+
+    @Test
+    void sharded_shouldSplitShardsAcrossLiveNodes() {
+        Node a = node();
+        Node b = node();
+
+        a.jobs.sharded();
+        b.jobs.sharded();
+
+        List<String> all = new ArrayList<>(a.jobs.calls());
+        all.addAll(b.jobs.calls());
+        all.sort(null);
+        assertEquals(List.of("0/4", "1/4", "2/4", "3/4"), all);
+        assertEquals(2, a.jobs.calls().size());
+        assertEquals(2, b.jobs.calls().size());
+        assertNull(ClusterJobContext.current());
+    }
+
+    @Test
+    void failure_shouldPropagateAndReleaseLease() {
+        Node a = node();
+        Node b = node();
+
+        assertThrows(IllegalStateException.class, a.jobs::failing);
+        assertThrows(IllegalStateException.class, b.jobs::failing);
+
+        assertEquals(1.0, a.registry.get("scheduled.job.runs").tags("job", "failing", "outcome", "failure")
+                .counter().count());
+        assertEquals(1.0, b.registry.get("scheduled.job.runs").tags("job", "failing", "outcome", "failure")
+                .counter().count());
+    }
+
+    @Test
+    void local_shouldRunOnEveryNode() {
+        Node a = node();
+        Node b = node();
+
+        a.jobs.local();
+        b.jobs.local();
+
+        assertEquals(List.of("local"), a.jobs.calls());
+        assertEquals(List.of("local"), b.jobs.calls());
+    }
+
+    private Node node() {
+        ClusterJobProperties properties = new ClusterJobProperties();
+        ClusterJobCoordinator coordinator = new ClusterJobCoordinator(template, new NodeIdentifier(), properties);
+        coordinators.add(coordinator);
+        liveNodes.add(coordinator.getNodeId());
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MockEnvironment environment = new MockEnvironment().withProperty("test.shards", "4");
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Jobs());
+        factory.addAspect(new ClusterJobAspect(coordinator, new ClusterJobMetrics(registry), properties, environment));
+        return new Node(factory.getProxy(), registry);
+    }
+
+    private record Node(Jobs jobs, SimpleMeterRegistry registry) {
+    }
+
+    static class Jobs {
+
+        private final List<String> calls = new CopyOnWriteArrayList<>();
+
+        // 通过方法读取：CGLIB 代理对象自身的字段未初始化
+        public List<String> calls() {
+            return calls;
+        }
+
+        @ClusterJob(name = "single", minHoldMs = 60000)
+        public void single() {
+            calls.add(String.valueOf(ClusterJobContext.current().fencingToken()));
+        }
+
+        @ClusterJob(name = "sharded", mode = ClusterJob.Mode.SHARDED, shards = "${test.shards}")
+        public void sharded() {
+            calls.add(ClusterJobContext.shardIndex() + "/" + ClusterJobContext.shardTotal());
+        }
+
+        @ClusterJob(name = "failing")
+        public void failing() {
+            throw new IllegalStateException("boom");
+        }
+
+        @ClusterJob(name = "local", mode = ClusterJob.Mode.LOCAL)
+        public void local() {
+            calls.add("local");
+        }
+    }
+}
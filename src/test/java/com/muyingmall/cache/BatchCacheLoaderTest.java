@@ -0,0 +1,164 @@
+package com.muyingmall.cache;
+
+import com.muyingmall.common.constants.CacheConstants;
+import com.muyingmall.util.RedisUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 按ID批量缓存加载测试。
+ * 目标：L1/MGET 命中的ID不回源；只把未命中的ID一次交给加载函数；不存在的ID写入空值标记并在下次读取时生效；
+ * Redis 故障时全部回源；写回 TTL 落在抖动范围内。
+ */
+class BatchCacheLoaderTest {
+
+    private static final String PREFIX = "brand:basic:";
+    private static final BatchCacheSpec REDIS_ONLY = new BatchCacheSpec(PREFIX, 1000, 0, 60);
+    private static final BatchCacheSpec WITH_LOCAL = new BatchCacheSpec(PREFIX, 1000, 120, 60);
+
+    private RedisUtil redisUtil;
+    private LocalCache localCache;
+    private BatchCacheLoader loader;
+    private final List<List<Integer>> loaderCalls = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        localCache = new LocalCache();
+        ReflectionTestUtils.setField(localCache, "enabled", true);
+        ReflectionTestUtils.setField(localCache, "maxBytes", 1L << 20);
+        localCache.init();
+
+        loader = new BatchCacheLoader(redisUtil, localCache, mock(CacheEvictPublisher.class),
+                new CacheMetrics(new SimpleMeterRegistry(), localCache));
+        ReflectionTestUtils.setField(loader, "ttlJitter", 0.1);
+    }
+
+    @Test
+    void load_shouldPassOnlyRedisMissesToLoader() {
+        when(redisUtil.multiGet(anyList())).thenReturn(Arrays.asList("b1", null, "b3", null));
+
+        Map<Integer, String> result = loader.load(REDIS_ONLY, List.of(1, 2, 3, 4), this::loadFromDb);
+
+        assertEquals(List.of(List.of(2, 4)), loaderCalls);
+        assertEquals(List.of(1, 2, 3, 4), new ArrayList<>(result.keySet()));
+        assertEquals("b2", result.get(2));
+        assertEquals(Map.of(PREFIX + 2, "b2", PREFIX + 4, "b4"), captureWriteBack().getKey());
+    }
+
+    @Test
+    void load_shouldServeLocalHitsWithoutRedis() {
+        localCache.put(120, PREFIX + 1, "b1");
+        localCache.put(120, PREFIX + 2, "b2");
+
+        Map<Integer, String> result = loader.load(WITH_LOCAL, List.of(1, 2, 2, 1), this::loadFromDb);
+
+        assertEquals(Map.of(1, "b1", 2, "b2"), result);
+        verify(redisUtil, never()).multiGet(anyList());
+        assertTrue(loaderCalls.isEmpty());
+    }
+
+    @Test
+    void load_shouldCacheAbsentIdsAsEmptyMarker() {
+        when(redisUtil.multiGet(anyList())).thenReturn(Arrays.asList(null, null));
+
+        Map<Integer, String> result = loader.load(REDIS_ONLY, List.of(5, -1), this::loadFromDb);
+
+        assertEquals(Map.of(5, "b5"), result);
+        Map.Entry<Map<String, Object>, ToLongFunction<String>> writeBack = captureWriteBack();
+        assertEquals(CacheConstants.EMPTY_CACHE_VALUE, writeBack.getKey().get(PREFIX + -1));
+        assertEquals(60, writeBack.getValue().applyAsLong(PREFIX + -1));
+
+        // 再次读取：空值标记命中，不回源也不出现在结果中
+        when(redisUtil.multiGet(anyList())).thenReturn(List.of("b5", CacheConstants.EMPTY_CACHE_VALUE));
+        loaderCalls.clear();
+
+        assertEquals(Map.of(5, "b5"), loader.load(REDIS_ONLY, List.of(5, -1), this::loadFromDb));
+        assertTrue(loaderCalls.isEmpty());
+    }
+
+    @Test
+    void load_shouldFallBackToLoaderWhenRedisFails() {
+        when(redisUtil.multiGet(anyList())).thenThrow(new RedisConnectionFailureException("down"));
+
+        Map<Integer, String> result = loader.load(REDIS_ONLY, List.of(1, 2), this::loadFromDb);
+
+        assertEquals(Map.of(1, "b1", 2, "b2"), result);
+        assertEquals(List.of(List.of(1, 2)), loaderCalls);
+    }
+
+    @Test
+    void load_shouldPopulateLocalCacheFromRedisAndLoader() {
+        when(redisUtil.multiGet(anyList())).thenReturn(Arrays.asList("b1", null));
+
+        loader.load(WITH_LOCAL, List.of(1, 2), this::loadFromDb);
+
+        assertEquals("b1", localCache.get(PREFIX + 1));
+        assertEquals("b2", localCache.get(PREFIX + 2));
+        assertNull(localCache.get(PREFIX + 3));
+    }
+
+    @Test
+    void writeBack_shouldJitterTtlWithinRange() {
+        when(redisUtil.multiGet(anyList())).thenReturn(Arrays.asList(new Object[200]));
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            ids.add(i);
+        }
+
+        loader.load(REDIS_ONLY, ids, this::loadFromDb);
+
+        ToLongFunction<String> ttl = captureWriteBack().getValue();
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int id : ids) {
+            long seconds = ttl.applyAsLong(PREFIX + id);
+            min = Math.min(min, seconds);
+            max = Math.max(max, seconds);
+        }
+        assertTrue(min >= 900 && max <= 1100, "TTL 超出抖动范围: " + min + ".." + max);
+        assertTrue(max > min, "TTL 未抖动");
+    }
+
+    /**
+     * 模拟 IN 查询：负数ID不存在
+     */
+    private Map<Integer, String> loadFromDb(List<Integer> ids) {
+        loaderCalls.add(new ArrayList<>(ids));
+        Map<Integer, String> rows = new HashMap<>();
+        for (Integer id : ids) {
+            if (id > 0) {
+                rows.put(id, "b" + id);
+            }
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map.Entry<Map<String, Object>, ToLongFunction<String>> captureWriteBack() {
+        ArgumentCaptor<Map<String, Object>> values = ArgumentCaptor.forClass(Map.class);
+        ArgumentCaptor<ToLongFunction<String>> ttl = ArgumentCaptor.forClass(ToLongFunction.class);
+        verify(redisUtil).multiSet(values.capture(), ttl.capture());
+        return Map.entry(values.getValue(), ttl.getValue());
+    }
+}
@@ -0,0 +1,139 @@
+package com.muyingmall.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * 本地缓存失效广播合并测试。
+ * 目标：窗口内的失效去重后合并为一条批量消息；被前缀覆盖的 key 丢弃；ALL 覆盖其余请求；单个请求保持原消息格式。
+ */
+class CacheEvictPublisherTest {
+
+    private static final String CHANNEL = "cache:evict:local";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private StringRedisTemplate template;
+    private CacheEvictPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        template = mock(StringRedisTemplate.class);
+        publisher = new CacheEvictPublisher(template, new NodeIdentifier(), objectMapper);
+        ReflectionTestUtils.setField(publisher, "batchWindowMs", 60_000L);
+        ReflectionTestUtils.setField(publisher, "maxBatchSize", 500);
+        publisher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void flush_shouldMergeAndDeduplicateIntoOneBatch() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            publisher.publishKey("product:detail:" + (i % 10));
+        }
+        publisher.publishKey("order:user:list:1v0:a");
+        publisher.publishPrefix("product:list:");
+        publisher.publishPrefix("product:list:");
+        verifyNoInteractions(template);
+
+        publisher.flush();
+
+        List<CacheEvictMessage> messages = published(1);
+        CacheEvictMessage batch = messages.get(0);
+        assertEquals(CacheEvictMessage.EvictType.BATCH, batch.getType());
+        assertEquals(11, batch.getKeys().size());
+        assertEquals(List.of("product:list:"), batch.getPrefixes());
+    }
+
+    @Test
+    void flush_shouldDropKeysCoveredByPendingPrefix() throws Exception {
+        publisher.publishKey("product:detail:1");
+        publisher.publishKey("product:detail:2");
+        publisher.publishPrefix("product:detail:");
+
+        publisher.flush();
+
+        CacheEvictMessage message = published(1).get(0);
+        assertEquals(CacheEvictMessage.EvictType.PREFIX, message.getType());
+        assertEquals("product:detail:", message.getTarget());
+    }
+
+    @Test
+    void flush_shouldSendSingleKeyInLegacyFormat() throws Exception {
+        publisher.publishKey("cache:gen:order:user:list:1");
+
+        publisher.flush();
+
+        CacheEvictMessage message = published(1).get(0);
+        assertEquals(CacheEvictMessage.EvictType.KEY, message.getType());
+        assertEquals("cache:gen:order:user:list:1", message.getTarget());
+        assertNull(message.getKeys());
+    }
+
+    @Test
+    void publishAll_shouldSupersedeOtherPendingEvictions() throws Exception {
+        publisher.publishKey("product:detail:1");
+        publisher.publishAll();
+        publisher.publishPrefix("product:list:");
+
+        publisher.flush();
+
+        assertEquals(CacheEvictMessage.EvictType.ALL, published(1).get(0).getType());
+    }
+
+    @Test
+    void enqueue_shouldFlushImmediatelyWhenBatchIsFull() throws Exception {
+        ReflectionTestUtils.setField(publisher, "maxBatchSize", 50);
+
+        for (int i = 0; i < 120; i++) {
+            publisher.publishKey("product:detail:" + i);
+        }
+        publisher.flush();
+
+        List<CacheEvictMessage> messages = published(3);
+        assertEquals(50, messages.get(0).getKeys().size());
+        assertEquals(50, messages.get(1).getKeys().size());
+        assertEquals(20, messages.get(2).getKeys().size());
+    }
+
+    @Test
+    void publishKey_shouldFlushAfterBatchWindow() {
+        ReflectionTestUtils.setField(publisher, "batchWindowMs", 5L);
+
+        publisher.publishKey("product:detail:1");
+
+        verify(template, timeout(2000)).convertAndSend(eq(CHANNEL), anyString());
+    }
+
+    private List<CacheEvictMessage> published(int expected) throws Exception {
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(template, atLeast(1)).convertAndSend(eq(CHANNEL), body.capture());
+        List<CacheEvictMessage> messages = new ArrayList<>();
+        for (String json : body.getAllValues()) {
+            messages.add(objectMapper.readValue(json, CacheEvictMessage.class));
+        }
+        assertEquals(expected, messages.size());
+        return messages;
+    }
+}
@@ -0,0 +1,110 @@
+package com.muyingmall.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 缓存指标测试。
+ * 目标：键归入有界的命名空间；命中/未命中/回源/击穿等待按命名空间计数；收益排行按净节省时间排序。
+ */
+class CacheMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private LocalCache localCache;
+    private CacheMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        localCache = new LocalCache();
+        ReflectionTestUtils.setField(localCache, "enabled", true);
+        ReflectionTestUtils.setField(localCache, "maxBytes", 1L << 20);
+        localCache.init();
+        metrics = new CacheMetrics(registry, localCache);
+        metrics.init();
+    }
+
+    @Test
+    void namespaceOf_shouldNormalizeIdSegments() {
+        assertEquals("product:detail", CacheMetrics.namespaceOf("product:detail:42"));
+        assertEquals("product:detail", CacheMetrics.namespaceOf("product:detail:"));
+        assertEquals("order:{id}", CacheMetrics.namespaceOf("order:1001:items"));
+        assertEquals("config", CacheMetrics.namespaceOf("config"));
+        assertEquals(CacheMetrics.OTHER, CacheMetrics.namespaceOf(null));
+    }
+
+    @Test
+    void record_shouldTagMetersByNamespace() {
+        metrics.recordL1Hit("product:detail");
+        metrics.recordL2Hit("product:detail", TimeUnit.MILLISECONDS.toNanos(1));
+        metrics.recordMiss("product:detail", TimeUnit.MILLISECONDS.toNanos(1));
+        metrics.recordLoad("product:detail", TimeUnit.MILLISECONDS.toNanos(20), "payload");
+        metrics.recordContention("product:detail", CacheMetrics.ContentionSource.REDIS);
+
+        assertEquals(1, registry.get("cache.requests").tags("namespace", "product:detail", "result", "l1_hit")
+                .counter().count());
+        assertEquals(1, registry.get("cache.requests").tags("namespace", "product:detail", "result", "miss")
+                .counter().count());
+        assertEquals(2, registry.get("cache.lookup.duration").tag("namespace", "product:detail").timer().count());
+        assertEquals(20, registry.get("cache.load.duration").tag("namespace", "product:detail").timer()
+                .totalTime(TimeUnit.MILLISECONDS), 0.01);
+        assertTrue(registry.get("cache.payload.bytes").tag("namespace", "product:detail").summary()
+                .totalAmount() > 0);
+        assertEquals(1, registry.get("cache.lock.contention").tags("namespace", "product:detail", "source", "redis")
+                .counter().count());
+    }
+
+    @Test
+    void savings_shouldRankByNetSavedTime() {
+        // 命中率高、回源慢：净节省为正
+        for (int i = 0; i < 9; i++) {
+            metrics.recordL2Hit("product:detail", TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        metrics.recordMiss("product:detail", TimeUnit.MILLISECONDS.toNanos(1));
+        metrics.recordLoad("product:detail", TimeUnit.MILLISECONDS.toNanos(50), null);
+        // 几乎不命中、回源快：净开销
+        for (int i = 0; i < 10; i++) {
+            metrics.recordMiss("search:result", TimeUnit.MILLISECONDS.toNanos(2));
+            metrics.recordLoad("search:result", TimeUnit.MILLISECONDS.toNanos(1), null);
+        }
+
+        List<CacheMetrics.NamespaceSavings> savings = metrics.savings();
+
+        assertEquals("product:detail", savings.get(0).namespace());
+        assertEquals(450, savings.get(0).savedMs(), 0.01);
+        assertEquals(449, savings.get(0).netSavedMs(), 0.01);
+        assertEquals("search:result", savings.get(1).namespace());
+        assertEquals(-20, savings.get(1).netSavedMs(), 0.01);
+    }
+
+    @Test
+    void meters_shouldFoldNamespacesBeyondLimitIntoOther() {
+        ReflectionTestUtils.setField(metrics, "maxNamespaces", 2);
+
+        metrics.recordMiss("a:x", 0);
+        metrics.recordMiss("b:x", 0);
+        metrics.recordMiss("c:x", 0);
+        metrics.recordMiss("d:x", 0);
+
+        assertEquals(3, metrics.savings().size());
+        assertEquals(2, registry.get("cache.requests").tags("namespace", CacheMetrics.OTHER, "result", "miss")
+                .counter().count());
+    }
+
+    @Test
+    void init_shouldExposeLocalCacheGauges() {
+        localCache.put(60, "brand:basic:1", "nike");
+        localCache.cleanUp();
+
+        assertEquals(1, registry.get("cache.local.entries").gauge().value());
+        assertTrue(registry.get("cache.local.bytes").gauge().value() > 0);
+    }
+}
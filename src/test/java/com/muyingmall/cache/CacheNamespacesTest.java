@@ -0,0 +1,103 @@
+package com.muyingmall.cache;
+
+import com.muyingmall.fixtures.LuaRedisFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 带代号的缓存命名空间测试。
+ * 目标：失效只递增代号，key 随之切换；代号Key缺失后重新起步不会复用旧代号；本地代号缓存在失效时被清除并广播。
+ */
+class CacheNamespacesTest {
+
+    private static final String NAMESPACE = "coupon:user:1001:";
+    private static final long NOW = 1_700_000_000_000L;
+
+    private LuaRedisFixture redis;
+    private RedisTemplate<String, Object> template;
+    private LocalCache localCache;
+    private CacheEvictPublisher publisher;
+    private CacheNamespaces namespaces;
+
+    @BeforeEach
+    void setUp() {
+        redis = new LuaRedisFixture();
+        localCache = new LocalCache();
+        ReflectionTestUtils.setField(localCache, "enabled", true);
+        ReflectionTestUtils.setField(localCache, "maxBytes", 1L << 20);
+        localCache.init();
+        redis.setClockMillis(NOW);
+        template = redis.mockTemplate();
+        publisher = mock(CacheEvictPublisher.class);
+        namespaces = newNamespaces(template);
+    }
+
+    @Test
+    void key_shouldChangeAfterBump() {
+        assertEquals(NAMESPACE + "v0:all", namespaces.key(NAMESPACE, "all"));
+
+        namespaces.bump(NAMESPACE);
+        String first = namespaces.key(NAMESPACE, "all");
+        namespaces.bump(NAMESPACE);
+        String second = namespaces.key(NAMESPACE, "all");
+
+        // 首次递增以毫秒时间戳起步，之后每次 +1
+        assertEquals(NAMESPACE + "v" + NOW + ":all", first);
+        assertEquals(NAMESPACE + "v" + (NOW + 1) + ":all", second);
+    }
+
+    @Test
+    void bump_shouldNotReuseGenerationAfterKeyExpired() {
+        namespaces.bump(NAMESPACE);
+        namespaces.bump(NAMESPACE);
+        long before = namespaces.generation(NAMESPACE);
+
+        // 代号Key过期后再次失效：以当前时间重新起步，不会回到过期前用过的代号
+        template.delete(CacheNamespaces.generationKey(NAMESPACE));
+        redis.setClockMillis(NOW + 60_000);
+        namespaces.bump(NAMESPACE);
+
+        assertEquals(NOW + 1, before);
+        assertEquals(NOW + 60_000, namespaces.generation(NAMESPACE));
+    }
+
+    @Test
+    void bump_shouldEvictLocalGenerationAndBroadcast() {
+        assertEquals(0L, namespaces.generation(NAMESPACE));
+
+        namespaces.bump(NAMESPACE);
+
+        // 本节点立即读到新代号，其他节点通过广播清除本地代号
+        assertNotEquals(0L, namespaces.generation(NAMESPACE));
+        verify(publisher).publishKey(CacheNamespaces.generationKey(NAMESPACE));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generation_shouldFallBackToZeroWhenRedisFails() {
+        RedisTemplate<String, Object> broken = mock(RedisTemplate.class);
+        when(broken.opsForValue()).thenThrow(new IllegalStateException("connection refused"));
+        CacheNamespaces degraded = newNamespaces(broken);
+
+        assertEquals(NAMESPACE + "v0:all", degraded.key(NAMESPACE, "all"));
+        // 失败结果不写入本地缓存，Redis 恢复后重新读取
+        assertNull(localCache.get(CacheNamespaces.generationKey(NAMESPACE)));
+    }
+
+    private CacheNamespaces newNamespaces(RedisTemplate<String, Object> template) {
+        CacheNamespaces result = new CacheNamespaces(template, localCache, publisher);
+        ReflectionTestUtils.setField(result, "generationTtlSeconds", 604800L);
+        ReflectionTestUtils.setField(result, "generationLocalSeconds", 5L);
+        result.init();
+        return result;
+    }
+}
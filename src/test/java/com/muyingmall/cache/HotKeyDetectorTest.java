@@ -0,0 +1,137 @@
+package com.muyingmall.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 热点Key探测测试。
+ * 目标：超过阈值的Key提升到本地缓存；标量与排除前缀不提升；冷却后移出；写入热点Key时清除并广播。
+ */
+class HotKeyDetectorTest {
+
+    private static final String KEY = "coupon:available";
+    private static final List<String> VALUE = List.of("c1", "c2");
+
+    private LocalCache localCache;
+    private CacheEvictPublisher publisher;
+    private ZSetOperations<String, String> zSetOps;
+    private HotKeyDetector detector;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        localCache = new LocalCache();
+        ReflectionTestUtils.setField(localCache, "enabled", true);
+        ReflectionTestUtils.setField(localCache, "maxBytes", 1L << 20);
+        localCache.init();
+
+        publisher = mock(CacheEvictPublisher.class);
+        StringRedisTemplate template = mock(StringRedisTemplate.class);
+        zSetOps = mock(ZSetOperations.class);
+        when(template.opsForZSet()).thenReturn(zSetOps);
+
+        detector = new HotKeyDetector(localCache, publisher, template);
+        ReflectionTestUtils.setField(detector, "enabled", true);
+        ReflectionTestUtils.setField(detector, "sampleRate", 1);
+        ReflectionTestUtils.setField(detector, "threshold", 100L);
+        ReflectionTestUtils.setField(detector, "promoteTtlSeconds", 3L);
+        ReflectionTestUtils.setField(detector, "maxHotKeys", 16);
+        ReflectionTestUtils.setField(detector, "sketchWidth", 1024);
+        ReflectionTestUtils.setField(detector, "decayIntervalMs", 1000L);
+        ReflectionTestUtils.setField(detector, "excludedPrefixes", List.of("lock:", "seckill:"));
+        detector.init();
+    }
+
+    @Test
+    void readLocal_shouldServeKeyFromLocalCacheOnceHot() {
+        for (int i = 0; i < 99; i++) {
+            assertNull(read(KEY, VALUE));
+        }
+        assertTrue(detector.hotKeys().isEmpty());
+
+        // 第 100 次读取达到阈值，随后的 Redis 结果被提升
+        read(KEY, VALUE);
+        assertEquals(KEY, detector.hotKeys().get(0).key());
+        assertSame(VALUE, detector.readLocal(KEY));
+        verify(zSetOps).add(eq("cache:hot-keys"), eq(KEY), anyDouble());
+    }
+
+    @Test
+    void promote_shouldSkipScalarValuesAndExcludedPrefixes() {
+        heatUp("counter:views", 42);
+        heatUp("lock:order:1", List.of("x"));
+
+        assertNull(detector.readLocal("counter:views"));
+        assertNull(detector.readLocal("lock:order:1"));
+        assertEquals(1, detector.hotKeys().size());
+    }
+
+    @Test
+    void decay_shouldCoolOffKeysThatStopBeingRead() {
+        heatUp(KEY, VALUE);
+        assertSame(VALUE, detector.readLocal(KEY));
+
+        // 每次衰减减半，约 2 个周期后低于阈值一半
+        for (int i = 0; i < 3; i++) {
+            detector.decay();
+        }
+
+        assertTrue(detector.hotKeys().isEmpty());
+        assertNull(localCache.get(KEY));
+    }
+
+    @Test
+    void onWrite_shouldEvictAndBroadcastOnlyForHotKeys() {
+        heatUp(KEY, VALUE);
+
+        detector.onWrite(KEY);
+        detector.onWrite("product:detail:1");
+
+        assertNull(localCache.get(KEY));
+        verify(publisher).publishKey(KEY);
+        verify(publisher, never()).publishKey("product:detail:1");
+    }
+
+    @Test
+    void onWrite_shouldBroadcastForKeysHotOnOtherNodes() {
+        when(zSetOps.rangeByScore(eq("cache:hot-keys"), anyDouble(), anyDouble()))
+                .thenReturn(Set.of("member_level:list"));
+        detector.decay();
+
+        detector.onWrite("member_level:list");
+
+        verify(publisher).publishKey("member_level:list");
+    }
+
+    private Object read(String key, Object redisValue) {
+        Object local = detector.readLocal(key);
+        if (local != null) {
+            return local;
+        }
+        detector.promote(key, redisValue);
+        return null;
+    }
+
+    private void heatUp(String key, Object redisValue) {
+        for (int i = 0; i < 200; i++) {
+            read(key, redisValue);
+        }
+    }
+}
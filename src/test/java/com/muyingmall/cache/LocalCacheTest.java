@@ -0,0 +1,161 @@
+package com.muyingmall.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.muyingmall.fixtures.CacheValueFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 本地缓存测试。
+ * 目标：不同 TTL 的条目共用一个实例且各自过期；容量按估算字节数限制；命名空间统计命中、占用与淘汰；
+ * 按前缀失效通过命名空间索引覆盖所有匹配的 key。
+ */
+class LocalCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private LocalCache localCache;
+
+    @BeforeEach
+    void setUp() {
+        localCache = newCache(1L << 20);
+    }
+
+    @Test
+    void put_shouldExpireEachEntryByItsOwnTtl() {
+        localCache.put(5, "seckill:admission:product:1", "short");
+        localCache.put(300, "product:detail:1", "long");
+
+        advanceSeconds(6);
+
+        assertNull(localCache.get("seckill:admission:product:1"));
+        assertEquals("long", localCache.get("product:detail:1"));
+
+        advanceSeconds(300);
+        assertNull(localCache.get("product:detail:1"));
+    }
+
+    @Test
+    void put_shouldWeighEntriesByEstimatedBytes() {
+        localCache.put(60, "flag:enabled:1", Boolean.TRUE);
+        localCache.put(60, "category:tree:all", CacheValueFixtures.categoryTree(8, 10));
+        localCache.cleanUp();
+
+        Map<String, LocalCache.NamespaceStats> stats = statsByNamespace();
+        long flagBytes = stats.get("flag:enabled").bytes();
+        long treeBytes = stats.get("category:tree").bytes();
+
+        assertTrue(flagBytes < 256, "flag bytes: " + flagBytes);
+        assertTrue(treeBytes > 50 * flagBytes, "tree bytes: " + treeBytes);
+        assertEquals(flagBytes + treeBytes, localCache.weightedBytes());
+    }
+
+    @Test
+    void put_shouldEvictBySizeWhenByteBudgetExceeded() {
+        localCache = newCache(64 * 1024);
+
+        for (int i = 0; i < 100; i++) {
+            localCache.put(60, "product:detail:" + i, CacheValueFixtures.product(i));
+        }
+        localCache.cleanUp();
+
+        assertTrue(localCache.weightedBytes() <= 64 * 1024, "used bytes: " + localCache.weightedBytes());
+        LocalCache.NamespaceStats stats = statsByNamespace().get("product:detail");
+        assertTrue(stats.sizeEvictions() > 0);
+        assertEquals(100, stats.entries() + stats.sizeEvictions());
+    }
+
+    @Test
+    void namespaceStats_shouldCountHitsMissesAndExpirations() {
+        localCache.put(10, "product:detail:1", "p1");
+        localCache.get("product:detail:1");
+        localCache.get("product:detail:1");
+        localCache.get("product:detail:2");
+
+        advanceSeconds(11);
+        localCache.get("product:detail:1");
+        localCache.cleanUp();
+
+        LocalCache.NamespaceStats stats = statsByNamespace().get("product:detail");
+        assertNotNull(stats);
+        assertEquals(2, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(1, stats.puts());
+        assertEquals(1, stats.expirations());
+        assertEquals(0, stats.entries());
+        assertEquals(0.5, stats.hitRate());
+    }
+
+    @Test
+    void evictByPrefix_shouldRemoveMatchingKeysAcrossTtls() {
+        localCache.put(5, "order:user:list:1v0:a", "a");
+        localCache.put(600, "order:user:list:1v0:b", "b");
+        localCache.put(600, "order:user:list:2v0:a", "c");
+
+        localCache.evictByPrefix("order:user:list:1v");
+
+        assertNull(localCache.get("order:user:list:1v0:a"));
+        assertNull(localCache.get("order:user:list:1v0:b"));
+        assertEquals("c", localCache.get("order:user:list:2v0:a"));
+    }
+
+    @Test
+    void evictByPrefix_shouldSpanNamespacesSharingThePrefix() {
+        localCache.put(60, "product:detail:1", "d");
+        localCache.put(60, "product:list:1", "l");
+        localCache.put(60, "product", "bare");
+        localCache.put(60, "productx:detail:1", "other");
+
+        localCache.evictByPrefix("product:");
+
+        assertNull(localCache.get("product:detail:1"));
+        assertNull(localCache.get("product:list:1"));
+        assertEquals("bare", localCache.get("product"));
+        assertEquals("other", localCache.get("productx:detail:1"));
+
+        // 失效后重新写入的 key 仍在索引中，可以再次按前缀清除
+        localCache.put(60, "product:detail:1", "d2");
+        localCache.evictByPrefix("product:detail:1");
+        assertNull(localCache.get("product:detail:1"));
+    }
+
+    @Test
+    void namespaceOf_shouldUseFirstTwoSegments() {
+        assertEquals("product:detail", LocalCache.namespaceOf("product:detail:1"));
+        assertEquals("cache:gen", LocalCache.namespaceOf("cache:gen:order:user:list:1"));
+        assertEquals("flag", LocalCache.namespaceOf("flag:1"));
+        assertEquals("plain", LocalCache.namespaceOf("plain"));
+    }
+
+    private LocalCache newCache(long maxBytes) {
+        LocalCache cache = new LocalCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "statsEnabled", true);
+        ReflectionTestUtils.setField(cache, "maxBytes", maxBytes);
+        ReflectionTestUtils.setField(cache, "ticker", (Ticker) nanos::get);
+        cache.init();
+        return cache;
+    }
+
+    private void advanceSeconds(long seconds) {
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    private Map<String, LocalCache.NamespaceStats> statsByNamespace() {
+        List<LocalCache.NamespaceStats> stats = localCache.namespaceStats();
+        return stats.stream().collect(Collectors.toMap(LocalCache.NamespaceStats::namespace, Function.identity()));
+    }
+}
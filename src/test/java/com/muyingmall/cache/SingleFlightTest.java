@@ -0,0 +1,113 @@
+package com.muyingmall.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 进程内请求合并测试。
+ * 目标：同一 key 的并发加载只执行一次且所有调用方拿到同一结果；加载异常传递给所有等待方；加载结束后不残留。
+ */
+class SingleFlightTest {
+
+    private static final int THREADS = 16;
+
+    private SingleFlight singleFlight;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        singleFlight = new SingleFlight();
+        ReflectionTestUtils.setField(singleFlight, "waitTimeoutMs", 3000L);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_shouldCoalesceConcurrentLoadsForSameKey() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = submitAll(() -> singleFlight.execute("product:1", () -> {
+            loads.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return "detail";
+        }));
+        waitUntilInFlight();
+        // 留出时间让其余线程都进入等待
+        TimeUnit.MILLISECONDS.sleep(100);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("detail", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void execute_shouldPropagateLoaderFailureToWaiters() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = submitAll(() -> singleFlight.execute("product:2", () -> {
+            release.await(5, TimeUnit.SECONDS);
+            throw new IllegalStateException("db down");
+        }));
+        waitUntilInFlight();
+        TimeUnit.MILLISECONDS.sleep(100);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void execute_shouldLoadAgainAfterPreviousFlightCompleted() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("product:3", loads::incrementAndGet);
+        singleFlight.execute("product:3", loads::incrementAndGet);
+
+        // 合并只针对进行中的加载，不缓存结果
+        assertEquals(2, loads.get());
+    }
+
+    private List<Future<String>> submitAll(Callable<String> task) {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(task));
+        }
+        return results;
+    }
+
+    private void waitUntilInFlight() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (singleFlight.inFlightCount() == 0 && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertTrue(singleFlight.inFlightCount() > 0);
+    }
+}
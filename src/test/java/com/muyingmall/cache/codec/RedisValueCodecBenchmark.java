@@ -0,0 +1,91 @@
+package com.muyingmall.cache.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muyingmall.config.RedisConfig;
+import com.muyingmall.fixtures.CacheValueFixtures;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Redis 值编码基准：比较 JDK 序列化、原 Jackson JSON 与 Smile（不压缩/LZ4 压缩）的字节数与编解码耗时。
+ * 默认构建不执行，通过 mvn test -Pbenchmark 运行；迭代次数通过 -Dcodec.bench.iterations=20000 调整。
+ */
+@Slf4j
+@Tag("benchmark")
+class RedisValueCodecBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+
+    @Test
+    void compareSerializers() {
+        int iterations = Integer.getInteger("codec.bench.iterations", 5_000);
+        ObjectMapper redisObjectMapper = new RedisConfig().redisObjectMapper();
+        Jackson2JsonRedisSerializer<Object> json = new Jackson2JsonRedisSerializer<>(redisObjectMapper, Object.class);
+        List<ValueFormat> formats = List.of(new SmileValueFormat(redisObjectMapper, List.of("com.muyingmall.")),
+                new JsonValueFormat(json));
+
+        Map<String, RedisSerializer<Object>> serializers = new LinkedHashMap<>();
+        serializers.put("jdk", new JdkSerializationRedisSerializer());
+        serializers.put("jackson-json", json);
+        serializers.put("smile", new RedisValueCodec(formats, json, 0, true));
+        serializers.put("smile+lz4", new RedisValueCodec(formats, json, 512, true));
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("Product", CacheValueFixtures.product(1));
+        values.put("Order", CacheValueFixtures.order(1));
+        values.put("CategoryTree(8x10)", CacheValueFixtures.categoryTree(8, 10));
+
+        StringBuilder report = new StringBuilder(String.format("%n%-20s %-14s %10s %14s %14s%n",
+                "value", "serializer", "bytes", "encode ns/op", "decode ns/op"));
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            Map<String, Integer> sizes = new LinkedHashMap<>();
+            for (Map.Entry<String, RedisSerializer<Object>> serializer : serializers.entrySet()) {
+                Result result = measure(serializer.getValue(), value.getValue(), iterations);
+                sizes.put(serializer.getKey(), result.bytes());
+                report.append(String.format("%-20s %-14s %10d %14d %14d%n", value.getKey(), serializer.getKey(),
+                        result.bytes(), result.encodeNanos(), result.decodeNanos()));
+            }
+            assertTrue(sizes.get("smile") < sizes.get("jackson-json"), value.getKey() + " " + sizes);
+            assertTrue(sizes.get("smile+lz4") <= sizes.get("smile"), value.getKey() + " " + sizes);
+        }
+        log.info(report.toString());
+    }
+
+    private static Result measure(RedisSerializer<Object> serializer, Object value, int iterations) {
+        byte[] bytes = serializer.serialize(value);
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                bytes = serializer.serialize(value);
+            }
+            long encoded = System.nanoTime();
+            Object sink = null;
+            for (int i = 0; i < iterations; i++) {
+                sink = serializer.deserialize(bytes);
+            }
+            long decoded = System.nanoTime();
+            if (sink == null) {
+                throw new IllegalStateException("解码结果为空");
+            }
+            // 只统计预热后的最后一轮
+            encodeNanos = (encoded - start) / iterations;
+            decodeNanos = (decoded - encoded) / iterations;
+        }
+        return new Result(bytes.length, encodeNanos, decodeNanos);
+    }
+
+    private record Result(int bytes, long encodeNanos, long decodeNanos) {
+    }
+}
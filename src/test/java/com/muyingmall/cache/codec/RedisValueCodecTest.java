@@ -0,0 +1,128 @@
+package com.muyingmall.cache.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muyingmall.config.RedisConfig;
+import com.muyingmall.entity.Category;
+import com.muyingmall.entity.Order;
+import com.muyingmall.entity.Product;
+import com.muyingmall.fixtures.CacheValueFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Redis 值编解码测试。
+ * 目标：实体与集合往返一致；标量字节与原 JSON 完全相同；能读取 JSON 写入的旧数据且不做 JDK 反序列化；
+ * 大值压缩且显著小于 JSON；白名单之外的类型回退 JSON 格式；解码拒绝白名单之外的类名与损坏的压缩数据。
+ */
+class RedisValueCodecTest {
+
+    private static final List<String> ALLOWED = List.of("com.muyingmall.");
+
+    private final ObjectMapper redisObjectMapper = new RedisConfig().redisObjectMapper();
+    private final Jackson2JsonRedisSerializer<Object> json =
+            new Jackson2JsonRedisSerializer<>(redisObjectMapper, Object.class);
+    private final RedisValueCodec codec = codec(ALLOWED, true);
+
+    private RedisValueCodec codec(List<String> allowedPackages, boolean writeEnabled) {
+        return new RedisValueCodec(List.of(new SmileValueFormat(redisObjectMapper, allowedPackages), new JsonValueFormat(json)),
+                json, 512, writeEnabled);
+    }
+
+    @Test
+    void roundTrip_shouldPreserveProductOrderAndCategoryTree() {
+        Product product = CacheValueFixtures.product(1);
+        Order order = CacheValueFixtures.order(42);
+        List<Category> tree = CacheValueFixtures.categoryTree(8, 6);
+
+        assertEquals(product, codec.deserialize(codec.serialize(product)));
+        assertEquals(order, codec.deserialize(codec.serialize(order)));
+        assertEquals(tree, codec.deserialize(codec.serialize(tree)));
+        Map<String, Object> map = new HashMap<>(Map.of("a", 1, "b", new ArrayList<>(List.of(2, "c"))));
+        assertEquals(map, codec.deserialize(codec.serialize(map)));
+    }
+
+    @Test
+    void serialize_shouldKeepScalarsAsLegacyJson() {
+        for (Object scalar : new Object[]{"lock-request-id", 123, 9_000_000_000L, true}) {
+            assertArrayEquals(json.serialize(scalar), codec.serialize(scalar), String.valueOf(scalar));
+        }
+        // Lua 脚本按数字文本读取计数
+        assertEquals("100", new String(codec.serialize(100)));
+    }
+
+    @Test
+    void deserialize_shouldReadLegacyJsonButNotJdkValues() {
+        Product product = CacheValueFixtures.product(7);
+
+        assertEquals(product, codec.deserialize(json.serialize(product)));
+        // 0xACED 开头的值按 JSON 解析失败，不会被 JDK 反序列化
+        byte[] jdk = new JdkSerializationRedisSerializer().serialize(product);
+        assertThrows(SerializationException.class, () -> codec.deserialize(jdk));
+    }
+
+    @Test
+    void serialize_shouldCompressLargeValuesWellBelowJsonSize() {
+        List<Category> tree = CacheValueFixtures.categoryTree(8, 10);
+
+        byte[] encoded = codec.serialize(tree);
+        byte[] legacy = json.serialize(tree);
+
+        assertEquals(RedisValueCodec.MAGIC, encoded[0]);
+        assertTrue((encoded[1] & 0x08) != 0, "expected compressed flag");
+        assertTrue(encoded.length * 3 < legacy.length, "binary " + encoded.length + " vs json " + legacy.length);
+        assertEquals(tree, codec.deserialize(encoded));
+    }
+
+    @Test
+    void serialize_shouldFallBackToJsonFormatForClassesOutsideWhitelist() {
+        RedisValueCodec strict = codec(List.of("com.example."), true);
+        Order order = CacheValueFixtures.order(5);
+
+        byte[] encoded = strict.serialize(order);
+
+        assertEquals(JsonValueFormat.ID, encoded[1] & 0x07);
+        assertEquals(order, strict.deserialize(encoded));
+        assertEquals(SmileValueFormat.ID, codec.serialize(order)[1] & 0x07);
+    }
+
+    @Test
+    void writeDisabled_shouldWriteLegacyJsonButStillReadBinary() {
+        Product product = CacheValueFixtures.product(3);
+        RedisValueCodec rollback = codec(ALLOWED, false);
+
+        assertArrayEquals(json.serialize(product), rollback.serialize(product));
+        assertEquals(product, rollback.deserialize(codec.serialize(product)));
+    }
+
+    @Test
+    void deserialize_shouldRejectClassesOutsideWhitelist() {
+        byte[] encoded = codec.serialize(CacheValueFixtures.order(1));
+        RedisValueCodec strict = codec(List.of("com.example."), true);
+
+        SerializationException e = assertThrows(SerializationException.class, () -> strict.deserialize(encoded));
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+    }
+
+    @Test
+    void deserialize_shouldRejectCorruptedCompressedValues() {
+        byte[] encoded = codec.serialize(CacheValueFixtures.categoryTree(8, 10));
+        assertTrue((encoded[1] & 0x08) != 0, "expected compressed flag");
+
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 3);
+        assertThrows(SerializationException.class, () -> codec.deserialize(truncated));
+    }
+}
@@ -0,0 +1,109 @@
+package com.muyingmall.common.id;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 单号生成基准：比较原「时间戳 + UUID 截断」单号与 Snowflake 单号的单线程/多线程耗时与重复数。
+ * 默认构建不执行，通过 mvn test -Pbenchmark 运行；迭代次数通过 -Did.bench.iterations=200000 调整。
+ */
+@Slf4j
+@Tag("benchmark")
+class IdGeneratorBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int THREADS = 8;
+
+    @Test
+    void compareOrderNoGenerators() throws Exception {
+        int iterations = Integer.getInteger("id.bench.iterations", 100_000);
+        SnowflakeIdGenerator snowflake = new SnowflakeIdGenerator(1, 1704038400000L, 5000);
+        Supplier<String> legacy = () -> "OD" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 6);
+        Supplier<String> current = () -> snowflake.nextNo("OD");
+
+        StringBuilder report = new StringBuilder(String.format("%n%-12s %8s %12s %12s%n",
+                "generator", "threads", "ns/op", "duplicates"));
+        for (int threads : new int[]{1, THREADS}) {
+            Result legacyResult = measure(legacy, threads, iterations);
+            Result snowflakeResult = measure(current, threads, iterations);
+            report.append(String.format("%-12s %8d %12d %12d%n", "uuid-suffix", threads,
+                    legacyResult.nanosPerOp(), legacyResult.duplicates()));
+            report.append(String.format("%-12s %8d %12d %12d%n", "snowflake", threads,
+                    snowflakeResult.nanosPerOp(), snowflakeResult.duplicates()));
+            assertEquals(0, snowflakeResult.duplicates(), "snowflake threads=" + threads);
+        }
+        log.info(report.toString());
+    }
+
+    private static Result measure(Supplier<String> generator, int threads, int iterations) throws Exception {
+        Result result = null;
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            // 只统计预热后的最后一轮
+            result = runRound(generator, threads, iterations);
+        }
+        return result;
+    }
+
+    private static Result runRound(Supplier<String> generator, int threads, int iterations) throws Exception {
+        int perThread = iterations / threads;
+        Set<String> seen = ConcurrentHashMap.newKeySet(iterations);
+        String[][] generated = new String[threads][perThread];
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long elapsed;
+        try {
+            for (int t = 0; t < threads; t++) {
+                String[] sink = generated[t];
+                executor.execute(() -> {
+                    ready.countDown();
+                    try {
+                        start.await();
+                        for (int i = 0; i < perThread; i++) {
+                            sink[i] = generator.get();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            ready.await();
+            long begin = System.nanoTime();
+            start.countDown();
+            done.await();
+            elapsed = System.nanoTime() - begin;
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        // 去重统计放在计时之外，避免集合开销计入生成耗时
+        long duplicates = 0;
+        for (String[] ids : generated) {
+            for (String id : ids) {
+                if (!seen.add(id)) {
+                    duplicates++;
+                }
+            }
+        }
+        return new Result(elapsed / ((long) perThread * threads), duplicates);
+    }
+
+    private record Result(long nanosPerOp, long duplicates) {
+    }
+}
@@ -0,0 +1,79 @@
+package com.muyingmall.common.id;
+
+import com.muyingmall.cache.NodeIdentifier;
+import com.muyingmall.lock.DistributedLock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ID生成器节点号租约测试。
+ * 目标：启动时租到一个空闲节点号；续期失败时重新租用并切换节点号；Redis 不可用时仍能生成ID。
+ */
+class IdGeneratorTest {
+
+    private DistributedLock distributedLock;
+    private NodeIdentifier nodeIdentifier;
+    private IdGenerator idGenerator;
+
+    @BeforeEach
+    void setUp() {
+        distributedLock = mock(DistributedLock.class);
+        nodeIdentifier = new NodeIdentifier();
+        idGenerator = new IdGenerator(distributedLock, nodeIdentifier);
+    }
+
+    @Test
+    void init_shouldLeaseFirstFreeWorkerId() {
+        // 只有 worker 7 空闲
+        when(distributedLock.tryLock(anyString(), anyString(), anyLong())).thenReturn(false);
+        when(distributedLock.tryLock(eq(IdGenerator.WORKER_KEY_PREFIX + 7), eq(nodeIdentifier.getNodeId()),
+                anyLong())).thenReturn(true);
+
+        idGenerator.init();
+
+        assertEquals(7, idGenerator.getWorkerId());
+        assertEquals(7, SnowflakeIdGenerator.workerIdOf(idGenerator.nextId()));
+        assertTrue(idGenerator.nextNo("OD").matches("OD\\d{19}"));
+    }
+
+    @Test
+    void renewLease_shouldReacquireWhenLeaseLost() {
+        when(distributedLock.tryLock(anyString(), anyString(), anyLong()))
+                .thenAnswer(invocation -> (IdGenerator.WORKER_KEY_PREFIX + 7).equals(invocation.getArgument(0)));
+        idGenerator.init();
+        assertEquals(7, idGenerator.getWorkerId());
+
+        when(distributedLock.renewLock(eq(IdGenerator.WORKER_KEY_PREFIX + 7), anyString(), anyLong()))
+                .thenReturn(false);
+        when(distributedLock.tryLock(anyString(), anyString(), anyLong()))
+                .thenAnswer(invocation -> (IdGenerator.WORKER_KEY_PREFIX + 8).equals(invocation.getArgument(0)));
+        idGenerator.renewLease();
+
+        assertEquals(8, idGenerator.getWorkerId());
+    }
+
+    @Test
+    void init_shouldFallBackToRandomWorkerWhenRedisDown() {
+        when(distributedLock.tryLock(anyString(), anyString(), anyLong()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        idGenerator.init();
+
+        assertNotEquals(idGenerator.nextId(), idGenerator.nextId());
+        idGenerator.releaseLease();
+        verify(distributedLock, never()).releaseLock(startsWith(IdGenerator.WORKER_KEY_PREFIX), anyString());
+    }
+}
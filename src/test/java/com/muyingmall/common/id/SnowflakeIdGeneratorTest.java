@@ -0,0 +1,133 @@
+package com.muyingmall.common.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Snowflake ID 测试。
+ * 目标：同一节点严格递增且字符串字典序与数值序一致；多线程无重复；
+ * 容忍范围内的时钟回拨继续递增，超出范围拒绝生成；毫秒内序列用尽后进入下一毫秒。
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final long EPOCH = 1704038400000L;
+
+    @Test
+    void nextId_shouldEncodeTimestampAndWorker() {
+        long now = EPOCH + 123_456L;
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(37, EPOCH, 5000, () -> now);
+
+        long id = generator.nextId();
+
+        assertEquals(now, generator.timestampOf(id));
+        assertEquals(37, SnowflakeIdGenerator.workerIdOf(id));
+        assertEquals(19, generator.nextIdString().length());
+        assertTrue(generator.nextNo("OD").startsWith("OD0"));
+    }
+
+    @Test
+    void nextId_shouldBeMonotonicAndSortableAsString() {
+        AtomicLong clock = new AtomicLong(EPOCH + 1);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, EPOCH, 5000, clock::get);
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            if (i % 1000 == 0) {
+                // 跨越数量级，验证补零后字典序仍与数值序一致
+                clock.addAndGet(i == 10_000 ? 1_000_000_000L : 1);
+            }
+            ids.add(generator.nextIdString());
+        }
+
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i).compareTo(ids.get(i - 1)) > 0, ids.get(i - 1) + " >= " + ids.get(i));
+            assertTrue(Long.parseLong(ids.get(i)) > Long.parseLong(ids.get(i - 1)));
+        }
+    }
+
+    @Test
+    void nextId_shouldTolerateSmallClockBackwardAndRejectLargeOne() {
+        AtomicLong clock = new AtomicLong(EPOCH + 10_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, EPOCH, 100, clock::get);
+        long before = generator.nextId();
+
+        clock.addAndGet(-50);
+        long during = generator.nextId();
+        assertTrue(during > before);
+        assertEquals(EPOCH + 10_000, generator.timestampOf(during));
+
+        clock.addAndGet(-100);
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void nextId_shouldMoveToNextMillisecondWhenSequenceExhausted() {
+        AtomicLong clock = new AtomicLong(EPOCH + 1);
+        // 每次读取时钟计数；序列用尽后时钟才前进
+        AtomicLong reads = new AtomicLong();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, EPOCH, 5000, () -> {
+            if (reads.incrementAndGet() > 4096) {
+                return clock.get() + 1;
+            }
+            return clock.get();
+        });
+
+        long last = 0;
+        for (int i = 0; i < 4097; i++) {
+            long id = generator.nextId();
+            assertTrue(id > last);
+            last = id;
+        }
+        assertEquals(EPOCH + 2, generator.timestampOf(last));
+    }
+
+    @Test
+    void nextId_shouldBeUniqueAcrossThreads() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5, EPOCH, 5000);
+        int threads = 8;
+        int perThread = 20_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(generator.nextId());
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+
+        assertEquals(threads * perThread, ids.size());
+    }
+
+    @Test
+    void setWorkerId_shouldRejectOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024, EPOCH, 5000));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1, EPOCH, 5000));
+    }
+}
@@ -0,0 +1,139 @@
+package com.muyingmall.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muyingmall.cache.LocalCache;
+import com.muyingmall.cache.SeckillSoldOutFlags;
+import com.muyingmall.entity.SeckillProduct;
+import com.muyingmall.mapper.SeckillActivityMapper;
+import com.muyingmall.mapper.SeckillProductMapper;
+import com.muyingmall.service.SeckillAdmissionService;
+import com.muyingmall.service.SeckillOrderBatchService;
+import com.muyingmall.service.SeckillOrderService;
+import com.muyingmall.service.SeckillService;
+import com.muyingmall.service.SeckillWaitingRoomService;
+import com.muyingmall.service.SeckillWarmupService;
+import com.rabbitmq.client.Channel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 秒杀订单批量消费测试。
+ * 目标：批次处理中途异常时，已逐条NACK的消息不再重复NACK（避免信道被关闭），
+ * 已处理完成的消息逐条ACK，只有未结算的消息被NACK；批量下单整体抛出时释放入口预占的库存。
+ */
+@ExtendWith(MockitoExtension.class)
+class SeckillOrderConsumerTest {
+
+    @Mock
+    private SeckillOrderService seckillOrderService;
+
+    @Mock
+    private SeckillOrderBatchService seckillOrderBatchService;
+
+    @Mock
+    private SeckillWaitingRoomService seckillWaitingRoomService;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private SeckillService seckillService;
+
+    @Mock
+    private SeckillProductMapper seckillProductMapper;
+
+    @Mock
+    private Channel channel;
+
+    private SeckillOrderConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        SeckillAdmissionService admissionService = new SeckillAdmissionService(mock(SeckillSoldOutFlags.class),
+                seckillService, seckillProductMapper, mock(SeckillActivityMapper.class), mock(LocalCache.class),
+                mock(SeckillWarmupService.class));
+        consumer = new SeckillOrderConsumer(seckillOrderService, seckillOrderBatchService,
+                seckillWaitingRoomService, new ObjectMapper(), redisTemplate, admissionService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void handleSeckillOrderBatch_shouldNackOnlyUnsettledMessagesOnFailure() throws Exception {
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(List.of(true, true, true));
+        SeckillOrderBatchService.BatchResult success = mock(SeckillOrderBatchService.BatchResult.class);
+        when(success.isSuccess()).thenReturn(true);
+        when(success.getOrderId()).thenReturn(1001L);
+        SeckillOrderBatchService.BatchResult failure = mock(SeckillOrderBatchService.BatchResult.class);
+        when(failure.isSuccess()).thenReturn(false);
+        when(failure.getErrorMessage()).thenReturn("库存不足");
+        // 第三条结果缺失，模拟结果循环处理到一半时抛出异常
+        when(seckillOrderBatchService.executeBatch(anyList())).thenReturn(Arrays.asList(success, failure, null));
+
+        consumer.handleSeckillOrderBatch(List.of(message(1, 7), message(2, 8), message(3, 9)), channel);
+
+        verify(channel).basicAck(1L, false);
+        verify(channel, times(1)).basicNack(2L, false, false);
+        verify(channel, times(1)).basicNack(3L, false, false);
+        verify(channel, never()).basicNack(eq(1L), anyBoolean(), anyBoolean());
+        verify(channel, never()).basicAck(anyLong(), eq(true));
+        verify(seckillWaitingRoomService).recordProcessed(3);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void handleSeckillOrderBatch_shouldReleaseReservedStockWhenBatchThrows() throws Exception {
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(List.of(true, true, false));
+        when(seckillOrderBatchService.executeBatch(anyList())).thenThrow(new IllegalStateException("数据库不可用"));
+        SeckillProduct product = new SeckillProduct();
+        product.setId(96L);
+        product.setSkuId(501L);
+        when(seckillProductMapper.selectById(96L)).thenReturn(product);
+        when(seckillService.restoreStockWithLua(anyLong(), anyLong(), anyInt(), anyInt())).thenReturn(1);
+
+        consumer.handleSeckillOrderBatch(List.of(message(1, 7, true), message(2, 8, false), message(3, 9, true)),
+                channel);
+
+        // 预占过的消息回补库存并清除待支付位，未预占与重复消息不回补
+        verify(seckillService).restoreStockWithLua(96L, 501L, 1, 7);
+        verify(seckillService, never()).restoreStockWithLua(anyLong(), anyLong(), anyInt(), eq(8));
+        verify(seckillService, never()).restoreStockWithLua(anyLong(), anyLong(), anyInt(), eq(9));
+        verify(channel).basicNack(1L, false, false);
+        verify(channel).basicNack(2L, false, false);
+        verify(channel).basicAck(3L, false);
+    }
+
+    private static Message message(long deliveryTag, int userId) {
+        return message(deliveryTag, userId, false);
+    }
+
+    private static Message message(long deliveryTag, int userId, boolean reserved) {
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryTag(deliveryTag);
+        String body = "{\"userId\":" + userId + ",\"seckillProductId\":96,\"quantity\":1,\"requestId\":\"r"
+                + deliveryTag + "\",\"reserved\":" + reserved + "}";
+        return new Message(body.getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
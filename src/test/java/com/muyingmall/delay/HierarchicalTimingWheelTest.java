@@ -0,0 +1,98 @@
+package com.muyingmall.delay;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分层时间轮测试。
+ * 目标：元素在到期所在的那一格触发，不早于到期时间、不晚于一格；跨层降级不丢失、不重复；
+ * 删除与替换生效；超出范围的到期时间不放入；添加时已到期的元素在下次推进时返回。
+ */
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void advance_shouldFireEachItemWithinOneTickAfterDeadline() {
+        // 每格 100ms，每层 8 格，3 层：范围 100ms * 8^2 * 7
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(100, 8, 3, START);
+        Random random = new Random(42);
+        long[] deadlines = new long[2000];
+        for (int i = 0; i < deadlines.length; i++) {
+            deadlines[i] = START + 1 + random.nextInt((int) wheel.horizonMillis());
+            assertTrue(wheel.add(i, deadlines[i]));
+        }
+
+        long[] fired = new long[deadlines.length];
+        int firedCount = 0;
+        for (long now = START; now <= START + wheel.horizonMillis() + 100; now += 37) {
+            for (Integer item : wheel.advance(now)) {
+                assertEquals(0, fired[item], "重复触发: " + item);
+                fired[item] = now;
+                firedCount++;
+            }
+        }
+
+        assertEquals(deadlines.length, firedCount);
+        assertEquals(0, wheel.size());
+        for (int i = 0; i < deadlines.length; i++) {
+            assertTrue(fired[i] >= deadlines[i], "提前触发: " + i);
+            // 一格精度加上推进步长
+            assertTrue(fired[i] - deadlines[i] < 100 + 37, "触发过晚: " + i + " " + (fired[i] - deadlines[i]));
+        }
+    }
+
+    @Test
+    void add_shouldRejectBeyondHorizonAndReturnOverdueOnNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 60, 1, START);
+
+        assertFalse(wheel.add("far", START + 61 * 1000L));
+        assertTrue(wheel.add("past", START - 5000));
+        assertTrue(wheel.contains("past"));
+
+        assertEquals(List.of("past"), wheel.advance(START));
+        assertFalse(wheel.contains("far"));
+    }
+
+    @Test
+    void removeAndReplace_shouldTakeEffectAcrossLevels() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 4, 3, START);
+        wheel.add("paid", START + 500);
+        wheel.add("moved", START + 30);
+        wheel.add("moved", START + 450);
+
+        assertTrue(wheel.remove("paid"));
+        assertFalse(wheel.remove("paid"));
+
+        List<String> fired = new ArrayList<>();
+        for (long now = START; now <= START + 600; now += 10) {
+            List<String> expired = wheel.advance(now);
+            if (!expired.isEmpty()) {
+                assertEquals(START + 450, now);
+            }
+            fired.addAll(expired);
+        }
+        assertEquals(List.of("moved"), fired);
+    }
+
+    @Test
+    void advance_shouldCatchUpAfterLongPause() {
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(1000, 60, 3, START);
+        for (int i = 1; i <= 100; i++) {
+            wheel.add(i, START + i * 3000L);
+        }
+
+        // 一次推进越过全部到期时间（如长时间 GC 或线程被阻塞）
+        List<Integer> expired = wheel.advance(START + 301_000);
+
+        assertEquals(100, expired.size());
+        assertEquals(0, wheel.size());
+    }
+}
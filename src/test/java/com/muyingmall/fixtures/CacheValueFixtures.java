@@ -0,0 +1,169 @@
+package com.muyingmall.fixtures;
+
+import com.muyingmall.entity.Category;
+import com.muyingmall.entity.Order;
+import com.muyingmall.entity.OrderProduct;
+import com.muyingmall.entity.Product;
+import com.muyingmall.entity.ProductImage;
+import com.muyingmall.entity.ProductSpecs;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 缓存值测试夹具。
+ * 构造字段填充完整的商品、订单与分类树，用于编解码正确性测试与体积/耗时基准。
+ */
+public final class CacheValueFixtures {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2025, 6, 18, 10, 30, 15, 123_000_000);
+
+    private CacheValueFixtures() {
+    }
+
+    /**
+     * 带图片与规格的商品详情。
+     */
+    public static Product product(int productId) {
+        Product product = new Product();
+        product.setProductId(productId);
+        product.setCategoryId(12);
+        product.setBrandId(3);
+        product.setProductName("婴儿纯棉连体衣 新生儿四季哈衣 " + productId);
+        product.setProductSn("SN2025" + productId);
+        product.setProductImg("https://cdn.muyingmall.com/products/" + productId + "/main.jpg");
+        product.setProductDetail("<p>A类纯棉面料，无荧光剂，前开扣设计方便穿脱。</p><p>适合0-12个月宝宝。</p>");
+        product.setPriceNew(new BigDecimal("89.90"));
+        product.setPriceOld(new BigDecimal("129.00"));
+        product.setStock(1200);
+        product.setSales(35680);
+        product.setSupport(98);
+        product.setRating(new BigDecimal("4.8"));
+        product.setReviewCount(2150);
+        product.setProductStatus("上架");
+        product.setHasSku(1);
+        product.setMinPrice(new BigDecimal("79.90"));
+        product.setMaxPrice(new BigDecimal("99.90"));
+        product.setIsHot(1);
+        product.setIsNew(0);
+        product.setIsRecommend(1);
+        product.setCreateTime(TIME);
+        product.setUpdateTime(TIME.plusDays(3));
+        product.setCategoryName("婴儿服饰");
+        product.setBrandName("好孩子");
+
+        List<ProductImage> images = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ProductImage image = new ProductImage();
+            image.setImageId(productId * 10 + i);
+            image.setProductId(productId);
+            image.setImageUrl("https://cdn.muyingmall.com/products/" + productId + "/detail-" + i + ".jpg");
+            image.setType("detail");
+            image.setSortOrder(i);
+            image.setCreateTime(TIME);
+            image.setUpdateTime(TIME);
+            images.add(image);
+        }
+        product.setImages(images);
+
+        List<ProductSpecs> specsList = new ArrayList<>();
+        String[][] specs = {{"尺码", "[\"59\",\"66\",\"73\",\"80\"]"}, {"颜色", "[\"奶白\",\"浅粉\",\"浅蓝\"]"}};
+        for (int i = 0; i < specs.length; i++) {
+            ProductSpecs spec = new ProductSpecs();
+            spec.setSpecId(productId * 10 + i);
+            spec.setProductId(productId);
+            spec.setSpecName(specs[i][0]);
+            spec.setSpecValues(specs[i][1]);
+            spec.setSortOrder(i);
+            spec.setCreateTime(TIME);
+            spec.setUpdateTime(TIME);
+            specsList.add(spec);
+        }
+        product.setSpecsList(specsList);
+        return product;
+    }
+
+    /**
+     * 含多个订单商品的已支付订单。
+     */
+    public static Order order(int orderId) {
+        Order order = OrderFixtures.paid(orderId, 1001, new BigDecimal("356.70"));
+        order.setCreateTime(TIME);
+        order.setUpdateTime(TIME);
+        order.setPayTime(TIME.plusMinutes(2));
+        order.setPaidTime(TIME.plusMinutes(2));
+        order.setPaymentId(880000L + orderId);
+        order.setShippingMethod("express");
+        order.setShippingFee(BigDecimal.ZERO);
+        order.setAddressId(501);
+        order.setReceiverName("张三");
+        order.setReceiverPhone("13800138000");
+        order.setReceiverProvince("浙江省");
+        order.setReceiverCity("杭州市");
+        order.setReceiverDistrict("西湖区");
+        order.setReceiverAddress("文三路 90 号 东部软件园 3 号楼 501");
+        order.setReceiverZip("310012");
+        order.setCouponId(77L);
+        order.setCouponAmount(new BigDecimal("20.00"));
+        order.setRemark("工作日送货");
+        order.setDiscountAmount(new BigDecimal("20.00"));
+        order.setPointsUsed(0);
+        order.setIsCommented(0);
+        order.setIsDeleted(0);
+        order.setVersion(2);
+
+        List<OrderProduct> products = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            OrderProduct item = new OrderProduct();
+            item.setId(orderId * 10 + i);
+            item.setOrderId(orderId);
+            item.setProductId(100 + i);
+            item.setProductName("婴儿纯棉连体衣 新生儿四季哈衣 " + (100 + i));
+            item.setProductImg("https://cdn.muyingmall.com/products/" + (100 + i) + "/main.jpg");
+            item.setPrice(new BigDecimal("118.90"));
+            item.setQuantity(1);
+            item.setSpecs("{\"尺码\":\"66\",\"颜色\":\"奶白\"}");
+            item.setSkuId(20000L + i);
+            item.setSkuCode("SKU-" + (100 + i) + "-66-W");
+            item.setCreateTime(TIME);
+            item.setUpdateTime(TIME);
+            products.add(item);
+        }
+        order.setProducts(products);
+        return order;
+    }
+
+    /**
+     * 两级分类树：topLevel 个一级分类，每个一级分类下 childrenPerNode 个二级分类。
+     */
+    public static List<Category> categoryTree(int topLevel, int childrenPerNode) {
+        String[] names = {"奶粉辅食", "纸尿裤", "婴童服饰", "喂养用品", "洗护用品", "童车童床", "玩具早教", "孕妈专区"};
+        List<Category> tree = new ArrayList<>();
+        int id = 1;
+        for (int i = 0; i < topLevel; i++) {
+            Category parent = category(id++, 0, names[i % names.length], i);
+            List<Category> children = new ArrayList<>();
+            for (int j = 0; j < childrenPerNode; j++) {
+                children.add(category(id++, parent.getCategoryId(), names[i % names.length] + "-子类" + j, j));
+            }
+            parent.setChildren(children);
+            tree.add(parent);
+        }
+        return tree;
+    }
+
+    private static Category category(int id, int parentId, String name, int sortOrder) {
+        Category category = new Category();
+        category.setCategoryId(id);
+        category.setParentId(parentId);
+        category.setName(name);
+        category.setIcon("https://cdn.muyingmall.com/category/" + id + ".png");
+        category.setSortOrder(sortOrder);
+        category.setStatus(1);
+        category.setCreateTime(TIME);
+        category.setUpdateTime(TIME);
+        return category;
+    }
+}
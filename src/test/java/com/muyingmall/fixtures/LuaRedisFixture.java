@@ -0,0 +1,331 @@
+package com.muyingmall.fixtures;
+
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JsePlatform;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 内存版 Redis 测试夹具。
+ * 用 luaj 执行项目中真实的库存 Lua 脚本，脚本执行与其他命令共用一把锁，模拟 Redis 单线程原子语义；
+ * 只实现库存、排队、限流、布隆过滤器与任务租约脚本用到的命令（time/get/set/exists/incr/incrby/decrby/getbit/setbit/sismember/sadd/srem/zadd/zscore/zcount/zrem/expire/pexpire/del），
+ * 以及 RedisCallback 中按原始字节读取位数组的 GET。
+ * TIME 默认返回系统时间，可通过 {@link #setClockMillis(long)} 固定时钟。
+ */
+public final class LuaRedisFixture {
+
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<String, BitSet> bitmaps = new HashMap<>();
+    private final Map<String, Set<String>> sets = new HashMap<>();
+    private final Map<String, Map<String, Double>> zsets = new HashMap<>();
+    private final Map<String, Map<Object, Object>> hashes = new HashMap<>();
+    private final Globals globals = JsePlatform.standardGlobals();
+    private final Map<String, LuaValue> compiled = new HashMap<>();
+    private Long clockMillis;
+
+    public LuaRedisFixture() {
+        LuaTable redis = new LuaTable();
+        redis.set("call", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                return redisCall(args);
+            }
+        });
+        globals.set("redis", redis);
+    }
+
+    /**
+     * 构造一个命令落到本夹具的 RedisTemplate 模拟对象。
+     */
+    @SuppressWarnings("unchecked")
+    public RedisTemplate<String, Object> mockTemplate() {
+        RedisTemplate<String, Object> template = mock(RedisTemplate.class);
+        ValueOperations<String, Object> valueOps = mock(ValueOperations.class);
+        HashOperations<String, Object, Object> hashOps = mock(HashOperations.class);
+
+        when(template.opsForValue()).thenReturn(valueOps);
+        when(template.<Object, Object>opsForHash()).thenReturn(hashOps);
+        stubScripts(template);
+        when(template.execute(any(RedisCallback.class))).thenAnswer(invocation -> {
+            RedisConnection connection = mock(RedisConnection.class);
+            RedisStringCommands stringCommands = mock(RedisStringCommands.class);
+            when(connection.stringCommands()).thenReturn(stringCommands);
+            when(stringCommands.get(any(byte[].class))).thenAnswer(get -> bitmapBytes(
+                    new String((byte[]) get.getArgument(0), StandardCharsets.UTF_8)));
+            return ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection);
+        });
+        when(template.delete(anyString())).thenAnswer(invocation -> del(invocation.getArgument(0)) > 0);
+        when(template.delete(anyCollection())).thenAnswer(invocation -> {
+            long removed = 0;
+            for (String key : (Collection<String>) invocation.getArgument(0)) {
+                removed += del(key);
+            }
+            return removed;
+        });
+
+        when(valueOps.get(any())).thenAnswer(invocation -> get(invocation.getArgument(0)));
+        when(valueOps.multiGet(anyCollection())).thenAnswer(invocation -> {
+            List<Object> values = new ArrayList<>();
+            for (String key : (Collection<String>) invocation.getArgument(0)) {
+                values.add(get(key));
+            }
+            return values;
+        });
+        doAnswer(invocation -> {
+            set(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).when(valueOps).set(anyString(), any(), anyLong(), any(TimeUnit.class));
+        doAnswer(invocation -> {
+            set(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).when(valueOps).set(anyString(), any());
+
+        when(hashOps.get(anyString(), any())).thenAnswer(invocation -> hashGet(invocation.getArgument(0),
+                invocation.getArgument(1)));
+        return template;
+    }
+
+    /**
+     * 构造一个只执行 Lua 脚本的 StringRedisTemplate 模拟对象，其他操作按需在测试中另行模拟。
+     */
+    public StringRedisTemplate mockStringTemplate() {
+        StringRedisTemplate template = mock(StringRedisTemplate.class);
+        stubScripts(template);
+        return template;
+    }
+
+    /**
+     * 按原样读取字符串值
+     */
+    public synchronized String getString(String key) {
+        return strings.get(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubScripts(RedisTemplate<String, ?> template) {
+        when(template.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(invocation -> {
+            Object[] raw = invocation.getRawArguments();
+            Object[] argv = raw[2] instanceof Object[] array ? array : new Object[0];
+            return eval((RedisScript<?>) raw[0], (List<String>) raw[1], argv);
+        });
+    }
+
+    /**
+     * 读取整数值，与 Jackson 反序列化数字的结果一致（int 范围内为 Integer，否则为 Long）。
+     */
+    public synchronized Object get(String key) {
+        String value = strings.get(key);
+        if (value == null) {
+            return null;
+        }
+        long number = Long.parseLong(value);
+        return number == (int) number ? (Object) (int) number : (Object) number;
+    }
+
+    public synchronized void set(String key, Object value) {
+        strings.put(key, String.valueOf(value));
+    }
+
+    public synchronized boolean getBit(String key, long offset) {
+        BitSet bitmap = bitmaps.get(key);
+        return bitmap != null && bitmap.get((int) offset);
+    }
+
+    /**
+     * 按 Redis 的位序（字节内高位在前）导出位数组，与 GET 位图Key的结果一致
+     */
+    public synchronized byte[] bitmapBytes(String key) {
+        BitSet bitmap = bitmaps.get(key);
+        if (bitmap == null) {
+            return null;
+        }
+        byte[] bytes = new byte[(bitmap.length() + 7) / 8];
+        for (int i = bitmap.nextSetBit(0); i >= 0; i = bitmap.nextSetBit(i + 1)) {
+            bytes[i >>> 3] |= (byte) (0x80 >>> (i & 7));
+        }
+        return bytes;
+    }
+
+    public synchronized boolean isMember(String key, String member) {
+        Set<String> set = sets.get(key);
+        return set != null && set.contains(member);
+    }
+
+    /**
+     * 固定脚本中 TIME 返回的时间（毫秒）
+     */
+    public synchronized void setClockMillis(long millis) {
+        this.clockMillis = millis;
+    }
+
+    public synchronized Object hashGet(String key, Object field) {
+        Map<Object, Object> hash = hashes.get(key);
+        return hash != null ? hash.get(field) : null;
+    }
+
+    public synchronized void hashPut(String key, Object field, Object value) {
+        hashes.computeIfAbsent(key, k -> new TreeMap<>()).put(field, value);
+    }
+
+    private synchronized long del(String key) {
+        boolean removed = strings.remove(key) != null;
+        removed |= bitmaps.remove(key) != null;
+        removed |= sets.remove(key) != null;
+        removed |= zsets.remove(key) != null;
+        removed |= hashes.remove(key) != null;
+        return removed ? 1 : 0;
+    }
+
+    private synchronized Long eval(RedisScript<?> script, List<String> keys, Object[] argv) {
+        LuaValue chunk = compiled.computeIfAbsent(script.getSha1(),
+                sha -> globals.load(script.getScriptAsString(), sha));
+
+        LuaTable keyTable = new LuaTable();
+        for (int i = 0; i < keys.size(); i++) {
+            keyTable.set(i + 1, LuaValue.valueOf(keys.get(i)));
+        }
+        LuaTable argTable = new LuaTable();
+        for (int i = 0; i < argv.length; i++) {
+            // 与 Jackson 序列化数字参数一致：数值以纯文本形式传入脚本
+            argTable.set(i + 1, LuaValue.valueOf(String.valueOf(argv[i])));
+        }
+        globals.set("KEYS", keyTable);
+        globals.set("ARGV", argTable);
+
+        LuaValue result = chunk.call();
+        return result.isnil() || result.isboolean() ? null : result.tolong();
+    }
+
+    private Varargs redisCall(Varargs args) {
+        String command = args.checkjstring(1).toLowerCase();
+        if ("time".equals(command)) {
+            long micros = clockMicros();
+            LuaTable time = new LuaTable();
+            time.set(1, LuaValue.valueOf(String.valueOf(micros / 1_000_000)));
+            time.set(2, LuaValue.valueOf(String.valueOf(micros % 1_000_000)));
+            return time;
+        }
+        String key = args.checkjstring(2);
+        switch (command) {
+            case "get": {
+                String value = strings.get(key);
+                return value != null ? LuaValue.valueOf(value) : LuaValue.FALSE;
+            }
+            case "set":
+                strings.put(key, args.checkjstring(3));
+                return LuaValue.valueOf("OK");
+            case "exists":
+                return LuaValue.valueOf(exists(key) ? 1 : 0);
+            case "incr":
+                return LuaValue.valueOf(incr(key, 1));
+            case "incrby":
+                return LuaValue.valueOf(incr(key, Long.parseLong(args.checkjstring(3))));
+            case "decrby":
+                return LuaValue.valueOf(incr(key, -Long.parseLong(args.checkjstring(3))));
+            case "getbit":
+                return LuaValue.valueOf(getBit(key, offset(args)) ? 1 : 0);
+            case "setbit": {
+                int offset = (int) offset(args);
+                BitSet bitmap = bitmaps.computeIfAbsent(key, k -> new BitSet());
+                boolean previous = bitmap.get(offset);
+                bitmap.set(offset, "1".equals(args.checkjstring(4)));
+                return LuaValue.valueOf(previous ? 1 : 0);
+            }
+            case "sismember":
+                return LuaValue.valueOf(isMember(key, args.checkjstring(3)) ? 1 : 0);
+            case "sadd":
+                return LuaValue.valueOf(sets.computeIfAbsent(key, k -> new HashSet<>()).add(args.checkjstring(3)) ? 1 : 0);
+            case "srem": {
+                Set<String> set = sets.get(key);
+                return LuaValue.valueOf(set != null && set.remove(args.checkjstring(3)) ? 1 : 0);
+            }
+            case "zadd":
+                return LuaValue.valueOf(zsets.computeIfAbsent(key, k -> new HashMap<>())
+                        .put(args.checkjstring(4), Double.parseDouble(args.checkjstring(3))) == null ? 1 : 0);
+            case "zscore": {
+                Map<String, Double> zset = zsets.get(key);
+                Double score = zset != null ? zset.get(args.checkjstring(3)) : null;
+                return score != null ? LuaValue.valueOf(String.valueOf(score.longValue())) : LuaValue.FALSE;
+            }
+            case "zcount": {
+                Map<String, Double> zset = zsets.get(key);
+                if (zset == null) {
+                    return LuaValue.valueOf(0);
+                }
+                String min = args.checkjstring(3);
+                String max = args.checkjstring(4);
+                return LuaValue.valueOf(zset.values().stream()
+                        .filter(score -> aboveMin(score, min) && belowMax(score, max))
+                        .count());
+            }
+            case "zrem": {
+                Map<String, Double> zset = zsets.get(key);
+                return LuaValue.valueOf(zset != null && zset.remove(args.checkjstring(3)) != null ? 1 : 0);
+            }
+            case "expire":
+            case "pexpire":
+                return LuaValue.valueOf(exists(key) ? 1 : 0);
+            case "del":
+                return LuaValue.valueOf(del(key));
+            default:
+                throw new UnsupportedOperationException("LuaRedisFixture 不支持命令: " + command);
+        }
+    }
+
+    private long clockMicros() {
+        return (clockMillis != null ? clockMillis : System.currentTimeMillis()) * 1000;
+    }
+
+    private static boolean aboveMin(double score, String min) {
+        return min.startsWith("(") ? score > Double.parseDouble(min.substring(1)) : score >= Double.parseDouble(min);
+    }
+
+    private static boolean belowMax(double score, String max) {
+        return max.startsWith("(") ? score < Double.parseDouble(max.substring(1)) : score <= Double.parseDouble(max);
+    }
+
+    private static long offset(Varargs args) {
+        return (long) Double.parseDouble(args.checkjstring(3));
+    }
+
+    private boolean exists(String key) {
+        return strings.containsKey(key) || bitmaps.containsKey(key) || sets.containsKey(key) || zsets.containsKey(key) || hashes.containsKey(key);
+    }
+
+    private double incr(String key, long delta) {
+        long value = Long.parseLong(strings.getOrDefault(key, "0")) + delta;
+        strings.put(key, String.valueOf(value));
+        return value;
+    }
+}
@@ -0,0 +1,136 @@
+package com.muyingmall.job;
+
+import com.muyingmall.cache.NodeIdentifier;
+import com.muyingmall.config.properties.ClusterJobProperties;
+import com.muyingmall.fixtures.LuaRedisFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 集群任务协调器测试。
+ * 目标：租约被其他节点持有时获取失败，本节点可重入且令牌严格递增；续期发现租约被接管时标记丢失；
+ * 释放时未到最短保留期则保留租约；存活节点按名次均分分片，不重不漏。
+ */
+class ClusterJobCoordinatorTest {
+
+    private LuaRedisFixture redis;
+    private StringRedisTemplate template;
+    private ZSetOperations<String, String> zSetOperations;
+    private final Set<String> liveNodes = new LinkedHashSet<>();
+    private final List<ClusterJobCoordinator> coordinators = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redis = new LuaRedisFixture();
+        template = redis.mockStringTemplate();
+        zSetOperations = mock(ZSetOperations.class);
+        when(template.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScore(eq(ClusterJobCoordinator.NODES_KEY), anyDouble(), anyDouble()))
+                .thenAnswer(invocation -> new LinkedHashSet<>(liveNodes));
+    }
+
+    @AfterEach
+    void tearDown() {
+        coordinators.forEach(ClusterJobCoordinator::shutdown);
+    }
+
+    @Test
+    void tryAcquire_shouldExcludeOtherNodesAndIssueIncreasingTokens() {
+        ClusterJobCoordinator nodeA = coordinator();
+        ClusterJobCoordinator nodeB = coordinator();
+
+        ClusterJobCoordinator.Lease first = nodeA.tryAcquire("job", 60000);
+        assertNotNull(first);
+        assertNull(nodeB.tryAcquire("job", 60000));
+
+        // 本节点在保留期内可以再次获取，令牌递增
+        nodeA.release(first, 60000);
+        assertNull(nodeB.tryAcquire("job", 60000));
+        ClusterJobCoordinator.Lease second = nodeA.tryAcquire("job", 60000);
+        assertNotNull(second);
+        assertTrue(second.getToken() > first.getToken());
+
+        // 不保留时释放后其他节点可以获取，令牌继续递增
+        nodeA.release(second, 0);
+        assertNull(redis.getString(ClusterJobCoordinator.LEASE_KEY_PREFIX + "job"));
+        ClusterJobCoordinator.Lease third = nodeB.tryAcquire("job", 60000);
+        assertNotNull(third);
+        assertTrue(third.getToken() > second.getToken());
+        assertEquals(nodeB.getNodeId() + ":" + third.getToken(),
+                redis.getString(ClusterJobCoordinator.LEASE_KEY_PREFIX + "job"));
+        nodeB.release(third, 0);
+    }
+
+    @Test
+    void renew_shouldMarkLeaseLostWhenTakenOver() throws InterruptedException {
+        ClusterJobCoordinator node = coordinator();
+        ClusterJobCoordinator.Lease lease = node.tryAcquire("job", 300);
+        assertNotNull(lease);
+
+        // 模拟长时间停顿后租约过期并被其他节点接管
+        redis.set(ClusterJobCoordinator.LEASE_KEY_PREFIX + "job", "other-node:99");
+
+        long deadline = System.currentTimeMillis() + 3000;
+        while (!lease.isLost() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(lease.isLost());
+
+        // 已丢失的租约释放时不能删除接管者的租约
+        node.release(lease, 0);
+        assertEquals("other-node:99", redis.getString(ClusterJobCoordinator.LEASE_KEY_PREFIX + "job"));
+    }
+
+    @Test
+    void ownedShards_shouldPartitionShardsAcrossLiveNodes() {
+        List<ClusterJobCoordinator> nodes = List.of(coordinator(), coordinator(), coordinator());
+
+        Set<Integer> assigned = new HashSet<>();
+        int total = 0;
+        for (ClusterJobCoordinator node : nodes) {
+            List<Integer> shards = node.ownedShards(8);
+            assertTrue(shards.size() == 2 || shards.size() == 3, "分片分配不均: " + shards);
+            assigned.addAll(shards);
+            total += shards.size();
+        }
+        assertEquals(8, total);
+        assertEquals(8, assigned.size());
+    }
+
+    @Test
+    void ownedShards_shouldIncludeSelfWhenHeartbeatMissing() {
+        ClusterJobCoordinator node = coordinator();
+        liveNodes.clear();
+
+        assertEquals(List.of(0, 1, 2, 3), node.ownedShards(4));
+        assertFalse(node.liveNodes().isEmpty());
+    }
+
+    private ClusterJobCoordinator coordinator() {
+        ClusterJobCoordinator coordinator = new ClusterJobCoordinator(template, new NodeIdentifier(),
+                new ClusterJobProperties());
+        liveNodes.add(coordinator.getNodeId());
+        coordinators.add(coordinator);
+        return coordinator;
+    }
+}
@@ -0,0 +1,374 @@
+package com.muyingmall.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muyingmall.cache.LocalCache;
+import com.muyingmall.cache.NodeIdentifier;
+import com.muyingmall.cache.SeckillSoldOutFlags;
+import com.muyingmall.dto.SeckillRequestDTO;
+import com.muyingmall.entity.SeckillActivity;
+import com.muyingmall.entity.SeckillOrder;
+import com.muyingmall.entity.SeckillProduct;
+import com.muyingmall.fixtures.LuaRedisFixture;
+import com.muyingmall.mapper.ProductSkuMapper;
+import com.muyingmall.mapper.SeckillActivityMapper;
+import com.muyingmall.mapper.SeckillOrderMapper;
+import com.muyingmall.mapper.SeckillProductMapper;
+import com.muyingmall.service.OrderService;
+import com.muyingmall.service.SeckillAdmissionService;
+import com.muyingmall.service.SeckillOrderBatchService;
+import com.muyingmall.service.SeckillParticipationIndex;
+import com.muyingmall.service.SeckillStockReconcileService;
+import com.muyingmall.service.SeckillStockTxService;
+import com.muyingmall.service.SeckillWarmupService;
+import com.muyingmall.service.impl.SeckillOrderServiceImpl;
+import com.muyingmall.service.impl.SeckillServiceImpl;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 进程内秒杀压测工具。
+ *
+ * <p>
+ * 用 {@link LuaRedisFixture} 作为 Redis 替身（执行项目真实 Lua 脚本，单锁模拟 Redis 单线程），
+ * 装配真实的 SeckillServiceImpl / SeckillParticipationIndex / SeckillOrderServiceImpl / SeckillAdmissionService，
+ * 数据库与下单依赖用内存替身（秒杀库存为原子计数，订单记录进内存队列）。
+ * </p>
+ * <ul>
+ *     <li>SYNC：对应 /seckill/execute，请求线程直接调用 executeSeckill</li>
+ *     <li>ASYNC：对应 /seckill/execute-async，请求线程只做入口准入，准入成功的请求进入内存队列（MQ 替身），
+ *     消费线程攒满 batchSize 条或 batchReceiveTimeoutMs 内无新消息即调用 SeckillOrderBatchService.executeBatch
+ *     （与线上默认的批量消费一致）</li>
+ *     <li>ASYNC_SINGLE：入口同 ASYNC，消费线程逐条调用 executeReservedSeckill（对应 seckill.consumer.batch-enabled=false）</li>
+ * </ul>
+ * <p>
+ * 控制器层的限流与排队不在压测范围内；延迟数值反映脚本与服务链路的相对开销，用于改动前后对比，不代表线上绝对值。
+ * </p>
+ */
+public final class SeckillLoadHarness {
+
+    public enum Mode { SYNC, ASYNC, ASYNC_SINGLE }
+
+    /**
+     * 压测参数
+     *
+     * @param users           虚拟用户数
+     * @param attemptsPerUser 每个用户的请求次数（大于1时模拟重复点击）
+     * @param stock           秒杀库存
+     * @param buckets         库存分桶数
+     * @param threads         请求线程数
+     * @param consumers       ASYNC/ASYNC_SINGLE 模式消费线程数
+     * @param batchSize       ASYNC 模式每批最大条数
+     * @param batchReceiveTimeoutMs ASYNC 模式攒批等待新消息的超时时间（毫秒）
+     */
+    public record Config(Mode mode, int users, int attemptsPerUser, int stock, int buckets, int threads,
+                         int consumers, int batchSize, long batchReceiveTimeoutMs) {
+
+        /**
+         * 从系统属性读取，如 -Dseckill.load.users=20000 -Dseckill.load.stock=1000
+         */
+        public static Config fromSystemProperties(Mode mode) {
+            return new Config(mode,
+                    Integer.getInteger("seckill.load.users", 2000),
+                    Integer.getInteger("seckill.load.attempts", 2),
+                    Integer.getInteger("seckill.load.stock", 200),
+                    Integer.getInteger("seckill.load.buckets", 4),
+                    Integer.getInteger("seckill.load.threads", 32),
+                    Integer.getInteger("seckill.load.consumers", 8),
+                    Integer.getInteger("seckill.load.batch-size", 50),
+                    Long.getLong("seckill.load.batch-receive-timeout", 100L));
+        }
+    }
+
+    private static final long ACTIVITY_ID = 66L;
+    private static final long SECKILL_PRODUCT_ID = 96L;
+    private static final long SKU_ID = 11L;
+    private static final int QUANTITY = 1;
+    private static final Integer POISON = -1;
+
+    private final Config config;
+    private final LuaRedisFixture redis = new LuaRedisFixture();
+    private final AtomicInteger dbStock = new AtomicInteger();
+    private final AtomicLong orderIds = new AtomicLong(100000);
+    private final Queue<SeckillOrder> orders = new ConcurrentLinkedQueue<>();
+    private final SeckillServiceImpl seckillService;
+    private final SeckillOrderServiceImpl seckillOrderService;
+    private final SeckillAdmissionService admissionService;
+    private final SeckillOrderBatchService batchService;
+
+    public SeckillLoadHarness(Config config) {
+        this.config = config;
+        RedisTemplate<String, Object> template = redis.mockTemplate();
+
+        SeckillProductMapper seckillProductMapper = stub(SeckillProductMapper.class);
+        SeckillActivityMapper seckillActivityMapper = stub(SeckillActivityMapper.class);
+        SeckillOrderMapper seckillOrderMapper = stub(SeckillOrderMapper.class);
+        SeckillStockTxService stockTxService = stub(SeckillStockTxService.class);
+        OrderService orderService = stub(OrderService.class);
+
+        SeckillProduct product = new SeckillProduct();
+        product.setId(SECKILL_PRODUCT_ID);
+        product.setActivityId(ACTIVITY_ID);
+        product.setProductId(1L);
+        product.setSkuId(SKU_ID);
+        product.setSeckillPrice(new BigDecimal("9.90"));
+        product.setSeckillStock(config.stock());
+        product.setLimitPerUser(1);
+        when(seckillProductMapper.selectById(SECKILL_PRODUCT_ID)).thenReturn(product);
+        when(seckillProductMapper.selectBatchIds(anyCollection())).thenReturn(List.of(product));
+
+        SeckillActivity activity = new SeckillActivity();
+        activity.setId(ACTIVITY_ID);
+        activity.setStatus(1);
+        activity.setStockBuckets(config.buckets());
+        activity.setStartTime(LocalDateTime.now().minusMinutes(1));
+        activity.setEndTime(LocalDateTime.now().plusHours(1));
+        when(seckillActivityMapper.selectById(ACTIVITY_ID)).thenReturn(activity);
+        when(seckillActivityMapper.selectBatchIds(anyCollection())).thenReturn(List.of(activity));
+
+        // 数据库秒杀库存：条件扣减（stock >= quantity）的原子计数替身
+        when(stockTxService.deductStock(eq(SECKILL_PRODUCT_ID), anyInt())).thenAnswer(invocation -> {
+            int quantity = invocation.getArgument(1);
+            return dbStock.getAndUpdate(current -> current >= quantity ? current - quantity : current) >= quantity
+                    ? 1 : 0;
+        });
+        when(stockTxService.restoreStock(eq(SECKILL_PRODUCT_ID), anyInt())).thenAnswer(invocation -> {
+            dbStock.addAndGet(invocation.getArgument(1));
+            return 1;
+        });
+        when(orderService.directPurchase(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                any())).thenAnswer(invocation -> Map.of("orderId", orderIds.incrementAndGet()));
+        when(seckillOrderMapper.insert(any(SeckillOrder.class))).thenAnswer(invocation -> {
+            orders.add(invocation.getArgument(0));
+            return 1;
+        });
+        when(seckillOrderMapper.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<SeckillOrder> batch = invocation.getArgument(0);
+            orders.addAll(batch);
+            return batch.size();
+        });
+        when(seckillOrderMapper.selectUserQuantities(anyCollection(), anyCollection())).thenReturn(List.of());
+
+        StringRedisTemplate stringRedisTemplate = stub(StringRedisTemplate.class);
+        SeckillSoldOutFlags soldOutFlags = new SeckillSoldOutFlags(stringRedisTemplate, new NodeIdentifier(),
+                new ObjectMapper());
+        ReflectionTestUtils.setField(soldOutFlags, "ttlSeconds", 10L);
+        soldOutFlags.init();
+        LocalCache localCache = new LocalCache();
+        ReflectionTestUtils.setField(localCache, "enabled", true);
+        ReflectionTestUtils.setField(localCache, "maxBytes", 1L << 20);
+        localCache.init();
+
+        SeckillParticipationIndex participationIndex = new SeckillParticipationIndex(template);
+        participationIndex.init();
+        seckillService = new SeckillServiceImpl(template, stub(ProductSkuMapper.class), seckillProductMapper,
+                seckillActivityMapper, soldOutFlags, stub(SeckillStockReconcileService.class), participationIndex);
+        seckillService.initLuaScripts();
+        seckillOrderService = new SeckillOrderServiceImpl(seckillService, seckillProductMapper,
+                seckillActivityMapper, seckillOrderMapper, orderService, stockTxService, participationIndex);
+        admissionService = new SeckillAdmissionService(soldOutFlags, seckillService, seckillProductMapper,
+                seckillActivityMapper, localCache, stub(SeckillWarmupService.class));
+        // 事务管理器替身：TransactionTemplate 照常执行回调，提交与回滚为空操作
+        batchService = new SeckillOrderBatchService(seckillService, seckillProductMapper, seckillActivityMapper,
+                seckillOrderMapper, orderService, stockTxService, stub(PlatformTransactionManager.class));
+    }
+
+    /**
+     * 初始化库存并执行一轮压测
+     */
+    public SeckillLoadReport run() throws InterruptedException {
+        seckillService.initSeckillStock(SKU_ID, config.stock(), config.buckets());
+        dbStock.set(config.stock());
+
+        int requests = config.users() * config.attemptsPerUser();
+        long[] latencies = new long[requests];
+        AtomicLong lastSuccess = new AtomicLong();
+        BlockingQueue<Integer> broker = new LinkedBlockingQueue<>();
+        boolean async = config.mode() != Mode.SYNC;
+        CountDownLatch consumersDone = new CountDownLatch(async ? config.consumers() : 0);
+        ExecutorService consumerPool = Executors.newFixedThreadPool(Math.max(config.consumers(), 1));
+        ExecutorService requestPool = Executors.newFixedThreadPool(config.threads());
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch requestsDone = new CountDownLatch(requests);
+
+        if (async) {
+            for (int i = 0; i < config.consumers(); i++) {
+                consumerPool.submit(() -> {
+                    if (config.mode() == Mode.ASYNC) {
+                        consumeBatches(broker, consumersDone);
+                    } else {
+                        consume(broker, consumersDone);
+                    }
+                });
+            }
+        }
+
+        for (int i = 0; i < requests; i++) {
+            int index = i;
+            int userId = i % config.users() + 1;
+            requestPool.submit(() -> {
+                try {
+                    start.await();
+                    long begin = System.nanoTime();
+                    boolean success = config.mode() == Mode.SYNC ? executeSync(userId) : admit(userId, broker);
+                    long end = System.nanoTime();
+                    latencies[index] = end - begin;
+                    if (success) {
+                        lastSuccess.accumulateAndGet(end, Math::max);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    requestsDone.countDown();
+                }
+            });
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        requestsDone.await(5, TimeUnit.MINUTES);
+        for (int i = 0; i < config.consumers() && async; i++) {
+            broker.put(POISON);
+        }
+        consumersDone.await(5, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - startNanos;
+        requestPool.shutdownNow();
+        consumerPool.shutdownNow();
+
+        int sold = 0;
+        Set<Integer> buyers = new HashSet<>();
+        int duplicates = 0;
+        for (SeckillOrder order : orders) {
+            sold += order.getQuantity();
+            if (!buyers.add(order.getUserId())) {
+                duplicates++;
+            }
+        }
+        Integer redisRemaining = seckillService.getRedisStock(SKU_ID);
+        long soldOut = sold >= config.stock() && lastSuccess.get() > 0 ? lastSuccess.get() - startNanos : 0;
+        return new SeckillLoadReport(config.mode(), config.stock(), config.users() * QUANTITY, orders.size(), sold,
+                redisRemaining != null ? redisRemaining : 0, dbStock.get(), duplicates, elapsed, soldOut,
+                latencies);
+    }
+
+    private boolean executeSync(int userId) {
+        try {
+            seckillOrderService.executeSeckill(userId, request());
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private boolean admit(int userId, BlockingQueue<Integer> broker) throws InterruptedException {
+        if (admissionService.tryAdmit(userId, request()) != SeckillAdmissionService.AdmissionResult.ADMITTED) {
+            return false;
+        }
+        broker.put(userId);
+        return true;
+    }
+
+    private void consume(BlockingQueue<Integer> broker, CountDownLatch done) {
+        try {
+            while (true) {
+                Integer userId = broker.take();
+                if (POISON.equals(userId)) {
+                    return;
+                }
+                try {
+                    seckillOrderService.executeReservedSeckill(userId, request());
+                } catch (Exception ignored) {
+                    // 失败时服务内部已回补库存，校验阶段按剩余库存核对
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            done.countDown();
+        }
+    }
+
+    /**
+     * 批量消费：与 RabbitMQ 批量监听一致，攒满 batchSize 条或等待超时即成批下单
+     */
+    private void consumeBatches(BlockingQueue<Integer> broker, CountDownLatch done) {
+        try {
+            boolean stopped = false;
+            while (!stopped) {
+                List<SeckillOrderBatchService.BatchItem> batch = new ArrayList<>(config.batchSize());
+                Integer userId = broker.take();
+                while (userId != null) {
+                    if (POISON.equals(userId)) {
+                        stopped = true;
+                        break;
+                    }
+                    batch.add(new SeckillOrderBatchService.BatchItem(userId, request(), true));
+                    if (batch.size() >= config.batchSize()) {
+                        break;
+                    }
+                    userId = broker.poll(config.batchReceiveTimeoutMs(), TimeUnit.MILLISECONDS);
+                }
+                if (!batch.isEmpty()) {
+                    executeBatch(batch);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            done.countDown();
+        }
+    }
+
+    private void executeBatch(List<SeckillOrderBatchService.BatchItem> batch) {
+        try {
+            // 单条失败由批处理服务回补库存
+            batchService.executeBatch(batch);
+        } catch (Exception e) {
+            // 整批异常：与消费者一致，释放入口预占
+            for (SeckillOrderBatchService.BatchItem item : batch) {
+                admissionService.release(item.getUserId(), item.getRequest());
+            }
+        }
+    }
+
+    private static SeckillRequestDTO request() {
+        SeckillRequestDTO request = new SeckillRequestDTO();
+        request.setSeckillProductId(SECKILL_PRODUCT_ID);
+        request.setQuantity(QUANTITY);
+        request.setAddressId(1L);
+        return request;
+    }
+
+    private static <T> T stub(Class<T> type) {
+        // 只做桩，不记录调用，避免高并发下调用记录无限增长
+        return mock(type, withSettings().stubOnly());
+    }
+}
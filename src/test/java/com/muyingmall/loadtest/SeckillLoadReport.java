@@ -0,0 +1,85 @@
+package com.muyingmall.loadtest;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * 秒杀压测报告：吞吐、请求延迟分位、售罄耗时与超卖/少卖校验结果
+ */
+@Getter
+public final class SeckillLoadReport {
+
+    private final SeckillLoadHarness.Mode mode;
+    private final int requests;
+    private final int stock;
+    private final int demand;
+    private final int succeeded;
+    private final int soldQuantity;
+    private final int redisRemaining;
+    private final int dbRemaining;
+    private final int duplicateUsers;
+    private final long elapsedNanos;
+    private final long soldOutNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+
+    SeckillLoadReport(SeckillLoadHarness.Mode mode, int stock, int demand, int succeeded, int soldQuantity,
+                      int redisRemaining, int dbRemaining, int duplicateUsers, long elapsedNanos,
+                      long soldOutNanos, long[] latencies) {
+        this.mode = mode;
+        this.requests = latencies.length;
+        this.stock = stock;
+        this.demand = demand;
+        this.succeeded = succeeded;
+        this.soldQuantity = soldQuantity;
+        this.redisRemaining = redisRemaining;
+        this.dbRemaining = dbRemaining;
+        this.duplicateUsers = duplicateUsers;
+        this.elapsedNanos = elapsedNanos;
+        this.soldOutNanos = soldOutNanos;
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        this.p50Nanos = percentile(sorted, 0.50);
+        this.p99Nanos = percentile(sorted, 0.99);
+        this.p999Nanos = percentile(sorted, 0.999);
+    }
+
+    /**
+     * 超卖：成交量超过库存，或任一侧库存被扣成负数，或同一用户成交多单
+     */
+    public boolean isOversold() {
+        return soldQuantity > stock || redisRemaining < 0 || dbRemaining < 0 || duplicateUsers > 0;
+    }
+
+    /**
+     * 少卖：需求足够但库存未卖完，或 Redis/数据库剩余与成交量对不上（库存被预占后丢失）
+     */
+    public boolean isUndersold() {
+        boolean demandCoversStock = demand >= stock;
+        return (demandCoversStock && soldQuantity < stock)
+                || stock - soldQuantity != redisRemaining
+                || stock - soldQuantity != dbRemaining;
+    }
+
+    public double getThroughput() {
+        return elapsedNanos > 0 ? requests * 1_000_000_000.0 / elapsedNanos : 0;
+    }
+
+    public String format() {
+        return String.format("秒杀压测[%s] 请求=%d 吞吐=%.0f req/s 延迟 p50=%.3fms p99=%.3fms p999=%.3fms "
+                        + "售罄耗时=%s 成交=%d/%d 剩余(redis/db)=%d/%d 超卖=%s 少卖=%s",
+                mode, requests, getThroughput(), p50Nanos / 1e6, p99Nanos / 1e6, p999Nanos / 1e6,
+                soldOutNanos > 0 ? String.format("%.1fms", soldOutNanos / 1e6) : "未售罄",
+                soldQuantity, stock, redisRemaining, dbRemaining, isOversold(), isUndersold());
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.min(Math.max(index, 0), sorted.length - 1)];
+    }
+}
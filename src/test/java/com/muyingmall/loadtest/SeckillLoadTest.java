@@ -0,0 +1,51 @@
+package com.muyingmall.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 秒杀链路压测。
+ * 默认构建不执行，通过 mvn test -Pload-test 运行；规模通过系统属性调整，如
+ * -Dseckill.load.users=20000 -Dseckill.load.stock=1000 -Dseckill.load.buckets=8 -Dseckill.load.threads=64
+ */
+@Slf4j
+@Tag("load")
+class SeckillLoadTest {
+
+    @Test
+    void syncPipeline_shouldSellOutWithoutOversell() throws Exception {
+        SeckillLoadReport report = new SeckillLoadHarness(
+                SeckillLoadHarness.Config.fromSystemProperties(SeckillLoadHarness.Mode.SYNC)).run();
+        log.info(report.format());
+
+        assertFalse(report.isOversold(), report.format());
+        assertFalse(report.isUndersold(), report.format());
+        assertEquals(0, report.getDuplicateUsers());
+    }
+
+    @Test
+    void asyncPipeline_shouldSellOutWithoutOversell() throws Exception {
+        SeckillLoadReport report = new SeckillLoadHarness(
+                SeckillLoadHarness.Config.fromSystemProperties(SeckillLoadHarness.Mode.ASYNC)).run();
+        log.info(report.format());
+
+        assertFalse(report.isOversold(), report.format());
+        assertFalse(report.isUndersold(), report.format());
+        assertEquals(0, report.getDuplicateUsers());
+    }
+
+    @Test
+    void asyncSingleMessagePipeline_shouldSellOutWithoutOversell() throws Exception {
+        SeckillLoadReport report = new SeckillLoadHarness(
+                SeckillLoadHarness.Config.fromSystemProperties(SeckillLoadHarness.Mode.ASYNC_SINGLE)).run();
+        log.info(report.format());
+
+        assertFalse(report.isOversold(), report.format());
+        assertFalse(report.isUndersold(), report.format());
+        assertEquals(0, report.getDuplicateUsers());
+    }
+}
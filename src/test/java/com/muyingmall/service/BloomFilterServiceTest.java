@@ -0,0 +1,134 @@
+package com.muyingmall.service;
+
+import com.muyingmall.fixtures.LuaRedisFixture;
+import com.muyingmall.mapper.ProductMapper;
+import com.muyingmall.mapper.ProductSkuMapper;
+import com.muyingmall.mapper.UserMapper;
+import com.muyingmall.util.RedisUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 布隆过滤器测试。
+ * 目标：重建后已有ID全部命中、缺失ID基本被拦截；本地镜像覆盖的ID不访问 Redis；轮换重建丢弃已删除ID；未构建时全部放行。
+ */
+class BloomFilterServiceTest {
+
+    private final TreeSet<Long> productIds = new TreeSet<>();
+
+    private RedisTemplate<String, Object> template;
+    private BloomFilterService service;
+
+    @BeforeEach
+    void setUp() {
+        LuaRedisFixture redis = new LuaRedisFixture();
+        template = redis.mockTemplate();
+
+        RedisUtil redisUtil = mock(RedisUtil.class);
+        when(redisUtil.getLock(anyString(), anyString(), anyInt())).thenReturn(true);
+        ProductMapper productMapper = mock(ProductMapper.class);
+        when(productMapper.selectIdsAfter(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            return productIds.tailSet(afterId, false).stream().limit(limit).toList();
+        });
+        ProductSkuMapper productSkuMapper = mock(ProductSkuMapper.class);
+        when(productSkuMapper.selectIdsAfter(anyLong(), anyInt())).thenReturn(List.of());
+        UserMapper userMapper = mock(UserMapper.class);
+        when(userMapper.selectIdsAfter(anyLong(), anyInt())).thenReturn(List.of());
+
+        service = new BloomFilterService(template, redisUtil, productMapper, productSkuMapper, userMapper);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.01);
+        ReflectionTestUtils.setField(service, "mirrorSafetyWindow", 0L);
+        ReflectionTestUtils.setField(service, "rebuildBatchSize", 100);
+        ReflectionTestUtils.setField(service, "rebuildLockSeconds", 60);
+        ReflectionTestUtils.setField(service, "productExpectedInsertions", 1000L);
+        ReflectionTestUtils.setField(service, "skuExpectedInsertions", 1000L);
+        ReflectionTestUtils.setField(service, "userExpectedInsertions", 1000L);
+        service.init();
+
+        // 偶数ID存在，奇数ID不存在
+        for (long id = 2; id <= 2000; id += 2) {
+            productIds.add(id);
+        }
+    }
+
+    @Test
+    void rebuild_shouldAcceptExistingIdsAndRejectMostMissingIds() {
+        assertEquals(1000, service.rebuild(BloomFilterService.PRODUCT));
+
+        int falsePositives = 0;
+        for (long id = 1; id <= 2000; id++) {
+            boolean mightContain = service.mightContain(BloomFilterService.PRODUCT, id);
+            if (id % 2 == 0) {
+                assertTrue(mightContain, "existing id " + id);
+            } else if (mightContain) {
+                falsePositives++;
+            }
+        }
+        // 目标误判率 1%，留出余量
+        assertTrue(falsePositives < 30, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void mightContain_shouldAnswerFromLocalMirrorWithoutRedis() {
+        service.rebuild(BloomFilterService.PRODUCT);
+        service.refreshMirrors();
+        clearInvocations(template);
+
+        assertTrue(service.mightContain(BloomFilterService.PRODUCT, 1000L));
+        service.mightContain(BloomFilterService.PRODUCT, 1001L);
+
+        verify(template, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void mightContain_shouldCheckRedisForIdsAddedAfterMirror() {
+        service.rebuild(BloomFilterService.PRODUCT);
+        service.refreshMirrors();
+
+        service.add(BloomFilterService.PRODUCT, 5000L);
+
+        // 5000 大于镜像覆盖的最大ID，回到 Redis 判断
+        assertTrue(service.mightContain(BloomFilterService.PRODUCT, 5000L));
+    }
+
+    @Test
+    void rebuild_shouldDropDeletedIdsOnRotation() {
+        service.rebuild(BloomFilterService.PRODUCT);
+        assertTrue(service.mightContain(BloomFilterService.PRODUCT, 1000L));
+
+        productIds.remove(1000L);
+        service.rebuild(BloomFilterService.PRODUCT);
+
+        assertFalse(service.mightContain(BloomFilterService.PRODUCT, 1000L));
+        assertTrue(service.mightContain(BloomFilterService.PRODUCT, 998L));
+    }
+
+    @Test
+    void mightContain_shouldAllowEverythingBeforeFirstBuild() {
+        assertTrue(service.mightContain(BloomFilterService.PRODUCT, 1L));
+        assertTrue(service.mightContain(BloomFilterService.USER, 42));
+    }
+}
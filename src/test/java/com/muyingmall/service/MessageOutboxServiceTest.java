@@ -0,0 +1,180 @@
+package com.muyingmall.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muyingmall.config.properties.RabbitMQProperties;
+import com.muyingmall.dto.OrderMessage;
+import com.muyingmall.entity.MessageOutbox;
+import com.muyingmall.mapper.MessageOutboxMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 事务性发件箱测试。
+ * 目标：消息按转换器格式写入发件箱并在事务提交后才唤醒中继；一批消息连续发布后只等待一次确认再标记已发送；
+ * 确认失败时整批按指数退避推迟重试，不标记已发送。
+ */
+@ExtendWith(MockitoExtension.class)
+class MessageOutboxServiceTest {
+
+    @Mock
+    private MessageOutboxMapper outboxMapper;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private RabbitOperations operations;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final RabbitMQProperties properties = new RabbitMQProperties();
+    private MessageOutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        outboxService = new MessageOutboxService(outboxMapper, rabbitTemplate, objectMapper, properties,
+                transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        outboxService.shutdown();
+    }
+
+    @Test
+    void append_shouldStoreConvertedMessageAndRelayOnlyAfterCommit() throws Exception {
+        when(rabbitTemplate.getMessageConverter()).thenReturn(new Jackson2JsonMessageConverter(objectMapper));
+        OrderMessage message = OrderMessage.createOrderEvent(7, "NO7", 3, new BigDecimal("99.00"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        outboxService.append(MessageOutboxService.EVENT_ORDER, 7, "order.exchange", "order.create", message);
+
+        ArgumentCaptor<MessageOutbox> row = ArgumentCaptor.forClass(MessageOutbox.class);
+        verify(outboxMapper).insert(row.capture());
+        assertEquals("7", row.getValue().getAggregateId());
+        assertEquals(MessageOutbox.STATUS_PENDING, row.getValue().getStatus());
+        assertEquals(7, objectMapper.readTree(row.getValue().getPayload()).get("orderId").asInt());
+        assertTrue(row.getValue().getHeaders().contains(OrderMessage.class.getName()));
+
+        // 提交前不发布
+        verify(outboxMapper, never()).claimBatch(anyInt());
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        verify(outboxMapper, timeout(1000)).claimBatch(properties.getOutbox().getBatchSize());
+    }
+
+    @Test
+    void relayBatch_shouldPublishAllThenConfirmOnceAndMarkSent() {
+        when(outboxMapper.claimBatch(100)).thenReturn(List.of(row(1L, 0), row(2L, 0)));
+        stubInvoke();
+
+        MessageOutboxService.RelayResult result = outboxService.relayBatch(100);
+
+        assertEquals(new MessageOutboxService.RelayResult(2, 2, false), result);
+        ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+        var order = inOrder(operations, outboxMapper);
+        order.verify(operations, times(2)).send(eq("order.exchange"), eq("order.create"),
+                sent.capture());
+        order.verify(operations).waitForConfirmsOrDie(properties.getOutbox().getConfirmTimeout());
+        order.verify(outboxMapper).markSent(List.of(1L, 2L));
+        Message first = sent.getAllValues().get(0);
+        assertEquals("outbox-1", first.getMessageProperties().getMessageId());
+        assertEquals("{\"orderId\":1}", new String(first.getBody(), StandardCharsets.UTF_8));
+        assertEquals(OrderMessage.class.getName(), first.getMessageProperties().getHeaders().get("__TypeId__"));
+    }
+
+    @Test
+    void relayBatch_shouldScheduleRetryWithBackoffWhenConfirmFails() {
+        when(outboxMapper.claimBatch(100)).thenReturn(List.of(row(1L, 0), row(2L, 3)));
+        stubInvoke();
+        doThrow(new AmqpTimeoutException("confirm timeout")).when(operations).waitForConfirmsOrDie(anyLong());
+
+        LocalDateTime before = LocalDateTime.now();
+        MessageOutboxService.RelayResult result = outboxService.relayBatch(100);
+
+        assertEquals(new MessageOutboxService.RelayResult(2, 0, true), result);
+        verify(outboxMapper, never()).markSent(anyCollection());
+        ArgumentCaptor<LocalDateTime> next = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxMapper).markRetry(eq(1L), eq(10), next.capture(), eq("confirm timeout"));
+        verify(outboxMapper).markRetry(eq(2L), eq(10), next.capture(), anyString());
+        assertTrue(!next.getAllValues().get(0).isBefore(before.plusSeconds(1)));
+        assertTrue(!next.getAllValues().get(1).isBefore(before.plusSeconds(8)));
+    }
+
+    @Test
+    void relayPending_shouldStopWhenNothingToClaim() {
+        when(outboxMapper.claimBatch(anyInt())).thenReturn(List.of());
+
+        assertEquals(0, outboxService.relayPending());
+        verify(rabbitTemplate, never()).invoke(any(RabbitOperations.OperationsCallback.class));
+    }
+
+    @Test
+    void backoff_shouldDoubleUntilCap() {
+        assertEquals(1000, MessageOutboxService.backoff(0, 1000, 300000));
+        assertEquals(8000, MessageOutboxService.backoff(3, 1000, 300000));
+        assertEquals(300000, MessageOutboxService.backoff(20, 1000, 300000));
+        assertEquals(300000, MessageOutboxService.backoff(Integer.MAX_VALUE, 1000, 300000));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubInvoke() {
+        when(rabbitTemplate.invoke(any(RabbitOperations.OperationsCallback.class))).thenAnswer(invocation ->
+                ((RabbitOperations.OperationsCallback<Object>) invocation.getArgument(0)).doInRabbit(operations));
+    }
+
+    private static MessageOutbox row(Long id, int attempts) {
+        MessageOutbox row = new MessageOutbox();
+        row.setId(id);
+        row.setEventType(MessageOutboxService.EVENT_ORDER);
+        row.setAggregateId(String.valueOf(id));
+        row.setExchange("order.exchange");
+        row.setRoutingKey("order.create");
+        row.setPayload("{\"orderId\":" + id + "}");
+        row.setHeaders("{\"__TypeId__\":\"" + OrderMessage.class.getName() + "\"}");
+        row.setStatus(MessageOutbox.STATUS_PENDING);
+        row.setAttempts(attempts);
+        return row;
+    }
+}
@@ -0,0 +1,217 @@
+package com.muyingmall.service;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.muyingmall.cache.NodeIdentifier;
+import com.muyingmall.config.properties.OrderTimeoutProperties;
+import com.muyingmall.dto.SkuStockDTO;
+import com.muyingmall.entity.Order;
+import com.muyingmall.entity.OrderProduct;
+import com.muyingmall.entity.OrderStateLog;
+import com.muyingmall.entity.SeckillOrder;
+import com.muyingmall.enums.OrderStatus;
+import com.muyingmall.lock.DistributedLock;
+import com.muyingmall.mapper.OrderMapper;
+import com.muyingmall.mapper.OrderProductMapper;
+import com.muyingmall.mapper.OrderStateLogMapper;
+import com.muyingmall.mapper.ProductMapper;
+import com.muyingmall.mapper.SeckillOrderMapper;
+import com.muyingmall.service.impl.OrderStateServiceImpl.OrderStateChangedEvent;
+import com.muyingmall.statemachine.OrderEvent;
+import com.muyingmall.util.RedisUtil;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单支付超时服务测试。
+ * 目标：一批超时订单用固定条数的语句完成取消、库存恢复与状态日志，只对秒杀订单做秒杀释放，并逐单发布状态变更事件；
+ * 仍待支付但尚未到期的订单不取消；认领后已处理（取消或已不是待支付）的订单出队，未到期的按实际到期时间重新入队。
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderTimeoutServiceTest {
+
+    @Mock
+    private OrderMapper orderMapper;
+    @Mock
+    private OrderProductMapper orderProductMapper;
+    @Mock
+    private OrderStateLogMapper orderStateLogMapper;
+    @Mock
+    private ProductMapper productMapper;
+    @Mock
+    private ProductSkuService productSkuService;
+    @Mock
+    private SeckillOrderMapper seckillOrderMapper;
+    @Mock
+    private SeckillOrderReleaseService seckillOrderReleaseService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+    @Mock
+    private DistributedLock distributedLock;
+    @Mock
+    private RedisUtil redisUtil;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final OrderTimeoutProperties properties = new OrderTimeoutProperties();
+    private OrderTimeoutService orderTimeoutService;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // 秒杀订单查询使用了 select(SeckillOrder::getOrderId)，需要实体的 lambda 列缓存
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), SeckillOrder.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        properties.setShards(1);
+        orderTimeoutService = new OrderTimeoutService(orderMapper, orderProductMapper, orderStateLogMapper,
+                productMapper, productSkuService, seckillOrderMapper, seckillOrderReleaseService, eventPublisher,
+                stringRedisTemplate, distributedLock, new NodeIdentifier(), redisUtil, properties,
+                transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderTimeoutService.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cancelExpired_shouldCancelBatchWithSetBasedStatements() {
+        Order expired = order(1, 10);
+        Order seckill = order(2, 30);
+        Order notDue = order(3, 1);
+        when(orderMapper.selectList(any())).thenReturn(List.of(expired, seckill, notDue));
+        when(orderProductMapper.selectList(any())).thenReturn(List.of(
+                orderProduct(1, 100, 5L, 2),
+                orderProduct(1, 200, null, 1),
+                orderProduct(2, 200, null, 3)));
+        SeckillOrder seckillOrder = new SeckillOrder();
+        seckillOrder.setOrderId(2L);
+        when(seckillOrderMapper.selectList(any())).thenReturn(List.of(seckillOrder));
+
+        List<Order> cancelled = orderTimeoutService.cancelExpired(List.of(1, 2, 3, 4), "TEST");
+
+        assertEquals(List.of(expired, seckill), cancelled);
+        verify(orderMapper).batchCancelPending(eq(List.of(1, 2)), any(LocalDateTime.class),
+                eq(OrderTimeoutService.TIMEOUT_REASON), anyString());
+
+        ArgumentCaptor<List<SkuStockDTO>> skuStocks = ArgumentCaptor.forClass(List.class);
+        verify(productSkuService).batchRestoreStock(skuStocks.capture());
+        assertEquals(1, skuStocks.getValue().size());
+        assertEquals(5L, skuStocks.getValue().get(0).getSkuId());
+        verify(productMapper).batchIncreaseStock(Map.of(200, 4));
+
+        ArgumentCaptor<List<OrderStateLog>> logs = ArgumentCaptor.forClass(List.class);
+        verify(orderStateLogMapper).insertBatch(logs.capture());
+        assertEquals(2, logs.getValue().size());
+        assertTrue(logs.getValue().stream().allMatch(log -> log.getEvent() == OrderEvent.TIMEOUT
+                && log.getNewStatus() == OrderStatus.CANCELLED));
+
+        verify(seckillOrderReleaseService).releasePendingSeckillOrder(2, "TEST");
+        verify(seckillOrderReleaseService, never()).releasePendingSeckillOrder(eq(1), anyString());
+
+        ArgumentCaptor<OrderStateChangedEvent> events = ArgumentCaptor.forClass(OrderStateChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertTrue(events.getAllValues().stream().allMatch(event -> event.getEvent() == OrderEvent.TIMEOUT
+                && event.getOrder().getStatus() == OrderStatus.CANCELLED));
+        verify(redisUtil).del(anyCollection());
+    }
+
+    @Test
+    void cancelExpired_shouldDoNothingWhenNoOrderIsStillPending() {
+        when(orderMapper.selectList(any())).thenReturn(List.of());
+
+        List<Order> cancelled = orderTimeoutService.cancelExpired(List.of(1, 2), "TEST");
+
+        assertTrue(cancelled.isEmpty());
+        verify(orderMapper, never()).batchCancelPending(anyCollection(), any(), any(), any());
+        verify(productSkuService, never()).batchRestoreStock(anyList());
+        verify(productMapper, never()).batchIncreaseStock(anyMap());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void claimDue_shouldAckHandledOrdersAndRequeueNotYetDue() {
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of("1", "2", "3"));
+        Order notDue = order(2, 1);
+        when(orderMapper.selectList(any())).thenReturn(List.of(order(1, 10), notDue));
+        when(orderProductMapper.selectList(any())).thenReturn(List.of());
+
+        int processed = orderTimeoutService.claimDue();
+
+        assertEquals(3, processed);
+        ArgumentCaptor<Object[]> acked = ArgumentCaptor.forClass(Object[].class);
+        verify(zSetOperations).remove(eq(OrderTimeoutService.QUEUE_KEY_PREFIX + 0), acked.capture());
+        assertEquals(List.of("1", "3"), List.of(acked.getValue()));
+        verify(zSetOperations).add(OrderTimeoutService.QUEUE_KEY_PREFIX + 0, "2",
+                (double) orderTimeoutService.deadlineOf(notDue.getCreateTime()));
+    }
+
+    @Test
+    void schedule_shouldOfferDeadlineToShard() {
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        LocalDateTime createTime = LocalDateTime.now();
+
+        orderTimeoutService.schedule(7, createTime);
+
+        verify(zSetOperations).add(eq(OrderTimeoutService.QUEUE_KEY_PREFIX + 0), eq("7"), anyDouble());
+        assertEquals(1, ((Number) orderTimeoutService.stats().get("wheelSize")).intValue());
+    }
+
+    private static Order order(Integer orderId, int minutesAgo) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setOrderNo("OD" + orderId);
+        order.setStatus(OrderStatus.PENDING_PAYMENT);
+        order.setCreateTime(LocalDateTime.now().minusMinutes(minutesAgo));
+        return order;
+    }
+
+    private static OrderProduct orderProduct(Integer orderId, Integer productId, Long skuId, int quantity) {
+        OrderProduct orderProduct = new OrderProduct();
+        orderProduct.setOrderId(orderId);
+        orderProduct.setProductId(productId);
+        orderProduct.setSkuId(skuId);
+        orderProduct.setQuantity(quantity);
+        return orderProduct;
+    }
+}
@@ -0,0 +1,147 @@
+package com.muyingmall.service;
+
+import com.muyingmall.cache.LocalCache;
+import com.muyingmall.cache.SeckillSoldOutFlags;
+import com.muyingmall.dto.SeckillRequestDTO;
+import com.muyingmall.entity.SeckillActivity;
+import com.muyingmall.entity.SeckillProduct;
+import com.muyingmall.mapper.SeckillActivityMapper;
+import com.muyingmall.mapper.SeckillProductMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 秒杀入口准入服务测试。
+ * 目标：售罄标记命中时不访问 Redis/DB；待支付/已购买由扣减脚本的参与索引拒绝，不再统计订单表。
+ */
+@ExtendWith(MockitoExtension.class)
+class SeckillAdmissionServiceTest {
+
+    @Mock
+    private SeckillSoldOutFlags seckillSoldOutFlags;
+
+    @Mock
+    private SeckillService seckillService;
+
+    @Mock
+    private SeckillProductMapper seckillProductMapper;
+
+    @Mock
+    private SeckillActivityMapper seckillActivityMapper;
+
+    @Mock
+    private LocalCache localCache;
+
+    @Mock
+    private SeckillWarmupService seckillWarmupService;
+
+    private SeckillAdmissionService admissionService;
+
+    @BeforeEach
+    void setUp() {
+        admissionService = new SeckillAdmissionService(
+                seckillSoldOutFlags,
+                seckillService,
+                seckillProductMapper,
+                seckillActivityMapper,
+                localCache,
+                seckillWarmupService);
+    }
+
+    @Test
+    void tryAdmit_shouldRejectInMemoryWhenSoldOutFlagSet() {
+        when(seckillSoldOutFlags.isSoldOut(96L)).thenReturn(true);
+
+        SeckillAdmissionService.AdmissionResult result = admissionService.tryAdmit(9, buildRequest(96L, 1));
+
+        assertEquals(SeckillAdmissionService.AdmissionResult.SOLD_OUT, result);
+        // 售罄标记命中后不应访问 Redis 与数据库。
+        verifyNoInteractions(seckillService, seckillProductMapper, seckillActivityMapper);
+    }
+
+    @Test
+    void tryAdmit_shouldMarkSoldOutWhenRedisStockExhausted() {
+        mockActiveProduct();
+        when(seckillService.deductStockWithLua(eq(96L), eq(11L), eq(1), eq(9), anyLong())).thenReturn(-1);
+        when(seckillService.getRedisStock(11L)).thenReturn(0);
+
+        SeckillAdmissionService.AdmissionResult result = admissionService.tryAdmit(9, buildRequest(96L, 1));
+
+        assertEquals(SeckillAdmissionService.AdmissionResult.SOLD_OUT, result);
+        verify(seckillSoldOutFlags).markSoldOut(96L, 11L);
+    }
+
+    @Test
+    void tryAdmit_shouldNotMarkSoldOutWhenOnlyQuantityExceedsRemaining() {
+        mockActiveProduct();
+        when(seckillService.deductStockWithLua(eq(96L), eq(11L), eq(3), eq(9), anyLong())).thenReturn(-1);
+        when(seckillService.getRedisStock(11L)).thenReturn(2);
+
+        SeckillAdmissionService.AdmissionResult result = admissionService.tryAdmit(9, buildRequest(96L, 3));
+
+        assertEquals(SeckillAdmissionService.AdmissionResult.SOLD_OUT, result);
+        verify(seckillSoldOutFlags, never()).markSoldOut(any(), any());
+    }
+
+    @Test
+    void tryAdmit_shouldRejectWithoutReleaseWhenIndexShowsParticipation() {
+        mockActiveProduct();
+        when(seckillService.deductStockWithLua(eq(96L), eq(11L), eq(1), eq(9), anyLong())).thenReturn(-2);
+
+        SeckillAdmissionService.AdmissionResult result = admissionService.tryAdmit(9, buildRequest(96L, 1));
+
+        assertEquals(SeckillAdmissionService.AdmissionResult.ALREADY_JOINED, result);
+        // 脚本未扣减库存，不能回补，否则会清掉用户已有订单的待支付位
+        verify(seckillService, never()).restoreStockWithLua(any(), any(), any(), any());
+    }
+
+    @Test
+    void tryAdmit_shouldAdmitWhenReservedAndEligible() {
+        mockActiveProduct();
+        when(seckillService.deductStockWithLua(eq(96L), eq(11L), eq(1), eq(9), anyLong())).thenReturn(1);
+
+        SeckillAdmissionService.AdmissionResult result = admissionService.tryAdmit(9, buildRequest(96L, 1));
+
+        assertEquals(SeckillAdmissionService.AdmissionResult.ADMITTED, result);
+        verify(seckillService, never()).restoreStockWithLua(any(), any(), any(), any());
+    }
+
+    private void mockActiveProduct() {
+        SeckillProduct seckillProduct = new SeckillProduct();
+        seckillProduct.setId(96L);
+        seckillProduct.setSkuId(11L);
+        seckillProduct.setActivityId(66L);
+
+        SeckillActivity activity = new SeckillActivity();
+        activity.setId(66L);
+        activity.setStatus(1);
+        activity.setStartTime(LocalDateTime.now().minusMinutes(10));
+        activity.setEndTime(LocalDateTime.now().plusMinutes(10));
+
+        when(seckillProductMapper.selectById(96L)).thenReturn(seckillProduct);
+        when(seckillActivityMapper.selectById(66L)).thenReturn(activity);
+    }
+
+    private SeckillRequestDTO buildRequest(Long seckillProductId, Integer quantity) {
+        SeckillRequestDTO request = new SeckillRequestDTO();
+        request.setSeckillProductId(seckillProductId);
+        request.setQuantity(quantity);
+        request.setAddressId(2020L);
+        request.setPaymentMethod("ALIPAY");
+        return request;
+    }
+}
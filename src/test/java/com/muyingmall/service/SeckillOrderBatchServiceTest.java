@@ -0,0 +1,172 @@
+package com.muyingmall.service;
+
+import com.muyingmall.common.exception.BusinessException;
+import com.muyingmall.dto.SeckillRequestDTO;
+import com.muyingmall.entity.SeckillActivity;
+import com.muyingmall.entity.SeckillOrder;
+import com.muyingmall.entity.SeckillProduct;
+import com.muyingmall.mapper.SeckillActivityMapper;
+import com.muyingmall.mapper.SeckillOrderMapper;
+import com.muyingmall.mapper.SeckillProductMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 秒杀订单批量处理测试。
+ * 目标：整批共享一次加载与一次多行插入；单条失败只释放自身库存，不影响同批其他请求。
+ */
+@ExtendWith(MockitoExtension.class)
+class SeckillOrderBatchServiceTest {
+
+    @Mock
+    private SeckillService seckillService;
+
+    @Mock
+    private SeckillProductMapper seckillProductMapper;
+
+    @Mock
+    private SeckillActivityMapper seckillActivityMapper;
+
+    @Mock
+    private SeckillOrderMapper seckillOrderMapper;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private SeckillStockTxService seckillStockTxService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SeckillOrderBatchService batchService;
+
+    @BeforeEach
+    void setUp() {
+        batchService = new SeckillOrderBatchService(
+                seckillService,
+                seckillProductMapper,
+                seckillActivityMapper,
+                seckillOrderMapper,
+                orderService,
+                seckillStockTxService,
+                transactionManager);
+
+        SeckillProduct product = new SeckillProduct();
+        product.setId(96L);
+        product.setProductId(5L);
+        product.setSkuId(11L);
+        product.setActivityId(66L);
+        product.setSeckillPrice(new BigDecimal("9.90"));
+        product.setLimitPerUser(1);
+
+        SeckillActivity activity = new SeckillActivity();
+        activity.setId(66L);
+        activity.setStatus(1);
+        activity.setStartTime(LocalDateTime.now().minusMinutes(10));
+        activity.setEndTime(LocalDateTime.now().plusMinutes(10));
+
+        when(seckillProductMapper.selectBatchIds(anyCollection())).thenReturn(List.of(product));
+        when(seckillActivityMapper.selectBatchIds(anyCollection())).thenReturn(List.of(activity));
+    }
+
+    @Test
+    void executeBatch_shouldDeductGroupedStockAndInsertOrdersInOneStatement() {
+        when(seckillOrderMapper.selectUserQuantities(anyCollection(), anyCollection())).thenReturn(List.of());
+        when(seckillStockTxService.deductStock(96L, 2)).thenReturn(1);
+        when(orderService.directPurchase(eq(1), anyInt(), eq(5), eq(1), any(), eq(11L), any(), any(), any(), any(),
+                any(), any())).thenReturn(Map.of("orderId", 1001));
+        when(orderService.directPurchase(eq(2), anyInt(), eq(5), eq(1), any(), eq(11L), any(), any(), any(), any(),
+                any(), any())).thenReturn(Map.of("orderId", 1002));
+
+        List<SeckillOrderBatchService.BatchResult> results = batchService.executeBatch(List.of(item(1), item(2)));
+
+        assertEquals(1001L, results.get(0).getOrderId());
+        assertEquals(1002L, results.get(1).getOrderId());
+        // 同一秒杀商品合并为一次数据库扣减
+        verify(seckillStockTxService).deductStock(96L, 2);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SeckillOrder>> captor = ArgumentCaptor.forClass(List.class);
+        verify(seckillOrderMapper).insertBatch(captor.capture());
+        assertEquals(2, captor.getValue().size());
+    }
+
+    @Test
+    void executeBatch_shouldRejectUserAtLimitAndReleaseOnlyThatReservation() {
+        when(seckillOrderMapper.selectUserQuantities(anyCollection(), anyCollection())).thenReturn(List.of(
+                Map.of("user_id", 2, "seckill_product_id", 96L, "paid_quantity", 1, "pending_quantity", 0)));
+        when(seckillStockTxService.deductStock(96L, 1)).thenReturn(1);
+        when(orderService.directPurchase(eq(1), anyInt(), eq(5), eq(1), any(), eq(11L), any(), any(), any(), any(),
+                any(), any())).thenReturn(Map.of("orderId", 1001));
+
+        List<SeckillOrderBatchService.BatchResult> results = batchService.executeBatch(List.of(item(1), item(2)));
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        verify(seckillService).restoreStockWithLua(96L, 11L, 1, 2);
+        verify(seckillService, never()).restoreStockWithLua(96L, 11L, 1, 1);
+    }
+
+    @Test
+    void executeBatch_shouldIsolateOrderCreationFailure() {
+        when(seckillOrderMapper.selectUserQuantities(anyCollection(), anyCollection())).thenReturn(List.of());
+        when(seckillStockTxService.deductStock(96L, 2)).thenReturn(1);
+        when(orderService.directPurchase(eq(1), anyInt(), eq(5), eq(1), any(), eq(11L), any(), any(), any(), any(),
+                any(), any())).thenThrow(new BusinessException("收货地址不存在"));
+        when(orderService.directPurchase(eq(2), anyInt(), eq(5), eq(1), any(), eq(11L), any(), any(), any(), any(),
+                any(), any())).thenReturn(Map.of("orderId", 1002));
+
+        List<SeckillOrderBatchService.BatchResult> results = batchService.executeBatch(List.of(item(1), item(2)));
+
+        assertFalse(results.get(0).isSuccess());
+        assertEquals(1002L, results.get(1).getOrderId());
+        // 失败请求回补自身的数据库与 Redis 库存
+        verify(seckillStockTxService).restoreStock(96L, 1);
+        verify(seckillService).restoreStockWithLua(96L, 11L, 1, 1);
+    }
+
+    @Test
+    void executeBatch_shouldFallBackToPerItemDeductWhenGroupDeductFails() {
+        when(seckillOrderMapper.selectUserQuantities(anyCollection(), anyCollection())).thenReturn(List.of());
+        when(seckillStockTxService.deductStock(96L, 2)).thenReturn(0);
+        when(seckillStockTxService.deductStock(96L, 1)).thenReturn(1, 0);
+        when(orderService.directPurchase(eq(1), anyInt(), eq(5), eq(1), any(), eq(11L), any(), any(), any(), any(),
+                any(), any())).thenReturn(Map.of("orderId", 1001));
+
+        List<SeckillOrderBatchService.BatchResult> results = batchService.executeBatch(List.of(item(1), item(2)));
+
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("库存不足，秒杀失败", results.get(1).getErrorMessage());
+        verify(seckillService).restoreStockWithLua(96L, 11L, 1, 2);
+    }
+
+    private SeckillOrderBatchService.BatchItem item(Integer userId) {
+        SeckillRequestDTO request = new SeckillRequestDTO();
+        request.setSeckillProductId(96L);
+        request.setQuantity(1);
+        request.setAddressId(2020L);
+        request.setPaymentMethod("ALIPAY");
+        return new SeckillOrderBatchService.BatchItem(userId, request, true);
+    }
+}
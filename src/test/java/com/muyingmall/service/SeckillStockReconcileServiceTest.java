@@ -0,0 +1,126 @@
+package com.muyingmall.service;
+
+import com.muyingmall.entity.ProductSku;
+import com.muyingmall.mapper.ProductSkuMapper;
+import com.muyingmall.mapper.SeckillProductMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 秒杀库存对账测试。
+ * 目标：整批 MGET 取值、分桶按SKU聚合；只有与秒杀库存一致的SKU用一条批量语句写回，偏差SKU只计入指标。
+ */
+@ExtendWith(MockitoExtension.class)
+class SeckillStockReconcileServiceTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private ProductSkuMapper productSkuMapper;
+
+    @Mock
+    private SeckillProductMapper seckillProductMapper;
+
+    @Mock
+    private Cursor<String> cursor;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SeckillStockReconcileService reconcileService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reconcileService = new SeckillStockReconcileService(redisTemplate, productSkuMapper, seckillProductMapper,
+                meterRegistry);
+    }
+
+    @Test
+    void reconcile_shouldBatchUpdateOnlyMatchingSkusAndReportDrift() {
+        List<String> keys = Arrays.asList("seckill:stock:11:b0", "seckill:stock:11:b1", "seckill:stock:12",
+                "seckill:stock:13");
+        mockScan(keys);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(keys)).thenReturn(Arrays.asList(3, 4, 5, 9));
+        when(seckillProductMapper.selectSeckillStockBySkuIds(anyCollection())).thenReturn(List.of(
+                Map.of("sku_id", 11L, "seckill_stock", 7),
+                Map.of("sku_id", 12L, "seckill_stock", 8)));
+
+        SeckillStockReconcileService.ReconcileResult result = reconcileService.reconcile();
+
+        assertEquals(3, result.getScannedSkus());
+        assertEquals(1, result.getSyncedSkus());
+        assertEquals(1, result.getDriftedSkus());
+        assertEquals(1, result.getUnmatchedSkus());
+        assertEquals(3, result.getTotalDrift());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProductSku>> captor = ArgumentCaptor.forClass(List.class);
+        verify(productSkuMapper, times(1)).batchUpdateStock(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals(11L, captor.getValue().get(0).getSkuId());
+        assertEquals(7, captor.getValue().get(0).getStock());
+        // 单次对账只走一次 MGET，不逐Key读取
+        verify(valueOperations, never()).get(any());
+
+        assertEquals(1.0, meterRegistry.get("seckill.stock.drift.skus").gauge().value());
+        assertEquals(3.0, meterRegistry.get("seckill.stock.drift.total").gauge().value());
+    }
+
+    @Test
+    void reconcile_shouldSkipUpdateWhenEverySkuDrifted() {
+        List<String> keys = List.of("seckill:stock:12");
+        mockScan(keys);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(keys)).thenReturn(List.of(2));
+        when(seckillProductMapper.selectSeckillStockBySkuIds(anyCollection())).thenReturn(List.of(
+                Map.of("sku_id", 12L, "seckill_stock", 8)));
+
+        SeckillStockReconcileService.ReconcileResult result = reconcileService.reconcile();
+
+        assertEquals(0, result.getSyncedSkus());
+        assertEquals(-6, result.getDriftSamples().get(0).get("drift"));
+        verify(productSkuMapper, never()).batchUpdateStock(anyList());
+    }
+
+    @Test
+    void parseSkuId_shouldHandleBucketSuffixAndRejectGarbage() {
+        assertEquals(11L, SeckillStockReconcileService.parseSkuId("seckill:stock:11:b3"));
+        assertEquals(12L, SeckillStockReconcileService.parseSkuId("seckill:stock:12"));
+        assertNull(SeckillStockReconcileService.parseSkuId("seckill:stock:abc"));
+    }
+
+    private void mockScan(List<String> keys) {
+        Iterator<String> iterator = keys.iterator();
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+    }
+}
@@ -0,0 +1,104 @@
+package com.muyingmall.service;
+
+import com.muyingmall.fixtures.LuaRedisFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 秒杀排队室测试。
+ * 目标：同一用户取号幂等、号码单调递增；只有进入准入窗口的号码可以放行，准入成功后才消费号码且一号一用；
+ * 只能查询本人号码，位置只统计仍在排队的号码；放行量随积压收缩。
+ */
+class SeckillWaitingRoomServiceTest {
+
+    private LuaRedisFixture redis;
+    private SeckillWaitingRoomService waitingRoomService;
+
+    @BeforeEach
+    void setUp() {
+        redis = new LuaRedisFixture();
+        waitingRoomService = new SeckillWaitingRoomService(redis.mockTemplate(), mock(RabbitTemplate.class));
+        ReflectionTestUtils.setField(waitingRoomService, "enabled", true);
+        ReflectionTestUtils.setField(waitingRoomService, "minRate", 20.0);
+        ReflectionTestUtils.setField(waitingRoomService, "ttlSeconds", 60L);
+        waitingRoomService.initLuaScripts();
+    }
+
+    @Test
+    void enter_shouldIssueMonotonicTicketsAndBeIdempotentPerUser() {
+        SeckillWaitingRoomService.QueueStatus first = waitingRoomService.enter(9, 96L);
+        SeckillWaitingRoomService.QueueStatus again = waitingRoomService.enter(9, 96L);
+        SeckillWaitingRoomService.QueueStatus second = waitingRoomService.enter(10, 96L);
+
+        assertEquals("96-1", first.getTicket());
+        assertEquals("96-1", again.getTicket());
+        assertEquals("96-2", second.getTicket());
+        assertEquals(2, second.getPosition());
+        assertFalse(second.isAdmitted());
+    }
+
+    @Test
+    void checkAdmission_shouldOnlyPassTicketsInsideWindowAndKeepThemUntilConsumed() {
+        waitingRoomService.enter(9, 96L);
+        waitingRoomService.enter(10, 96L);
+        redis.set("seckill:room:admit:96", 1);
+
+        assertEquals(0, waitingRoomService.checkAdmission(9, 96L));
+        assertEquals(1, waitingRoomService.checkAdmission(10, 96L));
+        // 检查不消费号码：准入失败（如系统繁忙）后可再次提交
+        assertEquals(0, waitingRoomService.checkAdmission(9, 96L));
+
+        // 准入成功后消费号码，重复提交需重新取号
+        assertTrue(waitingRoomService.consumeTicket(9, 96L));
+        assertFalse(waitingRoomService.consumeTicket(9, 96L));
+        assertEquals(-1, waitingRoomService.checkAdmission(9, 96L));
+        assertEquals(-1, waitingRoomService.checkAdmission(11, 96L));
+    }
+
+    @Test
+    void getStatus_shouldCountLiveTicketsAfterAdmitCursor() {
+        for (int userId = 1; userId <= 8; userId++) {
+            waitingRoomService.enter(userId, 96L);
+        }
+        redis.set("seckill:room:admit:96", 3);
+
+        SeckillWaitingRoomService.QueueStatus status = waitingRoomService.getStatus(8, "96-8");
+        assertEquals(5, status.getPosition());
+        // 未测得吞吐时按保底速率估算等待时间
+        assertEquals(1, status.getEstimatedWaitSeconds());
+
+        // 移出排队集合的号码不再计入位置
+        waitingRoomService.consumeTicket(6, 96L);
+        assertEquals(4, waitingRoomService.getStatus(8, "96-8").getPosition());
+        assertTrue(waitingRoomService.getStatus(2, "96-2").isAdmitted());
+    }
+
+    @Test
+    void getStatus_shouldRejectTicketsOfOtherUsers() {
+        waitingRoomService.enter(9, 96L);
+        waitingRoomService.enter(10, 96L);
+
+        assertNull(waitingRoomService.getStatus(10, "96-1"));
+        assertNull(waitingRoomService.getStatus(11, "96-2"));
+        assertNull(waitingRoomService.getStatus(9, "bad-ticket"));
+
+        // 已消费的号码不能再查询
+        waitingRoomService.consumeTicket(9, 96L);
+        assertNull(waitingRoomService.getStatus(9, "96-1"));
+    }
+
+    @Test
+    void computeBudget_shouldShrinkWithQueueBacklog() {
+        assertEquals(300, SeckillWaitingRoomService.computeBudget(100, 1, 2, 0));
+        assertEquals(250, SeckillWaitingRoomService.computeBudget(100, 1, 2, 50));
+        assertEquals(0, SeckillWaitingRoomService.computeBudget(100, 1, 2, 400));
+    }
+}
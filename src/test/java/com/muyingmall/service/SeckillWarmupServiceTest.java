@@ -0,0 +1,198 @@
+package com.muyingmall.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muyingmall.cache.LocalCache;
+import com.muyingmall.cache.NodeIdentifier;
+import com.muyingmall.common.constants.CacheConstants;
+import com.muyingmall.dto.SeckillProductDTO;
+import com.muyingmall.entity.SeckillActivity;
+import com.muyingmall.entity.SeckillProduct;
+import com.muyingmall.mapper.SeckillActivityMapper;
+import com.muyingmall.mapper.SeckillProductMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 秒杀预热测试。
+ * 目标：只初始化尚不存在的库存Key（不覆盖已开卖库存）；详情写入 Redis 与本地缓存并广播后才写就绪标记；
+ * 活动被修改或删除时同步 Redis 副本与本地缓存并广播，活动只做短时本地缓存，未预热的结果不写本地缓存。
+ */
+@ExtendWith(MockitoExtension.class)
+class SeckillWarmupServiceTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private SeckillActivityMapper seckillActivityMapper;
+
+    @Mock
+    private SeckillProductMapper seckillProductMapper;
+
+    @Mock
+    private SeckillService seckillService;
+
+    @Mock
+    private LocalCache localCache;
+
+    @Mock
+    private NodeIdentifier nodeIdentifier;
+
+    private SeckillWarmupService warmupService;
+
+    @BeforeEach
+    void setUp() {
+        warmupService = new SeckillWarmupService(redisTemplate, stringRedisTemplate, seckillActivityMapper,
+                seckillProductMapper, seckillService, localCache, nodeIdentifier, new ObjectMapper());
+        ReflectionTestUtils.setField(warmupService, "enabled", true);
+        ReflectionTestUtils.setField(warmupService, "localTtlSeconds", 900L);
+        ReflectionTestUtils.setField(warmupService, "activityLocalTtlSeconds", 5L);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void warmup_shouldInitMissingStockPreloadDetailsAndMarkReady() {
+        when(nodeIdentifier.getNodeId()).thenReturn("node-a");
+        when(valueOperations.setIfAbsent(eq("seckill:warmup:lock:66"), any(), any(Duration.class))).thenReturn(true);
+        when(seckillProductMapper.selectList(any())).thenReturn(List.of(product(96L, 11L), product(97L, 12L)));
+        when(seckillService.getRedisStock(11L)).thenReturn(null);
+        when(seckillService.getRedisStock(12L)).thenReturn(3);
+        SeckillProductDTO detail = new SeckillProductDTO();
+        detail.setId(96L);
+        when(seckillProductMapper.selectSeckillProductsByActivity(66L)).thenReturn(List.of(detail));
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            SessionCallback<?> callback = invocation.getArgument(0);
+            callback.execute((RedisOperations) redisTemplate);
+            return List.of();
+        });
+
+        assertTrue(warmupService.warmup(activity()));
+
+        verify(seckillService).initSeckillStock(11L, 100, 4);
+        // 已存在的库存Key说明已初始化或已开卖，不能覆盖
+        verify(seckillService, never()).initSeckillStock(eq(12L), anyInt(), anyInt());
+        verify(valueOperations).set(eq("seckill:warmup:detail:96"), eq(detail), anyLong(), any());
+        verify(localCache).put(900L, "seckill:warmup:detail:96", detail);
+        verify(localCache).put(eq(5L), eq("seckill:warmup:activity:66"), any(SeckillActivity.class));
+        verify(stringRedisTemplate).convertAndSend(eq(CacheConstants.SECKILL_WARMUP_CHANNEL), anyString());
+        verify(valueOperations).set(eq("seckill:warmup:ready:66"), any(), anyLong(), any());
+    }
+
+    @Test
+    void warmup_shouldSkipWhenAnotherNodeHoldsLock() {
+        when(nodeIdentifier.getNodeId()).thenReturn("node-a");
+        when(valueOperations.setIfAbsent(eq("seckill:warmup:lock:66"), any(), any(Duration.class))).thenReturn(false);
+
+        assertFalse(warmupService.warmup(activity()));
+
+        verifyNoInteractions(seckillProductMapper, seckillService, localCache);
+    }
+
+    @Test
+    void getProductDetail_shouldReadRedisOnLocalMissAndFillLocalCache() {
+        SeckillProductDTO detail = new SeckillProductDTO();
+        detail.setId(96L);
+        when(localCache.get("seckill:warmup:detail:96")).thenReturn(null);
+        when(valueOperations.get("seckill:warmup:detail:96")).thenReturn(detail);
+
+        assertSame(detail, warmupService.getProductDetail(96L));
+        verify(localCache).put(900L, "seckill:warmup:detail:96", detail);
+    }
+
+    @Test
+    void getActivity_shouldNotCacheMissLocally() {
+        when(valueOperations.get("seckill:warmup:activity:66")).thenReturn(null);
+
+        assertNull(warmupService.getActivity(66L));
+        verify(localCache, never()).put(anyLong(), anyString(), any());
+    }
+
+    @Test
+    void refreshActivity_shouldRewriteWarmCopyAndBroadcast() {
+        when(nodeIdentifier.getNodeId()).thenReturn("node-a");
+        when(redisTemplate.hasKey("seckill:warmup:ready:66")).thenReturn(true);
+        SeckillActivity activity = activity();
+        activity.setStatus(0);
+
+        warmupService.refreshActivity(activity);
+
+        verify(valueOperations).set(eq("seckill:warmup:activity:66"), eq(activity), anyLong(), any());
+        verify(localCache).put(5L, "seckill:warmup:activity:66", activity);
+        verify(stringRedisTemplate).convertAndSend(eq(CacheConstants.SECKILL_WARMUP_CHANNEL), anyString());
+    }
+
+    @Test
+    void evictActivity_shouldDropWarmCopyEverywhere() {
+        when(nodeIdentifier.getNodeId()).thenReturn("node-a");
+
+        warmupService.evictActivity(66L);
+
+        verify(redisTemplate).delete(List.of("seckill:warmup:activity:66", "seckill:warmup:ready:66"));
+        verify(localCache).evict("seckill:warmup:activity:66");
+        verify(stringRedisTemplate).convertAndSend(eq(CacheConstants.SECKILL_WARMUP_CHANNEL), anyString());
+    }
+
+    @Test
+    void loadLocal_shouldEvictEntriesGoneFromRedis() {
+        when(valueOperations.multiGet(List.of("seckill:warmup:activity:66"))).thenReturn(Arrays.asList((Object) null));
+
+        warmupService.loadLocal(66L, List.of());
+
+        verify(localCache).evict("seckill:warmup:activity:66");
+        verify(localCache, never()).put(anyLong(), anyString(), any());
+    }
+
+    private SeckillActivity activity() {
+        SeckillActivity activity = new SeckillActivity();
+        activity.setId(66L);
+        activity.setStatus(0);
+        activity.setStockBuckets(4);
+        activity.setStartTime(LocalDateTime.now().plusMinutes(3));
+        activity.setEndTime(LocalDateTime.now().plusHours(1));
+        return activity;
+    }
+
+    private SeckillProduct product(Long id, Long skuId) {
+        SeckillProduct product = new SeckillProduct();
+        product.setId(id);
+        product.setActivityId(66L);
+        product.setSkuId(skuId);
+        product.setSeckillStock(100);
+        return product;
+    }
+}
@@ -1,6 +1,7 @@
 package com.muyingmall.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.muyingmall.cache.CacheNamespaces;
 import com.muyingmall.common.exception.BusinessException;
 import com.muyingmall.entity.Coupon;
 import com.muyingmall.entity.UserCoupon;
@@ -55,6 +56,9 @@ class CouponServiceImplTest {
     @Mock
     private RedisUtil redisUtil;
 
+    @Mock
+    private CacheNamespaces cacheNamespaces;
+
     @InjectMocks
     private CouponServiceImpl couponService;
 
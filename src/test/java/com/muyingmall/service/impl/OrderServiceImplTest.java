@@ -1,6 +1,7 @@
 package com.muyingmall.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muyingmall.cache.CacheNamespaces;
 import com.muyingmall.common.exception.BusinessException;
 import com.muyingmall.entity.Order;
 import com.muyingmall.entity.OrderProduct;
@@ -21,6 +22,7 @@ import com.muyingmall.service.PointsService;
 import com.muyingmall.service.ProductService;
 import com.muyingmall.service.ProductSkuService;
 import com.muyingmall.service.SeckillOrderReleaseService;
+import com.muyingmall.service.SeckillParticipationIndex;
 import com.muyingmall.service.UserCouponService;
 import com.muyingmall.util.RedisUtil;
 import org.junit.jupiter.api.BeforeEach;
@@ -89,6 +91,9 @@ class OrderServiceImplTest {
     private PointsService pointsService;
     @Mock
     private RedisUtil redisUtil;
+
+    @Mock
+    private CacheNamespaces cacheNamespaces;
     @Mock
     private RedisTemplate<String, Object> redisTemplate;
     @Mock
@@ -109,6 +114,8 @@ class OrderServiceImplTest {
     private SeckillOrderReleaseService seckillOrderReleaseService;
     @Mock
     private AddressService addressService;
+    @Mock
+    private SeckillParticipationIndex seckillParticipationIndex;
 
     @InjectMocks
     private OrderServiceImpl orderService;
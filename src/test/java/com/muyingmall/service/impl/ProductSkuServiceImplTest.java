@@ -0,0 +1,130 @@
+package com.muyingmall.service.impl;
+
+import com.muyingmall.common.exception.BusinessException;
+import com.muyingmall.dto.SkuStockDTO;
+import com.muyingmall.entity.ProductSku;
+import com.muyingmall.entity.ProductSkuStockLog;
+import com.muyingmall.mapper.ProductMapper;
+import com.muyingmall.mapper.ProductSkuMapper;
+import com.muyingmall.mapper.ProductSkuStockLogMapper;
+import com.muyingmall.service.BloomFilterService;
+import com.muyingmall.service.SeckillService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 商品SKU服务 · 单元测试。
+ * 被测方法：{@link ProductSkuServiceImpl#batchDeductStock} / {@link ProductSkuServiceImpl#deductStock}
+ * 覆盖：
+ *   - 整批一条扣减语句、一次读回、一次多行插入日志、一次刷新商品总库存；同一SKU合并扣减，日志按顺序衔接
+ *   - 任一SKU库存不足 → 抛 BusinessException，不写日志
+ *   - 单SKU扣减数据库失败 → 归还 Redis 预扣库存
+ */
+@ExtendWith(MockitoExtension.class)
+@Tag("unit")
+@DisplayName("商品SKU服务 · 单元测试")
+class ProductSkuServiceImplTest {
+
+    @Mock
+    private ProductSkuMapper productSkuMapper;
+    @Mock
+    private ProductSkuStockLogMapper stockLogMapper;
+    @Mock
+    private ProductMapper productMapper;
+    @Mock
+    private SeckillService seckillService;
+    @Mock
+    private BloomFilterService bloomFilterService;
+
+    @InjectMocks
+    private ProductSkuServiceImpl productSkuService;
+
+    @Test
+    @DisplayName("批量扣减：合并同一SKU，固定语句数完成扣减、日志与总库存")
+    @SuppressWarnings("unchecked")
+    void batchDeductStock_shouldUseSetBasedStatements() {
+        given(productSkuMapper.batchDeductStock(Map.of(1L, 5, 2L, 1))).willReturn(2);
+        given(productSkuMapper.selectBatchIds(Set.of(1L, 2L)))
+                .willReturn(List.of(sku(1L, 10, 5), sku(2L, 20, 9)));
+
+        productSkuService.batchDeductStock(List.of(stock(1L, 2), stock(2L, 1), stock(1L, 3)));
+
+        ArgumentCaptor<List<ProductSkuStockLog>> logs = ArgumentCaptor.forClass(List.class);
+        verify(stockLogMapper).insertBatch(logs.capture());
+        assertThat(logs.getValue()).extracting(ProductSkuStockLog::getSkuId,
+                        ProductSkuStockLog::getBeforeStock, ProductSkuStockLog::getAfterStock)
+                .containsExactly(
+                        tuple(1L, 10, 8),
+                        tuple(2L, 10, 9),
+                        tuple(1L, 8, 5));
+        assertThat(logs.getValue()).allSatisfy(log -> assertThat(log.getOrderId()).isEqualTo(100));
+        verify(productMapper).syncStockFromSkus(Set.of(10, 20));
+        verify(productSkuMapper, never()).selectById(any());
+    }
+
+    @Test
+    @DisplayName("批量扣减：任一SKU库存不足 → 抛异常且不写日志")
+    void batchDeductStock_shouldRejectWholeBatchWhenAnySkuInsufficient() {
+        given(productSkuMapper.batchDeductStock(Map.of(1L, 2, 2L, 4))).willReturn(1);
+        given(productSkuMapper.selectBatchIds(Set.of(1L, 2L)))
+                .willReturn(List.of(sku(1L, 10, 8), sku(2L, 20, 3)));
+
+        assertThatThrownBy(() -> productSkuService.batchDeductStock(List.of(stock(1L, 2), stock(2L, 4))))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("SKU库存不足")
+                .hasMessageContaining("sku-2");
+        verify(stockLogMapper, never()).insertBatch(anyList());
+        verify(productMapper, never()).syncStockFromSkus(anyCollection());
+    }
+
+    @Test
+    @DisplayName("单SKU扣减：数据库库存不足 → 归还 Redis 预扣库存")
+    void deductStock_shouldRestoreRedisStockWhenDatabaseRejects() {
+        given(seckillService.preDeductStock(1L, 3)).willReturn(true);
+        given(productSkuMapper.batchDeductStock(Map.of(1L, 3))).willReturn(0);
+        given(productSkuMapper.selectBatchIds(Set.of(1L))).willReturn(List.of(sku(1L, 10, 1)));
+
+        assertThatThrownBy(() -> productSkuService.deductStock(1L, 3, 100, "直接购买扣减库存"))
+                .isInstanceOf(BusinessException.class);
+        verify(seckillService).restoreRedisStock(1L, 3);
+    }
+
+    private static SkuStockDTO stock(Long skuId, int quantity) {
+        SkuStockDTO dto = new SkuStockDTO();
+        dto.setSkuId(skuId);
+        dto.setQuantity(quantity);
+        dto.setOrderId(100);
+        dto.setRemark("订单创建扣减库存");
+        return dto;
+    }
+
+    private static ProductSku sku(Long skuId, Integer productId, int stock) {
+        ProductSku sku = new ProductSku();
+        sku.setSkuId(skuId);
+        sku.setProductId(productId);
+        sku.setSkuCode("code-" + skuId);
+        sku.setSkuName("sku-" + skuId);
+        sku.setStock(stock);
+        return sku;
+    }
+}
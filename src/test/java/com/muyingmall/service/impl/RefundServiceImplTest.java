@@ -2,6 +2,7 @@ package com.muyingmall.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.muyingmall.common.exception.BusinessException;
+import com.muyingmall.common.id.IdGenerator;
 import com.muyingmall.entity.Order;
 import com.muyingmall.entity.Refund;
 import com.muyingmall.enums.OrderStatus;
@@ -84,6 +85,8 @@ class RefundServiceImplTest {
     private ProductSkuService productSkuService;
     @Mock
     private ProductService productService;
+    @Mock
+    private IdGenerator idGenerator;
 
     @InjectMocks
     private RefundServiceImpl refundService;
@@ -113,6 +116,7 @@ class RefundServiceImplTest {
             given(refundStateService.sendEvent(anyLong(), eq(RefundEvent.SUBMIT),
                     anyString(), anyString(), anyInt(), anyString())).willReturn(true);
             given(orderService.updateById(any(Order.class))).willReturn(true);
+            given(idGenerator.nextNo("R")).willReturn("R0001234567890123456");
 
             // When
             Long refundId = refundService.applyRefund(
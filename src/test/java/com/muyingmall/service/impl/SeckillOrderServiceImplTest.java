@@ -8,6 +8,7 @@ import com.muyingmall.mapper.SeckillActivityMapper;
 import com.muyingmall.mapper.SeckillOrderMapper;
 import com.muyingmall.mapper.SeckillProductMapper;
 import com.muyingmall.service.OrderService;
+import com.muyingmall.service.SeckillParticipationIndex;
 import com.muyingmall.service.SeckillService;
 import com.muyingmall.service.SeckillStockTxService;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,7 +22,10 @@ import java.time.LocalDateTime;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -50,6 +54,9 @@ class SeckillOrderServiceImplTest {
     @Mock
     private SeckillStockTxService seckillStockTxService;
 
+    @Mock
+    private SeckillParticipationIndex seckillParticipationIndex;
+
     private SeckillOrderServiceImpl seckillOrderService;
 
     @BeforeEach
@@ -61,7 +68,8 @@ class SeckillOrderServiceImplTest {
                 seckillActivityMapper,
                 seckillOrderMapper,
                 orderService,
-                seckillStockTxService);
+                seckillStockTxService,
+                seckillParticipationIndex);
     }
 
     @Test
@@ -72,6 +80,7 @@ class SeckillOrderServiceImplTest {
 
         when(seckillProductMapper.selectById(96L)).thenReturn(seckillProduct);
         when(seckillActivityMapper.selectById(66L)).thenReturn(activity);
+        when(seckillParticipationIndex.getState(96L, 9)).thenReturn(SeckillParticipationIndex.MISSING);
         // 模拟该用户在当前秒杀商品下已支付2件，达到当前商品限购上限。
         when(seckillOrderMapper.countUserPurchase(9, 66L, 96L)).thenReturn(2);
 
@@ -88,8 +97,9 @@ class SeckillOrderServiceImplTest {
     void canUserParticipate_shouldBeFalseWhenPaidQuantityReachedLimit() {
         SeckillProduct seckillProduct = buildSeckillProduct(96L, 11L, 66L, 2);
 
+        when(seckillParticipationIndex.getState(96L, 9)).thenReturn(SeckillParticipationIndex.MISSING);
         when(seckillProductMapper.selectById(96L)).thenReturn(seckillProduct);
-        // 商品限购为2件时，用户已支付2件，应判定不可继续参与。
+        // 参与索引不存在时回退到订单表：商品限购为2件时，用户已支付2件，应判定不可继续参与。
         when(seckillOrderMapper.countUserPurchase(9, 66L, 96L)).thenReturn(2);
         when(seckillOrderMapper.countUserPendingPurchase(9, 66L, 96L)).thenReturn(0);
 
@@ -106,6 +116,7 @@ class SeckillOrderServiceImplTest {
 
         when(seckillProductMapper.selectById(96L)).thenReturn(seckillProduct);
         when(seckillActivityMapper.selectById(66L)).thenReturn(activity);
+        when(seckillParticipationIndex.getState(96L, 9)).thenReturn(SeckillParticipationIndex.MISSING);
         when(seckillOrderMapper.countUserPurchase(9, 66L, 96L)).thenReturn(0);
         // 模拟存在待支付秒杀订单，必须拦截，防止无限占位下单。
         when(seckillOrderMapper.countUserPendingPurchase(9, 66L, 96L)).thenReturn(1);
@@ -118,6 +129,36 @@ class SeckillOrderServiceImplTest {
         verify(seckillService, never()).deductStockWithLua(96L, 11L, 1, 9, null);
     }
 
+    @Test
+    void canUserParticipate_shouldUseParticipationIndexWithoutCountingOrders() {
+        when(seckillParticipationIndex.getState(96L, 9)).thenReturn(SeckillParticipationIndex.PENDING);
+        when(seckillParticipationIndex.getState(96L, 10)).thenReturn(SeckillParticipationIndex.NONE);
+
+        assertFalse(seckillOrderService.canUserParticipate(9, 96L));
+        assertTrue(seckillOrderService.canUserParticipate(10, 96L));
+        // 索引命中时不查询商品与订单表
+        verifyNoInteractions(seckillProductMapper, seckillOrderMapper);
+    }
+
+    @Test
+    void executeSeckill_shouldRejectPurchasedUserFromIndexBeforeDeduct() {
+        SeckillProduct seckillProduct = buildSeckillProduct(96L, 11L, 66L, 5);
+        SeckillActivity activity = buildActiveActivity(66L);
+        SeckillRequestDTO request = buildRequest(96L, 1L, 2020L);
+
+        when(seckillProductMapper.selectById(96L)).thenReturn(seckillProduct);
+        when(seckillActivityMapper.selectById(66L)).thenReturn(activity);
+        when(seckillParticipationIndex.getState(96L, 9)).thenReturn(SeckillParticipationIndex.PURCHASED);
+
+        BusinessException exception = assertThrows(
+                BusinessException.class,
+                () -> seckillOrderService.executeSeckill(9, request));
+
+        assertTrue(exception.getMessage().contains("已参与"));
+        verifyNoInteractions(seckillOrderMapper);
+        verify(seckillService, never()).deductStockWithLua(anyLong(), anyLong(), any(), any(), any());
+    }
+
     private SeckillProduct buildSeckillProduct(Long id, Long skuId, Long activityId, Integer limitPerUser) {
         SeckillProduct seckillProduct = new SeckillProduct();
         seckillProduct.setId(id);
@@ -1,7 +1,11 @@
 package com.muyingmall.service.impl;
 
+import com.muyingmall.cache.SeckillSoldOutFlags;
 import com.muyingmall.mapper.ProductSkuMapper;
+import com.muyingmall.mapper.SeckillActivityMapper;
 import com.muyingmall.mapper.SeckillProductMapper;
+import com.muyingmall.service.SeckillParticipationIndex;
+import com.muyingmall.service.SeckillStockReconcileService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,6 +16,7 @@ import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.Arrays;
 import java.util.Collections;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -36,6 +41,18 @@ class SeckillServiceImplTest {
     @Mock
     private SeckillProductMapper seckillProductMapper;
 
+    @Mock
+    private SeckillActivityMapper seckillActivityMapper;
+
+    @Mock
+    private SeckillSoldOutFlags seckillSoldOutFlags;
+
+    @Mock
+    private SeckillStockReconcileService seckillStockReconcileService;
+
+    @Mock
+    private SeckillParticipationIndex seckillParticipationIndex;
+
     @Mock
     private DefaultRedisScript<Long> stockDeductScript;
 
@@ -53,7 +70,8 @@ class SeckillServiceImplTest {
     @BeforeEach
     void setUp() {
         // 直接构造被测对象，并通过反射注入 Lua 脚本对象，避免依赖 @PostConstruct。
-        seckillService = new SeckillServiceImpl(redisTemplate, productSkuMapper, seckillProductMapper);
+        seckillService = new SeckillServiceImpl(redisTemplate, productSkuMapper, seckillProductMapper,
+                seckillActivityMapper, seckillSoldOutFlags, seckillStockReconcileService, seckillParticipationIndex);
         ReflectionTestUtils.setField(seckillService, "stockDeductScript", stockDeductScript);
         ReflectionTestUtils.setField(seckillService, "stockRestoreScript", stockRestoreScript);
         ReflectionTestUtils.setField(seckillService, "stockPreDeductScript", stockPreDeductScript);
@@ -61,21 +79,25 @@ class SeckillServiceImplTest {
 
     @Test
     void deductStockWithLua_shouldPassNumericQuantityToLuaScript() {
-        when(redisTemplate.execute(eq(stockDeductScript), anyList(), any())).thenReturn(1L);
+        mockSingleKeyLayout();
+        when(redisTemplate.execute(eq(stockDeductScript), anyList(), any(), any(), any())).thenReturn(1L);
 
         seckillService.deductStockWithLua(96L, 11L, 1, 9, 120L);
 
+        // 库存Key与用户去重集合Key一起传入，数量/用户ID/过期时间均以数值对象传递。
         verify(redisTemplate).execute(
                 eq(stockDeductScript),
-                eq(Collections.singletonList("seckill:stock:11")),
-                eq(1)
+                eq(Arrays.asList("seckill:stock:11", "seckill:participation:96")),
+                eq(1),
+                eq(9),
+                eq(120L)
         );
     }
 
     @Test
     void preDeductStock_shouldPassNumericQuantityToLuaScript() {
         // 提供 Redis 库存，确保流程进入 Lua 预扣减分支，不走同步数据库分支。
-        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        mockSingleKeyLayout();
         when(valueOperations.get("seckill:stock:11")).thenReturn(100);
         when(redisTemplate.execute(eq(stockPreDeductScript), anyList(), any())).thenReturn(99L);
 
@@ -91,14 +113,26 @@ class SeckillServiceImplTest {
 
     @Test
     void restoreStockWithLua_shouldPassNumericQuantityToLuaScript() {
-        when(redisTemplate.execute(eq(stockRestoreScript), anyList(), any())).thenReturn(10L);
+        mockSingleKeyLayout();
+        when(redisTemplate.execute(eq(stockRestoreScript), anyList(), any(), any())).thenReturn(10L);
 
         seckillService.restoreStockWithLua(96L, 11L, 1, 9);
 
         verify(redisTemplate).execute(
                 eq(stockRestoreScript),
-                eq(Collections.singletonList("seckill:stock:11")),
-                eq(1)
+                eq(Arrays.asList("seckill:stock:11", "seckill:participation:96")),
+                eq(1),
+                eq(9)
         );
+        // 库存回补成功后清除售罄标记。
+        verify(seckillSoldOutFlags).clear(96L);
+    }
+
+    /**
+     * 未配置分桶：分桶数元数据Key不存在，走单Key脚本
+     */
+    private void mockSingleKeyLayout() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("seckill:stock-buckets:11")).thenReturn(null);
     }
 }
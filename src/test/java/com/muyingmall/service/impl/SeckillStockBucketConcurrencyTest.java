@@ -0,0 +1,250 @@
+package com.muyingmall.service.impl;
+
+import com.muyingmall.cache.SeckillSoldOutFlags;
+import com.muyingmall.fixtures.LuaRedisFixture;
+import com.muyingmall.mapper.ProductSkuMapper;
+import com.muyingmall.mapper.SeckillActivityMapper;
+import com.muyingmall.mapper.SeckillProductMapper;
+import com.muyingmall.service.SeckillParticipationIndex;
+import com.muyingmall.service.SeckillStockReconcileService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.Invocation;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+/**
+ * 分桶库存并发测试。
+ * 目标：真实 Lua 脚本在并发扣减下不超卖，首选桶耗尽后能回退到相邻桶把库存卖完，聚合库存与分桶一致；
+ * 售罄或低库存时单次请求访问的分桶数有上限，已售罄时不访问分桶。
+ */
+class SeckillStockBucketConcurrencyTest {
+
+    private static final long SKU_ID = 11L;
+    private static final long SECKILL_PRODUCT_ID = 96L;
+    private static final int BUCKETS = 8;
+
+    private LuaRedisFixture redis;
+    private SeckillServiceImpl seckillService;
+    private SeckillParticipationIndex participationIndex;
+    private RedisTemplate<String, Object> template;
+    private SeckillSoldOutFlags soldOutFlags;
+
+    @BeforeEach
+    void setUp() {
+        redis = new LuaRedisFixture();
+        template = redis.mockTemplate();
+        participationIndex = new SeckillParticipationIndex(template);
+        participationIndex.init();
+        soldOutFlags = mock(SeckillSoldOutFlags.class);
+        seckillService = new SeckillServiceImpl(
+                template,
+                mock(ProductSkuMapper.class),
+                mock(SeckillProductMapper.class),
+                mock(SeckillActivityMapper.class),
+                soldOutFlags,
+                mock(SeckillStockReconcileService.class),
+                participationIndex);
+        seckillService.initLuaScripts();
+    }
+
+    @Test
+    void initSeckillStock_shouldSplitStockAcrossBuckets() {
+        seckillService.initSeckillStock(SKU_ID, 101, BUCKETS);
+
+        assertEquals(BUCKETS, seckillService.getStockBucketCount(SKU_ID));
+        assertEquals(101, seckillService.getRedisStock(SKU_ID));
+        // 余数分给前几个桶，单Key被移除
+        assertEquals(13, redis.get(SeckillServiceImpl.bucketKey(SKU_ID, 0)));
+        assertEquals(12, redis.get(SeckillServiceImpl.bucketKey(SKU_ID, BUCKETS - 1)));
+        assertNull(redis.get("seckill:stock:" + SKU_ID));
+    }
+
+    @Test
+    void deductStockWithLua_shouldNotOversellUnderConcurrency() throws Exception {
+        int stock = 100;
+        int users = 1000;
+        seckillService.initSeckillStock(SKU_ID, stock, BUCKETS);
+
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int userId = 1; userId <= users; userId++) {
+            int uid = userId;
+            futures.add(pool.submit(() -> {
+                start.await();
+                int result = seckillService.deductStockWithLua(SECKILL_PRODUCT_ID, SKU_ID, 1, uid, 60L);
+                if (result == 1) {
+                    success.incrementAndGet();
+                } else if (result == -1) {
+                    soldOut.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // 成功数恰好等于库存：不超卖，也不会因首选桶耗尽而少卖
+        assertEquals(stock, success.get());
+        assertEquals(users - stock, soldOut.get());
+        assertEquals(0, seckillService.getRedisStock(SKU_ID));
+        for (int i = 0; i < BUCKETS; i++) {
+            assertTrue((Integer) redis.get(SeckillServiceImpl.bucketKey(SKU_ID, i)) >= 0);
+        }
+    }
+
+    @Test
+    void deductStockWithLua_shouldFallBackToNeighbourBuckets() {
+        seckillService.initSeckillStock(SKU_ID, 8, BUCKETS);
+
+        // 每桶仅1件，购买3件必须跨桶扣减
+        assertEquals(1, seckillService.deductStockWithLua(SECKILL_PRODUCT_ID, SKU_ID, 3, 7, 60L));
+        assertEquals(5, seckillService.getRedisStock(SKU_ID));
+        // 参与索引：userId*2 为待支付位
+        assertTrue(redis.getBit("seckill:participation:" + SECKILL_PRODUCT_ID, 14));
+
+        // 同一用户重复参与被拒绝，超过剩余总量返回库存不足
+        assertEquals(-2, seckillService.deductStockWithLua(SECKILL_PRODUCT_ID, SKU_ID, 1, 7, 60L));
+        assertEquals(-1, seckillService.deductStockWithLua(SECKILL_PRODUCT_ID, SKU_ID, 6, 8, 60L));
+        assertEquals(5, seckillService.getRedisStock(SKU_ID));
+    }
+
+    @Test
+    void restoreStockWithLua_shouldReturnStockAndAllowUserAgain() {
+        seckillService.initSeckillStock(SKU_ID, 8, BUCKETS);
+        seckillService.deductStockWithLua(SECKILL_PRODUCT_ID, SKU_ID, 2, 7, 60L);
+
+        assertEquals(1, seckillService.restoreStockWithLua(SECKILL_PRODUCT_ID, SKU_ID, 2, 7));
+
+        assertEquals(8, seckillService.getRedisStock(SKU_ID));
+        assertEquals(1, seckillService.deductStockWithLua(SECKILL_PRODUCT_ID, SKU_ID, 1, 7, 60L));
+    }
+
+    @Test
+    void initSeckillStock_shouldSwitchBackToSingleKey() {
+        seckillService.initSeckillStock(SKU_ID, 16, BUCKETS);
+        seckillService.initSeckillStock(SKU_ID, 5, 1);
+
+        assertEquals(1, seckillService.getStockBucketCount(SKU_ID));
+        assertEquals(5, seckillService.getRedisStock(SKU_ID));
+        assertNull(redis.get(SeckillServiceImpl.bucketKey(SKU_ID, 0)));
+        assertEquals(1, seckillService.deductStockWithLua(SECKILL_PRODUCT_ID, SKU_ID, 1, 7, 60L));
+        assertEquals(4, seckillService.getRedisStock(SKU_ID));
+    }
+
+    @Test
+    void participationIndex_shouldTrackPendingPurchasedAndRelease() {
+        seckillService.initSeckillStock(SKU_ID, 8, BUCKETS);
+        assertEquals(SeckillParticipationIndex.MISSING, participationIndex.getState(SECKILL_PRODUCT_ID, 7));
+
+        seckillService.deductStockWithLua(SECKILL_PRODUCT_ID, SKU_ID, 1, 7, 60L);
+        seckillService.deductStockWithLua(SECKILL_PRODUCT_ID, SKU_ID, 1, 8, 60L);
+        assertEquals(SeckillParticipationIndex.PENDING, participationIndex.getState(SECKILL_PRODUCT_ID, 7));
+        assertEquals(SeckillParticipationIndex.NONE, participationIndex.getState(SECKILL_PRODUCT_ID, 9));
+
+        // 支付成功：待支付 → 已购买，已购买用户仍不能再次扣减
+        participationIndex.markPurchased(SECKILL_PRODUCT_ID, 7);
+        assertEquals(SeckillParticipationIndex.PURCHASED, participationIndex.getState(SECKILL_PRODUCT_ID, 7));
+        assertEquals(-2, seckillService.deductStockWithLua(SECKILL_PRODUCT_ID, SKU_ID, 1, 7, 60L));
+
+        // 超时释放只清除待支付位
+        seckillService.restoreStockWithLua(SECKILL_PRODUCT_ID, SKU_ID, 1, 8);
+        assertEquals(SeckillParticipationIndex.NONE, participationIndex.getState(SECKILL_PRODUCT_ID, 8));
+        assertFalse(redis.getBit("seckill:participation:" + SECKILL_PRODUCT_ID, 16));
+        assertEquals(SeckillParticipationIndex.PURCHASED, participationIndex.getState(SECKILL_PRODUCT_ID, 7));
+    }
+
+    @Test
+    void everyScriptCall_shouldTouchSingleKey() {
+        seckillService.initSeckillStock(SKU_ID, 8, BUCKETS);
+
+        // 跨桶扣减、去重、回补与无用户的预扣/回补都只对单个Key执行脚本
+        assertEquals(1, seckillService.deductStockWithLua(SECKILL_PRODUCT_ID, SKU_ID, 3, 7, 60L));
+        assertEquals(-1, seckillService.deductStockWithLua(SECKILL_PRODUCT_ID, SKU_ID, 6, 8, 60L));
+        assertEquals(1, seckillService.restoreStockWithLua(SECKILL_PRODUCT_ID, SKU_ID, 3, 7));
+        assertTrue(seckillService.preDeductStock(SKU_ID, 2));
+        seckillService.restoreRedisStock(SKU_ID, 2);
+
+        List<Invocation> scriptCalls = mockingDetails(template).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("execute"))
+                .toList();
+        assertFalse(scriptCalls.isEmpty());
+        for (Invocation invocation : scriptCalls) {
+            assertEquals(1, ((List<?>) invocation.getArgument(1)).size(), invocation.toString());
+        }
+        assertEquals(8, seckillService.getRedisStock(SKU_ID));
+        // 用户8库存不足，待支付位已撤销；不再写入占位的参与索引Key
+        assertEquals(SeckillParticipationIndex.NONE, participationIndex.getState(SECKILL_PRODUCT_ID, 8));
+        assertNull(redis.getString(SeckillParticipationIndex.KEY_PREFIX + "none"));
+    }
+
+    @Test
+    void deductFromBuckets_shouldCapProbesAndSkipBucketsSeenEmpty() {
+        int buckets = 32;
+        seckillService.initSeckillStock(SKU_ID, 0, buckets);
+
+        // 每次最多访问 MAX_BUCKET_PROBES 个分桶，探测为空的分桶不再访问；全部为空后不再访问 Redis
+        for (int i = 0; i < buckets / SeckillServiceImpl.MAX_BUCKET_PROBES; i++) {
+            assertFalse(seckillService.preDeductStock(SKU_ID, 1));
+            assertEquals((i + 1) * SeckillServiceImpl.MAX_BUCKET_PROBES, bucketScriptCalls());
+        }
+        assertFalse(seckillService.preDeductStock(SKU_ID, 1));
+        assertEquals(buckets, bucketScriptCalls());
+    }
+
+    @Test
+    void restoreRedisStock_shouldClearEmptyBucketHint() {
+        seckillService.initSeckillStock(SKU_ID, 0, BUCKETS);
+        assertFalse(seckillService.preDeductStock(SKU_ID, 1));
+
+        seckillService.restoreRedisStock(SKU_ID, 1);
+
+        assertTrue(seckillService.preDeductStock(SKU_ID, 1));
+        assertEquals(0, seckillService.getRedisStock(SKU_ID));
+    }
+
+    @Test
+    void deductStockWithLua_shouldSkipBucketsWhenSoldOut() {
+        seckillService.initSeckillStock(SKU_ID, 8, BUCKETS);
+        when(soldOutFlags.isSoldOut(SECKILL_PRODUCT_ID)).thenReturn(true);
+
+        assertEquals(-1, seckillService.deductStockWithLua(SECKILL_PRODUCT_ID, SKU_ID, 1, 7, 60L));
+
+        assertEquals(0, bucketScriptCalls());
+        assertNotEquals(SeckillParticipationIndex.PENDING, participationIndex.getState(SECKILL_PRODUCT_ID, 7));
+        assertEquals(8, seckillService.getRedisStock(SKU_ID));
+    }
+
+    private long bucketScriptCalls() {
+        String prefix = SeckillServiceImpl.bucketKey(SKU_ID, 0);
+        String bucketPrefix = prefix.substring(0, prefix.length() - 1);
+        return mockingDetails(template).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("execute"))
+                .filter(invocation -> ((List<?>) invocation.getArgument(1)).stream()
+                        .anyMatch(key -> String.valueOf(key).startsWith(bucketPrefix)))
+                .count();
+    }
+}
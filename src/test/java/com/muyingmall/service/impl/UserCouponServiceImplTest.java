@@ -1,6 +1,7 @@
 package com.muyingmall.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.muyingmall.cache.CacheNamespaces;
 import com.muyingmall.entity.UserCoupon;
 import com.muyingmall.fixtures.CouponFixtures;
 import com.muyingmall.mapper.UserCouponMapper;
@@ -45,6 +46,9 @@ class UserCouponServiceImplTest {
     @Mock
     private RedisUtil redisUtil;
 
+    @Mock
+    private CacheNamespaces cacheNamespaces;
+
     @InjectMocks
     private UserCouponServiceImpl userCouponService;
 
@@ -8,6 +8,7 @@ import com.muyingmall.mapper.OrderMapper;
 import com.muyingmall.mapper.UserCouponMapper;
 import com.muyingmall.mapper.UserMapper;
 import com.muyingmall.mapper.UserPointsMapper;
+import com.muyingmall.service.BloomFilterService;
 import com.muyingmall.service.UserAccountService;
 import com.muyingmall.util.JwtUtils;
 import com.muyingmall.util.RedisUtil;
@@ -38,9 +39,10 @@ import static org.mockito.Mockito.verify;
 /**
  * 用户服务 · 单元测试。
  * 覆盖：
- *   - getUserById：null 兜底 / 缓存命中 / 缓存未命中 DB 命中并回写 / DB 未命中不写缓存
+ *   - getUserById：null 兜底 / 缓存命中 / 缓存未命中 DB 命中并回写 / DB 未命中不写缓存 / 布隆过滤器拦截
  *   - verifyPassword：委托 PasswordEncoder
  *   - generateToken：委托 JwtUtils
+ *   - updateUser：改密码/状态时按令牌索引清除会话，不遍历键空间
  */
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -71,6 +73,10 @@ class UserServiceImplTest {
     private UserPointsMapper userPointsMapper;
     @Mock
     private UserCouponMapper userCouponMapper;
+    @Mock
+    private BloomFilterService bloomFilterService;
+    @Mock
+    private LoginCacheService loginCacheService;
 
     @InjectMocks
     private UserServiceImpl userService;
@@ -78,6 +84,7 @@ class UserServiceImplTest {
     @BeforeEach
     void setUp() {
         ReflectionTestUtils.setField(userService, "baseMapper", userMapper);
+        given(bloomFilterService.mightContain(anyString(), any())).willReturn(true);
     }
 
     @Nested
@@ -136,6 +143,21 @@ class UserServiceImplTest {
             assertThat(result).isNull();
             verify(redisUtil, never()).set(anyString(), any(), anyLong());
         }
+
+        @Test
+        @DisplayName("布隆过滤器判定不存在时不查询缓存与数据库")
+        void getUserById_shouldReturnNull_whenBloomFilterRejects() {
+            // Given
+            given(bloomFilterService.mightContain(BloomFilterService.USER, 9999)).willReturn(false);
+
+            // When
+            User result = userService.getUserById(9999);
+
+            // Then
+            assertThat(result).isNull();
+            verify(redisUtil, never()).get(anyString());
+            verify(userMapper, never()).selectById(any());
+        }
     }
 
     @Nested
@@ -172,4 +194,42 @@ class UserServiceImplTest {
             verify(jwtUtils).generateToken(9, "alice", "user");
         }
     }
+
+    @Nested
+    @DisplayName("updateUser(user)")
+    class UpdateUser {
+
+        @Test
+        @DisplayName("状态变更时应按令牌索引清除该用户会话，且不遍历键空间")
+        void updateUser_shouldClearSessionsByIndex_whenStatusChanged() {
+            // Given
+            User user = new User();
+            user.setUserId(9);
+            user.setStatus(0);
+            given(userMapper.updateById(any(User.class))).willReturn(1);
+
+            // When
+            userService.updateUser(user);
+
+            // Then
+            verify(loginCacheService).clearUserSessions(9);
+            verify(redisUtil, never()).keys(anyString());
+        }
+
+        @Test
+        @DisplayName("仅更新资料时不清除会话")
+        void updateUser_shouldKeepSessions_whenOnlyProfileChanged() {
+            // Given
+            User user = new User();
+            user.setUserId(9);
+            user.setNickname("alice");
+            given(userMapper.updateById(any(User.class))).willReturn(1);
+
+            // When
+            userService.updateUser(user);
+
+            // Then
+            verify(loginCacheService, never()).clearUserSessions(any());
+        }
+    }
 }
@@ -0,0 +1,115 @@
+package com.muyingmall.task;
+
+import com.muyingmall.aspect.ClusterJobAspect;
+import com.muyingmall.cache.NodeIdentifier;
+import com.muyingmall.config.properties.ClusterJobProperties;
+import com.muyingmall.config.properties.OrderTimeoutProperties;
+import com.muyingmall.job.ClusterJobCoordinator;
+import com.muyingmall.job.ClusterJobMetrics;
+import com.muyingmall.lock.DistributedLock;
+import com.muyingmall.mapper.OrderMapper;
+import com.muyingmall.mapper.OrderProductMapper;
+import com.muyingmall.mapper.OrderStateLogMapper;
+import com.muyingmall.mapper.ProductMapper;
+import com.muyingmall.mapper.SeckillOrderMapper;
+import com.muyingmall.service.OrderTimeoutService;
+import com.muyingmall.service.ProductSkuService;
+import com.muyingmall.service.SeckillOrderReleaseService;
+import com.muyingmall.util.RedisUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单超时任务测试。
+ * 目标：集群协调关闭（单节点）时，预加载与到期扫描覆盖延迟队列的全部分片，而不是只处理分片 0。
+ */
+class OrderTimeoutTaskTest {
+
+    private static final int QUEUE_SHARDS = 4;
+    private static final String QUEUE_KEY_PREFIX = "order:timeout:";
+
+    private StringRedisTemplate stringRedisTemplate;
+    private ZSetOperations<String, String> zSetOperations;
+    private ClusterJobCoordinator coordinator;
+    private OrderTimeoutService orderTimeoutService;
+    private OrderTimeoutTask task;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        zSetOperations = mock(ZSetOperations.class);
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of());
+
+        OrderTimeoutProperties properties = new OrderTimeoutProperties();
+        properties.setShards(QUEUE_SHARDS);
+        orderTimeoutService = new OrderTimeoutService(mock(OrderMapper.class), mock(OrderProductMapper.class),
+                mock(OrderStateLogMapper.class), mock(ProductMapper.class), mock(ProductSkuService.class),
+                mock(SeckillOrderMapper.class), mock(SeckillOrderReleaseService.class),
+                mock(ApplicationEventPublisher.class), stringRedisTemplate, mock(DistributedLock.class),
+                new NodeIdentifier(), mock(RedisUtil.class), properties, mock(PlatformTransactionManager.class));
+
+        ClusterJobProperties clusterJobProperties = new ClusterJobProperties();
+        clusterJobProperties.setEnabled(false);
+        coordinator = mock(ClusterJobCoordinator.class);
+        AspectJProxyFactory factory = new AspectJProxyFactory(new OrderTimeoutTask(orderTimeoutService, properties));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ClusterJobAspect(coordinator, new ClusterJobMetrics(new SimpleMeterRegistry()),
+                clusterJobProperties, new MockEnvironment().withProperty("order.timeout.shards", "8")));
+        task = factory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderTimeoutService.shutdown();
+    }
+
+    @Test
+    void loadUpcoming_shouldCoverAllQueueShardsWhenCoordinationDisabled() {
+        task.loadUpcoming();
+
+        for (int shard = 0; shard < QUEUE_SHARDS; shard++) {
+            verify(zSetOperations).rangeByScoreWithScores(eq(QUEUE_KEY_PREFIX + shard),
+                    anyDouble(), anyDouble(), anyLong(), anyLong());
+        }
+        verifyNoInteractions(coordinator);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void claimDue_shouldCoverAllQueueShardsWhenCoordinationDisabled() {
+        task.claimDue();
+
+        verify(stringRedisTemplate, times(QUEUE_SHARDS)).execute(any(RedisScript.class), anyList(),
+                any(Object[].class));
+        for (int shard = 0; shard < QUEUE_SHARDS; shard++) {
+            verify(stringRedisTemplate).execute(any(RedisScript.class),
+                    eq(List.of(QUEUE_KEY_PREFIX + shard)), any(Object[].class));
+        }
+        verifyNoInteractions(coordinator);
+    }
+}
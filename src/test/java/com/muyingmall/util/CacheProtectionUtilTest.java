@@ -0,0 +1,196 @@
+package com.muyingmall.util;
+
+import com.muyingmall.cache.CacheEnvelope;
+import com.muyingmall.cache.CacheFillNotifier;
+import com.muyingmall.cache.CacheMetrics;
+import com.muyingmall.cache.LocalCache;
+import com.muyingmall.cache.CacheNamespaces;
+import com.muyingmall.cache.CachePolicy;
+import com.muyingmall.cache.CacheRefresher;
+import com.muyingmall.cache.SingleFlight;
+import com.muyingmall.common.constants.CacheConstants;
+import com.muyingmall.service.BloomFilterService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 缓存击穿防护测试。
+ * 目标：持锁节点回源一次并广播回填；未抢到锁的节点由回填广播唤醒，不再固定间隔轮询也不查询数据库；
+ * 软过期条目立即返回旧值并由后台刷新，提前刷新窗口内的访问同样触发后台刷新。
+ */
+class CacheProtectionUtilTest {
+
+    private static final String CACHE_KEY = "product:detail:1";
+    private static final String LOCK_KEY = "lock:product:detail:1";
+    private static final CachePolicy POLICY = new CachePolicy(600, 1800, 120);
+
+    private RedisUtil redisUtil;
+    private StringRedisTemplate stringRedisTemplate;
+    private CacheFillNotifier notifier;
+    private CacheProtectionUtil cacheProtectionUtil;
+    private CacheMetrics cacheMetrics;
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        notifier = new CacheFillNotifier(stringRedisTemplate);
+        SingleFlight singleFlight = new SingleFlight();
+        ReflectionTestUtils.setField(singleFlight, "waitTimeoutMs", 3000L);
+
+        CacheRefresher cacheRefresher = new CacheRefresher(redisUtil);
+        ReflectionTestUtils.setField(cacheRefresher, "lockSeconds", 30L);
+
+        cacheMetrics = new CacheMetrics(new SimpleMeterRegistry(), mock(LocalCache.class));
+
+        cacheProtectionUtil = new CacheProtectionUtil(redisUtil, mock(CacheNamespaces.class),
+                mock(BloomFilterService.class), singleFlight, notifier, cacheRefresher, cacheMetrics);
+        // 等待上限设得很长：测试能在远小于上限的时间内返回，说明是被广播唤醒而非超时
+        ReflectionTestUtils.setField(cacheProtectionUtil, "fillWaitMs", 5000L);
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void queryWithMutex_shouldLoadOnceAndPublishFillWhenLockAcquired() {
+        when(redisUtil.setIfAbsent(LOCK_KEY, "1", 10L)).thenReturn(true);
+        AtomicInteger dbCalls = new AtomicInteger();
+
+        String result = cacheProtectionUtil.queryWithMutex(CACHE_KEY, LOCK_KEY, 3600, () -> {
+            dbCalls.incrementAndGet();
+            return "detail";
+        });
+
+        assertEquals("detail", result);
+        assertEquals(1, dbCalls.get());
+        verify(redisUtil).set(eq(CACHE_KEY), eq("detail"), anyLong());
+        verify(redisUtil).del(LOCK_KEY);
+        verify(stringRedisTemplate).convertAndSend(CacheConstants.CACHE_FILL_CHANNEL, CACHE_KEY);
+    }
+
+    @Test
+    void queryWithMutex_shouldWakeOnFillNoticeWithoutQueryingDb() {
+        when(redisUtil.setIfAbsent(anyString(), anyString(), anyLong())).thenReturn(false);
+        AtomicReference<Object> cached = new AtomicReference<>();
+        when(redisUtil.get(CACHE_KEY)).thenAnswer(invocation -> cached.get());
+        AtomicInteger dbCalls = new AtomicInteger();
+        Callable<String> dbFallback = () -> {
+            dbCalls.incrementAndGet();
+            return "from-db";
+        };
+
+        // 模拟另一个节点持锁回源：100ms 后写入缓存并广播
+        scheduler.schedule(() -> {
+            cached.set("detail");
+            notifier.publish(CACHE_KEY);
+        }, 100, TimeUnit.MILLISECONDS);
+
+        long start = System.currentTimeMillis();
+        String result = CompletableFuture.supplyAsync(
+                () -> cacheProtectionUtil.queryWithMutex(CACHE_KEY, LOCK_KEY, 3600, dbFallback)).join();
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals("detail", result);
+        assertEquals(0, dbCalls.get());
+        assertTrue(elapsed < 2000, "elapsed " + elapsed + "ms");
+        CacheMetrics.NamespaceSavings savings = cacheMetrics.savings().get(0);
+        assertEquals(1, savings.misses());
+        assertEquals(1, savings.lockContention());
+        assertEquals(0, savings.loads());
+    }
+
+    @Test
+    void queryWithSoftTtl_shouldServeStaleValueWhileRefreshingInBackground() throws Exception {
+        long now = System.currentTimeMillis();
+        when(redisUtil.get(CACHE_KEY)).thenReturn(new CacheEnvelope("stale", now - 2000, now - 1000));
+        when(redisUtil.setIfAbsent("lock:cache:refresh:" + CACHE_KEY, "1", 30L)).thenReturn(true);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger dbCalls = new AtomicInteger();
+
+        // 回源被阻塞期间请求仍然立即返回旧值
+        String result = cacheProtectionUtil.queryWithSoftTtl(CACHE_KEY, POLICY, () -> {
+            dbCalls.incrementAndGet();
+            release.await();
+            return "fresh";
+        });
+        assertEquals("stale", result);
+
+        // 同一节点上重复读取不会再提交刷新任务
+        cacheProtectionUtil.queryWithSoftTtl(CACHE_KEY, POLICY, () -> {
+            dbCalls.incrementAndGet();
+            return "fresh";
+        });
+        release.countDown();
+
+        verify(redisUtil, timeout(2000)).set(eq(CACHE_KEY),
+                argThat(value -> value instanceof CacheEnvelope envelope && "fresh".equals(envelope.getValue())),
+                eq(1800L));
+        assertEquals(1, dbCalls.get());
+    }
+
+    @Test
+    void queryWithSoftTtl_shouldRefreshAheadOnlyInsideWindow() {
+        long now = System.currentTimeMillis();
+        when(redisUtil.setIfAbsent(anyString(), anyString(), anyLong())).thenReturn(true);
+        AtomicInteger dbCalls = new AtomicInteger();
+        Callable<String> loader = () -> {
+            dbCalls.incrementAndGet();
+            return "fresh";
+        };
+
+        // 未到提前刷新窗口：直接返回，不回源
+        when(redisUtil.get(CACHE_KEY)).thenReturn(new CacheEnvelope("cached", now + 60_000, now + 180_000));
+        assertEquals("cached", cacheProtectionUtil.queryWithSoftTtl(CACHE_KEY, POLICY, loader));
+
+        // 进入提前刷新窗口但未软过期：返回当前值并后台刷新
+        when(redisUtil.get(CACHE_KEY)).thenReturn(new CacheEnvelope("cached", now - 1000, now + 60_000));
+        assertEquals("cached", cacheProtectionUtil.queryWithSoftTtl(CACHE_KEY, POLICY, loader));
+
+        verify(redisUtil, timeout(2000)).set(eq(CACHE_KEY), any(CacheEnvelope.class), eq(1800L));
+        assertEquals(1, dbCalls.get());
+    }
+
+    @Test
+    void queryWithSoftTtl_shouldLoadAndWriteEnvelopeOnMiss() {
+        when(redisUtil.setIfAbsent("lock:" + CACHE_KEY, "1", 10L)).thenReturn(true);
+
+        String result = cacheProtectionUtil.queryWithSoftTtl(CACHE_KEY, POLICY, () -> "detail");
+
+        assertEquals("detail", result);
+        verify(redisUtil).set(eq(CACHE_KEY), argThat(value -> value instanceof CacheEnvelope envelope
+                && "detail".equals(envelope.getValue())
+                && envelope.getRefreshAt() == envelope.getSoftExpireAt() - 120_000), eq(1800L));
+        verify(redisUtil, never()).set(eq(CACHE_KEY), eq("detail"), anyLong());
+    }
+}
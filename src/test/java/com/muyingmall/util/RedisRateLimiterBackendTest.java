@@ -0,0 +1,102 @@
+package com.muyingmall.util;
+
+import com.muyingmall.fixtures.LuaRedisFixture;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 集群限流测试。
+ * 目标：多个节点共享同一份配额；租借的令牌在本地消费不访问 Redis；被限流后在等待期内本地直接拒绝。
+ */
+class RedisRateLimiterBackendTest {
+
+    private static final RateLimitPolicy POLICY = new RateLimitPolicy("test", 10.0, 10, 5);
+
+    private LuaRedisFixture redis;
+    private RedisTemplate<String, Object> template;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        redis = new LuaRedisFixture();
+        redis.setClockMillis(1_700_000_000_000L);
+        template = redis.mockTemplate();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void tryAcquire_shouldShareQuotaAcrossNodes() {
+        RedisRateLimiterBackend nodeA = newBackend(template);
+        RedisRateLimiterBackend nodeB = newBackend(template);
+
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            allowed += nodeA.tryAcquire(POLICY, "1.2.3.4") ? 1 : 0;
+            allowed += nodeB.tryAcquire(POLICY, "1.2.3.4") ? 1 : 0;
+        }
+
+        // 两个节点合计不超过突发容量，而不是每个节点各 10 个
+        assertEquals(10, allowed);
+    }
+
+    @Test
+    void tryAcquire_shouldServeLeasedTokensLocally() {
+        RedisRateLimiterBackend backend = newBackend(template);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(backend.tryAcquire(POLICY, "user"));
+        }
+
+        // 一次租借 5 个令牌，只访问一次 Redis
+        verify(template, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        assertEquals(4.0, meterRegistry.get("rate.limit.requests").tag("source", "lease").counter().count());
+    }
+
+    @Test
+    void tryAcquire_shouldDenyLocallyWhileBlocked() {
+        RedisRateLimiterBackend backend = newBackend(template);
+        RateLimitPolicy single = new RateLimitPolicy("single", 1.0, 1, 1);
+
+        assertTrue(backend.tryAcquire(single, "user"));
+        assertFalse(backend.tryAcquire(single, "user"));
+        assertFalse(backend.tryAcquire(single, "user"));
+
+        // 第二次被限流后记录等待时间，第三次不再访问 Redis
+        verify(template, times(2)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        assertEquals(1.0, meterRegistry.get("rate.limit.requests")
+                .tags("source", "lease", "result", "denied").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tryAcquire_shouldFallBackToLocalLimiterWhenRedisFails() {
+        RedisTemplate<String, Object> broken = mock(RedisTemplate.class);
+        when(broken.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new IllegalStateException("connection refused"));
+        RedisRateLimiterBackend backend = newBackend(broken);
+
+        assertTrue(backend.tryAcquire(POLICY, "user"));
+        assertEquals(1.0, meterRegistry.get("rate.limit.requests").tag("source", "local").counter().count());
+    }
+
+    private RedisRateLimiterBackend newBackend(RedisTemplate<String, Object> redisTemplate) {
+        RedisRateLimiterBackend backend = new RedisRateLimiterBackend(redisTemplate, meterRegistry);
+        ReflectionTestUtils.setField(backend, "leaseTtlMs", 1000L);
+        backend.init();
+        return backend;
+    }
+}
@@ -0,0 +1,69 @@
+package com.muyingmall.util;
+
+import com.muyingmall.fixtures.LuaRedisFixture;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 秒杀入口限流测试。
+ * 目标：IP 维度按租约在本地消费，同一 IP 的多个请求只访问一次 Redis；IP 被限流时不再检查用户维度。
+ */
+class SeckillRateLimiterTest {
+
+    private static final String IP_KEY = "rate:limit:seckill-ip:1.2.3.4";
+
+    private RedisTemplate<String, Object> template;
+    private SeckillRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        LuaRedisFixture redis = new LuaRedisFixture();
+        redis.setClockMillis(1_700_000_000_000L);
+        template = redis.mockTemplate();
+        RedisRateLimiterBackend backend = new RedisRateLimiterBackend(template, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(backend, "leaseTtlMs", 1000L);
+        backend.init();
+        limiter = new SeckillRateLimiter(backend);
+    }
+
+    @Test
+    void tryAcquire_shouldServeIpTokensFromLocalLease() {
+        for (int userId = 1; userId <= 3; userId++) {
+            assertTrue(limiter.tryAcquire("1.2.3.4", userId, 100L));
+        }
+
+        // IP 维度一次租借整桶令牌，三次请求只访问一次 Redis；用户维度各一次
+        verify(template, times(1)).execute(any(RedisScript.class), eq(List.of(IP_KEY)),
+                any(Object[].class));
+        verify(template, times(4)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void tryAcquire_shouldSkipUserCheckWhenIpLimited() {
+        for (int userId = 1; userId <= 3; userId++) {
+            limiter.tryAcquire("1.2.3.4", userId, 100L);
+        }
+
+        assertFalse(limiter.tryAcquire("1.2.3.4", 4, 100L));
+        assertFalse(limiter.tryAcquire("1.2.3.4", 5, 100L));
+
+        // 第 4 个请求 IP 租约耗尽、向 Redis 申请被拒并记录等待时间；第 5 个请求本地直接拒绝，均不检查用户维度
+        verify(template, times(2)).execute(any(RedisScript.class), eq(List.of(IP_KEY)),
+                any(Object[].class));
+        verify(template, times(5)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+}
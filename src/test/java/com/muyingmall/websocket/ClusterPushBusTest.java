@@ -0,0 +1,180 @@
+package com.muyingmall.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muyingmall.cache.NodeIdentifier;
+import com.muyingmall.common.constants.CacheConstants;
+import com.muyingmall.fixtures.LuaRedisFixture;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 集群推送测试。
+ * 目标：本节点持有连接时直接投递不发布；否则按连接归属只发布到持有连接的节点的专属频道，目标不在线时不发布；
+ * 旧连接关闭不会清除已转移到其他节点的归属；慢连接的出站队列有界，满时丢弃最早消息，发送完成后按序续发。
+ */
+class ClusterPushBusTest {
+
+    private StringRedisTemplate stringRedisTemplate;
+    private WebSocketSessionRegistry registryA;
+    private WebSocketSessionRegistry registryB;
+    private ClusterPushBus nodeA;
+    private ClusterPushBus nodeB;
+
+    private LuaRedisFixture redis;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redis = new LuaRedisFixture();
+        stringRedisTemplate = redis.mockStringTemplate();
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(anyString())).thenAnswer(invocation -> redis.getString(invocation.getArgument(0)));
+        doAnswer(invocation -> {
+            redis.set(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).when(valueOperations).set(anyString(), anyString(), any(Duration.class));
+        registryA = newRegistry(2);
+        registryB = newRegistry(2);
+        nodeA = newBus(registryA, "node-a");
+        nodeB = newBus(registryB, "node-b");
+    }
+
+    @Test
+    void send_shouldDeliverLocallyWithoutPublishing() {
+        List<String> sent = new ArrayList<>();
+        registryA.register("seckill", "9", session(sent));
+
+        nodeA.send("seckill", "9", "hello");
+
+        assertEquals(List.of("hello"), sent);
+        verify(stringRedisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    void send_shouldRouteToOwningNodeOnly() throws Exception {
+        List<String> sentOnB = new ArrayList<>();
+        nodeB.register("seckill", "9", session(sentOnB));
+        assertEquals("node-b", redis.getString("ws:owner:seckill:9"));
+
+        nodeA.send("seckill", "9", "{\"type\":\"SUCCESS\"}");
+
+        // 只发布到归属节点的专属频道，不再发布到所有节点共享的频道
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).convertAndSend(eq("ws:push:node:node-b"), body.capture());
+        verify(stringRedisTemplate, never()).convertAndSend(eq(CacheConstants.WEBSOCKET_PUSH_CHANNEL), anyString());
+        WebSocketPushMessage message = new ObjectMapper().readValue(body.getValue(), WebSocketPushMessage.class);
+
+        // 源节点忽略自己发出的消息，持有连接的节点投递原始文本
+        nodeA.deliverRemote(message);
+        nodeB.deliverRemote(message);
+        assertEquals(List.of("{\"type\":\"SUCCESS\"}"), sentOnB);
+    }
+
+    @Test
+    void send_shouldNotPublishWhenTargetOffline() {
+        List<String> sentOnB = new ArrayList<>();
+        Session session = session(sentOnB);
+        nodeB.register("seckill", "9", session);
+        nodeB.unregister("seckill", "9", session);
+        assertNull(redis.getString("ws:owner:seckill:9"));
+
+        nodeA.send("seckill", "9", "hello");
+        nodeA.send("seckill", "10", "hello");
+
+        verify(stringRedisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    void unregister_shouldKeepOwnershipMovedToAnotherNode() {
+        Session onA = session(new ArrayList<>());
+        List<String> sentOnB = new ArrayList<>();
+        nodeA.register("seckill", "9", onA);
+        // 用户重连到节点B后，节点A上的旧连接才关闭
+        nodeB.register("seckill", "9", session(sentOnB));
+        nodeA.unregister("seckill", "9", onA);
+
+        assertEquals("node-b", redis.getString("ws:owner:seckill:9"));
+        verify(stringRedisTemplate, never()).convertAndSend(anyString(), anyString());
+        nodeA.send("seckill", "9", "hello");
+        verify(stringRedisTemplate).convertAndSend(eq("ws:push:node:node-b"), anyString());
+    }
+
+    @Test
+    void send_shouldQueueWhileInFlightAndDropOldestWhenFull() {
+        List<String> sent = new ArrayList<>();
+        List<SendHandler> handlers = new ArrayList<>();
+        Session session = mock(Session.class);
+        RemoteEndpoint.Async async = mock(RemoteEndpoint.Async.class);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getAsyncRemote()).thenReturn(async);
+        doAnswer(invocation -> {
+            sent.add(invocation.getArgument(0));
+            handlers.add(invocation.getArgument(1));
+            return null;
+        }).when(async).sendText(anyString(), any(SendHandler.class));
+        registryA.register("admin", "1", session);
+
+        for (int i = 1; i <= 4; i++) {
+            nodeA.send("admin", "1", "m" + i);
+        }
+
+        // m1 在途，队列容量2：m2 被 m4 挤出
+        assertEquals(List.of("m1"), sent);
+        handlers.get(0).onResult(new SendResult());
+        handlers.get(1).onResult(new SendResult());
+        assertEquals(List.of("m1", "m3", "m4"), sent);
+    }
+
+    private Session session(List<String> sent) {
+        Session session = mock(Session.class);
+        RemoteEndpoint.Async async = mock(RemoteEndpoint.Async.class);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getAsyncRemote()).thenReturn(async);
+        doAnswer(invocation -> {
+            sent.add(invocation.getArgument(0));
+            ((SendHandler) invocation.getArgument(1)).onResult(new SendResult());
+            return null;
+        }).when(async).sendText(anyString(), any(SendHandler.class));
+        return session;
+    }
+
+    private WebSocketSessionRegistry newRegistry(int queueSize) {
+        WebSocketSessionRegistry registry = new WebSocketSessionRegistry();
+        ReflectionTestUtils.setField(registry, "outboundQueueSize", queueSize);
+        return registry;
+    }
+
+    private ClusterPushBus newBus(WebSocketSessionRegistry registry, String nodeId) {
+        NodeIdentifier nodeIdentifier = mock(NodeIdentifier.class);
+        when(nodeIdentifier.getNodeId()).thenReturn(nodeId);
+        ClusterPushBus bus = new ClusterPushBus(registry, stringRedisTemplate, nodeIdentifier, new ObjectMapper());
+        ReflectionTestUtils.setField(bus, "clusterEnabled", true);
+        ReflectionTestUtils.setField(bus, "ownerTtlSeconds", 60L);
+        bus.initLuaScripts();
+        return bus;
+    }
+}